@@ -0,0 +1,209 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Compares two JMH result files written with {@code -rf json} and reports the change in score
+ * and in normalized allocation rate (from {@code -prof gc}) for every benchmark present in both.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar org.kaazing.gateway.benchmarks.BenchmarkComparison \
+ *     baseline.json current.json [threshold-percent]
+ * </pre>
+ *
+ * A benchmark is reported as a regression when its score moves in the wrong direction by more than
+ * the threshold (5% by default) and by more than the combined score error of both runs, or when it
+ * allocates more bytes per operation than the threshold allows.  The exit status is the number of
+ * regressions so that the report can gate a build.
+ */
+public final class BenchmarkComparison {
+
+    static final double DEFAULT_THRESHOLD = 5.0;
+
+    private static final String GC_ALLOC_RATE_NORM = "\u00b7gc.alloc.rate.norm";
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String... args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json> [threshold-percent]");
+            System.exit(-1);
+        }
+
+        Map<String, Result> baseline = parse(read(args[0]));
+        Map<String, Result> current = parse(read(args[1]));
+        double threshold = (args.length > 2) ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+
+        List<Delta> deltas = compare(baseline, current, threshold);
+        int regressions = report(deltas, System.out);
+        System.exit(regressions);
+    }
+
+    static Map<String, Result> parse(String json) throws JSONException {
+        Map<String, Result> results = new TreeMap<>();
+        JSONArray entries = new JSONArray(json);
+        for (int i = 0; i < entries.length(); i++) {
+            JSONObject entry = entries.getJSONObject(i);
+            JSONObject primary = entry.getJSONObject("primaryMetric");
+
+            double allocNorm = Double.NaN;
+            JSONObject secondary = entry.optJSONObject("secondaryMetrics");
+            if (secondary != null) {
+                JSONObject alloc = secondary.optJSONObject(GC_ALLOC_RATE_NORM);
+                if (alloc != null) {
+                    allocNorm = alloc.getDouble("score");
+                }
+            }
+
+            Result result = new Result(entry.getString("benchmark") + params(entry.optJSONObject("params")),
+                                       entry.getString("mode"),
+                                       primary.getDouble("score"),
+                                       primary.optDouble("scoreError", 0.0),
+                                       primary.getString("scoreUnit"),
+                                       allocNorm);
+            results.put(result.name, result);
+        }
+        return results;
+    }
+
+    static List<Delta> compare(Map<String, Result> baseline, Map<String, Result> current, double threshold) {
+        List<Delta> deltas = new ArrayList<>();
+        for (Result after : current.values()) {
+            Result before = baseline.get(after.name);
+            if (before != null && before.mode.equals(after.mode)) {
+                deltas.add(new Delta(before, after, threshold));
+            }
+        }
+        return deltas;
+    }
+
+    static int report(List<Delta> deltas, PrintStream out) {
+        int regressions = 0;
+        out.printf("%-80s %6s %14s %14s %9s %12s %12s  %s%n",
+                   "Benchmark", "Mode", "Baseline", "Current", "Change", "B/op before", "B/op after", "");
+        for (Delta delta : deltas) {
+            String verdict = "";
+            if (delta.isRegression()) {
+                verdict = "REGRESSION";
+                regressions++;
+            }
+            else if (delta.isImprovement()) {
+                verdict = "improved";
+            }
+            out.printf("%-80s %6s %14.3f %14.3f %+8.2f%% %12.1f %12.1f  %s%n",
+                       delta.before.name, delta.after.mode, delta.before.score, delta.after.score,
+                       delta.scoreChange(), delta.before.allocNorm, delta.after.allocNorm, verdict);
+        }
+        out.printf("%d benchmarks compared, %d regressions%n", deltas.size(), regressions);
+        return regressions;
+    }
+
+    private static String params(JSONObject params) throws JSONException {
+        if (params == null || params.length() == 0) {
+            return "";
+        }
+
+        // sort parameters for a stable key regardless of JSON field order
+        Map<String, String> sorted = new TreeMap<>();
+        for (Iterator<?> keys = params.keys(); keys.hasNext();) {
+            String key = (String) keys.next();
+            sorted.put(key, params.getString(key));
+        }
+        return sorted.toString();
+    }
+
+    private static String read(String path) throws IOException {
+        return new String(Files.readAllBytes(Paths.get(path)), UTF_8);
+    }
+
+    static final class Result {
+        final String name;
+        final String mode;
+        final double score;
+        final double error;
+        final String unit;
+        final double allocNorm;
+
+        Result(String name, String mode, double score, double error, String unit, double allocNorm) {
+            this.name = name;
+            this.mode = mode;
+            this.score = score;
+            this.error = Double.isNaN(error) ? 0.0 : error;
+            this.unit = unit;
+            this.allocNorm = allocNorm;
+        }
+    }
+
+    static final class Delta {
+        final Result before;
+        final Result after;
+        private final double threshold;
+
+        Delta(Result before, Result after, double threshold) {
+            this.before = before;
+            this.after = after;
+            this.threshold = threshold;
+        }
+
+        double scoreChange() {
+            return percentChange(before.score, after.score);
+        }
+
+        double allocChange() {
+            return percentChange(before.allocNorm, after.allocNorm);
+        }
+
+        boolean isRegression() {
+            return isSignificant(-1) || (allocChange() > threshold && after.allocNorm - before.allocNorm >= 1.0);
+        }
+
+        boolean isImprovement() {
+            return isSignificant(1);
+        }
+
+        private boolean isSignificant(int direction) {
+            // throughput is better when higher, time-based modes are better when lower
+            int better = "thrpt".equals(after.mode) ? 1 : -1;
+            double change = scoreChange() * better * direction;
+            double difference = Math.abs(after.score - before.score);
+            return change > threshold && difference > before.error + after.error;
+        }
+
+        private static double percentChange(double before, double after) {
+            if (Double.isNaN(before) || Double.isNaN(after) || before == 0.0) {
+                return 0.0;
+            }
+            return (after - before) * 100.0 / before;
+        }
+    }
+}
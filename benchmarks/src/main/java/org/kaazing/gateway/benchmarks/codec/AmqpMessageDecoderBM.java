@@ -0,0 +1,101 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks.codec;
+
+import java.net.SocketAddress;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.service.DefaultTransportMetadata;
+import org.apache.mina.core.session.IoSessionConfig;
+import org.apache.mina.filter.codec.ProtocolEncoder;
+import org.kaazing.gateway.service.amqp.amqp091.codec.AmqpMessageDecoder;
+import org.kaazing.gateway.service.amqp.amqp091.codec.AmqpMessageEncoder;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpCloseMessage;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpTuneMessage;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.filter.codec.ProtocolCodecSessionEx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link AmqpMessageDecoder} on connection-level method frames seen during the
+ * handshake, which is the part of the AMQP proxy that decodes rather than passes through.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class AmqpMessageDecoderBM {
+
+    private ProtocolCodecSessionEx session;
+    private AmqpMessageDecoder decoder;
+    private IoBufferEx tuneFrame;
+    private IoBufferEx closeFrame;
+
+    @Setup
+    public void init() throws Exception {
+        session = new ProtocolCodecSessionEx();
+        session.setTransportMetadata(new DefaultTransportMetadata(
+                "mina", "dummy", false, true,
+                SocketAddress.class, IoSessionConfig.class, Object.class));
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+
+        ProtocolEncoder encoder = new AmqpMessageEncoder(allocator);
+
+        AmqpTuneMessage tune = new AmqpTuneMessage();
+        tune.setMaxChannels(256);
+        tune.setMaxFrameSize(131072);
+        tune.setHeartbeatDelay(60);
+        encoder.encode(session, tune, session.getEncoderOutput());
+        tuneFrame = (IoBufferEx) session.getEncoderOutputQueue().poll();
+
+        AmqpCloseMessage close = new AmqpCloseMessage();
+        close.setReplyCode(320);
+        close.setReplyText("CONNECTION_FORCED - broker forced connection closure");
+        encoder.encode(session, close, session.getEncoderOutput());
+        closeFrame = (IoBufferEx) session.getEncoderOutputQueue().poll();
+
+        // client side decoder starts in READ_FRAME state
+        decoder = new AmqpMessageDecoder(allocator, true);
+    }
+
+    @Benchmark
+    public Object decodeTune() throws Exception {
+        Queue<Object> output = session.getDecoderOutputQueue();
+        decoder.decode(session, (IoBuffer) tuneFrame.duplicate(), session.getDecoderOutput());
+        return output.poll();
+    }
+
+    @Benchmark
+    public Object decodeClose() throws Exception {
+        Queue<Object> output = session.getDecoderOutputQueue();
+        decoder.decode(session, (IoBuffer) closeFrame.duplicate(), session.getDecoderOutput());
+        return output.poll();
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks.codec;
+
+import static org.kaazing.gateway.transport.bridge.CachingMessageEncoder.IO_MESSAGE_ENCODER;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.filter.codec.ProtocolEncoder;
+import org.kaazing.gateway.transport.bridge.CachingMessageEncoder;
+import org.kaazing.gateway.transport.ws.WsBinaryMessage;
+import org.kaazing.gateway.transport.ws.bridge.filter.WsFrameEncoder;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.filter.codec.ProtocolCodecSessionEx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link CachingMessageEncoder} as used for broadcast fan-out, where the first
+ * session to write a message encodes it and every other session reuses the cached buffer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class CachingMessageEncoderBM {
+
+    @Param({"256", "4096"})
+    private int payloadSize;
+
+    private ProtocolCodecSessionEx session;
+    private ProtocolEncoder encoder;
+    private IoBufferEx payload;
+    private WsBinaryMessage cachedMessage;
+
+    @Setup
+    public void init() throws Exception {
+        session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        encoder = new WsFrameEncoder(IO_MESSAGE_ENCODER, allocator, false);
+
+        payload = allocator.wrap(allocator.allocate(payloadSize)).fill((byte) 0x61, payloadSize).flip();
+
+        cachedMessage = new WsBinaryMessage(payload.duplicate());
+        cachedMessage.initCache();
+        encoder.encode(session, cachedMessage, session.getEncoderOutput());
+        session.getEncoderOutputQueue().poll();
+    }
+
+    @Benchmark
+    public Object encodeCacheMiss() throws Exception {
+        WsBinaryMessage message = new WsBinaryMessage(payload.duplicate());
+        message.initCache();
+        encoder.encode(session, message, session.getEncoderOutput());
+        return session.getEncoderOutputQueue().poll();
+    }
+
+    @Benchmark
+    public Object encodeCacheHit() throws Exception {
+        encoder.encode(session, cachedMessage, session.getEncoderOutput());
+        return session.getEncoderOutputQueue().poll();
+    }
+}
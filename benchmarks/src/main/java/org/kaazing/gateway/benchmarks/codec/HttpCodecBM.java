@@ -0,0 +1,110 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks.codec;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.filter.codec.ProtocolDecoder;
+import org.apache.mina.filter.codec.ProtocolEncoder;
+import org.kaazing.gateway.transport.http.HttpStatus;
+import org.kaazing.gateway.transport.http.HttpVersion;
+import org.kaazing.gateway.transport.http.bridge.HttpContentMessage;
+import org.kaazing.gateway.transport.http.bridge.HttpResponseMessage;
+import org.kaazing.gateway.transport.http.bridge.filter.HttpRequestDecoder;
+import org.kaazing.gateway.transport.http.bridge.filter.HttpResponseEncoder;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.filter.codec.ProtocolCodecSessionEx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link HttpRequestDecoder} on a typical WebSocket upgrade request and
+ * {@link HttpResponseEncoder} on a small chunked streaming response.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class HttpCodecBM {
+
+    private static final byte[] UPGRADE_REQUEST = ("GET /echo HTTP/1.1\r\n" +
+            "Host: localhost:8000\r\n" +
+            "Upgrade: websocket\r\n" +
+            "Connection: Upgrade\r\n" +
+            "Origin: http://localhost:8000\r\n" +
+            "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n" +
+            "Sec-WebSocket-Version: 13\r\n" +
+            "Sec-WebSocket-Protocol: x-kaazing-handshake\r\n" +
+            "Cookie: JSESSIONID=0123456789abcdef\r\n" +
+            "\r\n").getBytes();
+
+    private ProtocolCodecSessionEx session;
+    private ProtocolDecoder decoder;
+    private ProtocolEncoder encoder;
+    private IoBufferEx request;
+    private IoBufferEx content;
+
+    @Setup
+    public void init() throws Exception {
+        session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+
+        decoder = new HttpRequestDecoder();
+        encoder = new HttpResponseEncoder(allocator);
+
+        request = allocator.wrap(ByteBuffer.wrap(UPGRADE_REQUEST));
+        content = allocator.wrap(ByteBuffer.wrap("Hello, world".getBytes()));
+    }
+
+    @Benchmark
+    public Object decodeRequest() throws Exception {
+        Queue<Object> output = session.getDecoderOutputQueue();
+        decoder.decode(session, (IoBuffer) request.duplicate(), session.getDecoderOutput());
+        return output.poll();
+    }
+
+    @Benchmark
+    public Object encodeChunkedResponse() throws Exception {
+        HttpResponseMessage httpResponse = new HttpResponseMessage();
+        httpResponse.setVersion(HttpVersion.HTTP_1_1);
+        httpResponse.setStatus(HttpStatus.SUCCESS_OK);
+        httpResponse.setHeader("Content-Type", "text/plain");
+        httpResponse.setHeader("Transfer-Encoding", "chunked");
+        httpResponse.setContent(new HttpContentMessage(content.duplicate(), false, true, false));
+
+        Queue<Object> output = session.getEncoderOutputQueue();
+        encoder.encode(session, httpResponse, session.getEncoderOutput());
+        Object last = null;
+        for (Object buf = output.poll(); buf != null; buf = output.poll()) {
+            last = buf;
+        }
+        return last;
+    }
+}
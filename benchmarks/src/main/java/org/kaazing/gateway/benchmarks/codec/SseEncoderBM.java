@@ -0,0 +1,79 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks.codec;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.filter.codec.ProtocolEncoder;
+import org.kaazing.gateway.transport.sse.bridge.SseMessage;
+import org.kaazing.gateway.transport.sse.bridge.filter.SseEncoder;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.filter.codec.ProtocolCodecSessionEx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link SseEncoder} for single-line and multi-line event data.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class SseEncoderBM {
+
+    @Param({"64", "1024"})
+    private int payloadSize;
+
+    @Param({"1", "8"})
+    private int lines;
+
+    private ProtocolCodecSessionEx session;
+    private ProtocolEncoder encoder;
+    private IoBufferEx data;
+
+    @Setup
+    public void init() throws Exception {
+        session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        encoder = new SseEncoder(allocator);
+
+        data = allocator.wrap(allocator.allocate(payloadSize)).fill((byte) 0x61, payloadSize).flip();
+        int stride = payloadSize / lines;
+        for (int i = 1; i < lines; i++) {
+            data.put(i * stride, (byte) '\n');
+        }
+    }
+
+    @Benchmark
+    public Object encodeEvent() throws Exception {
+        SseMessage message = new SseMessage("message", data.duplicate());
+        message.setId("42");
+        encoder.encode(session, message, session.getEncoderOutput());
+        return session.getEncoderOutputQueue().poll();
+    }
+}
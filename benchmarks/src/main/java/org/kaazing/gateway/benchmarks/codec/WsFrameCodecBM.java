@@ -0,0 +1,117 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks.codec;
+
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.filter.codec.ProtocolDecoder;
+import org.apache.mina.filter.codec.ProtocolEncoder;
+import org.kaazing.gateway.transport.ws.WsBinaryMessage;
+import org.kaazing.gateway.transport.ws.WsTextMessage;
+import org.kaazing.gateway.transport.ws.bridge.filter.WsCodecFilter;
+import org.kaazing.gateway.transport.ws.bridge.filter.WsFrameEncoder;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.filter.codec.ProtocolCodecSessionEx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures RFC 6455 framing in {@link WsFrameEncoder} and {@code WsFrameDecoder} for
+ * unmasked (server to client) and masked (client to server) frames.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class WsFrameCodecBM {
+
+    @Param({"16", "256", "4096"})
+    private int payloadSize;
+
+    @Param({"false", "true"})
+    private boolean masked;
+
+    private ProtocolCodecSessionEx session;
+    private ProtocolEncoder encoder;
+    private ProtocolDecoder decoder;
+    private IoBufferEx payload;
+    private IoBufferEx frame;
+
+    @Setup
+    public void init() throws Exception {
+        session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+
+        // encoder masks sends when acting as a client, decoder then expects masking
+        encoder = new WsFrameEncoder(allocator, masked);
+        decoder = new DecoderAccess(masked).newDecoder(session);
+
+        payload = allocator.wrap(allocator.allocate(payloadSize)).fill((byte) 0x61, payloadSize).flip();
+
+        encoder.encode(session, new WsBinaryMessage(payload.duplicate()), session.getEncoderOutput());
+        frame = (IoBufferEx) session.getEncoderOutputQueue().poll();
+    }
+
+    @Benchmark
+    public Object encodeBinary() throws Exception {
+        encoder.encode(session, new WsBinaryMessage(payload.duplicate()), session.getEncoderOutput());
+        return session.getEncoderOutputQueue().poll();
+    }
+
+    @Benchmark
+    public Object encodeText() throws Exception {
+        encoder.encode(session, new WsTextMessage(payload.duplicate()), session.getEncoderOutput());
+        return session.getEncoderOutputQueue().poll();
+    }
+
+    @Benchmark
+    public Object decodeBinary() throws Exception {
+        Queue<Object> output = session.getDecoderOutputQueue();
+        decoder.decode(session, (IoBuffer) frame.duplicate(), session.getDecoderOutput());
+        return output.poll();
+    }
+
+    /**
+     * Gains access to the decoder that {@link WsCodecFilter} would install on a session.
+     */
+    private static final class DecoderAccess extends WsCodecFilter {
+
+        DecoderAccess(boolean maskingExpected) {
+            super(0, !maskingExpected);
+        }
+
+        ProtocolDecoder newDecoder(IoSession session) {
+            // codec is initialized when the filter is added to the chain
+            session.getFilterChain().addLast("ws", this);
+            return getDecoder(session);
+        }
+    }
+}
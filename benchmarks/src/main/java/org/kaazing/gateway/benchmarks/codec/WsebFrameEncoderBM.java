@@ -0,0 +1,94 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks.codec;
+
+import static org.kaazing.mina.core.buffer.IoBufferEx.FLAG_ZERO_COPY;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.filter.codec.ProtocolEncoder;
+import org.kaazing.gateway.transport.ws.WsBinaryMessage;
+import org.kaazing.gateway.transport.ws.WsTextMessage;
+import org.kaazing.gateway.transport.wseb.filter.WsebBufferAllocator;
+import org.kaazing.gateway.transport.wseb.filter.WsebFrameEncoder;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.filter.codec.ProtocolCodecSessionEx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link WsebFrameEncoder} with plain buffers and with zero-copy buffers
+ * pre-allocated by {@link WsebBufferAllocator}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class WsebFrameEncoderBM {
+
+    @Param({"16", "256", "4096"})
+    private int payloadSize;
+
+    private ProtocolCodecSessionEx session;
+    private ProtocolEncoder encoder;
+    private IoBufferEx payload;
+    private IoBufferEx zeroCopyPayload;
+
+    @Setup
+    public void init() throws Exception {
+        session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        encoder = new WsebFrameEncoder(allocator);
+
+        payload = allocator.wrap(allocator.allocate(payloadSize)).fill((byte) 0x61, payloadSize).flip();
+
+        WsebBufferAllocator wsebAllocator = new WsebBufferAllocator(allocator);
+        zeroCopyPayload = wsebAllocator.wrap(wsebAllocator.allocate(payloadSize, FLAG_ZERO_COPY))
+                                       .fillAndReset((byte) 0x61, payloadSize);
+    }
+
+    @Benchmark
+    public Object encodeBinary() throws Exception {
+        encoder.encode(session, new WsBinaryMessage(payload.duplicate()), session.getEncoderOutput());
+        return session.getEncoderOutputQueue().poll();
+    }
+
+    @Benchmark
+    public Object encodeText() throws Exception {
+        encoder.encode(session, new WsTextMessage(payload.duplicate()), session.getEncoderOutput());
+        return session.getEncoderOutputQueue().poll();
+    }
+
+    @Benchmark
+    public Object encodeBinaryZeroCopy() throws Exception {
+        // zero-copy encoding writes the frame header into the reserved prefix, so restore it each time
+        IoBufferEx buf = zeroCopyPayload.duplicate();
+        encoder.encode(session, new WsBinaryMessage(buf), session.getEncoderOutput());
+        return session.getEncoderOutputQueue().poll();
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks.filterchain;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.core.filterchain.IoFilterAdapter;
+import org.apache.mina.core.filterchain.IoFilterChain;
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.IoSession;
+import org.kaazing.mina.core.filterchain.DefaultIoFilterChainEx;
+import org.kaazing.mina.core.session.DummySessionEx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures event dispatch through a thread-aligned {@link DefaultIoFilterChainEx} with a
+ * configurable number of pass-through filters, and the cost of building such a chain.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class FilterChainDispatchBM {
+
+    private static final Object MESSAGE = new Object();
+
+    @Param({"1", "4", "8"})
+    private int filterCount;
+
+    private DummySessionEx session;
+    private CountingHandler handler;
+
+    @Setup
+    public void init() throws Exception {
+        // session is aligned to the benchmark thread that runs this setup
+        handler = new CountingHandler();
+        session = newSession(handler, filterCount);
+    }
+
+    @Benchmark
+    public long messageReceived() throws Exception {
+        session.getFilterChain().fireMessageReceived(MESSAGE);
+        return handler.received;
+    }
+
+    @Benchmark
+    public Object buildChain() throws Exception {
+        return newSession(handler, filterCount).getFilterChain();
+    }
+
+    private static DummySessionEx newSession(IoHandlerAdapter handler, int filterCount) {
+        DummySessionEx session = new DummySessionEx();
+        session.setHandler(handler);
+        IoFilterChain filterChain = session.getFilterChain();
+        for (int i = 0; i < filterCount; i++) {
+            filterChain.addLast("filter#" + i, new IoFilterAdapter());
+        }
+        return session;
+    }
+
+    private static final class CountingHandler extends IoHandlerAdapter {
+        private long received;
+
+        @Override
+        public void messageReceived(IoSession session, Object message) throws Exception {
+            received++;
+        }
+    }
+}
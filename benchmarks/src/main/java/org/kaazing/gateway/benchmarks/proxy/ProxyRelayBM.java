@@ -0,0 +1,150 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks.proxy;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.core.filterchain.IoFilterAdapter;
+import org.apache.mina.core.filterchain.IoFilterChain;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.write.WriteRequest;
+import org.kaazing.gateway.service.proxy.AbstractProxyHandler;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.session.DummySessionEx;
+import org.kaazing.mina.core.session.IoSessionEx;
+import org.kaazing.mina.filter.util.WriteRequestFilterEx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the proxy service relay between an accepted session and a local echo backend, one way
+ * for throughput and there and back for per-hop latency.  The {@code wrap} mode re-wraps every
+ * relayed buffer as the proxy did before buffers of the same type were relayed as is.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class ProxyRelayBM {
+
+    @Param({"64", "1024", "16384"})
+    private int payloadSize;
+
+    @Param({"relay", "wrap"})
+    private String mode;
+
+    private DummySessionEx acceptSession;
+    private DummySessionEx backendSession;
+    private RelayHandler handler;
+    private EchoFilter echo;
+    private IoBufferEx payload;
+
+    @Setup
+    public void init() throws Exception {
+        // sessions are aligned to the benchmark thread that runs this setup
+        handler = new RelayHandler();
+        handler.setMaximumPendingBytes(64 * 1024);
+
+        acceptSession = new DummySessionEx();
+        acceptSession.setHandler(handler);
+        backendSession = new DummySessionEx();
+        backendSession.setHandler(handler);
+
+        boolean relay = "relay".equals(mode);
+        handler.initFilterChain(acceptSession, relay);
+        handler.initFilterChain(backendSession, relay);
+
+        // the echo backend returns every relayed message to the proxy
+        echo = new EchoFilter();
+        backendSession.getFilterChain().addFirst("echo", echo);
+        handler.attach(acceptSession, backendSession);
+
+        IoBufferAllocatorEx<?> allocator = acceptSession.getBufferAllocator();
+        payload = allocator.wrap(allocator.allocate(payloadSize)).fill((byte) 0x61, payloadSize).flip();
+    }
+
+    @Benchmark
+    public long relay() throws Exception {
+        echo.enabled = false;
+        acceptSession.getFilterChain().fireMessageReceived(payload.duplicate());
+        return echo.relayed;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long roundTrip() throws Exception {
+        echo.enabled = true;
+        acceptSession.getFilterChain().fireMessageReceived(payload.duplicate());
+        return echo.relayed;
+    }
+
+    private static final class RelayHandler extends AbstractProxyHandler {
+
+        void attach(IoSession acceptSession, IoSession backendSession) {
+            attachSessions(acceptSession, backendSession);
+        }
+
+        void initFilterChain(IoSession session, boolean relay) {
+            IoBufferAllocatorEx<?> allocator = ((IoSessionEx) session).getBufferAllocator();
+            IoFilterChain filterChain = session.getFilterChain();
+            filterChain.addLast("duplicate", relay ? new DuplicateBufferFilter(allocator) : new WrapBufferFilter(allocator));
+        }
+    }
+
+    private static final class WrapBufferFilter extends WriteRequestFilterEx {
+        private final IoBufferAllocatorEx<?> allocator;
+
+        WrapBufferFilter(IoBufferAllocatorEx<?> allocator) {
+            this.allocator = allocator;
+        }
+
+        @Override
+        protected Object doFilterWrite(NextFilter nextFilter, IoSession session, WriteRequest writeRequest,
+                Object message) throws Exception {
+            IoBufferEx buf = (IoBufferEx) message;
+            return allocator.wrap(buf.buf(), buf.flags());
+        }
+    }
+
+    private static final class EchoFilter extends IoFilterAdapter {
+        private boolean enabled;
+        private long relayed;
+
+        @Override
+        public void filterWrite(NextFilter nextFilter, IoSession session, WriteRequest writeRequest) throws Exception {
+            relayed++;
+            IoBufferEx buf = (IoBufferEx) writeRequest.getMessage();
+            IoBufferEx echoed = enabled ? buf.duplicate() : null;
+            nextFilter.filterWrite(session, writeRequest);
+            if (echoed != null) {
+                session.getFilterChain().fireMessageReceived(echoed);
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks.transport;
+
+import static java.util.concurrent.Executors.newCachedThreadPool;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.mina.core.service.IoAcceptor;
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.IoSession;
+import org.jboss.netty.channel.socket.nio.NioServerDatagramChannelFactory;
+import org.jboss.netty.channel.socket.nio.NioWorkerPool;
+import org.kaazing.gateway.transport.bio.MulticastAcceptorImpl;
+import org.kaazing.gateway.transport.bio.MulticastAddress;
+import org.kaazing.mina.netty.socket.DefaultDatagramChannelIoSessionConfig;
+import org.kaazing.mina.netty.socket.nio.NioDatagramChannelIoAcceptor;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures multicast receive over the loopback interface, with the blocking {@code bio} acceptor (a thread and
+ * a receive buffer sized array per datagram) and the {@code nio} datagram acceptor joined to the group (a shared
+ * selector and a pooled receive buffer).  Every operation sends one datagram to the group, waiting for the handler
+ * when more than {@code MAXIMUM_IN_FLIGHT} datagrams are outstanding so the receive rate is not hidden by kernel
+ * drops.  The {@code received} counter reports the datagrams delivered to the handler per second, and
+ * {@code -prof gc} the allocation per datagram.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class MulticastReceiveBM {
+
+    private static final String GROUP_ADDRESS = "239.255.0.1";
+    private static final int GROUP_PORT = 7401;
+    private static final int MAXIMUM_IN_FLIGHT = 64;
+    private static final int MAXIMUM_WAITS = 100;
+    private static final long WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    @Param({"bio", "nio"})
+    private String transport;
+
+    @Param({"64", "1024"})
+    private int payloadSize;
+
+    private IoAcceptor acceptor;
+    private CountingHandler handler;
+    private DatagramChannel sender;
+    private InetSocketAddress groupAddress;
+    private ByteBuffer payload;
+    private long sent;
+
+    @Setup
+    public void init() throws Exception {
+        NetworkInterface device = NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress());
+        groupAddress = new InetSocketAddress(InetAddress.getByName(GROUP_ADDRESS), GROUP_PORT);
+        handler = new CountingHandler();
+
+        if ("bio".equals(transport)) {
+            MulticastAcceptorImpl acceptor = new MulticastAcceptorImpl();
+            acceptor.setHandler(handler);
+            acceptor.bind(new MulticastAddress(groupAddress.getAddress(), device, GROUP_PORT));
+            this.acceptor = acceptor;
+        }
+        else {
+            NioWorkerPool workerPool = new NioWorkerPool(newCachedThreadPool(), 1);
+            NioServerDatagramChannelFactory channelFactory = new NioServerDatagramChannelFactory(newCachedThreadPool(), 1, workerPool);
+            NioDatagramChannelIoAcceptor acceptor =
+                    new NioDatagramChannelIoAcceptor(new DefaultDatagramChannelIoSessionConfig(), channelFactory);
+            acceptor.setHandler(handler);
+            acceptor.bind(groupAddress);
+            acceptor.joinGroup(groupAddress, device);
+            this.acceptor = acceptor;
+        }
+
+        sender = DatagramChannel.open(StandardProtocolFamily.INET);
+        sender.setOption(StandardSocketOptions.IP_MULTICAST_IF, device);
+        payload = ByteBuffer.allocateDirect(payloadSize);
+    }
+
+    @TearDown
+    public void dispose() throws Exception {
+        sender.close();
+        acceptor.dispose();
+    }
+
+    @Benchmark
+    public int send(Received received) throws Exception {
+        if (received.base < 0) {
+            received.base = handler.received.get();
+        }
+        int bytes = sender.send(payload.duplicate(), groupAddress);
+        sent++;
+        // datagrams lost by the kernel are never received, so the wait is bounded
+        for (int waits = 0; sent - handler.received.get() > MAXIMUM_IN_FLIGHT && waits < MAXIMUM_WAITS; waits++) {
+            LockSupport.parkNanos(WAIT_NANOS);
+        }
+        received.received = handler.received.get() - received.base;
+        return bytes;
+    }
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class Received {
+        public long received;
+        private long base;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            // taken by the first operation of the iteration
+            base = -1;
+            received = 0;
+        }
+    }
+
+    private static final class CountingHandler extends IoHandlerAdapter {
+        private final AtomicLong received = new AtomicLong();
+
+        @Override
+        public void messageReceived(IoSession session, Object message) throws Exception {
+            received.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.benchmarks.BenchmarkComparison.DEFAULT_THRESHOLD;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.kaazing.gateway.benchmarks.BenchmarkComparison.Delta;
+import org.kaazing.gateway.benchmarks.BenchmarkComparison.Result;
+
+public class BenchmarkComparisonTest {
+
+    @Test
+    public void shouldParseScoreParamsAndAllocationRate() throws Exception {
+        Map<String, Result> results = BenchmarkComparison.parse(
+                "[" + entry("a.WsFrameCodecBM.encodeBinary", "thrpt", "{\"payloadSize\":\"16\",\"masked\":\"false\"}",
+                            1000.0, 10.0, 48.0) + "]");
+
+        Result result = results.get("a.WsFrameCodecBM.encodeBinary{masked=false, payloadSize=16}");
+        assertEquals("thrpt", result.mode);
+        assertEquals(1000.0, result.score, 0.0);
+        assertEquals(10.0, result.error, 0.0);
+        assertEquals(48.0, result.allocNorm, 0.0);
+    }
+
+    @Test
+    public void shouldReportThroughputRegression() throws Exception {
+        List<Delta> deltas = compare(entry("a.B.m", "thrpt", null, 1000.0, 10.0, 48.0),
+                                     entry("a.B.m", "thrpt", null, 900.0, 10.0, 48.0));
+
+        assertEquals(1, deltas.size());
+        assertTrue(deltas.get(0).isRegression());
+        assertEquals(-10.0, deltas.get(0).scoreChange(), 0.001);
+    }
+
+    @Test
+    public void shouldReportAverageTimeImprovement() throws Exception {
+        List<Delta> deltas = compare(entry("a.B.m", "avgt", null, 100.0, 1.0, 48.0),
+                                     entry("a.B.m", "avgt", null, 80.0, 1.0, 48.0));
+
+        assertFalse(deltas.get(0).isRegression());
+        assertTrue(deltas.get(0).isImprovement());
+    }
+
+    @Test
+    public void shouldIgnoreChangeWithinScoreError() throws Exception {
+        List<Delta> deltas = compare(entry("a.B.m", "thrpt", null, 1000.0, 80.0, 48.0),
+                                     entry("a.B.m", "thrpt", null, 900.0, 80.0, 48.0));
+
+        assertFalse(deltas.get(0).isRegression());
+    }
+
+    @Test
+    public void shouldReportAllocationRegression() throws Exception {
+        List<Delta> deltas = compare(entry("a.B.m", "thrpt", null, 1000.0, 10.0, 48.0),
+                                     entry("a.B.m", "thrpt", null, 1000.0, 10.0, 72.0));
+
+        assertTrue(deltas.get(0).isRegression());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int regressions = BenchmarkComparison.report(deltas, new PrintStream(bytes));
+        assertEquals(1, regressions);
+        assertTrue(bytes.toString().contains("REGRESSION"));
+    }
+
+    @Test
+    public void shouldSkipBenchmarksMissingFromBaseline() throws Exception {
+        List<Delta> deltas = compare(entry("a.B.m", "thrpt", null, 1000.0, 10.0, 48.0),
+                                     entry("a.B.n", "thrpt", null, 1000.0, 10.0, 48.0));
+
+        assertTrue(deltas.isEmpty());
+    }
+
+    private static List<Delta> compare(String baseline, String current) throws Exception {
+        return BenchmarkComparison.compare(BenchmarkComparison.parse("[" + baseline + "]"),
+                                           BenchmarkComparison.parse("[" + current + "]"),
+                                           DEFAULT_THRESHOLD);
+    }
+
+    private static String entry(String benchmark, String mode, String params, double score, double error,
+                                double allocNorm) {
+        return "{\"benchmark\":\"" + benchmark + "\",\"mode\":\"" + mode + "\"," +
+               (params != null ? "\"params\":" + params + "," : "") +
+               "\"primaryMetric\":{\"score\":" + score + ",\"scoreError\":" + error + ",\"scoreUnit\":\"ops/s\"}," +
+               "\"secondaryMetrics\":{\"\\u00b7gc.alloc.rate.norm\":{\"score\":" + allocNorm +
+               ",\"scoreError\":0.0,\"scoreUnit\":\"B/op\"}}}";
+    }
+}
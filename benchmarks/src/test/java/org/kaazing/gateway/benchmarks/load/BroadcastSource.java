@@ -0,0 +1,108 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks.load;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * The TCP backend the broadcast service connects to, publishing timestamped messages to every connection.
+ */
+final class BroadcastSource implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+    private final Thread acceptor;
+    private ScheduledFuture<?> publisher;
+
+    BroadcastSource() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::accept, "broadcast-source");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Waits for the broadcast service to connect.
+     */
+    boolean awaitConnected(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (sockets.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return !sockets.isEmpty();
+    }
+
+    void start(ScheduledExecutorService scheduler, long intervalMillis) {
+        publisher = scheduler.scheduleAtFixedRate(this::publish, 0, intervalMillis, MILLISECONDS);
+    }
+
+    void stop() {
+        if (publisher != null) {
+            publisher.cancel(false);
+            publisher = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        stop();
+        serverSocket.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+
+    private void accept() {
+        try {
+            while (!serverSocket.isClosed()) {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                sockets.add(socket);
+            }
+        }
+        catch (IOException e) {
+            // closed
+        }
+    }
+
+    private void publish() {
+        byte[] message = LoadStatistics.newMessage();
+        for (Socket socket : sockets) {
+            try {
+                OutputStream output = socket.getOutputStream();
+                output.write(message);
+                output.flush();
+            }
+            catch (IOException e) {
+                sockets.remove(socket);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks.load;
+
+/**
+ * The kinds of clients a {@link LoadScenario} drives, each connecting with the gateway's own connector to a service
+ * of the gateway started by {@link LoadHarness}.
+ */
+enum ClientType {
+
+    /** WebSocket (native) client of the echo service, sending messages and timing their echo. */
+    WSN("wsn", "ws", "/echo"),
+
+    /** WebSocket emulation (WSEB) client of the echo service, sending messages and timing their echo. */
+    WSEB("wseb", "wse", "/echo"),
+
+    /** Server-sent events client of the broadcast service, timing messages published by the source. */
+    SSE("sse", "sse", "/sse"),
+
+    /** HTTP client requesting the origin server through the http.proxy service, timing each request. */
+    HTTP_PROXY("http", "http", "/proxy/"),
+
+    /** WebSocket (native) client of the broadcast service, timing messages published by the source. */
+    BROADCAST("wsn", "ws", "/broadcast");
+
+    private final String transportName;
+    private final String scheme;
+    private final String path;
+
+    ClientType(String transportName, String scheme, String path) {
+        this.transportName = transportName;
+        this.scheme = scheme;
+        this.path = path;
+    }
+
+    String getTransportName() {
+        return transportName;
+    }
+
+    String uri(int port) {
+        return String.format("%s://localhost:%d%s", scheme, port, path);
+    }
+
+    /**
+     * Check if clients of this type keep a session open for the whole run, as opposed to a connection per request.
+     */
+    boolean isPersistent() {
+        return this != HTTP_PROXY;
+    }
+
+    /**
+     * Check if clients of this type send messages themselves, as opposed to receiving messages of the source.
+     */
+    boolean isSending() {
+        return this == WSN || this == WSEB;
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks.load;
+
+import static org.kaazing.gateway.benchmarks.load.LoadStatistics.MESSAGE_SIZE;
+
+import java.nio.ByteBuffer;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.IoSession;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.session.IoSessionEx;
+
+/**
+ * A client session of a run, sending timestamped messages on demand and recording those it receives, which may arrive
+ * split or merged into buffers of any size.
+ */
+final class LoadClient extends IoHandlerAdapter {
+
+    private final LoadStatistics statistics;
+    private final byte[] message = new byte[MESSAGE_SIZE];
+    private int messageLength;
+    private volatile IoSessionEx session;
+
+    LoadClient(LoadStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    IoSessionEx getSession() {
+        return session;
+    }
+
+    void send() {
+        IoSessionEx session = this.session;
+        if (session != null && !session.isClosing()) {
+            IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+            session.write(allocator.wrap(ByteBuffer.wrap(LoadStatistics.newMessage())));
+        }
+    }
+
+    @Override
+    public void sessionOpened(IoSession session) {
+        this.session = (IoSessionEx) session;
+    }
+
+    @Override
+    public void messageReceived(IoSession session, Object message) {
+        IoBuffer buf = (IoBuffer) message;
+        statistics.recordBytes(buf.remaining());
+        synchronized (this) {
+            while (buf.hasRemaining()) {
+                int length = Math.min(buf.remaining(), MESSAGE_SIZE - messageLength);
+                buf.get(this.message, messageLength, length);
+                messageLength += length;
+                if (messageLength == MESSAGE_SIZE) {
+                    statistics.recordMessage(this.message);
+                    messageLength = 0;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void exceptionCaught(IoSession session, Throwable cause) {
+        statistics.recordError();
+        session.close(true);
+    }
+
+    @Override
+    public void sessionClosed(IoSession session) {
+        this.session = null;
+    }
+}
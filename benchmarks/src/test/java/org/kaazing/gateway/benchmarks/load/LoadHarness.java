@@ -0,0 +1,346 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks.load;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.kaazing.gateway.benchmarks.load.ClientType.BROADCAST;
+import static org.kaazing.gateway.benchmarks.load.ClientType.HTTP_PROXY;
+import static org.kaazing.gateway.benchmarks.load.ClientType.SSE;
+import static org.kaazing.gateway.resource.address.ResourceAddressFactory.newResourceAddressFactory;
+import static org.kaazing.gateway.util.feature.EarlyAccessFeatures.HTTP_PROXY_SERVICE;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.future.ConnectFuture;
+import org.apache.mina.core.future.IoFutureListener;
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.session.IoSessionInitializer;
+import org.kaazing.gateway.resource.address.ResourceAddress;
+import org.kaazing.gateway.resource.address.ResourceAddressFactory;
+import org.kaazing.gateway.server.test.Gateway;
+import org.kaazing.gateway.server.test.config.GatewayConfiguration;
+import org.kaazing.gateway.server.test.config.builder.GatewayConfigurationBuilder;
+import org.kaazing.gateway.transport.BridgeConnector;
+import org.kaazing.gateway.transport.BridgeServiceFactory;
+import org.kaazing.gateway.transport.Transport;
+import org.kaazing.gateway.transport.TransportFactory;
+import org.kaazing.gateway.transport.http.HttpConnectSession;
+import org.kaazing.gateway.transport.http.HttpMethod;
+import org.kaazing.gateway.transport.http.HttpSession;
+import org.kaazing.gateway.transport.http.HttpStatus;
+import org.kaazing.gateway.util.scheduler.SchedulerProvider;
+import org.kaazing.mina.core.session.IoSessionEx;
+import org.kaazing.test.util.JvmMonitor;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Starts a gateway in this JVM, with an echo, a broadcast and an http.proxy service, and runs {@link LoadScenario}s
+ * against it over loopback. Clients connect with the gateway's own connectors (wsn, wseb, sse and http) from a transport
+ * factory of their own, so they do not share I/O threads with the gateway. The broadcast service is fed by a
+ * {@link BroadcastSource} and the http.proxy service relays to an origin server of the JDK.
+ *
+ * <pre>
+ * try (LoadHarness harness = new LoadHarness()) {
+ *     LoadResult result = harness.run(LoadScenario.broadcastFanOut());
+ *     result.write(new File("target/load"));
+ * }
+ * </pre>
+ */
+final class LoadHarness implements AutoCloseable {
+
+    // connections in progress at any time, so that the accept backlog is not overrun
+    private static final int MAXIMUM_PENDING_CONNECTS = 256;
+    private static final long CONNECT_TIMEOUT_MILLIS = 60000;
+    private static final long CLOSE_TIMEOUT_MILLIS = 30000;
+
+    private static final byte[] ORIGIN_RESPONSE = "0123456789abcdef".getBytes(US_ASCII);
+
+    private final int port;
+    private final Gateway gateway;
+    private final BroadcastSource source;
+    private final HttpServer origin;
+    private final SchedulerProvider schedulerProvider;
+    private final ScheduledExecutorService scheduler;
+    private final ResourceAddressFactory addressFactory;
+    private final TransportFactory transportFactory;
+
+    LoadHarness() throws Exception {
+        port = freePort();
+        source = new BroadcastSource();
+        origin = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        origin.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, ORIGIN_RESPONSE.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(ORIGIN_RESPONSE);
+            }
+        });
+        origin.start();
+
+        // @formatter:off
+        GatewayConfiguration configuration =
+                new GatewayConfigurationBuilder()
+                    .property(HTTP_PROXY_SERVICE.getPropertyName(), "true")
+                    .service()
+                        .accept(ClientType.WSN.uri(port))
+                        .type("echo")
+                    .done()
+                    .service()
+                        .accept(BROADCAST.uri(port))
+                        .accept(SSE.uri(port))
+                        .connect("tcp://localhost:" + source.getPort())
+                        .type("broadcast")
+                    .done()
+                    .service()
+                        .accept(HTTP_PROXY.uri(port))
+                        .connect("http://localhost:" + origin.getAddress().getPort() + "/")
+                        .type("http.proxy")
+                    .done()
+                .done();
+        // @formatter:on
+        gateway = new Gateway();
+        gateway.start(configuration);
+        if (!source.awaitConnected(CONNECT_TIMEOUT_MILLIS)) {
+            throw new IllegalStateException("Broadcast service did not connect to its source");
+        }
+
+        schedulerProvider = new SchedulerProvider();
+        scheduler = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
+        addressFactory = newResourceAddressFactory();
+        transportFactory = TransportFactory.newTransportFactory(Collections.<String, Object> emptyMap());
+
+        Map<String, Object> resources = new HashMap<>();
+        resources.put("schedulerProvider", schedulerProvider);
+        resources.put("configuration", new Properties());
+        resources.put("bridgeServiceFactory", new BridgeServiceFactory(transportFactory));
+        resources.put("resourceAddressFactory", addressFactory);
+        transportFactory.injectResources(resources);
+    }
+
+    /**
+     * Connects the clients of the scenario, exchanges messages for its duration, then closes the clients.
+     */
+    LoadResult run(LoadScenario scenario) throws Exception {
+        LoadStatistics statistics = new LoadStatistics();
+        List<LoadClient> clients = Collections.synchronizedList(new ArrayList<LoadClient>());
+        List<LoadClient> senders = new ArrayList<>();
+
+        long heapBefore = JvmMonitor.usedHeapAfterGc();
+        long connectStart = System.nanoTime();
+        int connectFailures = 0;
+        for (Map.Entry<ClientType, Integer> entry : scenario.getClients().entrySet()) {
+            ClientType type = entry.getKey();
+            if (type.isPersistent()) {
+                List<LoadClient> connected = new ArrayList<>();
+                connectFailures += connect(type, entry.getValue(), statistics, connected);
+                clients.addAll(connected);
+                if (type.isSending()) {
+                    senders.addAll(connected);
+                }
+            }
+        }
+        long connectMillis = NANOSECONDS.toMillis(System.nanoTime() - connectStart);
+        long heapBytes = JvmMonitor.usedHeapAfterGc() - heapBefore;
+
+        List<ScheduledFuture<?>> tasks = new ArrayList<>();
+        long interval = scenario.getMessageIntervalMillis();
+        try (JvmMonitor monitor = new JvmMonitor()) {
+            statistics.start();
+            if (interval != 0) {
+                for (LoadClient sender : senders) {
+                    tasks.add(scheduler.scheduleAtFixedRate(sender::send, randomDelay(interval), interval, MILLISECONDS));
+                }
+
+                Integer requesters = scenario.getClients().get(HTTP_PROXY);
+                ResourceAddress proxyAddress = addressFactory.newResourceAddress(HTTP_PROXY.uri(port));
+                for (int i = 0; requesters != null && i < requesters; i++) {
+                    Runnable request = () -> request(proxyAddress, statistics);
+                    tasks.add(scheduler.scheduleWithFixedDelay(request, randomDelay(interval), interval, MILLISECONDS));
+                }
+
+                if (scenario.getClients().containsKey(BROADCAST) || scenario.getClients().containsKey(SSE)) {
+                    source.start(scheduler, interval);
+                }
+            }
+
+            Thread.sleep(scenario.getDurationMillis());
+            statistics.stop();
+            source.stop();
+            for (ScheduledFuture<?> task : tasks) {
+                task.cancel(false);
+            }
+
+            return new LoadResult(scenario, clients.size(), connectFailures, connectMillis, heapBytes,
+                                  statistics, monitor);
+        }
+        finally {
+            close(clients);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        scheduler.shutdownNow();
+        try {
+            gateway.stop();
+        }
+        finally {
+            for (String transportName : transportFactory.getTransportNames()) {
+                Transport transport = transportFactory.getTransport(transportName);
+                if (transport.getConnector() != null) {
+                    transport.getConnector().dispose();
+                }
+                if (transport.getAcceptor() != null) {
+                    transport.getAcceptor().dispose();
+                }
+            }
+            schedulerProvider.shutdownNow();
+            origin.stop(0);
+            source.close();
+        }
+    }
+
+    /**
+     * Connects the given number of clients, adding those connected to the list, and returns the number of failures.
+     */
+    private int connect(ClientType type, int count, LoadStatistics statistics, final List<LoadClient> connected)
+            throws InterruptedException {
+        BridgeConnector connector = transportFactory.getTransport(type.getTransportName()).getConnector();
+        ResourceAddress address = addressFactory.newResourceAddress(type.uri(port));
+        final Semaphore pendingConnects = new Semaphore(MAXIMUM_PENDING_CONNECTS);
+        final AtomicInteger failures = new AtomicInteger();
+
+        for (int i = 0; i < count; i++) {
+            pendingConnects.acquire();
+            final LoadClient client = new LoadClient(statistics);
+            IoFutureListener<ConnectFuture> listener = future -> {
+                if (future.isConnected()) {
+                    synchronized (connected) {
+                        connected.add(client);
+                    }
+                }
+                else {
+                    failures.incrementAndGet();
+                }
+                pendingConnects.release();
+            };
+            connector.connect(address, client, null).addListener(listener);
+        }
+
+        if (!pendingConnects.tryAcquire(MAXIMUM_PENDING_CONNECTS, CONNECT_TIMEOUT_MILLIS, MILLISECONDS)) {
+            throw new IllegalStateException(String.format("%s connects did not complete", type));
+        }
+        synchronized (connected) {
+            return failures.get();
+        }
+    }
+
+    private void request(ResourceAddress address, final LoadStatistics statistics) {
+        final long start = System.nanoTime();
+        BridgeConnector connector = transportFactory.getTransport(HTTP_PROXY.getTransportName()).getConnector();
+        IoSessionInitializer<ConnectFuture> initializer = (session, future) -> {
+            HttpConnectSession connectSession = (HttpConnectSession) session;
+            connectSession.setMethod(HttpMethod.GET);
+            connectSession.close(false);
+        };
+        IoHandlerAdapter handler = new IoHandlerAdapter() {
+            // the connection is kept alive, so the response is complete once the whole origin response is received
+            private int received;
+
+            @Override
+            public void messageReceived(IoSession session, Object message) {
+                int remaining = ((IoBuffer) message).remaining();
+                statistics.recordBytes(remaining);
+                received += remaining;
+                if (received == ORIGIN_RESPONSE.length) {
+                    if (((HttpSession) session).getStatus() == HttpStatus.SUCCESS_OK) {
+                        statistics.recordLatency(start);
+                    }
+                    else {
+                        statistics.recordError();
+                    }
+                    session.close(false);
+                }
+            }
+
+            @Override
+            public void exceptionCaught(IoSession session, Throwable cause) {
+                statistics.recordError();
+            }
+
+            @Override
+            public void sessionClosed(IoSession session) {
+                if (received < ORIGIN_RESPONSE.length) {
+                    statistics.recordError();
+                }
+            }
+        };
+        IoFutureListener<ConnectFuture> listener = future -> {
+            if (!future.isConnected()) {
+                statistics.recordError();
+            }
+        };
+        connector.connect(address, handler, initializer).addListener(listener);
+    }
+
+    private static void close(List<LoadClient> clients) throws InterruptedException {
+        synchronized (clients) {
+            for (LoadClient client : clients) {
+                IoSessionEx session = client.getSession();
+                if (session != null) {
+                    session.close(true);
+                }
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + CLOSE_TIMEOUT_MILLIS;
+        for (LoadClient client : clients) {
+            while (client.getSession() != null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private static long randomDelay(long interval) {
+        return ThreadLocalRandom.current().nextLong(interval);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+}
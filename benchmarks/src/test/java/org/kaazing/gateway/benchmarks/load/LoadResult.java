@@ -0,0 +1,153 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks.load;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.kaazing.gateway.util.LatencyHistogram;
+import org.kaazing.test.util.JvmMonitor;
+
+/**
+ * The outcome of a {@link LoadScenario}, written as one JSON document per scenario so that successive runs can be
+ * tracked over time. Heap per session covers both ends of each connection since clients run in the same JVM as the
+ * gateway.
+ */
+final class LoadResult {
+
+    private static final double GIGABYTE = 1024.0 * 1024.0 * 1024.0;
+
+    private final LoadScenario scenario;
+    private final int sessions;
+    private final int connectFailures;
+    private final long connectMillis;
+    private final long heapBytes;
+    private final long messages;
+    private final long bytes;
+    private final long errors;
+    private final long[] latencyMicros = new long[4];
+    private final long gcCollections;
+    private final long gcTotalMillis;
+    private final long gcMaximumMillis;
+
+    LoadResult(LoadScenario scenario, int sessions, int connectFailures, long connectMillis, long heapBytes,
+               LoadStatistics statistics, JvmMonitor monitor) {
+        this.scenario = scenario;
+        this.sessions = sessions;
+        this.connectFailures = connectFailures;
+        this.connectMillis = connectMillis;
+        this.heapBytes = heapBytes;
+        this.messages = statistics.getMessages();
+        this.bytes = statistics.getBytes();
+        this.errors = statistics.getErrors();
+        LatencyHistogram latencies = statistics.getLatencies();
+        latencies.getValuesAtPercentiles(new double[] { 50.0, 99.0, 99.9 }, latencyMicros);
+        this.latencyMicros[3] = latencies.getMaxValue();
+        this.gcCollections = monitor.getCollections();
+        this.gcTotalMillis = monitor.getTotalMillis();
+        this.gcMaximumMillis = monitor.getMaximumMillis();
+    }
+
+    int getSessions() {
+        return sessions;
+    }
+
+    int getConnectFailures() {
+        return connectFailures;
+    }
+
+    long getMessages() {
+        return messages;
+    }
+
+    long getErrors() {
+        return errors;
+    }
+
+    double getMessagesPerSecond() {
+        return messages * 1000.0 / scenario.getDurationMillis();
+    }
+
+    long getHeapBytesPerSession() {
+        return sessions != 0 ? Math.max(0, heapBytes) / sessions : 0;
+    }
+
+    double getSessionsPerGigabyte() {
+        long heapBytesPerSession = getHeapBytesPerSession();
+        return heapBytesPerSession != 0 ? GIGABYTE / heapBytesPerSession : 0;
+    }
+
+    JSONObject toJSON() throws JSONException {
+        JSONObject clients = new JSONObject();
+        for (Map.Entry<ClientType, Integer> entry : scenario.getClients().entrySet()) {
+            clients.put(entry.getKey().name().toLowerCase(), entry.getValue());
+        }
+
+        JSONObject latency = new JSONObject();
+        latency.put("p50", latencyMicros[0]);
+        latency.put("p99", latencyMicros[1]);
+        latency.put("p999", latencyMicros[2]);
+        latency.put("max", latencyMicros[3]);
+
+        JSONObject gc = new JSONObject();
+        gc.put("collections", gcCollections);
+        gc.put("totalMillis", gcTotalMillis);
+        gc.put("maximumMillis", gcMaximumMillis);
+
+        JSONObject result = new JSONObject();
+        result.put("scenario", scenario.getName());
+        result.put("timestamp", System.currentTimeMillis());
+        result.put("clients", clients);
+        result.put("messageIntervalMillis", scenario.getMessageIntervalMillis());
+        result.put("durationMillis", scenario.getDurationMillis());
+        result.put("sessions", sessions);
+        result.put("connectFailures", connectFailures);
+        result.put("connectMillis", connectMillis);
+        result.put("messages", messages);
+        result.put("messagesPerSecond", getMessagesPerSecond());
+        result.put("bytesPerSecond", bytes * 1000.0 / scenario.getDurationMillis());
+        result.put("errors", errors);
+        result.put("latencyMicros", latency);
+        result.put("heapBytesPerSession", getHeapBytesPerSession());
+        result.put("sessionsPerGigabyte", getSessionsPerGigabyte());
+        result.put("gc", gc);
+        return result;
+    }
+
+    /**
+     * Writes this result to {@code <scenario>.json} in the given directory and returns the file.
+     */
+    File write(File directory) throws IOException, JSONException {
+        Files.createDirectories(directory.toPath());
+        File file = new File(directory, scenario.getName() + ".json");
+        Files.write(file.toPath(), toJSON().toString(2).getBytes(UTF_8));
+        return file;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d sessions (%d failed), %.1f msg/s, latency p50 %dus p99 %dus p99.9 %dus, "
+                + "%d bytes/session, %d GCs (max %d ms)", scenario.getName(), sessions, connectFailures,
+                getMessagesPerSecond(), latencyMicros[0], latencyMicros[1], latencyMicros[2],
+                getHeapBytesPerSession(), gcCollections, gcMaximumMillis);
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks.load;
+
+import static org.kaazing.gateway.benchmarks.load.ClientType.BROADCAST;
+import static org.kaazing.gateway.benchmarks.load.ClientType.HTTP_PROXY;
+import static org.kaazing.gateway.benchmarks.load.ClientType.SSE;
+import static org.kaazing.gateway.benchmarks.load.ClientType.WSEB;
+import static org.kaazing.gateway.benchmarks.load.ClientType.WSN;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Populations of clients and the rate at which they exchange messages with the gateway. The message interval applies
+ * to each echo and http.proxy client, and to the broadcast source (every broadcast and SSE client receiving each
+ * message), an interval of 0 leaves the clients idle once connected.
+ */
+final class LoadScenario {
+
+    private final String name;
+    private final Map<ClientType, Integer> clients = new EnumMap<>(ClientType.class);
+    private long messageIntervalMillis;
+    private long durationMillis = 60000;
+
+    LoadScenario(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 100k idle WebSocket connections, for the heap footprint of sessions.
+     */
+    static LoadScenario idleWsn() {
+        return new LoadScenario("idle-wsn-100k").clients(WSN, 100000);
+    }
+
+    /**
+     * 10k WSEB clients holding their downstream open, each sending a message every 5 seconds.
+     */
+    static LoadScenario wsebLongPoll() {
+        return new LoadScenario("wseb-long-poll-10k").clients(WSEB, 10000).messageInterval(5000);
+    }
+
+    /**
+     * One broadcast source publishing 10 messages per second to 50k WebSocket clients.
+     */
+    static LoadScenario broadcastFanOut() {
+        return new LoadScenario("broadcast-1-50k").clients(BROADCAST, 50000).messageInterval(100);
+    }
+
+    /**
+     * 1k HTTP clients each requesting the origin server through the http.proxy service once per second.
+     */
+    static LoadScenario httpProxy() {
+        return new LoadScenario("http-proxy-1k").clients(HTTP_PROXY, 1000).messageInterval(1000);
+    }
+
+    /**
+     * Every client type at once, one message per second.
+     */
+    static LoadScenario mixed() {
+        return new LoadScenario("mixed-10k")
+                .clients(WSN, 3000)
+                .clients(WSEB, 2000)
+                .clients(SSE, 2000)
+                .clients(HTTP_PROXY, 500)
+                .clients(BROADCAST, 2500)
+                .messageInterval(1000);
+    }
+
+    static LoadScenario named(String name) {
+        for (LoadScenario scenario : new LoadScenario[] { idleWsn(), wsebLongPoll(), broadcastFanOut(), httpProxy(), mixed() }) {
+            if (scenario.name.equals(name)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Unknown load scenario: " + name);
+    }
+
+    LoadScenario clients(ClientType type, int count) {
+        clients.put(type, count);
+        return this;
+    }
+
+    LoadScenario messageInterval(long messageIntervalMillis) {
+        this.messageIntervalMillis = messageIntervalMillis;
+        return this;
+    }
+
+    LoadScenario duration(long durationMillis) {
+        this.durationMillis = durationMillis;
+        return this;
+    }
+
+    /**
+     * Returns a copy of this scenario with each population scaled, keeping at least one client of each type,
+     * e.g. to run the canned scenarios as a smoke test.
+     */
+    LoadScenario scale(double scale) {
+        LoadScenario scaled = new LoadScenario(name).messageInterval(messageIntervalMillis).duration(durationMillis);
+        for (Map.Entry<ClientType, Integer> entry : clients.entrySet()) {
+            scaled.clients(entry.getKey(), (int) Math.max(1, Math.round(entry.getValue() * scale)));
+        }
+        return scaled;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Map<ClientType, Integer> getClients() {
+        return Collections.unmodifiableMap(clients);
+    }
+
+    long getMessageIntervalMillis() {
+        return messageIntervalMillis;
+    }
+
+    long getDurationMillis() {
+        return durationMillis;
+    }
+}
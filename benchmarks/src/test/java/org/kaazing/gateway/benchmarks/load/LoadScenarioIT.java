@@ -0,0 +1,84 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks.load;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the canned load scenarios, scaled down to a smoke test by default. Full runs select the scale and duration:
+ * <pre>
+ * mvn verify -Dit.test=LoadScenarioIT#broadcastFanOut -Dload.scale=1 -Dload.duration=600000
+ * </pre>
+ * Results are written as JSON to {@code target/load} (or {@code -Dload.results=...}) for trend tracking.
+ */
+public class LoadScenarioIT {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadScenarioIT.class);
+
+    private static final double SCALE = Double.parseDouble(System.getProperty("load.scale", "0.001"));
+    private static final long DURATION = Long.getLong("load.duration", 2000L);
+    private static final File RESULTS = new File(System.getProperty("load.results", "target/load"));
+
+    @Test
+    public void idleWsn() throws Exception {
+        LoadResult result = run(LoadScenario.idleWsn());
+        assertTrue(result.getSessions() > 0);
+        assertTrue(result.getHeapBytesPerSession() > 0);
+    }
+
+    @Test
+    public void wsebLongPoll() throws Exception {
+        run(LoadScenario.wsebLongPoll().messageInterval(100));
+    }
+
+    @Test
+    public void broadcastFanOut() throws Exception {
+        run(LoadScenario.broadcastFanOut());
+    }
+
+    @Test
+    public void httpProxy() throws Exception {
+        run(LoadScenario.httpProxy().messageInterval(100));
+    }
+
+    @Test
+    public void mixed() throws Exception {
+        run(LoadScenario.mixed().messageInterval(100));
+    }
+
+    private static LoadResult run(LoadScenario scenario) throws Exception {
+        LoadResult result;
+        try (LoadHarness harness = new LoadHarness()) {
+            result = harness.run(scenario.scale(SCALE).duration(DURATION));
+        }
+        result.write(RESULTS);
+        LOGGER.info("{}", result);
+
+        assertEquals(0, result.getConnectFailures());
+        if (scenario.getMessageIntervalMillis() != 0) {
+            assertTrue(result.getMessages() > 0);
+            assertEquals(0, result.getErrors());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks.load;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.kaazing.gateway.util.LatencyHistogram;
+
+/**
+ * Messages received by the clients of a run and their latency in microseconds. Messages carry the time they were sent
+ * as 16 hexadecimal digits, text so that they survive SSE framing and the byte stream of the broadcast source.
+ */
+final class LoadStatistics {
+
+    static final int MESSAGE_SIZE = 16;
+
+    private static final long EPOCH = System.nanoTime();
+
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private volatile boolean recording;
+
+    static byte[] newMessage() {
+        return String.format("%016x", System.nanoTime() - EPOCH).getBytes(US_ASCII);
+    }
+
+    /**
+     * Records a message received, given its contents.
+     */
+    void recordMessage(byte[] message) {
+        recordLatency(EPOCH + Long.parseUnsignedLong(new String(message, US_ASCII), 16));
+    }
+
+    /**
+     * Records the latency of an exchange started at the given System.nanoTime().
+     */
+    void recordLatency(long sentNanos) {
+        if (recording) {
+            latencies.recordValue(NANOSECONDS.toMicros(Math.max(0, System.nanoTime() - sentNanos)));
+            messages.increment();
+        }
+    }
+
+    void recordBytes(int count) {
+        if (recording) {
+            bytes.add(count);
+        }
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    /**
+     * Starts recording, forgetting what was received during connection setup.
+     */
+    void start() {
+        latencies.reset();
+        messages.reset();
+        bytes.reset();
+        recording = true;
+    }
+
+    void stop() {
+        recording = false;
+    }
+
+    LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    long getMessages() {
+        return messages.sum();
+    }
+
+    long getBytes() {
+        return bytes.sum();
+    }
+
+    long getErrors() {
+        return errors.sum();
+    }
+}
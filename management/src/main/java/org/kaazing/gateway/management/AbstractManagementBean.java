@@ -23,6 +23,8 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.json.JSONArray;
+import org.json.JSONException;
 import org.kaazing.gateway.management.context.ManagementContext;
 import org.kaazing.gateway.util.scheduler.SchedulerProvider;
 
@@ -94,7 +96,25 @@ public abstract class AbstractManagementBean implements ManagementBean {
     }
 
     @Override
-    public abstract String getSummaryData();
+    public String getSummaryData() {
+        Object[] vals = new Object[summaryDataFieldList.length];
+        gatherSummaryValues(vals);
+        return makeSummaryData(vals);
+    }
+
+    /**
+     * Fill in the current summary values, in the order of the summary-data field list.
+     *
+     * @param vals  an array as long as the summary-data field list
+     */
+    protected abstract void gatherSummaryValues(Object[] vals);
+
+    @Override
+    public void sendSummaryValues(SummaryDataStream stream) {
+        Object[] vals = new Object[summaryDataFieldList.length];
+        gatherSummaryValues(vals);
+        stream.sendSummaryValues(this, vals);
+    }
 
     @Override
     public List<SummaryDataListener> getSummaryDataListeners() {
@@ -160,11 +180,23 @@ public abstract class AbstractManagementBean implements ManagementBean {
         if (clearDirty()) {
             //System.out.println("#### sendSummaryData for " + Utils.getClassName(this));
 
-            // we had something that changed, so send the notification of summaryData
-            String summaryData = getSummaryData();
-
-            for (SummaryDataListener listener : summaryDataListeners) {
-                listener.sendSummaryData(summaryData);
+            // we had something that changed, so send the notification of summaryData. The values are
+            // only gathered when someone is listening, and only made into a JSON array for plain listeners.
+            List<SummaryDataStream> summaryDataStreams = managementContext.getSummaryDataStreams();
+            if (!summaryDataListeners.isEmpty() || !summaryDataStreams.isEmpty()) {
+                Object[] vals = new Object[summaryDataFieldList.length];
+                gatherSummaryValues(vals);
+
+                if (!summaryDataListeners.isEmpty()) {
+                    String summaryData = makeSummaryData(vals);
+                    for (SummaryDataListener listener : summaryDataListeners) {
+                        listener.sendSummaryData(summaryData);
+                    }
+                }
+
+                for (SummaryDataStream stream : summaryDataStreams) {
+                    stream.sendSummaryValues(this, vals);
+                }
             }
 
             scheduleSummaryData();
@@ -177,6 +209,15 @@ public abstract class AbstractManagementBean implements ManagementBean {
         return false;
     }
 
+    private static String makeSummaryData(Object[] vals) {
+        try {
+            return new JSONArray(vals).toString();
+        } catch (JSONException ex) {
+            // We should never be able to get here, as the summary data values are all legal
+            throw new RuntimeException("Error converting summary data to JSON", ex);
+        }
+    }
+
     private void scheduleSummaryData() {
         summaryDataFuture = getSummaryDataScheduler().schedule(new Callable<Boolean>() {
             @Override
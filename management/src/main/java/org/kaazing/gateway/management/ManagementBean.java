@@ -29,6 +29,12 @@ public interface ManagementBean {
      */
     String getSummaryData();
 
+    /**
+     * Gather the current summary values and send them to a summary data stream, e.g. to give a newly added stream the
+     * current state of beans that have not changed since.
+     */
+    void sendSummaryValues(SummaryDataStream stream);
+
     /**
      * Return a JSON-stringified version of the summary-data field list.
      *
@@ -0,0 +1,191 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.management;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.json.JSONObject;
+import org.kaazing.gateway.management.gateway.GatewayManagementBean;
+import org.kaazing.gateway.management.service.ServiceManagementBean;
+import org.kaazing.gateway.management.session.SessionManagementBean;
+
+/**
+ * Streams summary data to a single management client as deltas, instead of the full JSON array of every changed bean on
+ * every summary interval. The summary-data field list of each type of bean is sent once, after which an update only
+ * carries the fields whose values changed since the client last saw them, and beans without changes are not sent at all:
+ * <pre>
+ * {"type":"service","fields":["serviceConnected","totalBytesReceived",...]}
+ * {"type":"service","id":3,"values":{"1":1024,"6":12}}
+ * {"type":"session","id":42,"closed":true}
+ * </pre>
+ * The keys of "values" are indexes into the field list of the bean's type. A stream can be restricted to the services a
+ * console shows, in which case only the gateway, those services and their sessions are sent.
+ * <p/>
+ * Streams are registered with the management context, and driven by the beans on their summary intervals. Each stream
+ * keeps the values it last sent for each bean, so clients that join later start from a complete picture.
+ */
+public class SummaryDataStream {
+
+    private static final String GATEWAY_TYPE = "gateway";
+    private static final String SERVICE_TYPE = "service";
+    private static final String SESSION_TYPE = "session";
+
+    private final SummaryDataListener listener;
+    private final Set<String> serviceNames;
+
+    private final Set<String> sentFields = new HashSet<>();
+    private final Map<ManagementBean, Object[]> sentValues = new WeakHashMap<>();
+    private final StringBuilder buffer = new StringBuilder(256);
+
+    /**
+     * @param listener  receives each schema and update as a JSON object string
+     */
+    public SummaryDataStream(SummaryDataListener listener) {
+        this(listener, null);
+    }
+
+    /**
+     * @param listener  receives each schema and update as a JSON object string
+     * @param serviceNames  the services to stream, or null for all of them
+     */
+    public SummaryDataStream(SummaryDataListener listener, Collection<String> serviceNames) {
+        this.listener = listener;
+        this.serviceNames = (serviceNames != null) ? new HashSet<>(serviceNames) : null;
+    }
+
+    /**
+     * Send the fields of the given summary values that changed since they were last sent for the bean.
+     *
+     * @param bean  the bean the values were gathered from
+     * @param vals  the summary values, in the order of the bean's summary-data field list
+     */
+    public synchronized void sendSummaryValues(ManagementBean bean, Object[] vals) {
+        String type = getType(bean);
+        if (type == null || !isSubscribed(bean)) {
+            return;
+        }
+
+        if (sentFields.add(type)) {
+            buffer.setLength(0);
+            buffer.append("{\"type\":\"").append(type).append("\",\"fields\":").append(bean.getSummaryDataFields()).append('}');
+            listener.sendSummaryData(buffer.toString());
+        }
+
+        Object[] sent = sentValues.get(bean);
+        if (sent == null) {
+            sent = new Object[vals.length];
+            sentValues.put(bean, sent);
+            // make sure the first update carries every field, including those that are null
+            for (int i = 0; i < sent.length; i++) {
+                sent[i] = this;
+            }
+        }
+
+        buffer.setLength(0);
+        appendHeader(type, bean);
+        buffer.append(",\"values\":{");
+        int changes = 0;
+        for (int i = 0; i < vals.length; i++) {
+            if (!Objects.equals(sent[i], vals[i])) {
+                sent[i] = vals[i];
+                if (changes++ != 0) {
+                    buffer.append(',');
+                }
+                buffer.append('"').append(i).append("\":");
+                appendValue(vals[i]);
+            }
+        }
+        buffer.append("}}");
+
+        if (changes != 0) {
+            listener.sendSummaryData(buffer.toString());
+        }
+    }
+
+    /**
+     * Tell the client a bean is gone (e.g. a session closed), if anything was sent for it.
+     */
+    public synchronized void beanRemoved(ManagementBean bean) {
+        if (sentValues.remove(bean) != null) {
+            buffer.setLength(0);
+            appendHeader(getType(bean), bean);
+            buffer.append(",\"closed\":true}");
+            listener.sendSummaryData(buffer.toString());
+        }
+    }
+
+    private boolean isSubscribed(ManagementBean bean) {
+        if (serviceNames == null) {
+            return true;
+        }
+
+        if (bean instanceof ServiceManagementBean) {
+            return serviceNames.contains(((ServiceManagementBean) bean).getServiceName());
+        }
+
+        if (bean instanceof SessionManagementBean) {
+            return serviceNames.contains(((SessionManagementBean) bean).getServiceManagementBean().getServiceName());
+        }
+
+        return true;
+    }
+
+    private void appendHeader(String type, ManagementBean bean) {
+        buffer.append("{\"type\":\"").append(type).append("\",\"id\":");
+        if (bean instanceof SessionManagementBean) {
+            buffer.append(((SessionManagementBean) bean).getId());
+        } else if (bean instanceof ServiceManagementBean) {
+            buffer.append(((ServiceManagementBean) bean).getId());
+        } else {
+            buffer.append(((GatewayManagementBean) bean).getId());
+        }
+    }
+
+    private void appendValue(Object val) {
+        if (val instanceof Long || val instanceof Integer || val instanceof Boolean) {
+            buffer.append(val);
+        } else if (val instanceof Number) {
+            double d = ((Number) val).doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                buffer.append("null");
+            } else {
+                buffer.append(d);
+            }
+        } else if (val == null) {
+            buffer.append("null");
+        } else {
+            buffer.append(JSONObject.quote(val.toString()));
+        }
+    }
+
+    private static String getType(ManagementBean bean) {
+        if (bean instanceof SessionManagementBean) {
+            return SESSION_TYPE;
+        }
+        if (bean instanceof ServiceManagementBean) {
+            return SERVICE_TYPE;
+        }
+        if (bean instanceof GatewayManagementBean) {
+            return GATEWAY_TYPE;
+        }
+        return null;
+    }
+}
@@ -34,6 +34,7 @@ import javax.annotation.Resource;
 import org.kaazing.gateway.management.ManagementServiceHandler;
 import org.kaazing.gateway.management.ManagementStrategy;
 import org.kaazing.gateway.management.ManagementStrategyChangeListener;
+import org.kaazing.gateway.management.SummaryDataStream;
 import org.kaazing.gateway.management.SummaryManagementInterval;
 import org.kaazing.gateway.management.config.ClusterConfigurationBean;
 import org.kaazing.gateway.management.config.ClusterConfigurationBeanImpl;
@@ -174,6 +175,9 @@ public class DefaultManagementContext implements ManagementContext, DependencyCo
     private List<ManagementStrategyChangeListener> managementStrategyChangeListeners =
             new ArrayList<>();
 
+    // The streams of summary data deltas, one per management client that asked for them.
+    private final List<SummaryDataStream> summaryDataStreams = new CopyOnWriteArrayList<>();
+
     // injected at startup
     private SchedulerProvider schedulerProvider;
     private GatewayContext gatewayContext;
@@ -352,6 +356,41 @@ public class DefaultManagementContext implements ManagementContext, DependencyCo
         managementStrategyChangeListeners.remove(listener);
     }
 
+    @Override
+    public List<SummaryDataStream> getSummaryDataStreams() {
+        return summaryDataStreams;
+    }
+
+    @Override
+    public void addSummaryDataStream(final SummaryDataStream stream) {
+        summaryDataStreams.add(stream);
+
+        // beans only send summary data when they change, so give the new stream the current values of all of them
+        runManagementTask(new Runnable() {
+            @Override
+            public void run() {
+                for (GatewayManagementBean gatewayBean : gatewayManagementBeans.values()) {
+                    gatewayBean.sendSummaryValues(stream);
+                }
+
+                List<SessionManagementBean> sessionBeans = new ArrayList<>();
+                for (ServiceManagementBean serviceBean : serviceManagementBeans.values()) {
+                    serviceBean.sendSummaryValues(stream);
+                    serviceBean.collectSessionManagementBeans(sessionBeans);
+                }
+
+                for (SessionManagementBean sessionBean : sessionBeans) {
+                    sessionBean.sendSummaryValues(stream);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void removeSummaryDataStream(SummaryDataStream stream) {
+        summaryDataStreams.remove(stream);
+    }
+
     private void adjustStrategies(long managementSessionCount, long overallSessionCount) {
         ManagementStrategy[] newManagementStrategy;
 
@@ -19,6 +19,7 @@ import java.util.List;
 
 import org.kaazing.gateway.management.ManagementServiceHandler;
 import org.kaazing.gateway.management.ManagementStrategyChangeListener;
+import org.kaazing.gateway.management.SummaryDataStream;
 import org.kaazing.gateway.management.SummaryManagementInterval;
 import org.kaazing.gateway.management.filter.ManagementFilter;
 import org.kaazing.gateway.management.filter.ManagementFilterStrategy;
@@ -80,6 +81,16 @@ public interface ManagementContext {
 
     void removeManagementStrategyListener(ManagementStrategyChangeListener listener);
 
+    List<SummaryDataStream> getSummaryDataStreams();
+
+    /**
+     * Add a stream of summary data deltas for one management client. The stream is first sent the current summary values
+     * of the gateway, services and sessions, then the changes on each summary interval.
+     */
+    void addSummaryDataStream(SummaryDataStream stream);
+
+    void removeSummaryDataStream(SummaryDataStream stream);
+
     List<ManagementServiceHandler> getManagementServiceHandlers();
 
     void addManagementServiceHandler(ManagementServiceHandler managementServiceHandler);
@@ -15,6 +15,9 @@
  */
 package org.kaazing.gateway.management.filter;
 
+import static java.lang.System.currentTimeMillis;
+import static org.kaazing.gateway.transport.ws.AbstractWsBridgeSession.ROUND_TRIP_LATENCY_HISTOGRAM;
+
 import org.apache.mina.core.write.WriteRequest;
 import org.kaazing.gateway.management.Utils;
 import org.kaazing.gateway.management.Utils.ManagementSessionType;
@@ -22,7 +25,9 @@ import org.kaazing.gateway.management.context.ManagementContext;
 import org.kaazing.gateway.management.monitoring.entity.manager.ServiceCounterManager;
 import org.kaazing.gateway.management.service.ServiceManagementBean;
 import org.kaazing.gateway.service.ServiceContext;
+import org.kaazing.gateway.transport.BridgeSession;
 import org.kaazing.gateway.transport.IoFilterAdapter;
+import org.kaazing.gateway.transport.ws.AbstractWsBridgeSession;
 import org.kaazing.mina.core.session.IoSessionEx;
 
 /**
@@ -108,5 +113,34 @@ public class ManagementFilter extends IoFilterAdapter<IoSessionEx> {
         managementContext.getManagementFilterStrategy()
                 .doSessionCreated(managementContext, serviceBean, session, managementSessionType);
         serviceCounterManager.incrementSessionCounters(managementSessionType);
+        serviceBean.traceSession(session);
+
+        if (session instanceof AbstractWsBridgeSession) {
+            // WsCheckAliveFilter records PING/PONG round-trip times here, keyed by transport (wsn, wsx, wse)
+            String transportName = ((AbstractWsBridgeSession<?, ?>) session).getLocalAddress().getResource().getScheme();
+            ROUND_TRIP_LATENCY_HISTOGRAM.set(session, serviceBean.getRoundTripLatencyHistogram(transportName));
+
+            // native WebSocket connections are dedicated to the upgrade, so the age of the underlying connection
+            // is the time taken by the TCP accept, any TLS handshake and the HTTP upgrade
+            if (managementSessionType == ManagementSessionType.NATIVE) {
+                IoSessionEx transport = getTransportSession(session);
+                if (transport != session) {
+                    long handshakeTime = Math.max(currentTimeMillis() - transport.getCreationTime(), 0L);
+                    serviceBean.getHandshakeLatencyHistogram(transportName).recordValue(handshakeTime);
+                }
+            }
+        }
+    }
+
+    private static IoSessionEx getTransportSession(IoSessionEx session) {
+        IoSessionEx transport = session;
+        while (transport instanceof BridgeSession) {
+            IoSessionEx parent = ((BridgeSession) transport).getParent();
+            if (parent == null) {
+                break;
+            }
+            transport = parent;
+        }
+        return transport;
     }
 }
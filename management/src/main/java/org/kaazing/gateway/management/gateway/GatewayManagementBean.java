@@ -21,6 +21,7 @@ import org.kaazing.gateway.management.ManagementBean;
 import org.kaazing.gateway.management.Utils.ManagementSessionType;
 import org.kaazing.gateway.management.update.check.ManagementUpdateCheck;
 import org.kaazing.gateway.service.cluster.ClusterContext;
+import org.kaazing.gateway.transport.trace.TraceRecorder;
 
 /**
  * Interface that defines the data and access methods that will be supported by all management protocols (e.g., JMX, SNMP) for a
@@ -61,6 +62,17 @@ public interface GatewayManagementBean extends ManagementBean {
 
     long getTotalExceptions();
 
+    long getAdmissionRejectedConnections();
+
+    long getAdmissionRejectedHandshakes();
+
+    long getAdmissionShedCount();
+
+    /**
+     * Returns the recorder of the per I/O thread transport trace rings, or null if not available.
+     */
+    TraceRecorder getTraceRecorder();
+
     long getUptime();
 
     long getStartTime();
@@ -106,5 +118,10 @@ public interface GatewayManagementBean extends ManagementBean {
      */
     void forceUpdateVersionCheck();
 
+    /**
+     * Drops the resolved addresses cached for service connects, so that they are resolved again
+     */
+    void invalidateResourceAddressCache();
+
     ManagementUpdateCheck getUpdateCheck();
 }
@@ -35,6 +35,7 @@ import org.kaazing.gateway.management.Utils.ManagementSessionType;
 import org.kaazing.gateway.management.context.ManagementContext;
 import org.kaazing.gateway.management.update.check.ManagementUpdateCheck;
 import org.kaazing.gateway.management.update.check.ManagementUpdateCheckFactory;
+import org.kaazing.gateway.resource.address.ResourceAddressCache;
 import org.kaazing.gateway.server.context.GatewayContext;
 import org.kaazing.gateway.server.impl.VersionUtils;
 import org.kaazing.gateway.service.cluster.ClusterContext;
@@ -42,6 +43,8 @@ import org.kaazing.gateway.service.cluster.MemberId;
 import org.kaazing.gateway.service.cluster.MembershipEventListener;
 import org.kaazing.gateway.service.collections.CollectionsFactory;
 import org.kaazing.gateway.service.http.balancer.HttpBalancerService;
+import org.kaazing.gateway.transport.AdmissionController;
+import org.kaazing.gateway.transport.trace.TraceRecorder;
 import org.kaazing.mina.netty.util.threadlocal.VicariousThreadLocal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -195,6 +198,51 @@ public class GatewayManagementBeanImpl extends AbstractManagementBean
         return total;
     }
 
+    @Override
+    public long getAdmissionRejectedConnections() {
+        AdmissionController admissionController = getAdmissionController();
+        return (admissionController != null) ? admissionController.getRejectedConnectionCount() : 0;
+    }
+
+    @Override
+    public long getAdmissionRejectedHandshakes() {
+        AdmissionController admissionController = getAdmissionController();
+        return (admissionController != null) ? admissionController.getRejectedHandshakeCount() : 0;
+    }
+
+    @Override
+    public long getAdmissionShedCount() {
+        AdmissionController admissionController = getAdmissionController();
+        return (admissionController != null) ? admissionController.getShedCount() : 0;
+    }
+
+    @Override
+    public TraceRecorder getTraceRecorder() {
+        if (gatewayContext == null) {
+            return null;
+        }
+        return (TraceRecorder) gatewayContext.getInjectables().get("traceRecorder");
+    }
+
+    @Override
+    public void invalidateResourceAddressCache() {
+        if (gatewayContext == null) {
+            return;
+        }
+        ResourceAddressCache resourceAddressCache =
+                (ResourceAddressCache) gatewayContext.getInjectables().get("resourceAddressCache");
+        if (resourceAddressCache != null) {
+            resourceAddressCache.invalidate();
+        }
+    }
+
+    private AdmissionController getAdmissionController() {
+        if (gatewayContext == null) {
+            return null;
+        }
+        return (AdmissionController) gatewayContext.getInjectables().get("admissionController");
+    }
+
     @Override
     public long getUptime() {
         return System.currentTimeMillis() - startTime;
@@ -350,27 +398,15 @@ public class GatewayManagementBeanImpl extends AbstractManagementBean
     }
 
     @Override
-    public String getSummaryData() {
-        JSONArray jsonArray = null;
-
-        try {
-            Object[] vals = new Object[SUMMARY_DATA_FIELD_LIST.length];
-
-            vals[SUMMARY_DATA_TOTAL_CURRENT_SESSIONS_INDEX] = 0L;
-            vals[SUMMARY_DATA_TOTAL_BYTES_RECEIVED_INDEX] = 0L;
-            vals[SUMMARY_DATA_TOTAL_BYTES_SENT_INDEX] = 0L;
-            vals[SUMMARY_DATA_TOTAL_EXCEPTIONS_INDEX] = 0L;
-
-            for (ThreadGatewayStats stats : gatewayStatsMap.values()) {
-                stats.collectSummaryValues(vals);
-            }
+    protected void gatherSummaryValues(Object[] vals) {
+        vals[SUMMARY_DATA_TOTAL_CURRENT_SESSIONS_INDEX] = 0L;
+        vals[SUMMARY_DATA_TOTAL_BYTES_RECEIVED_INDEX] = 0L;
+        vals[SUMMARY_DATA_TOTAL_BYTES_SENT_INDEX] = 0L;
+        vals[SUMMARY_DATA_TOTAL_EXCEPTIONS_INDEX] = 0L;
 
-            jsonArray = new JSONArray(vals);
-        } catch (JSONException ex) {
-            // We should never be able to get here, as the summary data values are all legal
+        for (ThreadGatewayStats stats : gatewayStatsMap.values()) {
+            stats.collectSummaryValues(vals);
         }
-
-        return jsonArray.toString();
     }
 
     private List<GatewayManagementListener> getManagementListeners() {
@@ -37,6 +37,12 @@ public interface GatewayMXBean {
 
     long getTotalBytesSent();
 
+    long getAdmissionRejectedConnections();
+
+    long getAdmissionRejectedHandshakes();
+
+    long getAdmissionShedCount();
+
     long getUptime();
 
     long getStartTime();
@@ -52,4 +58,6 @@ public interface GatewayMXBean {
     String getAvailableUpdateVersion();
 
     void forceUpdateVersionCheck();
+
+    void invalidateResourceAddressCache();
 }
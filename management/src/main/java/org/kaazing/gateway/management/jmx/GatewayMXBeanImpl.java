@@ -81,6 +81,21 @@ public class GatewayMXBeanImpl implements GatewayMXBean {
         return gatewayManagementBean.getTotalBytesSent();
     }
 
+    @Override
+    public long getAdmissionRejectedConnections() {
+        return gatewayManagementBean.getAdmissionRejectedConnections();
+    }
+
+    @Override
+    public long getAdmissionRejectedHandshakes() {
+        return gatewayManagementBean.getAdmissionRejectedHandshakes();
+    }
+
+    @Override
+    public long getAdmissionShedCount() {
+        return gatewayManagementBean.getAdmissionShedCount();
+    }
+
     @Override
     public long getUptime() {
         return gatewayManagementBean.getUptime();
@@ -120,4 +135,9 @@ public class GatewayMXBeanImpl implements GatewayMXBean {
     public void forceUpdateVersionCheck() {
         gatewayManagementBean.forceUpdateVersionCheck();
     }
+
+    @Override
+    public void invalidateResourceAddressCache() {
+        gatewayManagementBean.invalidateResourceAddressCache();
+    }
 }
@@ -16,6 +16,7 @@
 package org.kaazing.gateway.management.jmx;
 
 import java.lang.management.ManagementFactory;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -51,6 +52,7 @@ class JmxManagementServiceHandler implements ManagementServiceHandler {
 
     public static final String JMX_OBJECT_NAME = Gateway.class.getPackage().getName() + ".management";
     private static final String GATEWAY_MBEAN_FORMAT_STR = "%s:root=gateways,gatewayId=%s,name=summary";
+    private static final String SESSIONS_MBEAN_FORMAT_STR = "%s:root=gateways,gatewayId=%s,name=sessions";
     private static final String SERVICE_MBEAN_FORMAT_STR =
             "%s:root=gateways,gatewayId=%s,subtype=services,serviceType=%s,serviceId=\"%s\",name=summary";
     private static final String SESSION_MBEAN_FORMAT_STR =
@@ -75,6 +77,8 @@ class JmxManagementServiceHandler implements ManagementServiceHandler {
     private final MBeanServer mbeanServer;
 
     private final Map<Integer, ServiceMXBean> serviceBeanMap;
+    private final Map<Integer, ServiceManagementBean> serviceManagementBeanMap;
+    // only the sessions selected for inspection have a registered MBean, all are listed by the SessionsMXBean
     private final Map<Long, SessionMXBean> sessionBeanMap;
 
     public JmxManagementServiceHandler(ServiceContext serviceContext, ManagementContext managementContext, MBeanServer
@@ -82,6 +86,7 @@ class JmxManagementServiceHandler implements ManagementServiceHandler {
         this.serviceContext = serviceContext;
         this.mbeanServer = mbeanServer;
         serviceBeanMap = new ConcurrentHashMap<>();
+        serviceManagementBeanMap = new ConcurrentHashMap<>();
         sessionBeanMap = new ConcurrentHashMap<>();
 
         managementContext.addGatewayManagementListener(new JmxGatewayManagementListener(this));
@@ -102,8 +107,43 @@ class JmxManagementServiceHandler implements ManagementServiceHandler {
         return serviceBeanMap.get(serviceId);
     }
 
+    public Collection<ServiceManagementBean> getServiceManagementBeans() {
+        return serviceManagementBeanMap.values();
+    }
+
+    /**
+     * Returns the session bean of an open session of any service. This runs OFF any IO thread.
+     */
+    public SessionManagementBean findSessionManagementBean(long sessionId) {
+        for (ServiceManagementBean serviceManagementBean : serviceManagementBeanMap.values()) {
+            SessionManagementBean sessionManagementBean = serviceManagementBean.findSessionManagementBean(sessionId);
+            if (sessionManagementBean != null) {
+                return sessionManagementBean;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the MBean of an open session, which is only registered if the session is being inspected.
+     */
     public SessionMXBean getSessionMXBean(long sessionId) {
-        return sessionBeanMap.get(sessionId);
+        SessionMXBean sessionMXBean = sessionBeanMap.get(sessionId);
+        if (sessionMXBean == null) {
+            SessionManagementBean sessionManagementBean = findSessionManagementBean(sessionId);
+            if (sessionManagementBean != null) {
+                sessionMXBean = getSessionMXBean(sessionManagementBean);
+            }
+        }
+        return sessionMXBean;
+    }
+
+    public SessionMXBean getSessionMXBean(SessionManagementBean sessionManagementBean) {
+        SessionMXBean sessionMXBean = sessionBeanMap.get(sessionManagementBean.getId());
+        if (sessionMXBean == null) {
+            sessionMXBean = new SessionMXBeanImpl(newSessionObjectName(sessionManagementBean), sessionManagementBean);
+        }
+        return sessionMXBean;
     }
 
     @Override
@@ -122,6 +162,18 @@ class JmxManagementServiceHandler implements ManagementServiceHandler {
 
                 mbeanServer.registerMBean(gatewayMXBean, name);
             }
+
+            ObjectName sessionsName =
+                    new ObjectName(String.format(SESSIONS_MBEAN_FORMAT_STR,
+                            JMX_OBJECT_NAME,
+                            hostAndPid));
+            if (mbeanServer.isRegistered(sessionsName)) {
+                LOGGER.warn(String.format("Sessions MBean name %s already registered", sessionsName));
+            } else {
+                SessionsMXBeanImpl sessionsMXBean = new SessionsMXBeanImpl(sessionsName, this);
+
+                mbeanServer.registerMBean(sessionsMXBean, sessionsName);
+            }
         } catch (Exception ex) {
             throw new RuntimeException(ex);
         }
@@ -146,6 +198,7 @@ class JmxManagementServiceHandler implements ManagementServiceHandler {
                 ServiceMXBeanImpl serviceMXBean = new ServiceMXBeanImpl(this, name, serviceManagementBean);
                 mbeanServer.registerMBean(serviceMXBean, name);
                 serviceBeanMap.put(serviceManagementBean.getId(), serviceMXBean);
+                serviceManagementBeanMap.put(serviceManagementBean.getId(), serviceManagementBean);
             }
         } catch (Exception ex) {
             throw new RuntimeException(ex);
@@ -154,44 +207,75 @@ class JmxManagementServiceHandler implements ManagementServiceHandler {
 
     @Override
     public void addSessionManagementBean(SessionManagementBean sessionManagementBean) {
-        try {
-            ServiceManagementBean serviceManagementBean = sessionManagementBean.getServiceManagementBean();
-            GatewayManagementBean gatewayManagementBean = serviceManagementBean.getGatewayManagementBean();
+        // Registering an MBean for each session does not scale to many sessions, they are listed by the SessionsMXBean
+        // instead, see inspectSession
+    }
 
-            ObjectName name =
-                    new ObjectName(String.format(SESSION_MBEAN_FORMAT_STR,
-                            JMX_OBJECT_NAME,
-                            gatewayManagementBean.getHostAndPid(),
-                            replaceCharactersDisallowedInObjectName(serviceManagementBean.getServiceType()),
-                            serviceManagementBean.getServiceName(),
-                            sessionManagementBean.getId()));
-            if (mbeanServer.isRegistered(name)) {
-                LOGGER.warn(String.format("Service MBean name %s already registered", name));
-            } else {
-                SessionMXBeanImpl sessionMXBean = new SessionMXBeanImpl(name, sessionManagementBean);
-                mbeanServer.registerMBean(sessionMXBean, name);
-                sessionBeanMap.put(sessionManagementBean.getId(), sessionMXBean);
+    /**
+     * Registers an MBean for the session, until the session is closed or stopInspectingSession is called.
+     */
+    public SessionMXBean inspectSession(SessionManagementBean sessionManagementBean) {
+        try {
+            SessionMXBean sessionMXBean = sessionBeanMap.get(sessionManagementBean.getId());
+            if (sessionMXBean == null) {
+                ObjectName name = newSessionObjectName(sessionManagementBean);
+                sessionMXBean = new SessionMXBeanImpl(name, sessionManagementBean);
+                if (mbeanServer.isRegistered(name)) {
+                    LOGGER.warn(String.format("Session MBean name %s already registered", name));
+                } else {
+                    mbeanServer.registerMBean(sessionMXBean, name);
+                    sessionBeanMap.put(sessionManagementBean.getId(), sessionMXBean);
+                }
             }
+            return sessionMXBean;
         } catch (Exception ex) {
             throw new RuntimeException(ex);
         }
     }
 
+    public void stopInspectingSession(long sessionId) {
+        unregisterSessionMXBean(sessionBeanMap.remove(sessionId));
+    }
+
+    /**
+     * Unregisters the MBean of a closed session if it was being inspected.
+     * @return the unregistered session MBean, or null if the session was not being inspected
+     */
     public SessionMXBean removeSessionMXBean(SessionManagementBean sessionManagementBean) {
+        SessionMXBean sessionMXBean = sessionBeanMap.remove(sessionManagementBean.getId());
+        unregisterSessionMXBean(sessionMXBean);
+        return sessionMXBean;
+    }
+
+    private void unregisterSessionMXBean(SessionMXBean sessionMXBean) {
         try {
-            SessionMXBean sessionMXBean = sessionBeanMap.remove(sessionManagementBean.getId());
             if (sessionMXBean != null) {
                 ObjectName name = sessionMXBean.getObjectName();
                 if (mbeanServer.isRegistered(name)) {
                     mbeanServer.unregisterMBean(name);
                 }
             }
-            return sessionMXBean;
         } catch (Exception ex) {
             throw new RuntimeException(ex);
         }
     }
 
+    private ObjectName newSessionObjectName(SessionManagementBean sessionManagementBean) {
+        try {
+            ServiceManagementBean serviceManagementBean = sessionManagementBean.getServiceManagementBean();
+            GatewayManagementBean gatewayManagementBean = serviceManagementBean.getGatewayManagementBean();
+
+            return new ObjectName(String.format(SESSION_MBEAN_FORMAT_STR,
+                    JMX_OBJECT_NAME,
+                    gatewayManagementBean.getHostAndPid(),
+                    replaceCharactersDisallowedInObjectName(serviceManagementBean.getServiceType()),
+                    serviceManagementBean.getServiceName(),
+                    sessionManagementBean.getId()));
+        } catch (JMException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
     @Override
     public void addClusterConfigurationBean(ClusterConfigurationBean clusterConfigBean) {
         try {
@@ -346,6 +430,7 @@ class JmxManagementServiceHandler implements ManagementServiceHandler {
         // These query strings are tied to the constants at the top of the file and are sensitive to changes in those format
         // strings
         cleanupRegisteredBeans("%s:root=gateways,gatewayId=%s,name=summary", gatewayId);
+        cleanupRegisteredBeans("%s:root=gateways,gatewayId=%s,name=sessions", gatewayId);
         cleanupRegisteredBeans("%s:root=gateways,gatewayId=%s,subtype=services,*,name=summary", gatewayId);
         cleanupRegisteredBeans("%s:root=gateways,gatewayId=%s,subtype=configuration,*", gatewayId);
         cleanupRegisteredBeans("%s:root=gateways,gatewayId=%s,subtype=system,*", gatewayId);
@@ -36,12 +36,11 @@ public final class JmxSessionManagementListener extends NotificationBroadcasterS
     // All of the following are expected to be OFF any session's IO thread.
     @Override
     public void doSessionCreated(SessionManagementBean sessionBean) throws Exception {
-        SessionMXBean sessionMxBean = managementServiceHandler.getSessionMXBean(sessionBean.getId());
-
         Map<String, String> userPrincipals = sessionBean.getUserPrincipalMap();
 
         // Send a notification for the principals for the logged-in session.
         if (userPrincipals != null) {
+            SessionMXBean sessionMxBean = managementServiceHandler.getSessionMXBean(sessionBean);
             Map<String, Map<String, String>> userData = new HashMap<>();
             userData.put(sessionMxBean.getObjectName().toString(), userPrincipals);
 
@@ -63,6 +62,9 @@ public final class JmxSessionManagementListener extends NotificationBroadcasterS
 
         // Send a notification for the principals for the no-longer-logged-in session.
         if (userPrincipals != null) {
+            if (sessionMxBean == null) {
+                sessionMxBean = managementServiceHandler.getSessionMXBean(sessionBean);
+            }
             Map<String, Map<String, String>> userData = new HashMap<>();
             userData.put(sessionMxBean.getObjectName().toString(), userPrincipals);
 
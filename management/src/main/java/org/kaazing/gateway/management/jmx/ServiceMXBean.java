@@ -45,6 +45,18 @@ public interface ServiceMXBean {
 
     Map<String, String> getUserPrincipals(Long sessionId);
 
+    // A map of transport name (wsn, wsx, wse) to WebSocket round-trip latency statistics in milliseconds
+    // (count, min, mean, stdDeviation, 50th, 90th, 99th and 99.9th percentiles and max)
+    Map<String, Map<String, Long>> getRoundTripLatencies();
+
+    void clearRoundTripLatencies();
+
+    // Records the transport events of sessions created from now on into the binary trace ring of their I/O thread,
+    // see org.kaazing.gateway.transport.trace.TraceDecoder to render them
+    boolean isTracingEnabled();
+
+    void setTracingEnabled(boolean tracingEnabled);
+
     // -----------------------------------------------------------------
     // For proxy style services the following methods should return data
     // -----------------------------------------------------------------
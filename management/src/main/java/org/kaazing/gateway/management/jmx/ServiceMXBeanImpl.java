@@ -16,10 +16,12 @@
 package org.kaazing.gateway.management.jmx;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import javax.management.ObjectName;
 import org.kaazing.gateway.management.service.ServiceManagementBean;
 import org.kaazing.gateway.transport.TypedAttributeKey;
+import org.kaazing.gateway.util.LatencyHistogram;
 import org.kaazing.gateway.util.Utils;
 
 public class ServiceMXBeanImpl implements ServiceMXBean {
@@ -122,6 +124,41 @@ public class ServiceMXBeanImpl implements ServiceMXBean {
         serviceManagementBean.clearCumulativeSessionsCount();
     }
 
+    @Override
+    public Map<String, Map<String, Long>> getRoundTripLatencies() {
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : serviceManagementBean.getRoundTripLatencyHistograms().entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            Map<String, Long> latencies = new LinkedHashMap<>();
+            latencies.put("count", histogram.getCount());
+            latencies.put("min", histogram.getMinValue());
+            latencies.put("mean", Math.round(histogram.getMean()));
+            latencies.put("stdDeviation", Math.round(histogram.getStdDeviation()));
+            latencies.put("50thPercentile", histogram.getValueAtPercentile(50.0));
+            latencies.put("90thPercentile", histogram.getValueAtPercentile(90.0));
+            latencies.put("99thPercentile", histogram.getValueAtPercentile(99.0));
+            latencies.put("99.9thPercentile", histogram.getValueAtPercentile(99.9));
+            latencies.put("max", histogram.getMaxValue());
+            result.put(entry.getKey(), latencies);
+        }
+        return result;
+    }
+
+    @Override
+    public void clearRoundTripLatencies() {
+        serviceManagementBean.clearRoundTripLatencies();
+    }
+
+    @Override
+    public boolean isTracingEnabled() {
+        return serviceManagementBean.isTracingEnabled();
+    }
+
+    @Override
+    public void setTracingEnabled(boolean tracingEnabled) {
+        serviceManagementBean.setTracingEnabled(tracingEnabled);
+    }
+
     @Override
     public long getTotalBytesReceivedCount() {
         return serviceManagementBean.getTotalBytesReceivedCount();
@@ -147,8 +184,10 @@ public class ServiceMXBeanImpl implements ServiceMXBean {
         for (Map.Entry<Long, Map<String, String>> entry : sessionPrincipalMap.entrySet()) {
             long sessionId = entry.getKey();
             Map<String, String> userPrincipals = entry.getValue();
-            ObjectName sessionMBeanName = managementServiceHandler.getSessionMXBean(sessionId).getObjectName();
-            result.put(sessionMBeanName.toString(), userPrincipals);
+            SessionMXBean sessionBean = managementServiceHandler.getSessionMXBean(sessionId);
+            if (sessionBean != null) {
+                result.put(sessionBean.getObjectName().toString(), userPrincipals);
+            }
         }
 
         return result;
@@ -258,7 +297,9 @@ public class ServiceMXBeanImpl implements ServiceMXBean {
                 // Case sensitive for both name and class-name.
                 if (key.equals(principalName) && (principalClass.isAssignableFrom(userPrincipalClass))) {
                     SessionMXBean sessionBean = managementServiceHandler.getSessionMXBean(sessionId);
-                    sessionBean.close();
+                    if (sessionBean != null) {
+                        sessionBean.close();
+                    }
                     serviceManagementBean.removeSessionManagementBean(sessionId);
                     break;
                 }
@@ -0,0 +1,61 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.management.jmx;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+/**
+ * The table of the sessions of all services, as a single MBean rather than one MBean per session. Rows are ordered
+ * by session id and contain the items of {@link SessionsMXBeanImpl#SESSION_ITEM_NAMES}. A per-session MBean is only
+ * registered for the sessions explicitly selected for inspection.
+ */
+public interface SessionsMXBean {
+
+    ObjectName getObjectName();
+
+    long getNumberOfSessions();
+
+    /**
+     * Returns at most limit sessions (all when limit is 0), starting at offset.
+     */
+    TabularData getSessions(int offset, int limit);
+
+    /**
+     * Returns at most limit matching sessions (all when limit is 0), starting at offset. Null or empty string filters
+     * and zero minimums match every session.
+     * @param serviceName  the name of the service of the session
+     * @param principal  the name of one of the user principals of the session
+     * @param remoteAddress  part of the remote address of the session
+     * @param minimumAge  the minimum milliseconds since the session was created
+     * @param minimumBytes  the minimum bytes read and written by the session
+     */
+    TabularData querySessions(String serviceName, String principal, String remoteAddress, long minimumAge,
+                              long minimumBytes, int offset, int limit);
+
+    CompositeData getSession(long sessionId);
+
+    void closeSession(long sessionId);
+
+    /**
+     * Registers an MBean for the session until it is closed or no longer inspected.
+     * @return the name of the session MBean
+     */
+    ObjectName inspectSession(long sessionId);
+
+    void stopInspectingSession(long sessionId);
+}
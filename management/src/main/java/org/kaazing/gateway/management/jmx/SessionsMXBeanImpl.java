@@ -0,0 +1,200 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.management.jmx;
+
+import static java.lang.System.currentTimeMillis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
+import org.kaazing.gateway.management.service.ServiceManagementBean;
+import org.kaazing.gateway.management.session.SessionManagementBean;
+
+/**
+ * Implementation of the sessions table for JMX, read from the session beans each service keeps per IO thread.
+ */
+public class SessionsMXBeanImpl implements SessionsMXBean {
+
+    public static final String[] SESSION_ITEM_NAMES = new String[]{"id", "serviceName", "sessionTypeName",
+            "sessionDirection", "remoteAddress", "principals", "createTime", "readBytes", "readBytesThroughput",
+            "writtenBytes", "writtenBytesThroughput", "lastRoundTripLatency", "lastRoundTripLatencyTimestamp"};
+
+    private static final OpenType<?>[] SESSION_ITEM_TYPES = new OpenType<?>[]{SimpleType.LONG, SimpleType.STRING,
+            SimpleType.STRING, SimpleType.STRING, SimpleType.STRING, SimpleType.STRING, SimpleType.LONG, SimpleType.LONG,
+            SimpleType.DOUBLE, SimpleType.LONG, SimpleType.DOUBLE, SimpleType.LONG, SimpleType.LONG};
+
+    private static final CompositeType SESSION_TYPE;
+    private static final TabularType SESSIONS_TYPE;
+
+    static {
+        try {
+            SESSION_TYPE = new CompositeType("session", "A session of a service", SESSION_ITEM_NAMES,
+                    SESSION_ITEM_NAMES, SESSION_ITEM_TYPES);
+            SESSIONS_TYPE = new TabularType("sessions", "Sessions ordered by id", SESSION_TYPE, new String[]{"id"});
+        } catch (OpenDataException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static final Comparator<SessionManagementBean> BY_ID = new Comparator<SessionManagementBean>() {
+        @Override
+        public int compare(SessionManagementBean bean1, SessionManagementBean bean2) {
+            return Long.compare(bean1.getId(), bean2.getId());
+        }
+    };
+
+    /*
+     * Storing the object name only so we can retrieve it during shutdown,
+     * when we need to have it to unregister it.
+     */
+    private final ObjectName objectName;
+
+    private final JmxManagementServiceHandler managementServiceHandler;
+
+    public SessionsMXBeanImpl(ObjectName objectName, JmxManagementServiceHandler managementServiceHandler) {
+        this.objectName = objectName;
+        this.managementServiceHandler = managementServiceHandler;
+    }
+
+    @Override
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public long getNumberOfSessions() {
+        long total = 0;
+        for (ServiceManagementBean serviceManagementBean : managementServiceHandler.getServiceManagementBeans()) {
+            total += serviceManagementBean.getCurrentSessionCount();
+        }
+        return total;
+    }
+
+    @Override
+    public TabularData getSessions(int offset, int limit) {
+        return querySessions(null, null, null, 0, 0, offset, limit);
+    }
+
+    @Override
+    public TabularData querySessions(String serviceName, String principal, String remoteAddress, long minimumAge,
+                                     long minimumBytes, int offset, int limit) {
+        List<SessionManagementBean> sessionBeans = new ArrayList<>();
+        for (ServiceManagementBean serviceManagementBean : managementServiceHandler.getServiceManagementBeans()) {
+            if (isEmpty(serviceName) || serviceName.equals(serviceManagementBean.getServiceName())) {
+                serviceManagementBean.collectSessionManagementBeans(sessionBeans);
+            }
+        }
+
+        long createdBefore = currentTimeMillis() - minimumAge;
+        List<SessionManagementBean> matches = new ArrayList<>();
+        for (SessionManagementBean sessionBean : sessionBeans) {
+            if ((minimumAge == 0 || sessionBean.getCreateTime() <= createdBefore) &&
+                (minimumBytes == 0 || sessionBean.getReadBytes() + sessionBean.getWrittenBytes() >= minimumBytes) &&
+                (isEmpty(remoteAddress) || contains(sessionBean.getRemoteAddress(), remoteAddress)) &&
+                (isEmpty(principal) || hasPrincipal(sessionBean, principal))) {
+                matches.add(sessionBean);
+            }
+        }
+        Collections.sort(matches, BY_ID);
+
+        TabularData sessions = new TabularDataSupport(SESSIONS_TYPE);
+        int fromIndex = Math.min(Math.max(offset, 0), matches.size());
+        int toIndex = (limit > 0) ? Math.min(fromIndex + limit, matches.size()) : matches.size();
+        for (SessionManagementBean sessionBean : matches.subList(fromIndex, toIndex)) {
+            sessions.put(toCompositeData(sessionBean));
+        }
+        return sessions;
+    }
+
+    @Override
+    public CompositeData getSession(long sessionId) {
+        SessionManagementBean sessionBean = managementServiceHandler.findSessionManagementBean(sessionId);
+        return (sessionBean != null) ? toCompositeData(sessionBean) : null;
+    }
+
+    @Override
+    public void closeSession(long sessionId) {
+        SessionManagementBean sessionBean = managementServiceHandler.findSessionManagementBean(sessionId);
+        if (sessionBean != null) {
+            sessionBean.close();
+        }
+    }
+
+    @Override
+    public ObjectName inspectSession(long sessionId) {
+        SessionManagementBean sessionBean = managementServiceHandler.findSessionManagementBean(sessionId);
+        if (sessionBean == null) {
+            throw new IllegalArgumentException("No session with id " + sessionId);
+        }
+        return managementServiceHandler.inspectSession(sessionBean).getObjectName();
+    }
+
+    @Override
+    public void stopInspectingSession(long sessionId) {
+        managementServiceHandler.stopInspectingSession(sessionId);
+    }
+
+    private static CompositeData toCompositeData(SessionManagementBean sessionBean) {
+        Object[] values = new Object[]{
+            sessionBean.getId(),
+            sessionBean.getServiceManagementBean().getServiceName(),
+            sessionBean.getSessionTypeName(),
+            sessionBean.getSessionDirection(),
+            sessionBean.getRemoteAddress(),
+            sessionBean.getUserPrincipals(),
+            sessionBean.getCreateTime(),
+            sessionBean.getReadBytes(),
+            sessionBean.getReadBytesThroughput(),
+            sessionBean.getWrittenBytes(),
+            sessionBean.getWrittenBytesThroughput(),
+            sessionBean.getLastRoundTripLatency(),
+            sessionBean.getLastRoundTripLatencyTimestamp()
+        };
+
+        try {
+            return new CompositeDataSupport(SESSION_TYPE, SESSION_ITEM_NAMES, values);
+        } catch (OpenDataException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static boolean hasPrincipal(SessionManagementBean sessionBean, String principal) {
+        Map<String, String> userPrincipals = sessionBean.getUserPrincipalMap();
+        return userPrincipals != null && userPrincipals.containsKey(principal);
+    }
+
+    private static boolean contains(String value, String part) {
+        return value != null && value.contains(part);
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+}
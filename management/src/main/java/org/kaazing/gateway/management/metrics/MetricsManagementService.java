@@ -0,0 +1,109 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.management.metrics;
+
+import javax.annotation.Resource;
+
+import org.apache.mina.core.session.IoSession;
+import org.kaazing.gateway.management.ManagementService;
+import org.kaazing.gateway.management.context.ManagementContext;
+import org.kaazing.gateway.resource.address.ResourceAddressCache;
+import org.kaazing.gateway.security.SecurityContext;
+import org.kaazing.gateway.service.ServiceContext;
+import org.kaazing.gateway.transport.TransportFactory;
+
+/**
+ * Management service of type "management.metrics", serving the gateway metrics to HTTP scrapes on its accepts, in the
+ * Prometheus text exposition format.
+ */
+public class MetricsManagementService implements ManagementService {
+
+    private ManagementContext managementContext;
+    private SecurityContext securityContext;
+    private TransportFactory transportFactory;
+    private ResourceAddressCache resourceAddressCache;
+
+    private MetricsManagementServiceHandler handler;
+    private ServiceContext serviceContext;
+
+    @Override
+    public String getType() {
+        return "management.metrics";
+    }
+
+    @Resource(name = "managementContext")
+    public void setManagementContext(ManagementContext managementContext) {
+        this.managementContext = managementContext;
+    }
+
+    @Resource(name = "securityContext")
+    public void setSecurityContext(SecurityContext securityContext) {
+        this.securityContext = securityContext;
+    }
+
+    @Resource(name = "transportFactory")
+    public void setTransportFactory(TransportFactory transportFactory) {
+        this.transportFactory = transportFactory;
+    }
+
+    @Resource(name = "resourceAddressCache")
+    public void setResourceAddressCache(ResourceAddressCache resourceAddressCache) {
+        this.resourceAddressCache = resourceAddressCache;
+    }
+
+    @Override
+    public void init() {
+    }
+
+    @Override
+    public void init(ServiceContext serviceContext) throws Exception {
+        this.serviceContext = serviceContext;
+        handler = new MetricsManagementServiceHandler(serviceContext, transportFactory, resourceAddressCache);
+        managementContext.addManagementServiceHandler(handler);
+        managementContext.setActive(true);
+    }
+
+    @Override
+    public void start() throws Exception {
+        managementContext.updateManagementContext(securityContext);
+        serviceContext.bind(serviceContext.getAccepts(), handler);
+    }
+
+    @Override
+    public void stop() throws Exception {
+        quiesce();
+
+        if (serviceContext != null) {
+            for (IoSession session : serviceContext.getActiveSessions()) {
+                session.close(true);
+            }
+        }
+    }
+
+    @Override
+    public void quiesce() throws Exception {
+        if (serviceContext != null) {
+            serviceContext.unbind(serviceContext.getAccepts(), handler);
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (handler != null) {
+            managementContext.removeManagementServiceHandler(handler);
+        }
+    }
+}
@@ -0,0 +1,422 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.management.metrics;
+
+import static org.kaazing.gateway.management.metrics.MetricsTextWriter.concatLabels;
+import static org.kaazing.gateway.management.metrics.MetricsTextWriter.encodeLabel;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.jboss.netty.channel.socket.Worker;
+import org.jboss.netty.channel.socket.nio.AbstractNioWorker;
+import org.kaazing.gateway.management.ManagementServiceHandler;
+import org.kaazing.gateway.management.config.ClusterConfigurationBean;
+import org.kaazing.gateway.management.config.NetworkConfigurationBean;
+import org.kaazing.gateway.management.config.RealmConfigurationBean;
+import org.kaazing.gateway.management.config.SecurityConfigurationBean;
+import org.kaazing.gateway.management.config.ServiceConfigurationBean;
+import org.kaazing.gateway.management.config.ServiceDefaultsConfigurationBean;
+import org.kaazing.gateway.management.gateway.GatewayManagementBean;
+import org.kaazing.gateway.management.service.ServiceManagementBean;
+import org.kaazing.gateway.management.session.SessionManagementBean;
+import org.kaazing.gateway.resource.address.ResourceAddressCache;
+import org.kaazing.gateway.service.ServiceContext;
+import org.kaazing.gateway.transport.IoHandlerAdapter;
+import org.kaazing.gateway.transport.Transport;
+import org.kaazing.gateway.transport.TransportFactory;
+import org.kaazing.gateway.transport.http.HttpAcceptSession;
+import org.kaazing.gateway.transport.http.HttpHeaders;
+import org.kaazing.gateway.transport.http.HttpMethod;
+import org.kaazing.gateway.transport.http.HttpStatus;
+import org.kaazing.gateway.transport.nio.TcpTransport;
+import org.kaazing.gateway.transport.ssl.bridge.filter.SslStatistics;
+import org.kaazing.gateway.transport.wseb.WsebStatistics;
+import org.kaazing.gateway.util.LatencyHistogram;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+
+/**
+ * Serves the gateway and service metrics to HTTP scrapes in the Prometheus text format. Each scrape reads the same
+ * counters as the JMX beans (the per I/O thread service stats, the latency histograms, the admission counters), plus the
+ * busy and select times of the I/O workers and the JVM buffer pools, rendering them straight into a reused buffer.
+ */
+public class MetricsManagementServiceHandler extends IoHandlerAdapter<HttpAcceptSession>
+        implements ManagementServiceHandler {
+
+    private static final double[] PERCENTILES = {50, 90, 99};
+    private static final byte[][] QUANTILE_LABELS = {encodeLabel("quantile", "0.5"), encodeLabel("quantile", "0.9"),
+        encodeLabel("quantile", "0.99")};
+
+    private static final String HANDSHAKE_LATENCY = "kaazing_service_handshake_latency_seconds";
+    private static final String ROUND_TRIP_LATENCY = "kaazing_service_round_trip_latency_seconds";
+
+    private final ServiceContext serviceContext;
+    private final TransportFactory transportFactory;
+    private final ResourceAddressCache resourceAddressCache;
+    private final List<ServiceMetrics> services;
+    private final List<BufferPoolMXBean> bufferPools;
+
+    // guards the writer and percentile values below, which are reused from one scrape to the next
+    private final Object lock = new Object();
+    private final MetricsTextWriter writer;
+    private final long[] percentileValues;
+
+    private volatile GatewayManagementBean gatewayBean;
+    private volatile Worker[] workers;
+
+    public MetricsManagementServiceHandler(ServiceContext serviceContext, TransportFactory transportFactory,
+                                           ResourceAddressCache resourceAddressCache) {
+        this.serviceContext = serviceContext;
+        this.transportFactory = transportFactory;
+        this.resourceAddressCache = resourceAddressCache;
+        this.services = new CopyOnWriteArrayList<>();
+        this.bufferPools = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class);
+        this.writer = new MetricsTextWriter();
+        this.percentileValues = new long[PERCENTILES.length];
+    }
+
+    @Override
+    public ServiceContext getServiceContext() {
+        return serviceContext;
+    }
+
+    @Override
+    public void addGatewayManagementBean(GatewayManagementBean gatewayManagementBean) {
+        this.gatewayBean = gatewayManagementBean;
+    }
+
+    @Override
+    public void addServiceManagementBean(ServiceManagementBean serviceManagementBean) {
+        services.add(new ServiceMetrics(serviceManagementBean));
+    }
+
+    @Override
+    public void addSessionManagementBean(SessionManagementBean sessionManagementBean) {
+        // sessions are only counted, through their service
+    }
+
+    @Override
+    public void addClusterConfigurationBean(ClusterConfigurationBean clusterConfig) {
+    }
+
+    @Override
+    public void addNetworkConfigurationBean(NetworkConfigurationBean networkMappingBean) {
+    }
+
+    @Override
+    public void addSecurityConfigurationBean(SecurityConfigurationBean securityBean) {
+    }
+
+    @Override
+    public void addRealmConfigurationBean(RealmConfigurationBean realmBean) {
+    }
+
+    @Override
+    public void addServiceConfigurationBean(ServiceConfigurationBean serviceConfigurationBean) {
+    }
+
+    @Override
+    public void addServiceDefaultsConfigurationBean(ServiceDefaultsConfigurationBean serviceDefaultsConfigurationBean) {
+    }
+
+    @Override
+    public void addVersionInfo(GatewayManagementBean gatewayBean) {
+    }
+
+    @Override
+    protected void doSessionOpened(HttpAcceptSession session) throws Exception {
+        HttpMethod method = session.getMethod();
+        if (method != HttpMethod.GET) {
+            session.setStatus(HttpStatus.CLIENT_METHOD_NOT_ALLOWED);
+            session.setWriteHeader(HttpHeaders.HEADER_ALLOW, "GET");
+            session.close(false);
+            return;
+        }
+
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        IoBufferEx buf;
+        synchronized (lock) {
+            render(writer);
+            buf = allocator.wrap(allocator.allocate(writer.length()));
+            int position = buf.position();
+            writer.writeTo(buf.buf());
+            buf.position(position);
+        }
+
+        session.setStatus(HttpStatus.SUCCESS_OK);
+        session.setWriteHeader(HttpHeaders.HEADER_CONTENT_TYPE, MetricsTextWriter.CONTENT_TYPE);
+        session.setWriteHeader(HttpHeaders.HEADER_CONTENT_LENGTH, Integer.toString(buf.remaining()));
+        session.write(buf);
+        session.close(false);
+    }
+
+    @Override
+    protected void doExceptionCaught(HttpAcceptSession session, Throwable cause) throws Exception {
+        session.close(true);
+    }
+
+    /**
+     * Renders all metrics, replacing the previous contents of the writer.
+     */
+    void render(MetricsTextWriter writer) {
+        writer.reset();
+        renderGateway(writer);
+        renderResourceAddressCache(writer);
+        renderSsl(writer);
+        renderWseb(writer);
+        renderWorkers(writer);
+        renderBufferPools(writer);
+        renderServices(writer);
+    }
+
+    private void renderGateway(MetricsTextWriter writer) {
+        GatewayManagementBean gatewayBean = this.gatewayBean;
+        if (gatewayBean == null) {
+            return;
+        }
+
+        writer.family("kaazing_gateway_uptime_seconds", "gauge", "Time since the gateway started.");
+        writer.sample("kaazing_gateway_uptime_seconds").value(gatewayBean.getUptime(), 3);
+
+        writer.family("kaazing_gateway_admission_rejected_connections_total", "counter",
+                "Connections closed by admission control because of the accept rate.");
+        writer.sample("kaazing_gateway_admission_rejected_connections_total")
+              .value(gatewayBean.getAdmissionRejectedConnections());
+
+        writer.family("kaazing_gateway_admission_rejected_handshakes_total", "counter",
+                "TLS handshakes and WebSocket upgrades refused by admission control.");
+        writer.sample("kaazing_gateway_admission_rejected_handshakes_total")
+              .value(gatewayBean.getAdmissionRejectedHandshakes());
+
+        writer.family("kaazing_gateway_admission_shed_total", "counter",
+                "Connections and requests shed because of I/O worker queue depth.");
+        writer.sample("kaazing_gateway_admission_shed_total").value(gatewayBean.getAdmissionShedCount());
+    }
+
+    private void renderResourceAddressCache(MetricsTextWriter writer) {
+        ResourceAddressCache resourceAddressCache = this.resourceAddressCache;
+        if (resourceAddressCache == null) {
+            return;
+        }
+
+        writer.family("kaazing_gateway_address_cache_hits_total", "counter",
+                "Service connects reusing a cached resolved address.");
+        writer.sample("kaazing_gateway_address_cache_hits_total").value(resourceAddressCache.getHitCount());
+
+        writer.family("kaazing_gateway_address_cache_misses_total", "counter",
+                "Service connects resolving their address.");
+        writer.sample("kaazing_gateway_address_cache_misses_total").value(resourceAddressCache.getMissCount());
+
+        writer.family("kaazing_gateway_address_cache_size", "gauge", "Resolved addresses currently cached.");
+        writer.sample("kaazing_gateway_address_cache_size").value(resourceAddressCache.size());
+    }
+
+    private void renderSsl(MetricsTextWriter writer) {
+        writer.family("kaazing_ssl_records_total", "counter", "TLS records of application data written.");
+        writer.sample("kaazing_ssl_records_total").value(SslStatistics.getRecordCount());
+
+        writer.family("kaazing_ssl_record_bytes_total", "counter", "Bytes of TLS records of application data written.");
+        writer.sample("kaazing_ssl_record_bytes_total").value(SslStatistics.getRecordBytes());
+
+        writer.family("kaazing_ssl_encrypted_bytes_total", "counter", "Application bytes encrypted.");
+        writer.sample("kaazing_ssl_encrypted_bytes_total").value(SslStatistics.getEncryptedBytes());
+
+        writer.family("kaazing_ssl_buffer_allocations_total", "counter",
+                "Buffers allocated while encrypting and decrypting.");
+        writer.sample("kaazing_ssl_buffer_allocations_total").value(SslStatistics.getAllocationCount());
+    }
+
+    private void renderWseb(MetricsTextWriter writer) {
+        writer.family("kaazing_wseb_upstream_requests_total", "counter", "WSEB upstream requests accepted.");
+        writer.sample("kaazing_wseb_upstream_requests_total").value(WsebStatistics.getUpstreamRequestCount());
+
+        writer.family("kaazing_wseb_upstream_messages_total", "counter", "Messages received on WSEB upstream requests.");
+        writer.sample("kaazing_wseb_upstream_messages_total").value(WsebStatistics.getUpstreamMessageCount());
+
+        writer.family("kaazing_wseb_connect_upstream_writes_total", "counter",
+                "Upstream writes of WSEB connect sessions.");
+        writer.sample("kaazing_wseb_connect_upstream_writes_total").value(WsebStatistics.getConnectUpstreamWriteCount());
+
+        writer.family("kaazing_wseb_connect_upstream_messages_total", "counter",
+                "Messages carried by upstream writes of WSEB connect sessions.");
+        writer.sample("kaazing_wseb_connect_upstream_messages_total")
+                .value(WsebStatistics.getConnectUpstreamMessageCount());
+    }
+
+    private void renderWorkers(MetricsTextWriter writer) {
+        Worker[] workers = getWorkers();
+        if (workers == null) {
+            return;
+        }
+
+        writer.family("kaazing_worker_busy_seconds_total", "counter",
+                "Time each I/O worker spent running tasks and processing I/O.");
+        for (int i = 0; i < workers.length; i++) {
+            if (workers[i] instanceof AbstractNioWorker) {
+                long busyTimeNanos = ((AbstractNioWorker) workers[i]).getBusyTimeNanos();
+                writer.sample("kaazing_worker_busy_seconds_total").label("worker", i).value(busyTimeNanos, 9);
+            }
+        }
+
+        writer.family("kaazing_worker_select_seconds_total", "counter",
+                "Time each I/O worker spent waiting in select.");
+        for (int i = 0; i < workers.length; i++) {
+            if (workers[i] instanceof AbstractNioWorker) {
+                long selectTimeNanos = ((AbstractNioWorker) workers[i]).getSelectTimeNanos();
+                writer.sample("kaazing_worker_select_seconds_total").label("worker", i).value(selectTimeNanos, 9);
+            }
+        }
+    }
+
+    private void renderBufferPools(MetricsTextWriter writer) {
+        writer.family("kaazing_buffer_pool_buffers", "gauge", "Buffers allocated in each JVM buffer pool.");
+        for (BufferPoolMXBean bufferPool : bufferPools) {
+            writer.sample("kaazing_buffer_pool_buffers").label("pool", bufferPool.getName())
+                  .value(bufferPool.getCount());
+        }
+
+        writer.family("kaazing_buffer_pool_used_bytes", "gauge", "Memory used by each JVM buffer pool.");
+        for (BufferPoolMXBean bufferPool : bufferPools) {
+            writer.sample("kaazing_buffer_pool_used_bytes").label("pool", bufferPool.getName())
+                  .value(bufferPool.getMemoryUsed());
+        }
+
+        writer.family("kaazing_buffer_pool_capacity_bytes", "gauge", "Total capacity of the buffers in each JVM buffer pool.");
+        for (BufferPoolMXBean bufferPool : bufferPools) {
+            writer.sample("kaazing_buffer_pool_capacity_bytes").label("pool", bufferPool.getName())
+                  .value(bufferPool.getTotalCapacity());
+        }
+    }
+
+    private void renderServices(MetricsTextWriter writer) {
+        writer.family("kaazing_service_sessions", "gauge", "Sessions currently open on each service.");
+        for (ServiceMetrics service : services) {
+            writer.sample("kaazing_service_sessions").labels(service.labels)
+                  .value(service.bean.getCurrentSessionCount());
+        }
+
+        writer.family("kaazing_service_native_sessions", "gauge",
+                "WebSocket sessions currently open on each service over native WebSocket.");
+        for (ServiceMetrics service : services) {
+            writer.sample("kaazing_service_native_sessions").labels(service.labels)
+                  .value(service.bean.getCurrentNativeSessionCount());
+        }
+
+        writer.family("kaazing_service_emulated_sessions", "gauge",
+                "WebSocket sessions currently open on each service over emulated WebSocket.");
+        for (ServiceMetrics service : services) {
+            writer.sample("kaazing_service_emulated_sessions").labels(service.labels)
+                  .value(service.bean.getCurrentEmulatedSessionCount());
+        }
+
+        writer.family("kaazing_service_sessions_total", "counter", "Sessions opened on each service.");
+        for (ServiceMetrics service : services) {
+            writer.sample("kaazing_service_sessions_total").labels(service.labels)
+                  .value(service.bean.getCumulativeSessionCount());
+        }
+
+        writer.family("kaazing_service_received_bytes_total", "counter", "Bytes received by each service.");
+        for (ServiceMetrics service : services) {
+            writer.sample("kaazing_service_received_bytes_total").labels(service.labels)
+                  .value(service.bean.getTotalBytesReceivedCount());
+        }
+
+        writer.family("kaazing_service_sent_bytes_total", "counter", "Bytes sent by each service.");
+        for (ServiceMetrics service : services) {
+            writer.sample("kaazing_service_sent_bytes_total").labels(service.labels)
+                  .value(service.bean.getTotalBytesSentCount());
+        }
+
+        writer.family("kaazing_service_received_messages_total", "counter", "Messages received by each service.");
+        for (ServiceMetrics service : services) {
+            writer.sample("kaazing_service_received_messages_total").labels(service.labels)
+                  .value(service.bean.getTotalMessagesReceivedCount());
+        }
+
+        writer.family("kaazing_service_sent_messages_total", "counter", "Messages sent by each service.");
+        for (ServiceMetrics service : services) {
+            writer.sample("kaazing_service_sent_messages_total").labels(service.labels)
+                  .value(service.bean.getTotalMessagesSentCount());
+        }
+
+        writer.family("kaazing_service_exceptions_total", "counter", "Exceptions caught on the sessions of each service.");
+        for (ServiceMetrics service : services) {
+            writer.sample("kaazing_service_exceptions_total").labels(service.labels)
+                  .value(service.bean.getExceptionCount());
+        }
+
+        writer.family(HANDSHAKE_LATENCY, "summary",
+                "Time from accepting a connection to opening a native WebSocket session on it.");
+        for (ServiceMetrics service : services) {
+            renderLatencies(writer, HANDSHAKE_LATENCY, HANDSHAKE_LATENCY + "_sum", HANDSHAKE_LATENCY + "_count",
+                    service.labels, service.bean.getHandshakeLatencyHistograms());
+        }
+
+        writer.family(ROUND_TRIP_LATENCY, "summary", "WebSocket PING/PONG round-trip times.");
+        for (ServiceMetrics service : services) {
+            renderLatencies(writer, ROUND_TRIP_LATENCY, ROUND_TRIP_LATENCY + "_sum", ROUND_TRIP_LATENCY + "_count",
+                    service.labels, service.bean.getRoundTripLatencyHistograms());
+        }
+    }
+
+    // histograms are in milliseconds
+    private void renderLatencies(MetricsTextWriter writer, String name, String sumName, String countName,
+                                 byte[] labels, Map<String, LatencyHistogram> histograms) {
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            String transport = entry.getKey();
+            LatencyHistogram histogram = entry.getValue();
+
+            histogram.getValuesAtPercentiles(PERCENTILES, percentileValues);
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                writer.sample(name).labels(labels).label("transport", transport).labels(QUANTILE_LABELS[i])
+                      .value(percentileValues[i], 3);
+            }
+            writer.sample(sumName).labels(labels).label("transport", transport).value(histogram.getTotalValue(), 3);
+            writer.sample(countName).labels(labels).label("transport", transport).value(histogram.getCount());
+        }
+    }
+
+    private Worker[] getWorkers() {
+        Worker[] workers = this.workers;
+        if (workers == null && transportFactory != null) {
+            Transport tcp = transportFactory.getTransport("tcp");
+            if (tcp instanceof TcpTransport) {
+                workers = ((TcpTransport) tcp).getWorkers();
+                this.workers = workers;
+            }
+        }
+        return workers;
+    }
+
+    private static final class ServiceMetrics {
+        private final ServiceManagementBean bean;
+        private final byte[] labels;
+
+        ServiceMetrics(ServiceManagementBean bean) {
+            this.bean = bean;
+            String serviceName = bean.getServiceName();
+            this.labels = concatLabels(concatLabels(
+                    encodeLabel("service", serviceName != null ? serviceName : ""),
+                    encodeLabel("type", bean.getServiceType())),
+                    encodeLabel("id", Integer.toString(bean.getId())));
+        }
+    }
+}
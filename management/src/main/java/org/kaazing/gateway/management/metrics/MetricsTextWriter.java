@@ -0,0 +1,258 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.management.metrics;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Renders metrics in the Prometheus text exposition format (version 0.0.4) into a byte array that is reused from one
+ * scrape to the next. Numbers are formatted in place, so rendering allocates nothing once the array has grown to the
+ * size of a scrape. Label sets that do not change (e.g. those of a service) can be encoded once with
+ * {@link #encodeLabel(String, String)} and appended with {@link #labels(byte[])}.
+ * <p/>
+ * Not thread safe, callers rendering from several threads must synchronize.
+ */
+final class MetricsTextWriter {
+
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final int INITIAL_CAPACITY = 8192;
+    private static final byte[] DIGITS = "0123456789".getBytes(UTF_8);
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L,
+        1000000000L};
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int length;
+    private boolean labelsOpen;
+
+    void reset() {
+        length = 0;
+        labelsOpen = false;
+    }
+
+    int length() {
+        return length;
+    }
+
+    void writeTo(ByteBuffer buf) {
+        buf.put(bytes, 0, length);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, length, UTF_8);
+    }
+
+    /**
+     * Writes the HELP and TYPE lines that must precede the samples of a metric family.
+     */
+    void family(String name, String type, String help) {
+        appendAscii("# HELP ");
+        appendAscii(name);
+        append((byte) ' ');
+        appendAscii(help);
+        appendAscii("\n# TYPE ");
+        appendAscii(name);
+        append((byte) ' ');
+        appendAscii(type);
+        append((byte) '\n');
+    }
+
+    /**
+     * Starts a sample, to be followed by any labels and exactly one value.
+     */
+    MetricsTextWriter sample(String name) {
+        appendAscii(name);
+        labelsOpen = false;
+        return this;
+    }
+
+    /**
+     * Appends labels encoded by {@link #encodeLabel(String, String)}, possibly several concatenated with a comma.
+     */
+    MetricsTextWriter labels(byte[] encodedLabels) {
+        openLabel();
+        append(encodedLabels, 0, encodedLabels.length);
+        return this;
+    }
+
+    MetricsTextWriter label(String name, String value) {
+        openLabel();
+        appendAscii(name);
+        append((byte) '=');
+        append((byte) '"');
+        appendEscaped(value);
+        append((byte) '"');
+        return this;
+    }
+
+    MetricsTextWriter label(String name, long value) {
+        openLabel();
+        appendAscii(name);
+        append((byte) '=');
+        append((byte) '"');
+        appendLong(value);
+        append((byte) '"');
+        return this;
+    }
+
+    void value(long value) {
+        closeLabels();
+        appendLong(value);
+        append((byte) '\n');
+    }
+
+    /**
+     * Writes a value held in fixed point, e.g. value(1500, 3) writes 1.500 for a duration of 1500 milliseconds in seconds.
+     *
+     * @param scale  the number of decimal digits of the unscaled value, between 0 and 9
+     */
+    void value(long unscaledValue, int scale) {
+        closeLabels();
+        if (unscaledValue < 0) {
+            append((byte) '-');
+            unscaledValue = -unscaledValue;
+        }
+        long divisor = POWERS_OF_TEN[scale];
+        appendLong(unscaledValue / divisor);
+        if (scale != 0) {
+            append((byte) '.');
+            long fraction = unscaledValue % divisor;
+            for (long digit = divisor / 10; digit > 0; digit /= 10) {
+                append(DIGITS[(int) (fraction / digit % 10)]);
+            }
+        }
+        append((byte) '\n');
+    }
+
+    /**
+     * Encodes a label once so that it can be appended to any number of samples with {@link #labels(byte[])}.
+     */
+    static byte[] encodeLabel(String name, String value) {
+        MetricsTextWriter writer = new MetricsTextWriter();
+        writer.appendAscii(name);
+        writer.append((byte) '=');
+        writer.append((byte) '"');
+        writer.appendEscaped(value);
+        writer.append((byte) '"');
+        return Arrays.copyOf(writer.bytes, writer.length);
+    }
+
+    static byte[] concatLabels(byte[] first, byte[] second) {
+        byte[] labels = Arrays.copyOf(first, first.length + 1 + second.length);
+        labels[first.length] = ',';
+        System.arraycopy(second, 0, labels, first.length + 1, second.length);
+        return labels;
+    }
+
+    private void openLabel() {
+        append(labelsOpen ? (byte) ',' : (byte) '{');
+        labelsOpen = true;
+    }
+
+    private void closeLabels() {
+        if (labelsOpen) {
+            append((byte) '}');
+            labelsOpen = false;
+        }
+        append((byte) ' ');
+    }
+
+    private void appendLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            appendAscii(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            append((byte) '-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long bound = 10; digits < 19 && value >= bound; bound *= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            bytes[i] = DIGITS[(int) (value % 10)];
+            value /= 10;
+        }
+        length += digits;
+    }
+
+    // label values may hold any text, only backslash, double quote and line feed need escaping
+    private void appendEscaped(String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '\\':
+                appendAscii("\\\\");
+                break;
+            case '"':
+                appendAscii("\\\"");
+                break;
+            case '\n':
+                appendAscii("\\n");
+                break;
+            default:
+                if (c < 0x80) {
+                    append((byte) c);
+                }
+                else {
+                    // rare, so simply encode the rest of the value as UTF-8 through the slow path
+                    byte[] encoded = encodeLabelValueTail(value, i);
+                    append(encoded, 0, encoded.length);
+                    return;
+                }
+            }
+        }
+    }
+
+    private static byte[] encodeLabelValueTail(String value, int offset) {
+        String tail = value.substring(offset).replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        return tail.getBytes(UTF_8);
+    }
+
+    private void appendAscii(String value) {
+        int size = value.length();
+        ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            bytes[length++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void append(byte b) {
+        ensureCapacity(1);
+        bytes[length++] = b;
+    }
+
+    private void append(byte[] source, int offset, int size) {
+        ensureCapacity(size);
+        System.arraycopy(source, offset, bytes, length, size);
+        length += size;
+    }
+
+    private void ensureCapacity(int size) {
+        if (length + size > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, length + size));
+        }
+    }
+}
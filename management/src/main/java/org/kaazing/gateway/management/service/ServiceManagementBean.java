@@ -21,17 +21,19 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.security.Principal;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.mina.core.buffer.IoBuffer;
 import org.apache.mina.core.write.WriteRequest;
 import org.apache.mina.util.CopyOnWriteMap;
-import org.json.JSONArray;
-import org.json.JSONException;
 import org.kaazing.gateway.management.AbstractManagementBean;
 import org.kaazing.gateway.management.ManagementBean;
 import org.kaazing.gateway.management.Utils;
@@ -46,6 +48,9 @@ import org.kaazing.gateway.service.ServiceContext;
 import org.kaazing.gateway.service.proxy.ProxyService;
 import org.kaazing.gateway.service.proxy.ServiceConnectManager;
 import org.kaazing.gateway.transport.AbstractBridgeSession;
+import org.kaazing.gateway.transport.trace.TraceRecorder;
+import org.kaazing.gateway.transport.trace.TracingFilter;
+import org.kaazing.gateway.util.LatencyHistogram;
 import org.kaazing.mina.core.session.IoSessionEx;
 import org.kaazing.mina.netty.util.threadlocal.VicariousThreadLocal;
 import org.slf4j.Logger;
@@ -63,7 +68,8 @@ public interface ServiceManagementBean extends ManagementBean {
             "totalCumulativeSessions", "totalCumulativeNativeSessions", "totalCumulativeEmulatedSessions",
             "totalExceptionCount", "latestException", "latestExceptionTime", "lastSuccessfulConnectTime",
             "lastFailedConnectTime", "lastHeartbeatPingResult", "lastHeartbeatPingTimestamp", "heartbeatPingCount",
-            "heartbeatPingSuccesses", "heartbeatPingFailures", "heartbeatRunning", "notificationsEnabled"};
+            "heartbeatPingSuccesses", "heartbeatPingFailures", "heartbeatRunning", "notificationsEnabled",
+            "roundTripLatencyCount", "roundTripLatencyMedian", "roundTripLatency99thPercentile", "roundTripLatencyMax"};
 
     int SUMMARY_DATA_SERVICE_CONNECTED_INDEX = 0;
     int SUMMARY_DATA_TOTAL_BYTES_RECEIVED_INDEX = 1;
@@ -86,6 +92,10 @@ public interface ServiceManagementBean extends ManagementBean {
     int SUMMARY_DATA_HEARTBEAT_PING_FAILURES_INDEX = 18;
     int SUMMARY_DATA_HEARTBEAT_RUNNING_INDEX = 19;
     int SUMMARY_DATA_NOTIFICATIONS_ENABLED_INDEX = 20;
+    int SUMMARY_DATA_ROUND_TRIP_LATENCY_COUNT_INDEX = 21;
+    int SUMMARY_DATA_ROUND_TRIP_LATENCY_MEDIAN_INDEX = 22;
+    int SUMMARY_DATA_ROUND_TRIP_LATENCY_99TH_PERCENTILE_INDEX = 23;
+    int SUMMARY_DATA_ROUND_TRIP_LATENCY_MAX_INDEX = 24;
 
     GatewayManagementBean getGatewayManagementBean();
 
@@ -113,10 +123,48 @@ public interface ServiceManagementBean extends ManagementBean {
 
     void clearCumulativeSessionsCount();
 
+    /**
+     * Returns the histogram of WebSocket PING/PONG round-trip times (in milliseconds) observed on sessions of this
+     * service over the given transport (e.g. "wsn", "wsx", "wse"), creating it if necessary.
+     */
+    LatencyHistogram getRoundTripLatencyHistogram(String transportName);
+
+    // A map of transport name to the round-trip latency histogram for that transport
+    Map<String, LatencyHistogram> getRoundTripLatencyHistograms();
+
+    void clearRoundTripLatencies();
+
+    /**
+     * Returns the histogram of WebSocket opening handshake times (in milliseconds), from the underlying connection being
+     * accepted to the WebSocket session being created, for sessions of this service over the given transport (e.g. "wsn",
+     * "wsx"), creating it if necessary.
+     */
+    LatencyHistogram getHandshakeLatencyHistogram(String transportName);
+
+    // A map of transport name to the handshake latency histogram for that transport
+    Map<String, LatencyHistogram> getHandshakeLatencyHistograms();
+
+    /**
+     * Starts or stops recording the transport events of this service's sessions into the trace rings of their I/O
+     * threads. Recording starts with the sessions created once enabled.
+     */
+    void setTracingEnabled(boolean tracingEnabled);
+
+    boolean isTracingEnabled();
+
+    /**
+     * Adds the tracing filter to all layers of a new session of this service, if tracing is enabled.
+     */
+    void traceSession(IoSessionEx session);
+
     long getTotalBytesReceivedCount();
 
     long getTotalBytesSentCount();
 
+    long getTotalMessagesReceivedCount();
+
+    long getTotalMessagesSentCount();
+
     long[] collectCurrentSessionCounts();
 
     // A map of sessionID to user principals for the associated session
@@ -208,6 +256,12 @@ public interface ServiceManagementBean extends ManagementBean {
 
     SessionManagementBean removeSessionManagementBean(long sessionId);
 
+    // The following run OFF any IO thread, reading the session beans stored by each IO thread,
+    // so a session created or closed meanwhile may or may not be seen
+    SessionManagementBean findSessionManagementBean(long sessionId);
+
+    void collectSessionManagementBeans(Collection<SessionManagementBean> sessionBeans);
+
     void enableNotifications(boolean notificationsEnabled);
 
     boolean areNotificationsEnabled();
@@ -263,6 +317,12 @@ public interface ServiceManagementBean extends ManagementBean {
          */
         private Set<Long> sessionCreatedFlag = new HashSet<>();
 
+        private final ConcurrentMap<String, LatencyHistogram> roundTripLatencies = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, LatencyHistogram> handshakeLatencies = new ConcurrentHashMap<>();
+
+        // created when tracing is first enabled, then shared by all the traced sessions of this service
+        private volatile TracingFilter tracingFilter;
+
         /**
          * Constructor. The reason we pass in the managementProcessorList is that during sessionClosed, there are things we want
          * to do with the various ManagementProcessors (like notifications) that use the new values of counts in the bean. The
@@ -371,6 +431,68 @@ public interface ServiceManagementBean extends ManagementBean {
             }
         }
 
+        @Override
+        public LatencyHistogram getRoundTripLatencyHistogram(String transportName) {
+            return roundTripLatencies.computeIfAbsent(transportName, name -> new LatencyHistogram());
+        }
+
+        // XXX This runs OFF the IO thread
+        @Override
+        public Map<String, LatencyHistogram> getRoundTripLatencyHistograms() {
+            return new TreeMap<>(roundTripLatencies);
+        }
+
+        // XXX This runs OFF the IO thread
+        @Override
+        public void clearRoundTripLatencies() {
+            for (LatencyHistogram histogram : roundTripLatencies.values()) {
+                histogram.reset();
+            }
+        }
+
+        @Override
+        public LatencyHistogram getHandshakeLatencyHistogram(String transportName) {
+            return handshakeLatencies.computeIfAbsent(transportName, name -> new LatencyHistogram());
+        }
+
+        // XXX This runs OFF the IO thread
+        @Override
+        public Map<String, LatencyHistogram> getHandshakeLatencyHistograms() {
+            return new TreeMap<>(handshakeLatencies);
+        }
+
+        // XXX This runs OFF the IO thread
+        @Override
+        public synchronized void setTracingEnabled(boolean tracingEnabled) {
+            TracingFilter tracingFilter = this.tracingFilter;
+            if (tracingFilter == null) {
+                if (!tracingEnabled) {
+                    return;
+                }
+                TraceRecorder traceRecorder = gatewayManagementBean.getTraceRecorder();
+                if (traceRecorder == null) {
+                    throw new IllegalStateException("Tracing is not available for service " + getServiceName());
+                }
+                tracingFilter = new TracingFilter(traceRecorder);
+                this.tracingFilter = tracingFilter;
+            }
+            tracingFilter.setEnabled(tracingEnabled);
+        }
+
+        @Override
+        public boolean isTracingEnabled() {
+            TracingFilter tracingFilter = this.tracingFilter;
+            return tracingFilter != null && tracingFilter.isEnabled();
+        }
+
+        @Override
+        public void traceSession(IoSessionEx session) {
+            TracingFilter tracingFilter = this.tracingFilter;
+            if (tracingFilter != null && tracingFilter.isEnabled()) {
+                tracingFilter.addTo(session);
+            }
+        }
+
         // XXX This runs OFF the IO thread
         @Override
         public long getCurrentSessionCount() {
@@ -494,6 +616,28 @@ public interface ServiceManagementBean extends ManagementBean {
             return total;
         }
 
+        // XXX This runs OFF the IO thread
+        @Override
+        public long getTotalMessagesReceivedCount() {
+            long total = 0;
+            for (ThreadServiceStats stats : serviceStatsMap.values()) {
+                total += stats.getTotalMessagesReceivedCount();
+            }
+
+            return total;
+        }
+
+        // XXX This runs OFF the IO thread
+        @Override
+        public long getTotalMessagesSentCount() {
+            long total = 0;
+            for (ThreadServiceStats stats : serviceStatsMap.values()) {
+                total += stats.getTotalMessagesSentCount();
+            }
+
+            return total;
+        }
+
         @Override
         public long[] collectCurrentSessionCounts() {
             long[] counts = {0, 0};
@@ -506,54 +650,41 @@ public interface ServiceManagementBean extends ManagementBean {
 
         // XXX This runs OFF the IO thread
         @Override
-        public String getSummaryData() {
-
-            //long start = System.nanoTime();
-
-            JSONArray jsonArray = null;
-
-            try {
-                Object[] vals = new Object[SUMMARY_DATA_FIELD_LIST.length];
-
-                vals[SUMMARY_DATA_SERVICE_CONNECTED_INDEX] = isServiceConnected();
-                vals[SUMMARY_DATA_TOTAL_BYTES_RECEIVED_INDEX] = 0L;
-                vals[SUMMARY_DATA_TOTAL_BYTES_SENT_INDEX] = 0L;
-                vals[SUMMARY_DATA_TOTAL_CURRENT_SESSIONS_INDEX] = 0L;
-                vals[SUMMARY_DATA_TOTAL_CURRENT_NATIVE_SESSIONS_INDEX] = 0L;
-                vals[SUMMARY_DATA_TOTAL_CURRENT_EMULATED_SESSIONS_INDEX] = 0L;
-                vals[SUMMARY_DATA_TOTAL_CUMULATIVE_SESSIONS_INDEX] = 0L;
-                vals[SUMMARY_DATA_TOTAL_CUMULATIVE_NATIVE_SESSIONS_INDEX] = 0L;
-                vals[SUMMARY_DATA_TOTAL_CUMULATIVE_EMULATED_SESSIONS_INDEX] = 0L;
-                vals[SUMMARY_DATA_TOTAL_EXCEPTION_COUNT_INDEX] = 0L;
-                vals[SUMMARY_DATA_LATEST_EXCEPTION_INDEX] = null;
-                vals[SUMMARY_DATA_LATEST_EXCEPTION_TIME_INDEX] = 0L;
-                vals[SUMMARY_DATA_LAST_SUCCCESSFUL_CONNECT_TIME_INDEX] = getLastSuccessfulConnectTime();
-                vals[SUMMARY_DATA_LAST_FAILED_CONNECT_TIME_INDEX] = getLastFailedConnectTime();
-                vals[SUMMARY_DATA_LAST_HEARTBEAT_PING_RESULT_INDEX] = getLastHeartbeatPingResult();
-                vals[SUMMARY_DATA_LAST_HEARTBEAT_PING_TIMESTAMP_INDEX] = getLastHeartbeatPingTimestamp();
-                vals[SUMMARY_DATA_HEARTBEAT_PING_COUNT_INDEX] = getHeartbeatPingCount();
-                vals[SUMMARY_DATA_HEARTBEAT_PING_SUCCESSES_INDEX] = getHeartbeatPingSuccessesCount();
-                vals[SUMMARY_DATA_HEARTBEAT_PING_FAILURES_INDEX] = getHeartbeatPingFailuresCount();
-                vals[SUMMARY_DATA_HEARTBEAT_RUNNING_INDEX] = isHeartbeatRunning();
-                vals[SUMMARY_DATA_NOTIFICATIONS_ENABLED_INDEX] = areNotificationsEnabled();
-
-                for (ThreadServiceStats stats : serviceStatsMap.values()) {
-                    stats.collectSummaryValues(vals);
-                }
-
-                jsonArray = new JSONArray(vals);
-            } catch (JSONException ex) {
-                // We should never be able to get here, as the summary data values are all legal
+        protected void gatherSummaryValues(Object[] vals) {
+            vals[SUMMARY_DATA_SERVICE_CONNECTED_INDEX] = isServiceConnected();
+            vals[SUMMARY_DATA_TOTAL_BYTES_RECEIVED_INDEX] = 0L;
+            vals[SUMMARY_DATA_TOTAL_BYTES_SENT_INDEX] = 0L;
+            vals[SUMMARY_DATA_TOTAL_CURRENT_SESSIONS_INDEX] = 0L;
+            vals[SUMMARY_DATA_TOTAL_CURRENT_NATIVE_SESSIONS_INDEX] = 0L;
+            vals[SUMMARY_DATA_TOTAL_CURRENT_EMULATED_SESSIONS_INDEX] = 0L;
+            vals[SUMMARY_DATA_TOTAL_CUMULATIVE_SESSIONS_INDEX] = 0L;
+            vals[SUMMARY_DATA_TOTAL_CUMULATIVE_NATIVE_SESSIONS_INDEX] = 0L;
+            vals[SUMMARY_DATA_TOTAL_CUMULATIVE_EMULATED_SESSIONS_INDEX] = 0L;
+            vals[SUMMARY_DATA_TOTAL_EXCEPTION_COUNT_INDEX] = 0L;
+            vals[SUMMARY_DATA_LATEST_EXCEPTION_INDEX] = null;
+            vals[SUMMARY_DATA_LATEST_EXCEPTION_TIME_INDEX] = 0L;
+            vals[SUMMARY_DATA_LAST_SUCCCESSFUL_CONNECT_TIME_INDEX] = getLastSuccessfulConnectTime();
+            vals[SUMMARY_DATA_LAST_FAILED_CONNECT_TIME_INDEX] = getLastFailedConnectTime();
+            vals[SUMMARY_DATA_LAST_HEARTBEAT_PING_RESULT_INDEX] = getLastHeartbeatPingResult();
+            vals[SUMMARY_DATA_LAST_HEARTBEAT_PING_TIMESTAMP_INDEX] = getLastHeartbeatPingTimestamp();
+            vals[SUMMARY_DATA_HEARTBEAT_PING_COUNT_INDEX] = getHeartbeatPingCount();
+            vals[SUMMARY_DATA_HEARTBEAT_PING_SUCCESSES_INDEX] = getHeartbeatPingSuccessesCount();
+            vals[SUMMARY_DATA_HEARTBEAT_PING_FAILURES_INDEX] = getHeartbeatPingFailuresCount();
+            vals[SUMMARY_DATA_HEARTBEAT_RUNNING_INDEX] = isHeartbeatRunning();
+            vals[SUMMARY_DATA_NOTIFICATIONS_ENABLED_INDEX] = areNotificationsEnabled();
+
+            LatencyHistogram roundTripLatency = new LatencyHistogram();
+            for (LatencyHistogram histogram : roundTripLatencies.values()) {
+                roundTripLatency.add(histogram);
             }
+            vals[SUMMARY_DATA_ROUND_TRIP_LATENCY_COUNT_INDEX] = roundTripLatency.getCount();
+            vals[SUMMARY_DATA_ROUND_TRIP_LATENCY_MEDIAN_INDEX] = roundTripLatency.getValueAtPercentile(50);
+            vals[SUMMARY_DATA_ROUND_TRIP_LATENCY_99TH_PERCENTILE_INDEX] = roundTripLatency.getValueAtPercentile(99);
+            vals[SUMMARY_DATA_ROUND_TRIP_LATENCY_MAX_INDEX] = roundTripLatency.getMaxValue();
 
-
-            String val = jsonArray.toString();
-
-            // long stop = System.nanoTime();
-            // System.out.println("### Gathering summaries for SVC ID " + getId() +
-            // " took " + ((stop - start) / 1000) + " us for " + val.length() + " chars [" + val + "]");
-
-            return val;
+            for (ThreadServiceStats stats : serviceStatsMap.values()) {
+                stats.collectSummaryValues(vals);
+            }
         }
 
         // XXX This runs OFF the IO thread
@@ -901,6 +1032,25 @@ public interface ServiceManagementBean extends ManagementBean {
             return stats.removeSessionManagementBean(sessionId);
         }
 
+        @Override
+        public SessionManagementBean findSessionManagementBean(long sessionId) {
+            for (ThreadServiceStats stats : serviceStatsMap.values()) {
+                // see SessionMap about reading it concurrently
+                SessionManagementBean sessionBean = stats.getSessionManagementBean(sessionId);
+                if (sessionBean != null) {
+                    return sessionBean;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void collectSessionManagementBeans(Collection<SessionManagementBean> sessionBeans) {
+            for (ThreadServiceStats stats : serviceStatsMap.values()) {
+                stats.collectSessionManagementBeans(sessionBeans);
+            }
+        }
+
         // The following must run ON the IO thread (the one associated with the session)
         @Override
         public void addUserPrincipals(IoSessionEx session, Map<String, String> userPrincipals) {
@@ -950,6 +1100,8 @@ public interface ServiceManagementBean extends ManagementBean {
             // the following are 'assembled' values that we're calculating as we go along.
             private long totalBytesSentCount;
             private long totalBytesReceivedCount;
+            private long totalMessagesSentCount;
+            private long totalMessagesReceivedCount;
 
             // A map of session ID to an associated set of user principals. Note that we
             // need to convert the ID to something else (e.g. session MBean name) when
@@ -1023,6 +1175,11 @@ public interface ServiceManagementBean extends ManagementBean {
                 return null;
             }
 
+            // This runs OFF any IO worker thread, see SessionMap about reading it concurrently.
+            void collectSessionManagementBeans(Collection<SessionManagementBean> beans) {
+                sessionBeans.collect(beans);
+            }
+
             // For use by the 'summation' methods All of these try to create a future to run on
             // the IO worker thread associated with the map.
 
@@ -1111,6 +1268,18 @@ public interface ServiceManagementBean extends ManagementBean {
                 return totalBytesReceivedCount;
             }
 
+            // This runs OFF any IO worker thread
+            // See comment above about not needing a Future or Atomic.
+            long getTotalMessagesSentCount() {
+                return totalMessagesSentCount;
+            }
+
+            // This runs OFF any IO worker thread
+            // See comment above about not needing a Future or Atomic.
+            long getTotalMessagesReceivedCount() {
+                return totalMessagesReceivedCount;
+            }
+
             // This runs OFF any IO worker thread
             // See comment above about not needing a Future or Atomic.
             void collectLoggedInSessions(Map<Long, Map<String, String>> vals) {
@@ -1170,6 +1339,7 @@ public interface ServiceManagementBean extends ManagementBean {
                         - prevByteCount.byteCount;
                 bytesSentCountBySession.put(sessionId, sessionWrittenBytes);
                 totalBytesSentCount += delta;
+                totalMessagesSentCount++;
             }
 
             // The following is to run ON the IO thread
@@ -1178,6 +1348,7 @@ public interface ServiceManagementBean extends ManagementBean {
                 long delta = prevByteCount == null ? sessionReadBytes : sessionReadBytes - prevByteCount.byteCount;
                 bytesReceivedCountBySession.put(sessionId, sessionReadBytes);
                 totalBytesReceivedCount += delta;
+                totalMessagesReceivedCount++;
             }
 
             // The following is to run ON the IO thread
@@ -1193,19 +1364,22 @@ public interface ServiceManagementBean extends ManagementBean {
 
         // an implementation of a map that avoids auto-boxing longs to Longs and thus avoids creation of little
         // bits of garbage that then need to be garbage collected;
+        //
+        // Only the IO thread owning the map changes it, but the sessions MBean reads it from other threads, so
+        // the table is published through a volatile field, a resize copies the entries into a new table rather than
+        // relinking them, and a removed entry keeps its link to the rest of its chain for any reader still on it.
         private final class SessionMap {
-            private int arraySize;
             private int mapSize;
-            private SessionMapEntry[] data;
+            private volatile SessionMapEntry[] data;
 
             private SessionMap() {
-                arraySize = 64;
                 mapSize = 0;
-                data = new SessionMapEntry[arraySize];
+                data = new SessionMapEntry[64];
             }
 
             private void put(long id, SessionManagementBean bean) {
-                int index = (int) (id % arraySize);
+                SessionMapEntry[] data = this.data;
+                int index = (int) (id % data.length);
                 SessionMapEntry entry = data[index];
                 if (entry != null) {
                     SessionMapEntry prevEntry = null;
@@ -1219,49 +1393,36 @@ public interface ServiceManagementBean extends ManagementBean {
                     }
 
                     // The end of the chain was reached, add the new entry to the end of the chain
-                    prevEntry.next = new SessionMapEntry(id, bean);
+                    prevEntry.next = new SessionMapEntry(id, bean, null);
                 } else {
-                    data[index] = new SessionMapEntry(id, bean);
+                    data[index] = new SessionMapEntry(id, bean, null);
                 }
 
                 mapSize++;
 
                 // This amounts to a load factor of 1, so when the number of entries reaches the
                 // size of the array, the map is resized.
-                if (mapSize > arraySize) {
-                    resize();
+                if (mapSize > data.length) {
+                    resize(data);
                 }
             }
 
-            private void resize() {
-                SessionMapEntry[] oldData = data;
-                arraySize *= 2;
-                data = new SessionMapEntry[arraySize];
+            private void resize(SessionMapEntry[] oldData) {
+                SessionMapEntry[] newData = new SessionMapEntry[oldData.length * 2];
 
                 for (SessionMapEntry anOldData : oldData) {
-                    SessionMapEntry entry = anOldData;
-                    while (entry != null) {
-                        int index = (int) (entry.id % arraySize);
-                        SessionMapEntry newEntry = data[index];
-                        if (newEntry != null) {
-                            while (newEntry.next != null) {
-                                newEntry = newEntry.next;
-                            }
-                            newEntry.next = entry;
-                        } else {
-                            data[index] = entry;
-                        }
-
-                        SessionMapEntry prevEntry = entry;
-                        entry = entry.next;
-
-                        prevEntry.next = null;
+                    for (SessionMapEntry entry = anOldData; entry != null; entry = entry.next) {
+                        int index = (int) (entry.id % newData.length);
+                        newData[index] = new SessionMapEntry(entry.id, entry.bean, newData[index]);
                     }
                 }
+
+                data = newData;
             }
 
             private SessionMapEntry get(long id) {
-                int index = (int) (id % arraySize);
+                SessionMapEntry[] data = this.data;
+                int index = (int) (id % data.length);
                 SessionMapEntry entry = data[index];
                 while (entry != null) {
                     if (entry.id == id) {
@@ -1274,12 +1435,12 @@ public interface ServiceManagementBean extends ManagementBean {
             }
 
             private SessionMapEntry remove(long id) {
-                int index = (int) (id % arraySize);
+                SessionMapEntry[] data = this.data;
+                int index = (int) (id % data.length);
                 SessionMapEntry entry = data[index];
                 if (entry != null) {
                     if (entry.id == id) {
                         data[index] = entry.next;
-                        entry.next = null;
                     } else {
                         SessionMapEntry prevEntry = entry;
                         while ((entry != null) && (entry.id != id)) {
@@ -1289,7 +1450,6 @@ public interface ServiceManagementBean extends ManagementBean {
 
                         if (entry != null) {
                             prevEntry.next = entry.next;
-                            entry.next = null;
                         }
                     }
 
@@ -1301,17 +1461,25 @@ public interface ServiceManagementBean extends ManagementBean {
 
                 return null;
             }
+
+            private void collect(Collection<SessionManagementBean> beans) {
+                for (SessionMapEntry entry : data) {
+                    for (; entry != null; entry = entry.next) {
+                        beans.add(entry.bean);
+                    }
+                }
+            }
         }
 
         private final class SessionMapEntry {
-            private long id;
-            private SessionManagementBean bean;
-            private SessionMapEntry next;
+            private final long id;
+            private volatile SessionManagementBean bean;
+            private volatile SessionMapEntry next;
 
-            private SessionMapEntry(long id, SessionManagementBean bean) {
+            private SessionMapEntry(long id, SessionManagementBean bean, SessionMapEntry next) {
                 this.id = id;
                 this.bean = bean;
-                this.next = null;
+                this.next = next;
             }
 
             // allow the value of an entry to be changed to support the put(K, V) semantics where K already exists in
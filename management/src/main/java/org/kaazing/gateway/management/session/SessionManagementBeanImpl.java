@@ -23,10 +23,9 @@ import java.util.Set;
 import javax.security.auth.Subject;
 import org.apache.mina.core.future.CloseFuture;
 import org.apache.mina.core.write.WriteRequest;
-import org.json.JSONArray;
-import org.json.JSONException;
 import org.json.JSONObject;
 import org.kaazing.gateway.management.AbstractManagementBean;
+import org.kaazing.gateway.management.SummaryDataStream;
 import org.kaazing.gateway.management.Utils;
 import org.kaazing.gateway.management.service.ServiceManagementBean;
 import org.kaazing.gateway.transport.BridgeSession;
@@ -155,24 +154,11 @@ public class SessionManagementBeanImpl extends AbstractManagementBean implements
     }
 
     @Override
-    public String getSummaryData() {
-        JSONArray jsonArray = null;
-
-        try {
-            Object[] vals = new Object[SUMMARY_DATA_FIELD_LIST.length];
-
-            vals[SUMMARY_DATA_READ_BYTES_INDEX] = getReadBytes();
-            vals[SUMMARY_DATA_READ_BYTES_THPT_INDEX] = getReadBytesThroughput();
-            vals[SUMMARY_DATA_WRITTEN_BYTES_INDEX] = getWrittenBytes();
-            vals[SUMMARY_DATA_WRITTEN_BYTES_THPT_INDEX] = getWrittenBytesThroughput();
-
-            jsonArray = new JSONArray(vals);
-        } catch (JSONException ex) {
-            // We should never be able to get here, as the summary data values are all legal
-        }
-
-        String val = jsonArray.toString();
-        return val;
+    protected void gatherSummaryValues(Object[] vals) {
+        vals[SUMMARY_DATA_READ_BYTES_INDEX] = getReadBytes();
+        vals[SUMMARY_DATA_READ_BYTES_THPT_INDEX] = getReadBytesThroughput();
+        vals[SUMMARY_DATA_WRITTEN_BYTES_INDEX] = getWrittenBytes();
+        vals[SUMMARY_DATA_WRITTEN_BYTES_THPT_INDEX] = getWrittenBytesThroughput();
     }
 
     @Override
@@ -287,6 +273,10 @@ public class SessionManagementBeanImpl extends AbstractManagementBean implements
                         listener.doSessionClosed(SessionManagementBeanImpl.this);
                     }
 
+                    for (SummaryDataStream stream : managementContext.getSummaryDataStreams()) {
+                        stream.beanRemoved(SessionManagementBeanImpl.this);
+                    }
+
                     // XXX should there be a markChanged() here because the session status is now closed?
                     // Or is that covered by the fact we generate a session-closed message?
                 } catch (Exception ex) {
@@ -0,0 +1,125 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.management;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jmock.integration.junit4.JUnitRuleMockery;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.kaazing.gateway.management.gateway.GatewayManagementBean;
+import org.kaazing.gateway.management.service.ServiceManagementBean;
+import org.kaazing.gateway.management.session.SessionManagementBean;
+import org.kaazing.gateway.transport.test.Expectations;
+
+public class SummaryDataStreamTest {
+
+    @Rule
+    public JUnitRuleMockery context = new JUnitRuleMockery();
+
+    private final List<String> sent = new ArrayList<>();
+    private final SummaryDataListener listener = new SummaryDataListener() {
+        @Override
+        public void sendSummaryData(String summaryData) {
+            sent.add(summaryData);
+        }
+    };
+
+    private GatewayManagementBean gatewayBean;
+    private ServiceManagementBean echoBean;
+    private ServiceManagementBean proxyBean;
+    private SessionManagementBean echoSessionBean;
+    private SessionManagementBean proxySessionBean;
+
+    @Before
+    public void setUp() {
+        gatewayBean = context.mock(GatewayManagementBean.class);
+        echoBean = context.mock(ServiceManagementBean.class, "echo");
+        proxyBean = context.mock(ServiceManagementBean.class, "proxy");
+        echoSessionBean = context.mock(SessionManagementBean.class, "echoSession");
+        proxySessionBean = context.mock(SessionManagementBean.class, "proxySession");
+
+        context.checking(new Expectations() {{
+            allowing(gatewayBean).getId(); will(returnValue(1));
+            allowing(gatewayBean).getSummaryDataFields(); will(returnValue("[\"totalCurrentSessions\"]"));
+            allowing(echoBean).getId(); will(returnValue(2));
+            allowing(echoBean).getServiceName(); will(returnValue("echo"));
+            allowing(echoBean).getSummaryDataFields(); will(returnValue("[\"serviceConnected\",\"totalBytesReceived\"]"));
+            allowing(proxyBean).getId(); will(returnValue(3));
+            allowing(proxyBean).getServiceName(); will(returnValue("proxy"));
+            allowing(proxyBean).getSummaryDataFields(); will(returnValue("[\"serviceConnected\",\"totalBytesReceived\"]"));
+            allowing(echoSessionBean).getId(); will(returnValue(42L));
+            allowing(echoSessionBean).getServiceManagementBean(); will(returnValue(echoBean));
+            allowing(echoSessionBean).getSummaryDataFields(); will(returnValue("[\"readBytes\",\"readBytesThroughput\"]"));
+            allowing(proxySessionBean).getId(); will(returnValue(43L));
+            allowing(proxySessionBean).getServiceManagementBean(); will(returnValue(proxyBean));
+            allowing(proxySessionBean).getSummaryDataFields(); will(returnValue("[\"readBytes\",\"readBytesThroughput\"]"));
+        }});
+    }
+
+    @Test
+    public void shouldSendSchemaOnceThenOnlyChangedFields() {
+        SummaryDataStream stream = new SummaryDataStream(listener);
+
+        stream.sendSummaryValues(echoBean, new Object[] {true, 0L});
+        stream.sendSummaryValues(echoBean, new Object[] {true, 0L});
+        stream.sendSummaryValues(echoBean, new Object[] {true, 1024L});
+        stream.sendSummaryValues(proxyBean, new Object[] {false, null});
+        stream.sendSummaryValues(echoSessionBean, new Object[] {10L, 2.5});
+
+        assertEquals(asList(
+                "{\"type\":\"service\",\"fields\":[\"serviceConnected\",\"totalBytesReceived\"]}",
+                "{\"type\":\"service\",\"id\":2,\"values\":{\"0\":true,\"1\":0}}",
+                "{\"type\":\"service\",\"id\":2,\"values\":{\"1\":1024}}",
+                "{\"type\":\"service\",\"id\":3,\"values\":{\"0\":false,\"1\":null}}",
+                "{\"type\":\"session\",\"fields\":[\"readBytes\",\"readBytesThroughput\"]}",
+                "{\"type\":\"session\",\"id\":42,\"values\":{\"0\":10,\"1\":2.5}}"), sent);
+    }
+
+    @Test
+    public void shouldOnlySendSubscribedServicesAndTheirSessions() {
+        SummaryDataStream stream = new SummaryDataStream(listener, asList("echo"));
+
+        stream.sendSummaryValues(gatewayBean, new Object[] {2L});
+        stream.sendSummaryValues(proxyBean, new Object[] {true, 0L});
+        stream.sendSummaryValues(proxySessionBean, new Object[] {10L, 0.0});
+        stream.sendSummaryValues(echoSessionBean, new Object[] {10L, 0.0});
+
+        assertEquals(asList(
+                "{\"type\":\"gateway\",\"fields\":[\"totalCurrentSessions\"]}",
+                "{\"type\":\"gateway\",\"id\":1,\"values\":{\"0\":2}}",
+                "{\"type\":\"session\",\"fields\":[\"readBytes\",\"readBytesThroughput\"]}",
+                "{\"type\":\"session\",\"id\":42,\"values\":{\"0\":10,\"1\":0.0}}"), sent);
+    }
+
+    @Test
+    public void shouldSendClosedOnlyForSentBeans() {
+        SummaryDataStream stream = new SummaryDataStream(listener);
+
+        stream.sendSummaryValues(echoSessionBean, new Object[] {10L, 0.0});
+        stream.beanRemoved(echoSessionBean);
+        stream.beanRemoved(echoSessionBean);
+        stream.beanRemoved(proxySessionBean);
+
+        assertEquals(3, sent.size());
+        assertEquals("{\"type\":\"session\",\"id\":42,\"closed\":true}", sent.get(2));
+    }
+}
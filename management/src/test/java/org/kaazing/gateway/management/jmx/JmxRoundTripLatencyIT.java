@@ -28,6 +28,8 @@ import java.util.Set;
 
 import javax.management.MBeanServerConnection;
 import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
 
 import org.junit.Ignore;
 import org.junit.Rule;
@@ -123,15 +125,15 @@ public class JmxRoundTripLatencyIT {
         k3po.awaitBarrier("SESSION_ESTABLISHED");
 
         MBeanServerConnection mbeanServerConn = jmxConnection.getConnection();
-        Set<ObjectName> mbeanNames = mbeanServerConn.queryNames(null, null);
-        String MBeanPrefix = "subtype=services,serviceType=echo,serviceId=\"" + ECHO_WSN_SERVICE + "\",name=sessions";
-        for (ObjectName name : mbeanNames) {
-            if (name.toString().indexOf(MBeanPrefix) > 0) {
-                mbeanServerConn.getObjectInstance(name);
-
-                latency = (Long) mbeanServerConn.getAttribute(name, "LastRoundTripLatency");
-                latencyTimestamp = (Long) mbeanServerConn.getAttribute(name, "LastRoundTripLatencyTimestamp");
-            }
+        Set<ObjectName> mbeanNames = mbeanServerConn.queryNames(ObjectName.getInstance("*:root=gateways,name=sessions,*"), null);
+        ObjectName sessionsBean = mbeanNames.iterator().next();
+        TabularData sessions = (TabularData) mbeanServerConn.invoke(sessionsBean, "querySessions",
+                new Object[]{ECHO_WSN_SERVICE, null, null, 0L, 0L, 0, 0},
+                new String[]{String.class.getName(), String.class.getName(), String.class.getName(),
+                        long.class.getName(), long.class.getName(), int.class.getName(), int.class.getName()});
+        for (Object session : sessions.values()) {
+            latency = (Long) ((CompositeData) session).get("lastRoundTripLatency");
+            latencyTimestamp = (Long) ((CompositeData) session).get("lastRoundTripLatencyTimestamp");
         }
 
         assertTrue("Could not retrieve Round Trip Latency from Jmx", latency > -1);
@@ -31,6 +31,8 @@ import java.util.Set;
 
 import javax.management.MBeanServerConnection;
 import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -148,9 +150,15 @@ public class JmxSessionPrincipalsIT {
 
         MBeanServerConnection mbeanServerConn = jmxConnection.getConnection();
         Set<ObjectName> mbeanNames = mbeanServerConn.queryNames(
-                ObjectName.getInstance("*:serviceType=echo,name=sessions,*"), null);
-        for (ObjectName name : mbeanNames) {
-            String principals = (String) mbeanServerConn.getAttribute(name, "Principals");
+                ObjectName.getInstance("*:root=gateways,name=sessions,*"), null);
+        ObjectName sessionsBean = mbeanNames.iterator().next();
+        TabularData sessions = (TabularData) mbeanServerConn.invoke(sessionsBean, "querySessions",
+                new Object[]{ECHO_WS_SERVICE, null, null, 0L, 0L, 0, 0},
+                new String[]{String.class.getName(), String.class.getName(), String.class.getName(),
+                        long.class.getName(), long.class.getName(), int.class.getName(), int.class.getName()});
+        for (Object session : sessions.values()) {
+            Object name = ((CompositeData) session).get("id");
+            String principals = (String) ((CompositeData) session).get("principals");
             System.out.println(format("Session %s, principals=\"%s\"", name, principals));
             assertTrue(format("principles should contain UserPrincipal: Session %s, principals=\"%s\"", name, principals),
                     principals.contains("UserPrincipal"));
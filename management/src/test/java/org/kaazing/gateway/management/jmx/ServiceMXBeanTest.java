@@ -20,6 +20,7 @@ import static org.junit.Assert.assertEquals;
 import java.security.Principal;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 import javax.management.ObjectName;
 
@@ -32,6 +33,7 @@ import org.jmock.lib.legacy.ClassImposteriser;
 import org.junit.Rule;
 import org.junit.Test;
 import org.kaazing.gateway.management.service.ServiceManagementBean;
+import org.kaazing.gateway.util.LatencyHistogram;
 
 public class ServiceMXBeanTest {
 
@@ -327,6 +329,36 @@ public class ServiceMXBeanTest {
         assertEquals(4, activeSessionPrincipalMap.size());
     }
 
+    @Test
+    public void shouldReportRoundTripLatenciesByTransport() throws Exception {
+        final JmxManagementServiceHandler handler = context.mock(JmxManagementServiceHandler.class);
+        final ServiceManagementBean serviceManagementBean = context.mock(ServiceManagementBean.class);
+        final ObjectName objectName = context.mock(ObjectName.class);
+        final Map<String, LatencyHistogram> histograms = new TreeMap<>();
+        LatencyHistogram wsn = new LatencyHistogram();
+        for (int value = 1; value <= 10; value++) {
+            wsn.recordValue(value);
+        }
+        histograms.put("wsn", wsn);
+        histograms.put("wse", new LatencyHistogram());
+
+        context.checking(new Expectations() {
+            {
+                oneOf(serviceManagementBean).getRoundTripLatencyHistograms();
+                will(returnValue(histograms));
+            }
+        });
+
+        final ServiceMXBean jmxServiceBean = new ServiceMXBeanImpl(handler, objectName, serviceManagementBean);
+        Map<String, Map<String, Long>> latencies = jmxServiceBean.getRoundTripLatencies();
+        assertEquals(2, latencies.size());
+        assertEquals(Long.valueOf(10), latencies.get("wsn").get("count"));
+        assertEquals(Long.valueOf(1), latencies.get("wsn").get("min"));
+        assertEquals(Long.valueOf(10), latencies.get("wsn").get("max"));
+        assertEquals(Long.valueOf(5), latencies.get("wsn").get("50thPercentile"));
+        assertEquals(Long.valueOf(0), latencies.get("wse").get("count"));
+    }
+
     public static class AnotherUserPrincipal implements Principal {
 
         @Override
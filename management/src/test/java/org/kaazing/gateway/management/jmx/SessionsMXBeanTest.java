@@ -0,0 +1,183 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.management.jmx;
+
+import static java.lang.System.currentTimeMillis;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.jmock.Expectations;
+import org.jmock.api.Invocation;
+import org.jmock.integration.junit4.JUnitRuleMockery;
+import org.jmock.lib.action.CustomAction;
+import org.jmock.lib.concurrent.Synchroniser;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.kaazing.gateway.management.service.ServiceManagementBean;
+import org.kaazing.gateway.management.session.SessionManagementBean;
+
+public class SessionsMXBeanTest {
+
+    @Rule
+    public JUnitRuleMockery context = new JUnitRuleMockery() {
+            {
+                setImposteriser(ClassImposteriser.INSTANCE);
+                setThreadingPolicy(new Synchroniser());
+            }
+        };
+
+    private JmxManagementServiceHandler handler;
+    private SessionsMXBean sessionsBean;
+
+    @Before
+    public void before() throws Exception {
+        handler = context.mock(JmxManagementServiceHandler.class);
+
+        final long now = currentTimeMillis();
+        final ServiceManagementBean echo = context.mock(ServiceManagementBean.class, "echo");
+        final ServiceManagementBean proxy = context.mock(ServiceManagementBean.class, "proxy");
+        final List<SessionManagementBean> echoSessions = asList(
+                sessionBean(3, echo, "/10.0.0.3", "joe", now - 60000, 100, 50),
+                sessionBean(1, echo, "/10.0.0.1", "ann", now, 0, 0));
+        final List<SessionManagementBean> proxySessions = asList(
+                sessionBean(2, proxy, "/192.168.0.2", null, now - 60000, 5000, 5000));
+
+        context.checking(new Expectations() {
+            {
+                allowing(handler).getServiceManagementBeans(); will(returnValue(asList(echo, proxy)));
+                allowing(echo).getServiceName(); will(returnValue("echo"));
+                allowing(proxy).getServiceName(); will(returnValue("proxy"));
+                allowing(echo).getCurrentSessionCount(); will(returnValue(2L));
+                allowing(proxy).getCurrentSessionCount(); will(returnValue(1L));
+                allowing(echo).collectSessionManagementBeans(with(any(Collection.class))); will(collect(echoSessions));
+                allowing(proxy).collectSessionManagementBeans(with(any(Collection.class))); will(collect(proxySessions));
+            }
+        });
+
+        sessionsBean = new SessionsMXBeanImpl(new ObjectName("test:name=sessions"), handler);
+    }
+
+    @Test
+    public void shouldListSessionsOrderedById() throws Exception {
+        assertEquals(3, sessionsBean.getNumberOfSessions());
+        assertEquals(asList(1L, 2L, 3L), ids(sessionsBean.getSessions(0, 0)));
+        assertEquals(asList(2L, 3L), ids(sessionsBean.getSessions(1, 0)));
+        assertEquals(asList(2L), ids(sessionsBean.getSessions(1, 1)));
+        assertEquals(asList(), ids(sessionsBean.getSessions(5, 10)));
+    }
+
+    @Test
+    public void shouldQuerySessions() throws Exception {
+        assertEquals(asList(1L, 3L), ids(sessionsBean.querySessions("echo", null, null, 0, 0, 0, 0)));
+        assertEquals(asList(3L), ids(sessionsBean.querySessions(null, "joe", null, 0, 0, 0, 0)));
+        assertEquals(asList(2L), ids(sessionsBean.querySessions("", "", "192.168", 0, 0, 0, 0)));
+        assertEquals(asList(2L, 3L), ids(sessionsBean.querySessions(null, null, null, 30000, 0, 0, 0)));
+        assertEquals(asList(2L), ids(sessionsBean.querySessions(null, null, null, 0, 1000, 0, 0)));
+        assertEquals(asList(), ids(sessionsBean.querySessions("proxy", "joe", null, 0, 0, 0, 0)));
+    }
+
+    @Test
+    public void shouldReturnSessionRows() throws Exception {
+        CompositeData session = sessionsBean.getSessions(0, 1).values().toArray(new CompositeData[1])[0];
+
+        assertEquals(1L, session.get("id"));
+        assertEquals("echo", session.get("serviceName"));
+        assertEquals("/10.0.0.1", session.get("remoteAddress"));
+        assertEquals("ann", session.get("principals"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotInspectUnknownSession() throws Exception {
+        context.checking(new Expectations() {
+            {
+                oneOf(handler).findSessionManagementBean(4); will(returnValue(null));
+            }
+        });
+
+        sessionsBean.inspectSession(4);
+    }
+
+    @Test
+    public void shouldNotGetUnknownSession() throws Exception {
+        context.checking(new Expectations() {
+            {
+                oneOf(handler).findSessionManagementBean(4); will(returnValue(null));
+            }
+        });
+
+        assertNull(sessionsBean.getSession(4));
+    }
+
+    private SessionManagementBean sessionBean(final long id, final ServiceManagementBean serviceBean,
+                                              final String remoteAddress, final String principal, final long createTime,
+                                              final long readBytes, final long writtenBytes) {
+        final SessionManagementBean sessionBean = context.mock(SessionManagementBean.class, "session" + id);
+        final Map<String, String> principals =
+                (principal != null) ? singletonMap(principal, "org.kaazing.UserPrincipal") : null;
+
+        context.checking(new Expectations() {
+            {
+                allowing(sessionBean).getId(); will(returnValue(id));
+                allowing(sessionBean).getServiceManagementBean(); will(returnValue(serviceBean));
+                allowing(sessionBean).getRemoteAddress(); will(returnValue(remoteAddress));
+                allowing(sessionBean).getUserPrincipalMap(); will(returnValue(principals));
+                allowing(sessionBean).getUserPrincipals(); will(returnValue(principal));
+                allowing(sessionBean).getCreateTime(); will(returnValue(createTime));
+                allowing(sessionBean).getReadBytes(); will(returnValue(readBytes));
+                allowing(sessionBean).getWrittenBytes(); will(returnValue(writtenBytes));
+                allowing(sessionBean).getReadBytesThroughput(); will(returnValue(0.0));
+                allowing(sessionBean).getWrittenBytesThroughput(); will(returnValue(0.0));
+                allowing(sessionBean).getSessionTypeName(); will(returnValue("wsn"));
+                allowing(sessionBean).getSessionDirection(); will(returnValue("ACCEPT"));
+                allowing(sessionBean).getLastRoundTripLatency(); will(returnValue(-1L));
+                allowing(sessionBean).getLastRoundTripLatencyTimestamp(); will(returnValue(-1L));
+            }
+        });
+        return sessionBean;
+    }
+
+    private static CustomAction collect(final List<SessionManagementBean> sessionBeans) {
+        return new CustomAction("collect session beans") {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object invoke(Invocation invocation) throws Throwable {
+                ((Collection<SessionManagementBean>) invocation.getParameter(0)).addAll(sessionBeans);
+                return null;
+            }
+        };
+    }
+
+    private static List<Long> ids(TabularData sessions) {
+        List<Long> ids = new ArrayList<>();
+        for (Object session : sessions.values()) {
+            ids.add((Long) ((CompositeData) session).get("id"));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.management.metrics;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.test.util.ITUtil.createRuleChain;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.kaazing.gateway.server.test.Gateway;
+import org.kaazing.gateway.server.test.config.GatewayConfiguration;
+import org.kaazing.gateway.server.test.config.builder.GatewayConfigurationBuilder;
+
+public class MetricsManagementServiceTest {
+
+    private static final String ECHO_URI = "tcp://localhost:8125";
+    private static final String METRICS_URI = "http://localhost:8126/metrics";
+
+    @Rule
+    public TestRule timeoutRule = createRuleChain(20, SECONDS);
+
+    @Test
+    public void shouldServeServiceAndGatewayMetrics() throws Exception {
+        GatewayConfiguration gatewayConfiguration = new GatewayConfigurationBuilder()
+                .service()
+                    .name("echo")
+                    .accept(ECHO_URI)
+                    .type("echo")
+                .done()
+                .service()
+                    .accept(METRICS_URI)
+                    .type("management.metrics")
+                .done()
+            .done();
+
+        Gateway gateway = new Gateway();
+        gateway.start(gatewayConfiguration);
+        try (Socket socket = new Socket("localhost", 8125)) {
+            OutputStream out = socket.getOutputStream();
+            out.write("hello".getBytes(UTF_8));
+            out.flush();
+            InputStream in = socket.getInputStream();
+            byte[] echoed = new byte[5];
+            int read = 0;
+            while (read < echoed.length) {
+                read += in.read(echoed, read, echoed.length - read);
+            }
+
+            HttpURLConnection connection = (HttpURLConnection) new URL(METRICS_URI).openConnection();
+            assertEquals(200, connection.getResponseCode());
+            assertEquals(MetricsTextWriter.CONTENT_TYPE, connection.getContentType());
+            String metrics = readFully(connection.getInputStream());
+
+            assertEquals(1, sampleValue(metrics, "kaazing_service_sessions"));
+            assertEquals(1, sampleValue(metrics, "kaazing_service_sessions_total"));
+            assertEquals(5, sampleValue(metrics, "kaazing_service_received_bytes_total"));
+            assertEquals(1, sampleValue(metrics, "kaazing_service_received_messages_total"));
+            assertEquals(1, sampleValue(metrics, "kaazing_service_sent_messages_total"));
+            assertTrue(metrics.contains("# TYPE kaazing_service_round_trip_latency_seconds summary\n"));
+            assertTrue(metrics.contains("kaazing_gateway_admission_shed_total 0\n"));
+            assertTrue(metrics.contains("# TYPE kaazing_gateway_address_cache_hits_total counter\n"));
+            assertTrue(metrics.contains("# TYPE kaazing_ssl_records_total counter\n"));
+            assertTrue(metrics.contains("# TYPE kaazing_wseb_upstream_requests_total counter\n"));
+            assertTrue(metrics.contains("kaazing_worker_busy_seconds_total{worker=\"0\"} "));
+            assertTrue(metrics.contains("kaazing_buffer_pool_used_bytes{pool=\"direct\"} "));
+
+            HttpURLConnection post = (HttpURLConnection) new URL(METRICS_URI).openConnection();
+            post.setRequestMethod("POST");
+            post.setDoOutput(true);
+            post.getOutputStream().close();
+            assertEquals(405, post.getResponseCode());
+        } finally {
+            gateway.stop();
+        }
+    }
+
+    private static long sampleValue(String metrics, String name) {
+        Pattern sample = Pattern.compile("^" + name + "\\{service=\"echo\",type=\"echo\",id=\"\\d+\"\\} (\\d+)$",
+                Pattern.MULTILINE);
+        Matcher matcher = sample.matcher(metrics);
+        assertTrue("Missing " + name + " in:\n" + metrics, matcher.find());
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static String readFully(InputStream in) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int length;
+        while ((length = in.read(buf)) != -1) {
+            out.write(buf, 0, length);
+        }
+        in.close();
+        return new String(out.toByteArray(), UTF_8);
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.management.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.management.metrics.MetricsTextWriter.concatLabels;
+import static org.kaazing.gateway.management.metrics.MetricsTextWriter.encodeLabel;
+
+import org.junit.Test;
+
+public class MetricsTextWriterTest {
+
+    @Test
+    public void shouldWriteFamilyAndSamples() {
+        MetricsTextWriter writer = new MetricsTextWriter();
+        byte[] labels = concatLabels(encodeLabel("service", "echo"), encodeLabel("type", "echo"));
+
+        writer.family("kaazing_service_sessions", "gauge", "Sessions currently open on each service.");
+        writer.sample("kaazing_service_sessions").labels(labels).value(42);
+        writer.sample("kaazing_service_sessions").labels(labels).label("transport", "wsn").label("worker", 3).value(0);
+        writer.sample("kaazing_gateway_uptime_seconds").value(-1234567890123L);
+
+        assertEquals("# HELP kaazing_service_sessions Sessions currently open on each service.\n" +
+                     "# TYPE kaazing_service_sessions gauge\n" +
+                     "kaazing_service_sessions{service=\"echo\",type=\"echo\"} 42\n" +
+                     "kaazing_service_sessions{service=\"echo\",type=\"echo\",transport=\"wsn\",worker=\"3\"} 0\n" +
+                     "kaazing_gateway_uptime_seconds -1234567890123\n", writer.toString());
+    }
+
+    @Test
+    public void shouldWriteFixedPointValues() {
+        MetricsTextWriter writer = new MetricsTextWriter();
+        writer.sample("a").value(1500, 3);
+        writer.sample("b").value(7, 9);
+        writer.sample("c").value(-25, 1);
+        writer.sample("d").value(Long.MAX_VALUE, 0);
+
+        assertEquals("a 1.500\nb 0.000000007\nc -2.5\nd 9223372036854775807\n", writer.toString());
+    }
+
+    @Test
+    public void shouldEscapeLabelValues() {
+        MetricsTextWriter writer = new MetricsTextWriter();
+        writer.sample("a").label("service", "quote\" backslash\\ newline\n").value(1);
+        writer.sample("b").labels(encodeLabel("service", "caf\u00e9 \"1\"")).value(2);
+
+        assertEquals("a{service=\"quote\\\" backslash\\\\ newline\\n\"} 1\n" +
+                     "b{service=\"caf\u00e9 \\\"1\\\"\"} 2\n", writer.toString());
+    }
+
+    @Test
+    public void shouldReuseBufferAfterReset() {
+        MetricsTextWriter writer = new MetricsTextWriter();
+        for (int i = 0; i < 10000; i++) {
+            writer.sample("kaazing_worker_busy_seconds_total").label("worker", i).value(i, 9);
+        }
+        assertTrue(writer.length() > 8192);
+
+        writer.reset();
+        assertEquals(0, writer.length());
+        writer.sample("a").value(1);
+        assertEquals("a 1\n", writer.toString());
+    }
+}
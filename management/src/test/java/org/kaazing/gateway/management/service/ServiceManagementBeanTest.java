@@ -15,9 +15,13 @@
  */
 package org.kaazing.gateway.management.service;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.jmock.integration.junit4.JUnitRuleMockery;
 import org.junit.Rule;
@@ -25,6 +29,7 @@ import org.junit.Test;
 import org.kaazing.gateway.management.SummaryManagementInterval;
 import org.kaazing.gateway.management.context.ManagementContext;
 import org.kaazing.gateway.management.gateway.GatewayManagementBean;
+import org.kaazing.gateway.management.session.SessionManagementBean;
 import org.kaazing.gateway.security.RealmContext;
 import org.kaazing.gateway.service.Service;
 import org.kaazing.gateway.service.ServiceContext;
@@ -112,6 +117,47 @@ public class ServiceManagementBeanTest {
         }
     }
 
+    @Test
+    public void shouldFindAndCollectSessionBeansOffIoThread() throws Exception {
+        final ServiceContext serviceContext = context.mock(ServiceContext.class);
+        final GatewayManagementBean gateway = context.mock(GatewayManagementBean.class);
+        final ManagementContext managementContext = context.mock(ManagementContext.class);
+        final SummaryManagementInterval interval = context.mock(SummaryManagementInterval.class, "interval");
+        final Logger logger = context.mock(Logger.class);
+        final Service service = context.mock(Service.class);
+        final RealmContext realmContext = context.mock(RealmContext.class);
+
+        context.checking(new Expectations() {{
+            allowing(gateway).getManagementContext(); will(returnValue(managementContext));
+            oneOf(managementContext).getServiceSummaryDataNotificationInterval();  will(returnValue(interval));
+            allowing(serviceContext).getLogger(); will(returnValue(logger));
+            oneOf(serviceContext).getService(); will(returnValue(service));
+            oneOf(serviceContext).getServiceRealm(); will(returnValue(realmContext));
+            oneOf(realmContext).getUserPrincipalClasses(); will(returnValue(new String[0]));
+        }});
+        ServiceManagementBean serviceBean = new ServiceManagementBean.DefaultServiceManagementBean(gateway, serviceContext);
+
+        // enough sessions to resize the session map a few times
+        for (long sessionId = 1; sessionId <= 300; sessionId++) {
+            final SessionManagementBean sessionBean = context.mock(SessionManagementBean.class, "session" + sessionId);
+            final long id = sessionId;
+            context.checking(new Expectations() {{
+                allowing(sessionBean).getId(); will(returnValue(id));
+            }});
+            serviceBean.storeSessionManagementBean(sessionBean);
+        }
+        for (long sessionId = 1; sessionId <= 300; sessionId += 3) {
+            serviceBean.removeSessionManagementBean(sessionId);
+        }
+
+        List<SessionManagementBean> sessionBeans = new ArrayList<>();
+        serviceBean.collectSessionManagementBeans(sessionBeans);
+        assertEquals(200, sessionBeans.size());
+        assertNull(serviceBean.findSessionManagementBean(1));
+        assertEquals(2, serviceBean.findSessionManagementBean(2).getId());
+        assertEquals(300, serviceBean.findSessionManagementBean(300).getId());
+    }
+
     public class ValidPrincipal implements Principal {
 
         @Override
@@ -120,6 +120,13 @@ abstract class AbstractNioSelector implements NioSelector {
     private final CountDownLatch shutdownLatch = new CountDownLatch(1);
     private volatile boolean shutdown;
 
+    /**
+     * Cumulative time the selector loop has spent blocked in select and running tasks and I/O since it started,
+     * written only by the I/O thread, so that utilization can be sampled from other threads.
+     */
+    private volatile long selectTimeNanos;
+    private volatile long busyTimeNanos;
+
     AbstractNioSelector(Executor executor) {
         this(executor, null);
     }
@@ -157,6 +164,20 @@ abstract class AbstractNioSelector implements NioSelector {
         return Thread.currentThread() == thread;
     }
 
+    /**
+     * @return the total time the selector loop has been blocked in select, in nanoseconds
+     */
+    public long getSelectTimeNanos() {
+        return selectTimeNanos;
+    }
+
+    /**
+     * @return the total time the selector loop has spent running tasks and processing selected keys, in nanoseconds
+     */
+    public long getBusyTimeNanos() {
+        return busyTimeNanos;
+    }
+
     @Override
     public void rebuildSelector() {
         if (!isIoThread()) {
@@ -246,13 +267,15 @@ abstract class AbstractNioSelector implements NioSelector {
             try {
                 long beforeSelect = System.nanoTime();
                 int selected = select(selector, quickSelect);
+                long afterSelect = System.nanoTime();
+                selectTimeNanos += afterSelect - beforeSelect;
                 // The SelectorUtil.EPOLL_BUG_WORKAROUND condition was removed in Netty 3.10.5 and instead
                 // added to the if (selectReturnsImmediately == 1024) condition later on. This seems inefficient
                 // for the (common) case where the workaround is not enabled since in that case there's no point
                 // in looping through the selector keys, so we are keeping the condition here. There's no risk
                 // of a busy loop (https://github.com/netty/netty/issues/2426) when the workaround is not enabled.
                 if (SelectorUtil.EPOLL_BUG_WORKAROUND && selected == 0 && !wakenupFromLoop && !wakenUp.get()) {
-                    long timeBlocked = System.nanoTime() - beforeSelect;
+                    long timeBlocked = afterSelect - beforeSelect;
 
                     if (timeBlocked < minSelectTimeout) {
                         boolean notConnected = false;
@@ -384,6 +407,7 @@ abstract class AbstractNioSelector implements NioSelector {
                 } else {
                     process(selector);
                     processRead();
+                    busyTimeNanos += System.nanoTime() - afterSelect;
                 }
             } catch (Throwable t) {
                 logger.warn(
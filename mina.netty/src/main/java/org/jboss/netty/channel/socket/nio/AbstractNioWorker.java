@@ -45,8 +45,10 @@ import org.jboss.netty.channel.socket.nio.NioWorker.UdpReadDispatcher;
 import org.jboss.netty.channel.socket.nio.SocketSendBufferPool.SendBuffer;
 import org.jboss.netty.logging.InternalLogger;
 import org.jboss.netty.logging.InternalLoggerFactory;
+import org.jboss.netty.util.HashedWheelTimer;
 import org.jboss.netty.util.ThreadNameDeterminer;
 import org.jboss.netty.util.ThreadRenamingRunnable;
+import org.jboss.netty.util.Timer;
 import org.kaazing.mina.netty.channel.DefaultWriteCompletionEventEx;
 import org.agrona.concurrent.OneToOneConcurrentArrayQueue;
 
@@ -64,6 +66,8 @@ import java.util.List;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 import static org.jboss.netty.channel.Channels.fireChannelClosed;
@@ -83,6 +87,8 @@ import static org.kaazing.mina.netty.config.InternalSystemProperty.UDP_CHANNEL_R
 public abstract class AbstractNioWorker extends AbstractNioSelector implements Worker {
     private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(AbstractNioWorker.class);
 
+    private static final long TIMER_TICK_MILLIS = 10L;
+
     private final int UDP_CHANNEL_READ_QUEUE_SIZE_PER_WORKER
             = UDP_CHANNEL_READ_QUEUE_SIZE.getIntProperty(System.getProperties());
 
@@ -93,6 +99,10 @@ public abstract class AbstractNioWorker extends AbstractNioSelector implements W
 
     private int noDroppedMessages;
 
+    // guarded by this
+    private Timer timer;
+    private boolean timerStopped;
+
     AbstractNioWorker(Executor executor) {
         this(executor, null);
     }
@@ -134,9 +144,41 @@ public abstract class AbstractNioWorker extends AbstractNioSelector implements W
         return new ThreadRenamingRunnable(this, "New I/O worker #" + id, determiner);
     }
 
+    /**
+     * Returns the timer of this worker, for delays in the order of milliseconds. It is created on first use,
+     * and stopped when the worker shuts down.
+     *
+     * @throws RejectedExecutionException if the worker has already been shut down
+     */
+    public synchronized Timer getTimer() {
+        if (timerStopped) {
+            throw new RejectedExecutionException("Worker has already been shutdown");
+        }
+        if (timer == null) {
+            timer = new HashedWheelTimer(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "New I/O worker timer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }, TIMER_TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return timer;
+    }
+
+    private synchronized void stopTimer() {
+        timerStopped = true;
+        if (timer != null) {
+            timer.stop();
+            timer = null;
+        }
+    }
+
     @Override
     public void run() {
         super.run();
+        stopTimer();
         sendBufferPool.releaseExternalResources();
         recvBufferPool.releaseExternalResources();
     }
@@ -122,6 +122,12 @@ class NioDatagramPipelineSink extends AbstractNioChannelSink {
         boolean bound = false;
         boolean started = false;
         try {
+            // mina.netty change - like a MulticastSocket, share the port of a multicast group with
+            // the other receivers of the group
+            if (address.getAddress() != null && address.getAddress().isMulticastAddress()) {
+                channel.getDatagramChannel().socket().setReuseAddress(true);
+            }
+
             // First bind the DatagramSocket the specified port.
             channel.getDatagramChannel().socket().bind(address);
             bound = true;
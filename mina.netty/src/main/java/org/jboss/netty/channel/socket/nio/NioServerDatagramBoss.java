@@ -36,7 +36,6 @@ import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelException;
 import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.MessageEvent;
-import org.jboss.netty.channel.ReceiveBufferSizePredictor;
 import org.jboss.netty.util.ThreadNameDeterminer;
 import org.jboss.netty.util.ThreadRenamingRunnable;
 
@@ -69,46 +68,52 @@ public class NioServerDatagramBoss extends AbstractNioWorker /* AbstractNioSelec
         super(executor);
     }
 
+    // mina.netty change - datagrams received for each readiness notification of a channel, so bursts of
+    // datagrams (e.g. multicast feeds) are drained without a select per datagram
+    static final int MAXIMUM_RECEIVES_PER_READ = 16;
+
+    // mina.netty change - datagrams are received into a pooled buffer that can hold the largest datagram, rather than
+    // one sized by the receive buffer size predictor, so larger datagrams are no longer truncated, and only the
+    // received bytes are then copied into a buffer of the datagram length
+    static final int MAXIMUM_DATAGRAM_SIZE = 64 * 1024;
+
     @Override
     protected boolean read(final SelectionKey key) {
         final NioDatagramChannel channel = (NioDatagramChannel) key.attachment();
-        ReceiveBufferSizePredictor predictor =
-                channel.getConfig().getReceiveBufferSizePredictor();
         final ChannelBufferFactory bufferFactory = channel.getConfig().getBufferFactory();
         final DatagramChannel nioChannel = (DatagramChannel) key.channel();
-        final int predictedRecvBufSize = predictor.nextReceiveBufferSize();
 
-        final ByteBuffer byteBuffer = recvBufferPool.get(predictedRecvBufSize).order(bufferFactory.getDefaultOrder());
+        boolean failure = false;
+        for (int receives = 0; receives < MAXIMUM_RECEIVES_PER_READ; receives++) {
+            final ByteBuffer byteBuffer = recvBufferPool.get(MAXIMUM_DATAGRAM_SIZE).order(bufferFactory.getDefaultOrder());
 
-        boolean failure = true;
-        SocketAddress remoteAddress = null;
-        try {
-            // Receive from the channel in a non blocking mode. We have already been notified that
-            // the channel is ready to receive.
-            remoteAddress = nioChannel.receive(byteBuffer);
-            failure = false;
-        } catch (ClosedChannelException e) {
-            // Can happen, and does not need a user attention.
-        } catch (Throwable t) {
-            fireExceptionCaught(channel, t);
-        }
+            SocketAddress remoteAddress = null;
+            try {
+                // Receive from the channel in a non blocking mode. We have already been notified that
+                // the channel is ready to receive.
+                remoteAddress = nioChannel.receive(byteBuffer);
+            } catch (ClosedChannelException e) {
+                // Can happen, and does not need a user attention.
+                failure = true;
+            } catch (Throwable t) {
+                fireExceptionCaught(channel, t);
+                failure = true;
+            }
+
+            if (remoteAddress == null) {
+                // nothing more to receive until the next readiness notification
+                break;
+            }
 
-        if (remoteAddress != null) {
             // Flip the buffer so that we can wrap it.
             byteBuffer.flip();
 
             int readBytes = byteBuffer.remaining();
             if (readBytes > 0) {
-                // Update the predictor.
-                predictor.previousReceiveBufferSize(readBytes);
-
                 final ChannelBuffer buffer = bufferFactory.getBuffer(readBytes);
                 buffer.setBytes(0, byteBuffer);
                 buffer.writerIndex(readBytes);
 
-                // Update the predictor.
-                predictor.previousReceiveBufferSize(readBytes);
-
                 // Notify the interested parties about the newly arrived message.
                 fireMessageReceived(
                         channel, buffer, remoteAddress);
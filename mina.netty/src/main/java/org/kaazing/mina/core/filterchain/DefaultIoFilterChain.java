@@ -16,9 +16,7 @@
 package org.kaazing.mina.core.filterchain;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.apache.mina.core.buffer.IoBuffer;
 import org.apache.mina.core.filterchain.IoFilter;
@@ -41,6 +39,10 @@ import org.kaazing.mina.core.session.AbstractIoSession;
  * A default implementation of {@link IoFilterChain} that provides
  * all operations for developers who want to implement their own
  * transport layer once used with {@link AbstractIoSession}.
+ * <p/>
+ * A chain is created for every session at every bridge layer, so its footprint is kept small: each entry is
+ * its own {@link NextFilter}, the head and tail filters are shared by all chains, and entries are looked up
+ * by name by walking the (short) chain rather than through a per-chain map.
  */
 public class DefaultIoFilterChain implements IoFilterChain {
     /**
@@ -52,11 +54,13 @@ public class DefaultIoFilterChain implements IoFilterChain {
     public static final AttributeKey SESSION_CREATED_FUTURE = new AttributeKey(
             DefaultIoFilterChain.class, "connectFuture");
 
+    private static final IoFilter HEAD_FILTER = new HeadFilter();
+
+    private static final IoFilter TAIL_FILTER = new TailFilter();
+
     /** The associated session */
     private final AbstractIoSession session;
 
-    private final Map<String, Entry> name2entry = new HashMap<>();
-
     /** The chain head */
     private final EntryImpl head;
 
@@ -76,7 +80,6 @@ public class DefaultIoFilterChain implements IoFilterChain {
         EntryImpl prevEntry = head;
         for (EntryImpl entry = oldHead.nextEntry; entry != oldTail; entry = entry.nextEntry) {
             EntryImpl newEntry = new EntryImpl(prevEntry, tail, entry.name, entry.filter);
-            name2entry.put(entry.name, newEntry);
             prevEntry.nextEntry = newEntry;
             prevEntry = newEntry;
         }
@@ -95,8 +98,8 @@ public class DefaultIoFilterChain implements IoFilterChain {
         }
 
         this.session = session;
-        head = new EntryImpl(null, null, "head", new HeadFilter());
-        tail = new EntryImpl(head, null, "tail", new TailFilter());
+        head = new EntryImpl(null, null, "head", HEAD_FILTER);
+        tail = new EntryImpl(head, null, "tail", TAIL_FILTER);
         head.nextEntry = tail;
     }
 
@@ -107,11 +110,18 @@ public class DefaultIoFilterChain implements IoFilterChain {
 
     @Override
     public Entry getEntry(String name) {
-        Entry e = name2entry.get(name);
-        if (e == null) {
-            return null;
+        return getEntry0(name);
+    }
+
+    private EntryImpl getEntry0(String name) {
+        EntryImpl e = head.nextEntry;
+        while (e != tail) {
+            if (e.name.equals(name)) {
+                return e;
+            }
+            e = e.nextEntry;
         }
-        return e;
+        return null;
     }
 
     @Override
@@ -292,8 +302,7 @@ public class DefaultIoFilterChain implements IoFilterChain {
 
     @Override
     public synchronized void clear() throws Exception {
-        List<IoFilterChain.Entry> l = new ArrayList<>(
-                name2entry.values());
+        List<IoFilterChain.Entry> l = getAll();
         for (IoFilterChain.Entry entry : l) {
             try {
                 deregister((EntryImpl) entry);
@@ -304,6 +313,21 @@ public class DefaultIoFilterChain implements IoFilterChain {
         }
     }
 
+    /**
+     * Returns true when no filters are installed, other than thread alignment checking, so events
+     * fired through this chain reach the handler (or the processor) unchanged.
+     */
+    public boolean isPassThrough() {
+        EntryImpl e = head.nextEntry;
+        while (e != tail) {
+            if (!(e.filter instanceof AssertAlignedFilter)) {
+                return false;
+            }
+            e = e.nextEntry;
+        }
+        return true;
+    }
+
     private void register(EntryImpl prevEntry, String name, IoFilter filter) {
         EntryImpl newEntry = new EntryImpl(prevEntry, prevEntry.nextEntry,
                 name, filter);
@@ -317,7 +341,6 @@ public class DefaultIoFilterChain implements IoFilterChain {
 
         prevEntry.nextEntry.prevEntry = newEntry;
         prevEntry.nextEntry = newEntry;
-        name2entry.put(name, newEntry);
 
         try {
             filter.onPostAdd(this, name, newEntry.getNextFilter());
@@ -353,8 +376,6 @@ public class DefaultIoFilterChain implements IoFilterChain {
         EntryImpl nextEntry = entry.nextEntry;
         prevEntry.nextEntry = nextEntry;
         nextEntry.prevEntry = prevEntry;
-
-        name2entry.remove(entry.name);
     }
 
     /**
@@ -363,7 +384,7 @@ public class DefaultIoFilterChain implements IoFilterChain {
      * @return An filter entry with the specified name.
      */
     private EntryImpl checkOldName(String baseName) {
-        EntryImpl e = (EntryImpl) name2entry.get(baseName);
+        EntryImpl e = getEntry0(baseName);
         if (e == null) {
             throw new IllegalArgumentException("Filter not found:" + baseName);
         }
@@ -374,7 +395,7 @@ public class DefaultIoFilterChain implements IoFilterChain {
      * Checks the specified filter name is already taken and throws an exception if already taken.
      */
     private void checkAddable(String name) {
-        if (name2entry.containsKey(name)) {
+        if (getEntry0(name) != null) {
             throw new IllegalArgumentException(
                     "Other filter is using the same name '" + name + "'");
         }
@@ -638,7 +659,7 @@ public class DefaultIoFilterChain implements IoFilterChain {
         return buf.toString();
     }
 
-    private class HeadFilter extends IoFilterAdapter {
+    private static class HeadFilter extends IoFilterAdapter {
         @SuppressWarnings("unchecked")
         @Override
         public void filterWrite(NextFilter nextFilter, IoSession session,
@@ -782,7 +803,7 @@ public class DefaultIoFilterChain implements IoFilterChain {
         }
     }
 
-    private final class EntryImpl implements Entry {
+    private final class EntryImpl implements Entry, NextFilter {
         private EntryImpl prevEntry;
 
         private EntryImpl nextEntry;
@@ -791,8 +812,6 @@ public class DefaultIoFilterChain implements IoFilterChain {
 
         private IoFilter filter;
 
-        private final NextFilter nextFilter;
-
         private EntryImpl(EntryImpl prevEntry, EntryImpl nextEntry,
                 String name, IoFilter filter) {
             if (filter == null) {
@@ -806,67 +825,53 @@ public class DefaultIoFilterChain implements IoFilterChain {
             this.nextEntry = nextEntry;
             this.name = name;
             this.filter = filter;
-            this.nextFilter = new NextFilter() {
-                @Override
-                public void sessionCreated(IoSession session) {
-                    Entry nextEntry = EntryImpl.this.nextEntry;
-                    callNextSessionCreated(nextEntry, session);
-                }
+        }
 
-                @Override
-                public void sessionOpened(IoSession session) {
-                    Entry nextEntry = EntryImpl.this.nextEntry;
-                    callNextSessionOpened(nextEntry, session);
-                }
+        @Override
+        public void sessionCreated(IoSession session) {
+            callNextSessionCreated(nextEntry, session);
+        }
 
-                @Override
-                public void sessionClosed(IoSession session) {
-                    Entry nextEntry = EntryImpl.this.nextEntry;
-                    callNextSessionClosed(nextEntry, session);
-                }
+        @Override
+        public void sessionOpened(IoSession session) {
+            callNextSessionOpened(nextEntry, session);
+        }
 
-                @Override
-                public void sessionIdle(IoSession session, IdleStatus status) {
-                    Entry nextEntry = EntryImpl.this.nextEntry;
-                    callNextSessionIdle(nextEntry, session, status);
-                }
+        @Override
+        public void sessionClosed(IoSession session) {
+            callNextSessionClosed(nextEntry, session);
+        }
 
-                @Override
-                public void exceptionCaught(IoSession session, Throwable cause) {
-                    Entry nextEntry = EntryImpl.this.nextEntry;
-                    callNextExceptionCaught(nextEntry, session, cause);
-                }
+        @Override
+        public void sessionIdle(IoSession session, IdleStatus status) {
+            callNextSessionIdle(nextEntry, session, status);
+        }
 
-                @Override
-                public void messageReceived(IoSession session, Object message) {
-                    Entry nextEntry = EntryImpl.this.nextEntry;
-                    callNextMessageReceived(nextEntry, session, message);
-                }
+        @Override
+        public void exceptionCaught(IoSession session, Throwable cause) {
+            callNextExceptionCaught(nextEntry, session, cause);
+        }
 
-                @Override
-                public void messageSent(IoSession session,
-                                        WriteRequest writeRequest) {
-                    Entry nextEntry = EntryImpl.this.nextEntry;
-                    callNextMessageSent(nextEntry, session, writeRequest);
-                }
+        @Override
+        public void messageReceived(IoSession session, Object message) {
+            callNextMessageReceived(nextEntry, session, message);
+        }
 
-                @Override
-                public void filterWrite(IoSession session,
-                                        WriteRequest writeRequest) {
-                    Entry nextEntry = EntryImpl.this.prevEntry;
-                    callPreviousFilterWrite(nextEntry, session, writeRequest);
-                }
+        @Override
+        public void messageSent(IoSession session,
+                                WriteRequest writeRequest) {
+            callNextMessageSent(nextEntry, session, writeRequest);
+        }
 
-                @Override
-                public void filterClose(IoSession session) {
-                    Entry nextEntry = EntryImpl.this.prevEntry;
-                    callPreviousFilterClose(nextEntry, session);
-                }
+        @Override
+        public void filterWrite(IoSession session,
+                                WriteRequest writeRequest) {
+            callPreviousFilterWrite(prevEntry, session, writeRequest);
+        }
 
-                public String toString() {
-                    return EntryImpl.this.nextEntry.name;
-                }
-            };
+        @Override
+        public void filterClose(IoSession session) {
+            callPreviousFilterClose(prevEntry, session);
         }
 
         @Override
@@ -889,7 +894,7 @@ public class DefaultIoFilterChain implements IoFilterChain {
 
         @Override
         public NextFilter getNextFilter() {
-            return nextFilter;
+            return this;
         }
 
         @Override
@@ -21,27 +21,33 @@ import org.apache.mina.core.session.IdleStatus;
 import org.apache.mina.core.session.IoSession;
 import org.apache.mina.core.write.WriteRequest;
 
+import org.kaazing.mina.core.filterchain.IoEventBatchingExecutor.IoEventKind;
 import org.kaazing.mina.core.session.AbstractIoSessionEx;
 
 /**
  * Extended version of DefaultIoFilterChain to add support for thread alignment. Every method is
  * executed explicitly on the IoSession's I/O worker thread that is not the current thread.
+ * When the I/O executor is an {@link IoEventBatchingExecutor}, events from other threads are handed
+ * over in batches without allocating a task per event.
  */
 public class DefaultIoFilterChainEx extends DefaultIoFilterChain {
 
     private final Thread ioThread;
     private final Executor ioExecutor;
+    private final IoEventBatchingExecutor batchingExecutor;
 
     public DefaultIoFilterChainEx(DefaultIoFilterChainEx filterChain, Thread ioThread, Executor ioExecutor) {
         super(filterChain);
         this.ioThread = ioThread;
         this.ioExecutor = ioExecutor;
+        this.batchingExecutor = asBatchingExecutor(ioExecutor);
     }
 
     public DefaultIoFilterChainEx(AbstractIoSessionEx session) {
         super(session);
         ioThread = session.getIoThread();
         ioExecutor = session.getIoExecutor();
+        batchingExecutor = asBatchingExecutor(ioExecutor);
 
         // conditionally add alignment checking filter if assert is enabled
         if (AssertAlignedFilter.isAssertEnabled()) {
@@ -50,65 +56,47 @@ public class DefaultIoFilterChainEx extends DefaultIoFilterChain {
     }
 
     @Override
-    protected final void callNextSessionCreated(final Entry entry, final IoSession session) {
+    protected final void callNextSessionCreated(Entry entry, IoSession session) {
         if (aligned()) {
             super.callNextSessionCreated(entry, session);
         }
         else {
-            execute(new Runnable() {
-                @Override
-                public void run() {
-                    // handle re-alignment race using this instead of super
-                    DefaultIoFilterChainEx.this.callNextSessionCreated(entry, session);
-                }
-            });
+            execute(IoEventKind.SESSION_CREATED, entry, session, null);
         }
     }
 
     @Override
-    protected final void callNextSessionOpened(final Entry entry, final IoSession session) {
+    protected final void callNextSessionOpened(Entry entry, IoSession session) {
         if (aligned()) {
             super.callNextSessionOpened(entry, session);
         }
         else {
-            execute(new Runnable() {
-                @Override
-                public void run() {
-                    // handle re-alignment race using this instead of super
-                    DefaultIoFilterChainEx.this.callNextSessionOpened(entry, session);
-                }
-            });
+            execute(IoEventKind.SESSION_OPENED, entry, session, null);
         }
     }
 
     @Override
-    protected final void callNextSessionClosed(final Entry entry, final IoSession session) {
+    protected final void callNextSessionClosed(Entry entry, IoSession session) {
         if (aligned()) {
             super.callNextSessionClosed(entry, session);
         }
         else {
-            execute(new Runnable() {
-                @Override
-                public void run() {
-                    // handle re-alignment race using this instead of super
-                    DefaultIoFilterChainEx.this.callNextSessionClosed(entry, session);
-                }
-            });
+            execute(IoEventKind.SESSION_CLOSED, entry, session, null);
         }
     }
 
     @Override
-    protected final void callNextSessionIdle(final Entry entry, final IoSession session, final IdleStatus status) {
+    protected final void callNextSessionIdle(Entry entry, IoSession session, IdleStatus status) {
         if (aligned()) {
             super.callNextSessionIdle(entry, session, status);
         }
         else {
-            execute(new CallNextSessionIdleCommand(status, entry, session));
+            execute(IoEventKind.SESSION_IDLE, entry, session, status);
         }
     }
 
     @Override
-    protected final void callNextMessageReceived(final Entry entry, final IoSession session, final Object message) {
+    protected final void callNextMessageReceived(Entry entry, IoSession session, Object message) {
         if (aligned()) {
             // Note: no suspendRead / resumeRead coordination necessary when thread-aligned
             super.callNextMessageReceived(entry, session, message);
@@ -117,95 +105,88 @@ public class DefaultIoFilterChainEx extends DefaultIoFilterChain {
             // Note: reads will be resumed after completion of scheduled callNextMessageReceived
             session.suspendRead();
 
-            execute(new Runnable() {
-                @Override
-                public void run() {
-                    // handle re-alignment race using this instead of super
-                    DefaultIoFilterChainEx.this.callNextMessageReceived(entry, session, message);
-
-                    // Note: reads were suspended before scheduling callNextMessageReceived
-                    //       if suspendRead was called during callNextNessageReceived
-                    //       then calling resumeRead below will not actually resume reads
-                    //       due to internal read suspend counter
-                    session.resumeRead();
-                }
-            });
+            execute(IoEventKind.MESSAGE_RECEIVED, entry, session, message);
         }
     }
 
     @Override
-    protected final void callNextMessageSent(
-            final Entry entry, final IoSession session, final WriteRequest writeRequest) {
+    protected final void callNextMessageSent(Entry entry, IoSession session, WriteRequest writeRequest) {
         if (aligned()) {
             super.callNextMessageSent(entry, session, writeRequest);
         }
         else {
-            execute(new Runnable() {
-                @Override
-                public void run() {
-                    // handle re-alignment race using this instead of super
-                    DefaultIoFilterChainEx.this.callNextMessageSent(entry, session, writeRequest);
-                }
-            });
+            execute(IoEventKind.MESSAGE_SENT, entry, session, writeRequest);
         }
     }
 
     @Override
-    protected final void callNextExceptionCaught(final Entry entry, final IoSession session, final Throwable cause) {
+    protected final void callNextExceptionCaught(Entry entry, IoSession session, Throwable cause) {
         if (aligned()) {
             super.callNextExceptionCaught(entry, session, cause);
         }
         else {
-            execute(new Runnable() {
-                @Override
-                public void run() {
-                    // handle re-alignment race using this instead of super
-                    DefaultIoFilterChainEx.this.callNextExceptionCaught(entry, session, cause);
-                }
-            });
+            execute(IoEventKind.EXCEPTION_CAUGHT, entry, session, cause);
         }
     }
 
     @Override
-    protected final void callPreviousFilterWrite(
-            final Entry entry, final IoSession session, final WriteRequest writeRequest) {
+    protected final void callPreviousFilterWrite(Entry entry, IoSession session, WriteRequest writeRequest) {
         if (aligned()) {
             super.callPreviousFilterWrite(entry, session, writeRequest);
         }
         else {
-            final Entry entry0 = entry;
-            execute(new Runnable() {
-                @Override
-                public void run() {
-                    // handle re-alignment race using this instead of super
-                    DefaultIoFilterChainEx.this.callPreviousFilterWrite(entry0, session, writeRequest);
-                }
-            });
+            execute(IoEventKind.FILTER_WRITE, entry, session, writeRequest);
         }
     }
 
     @Override
-    protected final void callPreviousFilterClose(final Entry entry, final IoSession session) {
+    protected final void callPreviousFilterClose(Entry entry, IoSession session) {
         if (aligned()) {
             super.callPreviousFilterClose(entry, session);
         }
         else {
-            execute(new Runnable() {
-                @Override
-                public void run() {
-                    // handle re-alignment race using this instead of super
-                    DefaultIoFilterChainEx.this.callPreviousFilterClose(entry, session);
-                }
-            });
+            execute(IoEventKind.FILTER_CLOSE, entry, session, null);
         }
     }
 
+    private static IoEventBatchingExecutor asBatchingExecutor(Executor ioExecutor) {
+        return (ioExecutor instanceof IoEventBatchingExecutor) ? (IoEventBatchingExecutor) ioExecutor : null;
+    }
+
     private boolean aligned() {
         return Thread.currentThread() == ioThread;
     }
 
-    private void execute(Runnable command) {
-        ioExecutor.execute(command);
+    private void execute(IoEventKind kind, Entry entry, IoSession session, Object payload) {
+        if (batchingExecutor != null) {
+            // queued without allocating a task, drained by the I/O worker in batches
+            batchingExecutor.submit(kind, this, entry, session, payload);
+        }
+        else if (kind == IoEventKind.SESSION_IDLE) {
+            ioExecutor.execute(new CallNextSessionIdleCommand((IdleStatus) payload, entry, session));
+        }
+        else {
+            ioExecutor.execute(new CallNextCommand(kind, entry, session, payload));
+        }
+    }
+
+    private final class CallNextCommand implements Runnable {
+        private final IoEventKind kind;
+        private final Entry entry;
+        private final IoSession session;
+        private final Object payload;
+
+        CallNextCommand(IoEventKind kind, Entry entry, IoSession session, Object payload) {
+            this.kind = kind;
+            this.entry = entry;
+            this.session = session;
+            this.payload = payload;
+        }
+
+        @Override
+        public void run() {
+            IoEventBatchingExecutor.dispatch(DefaultIoFilterChainEx.this, kind, entry, session, payload);
+        }
     }
 
     // allow detection of legitimate non-IoThread commands
@@ -0,0 +1,347 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.mina.core.filterchain;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+import org.apache.mina.core.filterchain.IoFilterChain.Entry;
+import org.apache.mina.core.session.IdleStatus;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.write.WriteRequest;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.Timer;
+import org.jboss.netty.util.TimerTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executor that hands events raised on other threads over to an I/O worker in batches.
+ * <p>
+ * Filter chain events are queued in preallocated slots instead of being wrapped in a new task each,
+ * and a single drain task is submitted to the target executor for all the events queued since the
+ * previous drain started. The worker then runs every pending event in one pass, so a burst of
+ * cross-thread events costs one task submission (and at most one selector wakeup) rather than one
+ * per event.
+ * <p>
+ * Events submitted from the same thread run in submission order, also relative to tasks that thread
+ * submits directly to the target executor afterwards.
+ * <p>
+ * Short delays, such as write coalescing bounds, are scheduled on the timer of the worker, whose
+ * expirations are handed over to the worker like any other command, so the delayed task runs on the
+ * I/O thread without a separate scheduler task per session.
+ */
+public class IoEventBatchingExecutor implements Executor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IoEventBatchingExecutor.class);
+
+    private static final int DEFAULT_POOL_CAPACITY = 256;
+
+    enum IoEventKind {
+        COMMAND,
+        SESSION_CREATED,
+        SESSION_OPENED,
+        SESSION_CLOSED,
+        SESSION_IDLE,
+        MESSAGE_RECEIVED,
+        MESSAGE_SENT,
+        EXCEPTION_CAUGHT,
+        FILTER_WRITE,
+        FILTER_CLOSE
+    }
+
+    private final Executor target;
+    private final IoEventPool pool;
+    private final AtomicReference<IoEvent> tail;
+    private final AtomicBoolean scheduled;
+    private final AtomicLong eventCount;
+    private final AtomicLong batchCount;
+    private final Runnable drain;
+    private final Supplier<Timer> timer;
+
+    // accessed by the draining thread only
+    private IoEvent head;
+
+    // written by the draining thread only
+    private volatile long executedCount;
+
+    public IoEventBatchingExecutor(Executor target) {
+        this(target, DEFAULT_POOL_CAPACITY, null);
+    }
+
+    public IoEventBatchingExecutor(Executor target, int poolCapacity) {
+        this(target, poolCapacity, null);
+    }
+
+    /**
+     * @param timer supplies the timer used by {@link #schedule}, e.g. the worker's own, called on first use
+     */
+    public IoEventBatchingExecutor(Executor target, Supplier<Timer> timer) {
+        this(target, DEFAULT_POOL_CAPACITY, timer);
+    }
+
+    public IoEventBatchingExecutor(Executor target, int poolCapacity, Supplier<Timer> timer) {
+        this.target = target;
+        this.timer = timer;
+        this.pool = new IoEventPool(poolCapacity);
+        this.head = new IoEvent();
+        this.tail = new AtomicReference<>(head);
+        this.scheduled = new AtomicBoolean();
+        this.eventCount = new AtomicLong();
+        this.batchCount = new AtomicLong();
+        this.drain = new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        };
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        submit(IoEventKind.COMMAND, null, null, null, command);
+    }
+
+    /**
+     * @return whether {@link #schedule} is supported, i.e. this executor was given a timer
+     */
+    public boolean canSchedule() {
+        return timer != null;
+    }
+
+    /**
+     * Runs the command on the target executor once the delay has elapsed.
+     *
+     * @return the timeout, which can be cancelled before the command is handed over
+     * @throws UnsupportedOperationException if this executor was not given a timer
+     */
+    public Timeout schedule(final Runnable command, long delay, TimeUnit unit) {
+        if (timer == null) {
+            throw new UnsupportedOperationException("No timer to schedule on");
+        }
+        return timer.get().newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+                execute(command);
+            }
+        }, delay, unit);
+    }
+
+    /**
+     * @return the number of events queued but not yet executed
+     */
+    public long getQueueDepth() {
+        return Math.max(0L, eventCount.get() - executedCount);
+    }
+
+    /**
+     * @return the number of events handed over to the target executor
+     */
+    public long getEventCount() {
+        return eventCount.get();
+    }
+
+    /**
+     * @return the number of drain tasks submitted to the target executor, each waking the worker at most once
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    void submit(IoEventKind kind, DefaultIoFilterChainEx chain, Entry entry, IoSession session, Object payload) {
+        IoEvent event = pool.poll();
+        if (event == null) {
+            event = new IoEvent();
+        }
+        event.kind = kind;
+        event.chain = chain;
+        event.entry = entry;
+        event.session = session;
+        event.payload = payload;
+
+        eventCount.incrementAndGet();
+        IoEvent previous = tail.getAndSet(event);
+        previous.next = event;
+
+        if (scheduled.compareAndSet(false, true)) {
+            batchCount.incrementAndGet();
+            target.execute(drain);
+        }
+    }
+
+    private void drain() {
+        // cleared before draining so that events queued from now on schedule their own drain,
+        // ahead of any task their producer submits to the target executor afterwards
+        scheduled.set(false);
+
+        // only drain up to the events queued so far, later events belong to the next drain
+        final IoEvent last = tail.get();
+        long executed = executedCount;
+        IoEvent current = head;
+        while (current != last) {
+            IoEvent next = current.next;
+            if (next == null) {
+                // producer is still linking, its own drain is already scheduled
+                break;
+            }
+
+            // next becomes the new (empty) head, current can be recycled
+            head = next;
+            current.next = null;
+            pool.offer(current);
+
+            IoEventKind kind = next.kind;
+            DefaultIoFilterChainEx chain = next.chain;
+            Entry entry = next.entry;
+            IoSession session = next.session;
+            Object payload = next.payload;
+            next.chain = null;
+            next.entry = null;
+            next.session = null;
+            next.payload = null;
+
+            try {
+                if (kind == IoEventKind.COMMAND) {
+                    ((Runnable) payload).run();
+                }
+                else {
+                    dispatch(chain, kind, entry, session, payload);
+                }
+            }
+            catch (Throwable t) {
+                LOGGER.warn("Unexpected exception while executing I/O event " + kind, t);
+            }
+
+            executedCount = ++executed;
+            current = next;
+        }
+    }
+
+    static void dispatch(DefaultIoFilterChainEx chain, IoEventKind kind, Entry entry, IoSession session,
+            Object payload) {
+        // handle re-alignment race by calling the aligning methods of the chain rather than super
+        switch (kind) {
+        case SESSION_CREATED:
+            chain.callNextSessionCreated(entry, session);
+            break;
+        case SESSION_OPENED:
+            chain.callNextSessionOpened(entry, session);
+            break;
+        case SESSION_CLOSED:
+            chain.callNextSessionClosed(entry, session);
+            break;
+        case SESSION_IDLE:
+            chain.callNextSessionIdle(entry, session, (IdleStatus) payload);
+            break;
+        case MESSAGE_RECEIVED:
+            chain.callNextMessageReceived(entry, session, payload);
+
+            // Note: reads were suspended before scheduling callNextMessageReceived
+            //       if suspendRead was called during callNextMessageReceived
+            //       then calling resumeRead below will not actually resume reads
+            //       due to internal read suspend counter
+            session.resumeRead();
+            break;
+        case MESSAGE_SENT:
+            chain.callNextMessageSent(entry, session, (WriteRequest) payload);
+            break;
+        case EXCEPTION_CAUGHT:
+            chain.callNextExceptionCaught(entry, session, (Throwable) payload);
+            break;
+        case FILTER_WRITE:
+            chain.callPreviousFilterWrite(entry, session, (WriteRequest) payload);
+            break;
+        case FILTER_CLOSE:
+            chain.callPreviousFilterClose(entry, session);
+            break;
+        default:
+            throw new IllegalArgumentException("Unexpected event kind: " + kind);
+        }
+    }
+
+    private static final class IoEvent {
+        IoEventKind kind;
+        DefaultIoFilterChainEx chain;
+        Entry entry;
+        IoSession session;
+        Object payload;
+        volatile IoEvent next;
+    }
+
+    /**
+     * Bounded lock-free pool of event slots, shared by the producers (poll) and the draining thread (offer).
+     */
+    private static final class IoEventPool {
+        private final int mask;
+        private final AtomicReferenceArray<IoEvent> slots;
+        private final AtomicLongArray sequences;
+        private final AtomicLong offerIndex;
+        private final AtomicLong pollIndex;
+
+        IoEventPool(int capacity) {
+            int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+            mask = size - 1;
+            slots = new AtomicReferenceArray<>(size);
+            sequences = new AtomicLongArray(size);
+            for (int i = 0; i < size; i++) {
+                slots.set(i, new IoEvent());
+                sequences.set(i, i + 1);
+            }
+            offerIndex = new AtomicLong(size);
+            pollIndex = new AtomicLong(0);
+        }
+
+        IoEvent poll() {
+            while (true) {
+                long index = pollIndex.get();
+                int slot = (int) index & mask;
+                long delta = sequences.get(slot) - (index + 1);
+                if (delta < 0) {
+                    return null;
+                }
+                if (delta == 0 && pollIndex.compareAndSet(index, index + 1)) {
+                    IoEvent event = slots.get(slot);
+                    slots.lazySet(slot, null);
+                    sequences.lazySet(slot, index + mask + 1);
+                    return event;
+                }
+            }
+        }
+
+        void offer(IoEvent event) {
+            while (true) {
+                long index = offerIndex.get();
+                int slot = (int) index & mask;
+                long delta = sequences.get(slot) - index;
+                if (delta < 0) {
+                    // pool is full, let the event be collected
+                    return;
+                }
+                if (delta == 0 && offerIndex.compareAndSet(index, index + 1)) {
+                    slots.set(slot, event);
+                    sequences.lazySet(slot, index + 1);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -21,8 +21,7 @@ import java.net.SocketAddress;
 import java.util.Iterator;
 import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.mina.core.buffer.IoBuffer;
@@ -75,6 +74,8 @@ import org.kaazing.mina.core.write.WriteRequestEx;
  * 10. Modify write(Object, SocketAddress) method in order to:
  *       - remove logic for writing messages of File and FileChannel types
  *       - allow writing of empty payload messages 
+ * 11. Keep closing, suspend counts, scheduled for flush, scheduled write bytes and idle counts in volatile fields
+ *     updated through field updaters instead of Atomic* objects, to reduce the footprint of each session.
  */
 public abstract class AbstractIoSession implements IoSession, IoAlignment {
 
@@ -89,7 +90,7 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
             @Override
             public void operationComplete(CloseFuture future) {
                 AbstractIoSession session = (AbstractIoSession) future.getSession();
-                session.scheduledWriteBytes.set(0);
+                session.scheduledWriteBytes = 0;
                 session.readBytesThroughput = 0;
                 session.readMessagesThroughput = 0;
                 session.writtenBytesThroughput = 0;
@@ -122,15 +123,32 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      */
     private final CloseFuture closeFuture = new DefaultCloseFuture(this);
 
-    private final AtomicBoolean closing = new AtomicBoolean();
+    private static final AtomicIntegerFieldUpdater<AbstractIoSession> CLOSING =
+        AtomicIntegerFieldUpdater.newUpdater(AbstractIoSession.class, "closing");
+    private static final AtomicIntegerFieldUpdater<AbstractIoSession> READ_SUSPEND_COUNT =
+        AtomicIntegerFieldUpdater.newUpdater(AbstractIoSession.class, "readSuspendCount");
+    private static final AtomicIntegerFieldUpdater<AbstractIoSession> WRITE_SUSPEND_COUNT =
+        AtomicIntegerFieldUpdater.newUpdater(AbstractIoSession.class, "writeSuspendCount");
+    private static final AtomicIntegerFieldUpdater<AbstractIoSession> SCHEDULED_FOR_FLUSH =
+        AtomicIntegerFieldUpdater.newUpdater(AbstractIoSession.class, "scheduledForFlush");
+    private static final AtomicIntegerFieldUpdater<AbstractIoSession> SCHEDULED_WRITE_BYTES =
+        AtomicIntegerFieldUpdater.newUpdater(AbstractIoSession.class, "scheduledWriteBytes");
+    private static final AtomicIntegerFieldUpdater<AbstractIoSession> IDLE_COUNT_FOR_BOTH =
+        AtomicIntegerFieldUpdater.newUpdater(AbstractIoSession.class, "idleCountForBoth");
+    private static final AtomicIntegerFieldUpdater<AbstractIoSession> IDLE_COUNT_FOR_READ =
+        AtomicIntegerFieldUpdater.newUpdater(AbstractIoSession.class, "idleCountForRead");
+    private static final AtomicIntegerFieldUpdater<AbstractIoSession> IDLE_COUNT_FOR_WRITE =
+        AtomicIntegerFieldUpdater.newUpdater(AbstractIoSession.class, "idleCountForWrite");
+
+    private volatile int closing;
 
     // traffic control
-    private final AtomicInteger readSuspendCount = new AtomicInteger();
-    private final AtomicInteger writeSuspendCount = new AtomicInteger();
+    private volatile int readSuspendCount;
+    private volatile int writeSuspendCount;
 
     // Status variables
-    private final AtomicBoolean scheduledForFlush = new AtomicBoolean();
-    private final AtomicInteger scheduledWriteBytes = new AtomicInteger();
+    private volatile int scheduledForFlush;
+    private volatile int scheduledWriteBytes;
 
     private long readBytes;
     private long writtenBytes;
@@ -146,9 +164,9 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
     private double writtenBytesThroughput;
     private double readMessagesThroughput;
 
-    private AtomicInteger idleCountForBoth = new AtomicInteger();
-    private AtomicInteger idleCountForRead = new AtomicInteger();
-    private AtomicInteger idleCountForWrite = new AtomicInteger();
+    private volatile int idleCountForBoth;
+    private volatile int idleCountForRead;
+    private volatile int idleCountForWrite;
 
     private volatile long lastIdleTimeForBoth;
     private volatile long lastIdleTimeForRead;
@@ -207,7 +225,7 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      */
     @Override
     public final boolean isClosing() {
-        return closing.get() || closeFuture.isClosed();
+        return closing != 0 || closeFuture.isClosed();
     }
 
     /**
@@ -222,7 +240,7 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      * TODO Add method documentation
      */
     public final boolean isScheduledForFlush() {
-        return scheduledForFlush.get();
+        return scheduledForFlush != 0;
     }
 
     /**
@@ -231,10 +249,10 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
     public final boolean setScheduledForFlush(boolean flag) {
         if (flag) {
             // If the current tag is set to false, switch it to true
-            return scheduledForFlush.compareAndSet(false, true);
+            return SCHEDULED_FOR_FLUSH.compareAndSet(this, 0, 1);
         }
 
-        scheduledForFlush.set(false);
+        scheduledForFlush = 0;
         return true;
     }
 
@@ -256,7 +274,7 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
     @Deprecated
     @Override
     public final CloseFuture close() {
-        if (closing.compareAndSet(false, true)) {
+        if (CLOSING.compareAndSet(this, 0, 1)) {
             getFilterChain().fireFilterClose();
         }
 
@@ -565,7 +583,7 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      */
     @Override
     public void suspendRead() {
-        if (readSuspendCount.getAndIncrement() == 0) {
+        if (READ_SUSPEND_COUNT.getAndIncrement(this) == 0) {
             suspendRead0();
         }
     }
@@ -580,7 +598,7 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      */
     @Override
     public final void suspendWrite() {
-        if (writeSuspendCount.getAndIncrement() == 0) {
+        if (WRITE_SUSPEND_COUNT.getAndIncrement(this) == 0) {
             if (isClosing() || !isConnected()) {
                 return;
             }
@@ -604,7 +622,7 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      */
     @Override
     public void resumeRead() {
-        switch (readSuspendCount.decrementAndGet()) {
+        switch (READ_SUSPEND_COUNT.decrementAndGet(this)) {
         case -1:
             throw new IllegalStateException("resumeRead not balanced by previous suspendRead");
         case 0:
@@ -623,7 +641,7 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      */
     @Override
     public final void resumeWrite() {
-        switch (writeSuspendCount.decrementAndGet()) {
+        switch (WRITE_SUSPEND_COUNT.decrementAndGet(this)) {
         case -1:
             throw new IllegalStateException("resumeWrite not balanced by previous suspendWrite");
         case 0:
@@ -651,7 +669,7 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      */
     @Override
     public boolean isReadSuspended() {
-        return readSuspendCount.get() != 0;
+        return readSuspendCount != 0;
     }
 
     /**
@@ -659,7 +677,7 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      */
     @Override
     public final boolean isWriteSuspended() {
-        return writeSuspendCount.get() != 0;
+        return writeSuspendCount != 0;
     }
 
     /**
@@ -757,7 +775,7 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      */
     @Override
     public long getScheduledWriteBytes() {
-        return scheduledWriteBytes.get();
+        return scheduledWriteBytes;
     }
 
     /**
@@ -773,7 +791,7 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      * TODO Add method documentation
      */
     protected void setScheduledWriteBytes(int byteCount) {
-        scheduledWriteBytes.set(byteCount);
+        scheduledWriteBytes = byteCount;
     }
 
 
@@ -787,8 +805,8 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
 
         readBytes += increment;
         lastReadTime = currentTime;
-        idleCountForBoth.set(0);
-        idleCountForRead.set(0);
+        idleCountForBoth = 0;
+        idleCountForRead = 0;
 
 //        if (getService() instanceof AbstractIoService) {
 //            ((AbstractIoService) getService()).getStatistics().increaseReadBytes(increment, currentTime);
@@ -801,8 +819,8 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
     public final void increaseReadMessages(long currentTime) {
         readMessages++;
         lastReadTime = currentTime;
-        idleCountForBoth.set(0);
-        idleCountForRead.set(0);
+        idleCountForBoth = 0;
+        idleCountForRead = 0;
 
 //        if (getService() instanceof AbstractIoService) {
 //            ((AbstractIoService) getService()).getStatistics().increaseReadMessages(currentTime);
@@ -819,8 +837,8 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
 
         writtenBytes += increment;
         lastWriteTime = currentTime;
-        idleCountForBoth.set(0);
-        idleCountForWrite.set(0);
+        idleCountForBoth = 0;
+        idleCountForWrite = 0;
 
 //        if (getService() instanceof AbstractIoService) {
 //            ((AbstractIoService) getService()).getStatistics().increaseWrittenBytes(increment, currentTime);
@@ -835,7 +853,7 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      * TODO Add method documentation
      */
     public final void increaseScheduledWriteBytes(int increment) {
-        scheduledWriteBytes.addAndGet(increment);
+        SCHEDULED_WRITE_BYTES.addAndGet(this, increment);
 //        if (getService() instanceof AbstractIoService) {
 //            ((AbstractIoService) getService()).getStatistics().increaseScheduledWriteBytes(increment);
 //        }
@@ -962,15 +980,15 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
     @Override
     public final boolean isIdle(IdleStatus status) {
         if (status == IdleStatus.BOTH_IDLE) {
-            return idleCountForBoth.get() > 0;
+            return idleCountForBoth > 0;
         }
 
         if (status == IdleStatus.READER_IDLE) {
-            return idleCountForRead.get() > 0;
+            return idleCountForRead > 0;
         }
 
         if (status == IdleStatus.WRITER_IDLE) {
-            return idleCountForWrite.get() > 0;
+            return idleCountForWrite > 0;
         }
 
         throw new IllegalArgumentException("Unknown idle status: " + status);
@@ -1007,28 +1025,28 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
     public final int getIdleCount(IdleStatus status) {
         if (getConfig().getIdleTime(status) == 0) {
             if (status == IdleStatus.BOTH_IDLE) {
-                idleCountForBoth.set(0);
+                idleCountForBoth = 0;
             }
 
             if (status == IdleStatus.READER_IDLE) {
-                idleCountForRead.set(0);
+                idleCountForRead = 0;
             }
 
             if (status == IdleStatus.WRITER_IDLE) {
-                idleCountForWrite.set(0);
+                idleCountForWrite = 0;
             }
         }
 
         if (status == IdleStatus.BOTH_IDLE) {
-            return idleCountForBoth.get();
+            return idleCountForBoth;
         }
 
         if (status == IdleStatus.READER_IDLE) {
-            return idleCountForRead.get();
+            return idleCountForRead;
         }
 
         if (status == IdleStatus.WRITER_IDLE) {
-            return idleCountForWrite.get();
+            return idleCountForWrite;
         }
 
         throw new IllegalArgumentException("Unknown idle status: " + status);
@@ -1059,13 +1077,13 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      */
     public final void increaseIdleCount(IdleStatus status, long currentTime) {
         if (status == IdleStatus.BOTH_IDLE) {
-            idleCountForBoth.incrementAndGet();
+            IDLE_COUNT_FOR_BOTH.incrementAndGet(this);
             lastIdleTimeForBoth = currentTime;
         } else if (status == IdleStatus.READER_IDLE) {
-            idleCountForRead.incrementAndGet();
+            IDLE_COUNT_FOR_READ.incrementAndGet(this);
             lastIdleTimeForRead = currentTime;
         } else if (status == IdleStatus.WRITER_IDLE) {
-            idleCountForWrite.incrementAndGet();
+            IDLE_COUNT_FOR_WRITE.incrementAndGet(this);
             lastIdleTimeForWrite = currentTime;
         } else {
             throw new IllegalArgumentException("Unknown idle status: " + status);
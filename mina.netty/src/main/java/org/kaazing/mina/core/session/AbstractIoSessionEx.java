@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import javax.security.auth.Subject;
 
@@ -46,8 +47,14 @@ public abstract class AbstractIoSessionEx extends AbstractIoSession implements I
     private final int ioLayer;
     private final ThreadLocal<WriteRequestEx> ioWriteRequest;
 
-    private final Runnable readSuspender;
-    private final Runnable readResumer;
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<AbstractIoSessionEx, List> SUBJECT_CHANGE_LISTENERS =
+            AtomicReferenceFieldUpdater.newUpdater(AbstractIoSessionEx.class, List.class, "subjectChangeListeneres");
+
+    // created on first use from another thread, most sessions only suspend and resume reads on their I/O thread
+    private Runnable readSuspender;
+    private Runnable readResumer;
+    private Runnable closeOnFlushTask;
 
     // volatile to support thread alignment migration
     private volatile IoFilterChain filterChain;
@@ -56,7 +63,8 @@ public abstract class AbstractIoSessionEx extends AbstractIoSession implements I
     private volatile boolean ioRegistered;
 
     private Subject subject;
-    private final List<SubjectChangeListener> subjectChangeListeneres;
+    // created when the first listener is added
+    private volatile List<SubjectChangeListener> subjectChangeListeneres;
 
     protected AbstractIoSessionEx(int ioLayer, Thread ioThread, Executor ioExecutor,
                                   ThreadLocal<WriteRequestEx> ioWriteRequest) {
@@ -80,22 +88,6 @@ public abstract class AbstractIoSessionEx extends AbstractIoSession implements I
         this.ioRegistered = ioRegistered;
 
         this.filterChain = ioAligned ? new DefaultIoFilterChainEx(this) : new DefaultIoFilterChain(this);
-
-        this.readSuspender = new Runnable() {
-            @Override
-            public void run() {
-                suspendRead1();
-            }
-        };
-        this.readResumer = new Runnable() {
-            @Override
-            public void run() {
-                resumeRead1();
-            }
-        };
-
-        subjectChangeListeneres = ioAligned ? new ArrayList<>()
-                : new CopyOnWriteArrayList<>();
     }
 
     @Override
@@ -186,9 +178,19 @@ public abstract class AbstractIoSessionEx extends AbstractIoSession implements I
     @Override
     protected final void suspendRead0() {
         if (currentThread() == ioThread) {
-            readSuspender.run();
+            suspendRead1();
         }
         else {
+            Runnable readSuspender = this.readSuspender;
+            if (readSuspender == null) {
+                readSuspender = new Runnable() {
+                    @Override
+                    public void run() {
+                        suspendRead1();
+                    }
+                };
+                this.readSuspender = readSuspender;
+            }
             ioExecutor.execute(readSuspender);
         }
     }
@@ -200,9 +202,19 @@ public abstract class AbstractIoSessionEx extends AbstractIoSession implements I
     @Override
     protected final void resumeRead0() {
         if (currentThread() == ioThread) {
-            readResumer.run();
+            resumeRead1();
         }
         else {
+            Runnable readResumer = this.readResumer;
+            if (readResumer == null) {
+                readResumer = new Runnable() {
+                    @Override
+                    public void run() {
+                        resumeRead1();
+                    }
+                };
+                this.readResumer = readResumer;
+            }
             ioExecutor.execute(readResumer);
         }
     }
@@ -215,20 +227,28 @@ public abstract class AbstractIoSessionEx extends AbstractIoSession implements I
     protected void doCloseOnFlush() {
         // Ensure getProcessor().flush() is executed in this session's IO thread.
         if (currentThread() == ioThread) {
-            closeOnFlushTask.run();
+            closeOnFlush0();
         }
         else {
+            Runnable closeOnFlushTask = this.closeOnFlushTask;
+            if (closeOnFlushTask == null) {
+                closeOnFlushTask = new Runnable() {
+                    @Override
+                    public void run() {
+                        closeOnFlush0();
+                    }
+                };
+                this.closeOnFlushTask = closeOnFlushTask;
+            }
             getIoExecutor().execute(closeOnFlushTask);
         }
     }
 
-    private Runnable closeOnFlushTask = new Runnable() {
-        @SuppressWarnings("unchecked")
-        @Override public void run() {
-            getWriteRequestQueue().offer(AbstractIoSessionEx.this, CLOSE_REQUEST);
-            getProcessor().flush(AbstractIoSessionEx.this);
-        }
-    };
+    @SuppressWarnings("unchecked")
+    private void closeOnFlush0() {
+        getWriteRequestQueue().offer(this, CLOSE_REQUEST);
+        getProcessor().flush(this);
+    }
 
     @Override
     public Subject getSubject() {
@@ -259,18 +279,31 @@ public abstract class AbstractIoSessionEx extends AbstractIoSession implements I
     }
 
     private void notifySubjectChanged(Subject subject) {
-        for (SubjectChangeListener listener : subjectChangeListeneres) {
-            listener.subjectChanged(subject);
+        List<SubjectChangeListener> subjectChangeListeneres = this.subjectChangeListeneres;
+        if (subjectChangeListeneres != null) {
+            for (SubjectChangeListener listener : subjectChangeListeneres) {
+                listener.subjectChanged(subject);
+            }
         }
     }
 
     @Override
     public void addSubjectChangeListener(SubjectChangeListener listener) {
+        List<SubjectChangeListener> subjectChangeListeneres = this.subjectChangeListeneres;
+        if (subjectChangeListeneres == null) {
+            List<SubjectChangeListener> newListeners = ioAligned ? new ArrayList<SubjectChangeListener>()
+                    : new CopyOnWriteArrayList<SubjectChangeListener>();
+            SUBJECT_CHANGE_LISTENERS.compareAndSet(this, null, newListeners);
+            subjectChangeListeneres = this.subjectChangeListeneres;
+        }
         subjectChangeListeneres.add(listener);
     }
 
     @Override
     public void removeSubjectChangeListener(SubjectChangeListener listener) {
-        subjectChangeListeneres.remove(listener);
+        List<SubjectChangeListener> subjectChangeListeneres = this.subjectChangeListeneres;
+        if (subjectChangeListeneres != null) {
+            subjectChangeListeneres.remove(listener);
+        }
     }
 }
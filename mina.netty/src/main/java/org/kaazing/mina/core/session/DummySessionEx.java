@@ -20,6 +20,7 @@ import java.net.SocketAddress;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import org.apache.mina.core.file.FileRegion;
 import org.apache.mina.core.future.IoFuture;
@@ -64,6 +65,9 @@ public class DummySessionEx extends AbstractIoSessionEx {
         }
     };
 
+    private static final AtomicReferenceFieldUpdater<DummySessionEx, IoServiceEx> SERVICE =
+        AtomicReferenceFieldUpdater.newUpdater(DummySessionEx.class, IoServiceEx.class, "service");
+
     private volatile IoServiceEx service;
 
     private volatile IoSessionConfigEx config = new AbstractIoSessionConfigEx() {
@@ -93,62 +97,6 @@ public class DummySessionEx extends AbstractIoSessionEx {
 
     public DummySessionEx(Thread thread, Executor executor, IoProcessorEx<? extends IoSessionEx> processor) {
         super(0, thread, executor, new ShareableWriteRequest());
-        // Initialize dummy service.
-        IoAcceptorEx acceptor = new AbstractIoAcceptorEx(
-                new AbstractIoSessionConfigEx() {
-                    @Override
-                    protected void doSetAll(IoSessionConfigEx config) {
-                        // Do nothing
-                    }
-                },
-                new Executor() {
-                    @Override
-                    public void execute(Runnable command) {
-                        // Do nothing
-                    }
-                }) {
-
-            @Override
-            protected Set<SocketAddress> bindInternal(List<? extends SocketAddress> localAddresses) throws Exception {
-                throw new UnsupportedOperationException();
-            }
-
-            @Override
-            protected void unbind0(List<? extends SocketAddress> localAddresses) throws Exception {
-                throw new UnsupportedOperationException();
-            }
-
-            @Override
-            public IoSession newSession(SocketAddress remoteAddress, SocketAddress localAddress) {
-                throw new UnsupportedOperationException();
-            }
-
-            @Override
-            public TransportMetadata getTransportMetadata() {
-                return TRANSPORT_METADATA;
-            }
-
-            @Override
-            protected IoFuture dispose0() throws Exception {
-                return null;
-            }
-
-            @Override
-            protected BindFuture bindAsyncInternal(SocketAddress localAddress) {
-                return null;
-            }
-
-            @Override
-            public UnbindFuture unbindAsyncInternal(SocketAddress localAddress) {
-                return null;
-            }
-        };
-
-        // Set meaningless default values.
-        acceptor.setHandler(new IoHandlerAdapter());
-
-        service = acceptor;
-
         this.processor = processor != null ? processor : new IoProcessorEx<AbstractIoSessionEx>() {
             @Override
             public void add(AbstractIoSessionEx session) {
@@ -285,8 +233,73 @@ public class DummySessionEx extends AbstractIoSessionEx {
         this.remoteAddress = remoteAddress;
     }
 
+    // the dummy service is only created when first asked for, as most dummy sessions never use it
+    private static IoServiceEx newDummyService() {
+        IoAcceptorEx acceptor = new AbstractIoAcceptorEx(
+                new AbstractIoSessionConfigEx() {
+                    @Override
+                    protected void doSetAll(IoSessionConfigEx config) {
+                        // Do nothing
+                    }
+                },
+                new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        // Do nothing
+                    }
+                }) {
+
+            @Override
+            protected Set<SocketAddress> bindInternal(List<? extends SocketAddress> localAddresses) throws Exception {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            protected void unbind0(List<? extends SocketAddress> localAddresses) throws Exception {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public IoSession newSession(SocketAddress remoteAddress, SocketAddress localAddress) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public TransportMetadata getTransportMetadata() {
+                return TRANSPORT_METADATA;
+            }
+
+            @Override
+            protected IoFuture dispose0() throws Exception {
+                return null;
+            }
+
+            @Override
+            protected BindFuture bindAsyncInternal(SocketAddress localAddress) {
+                return null;
+            }
+
+            @Override
+            public UnbindFuture unbindAsyncInternal(SocketAddress localAddress) {
+                return null;
+            }
+        };
+
+        // Set meaningless default values.
+        acceptor.setHandler(new IoHandlerAdapter());
+
+        return acceptor;
+    }
+
     @Override
     public IoServiceEx getService() {
+        IoServiceEx service = this.service;
+        if (service == null) {
+            service = newDummyService();
+            if (!SERVICE.compareAndSet(this, null, service)) {
+                service = this.service;
+            }
+        }
         return service;
     }
 
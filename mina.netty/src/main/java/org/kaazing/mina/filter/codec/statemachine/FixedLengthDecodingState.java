@@ -51,11 +51,12 @@ import org.kaazing.mina.core.buffer.IoBufferEx;
 /* Differences from class of same name in Mina 2.0.0-RC1 include:
  * 1. Constructor takes  mandatory allocator parameter
  * 2. That allocator is used instead of calling IoBuffer.allocate
+ * 3. init(int) re-initializes the decode length so that an instance can be reused
  */
 public abstract class FixedLengthDecodingState implements DecodingState {
 
     protected final IoBufferAllocatorEx<?> allocator;
-    private final int length;
+    private int length;
 
     private IoBufferEx buffer;
 
@@ -69,6 +70,22 @@ public abstract class FixedLengthDecodingState implements DecodingState {
         this.length = length;
     }
 
+    /**
+     * Re-initializes this state to read the specified number of bytes, so that a state machine
+     * can reuse a single instance instead of constructing one for every fixed length field.
+     *
+     * @param length the number of bytes to read.
+     * @return this state
+     * @throws IllegalStateException if a previous field has only been partially read.
+     */
+    public FixedLengthDecodingState init(int length) {
+        if (buffer != null) {
+            throw new IllegalStateException("Previous field not completely read");
+        }
+        this.length = length;
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
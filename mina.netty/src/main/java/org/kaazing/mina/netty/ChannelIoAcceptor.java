@@ -128,6 +128,13 @@ public abstract class ChannelIoAcceptor<C extends IoSessionConfigEx, F extends C
         return processor;
     }
 
+    /**
+     * @return the channel bound to the given local address, or null when the address is not bound
+     */
+    protected Channel getBoundChannel(SocketAddress localAddress) {
+        return boundChannels.get(localAddress);
+    }
+
     @Override
     protected Set<SocketAddress> bindInternal(
             List<? extends SocketAddress> localAddresses) throws Exception {
@@ -25,6 +25,7 @@ import org.jboss.netty.channel.ChannelConfig;
 
 import org.jboss.netty.channel.socket.nio.AbstractNioWorker;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.filterchain.IoEventBatchingExecutor;
 import org.kaazing.mina.core.service.IoProcessorEx;
 import org.kaazing.mina.core.session.AbstractIoSessionEx;
 import org.kaazing.mina.netty.ChannelIoBufferAllocator.ChannelIoBuffer;
@@ -120,17 +121,21 @@ public class ChannelIoSession<C extends ChannelConfig> extends AbstractIoSession
         closedReceived = true;
     }
 
-    public static final class WorkerExecutor implements Executor {
+    /**
+     * Executes commands and filter chain events on a NIO worker thread, handing them over in batches.
+     */
+    public static final class WorkerExecutor extends IoEventBatchingExecutor {
         public final AbstractNioWorker worker;
 
-        public WorkerExecutor(AbstractNioWorker worker) {
+        public WorkerExecutor(final AbstractNioWorker worker) {
+            super(new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    worker.executeInIoThread(command, /* alwaysAsync */ true);
+                }
+            }, worker::getTimer);
             this.worker = worker;
         }
-
-        @Override
-        public void execute(Runnable command) {
-            worker.executeInIoThread(command, /* alwaysAsync */ true);
-        }
     }
 
 }
@@ -57,34 +57,56 @@ public final class DefaultIoSessionIdleTracker implements IoSessionIdleTracker {
         timer.stop();
     }
 
+    // the idle task for each status is only created once an idle time is set for that status, and released
+    // again when the idle time is reset to zero, so most sessions hold no idle tasks at all
     private final class NotifyIdleChangeListener implements ChangeListener {
 
-        private final NotifyIdleTask notifyBothIdle;
-        private final NotifyIdleTask notifyReaderIdle;
-        private final NotifyIdleTask notifyWriterIdle;
+        private final IoSessionEx session;
+
+        private volatile NotifyIdleTask notifyBothIdle;
+        private volatile NotifyIdleTask notifyReaderIdle;
+        private volatile NotifyIdleTask notifyWriterIdle;
 
         NotifyIdleChangeListener(IoSessionEx session) {
-            notifyBothIdle = new NotifyBothIdleTask(session);
-            notifyReaderIdle = new NotifyReaderIdleTask(session);
-            notifyWriterIdle = new NotifyWriterIdleTask(session);
+            this.session = session;
         }
 
         @Override
         public void idleTimeInMillisChanged(IdleStatus status, long idleTimeMillis) {
 
             if (status == IdleStatus.BOTH_IDLE) {
-                notifyBothIdle.reschedule(idleTimeMillis, MILLISECONDS);
+                NotifyIdleTask notifyBothIdle = this.notifyBothIdle;
+                if (notifyBothIdle == null && idleTimeMillis != 0) {
+                    notifyBothIdle = new NotifyBothIdleTask(session);
+                }
+                this.notifyBothIdle = reschedule(notifyBothIdle, idleTimeMillis);
             }
             else if (status == IdleStatus.READER_IDLE) {
-                notifyReaderIdle.reschedule(idleTimeMillis, MILLISECONDS);
+                NotifyIdleTask notifyReaderIdle = this.notifyReaderIdle;
+                if (notifyReaderIdle == null && idleTimeMillis != 0) {
+                    notifyReaderIdle = new NotifyReaderIdleTask(session);
+                }
+                this.notifyReaderIdle = reschedule(notifyReaderIdle, idleTimeMillis);
             }
             else if (status == IdleStatus.WRITER_IDLE) {
-                notifyWriterIdle.reschedule(idleTimeMillis, MILLISECONDS);
+                NotifyIdleTask notifyWriterIdle = this.notifyWriterIdle;
+                if (notifyWriterIdle == null && idleTimeMillis != 0) {
+                    notifyWriterIdle = new NotifyWriterIdleTask(session);
+                }
+                this.notifyWriterIdle = reschedule(notifyWriterIdle, idleTimeMillis);
             }
             else {
                 throw new IllegalArgumentException("Unrecognized idle status: " + status);
             }
         }
+
+        private NotifyIdleTask reschedule(NotifyIdleTask task, long idleTimeMillis) {
+            if (task == null) {
+                return null;
+            }
+            task.reschedule(idleTimeMillis, MILLISECONDS);
+            return idleTimeMillis != 0 ? task : null;
+        }
     }
 
     // KG-9954: This class will be used to assign a noop timer in place of using null
@@ -20,15 +20,21 @@ import org.apache.mina.core.service.TransportMetadata;
 import org.apache.mina.transport.socket.DatagramSessionConfig;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelConfig;
+import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
 import org.jboss.netty.channel.socket.DatagramChannelFactory;
 import org.jboss.netty.channel.socket.nio.NioChildDatagramChannel;
+import org.jboss.netty.channel.socket.nio.NioDatagramChannel;
 import org.kaazing.mina.core.service.IoProcessorEx;
 import org.kaazing.mina.netty.ChannelIoSession;
 import org.kaazing.mina.netty.socket.DatagramChannelIoAcceptor;
 import org.kaazing.mina.netty.socket.DatagramChannelIoSessionConfig;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+
+import static java.lang.String.format;
 
 public class NioDatagramChannelIoAcceptor extends DatagramChannelIoAcceptor {
 
@@ -45,6 +51,27 @@ public class NioDatagramChannelIoAcceptor extends DatagramChannelIoAcceptor {
         return NIO_DATAGRAM_TRANSPORT_METADATA;
     }
 
+    /**
+     * Joins the multicast group of a bound local address, so that the datagrams sent to the group are received
+     * by the bound channel, on the same boss and worker selectors as unicast datagrams.  The group is left again
+     * when the address is unbound.
+     *
+     * @param localAddress  the bound address, whose address is a multicast group
+     * @param device  the network interface on which to join the group
+     */
+    public void joinGroup(InetSocketAddress localAddress, NetworkInterface device) throws IOException {
+        Channel channel = getBoundChannel(localAddress);
+        if (channel == null) {
+            throw new IllegalStateException("Address not bound: " + localAddress);
+        }
+
+        ChannelFuture joined = ((NioDatagramChannel) channel).joinGroup(localAddress, device);
+        if (!joined.isSuccess()) {
+            throw new IOException(format("Unable to join multicast group %s on %s", localAddress, device),
+                    joined.getCause());
+        }
+    }
+
     @Override
     protected ChannelIoSession<? extends ChannelConfig> createSession(Channel channel,
             IoProcessorEx<ChannelIoSession<? extends ChannelConfig>> processor) {
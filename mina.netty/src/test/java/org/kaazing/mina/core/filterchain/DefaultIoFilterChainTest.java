@@ -0,0 +1,123 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.mina.core.filterchain;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.mina.core.filterchain.IoFilterAdapter;
+import org.apache.mina.core.filterchain.IoFilterChain;
+import org.apache.mina.core.filterchain.IoFilterChain.Entry;
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.IoSession;
+import org.junit.Test;
+import org.kaazing.mina.core.session.DummySessionEx;
+
+public class DefaultIoFilterChainTest {
+
+    @Test
+    public void shouldFindEntriesByName() {
+        DummySessionEx session = new DummySessionEx();
+        IoFilterChain filterChain = session.getFilterChain();
+        RecordingFilter first = new RecordingFilter("first", new ArrayList<String>());
+        RecordingFilter second = new RecordingFilter("second", new ArrayList<String>());
+        filterChain.addLast("first", first);
+        filterChain.addLast("second", second);
+
+        assertTrue(filterChain.contains("first"));
+        assertSame(second, filterChain.get("second"));
+        assertSame(filterChain.getEntry("second"), filterChain.getEntry(second));
+        assertNull(filterChain.getEntry("head"));
+        assertNull(filterChain.getEntry("tail"));
+
+        filterChain.remove("first");
+        assertFalse(filterChain.contains("first"));
+        assertEquals(1, filterChain.getAll().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectDuplicateName() {
+        DummySessionEx session = new DummySessionEx();
+        IoFilterChain filterChain = session.getFilterChain();
+        filterChain.addLast("filter", new IoFilterAdapter());
+        filterChain.addFirst("filter", new IoFilterAdapter());
+    }
+
+    @Test
+    public void shouldDispatchThroughEntriesInOrder() {
+        final List<String> events = new ArrayList<>();
+        DummySessionEx session = new DummySessionEx();
+        session.setHandler(new IoHandlerAdapter() {
+            @Override
+            public void messageReceived(IoSession session, Object message) throws Exception {
+                events.add("handler");
+            }
+        });
+        IoFilterChain filterChain = session.getFilterChain();
+        filterChain.addLast("second", new RecordingFilter("second", events));
+        filterChain.addFirst("first", new RecordingFilter("first", events));
+        filterChain.addAfter("second", "third", new RecordingFilter("third", events));
+
+        filterChain.fireMessageReceived(new Object());
+        assertEquals(asList("first", "second", "third", "handler"), events);
+
+        Entry second = filterChain.getEntry("second");
+        events.clear();
+        second.getNextFilter().messageReceived(session, new Object());
+        assertEquals(asList("third", "handler"), events);
+
+        filterChain.remove("third");
+        events.clear();
+        second.getNextFilter().messageReceived(session, new Object());
+        assertEquals(asList("handler"), events);
+    }
+
+    @Test
+    public void shouldBePassThroughOnlyWithoutFilters() {
+        DummySessionEx session = new DummySessionEx();
+        DefaultIoFilterChain filterChain = (DefaultIoFilterChain) session.getFilterChain();
+        assertTrue(filterChain.isPassThrough());
+
+        filterChain.addLast("filter", new IoFilterAdapter());
+        assertFalse(filterChain.isPassThrough());
+
+        filterChain.remove("filter");
+        assertTrue(filterChain.isPassThrough());
+    }
+
+    private static final class RecordingFilter extends IoFilterAdapter {
+        private final String name;
+        private final List<String> events;
+
+        RecordingFilter(String name, List<String> events) {
+            this.name = name;
+            this.events = events;
+        }
+
+        @Override
+        public void messageReceived(NextFilter nextFilter, IoSession session, Object message) throws Exception {
+            events.add(name);
+            super.messageReceived(nextFilter, session, message);
+        }
+    }
+}
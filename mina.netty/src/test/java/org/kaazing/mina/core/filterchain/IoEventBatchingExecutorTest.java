@@ -0,0 +1,236 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.mina.core.filterchain;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.mina.core.filterchain.IoFilterAdapter;
+import org.apache.mina.core.session.IoSession;
+import org.jboss.netty.util.HashedWheelTimer;
+import org.jboss.netty.util.Timer;
+import org.junit.Test;
+import org.kaazing.mina.core.session.DummySessionEx;
+
+public class IoEventBatchingExecutorTest {
+
+    @Test
+    public void shouldHandOverQueuedCommandsInOneBatch() {
+        final List<Runnable> tasks = new ArrayList<>();
+        IoEventBatchingExecutor executor = new IoEventBatchingExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+
+        final List<Integer> executed = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final int index = i;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    executed.add(index);
+                }
+            });
+        }
+
+        assertEquals(1, tasks.size());
+        assertEquals(5, executor.getQueueDepth());
+        assertEquals(1, executor.getBatchCount());
+
+        tasks.remove(0).run();
+
+        assertEquals(asList(0, 1, 2, 3, 4), executed);
+        assertEquals(0, executor.getQueueDepth());
+        assertEquals(5, executor.getEventCount());
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("expected");
+            }
+        });
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                executed.add(5);
+            }
+        });
+
+        assertEquals(1, tasks.size());
+        assertEquals(2, executor.getBatchCount());
+
+        // failing event does not prevent the rest of the batch
+        tasks.remove(0).run();
+        assertEquals(asList(0, 1, 2, 3, 4, 5), executed);
+    }
+
+    @Test
+    public void shouldPreserveOrderPerProducer() throws Exception {
+        final int producers = 4;
+        final int events = 20000;
+        ExecutorService worker = Executors.newSingleThreadExecutor();
+        try {
+            final IoEventBatchingExecutor executor = new IoEventBatchingExecutor(worker, 16);
+            final int[] lastSeen = new int[producers];
+            final int[] outOfOrder = new int[1];
+            final CountDownLatch done = new CountDownLatch(producers * events);
+
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                final int producer = p;
+                Thread thread = new Thread() {
+                    @Override
+                    public void run() {
+                        for (int i = 1; i <= events; i++) {
+                            final int sequence = i;
+                            executor.execute(new Runnable() {
+                                @Override
+                                public void run() {
+                                    if (lastSeen[producer] + 1 != sequence) {
+                                        outOfOrder[0]++;
+                                    }
+                                    lastSeen[producer] = sequence;
+                                    done.countDown();
+                                }
+                            });
+                        }
+                    }
+                };
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertTrue(done.await(10, SECONDS));
+            // wait for the last drain to complete
+            worker.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }).get();
+            assertEquals(0, outOfOrder[0]);
+            assertEquals(producers * events, executor.getEventCount());
+            assertTrue(executor.getBatchCount() <= executor.getEventCount());
+            assertEquals(0, executor.getQueueDepth());
+        }
+        finally {
+            worker.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldDispatchFilterChainEventsOnIoThread() throws Exception {
+        ExecutorService worker = Executors.newSingleThreadExecutor();
+        try {
+            final IoEventBatchingExecutor executor = new IoEventBatchingExecutor(worker);
+
+            final List<Object> received = new ArrayList<>();
+            final List<Thread> threads = new ArrayList<>();
+            final CountDownLatch done = new CountDownLatch(3);
+            // sessions are created and their filter chains built on the I/O thread
+            final DummySessionEx session = worker.submit(new Callable<DummySessionEx>() {
+                @Override
+                public DummySessionEx call() {
+                    DummySessionEx created = new DummySessionEx(Thread.currentThread(), executor);
+                    created.getFilterChain().addLast("recorder", new IoFilterAdapter() {
+                        @Override
+                        public void messageReceived(NextFilter nextFilter, IoSession session, Object message) {
+                            received.add(message);
+                            threads.add(Thread.currentThread());
+                            done.countDown();
+                        }
+                    });
+                    return created;
+                }
+            }).get();
+
+            session.getFilterChain().fireMessageReceived("one");
+            session.getFilterChain().fireMessageReceived("two");
+            session.getFilterChain().fireMessageReceived("three");
+
+            assertTrue(done.await(10, SECONDS));
+            Thread ioThread = session.getIoThread();
+            assertEquals(asList("one", "two", "three"), received);
+            for (Thread thread : threads) {
+                assertSame(ioThread, thread);
+            }
+            assertTrue(executor.getEventCount() >= 3);
+        }
+        finally {
+            worker.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldRunScheduledCommandOnTargetExecutor() throws Exception {
+        ExecutorService worker = Executors.newSingleThreadExecutor();
+        final Timer timer = new HashedWheelTimer(10, MILLISECONDS);
+        try {
+            final IoEventBatchingExecutor executor = new IoEventBatchingExecutor(worker, () -> timer);
+            final Thread ioThread = worker.submit(new Callable<Thread>() {
+                @Override
+                public Thread call() {
+                    return Thread.currentThread();
+                }
+            }).get();
+
+            final List<Thread> threads = new ArrayList<>();
+            final CountDownLatch done = new CountDownLatch(1);
+            Runnable command = new Runnable() {
+                @Override
+                public void run() {
+                    threads.add(Thread.currentThread());
+                    done.countDown();
+                }
+            };
+
+            executor.schedule(command, 5, MILLISECONDS);
+            executor.schedule(command, 10, SECONDS).cancel();
+
+            assertTrue(done.await(10, SECONDS));
+            assertEquals(asList(ioThread), threads);
+            assertEquals(1, executor.getEventCount());
+        }
+        finally {
+            timer.stop();
+            worker.shutdownNow();
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotScheduleWithoutTimer() throws Exception {
+        IoEventBatchingExecutor executor = new IoEventBatchingExecutor(Runnable::run);
+        assertFalse(executor.canSchedule());
+        executor.schedule(() -> { }, 5, MILLISECONDS);
+    }
+}
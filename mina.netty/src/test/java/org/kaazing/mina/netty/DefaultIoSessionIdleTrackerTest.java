@@ -0,0 +1,99 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.mina.netty;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.IdleStatus;
+import org.apache.mina.core.session.IoSession;
+import org.junit.After;
+import org.junit.Test;
+import org.kaazing.mina.core.session.DummySessionEx;
+import org.kaazing.test.util.ObjectFootprint;
+
+public class DefaultIoSessionIdleTrackerTest {
+
+    private final DefaultIoSessionIdleTracker tracker = new DefaultIoSessionIdleTracker();
+
+    @After
+    public void dispose() {
+        tracker.dispose();
+    }
+
+    @Test
+    public void shouldOnlyAddChangeListenerUntilIdleTimeIsSet() throws Exception {
+        long untracked = ObjectFootprint.perInstance(new Callable<Object>() {
+            @Override
+            public Object call() {
+                return new DummySessionEx();
+            }
+        }, 10).totalCount();
+
+        long tracked = ObjectFootprint.perInstance(new Callable<Object>() {
+            @Override
+            public Object call() {
+                DummySessionEx session = new DummySessionEx();
+                tracker.addSession(session);
+                return session;
+            }
+        }, 10).totalCount();
+
+        assertEquals(untracked + 1, tracked);
+    }
+
+    @Test
+    public void shouldFireSessionIdle() throws Exception {
+        final CountDownLatch idle = new CountDownLatch(1);
+        DummySessionEx session = new DummySessionEx();
+        session.setHandler(new IoHandlerAdapter() {
+            @Override
+            public void sessionIdle(IoSession session, IdleStatus status) throws Exception {
+                if (status == IdleStatus.WRITER_IDLE) {
+                    idle.countDown();
+                }
+            }
+        });
+        tracker.addSession(session);
+        session.getConfig().setIdleTimeInMillis(IdleStatus.WRITER_IDLE, 200L);
+
+        assertTrue(idle.await(5, SECONDS));
+    }
+
+    @Test
+    public void shouldNotFireSessionIdleAfterIdleTimeIsReset() throws Exception {
+        final AtomicInteger idle = new AtomicInteger();
+        DummySessionEx session = new DummySessionEx();
+        session.setHandler(new IoHandlerAdapter() {
+            @Override
+            public void sessionIdle(IoSession session, IdleStatus status) throws Exception {
+                idle.incrementAndGet();
+            }
+        });
+        tracker.addSession(session);
+        session.getConfig().setIdleTimeInMillis(IdleStatus.READER_IDLE, 200L);
+        session.getConfig().setIdleTimeInMillis(IdleStatus.READER_IDLE, 0L);
+
+        Thread.sleep(500L);
+        assertEquals(0, idle.get());
+    }
+}
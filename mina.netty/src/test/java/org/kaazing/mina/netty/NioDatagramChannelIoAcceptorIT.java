@@ -17,14 +17,24 @@ package org.kaazing.mina.netty;
 
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.kaazing.mina.netty.PortUtil.nextPort;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
 import java.net.SocketAddress;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -114,4 +124,53 @@ public class NioDatagramChannelIoAcceptorIT {
         assertEquals("no handler exceptions", 0, exceptionsCaught.get());
     }
 
+    @Test
+    public void shouldReceiveMulticastDatagrams() throws Exception {
+        final int datagrams = 100;
+        final CountDownLatch received = new CountDownLatch(datagrams);
+        final List<byte[]> payloads = new CopyOnWriteArrayList<>();
+        final Set<IoSession> sessions = new CopyOnWriteArraySet<>();
+        acceptor.setHandler(new IoHandlerAdapter() {
+            @Override
+            public void messageReceived(IoSession session, Object message) throws Exception {
+                IoBuffer buf = (IoBuffer) message;
+                byte[] payload = new byte[buf.remaining()];
+                buf.get(payload);
+                payloads.add(payload);
+                sessions.add(session);
+                received.countDown();
+            }
+        });
+
+        // multicast over the loopback interface is not available on every host
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        NetworkInterface device = NetworkInterface.getByInetAddress(loopback);
+        assumeTrue(device != null && device.supportsMulticast());
+        InetSocketAddress groupAddress = new InetSocketAddress(InetAddress.getByName("239.255.0.1"), nextPort(8100, 100));
+        acceptor.bind(groupAddress);
+        ((NioDatagramChannelIoAcceptor) acceptor).joinGroup(groupAddress, device);
+
+        try (MulticastSocket sender = new MulticastSocket()) {
+            sender.setNetworkInterface(device);
+            for (int i = 0; i < datagrams; i++) {
+                // sizes up to about 1300 bytes, beyond the receive buffer size predicted for datagrams
+                byte[] sendPayload = new byte[1 + i * 13];
+                Arrays.fill(sendPayload, (byte) i);
+                sender.send(new DatagramPacket(sendPayload, sendPayload.length, groupAddress));
+                if (i % 10 == 9) {
+                    // pace the sender so the datagrams are not dropped by the kernel
+                    Thread.sleep(1);
+                }
+            }
+        }
+
+        assertTrue("datagrams received", received.await(5, TimeUnit.SECONDS));
+        assertEquals("one session for the sender", 1, sessions.size());
+        for (int i = 0; i < datagrams; i++) {
+            byte[] expected = new byte[1 + i * 13];
+            Arrays.fill(expected, (byte) i);
+            assertArrayEquals(expected, payloads.get(i));
+        }
+    }
+
 }
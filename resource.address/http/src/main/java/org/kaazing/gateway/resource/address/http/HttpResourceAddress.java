@@ -42,6 +42,8 @@ public final class HttpResourceAddress extends ResourceAddress {
     public static final ResourceOption<Integer> MAXIMUM_REDIRECTS = new HttpMaxRedirectOption();
     public static final ResourceOption<Integer> KEEP_ALIVE_TIMEOUT = new HttpKeepAliveTimeoutOption();
     public static final ResourceOption<Integer> KEEP_ALIVE_CONNECTIONS = new HttpKeepAliveConnectionsOption();
+    public static final ResourceOption<Long> FLUSH_DELAY = new HttpFlushDelayOption();
+    public static final ResourceOption<Integer> FLUSH_SIZE = new HttpFlushSizeOption();
 
     public static final ResourceOption<String[]> REQUIRED_ROLES = new HttpRequiredRolesOption();
     public static final ResourceOption<Set<HttpInjectableHeader>> INJECTABLE_HEADERS = new HttpInjectableHeadersOption();
@@ -72,6 +74,8 @@ public final class HttpResourceAddress extends ResourceAddress {
     private Integer httpMaxRedirects = MAXIMUM_REDIRECTS.defaultValue();
     private Integer keepAliveTimeout = KEEP_ALIVE_TIMEOUT.defaultValue();
     private Integer keepAliveMaxConnections = KEEP_ALIVE_CONNECTIONS.defaultValue();
+    private Long flushDelay = FLUSH_DELAY.defaultValue();
+    private Integer flushSize = FLUSH_SIZE.defaultValue();
     private String[] requiredRoles = REQUIRED_ROLES.defaultValue();
     private Set<HttpInjectableHeader> injectableHeaders = INJECTABLE_HEADERS.defaultValue();
     private HttpOriginSecurity originSecurity;
@@ -109,6 +113,10 @@ public final class HttpResourceAddress extends ResourceAddress {
                     return (V) keepAliveTimeout;
                 case KEEP_ALIVE_CONNECTIONS:
                     return (V) keepAliveMaxConnections;
+                case FLUSH_DELAY:
+                    return (V) flushDelay;
+                case FLUSH_SIZE:
+                    return (V) flushSize;
                 case REQUIRED_ROLES:
                     return (V) requiredRoles;
                 case INJECTABLE_HEADERS:
@@ -167,6 +175,12 @@ public final class HttpResourceAddress extends ResourceAddress {
                 case KEEP_ALIVE_CONNECTIONS:
                     keepAliveMaxConnections = (Integer) value;
                     return;
+                case FLUSH_DELAY:
+                    flushDelay = (Long) value;
+                    return;
+                case FLUSH_SIZE:
+                    flushSize = (Integer) value;
+                    return;
                 case REQUIRED_ROLES:
                     requiredRoles = (String[]) value;
                     return;
@@ -240,6 +254,8 @@ public final class HttpResourceAddress extends ResourceAddress {
             KEEP_ALIVE,
             KEEP_ALIVE_TIMEOUT,
             KEEP_ALIVE_CONNECTIONS,
+            FLUSH_DELAY,
+            FLUSH_SIZE,
             REQUIRED_ROLES,
             INJECTABLE_HEADERS,
             ORIGIN_SECURITY,
@@ -287,6 +303,18 @@ public final class HttpResourceAddress extends ResourceAddress {
         }
     }
 
+    private static final class HttpFlushDelayOption extends HttpResourceOption<Long> {
+        private HttpFlushDelayOption() {
+            super(Kind.FLUSH_DELAY, "flushDelay", 0L);
+        }
+    }
+
+    private static final class HttpFlushSizeOption extends HttpResourceOption<Integer> {
+        private HttpFlushSizeOption() {
+            super(Kind.FLUSH_SIZE, "flushSize", 0);
+        }
+    }
+
     private static final class HttpMaxRedirectOption extends HttpResourceOption<Integer> {
         private HttpMaxRedirectOption() {
             super(Kind.MAX_REDIRECTS, "maximum.redirects", 0);
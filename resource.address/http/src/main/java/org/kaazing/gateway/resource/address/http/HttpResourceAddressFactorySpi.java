@@ -23,6 +23,8 @@ import static org.kaazing.gateway.resource.address.http.HttpResourceAddress.AUTH
 import static org.kaazing.gateway.resource.address.http.HttpResourceAddress.AUTHENTICATION_IDENTIFIER;
 import static org.kaazing.gateway.resource.address.http.HttpResourceAddress.BALANCE_ORIGINS;
 import static org.kaazing.gateway.resource.address.http.HttpResourceAddress.ENCRYPTION_KEY_ALIAS;
+import static org.kaazing.gateway.resource.address.http.HttpResourceAddress.FLUSH_DELAY;
+import static org.kaazing.gateway.resource.address.http.HttpResourceAddress.FLUSH_SIZE;
 import static org.kaazing.gateway.resource.address.http.HttpResourceAddress.GATEWAY_ORIGIN_SECURITY;
 import static org.kaazing.gateway.resource.address.http.HttpResourceAddress.INJECTABLE_HEADERS;
 import static org.kaazing.gateway.resource.address.http.HttpResourceAddress.KEEP_ALIVE;
@@ -138,6 +140,16 @@ public class HttpResourceAddressFactorySpi extends ResourceAddressFactorySpi<Htt
         if (keepAliveConnections != null) {
             options.setOption(KEEP_ALIVE_CONNECTIONS, keepAliveConnections);
         }
+
+        Long flushDelay = (Long) optionsByName.remove(FLUSH_DELAY.name());
+        if (flushDelay != null) {
+            options.setOption(FLUSH_DELAY, flushDelay);
+        }
+
+        Integer flushSize = (Integer) optionsByName.remove(FLUSH_SIZE.name());
+        if (flushSize != null) {
+            options.setOption(FLUSH_SIZE, flushSize);
+        }
         
         String[] requiredRoles = (String[]) optionsByName.remove(REQUIRED_ROLES.name());
         if (requiredRoles != null) {
@@ -313,6 +325,8 @@ public class HttpResourceAddressFactorySpi extends ResourceAddressFactorySpi<Htt
         address.setOption0(MAXIMUM_REDIRECTS,options.getOption(MAXIMUM_REDIRECTS));
         address.setOption0(KEEP_ALIVE_TIMEOUT, options.getOption(KEEP_ALIVE_TIMEOUT));
         address.setOption0(KEEP_ALIVE_CONNECTIONS, options.getOption(KEEP_ALIVE_CONNECTIONS));
+        address.setOption0(FLUSH_DELAY, options.getOption(FLUSH_DELAY));
+        address.setOption0(FLUSH_SIZE, options.getOption(FLUSH_SIZE));
         address.setOption0(REQUIRED_ROLES, options.getOption(REQUIRED_ROLES));
         address.setOption0(INJECTABLE_HEADERS, options.getOption(INJECTABLE_HEADERS));
         address.setOption0(ORIGIN_SECURITY, options.getOption(ORIGIN_SECURITY));
@@ -0,0 +1,185 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.resource.address;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of resolved resource addresses, for callers creating addresses for the same location and options
+ * over and over again, e.g. services connecting to their backends. Resolving an address parses the location, walks
+ * the whole transport chain (ws, http, ssl, tcp...) and looks up host names, so reusing the result saves all of it.
+ * <p/>
+ * Entries are keyed by location and by an options key standing for the effective options, typically the object the
+ * options map is derived from. Entries older than the maximum age are resolved again so that host name changes are
+ * eventually seen.
+ * <p/>
+ * Lookups do not lock, entries are kept in a concurrent map and only record when they were last used. Above the maximum
+ * size, the least recently used of a sample of entries is evicted, which approximates evicting the least recently used
+ * entry of the whole cache.
+ */
+public final class ResourceAddressCache {
+
+    private static final int EVICTION_SAMPLE_SIZE = 16;
+
+    private final ResourceAddressFactory addressFactory;
+    private final int maximumSize;
+    private final long maximumAgeNanos;
+    private final ConcurrentMap<Key, Entry> entries;
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+
+    /**
+     * @param maximumSize  number of addresses kept, 0 disables caching
+     * @param maximumAgeMillis  age above which an address is resolved again, 0 for no limit
+     */
+    public ResourceAddressCache(ResourceAddressFactory addressFactory, int maximumSize, long maximumAgeMillis) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize must not be negative: " + maximumSize);
+        }
+        if (maximumAgeMillis < 0) {
+            throw new IllegalArgumentException("maximumAgeMillis must not be negative: " + maximumAgeMillis);
+        }
+        this.addressFactory = addressFactory;
+        this.maximumSize = maximumSize;
+        this.maximumAgeNanos = MILLISECONDS.toNanos(maximumAgeMillis);
+        this.entries = new ConcurrentHashMap<>();
+        this.hitCount = new AtomicLong();
+        this.missCount = new AtomicLong();
+    }
+
+    /**
+     * Returns the address for the location and options, resolving it only when not already cached.
+     *
+     * @param optionsKey  stands for the effective options when comparing cache entries, must implement equals
+     *                    and hashCode consistently with the options supplied (identity is fine for a fixed source)
+     * @param options  supplies the options map, only called when the address needs to be resolved
+     */
+    public ResourceAddress newResourceAddress(String location, Object optionsKey, Supplier<Map<String, Object>> options) {
+        if (maximumSize == 0) {
+            missCount.incrementAndGet();
+            return addressFactory.newResourceAddress(location, options.get());
+        }
+
+        Key key = new Key(location, optionsKey);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            long now = nanoTime();
+            if (!entry.isExpired(now)) {
+                entry.lastUsedNanos = now;
+                hitCount.incrementAndGet();
+                return entry.address;
+            }
+        }
+
+        // concurrent misses for the same key simply resolve the address twice
+        missCount.incrementAndGet();
+        ResourceAddress address = addressFactory.newResourceAddress(location, options.get());
+        entries.put(key, new Entry(address, nanoTime()));
+        while (entries.size() > maximumSize) {
+            evictOne();
+        }
+        return address;
+    }
+
+    /**
+     * Drops all cached addresses.
+     */
+    public void invalidate() {
+        entries.clear();
+    }
+
+    /**
+     * Drops the cached addresses of a location, whatever their options.
+     */
+    public void invalidate(String location) {
+        entries.keySet().removeIf(key -> key.location.equals(location));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private void evictOne() {
+        Map.Entry<Key, Entry> eldest = null;
+        Iterator<Map.Entry<Key, Entry>> sample = entries.entrySet().iterator();
+        for (int sampled = 0; sampled < EVICTION_SAMPLE_SIZE && sample.hasNext(); sampled++) {
+            Map.Entry<Key, Entry> candidate = sample.next();
+            if (eldest == null || candidate.getValue().lastUsedNanos - eldest.getValue().lastUsedNanos < 0) {
+                eldest = candidate;
+            }
+        }
+        if (eldest != null) {
+            entries.remove(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private final class Entry {
+        private final ResourceAddress address;
+        private final long createdNanos;
+        private volatile long lastUsedNanos;
+
+        Entry(ResourceAddress address, long createdNanos) {
+            this.address = address;
+            this.createdNanos = createdNanos;
+            this.lastUsedNanos = createdNanos;
+        }
+
+        boolean isExpired(long nowNanos) {
+            return maximumAgeNanos != 0 && nowNanos - createdNanos > maximumAgeNanos;
+        }
+    }
+
+    private static final class Key {
+        private final String location;
+        private final Object optionsKey;
+
+        Key(String location, Object optionsKey) {
+            this.location = location;
+            this.optionsKey = optionsKey;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * location.hashCode() + Objects.hashCode(optionsKey);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) obj;
+            return this.location.equals(that.location) && Objects.equals(this.optionsKey, that.optionsKey);
+        }
+    }
+}
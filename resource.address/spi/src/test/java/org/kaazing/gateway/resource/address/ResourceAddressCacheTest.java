@@ -0,0 +1,138 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.resource.address;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.resource.address.ResourceAddressFactory.newResourceAddressFactory;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResourceAddressCacheTest {
+
+    private ResourceAddressFactory addressFactory;
+    private Object optionsKey;
+    private Supplier<Map<String, Object>> options;
+
+    @Before
+    public void setup() throws Exception {
+        addressFactory = newResourceAddressFactory();
+        optionsKey = new Object();
+        options = HashMap::new;
+    }
+
+    @Test
+    public void shouldReuseResolvedAddress() {
+        ResourceAddressCache cache = new ResourceAddressCache(addressFactory, 16, 0);
+        ResourceAddress address = cache.newResourceAddress("test://opaque", optionsKey, options);
+        assertEquals(URI.create("test://opaque"), address.getResource());
+
+        assertSame(address, cache.newResourceAddress("test://opaque", optionsKey, options));
+        assertNotSame(address, cache.newResourceAddress("test://opaque", new Object(), options));
+        assertNotSame(address, cache.newResourceAddress("test://other", optionsKey, options));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedAddress() {
+        ResourceAddressCache cache = new ResourceAddressCache(addressFactory, 2, 0);
+        ResourceAddress first = cache.newResourceAddress("test://first", optionsKey, options);
+        cache.newResourceAddress("test://second", optionsKey, options);
+        cache.newResourceAddress("test://first", optionsKey, options);
+        cache.newResourceAddress("test://third", optionsKey, options);
+
+        assertEquals(2, cache.size());
+        assertSame(first, cache.newResourceAddress("test://first", optionsKey, options));
+        cache.newResourceAddress("test://second", optionsKey, options);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    public void shouldResolveAgainAfterInvalidation() {
+        ResourceAddressCache cache = new ResourceAddressCache(addressFactory, 16, 0);
+        ResourceAddress address = cache.newResourceAddress("test://opaque", optionsKey, options);
+        cache.newResourceAddress("test://other", optionsKey, options);
+
+        cache.invalidate("test://opaque");
+        assertEquals(1, cache.size());
+        assertNotSame(address, cache.newResourceAddress("test://opaque", optionsKey, options));
+
+        cache.invalidate();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void shouldResolveAgainAfterMaximumAge() throws Exception {
+        ResourceAddressCache cache = new ResourceAddressCache(addressFactory, 16, 1);
+        ResourceAddress address = cache.newResourceAddress("test://opaque", optionsKey, options);
+        Thread.sleep(5);
+        assertNotSame(address, cache.newResourceAddress("test://opaque", optionsKey, options));
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void shouldNotCacheWhenDisabled() {
+        ResourceAddressCache cache = new ResourceAddressCache(addressFactory, 0, 0);
+        ResourceAddress address = cache.newResourceAddress("test://opaque", optionsKey, options);
+        assertNotSame(address, cache.newResourceAddress("test://opaque", optionsKey, options));
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void shouldStayBoundedUnderConcurrentLookups() throws Exception {
+        ResourceAddressCache cache = new ResourceAddressCache(addressFactory, 8, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?>[] lookups = new Future<?>[4];
+            for (int i = 0; i < lookups.length; i++) {
+                lookups[i] = executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < 1000; j++) {
+                        String location = "test://opaque" + (j % 16);
+                        ResourceAddress address = cache.newResourceAddress(location, optionsKey, options);
+                        assertEquals(URI.create(location), address.getResource());
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> lookup : lookups) {
+                lookup.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(cache.size() <= 8);
+        assertEquals(4000, cache.getHitCount() + cache.getMissCount());
+    }
+}
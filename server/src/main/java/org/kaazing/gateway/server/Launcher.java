@@ -15,9 +15,16 @@
  */
 package org.kaazing.gateway.server;
 
+import static org.kaazing.gateway.util.InternalSystemProperty.SERVICE_STARTUP_THREADS;
+
 import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.kaazing.gateway.resource.address.uri.URIUtils;
 import org.kaazing.gateway.server.context.GatewayContext;
@@ -46,9 +53,21 @@ public class Launcher {
     }
 
     public void init(GatewayContext context) throws Exception {
+        init(context, null);
+    }
+
+    /**
+     * Initializes and starts the gateway.
+     *
+     * @param context            the gateway context
+     * @param startPrecondition  completes when services may start accepting traffic, or null. Tasks such as checking
+     *                           the class path can run in the background while the cluster is joined and services are
+     *                           initialized, failing startup before any service binds.
+     */
+    public void init(GatewayContext context, Future<?> startPrecondition) throws Exception {
         gatewayListener.startingGateway(context);
         try {
-            initInternal(context);
+            initInternal(context, startPrecondition);
         } catch (Exception e) {
             // shut down gateway if there was an error during init
             destroy();
@@ -56,30 +75,79 @@ public class Launcher {
         }
     }
 
-    private void initInternal(GatewayContext context) throws Exception {
+    private void initInternal(GatewayContext context, Future<?> startPrecondition) throws Exception {
         this.context = context;
 
         long startAt = System.currentTimeMillis();
 
-        ClusterContext cluster = context.getCluster();
-        if (cluster != null) {
-            cluster.start();
-        }
+        final ClusterContext cluster = context.getCluster();
+        final AtomicLong clusterMillis = new AtomicLong();
+        long initMillis = 0;
+        long startMillis = 0;
+        long waitMillis = 0;
+
+        int startupThreads = getStartupThreads(context);
+        if (startupThreads > 1) {
+            // join the cluster on its own thread, only services using cluster collections wait for it
+            FutureTask<Void> clusterStarted = null;
+            if (cluster != null) {
+                clusterStarted = new FutureTask<>(() -> {
+                    long clusterStartAt = System.currentTimeMillis();
+                    cluster.start();
+                    clusterMillis.set(System.currentTimeMillis() - clusterStartAt);
+                    return null;
+                });
+                Thread clusterStarter = new Thread(clusterStarted, "cluster-start");
+                clusterStarter.setDaemon(true);
+                clusterStarter.start();
+            }
 
-        Set<String> mappedURIs = new TreeSet<>();
+            ServiceStartupScheduler scheduler = new ServiceStartupScheduler(gatewayListener, startupThreads, LOGGER);
+            try {
+                scheduler.startServices(context.getServices(), clusterStarted, startPrecondition);
+            } finally {
+                initMillis = scheduler.getInitMillis();
+                startMillis = scheduler.getStartMillis();
+                waitMillis = scheduler.getWaitMillis();
+            }
 
-        // Initialize all services (so we're in a known state), then start
-        // all services.
-        for (ServiceContext serviceContext : context.getServices()) {
-            gatewayListener.initingService(serviceContext);
-            serviceContext.init();
-            gatewayListener.initedService(serviceContext);
+            if (clusterStarted != null) {
+                ServiceStartupScheduler.get(clusterStarted);
+            }
+        } else {
+            if (cluster != null) {
+                long clusterStartAt = System.currentTimeMillis();
+                cluster.start();
+                clusterMillis.set(System.currentTimeMillis() - clusterStartAt);
+            }
+
+            // Initialize all services (so we're in a known state), then start
+            // all services.
+            long initAt = System.currentTimeMillis();
+            for (ServiceContext serviceContext : context.getServices()) {
+                gatewayListener.initingService(serviceContext);
+                serviceContext.init();
+                gatewayListener.initedService(serviceContext);
+            }
+            initMillis = System.currentTimeMillis() - initAt;
+
+            if (startPrecondition != null) {
+                long waitAt = System.currentTimeMillis();
+                ServiceStartupScheduler.get(startPrecondition);
+                waitMillis = System.currentTimeMillis() - waitAt;
+            }
+
+            long serviceStartAt = System.currentTimeMillis();
+            for (ServiceContext serviceContext : context.getServices()) {
+                gatewayListener.startingService(serviceContext);
+                serviceContext.start();
+                gatewayListener.startedService(serviceContext);
+            }
+            startMillis = System.currentTimeMillis() - serviceStartAt;
         }
 
+        Set<String> mappedURIs = new TreeSet<>();
         for (ServiceContext serviceContext : context.getServices()) {
-            gatewayListener.startingService(serviceContext);
-            serviceContext.start();
-            gatewayListener.startedService(serviceContext);
             AcceptOptionsContext ctx = serviceContext.getAcceptOptionsContext();
             Collection<String> serviceAccepts = serviceContext.getAccepts();
             for (String serviceAccept : serviceAccepts) {
@@ -103,6 +171,11 @@ public class Launcher {
             }
             LOGGER.info("Started services");
         }
+        // in parallel startup, service init and start are summed over services and overlap with each other
+        LOGGER.info(String.format("Startup phases: cluster %1$.3f secs, service init %2$.3f secs, "
+                + "service start %3$.3f secs, waiting %4$.3f secs (%5$d startup threads)",
+                clusterMillis.get() / 1000f, initMillis / 1000f, startMillis / 1000f, waitMillis / 1000f,
+                startupThreads));
         LOGGER.info("Started server successfully in " + String.format("%1$.3f secs", (startedAt - startAt) / 1000f)
                 + " at " + String.format("%1$tF %1$tT", startAt));
 
@@ -113,6 +186,18 @@ public class Launcher {
         }
     }
 
+    private static int getStartupThreads(GatewayContext context) {
+        Map<String, Object> injectables = context.getInjectables();
+        Object configuration = (injectables != null) ? injectables.get("configuration") : null;
+        if (configuration instanceof Properties) {
+            Integer startupThreads = SERVICE_STARTUP_THREADS.getIntProperty((Properties) configuration);
+            if (startupThreads != null) {
+                return startupThreads;
+            }
+        }
+        return 1;
+    }
+
     public void destroy() throws Exception {
         long stopAt = System.currentTimeMillis();
 
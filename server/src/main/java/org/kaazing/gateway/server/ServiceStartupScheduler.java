@@ -0,0 +1,352 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.server;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.kaazing.gateway.resource.address.uri.URIUtils;
+import org.kaazing.gateway.service.AcceptOptionsContext;
+import org.kaazing.gateway.service.ServiceContext;
+import org.kaazing.gateway.service.ServiceProperties;
+import org.slf4j.Logger;
+
+/**
+ * Initializes and starts services on several threads.
+ * <p>
+ * Services that depend on each other form a group that is initialized and started in config order on a single
+ * thread, while independent groups proceed in parallel. Services depend on each other when they accept on the
+ * same port (binds to a shared port are not safe to run concurrently) or when one balances to the accept URI of
+ * another. Management services are initialized first, because starting any other service registers it with them.
+ * <p>
+ * The cluster is joined in parallel, and only services using cluster collections wait for it. One doing so before the
+ * cluster is started would start a cluster member of its own with the default configuration. Balancers, balancees,
+ * management services and broadcast services relaying through the cluster are initialized once the cluster has been
+ * joined. Services with a realm are started once the cluster has been joined, as their login modules may share
+ * expiring state through the cluster. Other services do not wait for the cluster.
+ */
+final class ServiceStartupScheduler {
+
+    private static final String BALANCER_SERVICE_TYPE = "balancer";
+    private static final String BROADCAST_SERVICE_TYPE = "broadcast";
+    private static final String BROADCAST_CLUSTER_RELAY = "cluster.relay";
+    private static final String MANAGEMENT_SERVICE_TYPE_PREFIX = "management.";
+
+    private final GatewayObserverApi gatewayListener;
+    private final int threads;
+    private final Logger logger;
+    private final AtomicLong initNanos;
+    private final AtomicLong startNanos;
+    private final AtomicLong waitNanos;
+
+    ServiceStartupScheduler(GatewayObserverApi gatewayListener, int threads, Logger logger) {
+        this.gatewayListener = gatewayListener;
+        this.threads = threads;
+        this.logger = logger;
+        this.initNanos = new AtomicLong();
+        this.startNanos = new AtomicLong();
+        this.waitNanos = new AtomicLong();
+    }
+
+    /**
+     * Initializes and starts all services.
+     *
+     * @param services           the services, in config order
+     * @param clusterStarted     completes when the cluster has been joined, awaited only by services using cluster
+     *                           collections, or null
+     * @param startPrecondition  completes when services may start accepting traffic, or null
+     */
+    void startServices(Collection<? extends ServiceContext> services, Future<?> clusterStarted, Future<?> startPrecondition)
+            throws Exception {
+
+        // management services are initialized before any other service starts
+        List<ServiceContext> managementServices = new ArrayList<>();
+        for (ServiceContext serviceContext : services) {
+            if (isManagementService(serviceContext)) {
+                managementServices.add(serviceContext);
+            }
+        }
+        if (!managementServices.isEmpty()) {
+            await(clusterStarted);
+            for (ServiceContext serviceContext : managementServices) {
+                init(serviceContext);
+            }
+        }
+
+        List<List<ServiceContext>> groups = dependencyGroups(services);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, groups.size())),
+                new StartupThreadFactory());
+        try {
+            List<Future<?>> groupsStarted = new ArrayList<>(groups.size());
+            for (final List<ServiceContext> group : groups) {
+                groupsStarted.add(executor.submit(() -> {
+                    if (initUsesCluster(group)) {
+                        await(clusterStarted);
+                    }
+                    for (ServiceContext serviceContext : group) {
+                        if (!isManagementService(serviceContext)) {
+                            init(serviceContext);
+                        }
+                    }
+                    await(startPrecondition);
+                    if (startUsesCluster(group)) {
+                        await(clusterStarted);
+                    }
+                    for (ServiceContext serviceContext : group) {
+                        start(serviceContext);
+                    }
+                    return null;
+                }));
+            }
+
+            // wait for every group, even after a failure, so that no service is still starting on return
+            Exception failure = null;
+            for (Future<?> groupStarted : groupsStarted) {
+                try {
+                    get(groupStarted);
+                } catch (Exception e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * @return the time spent in service init, summed over all services
+     */
+    long getInitMillis() {
+        return NANOSECONDS.toMillis(initNanos.get());
+    }
+
+    /**
+     * @return the time spent in service start, summed over all services
+     */
+    long getStartMillis() {
+        return NANOSECONDS.toMillis(startNanos.get());
+    }
+
+    /**
+     * @return the time spent waiting for the cluster and the start precondition, summed over all threads
+     */
+    long getWaitMillis() {
+        return NANOSECONDS.toMillis(waitNanos.get());
+    }
+
+    /**
+     * Groups services that must be initialized and started one after the other, keeping config order.
+     */
+    static List<List<ServiceContext>> dependencyGroups(Collection<? extends ServiceContext> services) {
+        List<ServiceContext> ordered = new ArrayList<>(services);
+        int[] parents = new int[ordered.size()];
+        Map<String, Integer> owners = new HashMap<>();
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = i;
+            for (String key : dependencyKeys(ordered.get(i))) {
+                Integer owner = owners.putIfAbsent(key, i);
+                if (owner != null) {
+                    union(parents, owner, i);
+                }
+            }
+        }
+
+        Map<Integer, List<ServiceContext>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < parents.length; i++) {
+            groups.computeIfAbsent(find(parents, i), root -> new ArrayList<>()).add(ordered.get(i));
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static List<String> dependencyKeys(ServiceContext serviceContext) {
+        List<String> keys = new ArrayList<>();
+        Collection<String> accepts = serviceContext.getAccepts();
+        if (accepts != null) {
+            AcceptOptionsContext acceptOptions = serviceContext.getAcceptOptionsContext();
+            for (String accept : accepts) {
+                keys.add(portKey(accept));
+                String internalURI = (acceptOptions != null) ? acceptOptions.getInternalURI(accept) : null;
+                if (internalURI != null && !internalURI.equals(accept)) {
+                    keys.add(portKey(internalURI));
+                }
+                if (BALANCER_SERVICE_TYPE.equals(serviceContext.getServiceType())) {
+                    keys.add("balance " + accept);
+                }
+            }
+        }
+        Collection<String> balances = serviceContext.getBalances();
+        if (balances != null) {
+            for (String balance : balances) {
+                keys.add("balance " + balance);
+            }
+        }
+        return keys;
+    }
+
+    private static String portKey(String uri) {
+        int port = URIUtils.getPort(uri);
+        return (port != -1) ? "port " + port : "authority " + URIUtils.getAuthority(uri);
+    }
+
+    private static int find(int[] parents, int i) {
+        while (parents[i] != i) {
+            parents[i] = parents[parents[i]];
+            i = parents[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parents, int i, int j) {
+        int rootI = find(parents, i);
+        int rootJ = find(parents, j);
+        // keep the earliest service as the root so that groups are listed in config order
+        if (rootI < rootJ) {
+            parents[rootJ] = rootI;
+        } else if (rootJ < rootI) {
+            parents[rootI] = rootJ;
+        }
+    }
+
+    private static boolean isManagementService(ServiceContext serviceContext) {
+        String serviceType = serviceContext.getServiceType();
+        return serviceType != null && serviceType.startsWith(MANAGEMENT_SERVICE_TYPE_PREFIX);
+    }
+
+    /**
+     * @return whether initializing a service of the group reaches cluster collections
+     */
+    private static boolean initUsesCluster(List<ServiceContext> group) {
+        for (ServiceContext serviceContext : group) {
+            Collection<String> balances = serviceContext.getBalances();
+            if (BALANCER_SERVICE_TYPE.equals(serviceContext.getServiceType())
+                    || isManagementService(serviceContext)
+                    || (balances != null && !balances.isEmpty())
+                    || isBroadcastRelay(serviceContext)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return whether a started service of the group reaches cluster collections, when serving its first sessions
+     */
+    private static boolean startUsesCluster(List<ServiceContext> group) {
+        for (ServiceContext serviceContext : group) {
+            if (serviceContext.getServiceRealm() != null) {
+                return true;
+            }
+        }
+        return initUsesCluster(group);
+    }
+
+    private static boolean isBroadcastRelay(ServiceContext serviceContext) {
+        ServiceProperties properties = serviceContext.getProperties();
+        return BROADCAST_SERVICE_TYPE.equals(serviceContext.getServiceType())
+                && properties != null && Boolean.parseBoolean(properties.get(BROADCAST_CLUSTER_RELAY));
+    }
+
+    private void init(ServiceContext serviceContext) throws Exception {
+        synchronized (gatewayListener) {
+            gatewayListener.initingService(serviceContext);
+        }
+        long initAt = System.nanoTime();
+        serviceContext.init();
+        long initNanos = System.nanoTime() - initAt;
+        this.initNanos.addAndGet(initNanos);
+        synchronized (gatewayListener) {
+            gatewayListener.initedService(serviceContext);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(String.format("Initialized service %s in %.3f secs", serviceName(serviceContext),
+                    initNanos / 1e9));
+        }
+    }
+
+    private void start(ServiceContext serviceContext) throws Exception {
+        synchronized (gatewayListener) {
+            gatewayListener.startingService(serviceContext);
+        }
+        long startAt = System.nanoTime();
+        serviceContext.start();
+        long startNanos = System.nanoTime() - startAt;
+        this.startNanos.addAndGet(startNanos);
+        synchronized (gatewayListener) {
+            gatewayListener.startedService(serviceContext);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(String.format("Started service %s in %.3f secs", serviceName(serviceContext),
+                    startNanos / 1e9));
+        }
+    }
+
+    private void await(Future<?> future) throws Exception {
+        if (future != null) {
+            long waitAt = System.nanoTime();
+            try {
+                get(future);
+            } finally {
+                waitNanos.addAndGet(System.nanoTime() - waitAt);
+            }
+        }
+    }
+
+    static void get(Future<?> future) throws Exception {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static String serviceName(ServiceContext serviceContext) {
+        String serviceName = serviceContext.getServiceName();
+        return (serviceName != null) ? serviceName : serviceContext.getServiceType();
+    }
+
+    private static final class StartupThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "service-startup-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -15,6 +15,9 @@
  */
 package org.kaazing.gateway.server.collections;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.IAtomicLong;
 import com.hazelcast.core.IList;
@@ -24,15 +27,18 @@ import com.hazelcast.core.IQueue;
 import com.hazelcast.core.ITopic;
 
 import org.kaazing.gateway.service.collections.CollectionsFactory;
+import org.kaazing.gateway.service.collections.NearCache;
 import org.kaazing.gateway.util.AtomicCounter;
 
 public class ClusterCollectionsFactory implements CollectionsFactory {
 
 
     private HazelcastInstance cluster;
+    private final ConcurrentMap<String, NearCache<?, ?>> nearCaches;
 
     public ClusterCollectionsFactory(HazelcastInstance cluster) {
         this.cluster = cluster;
+        this.nearCaches = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -45,6 +51,12 @@ public class ClusterCollectionsFactory implements CollectionsFactory {
         return cluster.getMap(name);
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public <K, V> NearCache<K, V> getNearCache(String name) {
+        return (NearCache<K, V>) nearCaches.computeIfAbsent(name, s -> new NearCache<>(cluster.getMap(s)));
+    }
+
     @Override
     public <E> IQueue<E> getQueue(String name) {
         return cluster.getQueue(name);
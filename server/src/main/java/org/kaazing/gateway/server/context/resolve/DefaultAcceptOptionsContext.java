@@ -171,6 +171,17 @@ public class DefaultAcceptOptionsContext extends DefaultOptionsContext implement
             		httpKeepaliveTimeoutStr, wsInactivityTimeoutStr);
         }
 
+        // coalescing of streaming responses, e.g. WebSocket emulation and Server-Sent Events downstreams
+        Long httpFlushDelay = getHttpFlushDelay(optionsCopy.remove("http.flush.delay"));
+        if (httpFlushDelay != null) {
+            result.put("http[http/1.1].flushDelay", httpFlushDelay);
+        }
+
+        Integer httpFlushSize = getHttpFlushSize(optionsCopy.remove("http.flush.size"));
+        if (httpFlushSize != null) {
+            result.put("http[http/1.1].flushSize", httpFlushSize);
+        }
+
         String[] sslCiphers = getSslCiphers(optionsCopy.remove("ssl.ciphers"));
         if (sslCiphers != null) {
             result.put(SSL_CIPHERS, sslCiphers);
@@ -20,14 +20,17 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import org.kaazing.gateway.server.spi.security.ExpiringState;
+import org.kaazing.gateway.service.collections.NearCache;
 
-import com.hazelcast.core.IMap;
-
+/**
+ * Expiring state shared across the cluster. Lookups are served from a near cache where possible, as login modules
+ * may look up state on every request.
+ */
 final class DefaultExpiringState implements ExpiringState {
-    private final Supplier<IMap<Object, Object>> supplier;
-    private IMap<Object, Object> delegate;
+    private final Supplier<NearCache<Object, Object>> supplier;
+    private NearCache<Object, Object> delegate;
 
-    DefaultExpiringState(Supplier<IMap<Object, Object>> supplier) {
+    DefaultExpiringState(Supplier<NearCache<Object, Object>> supplier) {
         this.supplier = supplier;
     }
 
@@ -46,7 +49,7 @@ final class DefaultExpiringState implements ExpiringState {
         return delegate().remove(key, value);
     }
 
-	private IMap<Object, Object> delegate() {
+	private NearCache<Object, Object> delegate() {
 		if (delegate == null) {
 			delegate = supplier.get();
 		}
@@ -178,6 +178,22 @@ class DefaultOptionsContext {
         return httpKeepaliveTimeout;
     }
 
+    static Long getHttpFlushDelay(String httpFlushDelayValue) {
+        Long httpFlushDelay = null;
+        if (httpFlushDelayValue != null) {
+            httpFlushDelay = Utils.parseTimeInterval(httpFlushDelayValue, MILLISECONDS);
+        }
+        return httpFlushDelay;
+    }
+
+    static Integer getHttpFlushSize(String httpFlushSizeValue) {
+        Integer httpFlushSize = null;
+        if (httpFlushSizeValue != null) {
+            httpFlushSize = Utils.parseDataSize(httpFlushSizeValue);
+        }
+        return httpFlushSize;
+    }
+
     static Integer getHttpKeepaliveConnections(String connectionsValue) {
         Integer maxConnections = null;
         if (connectionsValue != null) {
@@ -52,7 +52,13 @@ import java.util.Properties;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import javax.crypto.Cipher;
@@ -66,6 +72,7 @@ import org.apache.mina.core.session.IoSession;
 import org.apache.mina.core.session.IoSessionInitializer;
 import org.kaazing.gateway.resource.address.Protocol;
 import org.kaazing.gateway.resource.address.ResourceAddress;
+import org.kaazing.gateway.resource.address.ResourceAddressCache;
 import org.kaazing.gateway.resource.address.ResourceAddressFactory;
 import org.kaazing.gateway.resource.address.http.DefaultHttpRealmInfo;
 import org.kaazing.gateway.resource.address.http.HttpRealmInfo;
@@ -119,6 +126,11 @@ public class DefaultServiceContext implements ServiceContext {
     private static final String SERVICE_DOMAIN = "serviceDomain";
     private static final String TEMP_DIRECTORY = "tempDirectory";
 
+    // service properties running the bound handler off the I/O threads, see OrderedExecutorIoHandler
+    private static final String HANDLER_THREADS = "handler.threads";
+    private static final String HANDLER_MAXIMUM_PENDING_MESSAGES = "handler.maximum.pending.messages";
+    private static final int DEFAULT_HANDLER_MAXIMUM_PENDING_MESSAGES = 64;
+
     /**
      * Prefix to the authentication scheme to indicate that the Kaazing client application will handle the challenge rather than
      * delegate to the browser or the native platform.
@@ -148,6 +160,7 @@ public class DefaultServiceContext implements ServiceContext {
     private final ConnectOptionsContext connectOptionsContext;
     private final RealmContext serviceRealmContext;
     private final ResourceAddressFactory resourceAddressFactory;
+    private final ResourceAddressCache resourceAddressCache;
     private final Key encryptionKey;
     private final Logger logger;
     private final SchedulerProvider schedulerProvider;
@@ -155,6 +168,7 @@ public class DefaultServiceContext implements ServiceContext {
     private final boolean supportsConnects;
     private final boolean supportsMimeMappings;
     private final int processorCount;
+    private ExecutorService handlerExecutor;
     private int hashCode = -1;
 
     private final AtomicBoolean started = new AtomicBoolean(false);
@@ -216,6 +230,7 @@ public class DefaultServiceContext implements ServiceContext {
                 TransportFactory.newTransportFactory(Collections.EMPTY_MAP),
                 ResourceAddressFactory.newResourceAddressFactory(),
                 null,
+                null,
                 null
         );
     }
@@ -245,6 +260,7 @@ public class DefaultServiceContext implements ServiceContext {
                                  int processorCount,
                                  TransportFactory transportFactory,
                                  ResourceAddressFactory resourceAddressFactory,
+                                 ResourceAddressCache resourceAddressCache,
                                  RealmsContext realmsContext,
                                  Properties configuration) {
         this.serviceType = serviceType;
@@ -276,6 +292,7 @@ public class DefaultServiceContext implements ServiceContext {
         this.processorCount = processorCount;
         this.transportFactory = transportFactory;
         this.resourceAddressFactory = resourceAddressFactory;
+        this.resourceAddressCache = resourceAddressCache;
         this.serviceSpecificObjects = new HashMap<>();
         this.realmsContext = realmsContext;
         this.configuration = configuration;
@@ -537,6 +554,8 @@ public class DefaultServiceContext implements ServiceContext {
             bindHandlers.put(uri, handler);
         }
 
+        IoHandler bindHandler = newBindHandler(handler);
+
         Map<Transport, List<String>> bindsByTransport = getURIsByTransport(bindURIs);
 
         // for each transport group, create resource address for URIs and bind to transport.
@@ -550,7 +569,7 @@ public class DefaultServiceContext implements ServiceContext {
 
                 ResourceAddress address = resourceAddressFactory.newResourceAddress(transportAccept, options);
 
-                bindInternal(address, handler, transport, sessionInitializer, bridgeSessionInitializer);
+                bindInternal(address, bindHandler, transport, sessionInitializer, bridgeSessionInitializer);
                 bindings.put(transportAccept, address);
             }
         }
@@ -625,6 +644,40 @@ public class DefaultServiceContext implements ServiceContext {
         clusterContext.logClusterState();
     }
 
+    private IoHandler newBindHandler(IoHandler handler) {
+        String handlerThreads = (properties != null) ? properties.get(HANDLER_THREADS) : null;
+        if (handlerThreads == null || Integer.parseInt(handlerThreads.trim()) == 0) {
+            return handler;
+        }
+
+        String maximumPendingMessages = properties.get(HANDLER_MAXIMUM_PENDING_MESSAGES);
+        int maximumPending = (maximumPendingMessages != null) ? Integer.parseInt(maximumPendingMessages.trim())
+                : DEFAULT_HANDLER_MAXIMUM_PENDING_MESSAGES;
+
+        return new OrderedExecutorIoHandler(handler, getHandlerExecutor(Integer.parseInt(handlerThreads.trim())),
+                maximumPending);
+    }
+
+    private synchronized ExecutorService getHandlerExecutor(int threads) {
+        if (threads < 0) {
+            throw new IllegalArgumentException(format("%s must not be negative: %d", HANDLER_THREADS, threads));
+        }
+
+        if (handlerExecutor == null) {
+            final String namePrefix = format("%s-handler-", serviceName != null ? serviceName : serviceType);
+            handlerExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), new ThreadFactory() {
+                        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            return new Thread(r, namePrefix + threadNumber.getAndIncrement());
+                        }
+                    });
+        }
+        return handlerExecutor;
+    }
+
     private Map<String, Object> buildResourceAddressOptions(String transportURI, AcceptOptionsContext acceptOptionsContext) {
         // options is a new HashMap
         final Map<String, Object> options = acceptOptionsContext.asOptionsMap();
@@ -999,7 +1052,15 @@ public class DefaultServiceContext implements ServiceContext {
     @Override
     public ConnectFuture connect(String connectURI, final IoHandler connectHandler,
                                  final IoSessionInitializer<ConnectFuture> connectSessionInitializer) {
-        ResourceAddress address = resourceAddressFactory.newResourceAddress(connectURI, connectOptionsContext.asOptionsMap());
+        ResourceAddress address;
+        if (resourceAddressCache != null) {
+            // connect options are fixed for the service, so they are keyed by the context they are derived from
+            address = resourceAddressCache.newResourceAddress(connectURI, connectOptionsContext,
+                    connectOptionsContext::asOptionsMap);
+        }
+        else {
+            address = resourceAddressFactory.newResourceAddress(connectURI, connectOptionsContext.asOptionsMap());
+        }
         return connect(address, connectHandler, connectSessionInitializer);
     }
 
@@ -1097,6 +1158,13 @@ public class DefaultServiceContext implements ServiceContext {
     @Override
     public void destroy() throws Exception {
         getService().destroy();
+
+        synchronized (this) {
+            if (handlerExecutor != null) {
+                handlerExecutor.shutdown();
+                handlerExecutor = null;
+            }
+        }
     }
 
     @Override
@@ -55,6 +55,7 @@ import javax.security.auth.login.AppConfigurationEntry;
 import javax.security.auth.login.AppConfigurationEntry.LoginModuleControlFlag;
 import javax.security.auth.login.Configuration;
 
+import org.kaazing.gateway.resource.address.ResourceAddressCache;
 import org.kaazing.gateway.resource.address.ResourceAddressFactory;
 import org.kaazing.gateway.security.AuthenticationContext;
 import org.kaazing.gateway.security.CrossSiteConstraintContext;
@@ -97,9 +98,13 @@ import org.kaazing.gateway.service.ServiceProperties;
 import org.kaazing.gateway.service.cluster.ClusterConnectOptionsContext;
 import org.kaazing.gateway.service.cluster.ClusterContext;
 import org.kaazing.gateway.service.cluster.MemberId;
+import org.kaazing.gateway.service.collections.NearCache;
+import org.kaazing.gateway.transport.AdmissionController;
 import org.kaazing.gateway.transport.BridgeServiceFactory;
 import org.kaazing.gateway.transport.Transport;
 import org.kaazing.gateway.transport.TransportFactory;
+import org.kaazing.gateway.transport.bridge.ReplayBufferFactory;
+import org.kaazing.gateway.transport.trace.TraceRecorder;
 import org.kaazing.gateway.util.GL;
 import org.kaazing.gateway.util.InternalSystemProperty;
 import org.kaazing.gateway.util.Utils;
@@ -109,7 +114,6 @@ import org.slf4j.Logger;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
-import com.hazelcast.core.IMap;
 
 public class GatewayContextResolver {
 
@@ -241,13 +245,15 @@ public class GatewayContextResolver {
         ServiceRegistry servicesByURI = new ServiceRegistry();
         Map<String, Object> dependencyContexts = resolveDependencyContext();
         ResourceAddressFactory resourceAddressFactory = resolveResourceAddressFactories();
+        ResourceAddressCache resourceAddressCache = resolveResourceAddressCache(resourceAddressFactory, configuration);
         TransportFactory transportFactory = TransportFactory.newTransportFactory((Map) configuration);
         ServiceFactory serviceFactory = ServiceFactory.newServiceFactory();
         Collection<ServiceContext> services =
                 resolveServices(servicesByURI, webDir, tempDir, serviceConfigs, securityContext,
                         realmsContext, clusterContext, serviceDefaults, schedulerProvider,
                         dependencyContexts,
-                        configuration, transportFactory, serviceFactory, resourceAddressFactory, serviceDefaults);
+                        configuration, transportFactory, serviceFactory, resourceAddressFactory, resourceAddressCache,
+                        serviceDefaults);
         resolveTransports(transportFactory);
 
         BridgeServiceFactory bridgeServiceFactory = resolveBridgeServiceFactory(transportFactory);
@@ -281,8 +287,12 @@ public class GatewayContextResolver {
         injectables.put("mbeanServer", jmxMBeanServer);
         injectables.put("bridgeServiceFactory", bridgeServiceFactory);
         injectables.put("resourceAddressFactory", resourceAddressFactory);
+        injectables.put("resourceAddressCache", resourceAddressCache);
         injectables.put("transportFactory", transportFactory);
         injectables.put("expiringState", expiringState);
+        injectables.put("replayBudget", ReplayBufferFactory.newGatewayBudget(configuration));
+        injectables.put("admissionController", new AdmissionController(configuration));
+        injectables.put("traceRecorder", new TraceRecorder(configuration));
         gatewayContext.getInjectables().putAll(injectables);
 
         injectResources(services,
@@ -301,6 +311,14 @@ public class GatewayContextResolver {
         return ResourceAddressFactory.newResourceAddressFactory();
     }
 
+    private ResourceAddressCache resolveResourceAddressCache(ResourceAddressFactory resourceAddressFactory,
+                                                             Properties configuration) {
+        int maximumSize = InternalSystemProperty.RESOURCE_ADDRESS_CACHE_SIZE.getIntProperty(configuration);
+        long maximumAge = Utils.parseTimeInterval(
+                InternalSystemProperty.RESOURCE_ADDRESS_CACHE_MAXIMUM_AGE.getProperty(configuration), TimeUnit.MILLISECONDS);
+        return new ResourceAddressCache(resourceAddressFactory, maximumSize, maximumAge);
+    }
+
     private Map<String, DefaultSchemeContext> resolveSchemes(Collection<? extends ServiceContext> serviceContexts,
                                                              Collection<? extends SchemeConfig> schemeConfigs,
                                                              Properties configuration,
@@ -458,6 +476,7 @@ public class GatewayContextResolver {
                                                        TransportFactory transportFactory,
                                                        ServiceFactory serviceFactory,
                                                        ResourceAddressFactory resourceAddressFactory,
+                                                       ResourceAddressCache resourceAddressCache,
                                                        ServiceDefaultsType serviceDefaults)
             throws Exception {
 
@@ -687,6 +706,7 @@ public class GatewayContextResolver {
                             InternalSystemProperty.TCP_PROCESSOR_COUNT.getIntProperty(configuration),
                             transportFactory,
                             resourceAddressFactory,
+                            resourceAddressCache,
                             realmsContext,
                             configuration);
 
@@ -945,7 +965,8 @@ public class GatewayContextResolver {
     }
 
 	private ExpiringState resolveExpiringState(ClusterContext clusterContext) {
-        Supplier<IMap<Object, Object>> supplier = () -> clusterContext.getCollectionsFactory().getMap(EXPIRING_STATE_NAME);
+        Supplier<NearCache<Object, Object>> supplier =
+                () -> clusterContext.getCollectionsFactory().getNearCache(EXPIRING_STATE_NAME);
 		return new DefaultExpiringState(supplier);
 	}
 
@@ -1225,6 +1246,7 @@ public class GatewayContextResolver {
                 !serviceType.equals("$management.jmx$") &&
                 !serviceType.equals("management.snmp") &&
                 !serviceType.equals("$management.snmp$") &&
+                !serviceType.equals("management.metrics") &&
                 !serviceType.equals("directory");
     }
 
@@ -0,0 +1,275 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.server.context.resolve;
+
+import static org.kaazing.mina.core.buffer.SimpleBufferAllocator.BUFFER_ALLOCATOR;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.mina.core.service.IoHandler;
+import org.apache.mina.core.session.AttributeKey;
+import org.apache.mina.core.session.IdleStatus;
+import org.apache.mina.core.session.IoSession;
+import org.kaazing.gateway.transport.bridge.MessageBuffer;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.session.IoSessionEx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the callbacks of a service handler on an executor instead of the session I/O thread, so that a handler
+ * blocking on JDBC or REST calls only delays its own sessions. Events of the same session are delivered one at a
+ * time and in the order they were fired, while different sessions proceed in parallel.
+ * <p/>
+ * Writes, closes, suspendRead and resumeRead issued by the handler are re-aligned onto the session I/O thread by
+ * the session itself. Received messages in shared buffers are copied first, so that the handler can read them on
+ * its own thread. Once more than {@code maximumPendingMessages} received messages are waiting for the handler,
+ * reads are suspended on the session until the handler has caught up with half of them. Sessions count read
+ * suspensions, and the queue only ever resumes the one suspension it made itself, so reads suspended by the
+ * handler stay suspended.
+ */
+final class OrderedExecutorIoHandler implements IoHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderedExecutorIoHandler.class);
+
+    private static final AttributeKey EVENT_QUEUE_KEY = new AttributeKey(OrderedExecutorIoHandler.class, "eventQueue");
+
+    private final IoHandler handler;
+    private final Executor executor;
+    private final int maximumPendingMessages;
+    private final int resumePendingMessages;
+
+    OrderedExecutorIoHandler(IoHandler handler, Executor executor, int maximumPendingMessages) {
+        if (maximumPendingMessages < 1) {
+            throw new IllegalArgumentException("maximumPendingMessages must be positive: " + maximumPendingMessages);
+        }
+        this.handler = handler;
+        this.executor = executor;
+        this.maximumPendingMessages = maximumPendingMessages;
+        this.resumePendingMessages = maximumPendingMessages / 2;
+    }
+
+    IoHandler getHandler() {
+        return handler;
+    }
+
+    @Override
+    public void sessionCreated(final IoSession session) throws Exception {
+        eventQueue(session).offer(() -> handler.sessionCreated(session));
+    }
+
+    @Override
+    public void sessionOpened(final IoSession session) throws Exception {
+        eventQueue(session).offer(() -> handler.sessionOpened(session));
+    }
+
+    @Override
+    public void sessionClosed(final IoSession session) throws Exception {
+        eventQueue(session).offer(() -> handler.sessionClosed(session));
+    }
+
+    @Override
+    public void sessionIdle(final IoSession session, final IdleStatus status) throws Exception {
+        eventQueue(session).offer(() -> handler.sessionIdle(session, status));
+    }
+
+    @Override
+    public void exceptionCaught(final IoSession session, final Throwable cause) throws Exception {
+        eventQueue(session).offer(new HandlerEvent() {
+            @Override
+            public void dispatch() throws Exception {
+                handler.exceptionCaught(session, cause);
+            }
+
+            @Override
+            public boolean isExceptionCaught() {
+                return true;
+            }
+        });
+    }
+
+    @Override
+    public void messageReceived(final IoSession session, Object message) throws Exception {
+        final Object received = unshared(session, message);
+        eventQueue(session).offerMessage(() -> handler.messageReceived(session, received));
+    }
+
+    @Override
+    public void messageSent(final IoSession session, final Object message) throws Exception {
+        eventQueue(session).offer(() -> handler.messageSent(session, message));
+    }
+
+    // a shared buffer keeps its position and limit per thread and its bytes may be referenced by other sessions,
+    // so it is only safe to read on the I/O thread during messageReceived; the handler reads it later on a pool
+    // thread and may keep it past messageReceived, so it gets a copy of the bytes the I/O thread passed on
+    private static Object unshared(IoSession session, Object message) {
+        if (!(message instanceof IoBufferEx) || !((IoBufferEx) message).isShared()) {
+            return message;
+        }
+
+        if (message instanceof MessageBuffer) {
+            // same type of buffer, e.g. a WsBuffer keeps its kind
+            return ((MessageBuffer<?>) message).copy();
+        }
+
+        IoBufferEx buf = (IoBufferEx) message;
+        ByteBuffer nioBuf = buf.buf();
+        ByteBuffer copy = ByteBuffer.allocate(nioBuf.remaining()).order(nioBuf.order());
+        copy.put(nioBuf.duplicate());
+        copy.flip();
+
+        IoBufferAllocatorEx<?> allocator =
+                (session instanceof IoSessionEx) ? ((IoSessionEx) session).getBufferAllocator() : BUFFER_ALLOCATOR;
+        return allocator.wrap(copy, buf.flags() & ~IoBufferEx.FLAG_SHARED);
+    }
+
+    private SessionEventQueue eventQueue(IoSession session) {
+        SessionEventQueue eventQueue = (SessionEventQueue) session.getAttribute(EVENT_QUEUE_KEY);
+        if (eventQueue == null) {
+            SessionEventQueue newEventQueue = new SessionEventQueue(session);
+            eventQueue = (SessionEventQueue) session.setAttributeIfAbsent(EVENT_QUEUE_KEY, newEventQueue);
+            if (eventQueue == null) {
+                eventQueue = newEventQueue;
+            }
+        }
+        return eventQueue;
+    }
+
+    private interface HandlerEvent {
+
+        void dispatch() throws Exception;
+
+        default boolean isMessage() {
+            return false;
+        }
+
+        default boolean isExceptionCaught() {
+            return false;
+        }
+    }
+
+    private final class SessionEventQueue implements Runnable {
+
+        private final IoSession session;
+        private final Queue<HandlerEvent> events;
+        private final AtomicInteger pendingMessages;
+        private final AtomicBoolean scheduled;
+        // whether the queue holds its own read suspension, at most one at a time
+        private final AtomicBoolean readSuspended;
+
+        SessionEventQueue(IoSession session) {
+            this.session = session;
+            this.events = new ConcurrentLinkedQueue<>();
+            this.pendingMessages = new AtomicInteger();
+            this.scheduled = new AtomicBoolean();
+            this.readSuspended = new AtomicBoolean();
+        }
+
+        void offer(HandlerEvent event) {
+            events.offer(event);
+            schedule();
+        }
+
+        void offerMessage(final HandlerEvent dispatcher) {
+            events.offer(new HandlerEvent() {
+                @Override
+                public void dispatch() throws Exception {
+                    dispatcher.dispatch();
+                }
+
+                @Override
+                public boolean isMessage() {
+                    return true;
+                }
+            });
+
+            if (pendingMessages.incrementAndGet() > maximumPendingMessages &&
+                    readSuspended.compareAndSet(false, true)) {
+                session.suspendRead();
+
+                // the handler may have caught up before reads were marked as suspended
+                if (pendingMessages.get() <= resumePendingMessages && readSuspended.compareAndSet(true, false)) {
+                    session.resumeRead();
+                }
+            }
+
+            schedule();
+        }
+
+        @Override
+        public void run() {
+            try {
+                HandlerEvent event;
+                while ((event = events.poll()) != null) {
+                    dispatch(event);
+                }
+            }
+            finally {
+                scheduled.set(false);
+                if (!events.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                }
+                catch (RejectedExecutionException e) {
+                    // executor shut down as the service is destroyed, remaining events are dropped
+                    LOGGER.debug("Dropped handler events for session {}", session, e);
+                    events.clear();
+                }
+            }
+        }
+
+        private void dispatch(HandlerEvent event) {
+            try {
+                event.dispatch();
+            }
+            catch (Exception e) {
+                if (event.isExceptionCaught()) {
+                    LOGGER.warn("Unexpected exception from exceptionCaught on session {}", session, e);
+                }
+                else {
+                    // back through the filter chain (on the I/O thread) as if the handler had been called there
+                    session.getFilterChain().fireExceptionCaught(e);
+                }
+            }
+            finally {
+                if (event.isMessage() &&
+                        pendingMessages.decrementAndGet() <= resumePendingMessages &&
+                        readSuspended.compareAndSet(true, false)) {
+                    session.resumeRead();
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s(%s)", getClass().getSimpleName(), handler);
+    }
+}
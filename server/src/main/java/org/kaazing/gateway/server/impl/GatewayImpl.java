@@ -25,6 +25,7 @@ import java.net.URL;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 import java.util.Properties;
+import java.util.concurrent.FutureTask;
 
 import javax.management.MBeanServer;
 
@@ -285,7 +286,14 @@ final class GatewayImpl implements Gateway {
             configureLogging(configDir, configuration);
         }
 
-        duplicateJarFinder.findDuplicateJars();
+        // scan the class path in the background, services do not start until the scan passed
+        FutureTask<Void> duplicateJarsChecked = new FutureTask<>(() -> {
+            duplicateJarFinder.findDuplicateJars();
+            return null;
+        });
+        Thread duplicateJarChecker = new Thread(duplicateJarsChecked, "duplicate-jar-check");
+        duplicateJarChecker.setDaemon(true);
+        duplicateJarChecker.start();
 
         displayVersionInfo();
 
@@ -301,7 +309,7 @@ final class GatewayImpl implements Gateway {
         gateway = new Launcher(gatewayObserver);
 
         try {
-            gateway.init(context);
+            gateway.init(context, duplicateJarsChecked);
         } catch (Exception e) {
             LOGGER.error(String.format("Error starting Gateway: caught exception %s", e));
             throw e;
@@ -0,0 +1,220 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.server;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.synchronizedList;
+import static java.util.Collections.synchronizedSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.FutureTask;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.api.Invocation;
+import org.jmock.lib.action.CustomAction;
+import org.jmock.lib.concurrent.Synchroniser;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.gateway.security.RealmContext;
+import org.kaazing.gateway.server.context.resolve.DefaultServiceProperties;
+import org.kaazing.gateway.service.ServiceContext;
+import org.kaazing.gateway.service.ServiceProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ServiceStartupSchedulerTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServiceStartupSchedulerTest.class);
+
+    private Mockery context;
+
+    @Before
+    public void setUp() {
+        context = new Mockery();
+        context.setThreadingPolicy(new Synchroniser());
+    }
+
+    @Test
+    public void shouldGroupServicesSharingPortsOrBalancers() {
+        ServiceContext echo = mockService("echo", "echo", asList("ws://localhost:8000/echo"), null);
+        ServiceContext proxy = mockService("proxy", "proxy", asList("ws://localhost:8001/proxy"), null);
+        ServiceContext directory = mockService("directory", "directory", asList("http://localhost:8000/"), null);
+        ServiceContext balancer = mockService("balancer", "balancer", asList("ws://balancer.example.com:8081/echo"), null);
+        ServiceContext balancee = mockService("balancee", "echo", asList("ws://localhost:8002/echo"),
+                asList("ws://balancer.example.com:8081/echo"));
+
+        List<List<ServiceContext>> groups =
+                ServiceStartupScheduler.dependencyGroups(asList(echo, proxy, directory, balancer, balancee));
+
+        assertEquals(asList(asList(echo, directory), asList(proxy), asList(balancer, balancee)), groups);
+    }
+
+    @Test
+    public void shouldStartIndependentServicesInParallel() throws Exception {
+        final Set<String> startingThreads = synchronizedSet(new HashSet<String>());
+        final ServiceContext first = mockService("first", "echo", asList("ws://localhost:8000/echo"), null);
+        final ServiceContext second = mockService("second", "echo", asList("ws://localhost:8001/echo"), null);
+        final GatewayObserverApi observer = context.mock(GatewayObserverApi.class);
+
+        context.checking(new Expectations() {
+            {
+                allowing(observer);
+                oneOf(first).init();
+                oneOf(second).init();
+                oneOf(first).start();
+                will(recordThread(startingThreads));
+                oneOf(second).start();
+                will(recordThread(startingThreads));
+            }
+        });
+
+        FutureTask<Void> startPrecondition = new FutureTask<>(() -> null);
+        startPrecondition.run();
+
+        ServiceStartupScheduler scheduler = new ServiceStartupScheduler(observer, 2, LOGGER);
+        scheduler.startServices(asList(first, second), null, startPrecondition);
+
+        context.assertIsSatisfied();
+        assertEquals(2, startingThreads.size());
+    }
+
+    @Test
+    public void shouldWaitForClusterOnlyInServicesUsingClusterCollections() throws Exception {
+        final List<String> events = synchronizedList(new ArrayList<String>());
+        DefaultServiceProperties relayProperties = new DefaultServiceProperties();
+        relayProperties.put("cluster.relay", "true");
+        final ServiceContext broadcast = mockService("broadcast", "broadcast", asList("ws://localhost:8000/feed"), null,
+                relayProperties, null);
+        final ServiceContext secured = mockService("secured", "echo", asList("ws://localhost:8001/echo"), null, null,
+                context.mock(RealmContext.class));
+        final ServiceContext echo = mockService("echo", "echo", asList("ws://localhost:8002/echo"), null);
+        final GatewayObserverApi observer = context.mock(GatewayObserverApi.class);
+
+        context.checking(new Expectations() {
+            {
+                allowing(observer);
+                oneOf(broadcast).init();
+                will(recordEvent(events, "init broadcast"));
+                oneOf(secured).init();
+                will(recordEvent(events, "init secured"));
+                oneOf(echo).init();
+                will(recordEvent(events, "init echo"));
+                oneOf(broadcast).start();
+                oneOf(secured).start();
+                will(recordEvent(events, "start secured"));
+                oneOf(echo).start();
+                will(recordEvent(events, "start echo"));
+            }
+        });
+
+        final FutureTask<Void> clusterStarted = new FutureTask<>(() -> {
+            Thread.sleep(200);
+            events.add("cluster started");
+            return null;
+        });
+        new Thread(clusterStarted, "cluster-start").start();
+
+        ServiceStartupScheduler scheduler = new ServiceStartupScheduler(observer, 3, LOGGER);
+        scheduler.startServices(asList(broadcast, secured, echo), clusterStarted, null);
+
+        context.assertIsSatisfied();
+        int clusterStartedAt = events.indexOf("cluster started");
+        assertTrue(events.indexOf("init echo") < clusterStartedAt);
+        assertTrue(events.indexOf("start echo") < clusterStartedAt);
+        assertTrue(events.indexOf("init secured") < clusterStartedAt);
+        assertTrue(events.indexOf("start secured") > clusterStartedAt);
+        assertTrue(events.indexOf("init broadcast") > clusterStartedAt);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailWhenStartPreconditionFails() throws Exception {
+        final ServiceContext service = mockService("echo", "echo", asList("ws://localhost:8000/echo"), null);
+        final GatewayObserverApi observer = context.mock(GatewayObserverApi.class);
+
+        context.checking(new Expectations() {
+            {
+                allowing(observer);
+                oneOf(service).init();
+                never(service).start();
+            }
+        });
+
+        FutureTask<Void> startPrecondition = new FutureTask<>(() -> {
+            throw new IllegalStateException("duplicate jars");
+        });
+        startPrecondition.run();
+
+        ServiceStartupScheduler scheduler = new ServiceStartupScheduler(observer, 2, LOGGER);
+        scheduler.startServices(asList(service), null, startPrecondition);
+    }
+
+    private ServiceContext mockService(final String name, final String type, final Collection<String> accepts,
+            final Collection<String> balances) {
+        return mockService(name, type, accepts, balances, null, null);
+    }
+
+    private ServiceContext mockService(final String name, final String type, final Collection<String> accepts,
+            final Collection<String> balances, final ServiceProperties properties, final RealmContext realm) {
+        final ServiceContext service = context.mock(ServiceContext.class, name);
+        context.checking(new Expectations() {
+            {
+                allowing(service).getServiceName();
+                will(returnValue(name));
+                allowing(service).getServiceType();
+                will(returnValue(type));
+                allowing(service).getAccepts();
+                will(returnValue(accepts));
+                allowing(service).getBalances();
+                will(returnValue(balances != null ? balances : emptyList()));
+                allowing(service).getAcceptOptionsContext();
+                will(returnValue(null));
+                allowing(service).getProperties();
+                will(returnValue(properties));
+                allowing(service).getServiceRealm();
+                will(returnValue(realm));
+            }
+        });
+        return service;
+    }
+
+    private static CustomAction recordEvent(final List<String> events, final String event) {
+        return new CustomAction(event) {
+            @Override
+            public Object invoke(Invocation invocation) throws Throwable {
+                events.add(event);
+                return null;
+            }
+        };
+    }
+
+    private static CustomAction recordThread(final Set<String> threads) {
+        return new CustomAction("record thread") {
+            @Override
+            public Object invoke(Invocation invocation) throws Throwable {
+                threads.add(Thread.currentThread().getName());
+                return null;
+            }
+        };
+    }
+}
@@ -83,6 +83,16 @@ public class AcceptOptionsTest {
         expectParseFailure("tls.ciphers", "FOO, BAR");
     }
 
+    @Test
+    public void testHttpFlushOptions() throws Exception {
+        expectSuccess("http.flush.delay", "1", "http[http/1.1].flushDelay", 1000L);
+        expectSuccess("http.flush.delay", "5ms", "http[http/1.1].flushDelay", 5L);
+        expectSuccess("http.flush.size", "8k", "http[http/1.1].flushSize", 8192);
+
+        expectParseFailure("http.flush.delay", "-1ms");
+        expectParseFailure("http.flush.size", "abc");
+    }
+
     @Test
     public void testHttpKeepAliveTimeoutOption() throws Exception {
         // expect default if 0 is specified
@@ -0,0 +1,218 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.server.context.resolve;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.mina.core.buffer.SimpleBufferAllocator.BUFFER_ALLOCATOR;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.IoSession;
+import org.junit.Test;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.session.DummySessionEx;
+
+public class OrderedExecutorIoHandlerTest {
+
+    @Test
+    public void shouldDeliverEventsInOrderOffTheCallingThread() throws Exception {
+        final Thread ioThread = Thread.currentThread();
+        final List<Object> events = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+        final CountDownLatch closed = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            OrderedExecutorIoHandler handler = new OrderedExecutorIoHandler(new IoHandlerAdapter() {
+                @Override
+                public void sessionOpened(IoSession session) throws Exception {
+                    events.add("opened");
+                    threads.add(Thread.currentThread());
+                }
+
+                @Override
+                public void messageReceived(IoSession session, Object message) throws Exception {
+                    events.add(message);
+                    threads.add(Thread.currentThread());
+                }
+
+                @Override
+                public void sessionClosed(IoSession session) throws Exception {
+                    events.add("closed");
+                    closed.countDown();
+                }
+            }, executor, 1000);
+
+            DummySessionEx session = new DummySessionEx();
+            List<Object> expected = new ArrayList<>();
+            handler.sessionOpened(session);
+            expected.add("opened");
+            for (int i = 0; i < 500; i++) {
+                handler.messageReceived(session, i);
+                expected.add(i);
+            }
+            handler.sessionClosed(session);
+            expected.add("closed");
+
+            assertTrue(closed.await(5, SECONDS));
+            assertEquals(expected, events);
+            for (Thread thread : threads) {
+                assertNotSame(ioThread, thread);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldSuspendReadWhileTooManyMessagesArePending() throws Exception {
+        final Queue<Runnable> tasks = new LinkedList<>();
+        final List<Object> received = new ArrayList<>();
+
+        OrderedExecutorIoHandler handler = new OrderedExecutorIoHandler(new IoHandlerAdapter() {
+            @Override
+            public void messageReceived(IoSession session, Object message) throws Exception {
+                received.add(message);
+            }
+        }, tasks::add, 4);
+
+        DummySessionEx session = new DummySessionEx();
+        for (int i = 0; i < 4; i++) {
+            handler.messageReceived(session, i);
+        }
+        assertFalse(session.isReadSuspended());
+
+        handler.messageReceived(session, 4);
+        assertTrue(session.isReadSuspended());
+
+        // a single task drains the session queue, resuming once back down to half the limit
+        assertEquals(1, tasks.size());
+        tasks.poll().run();
+        assertFalse(session.isReadSuspended());
+        assertEquals(5, received.size());
+        assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    public void shouldFireExceptionCaughtThroughFilterChainWhenHandlerFails() throws Exception {
+        final Queue<Runnable> tasks = new LinkedList<>();
+        final Exception failure = new Exception("failed");
+        final List<Throwable> caught = new ArrayList<>();
+
+        OrderedExecutorIoHandler handler = new OrderedExecutorIoHandler(new IoHandlerAdapter() {
+            @Override
+            public void messageReceived(IoSession session, Object message) throws Exception {
+                throw failure;
+            }
+
+            @Override
+            public void exceptionCaught(IoSession session, Throwable cause) throws Exception {
+                caught.add(cause);
+            }
+        }, tasks::add, 4);
+
+        DummySessionEx session = new DummySessionEx();
+        session.setHandler(handler);
+        handler.messageReceived(session, "message");
+
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+
+        assertEquals(1, caught.size());
+        assertSame(failure, caught.get(0));
+    }
+
+    @Test
+    public void shouldNotResumeReadsSuspendedByHandler() throws Exception {
+        final Queue<Runnable> tasks = new LinkedList<>();
+
+        OrderedExecutorIoHandler handler = new OrderedExecutorIoHandler(new IoHandlerAdapter() {
+            @Override
+            public void messageReceived(IoSession session, Object message) throws Exception {
+                if (Integer.valueOf(0).equals(message)) {
+                    session.suspendRead();
+                }
+            }
+        }, tasks::add, 2);
+
+        DummySessionEx session = new DummySessionEx();
+        for (int i = 0; i < 3; i++) {
+            handler.messageReceived(session, i);
+        }
+        assertTrue(session.isReadSuspended());
+
+        // the queue releases its own suspension once drained, but not the one the handler made
+        tasks.poll().run();
+        assertTrue(session.isReadSuspended());
+
+        session.resumeRead();
+        assertFalse(session.isReadSuspended());
+    }
+
+    @Test
+    public void shouldCopySharedBufferBeforeHandlerReadsItOnAnotherThread() throws Exception {
+        final Queue<Runnable> tasks = new LinkedList<>();
+        final List<Object> received = new ArrayList<>();
+        final List<byte[]> payloads = new ArrayList<>();
+
+        OrderedExecutorIoHandler handler = new OrderedExecutorIoHandler(new IoHandlerAdapter() {
+            @Override
+            public void messageReceived(IoSession session, Object message) throws Exception {
+                IoBufferEx buf = (IoBufferEx) message;
+                byte[] payload = new byte[buf.remaining()];
+                buf.get(payload);
+                received.add(message);
+                payloads.add(payload);
+            }
+        }, tasks::add, 4);
+
+        DummySessionEx session = new DummySessionEx();
+        IoBufferEx shared = BUFFER_ALLOCATOR.wrap(ByteBuffer.wrap("::hello".getBytes(UTF_8)), IoBufferEx.FLAG_SHARED);
+
+        // a filter consumed a prefix on the I/O thread, which other threads do not see in a shared buffer
+        shared.skip(2);
+        handler.messageReceived(session, shared);
+
+        Thread pool = new Thread(tasks.poll());
+        pool.start();
+        pool.join();
+
+        assertEquals(1, received.size());
+        assertNotSame(shared, received.get(0));
+        assertFalse(((IoBufferEx) received.get(0)).isShared());
+        assertArrayEquals("hello".getBytes(UTF_8), payloads.get(0));
+
+        // the handler consumed its own copy
+        assertEquals(5, shared.remaining());
+    }
+}
@@ -15,15 +15,35 @@
  */
 package org.kaazing.gateway.service.amqp;
 
+import static org.kaazing.gateway.service.util.ServiceUtils.getOptionalIntProperty;
+import static org.kaazing.gateway.service.util.ServiceUtils.getOptionalProperty;
+import static org.kaazing.gateway.service.util.ServiceUtils.getRequiredProperty;
+
 import java.util.ServiceLoader;
 
 import org.kaazing.gateway.service.ServiceContext;
+import org.kaazing.gateway.service.ServiceProperties;
+import org.kaazing.gateway.service.amqp.handler.AmqpMultiplexer;
+import org.kaazing.gateway.service.amqp.handler.AmqpProxyServiceHandlerSpi;
 import org.kaazing.gateway.service.proxy.ProxyService;
 import org.kaazing.gateway.service.proxy.ProxyServiceHandler;
 import org.slf4j.Logger;
 
 public class AmqpProxyService extends ProxyService {
+    private static final String PROPERTY_MULTIPLEXING_CONNECTION_COUNT = "multiplexing.connection.count";
+    private static final String PROPERTY_MULTIPLEXING_CLIENT_CHANNELS = "multiplexing.client.channels";
+    private static final String PROPERTY_MULTIPLEXING_USERNAME = "multiplexing.username";
+    private static final String PROPERTY_MULTIPLEXING_PASSWORD = "multiplexing.password";
+    private static final String PROPERTY_MULTIPLEXING_VIRTUAL_HOST = "multiplexing.virtual.host";
+    private static final String PROPERTY_MULTIPLEXING_HEARTBEAT = "multiplexing.heartbeat";
+
+    private static final int PROPERTY_MULTIPLEXING_CONNECTION_COUNT_DEFAULT = 0;
+    private static final int PROPERTY_MULTIPLEXING_CLIENT_CHANNELS_DEFAULT = 256;
+    private static final String PROPERTY_MULTIPLEXING_VIRTUAL_HOST_DEFAULT = "/";
+    private static final int PROPERTY_MULTIPLEXING_HEARTBEAT_DEFAULT = 60;
+
     private Logger logger;
+    private AmqpMultiplexer multiplexer;
 
     public AmqpProxyService() {
     }
@@ -33,6 +53,52 @@ public class AmqpProxyService extends ProxyService {
         logger = context.getLogger();
         logger.trace("Initializing AMQP Proxy service");
         super.init(context);
+
+        // multiplexing is disabled unless a broker connection count is configured
+        ServiceProperties properties = context.getProperties();
+        int connectionCount = getOptionalIntProperty(properties, PROPERTY_MULTIPLEXING_CONNECTION_COUNT,
+                PROPERTY_MULTIPLEXING_CONNECTION_COUNT_DEFAULT);
+        ProxyServiceHandler handler = getHandler();
+        if (connectionCount > 0 && handler instanceof AmqpProxyServiceHandlerSpi) {
+            AmqpProxyServiceHandlerSpi amqpHandler = (AmqpProxyServiceHandlerSpi) handler;
+            int clientChannels = getOptionalIntProperty(properties, PROPERTY_MULTIPLEXING_CLIENT_CHANNELS,
+                    PROPERTY_MULTIPLEXING_CLIENT_CHANNELS_DEFAULT);
+            // heartbeat interval in seconds offered to clients, zero disables client heartbeats
+            int heartbeat = getOptionalIntProperty(properties, PROPERTY_MULTIPLEXING_HEARTBEAT,
+                    PROPERTY_MULTIPLEXING_HEARTBEAT_DEFAULT);
+            // the shared broker connections never fall back to default credentials
+            String username = getRequiredProperty(properties, PROPERTY_MULTIPLEXING_USERNAME);
+            String password = getRequiredProperty(properties, PROPERTY_MULTIPLEXING_PASSWORD);
+            String virtualHost = getOptionalProperty(properties, PROPERTY_MULTIPLEXING_VIRTUAL_HOST,
+                    PROPERTY_MULTIPLEXING_VIRTUAL_HOST_DEFAULT);
+            String connectURI = context.getConnects().iterator().next();
+
+            multiplexer = new AmqpMultiplexer(context, connectURI, connectionCount, clientChannels,
+                    amqpHandler.getMaximumPendingBytes(), heartbeat, username, password.toCharArray(), virtualHost,
+                    amqpHandler::initBrokerSession);
+            amqpHandler.setMultiplexer(multiplexer);
+
+            if (logger.isDebugEnabled()) {
+                logger.debug(String.format("Multiplexing AMQP channels over %d connections to %s", connectionCount,
+                        connectURI));
+            }
+        }
+    }
+
+    @Override
+    public void start() throws Exception {
+        super.start();
+        if (multiplexer != null) {
+            multiplexer.start();
+        }
+    }
+
+    @Override
+    public void stop() throws Exception {
+        if (multiplexer != null) {
+            multiplexer.stop();
+        }
+        super.stop();
     }
 
     @Override
@@ -32,8 +32,13 @@ public class AmqpCodecFactory implements ProtocolCodecFactory {
     private ProtocolDecoder  decoder;
     private ProtocolEncoder  encoder;
     private final boolean    client;
+    private final boolean    multiplexed;
 
     public AmqpCodecFactory(boolean client) {
+        this(client, false);
+    }
+
+    public AmqpCodecFactory(boolean client, boolean multiplexed) {
         Logger logger = LoggerFactory.getLogger("service.amqp.proxy");
         if (logger.isDebugEnabled()) {
             String s = ".AmqpCodecFactory(): client " + client;
@@ -41,6 +46,7 @@ public class AmqpCodecFactory implements ProtocolCodecFactory {
         }
         
         this.client = client;
+        this.multiplexed = multiplexed;
     }
 
     @Override
@@ -70,7 +76,7 @@ public class AmqpCodecFactory implements ProtocolCodecFactory {
         IoSessionEx sessionEx = (IoSessionEx) session;
         IoBufferAllocatorEx<?> allocator = sessionEx.getBufferAllocator();
 
-        decoder = new AmqpMessageDecoder(allocator, client);
+        decoder = new AmqpMessageDecoder(allocator, client, multiplexed);
         return decoder;
     }
 }
@@ -24,4 +24,8 @@ public class AmqpCodecFilter extends ProtocolCodecFilter {
     public AmqpCodecFilter(boolean client) {
         super(new AmqpCodecFactory(client));
     }
+
+    public AmqpCodecFilter(boolean client, boolean multiplexed) {
+        super(new AmqpCodecFactory(client, multiplexed));
+    }
 }
@@ -65,9 +65,11 @@ public class AmqpMessageDecoder extends CumulativeProtocolDecoderEx {
                                              new HashMap<>();
 
     enum DecoderState {
-        READ_PROTOCOL_HEADER, READ_FRAME, AFTER_CONNECTION
+        READ_PROTOCOL_HEADER, READ_FRAME, AFTER_CONNECTION, MULTIPLEXED, DISCARD
     }
 
+    private static final int FRAME_ERROR = 501;
+
     static {            
         typeIdentifierMap.put('F', AmqpType.FIELDTABLE);
         typeIdentifierMap.put('I', AmqpType.INT);
@@ -88,12 +90,20 @@ public class AmqpMessageDecoder extends CumulativeProtocolDecoderEx {
         typeMap.put(AmqpType.VOID, "V");
     }
 
+    private final IoBufferAllocatorEx<?> allocator;
     private DecoderState currentState;
+    private boolean multiplexed;
+    private long frameMax;
 
     public AmqpMessageDecoder(IoBufferAllocatorEx<?> allocator, boolean client) {
         this(allocator, client, null);
     }
 
+    public AmqpMessageDecoder(IoBufferAllocatorEx<?> allocator, boolean client, boolean multiplexed) {
+        this(allocator, client, null);
+        this.multiplexed = multiplexed;
+    }
+
     public AmqpMessageDecoder(IoBufferAllocatorEx<?> allocator, 
                               boolean                client, 
                               DecoderState           initial) {
@@ -105,6 +115,7 @@ public class AmqpMessageDecoder extends CumulativeProtocolDecoderEx {
     AmqpMessageDecoder(IoBufferAllocatorEx<?> allocator, DecoderState initialState) {
         super(allocator);
 
+        this.allocator = allocator;
         this.currentState = initialState;
         
         Logger logger = LoggerFactory.getLogger(SERVICE_AMQP_PROXY_LOGGER);
@@ -135,6 +146,13 @@ public class AmqpMessageDecoder extends CumulativeProtocolDecoderEx {
                 in.skip(in.remaining());
                 session.getFilterChain().remove(AmqpCodecFilter.NAME);
                 return true;
+
+            case MULTIPLEXED:
+                return decodeMultiplexedFrame(session, in, out);
+
+            case DISCARD:
+                in.skip(in.remaining());
+                return false;
                 
             default:
                 return false;
@@ -286,12 +304,18 @@ public class AmqpMessageDecoder extends CumulativeProtocolDecoderEx {
             case CONNECTION:
                 AmqpConnectionMessage connection = (AmqpConnectionMessage) message;
                 switch (connection.getMethodKind()) {
+                    case TUNE:
+                        frameMax = ((AmqpTuneMessage) connection).getMaxFrameSize() & 0xFFFFFFFFL;
+                        break;
+                    case TUNE_OK:
+                        frameMax = ((AmqpTuneOkMessage) connection).getMaxFrameSize() & 0xFFFFFFFFL;
+                        break;
                     case OPEN:
                     case OPEN_OK:
-                        currentState = DecoderState.AFTER_CONNECTION;
+                        currentState = multiplexed ? DecoderState.MULTIPLEXED : DecoderState.AFTER_CONNECTION;
                         
                         if (logger.isDebugEnabled()) {
-                            String s = ".decodeFrame(): Transitioning to AFTER_CONNECTION state";
+                            String s = ".decodeFrame(): Transitioning to " + currentState + " state";
                             logger.debug(CLASS_NAME + s);
                         }
                         break;
@@ -302,6 +326,67 @@ public class AmqpMessageDecoder extends CumulativeProtocolDecoderEx {
         return true;
     }
  
+    // Splits the traffic after the connection handshake into whole frames, so that
+    // they can be routed per channel. Connection methods on channel zero are still
+    // decoded, everything else is passed on as a copy of the raw frame. A frame larger
+    // than the frame-max negotiated during tuning closes the connection with a FRAME_ERROR.
+    private boolean decodeMultiplexedFrame(IoSession session, IoBufferEx in,
+            ProtocolDecoderOutput out) throws Exception {
+        if (in.remaining() < 7) {
+            return false;
+        }
+
+        int  start = in.position();
+        byte frameType = in.get(start);
+        int  channelId = in.getUnsignedShort(start + 1);
+        long payloadSize = in.getUnsignedInt(start + 3);
+        if (payloadSize > Integer.MAX_VALUE - 8) {
+            throw new ProtocolDecoderException("AMQP frame too large - " + payloadSize);
+        }
+
+        // frame-max includes the frame header and frame-end octet, zero means no limit
+        if (frameMax != 0 && payloadSize + 8 > frameMax) {
+            AmqpCloseMessage close = new AmqpCloseMessage();
+            close.setReplyCode(FRAME_ERROR);
+            close.setReplyText("FRAME_ERROR - frame size " + (payloadSize + 8) + " exceeds frame-max " + frameMax);
+            session.write(close);
+            session.close(false);
+
+            // nothing after an oversized frame can be trusted
+            currentState = DecoderState.DISCARD;
+            in.skip(in.remaining());
+            return false;
+        }
+
+        int frameSize = (int) payloadSize + 8;
+        if (in.remaining() < frameSize) {
+            return false;
+        }
+
+        if ((in.get(start + frameSize - 1) & 0xFF) != AmqpClassMessage.FRAME_END) {
+            String s = Integer.toHexString(in.get(start + frameSize - 1) & 0xFF);
+            throw new ProtocolCodecException("Invalid end of AMQP Frame - " + s);
+        }
+
+        if (channelId == 0 && frameType == AmqpFrame.METHOD.type()) {
+            return decodeFrame(session, in, out);
+        }
+
+        // copy, as the cumulative buffer is compacted after decoding
+        ByteBuffer frame = allocator.allocate(frameSize);
+        int offset = frame.position();
+        ByteBuffer buf = in.buf();
+        int limit = buf.limit();
+        buf.limit(start + frameSize);
+        frame.put(buf);
+        buf.limit(limit);
+        frame.flip();
+        frame.position(offset);
+
+        out.write(allocator.wrap(frame));
+        return true;
+    }
+
     // ------------------ Private Methods -----------------------------------
     
     // Returns an array of length 2. The 0th element contains the userid and
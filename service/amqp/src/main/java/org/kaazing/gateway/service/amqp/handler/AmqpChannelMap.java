@@ -0,0 +1,72 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.amqp.handler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Channel numbers of a single multiplexed broker connection, allocated round robin
+ * from 1 up to the negotiated channel-max. Callers are responsible for synchronization.
+ */
+final class AmqpChannelMap<T> {
+
+    private final int channelMax;
+    private final Map<Integer, T> channels = new HashMap<>();
+    private int nextChannel = 1;
+
+    AmqpChannelMap(int channelMax) {
+        this.channelMax = channelMax;
+    }
+
+    /**
+     * Allocates a free channel number for the given value.
+     *
+     * @return the channel number, or zero if all channels are in use
+     */
+    int allocate(T value) {
+        if (channels.size() >= channelMax) {
+            return 0;
+        }
+
+        // round robin, so that a released channel is not reused straight away
+        while (channels.containsKey(nextChannel)) {
+            nextChannel = (nextChannel == channelMax) ? 1 : nextChannel + 1;
+        }
+        int channel = nextChannel;
+        channels.put(channel, value);
+        nextChannel = (nextChannel == channelMax) ? 1 : nextChannel + 1;
+        return channel;
+    }
+
+    T get(int channel) {
+        return channels.get(channel);
+    }
+
+    T release(int channel) {
+        return channels.remove(channel);
+    }
+
+    int available() {
+        return channelMax - channels.size();
+    }
+
+    Collection<T> values() {
+        return new ArrayList<>(channels.values());
+    }
+}
@@ -0,0 +1,886 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.amqp.handler;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.security.auth.login.LoginContext;
+import javax.security.auth.login.LoginException;
+
+import org.apache.mina.core.future.ConnectFuture;
+import org.apache.mina.core.future.IoFutureListener;
+import org.apache.mina.core.session.AttributeKey;
+import org.apache.mina.core.session.IoSession;
+import org.kaazing.gateway.security.LoginContextFactory;
+import org.kaazing.gateway.security.RealmContext;
+import org.kaazing.gateway.service.ServiceContext;
+import org.kaazing.gateway.service.amqp.amqp091.AmqpFrame;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpClassMessage;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpClassMessage.ClassKind;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpCloseMessage;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpCloseOkMessage;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpConnectionMessage;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpConnectionMessage.ConnectionMethodKind;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpOpenMessage;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpOpenOkMessage;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpProtocolHeaderMessage;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpStartMessage;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpStartOkMessage;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpTuneMessage;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpTuneOkMessage;
+import org.kaazing.gateway.transport.IoHandlerAdapter;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.session.IoSessionEx;
+import org.slf4j.Logger;
+
+/**
+ * Multiplexes the channels of many AMQP client connections onto a small pool of
+ * shared broker connections.
+ * <p>
+ * The gateway completes the connection handshake with each client itself, so that a
+ * client connection costs no broker connection. The credentials a client presents are
+ * checked against the service realm before it is tuned, since the shared broker
+ * connections log in with the credentials of the service. Every channel a client opens is mapped
+ * onto a free channel of the least loaded broker connection, and the channel number in
+ * the frame header is rewritten in both directions. Frames are otherwise relayed as-is.
+ * <p>
+ * Heartbeats are negotiated separately with each client and each broker connection. Reads
+ * from a client are suspended while more than the maximum pending bytes relayed for it, in
+ * either direction, are waiting to be written. Not reading a slow client's acknowledgements
+ * also holds back the broker deliveries to its consumers, as far as their prefetch limits.
+ */
+public class AmqpMultiplexer {
+    private static final String CLASS_NAME = AmqpMultiplexer.class.getName();
+
+    private static final AttributeKey CLIENT_KEY = new AttributeKey(AmqpMultiplexer.class, "client");
+    private static final AttributeKey BROKER_KEY = new AttributeKey(AmqpMultiplexer.class, "broker");
+
+    static final int CHANNEL_OPEN = 10;
+    static final int CHANNEL_CLOSE = 40;
+    static final int CHANNEL_CLOSE_OK = 41;
+
+    static final int REPLY_SUCCESS = 200;
+    static final int CONNECTION_FORCED = 320;
+    static final int ACCESS_REFUSED = 403;
+    static final int COMMAND_INVALID = 503;
+    static final int CHANNEL_ERROR = 504;
+    static final int UNEXPECTED_FRAME = 505;
+    static final int RESOURCE_ERROR = 506;
+    static final int NOT_ALLOWED = 530;
+
+    private static final int CHANNEL_MAX_DEFAULT = 65535;
+    private static final int FRAME_MAX_DEFAULT = 131072;
+
+    // how long a client may take to confirm a close initiated by the gateway
+    static final int CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final ServiceContext serviceContext;
+    private final String connectURI;
+    private final int connectionCount;
+    private final int maximumClientChannels;
+    private final int maximumPendingBytes;
+    private final int heartbeatDelay;
+    private final String username;
+    private final char[] password;
+    private final String virtualHost;
+    private final Consumer<IoSession> brokerSessionInitializer;
+    private final LoginContextFactory loginContextFactory;
+    private final ScheduledExecutorService scheduler;
+    private final Logger logger;
+
+    private final List<BrokerConnection> brokers = new CopyOnWriteArrayList<>();
+    private final Queue<ClientConnection> pendingClients = new ConcurrentLinkedQueue<>();
+    private final BrokerHandler brokerHandler = new BrokerHandler();
+
+    private volatile boolean started;
+
+    public AmqpMultiplexer(ServiceContext serviceContext,
+                           String connectURI,
+                           int connectionCount,
+                           int maximumClientChannels,
+                           int maximumPendingBytes,
+                           int heartbeatDelay,
+                           String username,
+                           char[] password,
+                           String virtualHost,
+                           Consumer<IoSession> brokerSessionInitializer) {
+        this.serviceContext = serviceContext;
+        this.connectURI = connectURI;
+        this.connectionCount = connectionCount;
+        this.maximumClientChannels = maximumClientChannels;
+        this.maximumPendingBytes = maximumPendingBytes;
+        this.heartbeatDelay = heartbeatDelay;
+        this.username = username;
+        this.password = password;
+        this.virtualHost = virtualHost;
+        this.brokerSessionInitializer = brokerSessionInitializer;
+        this.logger = serviceContext.getLogger();
+
+        RealmContext realm = serviceContext.getServiceRealm();
+        if (realm == null) {
+            throw new IllegalStateException("Multiplexing requires a realm to authenticate clients");
+        }
+        this.loginContextFactory = realm.getLoginContextFactory();
+        this.scheduler = serviceContext.getSchedulerProvider().getScheduler("multiplexer", false);
+    }
+
+    public void start() {
+        started = true;
+        connectIfNecessary();
+    }
+
+    public void stop() {
+        started = false;
+        for (BrokerConnection broker : brokers) {
+            IoSession session = broker.session;
+            if (session != null) {
+                session.close(true);
+            }
+            broker.stopHeartbeat();
+        }
+    }
+
+    /**
+     * Called once the filter chain of an accepted client session is in place.
+     */
+    public void clientOpened(IoSession session) {
+        session.setAttribute(CLIENT_KEY, new ClientConnection(session, maximumPendingBytes));
+    }
+
+    public void clientMessageReceived(IoSession session, Object message) {
+        ClientConnection client = (ClientConnection) session.getAttribute(CLIENT_KEY);
+        if (client == null) {
+            return;
+        }
+
+        Heartbeat heartbeat = client.heartbeat;
+        if (heartbeat != null) {
+            heartbeat.received = true;
+        }
+
+        if (message instanceof IoBufferEx) {
+            clientFrameReceived(client, (IoBufferEx) message);
+        }
+        else if (message instanceof AmqpProtocolHeaderMessage) {
+            session.write(new AmqpStartMessage());
+        }
+        else if (message instanceof AmqpConnectionMessage) {
+            clientConnectionMessageReceived(client, (AmqpConnectionMessage) message);
+        }
+    }
+
+    public void clientClosed(IoSession session) {
+        ClientConnection client = (ClientConnection) session.removeAttribute(CLIENT_KEY);
+        if (client == null) {
+            return;
+        }
+
+        pendingClients.remove(client);
+
+        List<ChannelRoute> routes;
+        LoginContext loginContext;
+        ScheduledFuture<?> closeTimeout;
+        synchronized (client) {
+            client.closing = true;
+            routes = new ArrayList<>(client.channels.values());
+            loginContext = client.loginContext;
+            closeTimeout = client.closeTimeout;
+        }
+
+        if (closeTimeout != null) {
+            closeTimeout.cancel(false);
+        }
+        client.stopHeartbeat();
+
+        if (loginContext != null) {
+            logout(client, loginContext);
+        }
+
+        // the broker keeps the channels until it has confirmed the close
+        for (ChannelRoute route : routes) {
+            route.orphaned = true;
+            IoSession brokerSession = route.broker.session;
+            if (route.brokerClosing) {
+                brokerSession.write(channelCloseOk(route.broker, route.brokerChannel));
+                route.broker.release(route);
+            }
+            else if (!route.clientClosing) {
+                route.clientClosing = true;
+                brokerSession.write(channelClose(route.broker, route.brokerChannel, REPLY_SUCCESS, "client closed"));
+            }
+        }
+    }
+
+    private void clientConnectionMessageReceived(ClientConnection client, AmqpConnectionMessage message) {
+        IoSession session = client.session;
+        switch (message.getMethodKind()) {
+        case START_OK:
+            // login modules may block, so the handshake continues once login completes off the I/O thread
+            AmqpStartOkMessage startOk = (AmqpStartOkMessage) message;
+            scheduler.execute(() -> loginCompleted(client, login(client, startOk)));
+            break;
+        case TUNE_OK:
+            AmqpTuneOkMessage tuneOk = (AmqpTuneOkMessage) message;
+            long frameMax = Integer.toUnsignedLong(tuneOk.getMaxFrameSize());
+            if (frameMax == 0 || frameMax > client.frameMax) {
+                // frames are relayed as-is, so they must fit within the frame-max of the broker
+                close(client, NOT_ALLOWED, "NOT_ALLOWED - frame-max not within " + client.frameMax,
+                        ClassKind.CONNECTION, ConnectionMethodKind.TUNE_OK.methodId());
+                break;
+            }
+
+            int clientHeartbeatDelay = tuneOk.getHeartbeatDelay();
+            if (clientHeartbeatDelay > 0) {
+                client.startHeartbeat(new Heartbeat(session), clientHeartbeatDelay);
+            }
+            break;
+        case OPEN:
+            String requested = ((AmqpOpenMessage) message).getVirtualHost();
+            if (!client.isAuthenticated()) {
+                close(client, COMMAND_INVALID, "COMMAND_INVALID - connection not authenticated",
+                        ClassKind.CONNECTION, ConnectionMethodKind.OPEN.methodId());
+            }
+            else if (virtualHost.equals(requested)) {
+                client.setOpened();
+                session.write(new AmqpOpenOkMessage());
+            }
+            else {
+                close(client, NOT_ALLOWED, "NOT_ALLOWED - virtual host not available: " + requested,
+                        ClassKind.CONNECTION, ConnectionMethodKind.OPEN.methodId());
+            }
+            break;
+        case CLOSE:
+            session.write(new AmqpCloseOkMessage());
+            session.close(false);
+            break;
+        case CLOSE_OK:
+            session.close(false);
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void clientFrameReceived(ClientConnection client, IoBufferEx frame) {
+        int position = frame.position();
+        int channel = frame.getUnsignedShort(position + 1);
+        if (channel == 0) {
+            // heartbeats have already been noted, connection methods are decoded separately
+            if (frame.get(position) != AmqpFrame.HEARTBEAT.type()) {
+                close(client, UNEXPECTED_FRAME, "UNEXPECTED_FRAME - frame type " + frame.get(position) +
+                        " on channel 0", null, 0);
+            }
+            return;
+        }
+
+        ChannelRoute route;
+        boolean opened;
+        synchronized (client) {
+            if (client.closing) {
+                return;
+            }
+            opened = client.opened;
+            route = client.channels.get(channel);
+        }
+
+        if (!opened) {
+            close(client, COMMAND_INVALID, "COMMAND_INVALID - connection not open", null, 0);
+            return;
+        }
+
+        if (route == null) {
+            if (!isChannelMethod(frame, CHANNEL_OPEN)) {
+                close(client, CHANNEL_ERROR, "CHANNEL_ERROR - channel not open: " + channel, ClassKind.CHANNEL, 0);
+                return;
+            }
+
+            route = openChannel(client, channel);
+            if (route == null) {
+                return;
+            }
+        }
+        else if (isChannelMethod(frame, CHANNEL_OPEN)) {
+            close(client, CHANNEL_ERROR, "CHANNEL_ERROR - channel already open: " + channel, ClassKind.CHANNEL, CHANNEL_OPEN);
+            return;
+        }
+        else if (isChannelMethod(frame, CHANNEL_CLOSE)) {
+            route.clientClosing = true;
+        }
+
+        boolean closeOk = isChannelMethod(frame, CHANNEL_CLOSE_OK);
+
+        frame.putShort(position + 1, (short) route.brokerChannel);
+        relay(client, route.broker.session, frame);
+
+        if (closeOk) {
+            // confirms a close initiated by the broker
+            route.broker.release(route);
+        }
+    }
+
+    private ChannelRoute openChannel(ClientConnection client, int channel) {
+        if (channel > maximumClientChannels) {
+            close(client, NOT_ALLOWED, "NOT_ALLOWED - channel-max exceeded: " + channel, ClassKind.CHANNEL, CHANNEL_OPEN);
+            return null;
+        }
+
+        BrokerConnection broker = leastLoaded();
+        ChannelRoute route = (broker != null) ? new ChannelRoute(client, channel, broker) : null;
+        if (route == null || !broker.allocate(route)) {
+            close(client, RESOURCE_ERROR, "RESOURCE_ERROR - no broker channel available", ClassKind.CHANNEL, CHANNEL_OPEN);
+            return null;
+        }
+
+        synchronized (client) {
+            client.channels.put(channel, route);
+        }
+        return route;
+    }
+
+    private void brokerFrameReceived(BrokerConnection broker, IoBufferEx frame) {
+        int position = frame.position();
+        int channel = frame.getUnsignedShort(position + 1);
+        if (channel == 0) {
+            return;
+        }
+
+        ChannelRoute route = broker.get(channel);
+        if (route == null) {
+            return;
+        }
+
+        boolean close = isChannelMethod(frame, CHANNEL_CLOSE);
+        boolean closeOk = isChannelMethod(frame, CHANNEL_CLOSE_OK);
+
+        if (route.orphaned) {
+            // the client is gone, complete the close on its behalf
+            if (close) {
+                broker.session.write(channelCloseOk(broker, channel));
+                broker.release(route);
+            }
+            else if (closeOk) {
+                broker.release(route);
+            }
+            return;
+        }
+
+        if (close) {
+            route.brokerClosing = true;
+        }
+
+        frame.putShort(position + 1, (short) route.clientChannel);
+        relay(route.client, route.client.session, frame);
+
+        if (closeOk) {
+            broker.release(route);
+        }
+    }
+
+    private void relay(ClientConnection client, IoSession session, IoBufferEx frame) {
+        final int size = frame.remaining();
+        client.scheduled(size);
+        session.write(frame).addListener(future -> client.written(size));
+    }
+
+    private void brokerConnectionMessageReceived(BrokerConnection broker, AmqpConnectionMessage message) {
+        IoSession session = broker.session;
+        switch (message.getMethodKind()) {
+        case START:
+            AmqpStartMessage start = (AmqpStartMessage) message;
+            String mechanisms = start.getSecurityMechanisms();
+            AmqpStartOkMessage startOk = new AmqpStartOkMessage();
+            startOk.setSecurityMechanism(mechanisms.contains("AMQPLAIN") ? "AMQPLAIN" : "PLAIN");
+            startOk.setUsername(username);
+            startOk.setPassword(password);
+            startOk.setLocale("en_US");
+            session.write(startOk);
+            break;
+        case TUNE:
+            AmqpTuneMessage tune = (AmqpTuneMessage) message;
+            int channelMax = (tune.getMaxChannels() == 0) ? CHANNEL_MAX_DEFAULT : tune.getMaxChannels();
+            int frameMax = (tune.getMaxFrameSize() == 0) ? FRAME_MAX_DEFAULT : tune.getMaxFrameSize();
+            broker.tune(channelMax, frameMax);
+
+            // accept the heartbeat the broker proposes, so that it notices a lost gateway
+            int brokerHeartbeatDelay = tune.getHeartbeatDelay();
+            if (brokerHeartbeatDelay > 0) {
+                broker.startHeartbeat(new Heartbeat(session), brokerHeartbeatDelay);
+            }
+
+            AmqpTuneOkMessage tuneOk = new AmqpTuneOkMessage();
+            tuneOk.setMaxChannels(channelMax);
+            tuneOk.setMaxFrameSize(frameMax);
+            tuneOk.setHeartbeatDelay(brokerHeartbeatDelay);
+            session.write(tuneOk);
+
+            AmqpOpenMessage open = new AmqpOpenMessage();
+            open.setVirtualHost(virtualHost);
+            session.write(open);
+            break;
+        case OPEN_OK:
+            broker.ready = true;
+            if (logger.isDebugEnabled()) {
+                logger.debug(CLASS_NAME + ": broker connection ready " + session);
+            }
+
+            ClientConnection client;
+            while ((client = pendingClients.poll()) != null) {
+                tune(client, broker.frameMax);
+            }
+            break;
+        case CLOSE:
+            AmqpCloseMessage close = (AmqpCloseMessage) message;
+            logger.warn(String.format("Broker closed multiplexed connection: %d %s", close.getReplyCode(), close.getReplyText()));
+            session.write(new AmqpCloseOkMessage());
+            session.close(false);
+            break;
+        case CLOSE_OK:
+            session.close(false);
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void brokerClosed(BrokerConnection broker) {
+        brokers.remove(broker);
+        broker.ready = false;
+        broker.stopHeartbeat();
+
+        for (ChannelRoute route : broker.routes()) {
+            if (!route.orphaned) {
+                close(route.client, CONNECTION_FORCED, "CONNECTION_FORCED - broker connection lost", null, 0);
+            }
+        }
+
+        connectIfNecessary();
+    }
+
+    private boolean login(ClientConnection client, AmqpStartOkMessage startOk) {
+        String clientUsername = startOk.getUsername();
+        char[] clientPassword = startOk.getPassword();
+        if (clientUsername == null || clientPassword == null) {
+            return false;
+        }
+
+        LoginContext loginContext;
+        try {
+            loginContext = loginContextFactory.createLoginContext(null, clientUsername, clientPassword);
+            loginContext.login();
+        }
+        catch (LoginException e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug(CLASS_NAME + ": login refused for " + client.session + ": " + e);
+            }
+            return false;
+        }
+
+        boolean closing;
+        synchronized (client) {
+            closing = client.closing;
+            if (!closing) {
+                client.loginContext = loginContext;
+            }
+        }
+
+        if (closing) {
+            // the client went away while logging in
+            logout(client, loginContext);
+            return false;
+        }
+        return true;
+    }
+
+    private void loginCompleted(ClientConnection client, boolean succeeded) {
+        if (!succeeded) {
+            close(client, ACCESS_REFUSED, "ACCESS_REFUSED - login refused",
+                    ClassKind.CONNECTION, ConnectionMethodKind.START_OK.methodId());
+            return;
+        }
+
+        BrokerConnection broker = leastLoaded();
+        if (broker != null) {
+            tune(client, broker.frameMax);
+        }
+        else {
+            // tuned as soon as a broker connection is ready
+            pendingClients.add(client);
+            connectIfNecessary();
+        }
+    }
+
+    private void logout(ClientConnection client, LoginContext loginContext) {
+        try {
+            loginContext.logout();
+        }
+        catch (LoginException e) {
+            logger.debug(CLASS_NAME + ": logout failed for " + client.session, e);
+        }
+    }
+
+    private void tune(ClientConnection client, int frameMax) {
+        client.frameMax = frameMax;
+
+        AmqpTuneMessage tune = new AmqpTuneMessage();
+        tune.setMaxChannels(maximumClientChannels);
+        tune.setMaxFrameSize(frameMax);
+        tune.setHeartbeatDelay(heartbeatDelay);
+        client.session.write(tune);
+    }
+
+    private void close(ClientConnection client, int replyCode, String replyText, ClassKind reasonClass, int reasonMethod) {
+        synchronized (client) {
+            if (client.closing) {
+                return;
+            }
+            client.closing = true;
+        }
+
+        AmqpCloseMessage close = new AmqpCloseMessage();
+        close.setReplyCode(replyCode);
+        close.setReplyText(replyText);
+        close.setReasonClassKind(reasonClass);
+        close.setReasonMethodId(reasonMethod);
+        client.session.write(close);
+
+        // do not wait forever for the client to confirm
+        ScheduledFuture<?> closeTimeout = scheduler.schedule(() -> client.session.close(true),
+                CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        synchronized (client) {
+            client.closeTimeout = closeTimeout;
+        }
+    }
+
+    private BrokerConnection leastLoaded() {
+        BrokerConnection leastLoaded = null;
+        int available = 0;
+        for (BrokerConnection broker : brokers) {
+            int brokerAvailable = broker.available();
+            if (broker.ready && brokerAvailable > available) {
+                leastLoaded = broker;
+                available = brokerAvailable;
+            }
+        }
+        return leastLoaded;
+    }
+
+    private void connectIfNecessary() {
+        while (started && brokers.size() < connectionCount) {
+            connect();
+        }
+    }
+
+    private void connect() {
+        final BrokerConnection broker = new BrokerConnection();
+        brokers.add(broker);
+
+        ConnectFuture future = serviceContext.connect(connectURI, brokerHandler, (session, connectFuture) -> {
+            broker.session = session;
+            session.setAttribute(BROKER_KEY, broker);
+            brokerSessionInitializer.accept(session);
+        });
+
+        future.addListener(new IoFutureListener<ConnectFuture>() {
+            @Override
+            public void operationComplete(ConnectFuture future) {
+                if (!future.isConnected()) {
+                    // not retried here, the next client handshake tries again
+                    logger.warn("Multiplexed connection to " + connectURI + " failed");
+                    brokers.remove(broker);
+
+                    if (brokers.isEmpty()) {
+                        ClientConnection client;
+                        while ((client = pendingClients.poll()) != null) {
+                            client.session.close(true);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    static boolean isChannelMethod(IoBufferEx frame, int methodId) {
+        int position = frame.position();
+        return frame.remaining() >= 12 &&
+               frame.get(position) == AmqpFrame.METHOD.type() &&
+               frame.getUnsignedShort(position + 7) == ClassKind.CHANNEL.classId() &&
+               frame.getUnsignedShort(position + 9) == methodId;
+    }
+
+    static IoBufferEx channelClose(BrokerConnection broker, int channel, int replyCode, String replyText) {
+        byte[] text = replyText.getBytes(StandardCharsets.UTF_8);
+        IoBufferAllocatorEx<?> allocator = ((IoSessionEx) broker.session).getBufferAllocator();
+        ByteBuffer buf = allocator.allocate(20 + text.length);
+        int offset = buf.position();
+        buf.put(AmqpFrame.METHOD.type());
+        buf.putShort((short) channel);
+        buf.putInt(12 + text.length);
+        buf.putShort(ClassKind.CHANNEL.classId());
+        buf.putShort((short) CHANNEL_CLOSE);
+        buf.putShort((short) replyCode);
+        buf.put((byte) text.length);
+        buf.put(text);
+        buf.putShort((short) 0);
+        buf.putShort((short) 0);
+        buf.put((byte) AmqpClassMessage.FRAME_END);
+        buf.flip();
+        buf.position(offset);
+        return allocator.wrap(buf);
+    }
+
+    static IoBufferEx heartbeat(IoSession session) {
+        IoBufferAllocatorEx<?> allocator = ((IoSessionEx) session).getBufferAllocator();
+        ByteBuffer buf = allocator.allocate(8);
+        int offset = buf.position();
+        buf.put(AmqpFrame.HEARTBEAT.type());
+        buf.putShort((short) 0);
+        buf.putInt(0);
+        buf.put((byte) AmqpClassMessage.FRAME_END);
+        buf.flip();
+        buf.position(offset);
+        return allocator.wrap(buf);
+    }
+
+    static IoBufferEx channelCloseOk(BrokerConnection broker, int channel) {
+        IoBufferAllocatorEx<?> allocator = ((IoSessionEx) broker.session).getBufferAllocator();
+        ByteBuffer buf = allocator.allocate(12);
+        int offset = buf.position();
+        buf.put(AmqpFrame.METHOD.type());
+        buf.putShort((short) channel);
+        buf.putInt(4);
+        buf.putShort(ClassKind.CHANNEL.classId());
+        buf.putShort((short) CHANNEL_CLOSE_OK);
+        buf.put((byte) AmqpClassMessage.FRAME_END);
+        buf.flip();
+        buf.position(offset);
+        return allocator.wrap(buf);
+    }
+
+    private final class BrokerHandler extends IoHandlerAdapter<IoSessionEx> {
+
+        @Override
+        protected void doMessageReceived(IoSessionEx session, Object message) throws Exception {
+            BrokerConnection broker = (BrokerConnection) session.getAttribute(BROKER_KEY);
+            Heartbeat heartbeat = broker.heartbeat;
+            if (heartbeat != null) {
+                heartbeat.received = true;
+            }
+
+            if (message instanceof IoBufferEx) {
+                brokerFrameReceived(broker, (IoBufferEx) message);
+            }
+            else if (message instanceof AmqpConnectionMessage) {
+                brokerConnectionMessageReceived(broker, (AmqpConnectionMessage) message);
+            }
+        }
+
+        @Override
+        protected void doSessionOpened(IoSessionEx session) throws Exception {
+            session.write(new AmqpProtocolHeaderMessage());
+        }
+
+        @Override
+        protected void doSessionClosed(IoSessionEx session) throws Exception {
+            BrokerConnection broker = (BrokerConnection) session.getAttribute(BROKER_KEY);
+            if (broker != null) {
+                brokerClosed(broker);
+            }
+        }
+
+        @Override
+        protected void doExceptionCaught(IoSessionEx session, Throwable cause) throws Exception {
+            logger.warn("Error on multiplexed connection to " + connectURI + ": " + cause);
+            session.close(true);
+        }
+    }
+
+    // Sends a heartbeat frame every interval, and closes the connection once nothing has been
+    // received from the peer for two intervals.
+    private final class Heartbeat implements Runnable {
+        private final IoSession session;
+        volatile boolean received = true;
+        private int missed;
+
+        Heartbeat(IoSession session) {
+            this.session = session;
+        }
+
+        ScheduledFuture<?> start(int delay) {
+            return scheduler.scheduleAtFixedRate(this, delay, delay, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void run() {
+            // a client is not silent while its reads are suspended for flow control
+            if (received || session.isReadSuspended()) {
+                received = false;
+                missed = 0;
+            }
+            else if (++missed == 2) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug(CLASS_NAME + ": missed heartbeats, closing " + session);
+                }
+                session.close(true);
+                return;
+            }
+            session.write(heartbeat(session));
+        }
+    }
+
+    static final class BrokerConnection {
+        volatile IoSession session;
+        volatile boolean ready;
+        volatile int frameMax = FRAME_MAX_DEFAULT;
+        volatile Heartbeat heartbeat;
+        private ScheduledFuture<?> heartbeatFuture;
+        private AmqpChannelMap<ChannelRoute> channels = new AmqpChannelMap<>(0);
+
+        synchronized void startHeartbeat(Heartbeat heartbeat, int delay) {
+            this.heartbeat = heartbeat;
+            this.heartbeatFuture = heartbeat.start(delay);
+        }
+
+        synchronized void stopHeartbeat() {
+            if (heartbeatFuture != null) {
+                heartbeatFuture.cancel(false);
+                heartbeatFuture = null;
+            }
+        }
+
+        synchronized void tune(int channelMax, int frameMax) {
+            this.frameMax = frameMax;
+            this.channels = new AmqpChannelMap<>(channelMax);
+        }
+
+        synchronized boolean allocate(ChannelRoute route) {
+            route.brokerChannel = channels.allocate(route);
+            return route.brokerChannel != 0;
+        }
+
+        synchronized ChannelRoute get(int channel) {
+            return channels.get(channel);
+        }
+
+        synchronized int available() {
+            return channels.available();
+        }
+
+        synchronized List<ChannelRoute> routes() {
+            return new ArrayList<>(channels.values());
+        }
+
+        void release(ChannelRoute route) {
+            synchronized (this) {
+                if (channels.get(route.brokerChannel) == route) {
+                    channels.release(route.brokerChannel);
+                }
+            }
+            route.client.remove(route);
+        }
+    }
+
+    static final class ClientConnection {
+        final IoSession session;
+        final Map<Integer, ChannelRoute> channels = new HashMap<>();
+        private final int maximumPendingBytes;
+        volatile long frameMax;
+        volatile Heartbeat heartbeat;
+        LoginContext loginContext;
+        boolean opened;
+        boolean closing;
+        ScheduledFuture<?> closeTimeout;
+        private ScheduledFuture<?> heartbeatFuture;
+        private long pendingBytes;
+        private boolean readSuspended;
+
+        ClientConnection(IoSession session, int maximumPendingBytes) {
+            this.session = session;
+            this.maximumPendingBytes = maximumPendingBytes;
+        }
+
+        synchronized void startHeartbeat(Heartbeat heartbeat, int delay) {
+            if (!closing && heartbeatFuture == null) {
+                this.heartbeat = heartbeat;
+                this.heartbeatFuture = heartbeat.start(delay);
+            }
+        }
+
+        synchronized void stopHeartbeat() {
+            if (heartbeatFuture != null) {
+                heartbeatFuture.cancel(false);
+                heartbeatFuture = null;
+            }
+        }
+
+        // suspends reads above the maximum pending bytes, and resumes them below half of that
+        synchronized void scheduled(int bytes) {
+            pendingBytes += bytes;
+            if (!readSuspended && pendingBytes > maximumPendingBytes) {
+                readSuspended = true;
+                session.suspendRead();
+            }
+        }
+
+        synchronized void written(int bytes) {
+            pendingBytes -= bytes;
+            if (readSuspended && pendingBytes <= maximumPendingBytes / 2) {
+                readSuspended = false;
+                session.resumeRead();
+            }
+        }
+
+        synchronized boolean isAuthenticated() {
+            return loginContext != null && !closing;
+        }
+
+        synchronized void setOpened() {
+            opened = true;
+        }
+
+        synchronized void remove(ChannelRoute route) {
+            channels.remove(route.clientChannel, route);
+        }
+    }
+
+    static final class ChannelRoute {
+        final ClientConnection client;
+        final int clientChannel;
+        final BrokerConnection broker;
+        int brokerChannel;
+        volatile boolean clientClosing;
+        volatile boolean brokerClosing;
+        volatile boolean orphaned;
+
+        ChannelRoute(ClientConnection client, int clientChannel, BrokerConnection broker) {
+            this.client = client;
+            this.clientChannel = clientChannel;
+            this.broker = broker;
+        }
+    }
+}
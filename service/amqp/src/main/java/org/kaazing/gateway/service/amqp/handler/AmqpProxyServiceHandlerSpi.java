@@ -28,6 +28,20 @@ import org.slf4j.Logger;
 public class AmqpProxyServiceHandlerSpi extends ProxyServiceHandlerSpi {
     private static final String CLASS_NAME = AmqpProxyServiceHandlerSpi.class.getName();
 
+    private AmqpMultiplexer multiplexer;
+
+    public AmqpMultiplexer getMultiplexer() {
+        return multiplexer;
+    }
+
+    /**
+     * Routes the channels of accepted connections over the shared broker connections of the
+     * given multiplexer, instead of connecting to the broker once per accepted connection.
+     */
+    public void setMultiplexer(AmqpMultiplexer multiplexer) {
+        this.multiplexer = multiplexer;
+    }
+
     @Override
     public void sessionCreated(IoSession ioSession) {
         Logger logger = getServiceContext().getLogger();
@@ -37,6 +51,27 @@ public class AmqpProxyServiceHandlerSpi extends ProxyServiceHandlerSpi {
 
         super.sessionCreated(ioSession);
     }
+
+    @Override
+    public void sessionOpened(IoSession ioSession) {
+        if (multiplexer == null) {
+            super.sessionOpened(ioSession);
+        }
+        else if (!ioSession.isClosing()) {
+            initFilterChain(ioSession, false);
+            multiplexer.clientOpened(ioSession);
+        }
+    }
+
+    @Override
+    public void messageReceived(IoSession ioSession, Object message) {
+        if (multiplexer == null) {
+            super.messageReceived(ioSession, message);
+        }
+        else {
+            multiplexer.clientMessageReceived(ioSession, message);
+        }
+    }
     
     @Override
     public void sessionClosed(IoSession ioSession) {
@@ -44,6 +79,9 @@ public class AmqpProxyServiceHandlerSpi extends ProxyServiceHandlerSpi {
         if (logger.isDebugEnabled()) {
             logger.debug("Session closed: " + ioSession);
         }
+        if (multiplexer != null) {
+            multiplexer.clientClosed(ioSession);
+        }
         super.sessionClosed(ioSession);
     }
 
@@ -59,7 +97,7 @@ public class AmqpProxyServiceHandlerSpi extends ProxyServiceHandlerSpi {
 
         // Eventually, the protocol will be available as a property of
         // the service. For time being, let's hardcode it to AMQP 0_9_1.
-        ProtocolCodecFilter codec = new AmqpCodecFilter(client);
+        ProtocolCodecFilter codec = new AmqpCodecFilter(client, multiplexer != null);
         IoFilterChain filterChain = session.getFilterChain();
 
         filterChain.addLast(AmqpCodecFilter.NAME, codec);
@@ -69,6 +107,10 @@ public class AmqpProxyServiceHandlerSpi extends ProxyServiceHandlerSpi {
         }
     }
 
+    public void initBrokerSession(IoSession session) {
+        initFilterChain(session, true);
+    }
+
     @Override
     public Collection<String> getProtocols() {
         return Collections.singleton("amqp/0.9.1");
@@ -22,12 +22,16 @@ import static org.kaazing.gateway.service.amqp.amqp091.message.AmqpConnectionMes
 
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
 
 import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.filterchain.IoFilterAdapter;
 import org.apache.mina.core.service.DefaultTransportMetadata;
+import org.apache.mina.core.session.IoSession;
 import org.apache.mina.core.session.IoSessionConfig;
+import org.apache.mina.core.write.WriteRequest;
 import org.apache.mina.filter.codec.ProtocolDecoderOutput;
 import org.junit.Test;
 import org.kaazing.gateway.service.amqp.amqp091.AmqpTable.AmqpTableEntry;
@@ -44,6 +48,7 @@ import org.kaazing.gateway.service.amqp.amqp091.message.AmqpStartOkMessage;
 import org.kaazing.gateway.service.amqp.amqp091.message.AmqpTuneMessage;
 import org.kaazing.gateway.service.amqp.amqp091.message.AmqpTuneOkMessage;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
 import org.kaazing.mina.filter.codec.ProtocolCodecSessionEx;
 
 
@@ -558,4 +563,111 @@ public class AmqpMessageDecoderTest {
         assertEquals(65535, actual.getMaxFrameSize());
         assertEquals(0, actual.getHeartbeatDelay());
     }
+
+    @Test
+    public void decodeMultiplexedFrames() throws Exception {
+        ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+
+        session.setTransportMetadata(new DefaultTransportMetadata(
+                "mina", "dummy", false, true,
+                SocketAddress.class, IoSessionConfig.class, Object.class));
+
+        ProtocolDecoderOutput output = session.getDecoderOutput();
+        Queue<Object> outputQueue = session.getDecoderOutputQueue();
+
+        AmqpMessageDecoder decoder = new AmqpMessageDecoder(allocator, true, true);
+
+        // connection.open-ok, then channel.open on channel 1 split across two reads
+        byte[] openOk = {0x01, 0x00, 0x00, 0x00, 0x00, 0x00, 0x05,
+                         0x00, 0x0a, 0x00, 0x29, 0x00, (byte)0xce};
+        byte[] channelOpen = {0x01, 0x00, 0x01, 0x00, 0x00, 0x00, 0x05,
+                              0x00, 0x14, 0x00, 0x0a, 0x00, (byte)0xce};
+
+        ByteBuffer buf = allocator.allocate(openOk.length + 4);
+        buf.put(openOk);
+        buf.put(channelOpen, 0, 4);
+        buf.flip();
+        decoder.decode(session, (IoBuffer) allocator.wrap(buf), output);
+
+        AmqpOpenOkMessage actualOpenOk = (AmqpOpenOkMessage) outputQueue.poll();
+        assertEquals(ConnectionMethodKind.OPEN_OK, actualOpenOk.getMethodKind());
+        assertEquals(0, outputQueue.size());
+
+        buf = allocator.allocate(channelOpen.length - 4);
+        buf.put(channelOpen, 4, channelOpen.length - 4);
+        buf.flip();
+        decoder.decode(session, (IoBuffer) allocator.wrap(buf), output);
+
+        IoBufferEx frame = (IoBufferEx) outputQueue.poll();
+        assertEquals(0, outputQueue.size());
+        byte[] actualFrame = new byte[frame.remaining()];
+        frame.get(actualFrame);
+        assertArrayEquals(channelOpen, actualFrame);
+
+        // connection methods are still decoded after the handshake
+        byte[] close = {0x01, 0x00, 0x00, 0x00, 0x00, 0x00, 0x0b,
+                        0x00, 0x0a, 0x00, 0x32, 0x00, 0x00, 0x00,
+                        0x00, 0x00, 0x00, 0x00, (byte)0xce};
+        buf = allocator.allocate(close.length);
+        buf.put(close);
+        buf.flip();
+        decoder.decode(session, (IoBuffer) allocator.wrap(buf), output);
+
+        AmqpCloseMessage actualClose = (AmqpCloseMessage) outputQueue.poll();
+        assertEquals(ConnectionMethodKind.CLOSE, actualClose.getMethodKind());
+        assertEquals(0, outputQueue.size());
+    }
+
+    @Test
+    public void rejectMultiplexedFrameLargerThanFrameMax() throws Exception {
+        ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+
+        session.setTransportMetadata(new DefaultTransportMetadata(
+                "mina", "dummy", false, true,
+                SocketAddress.class, IoSessionConfig.class, Object.class));
+
+        final List<Object> written = new ArrayList<>();
+        session.getFilterChain().addLast("capture", new IoFilterAdapter() {
+            @Override
+            public void filterWrite(NextFilter nextFilter, IoSession session, WriteRequest writeRequest) {
+                written.add(writeRequest.getMessage());
+            }
+        });
+
+        ProtocolDecoderOutput output = session.getDecoderOutput();
+        Queue<Object> outputQueue = session.getDecoderOutputQueue();
+
+        AmqpMessageDecoder decoder = new AmqpMessageDecoder(allocator, true, true);
+
+        // connection.tune with a frame-max of 4096, then connection.open-ok
+        byte[] tune = {0x01, 0x00, 0x00, 0x00, 0x00, 0x00, 0x0c,
+                       0x00, 0x0a, 0x00, 0x1e, 0x00, 0x10, 0x00,
+                       0x00, 0x10, 0x00, 0x00, 0x00, (byte)0xce};
+        byte[] openOk = {0x01, 0x00, 0x00, 0x00, 0x00, 0x00, 0x05,
+                         0x00, 0x0a, 0x00, 0x29, 0x00, (byte)0xce};
+
+        ByteBuffer buf = allocator.allocate(tune.length + openOk.length);
+        buf.put(tune);
+        buf.put(openOk);
+        buf.flip();
+        decoder.decode(session, (IoBuffer) allocator.wrap(buf), output);
+
+        assertEquals(4096, ((AmqpTuneMessage) outputQueue.poll()).getMaxFrameSize());
+        assertTrue(outputQueue.poll() instanceof AmqpOpenOkMessage);
+
+        // content body one octet too large, only its header has arrived so far
+        buf = allocator.allocate(7);
+        buf.put(AmqpFrame.BODY.type());
+        buf.putShort((short) 1);
+        buf.putInt(4096 - 7);
+        buf.flip();
+        decoder.decode(session, (IoBuffer) allocator.wrap(buf), output);
+
+        assertEquals(0, outputQueue.size());
+        assertEquals(1, written.size());
+        assertEquals(501, ((AmqpCloseMessage) written.get(0)).getReplyCode());
+        assertTrue(session.isClosing());
+    }
 }
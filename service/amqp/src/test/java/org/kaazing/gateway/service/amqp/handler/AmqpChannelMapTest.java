@@ -0,0 +1,49 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.amqp.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class AmqpChannelMapTest {
+
+    @Test
+    public void shouldAllocateChannelsUpToChannelMax() {
+        AmqpChannelMap<String> channels = new AmqpChannelMap<>(3);
+
+        assertEquals(1, channels.allocate("a"));
+        assertEquals(2, channels.allocate("b"));
+        assertEquals(3, channels.allocate("c"));
+        assertEquals(0, channels.allocate("d"));
+        assertEquals(0, channels.available());
+        assertEquals("b", channels.get(2));
+    }
+
+    @Test
+    public void shouldNotReuseReleasedChannelStraightAway() {
+        AmqpChannelMap<String> channels = new AmqpChannelMap<>(3);
+        channels.allocate("a");
+        channels.allocate("b");
+
+        assertEquals("a", channels.release(1));
+        assertNull(channels.get(1));
+        assertEquals(3, channels.allocate("c"));
+        assertEquals(1, channels.allocate("d"));
+        assertEquals(0, channels.available());
+    }
+}
@@ -0,0 +1,531 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.amqp.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.security.auth.login.LoginContext;
+import javax.security.auth.login.LoginException;
+
+import org.apache.mina.core.filterchain.IoFilterAdapter;
+import org.apache.mina.core.future.ConnectFuture;
+import org.apache.mina.core.future.DefaultConnectFuture;
+import org.apache.mina.core.service.IoHandler;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.session.IoSessionInitializer;
+import org.apache.mina.core.write.WriteRequest;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.api.Invocation;
+import org.jmock.lib.action.CustomAction;
+import org.jmock.lib.concurrent.DeterministicScheduler;
+import org.jmock.lib.concurrent.Synchroniser;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.gateway.security.LoginContextFactory;
+import org.kaazing.gateway.security.RealmContext;
+import org.kaazing.gateway.service.ServiceContext;
+import org.kaazing.gateway.service.amqp.amqp091.AmqpFrame;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpClassMessage;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpClassMessage.ClassKind;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpCloseMessage;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpOpenMessage;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpOpenOkMessage;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpStartMessage;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpStartOkMessage;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpTuneMessage;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpTuneOkMessage;
+import org.kaazing.gateway.util.scheduler.SchedulerProvider;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator;
+import org.kaazing.mina.core.session.DummySessionEx;
+import org.slf4j.Logger;
+
+public class AmqpMultiplexerTest {
+    private static final String CONNECT_URI = "tcp://localhost:5672";
+    private static final int MAXIMUM_PENDING_BYTES = 1024;
+    private static final int HEARTBEAT_DELAY = 60;
+
+    private Mockery context;
+    private ServiceContext serviceContext;
+    private LoginContextFactory loginContextFactory;
+    private LoginContext loginContext;
+    private DeterministicScheduler scheduler;
+    private List<DummySessionEx> brokerSessions;
+    private AmqpMultiplexer multiplexer;
+
+    @Before
+    public void setUp() throws Exception {
+        context = new Mockery() {{
+            setImposteriser(ClassImposteriser.INSTANCE);
+        }};
+        context.setThreadingPolicy(new Synchroniser());
+        serviceContext = context.mock(ServiceContext.class);
+        loginContextFactory = context.mock(LoginContextFactory.class);
+        loginContext = context.mock(LoginContext.class);
+        final RealmContext realm = context.mock(RealmContext.class);
+        final Logger logger = context.mock(Logger.class);
+        final SchedulerProvider schedulerProvider = context.mock(SchedulerProvider.class);
+        scheduler = new DeterministicScheduler();
+        brokerSessions = new ArrayList<>();
+
+        context.checking(new Expectations() {
+            {
+                allowing(serviceContext).getLogger(); will(returnValue(logger));
+                allowing(serviceContext).getServiceRealm(); will(returnValue(realm));
+                allowing(realm).getLoginContextFactory(); will(returnValue(loginContextFactory));
+                allowing(serviceContext).getSchedulerProvider(); will(returnValue(schedulerProvider));
+                allowing(schedulerProvider).getScheduler(with(any(String.class)), with(any(boolean.class)));
+                will(returnValue(scheduler));
+                allowing(logger);
+                allowing(loginContext).logout();
+                allowing(serviceContext).connect(with(CONNECT_URI), with(any(IoHandler.class)),
+                        with(any(IoSessionInitializer.class)));
+                will(new CustomAction("connect broker session") {
+                    @SuppressWarnings("unchecked")
+                    @Override
+                    public Object invoke(Invocation invocation) throws Throwable {
+                        DummySessionEx session = new DummySessionEx();
+                        session.setHandler((IoHandler) invocation.getParameter(1));
+                        capture(session);
+                        DefaultConnectFuture future = new DefaultConnectFuture();
+                        IoSessionInitializer<ConnectFuture> initializer =
+                                (IoSessionInitializer<ConnectFuture>) invocation.getParameter(2);
+                        initializer.initializeSession(session, future);
+                        future.setSession(session);
+                        brokerSessions.add(session);
+                        return future;
+                    }
+                });
+            }
+        });
+
+        multiplexer = new AmqpMultiplexer(serviceContext, CONNECT_URI, 1, 16, MAXIMUM_PENDING_BYTES, HEARTBEAT_DELAY,
+                "service", "secret".toCharArray(), "/", session -> { });
+        multiplexer.start();
+        handshake(brokerSessions.get(0), 10, 0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRequireServiceRealm() throws Exception {
+        final ServiceContext serviceContext = context.mock(ServiceContext.class, "serviceWithoutRealm");
+        context.checking(new Expectations() {
+            {
+                allowing(serviceContext).getLogger(); will(returnValue(null));
+                allowing(serviceContext).getServiceRealm(); will(returnValue(null));
+            }
+        });
+
+        new AmqpMultiplexer(serviceContext, CONNECT_URI, 1, 16, MAXIMUM_PENDING_BYTES, HEARTBEAT_DELAY, "service",
+                "secret".toCharArray(), "/", session -> { });
+    }
+
+    @Test
+    public void shouldLoginToBrokerWithServiceCredentials() throws Exception {
+        AmqpStartOkMessage startOk = (AmqpStartOkMessage) written(brokerSessions.get(0)).get(0);
+
+        assertEquals("service", startOk.getUsername());
+        assertEquals("secret", new String(startOk.getPassword()));
+    }
+
+    @Test
+    public void shouldRefuseClientWithInvalidCredentials() throws Exception {
+        context.checking(new Expectations() {
+            {
+                oneOf(loginContextFactory).createLoginContext(null, "joe", "wrong".toCharArray());
+                will(returnValue(loginContext));
+                oneOf(loginContext).login(); will(throwException(new LoginException("invalid password")));
+            }
+        });
+
+        DummySessionEx client = new DummySessionEx();
+        capture(client);
+        multiplexer.clientOpened(client);
+        multiplexer.clientMessageReceived(client, startOk("joe", "wrong"));
+        scheduler.runUntilIdle();
+        multiplexer.clientMessageReceived(client, open("/"));
+
+        List<Object> written = written(client);
+        assertEquals(1, written.size());
+        assertEquals(AmqpMultiplexer.ACCESS_REFUSED, ((AmqpCloseMessage) written.get(0)).getReplyCode());
+        context.assertIsSatisfied();
+
+        // the client does not confirm the close
+        scheduler.tick(AmqpMultiplexer.CLOSE_TIMEOUT_SECONDS - 1, TimeUnit.SECONDS);
+        assertFalse(client.isClosing());
+        scheduler.tick(1, TimeUnit.SECONDS);
+        assertTrue(client.isClosing());
+    }
+
+    @Test
+    public void shouldLoginOffTheIoThread() throws Exception {
+        context.checking(new Expectations() {
+            {
+                oneOf(loginContextFactory).createLoginContext(null, "joe", "joe-password".toCharArray());
+                will(returnValue(loginContext));
+                oneOf(loginContext).login();
+            }
+        });
+
+        DummySessionEx client = new DummySessionEx();
+        capture(client);
+        multiplexer.clientOpened(client);
+        multiplexer.clientMessageReceived(client, startOk("joe", "joe-password"));
+        assertTrue(written(client).isEmpty());
+
+        scheduler.runUntilIdle();
+        AmqpTuneMessage tune = (AmqpTuneMessage) written(client).get(0);
+        assertEquals(131072, tune.getMaxFrameSize());
+        assertEquals(HEARTBEAT_DELAY, tune.getHeartbeatDelay());
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void shouldRefuseFrameMaxAboveBroker() throws Exception {
+        DummySessionEx client = connectClient("joe");
+        multiplexer.clientMessageReceived(client, tuneOk(262144, 0));
+
+        List<Object> written = written(client);
+        assertEquals(AmqpMultiplexer.NOT_ALLOWED, ((AmqpCloseMessage) written.get(written.size() - 1)).getReplyCode());
+    }
+
+    @Test
+    public void shouldHeartbeatClientAtNegotiatedDelay() throws Exception {
+        DummySessionEx client = connectClient("joe");
+        multiplexer.clientMessageReceived(client, tuneOk(131072, 5));
+        int writtenCount = written(client).size();
+
+        scheduler.tick(5, TimeUnit.SECONDS);
+        assertEquals(writtenCount + 1, written(client).size());
+        assertTrue(isHeartbeat(written(client).get(writtenCount)));
+
+        // any traffic from the client keeps the connection alive
+        scheduler.tick(4, TimeUnit.SECONDS);
+        multiplexer.clientMessageReceived(client, heartbeat());
+        scheduler.tick(6, TimeUnit.SECONDS);
+        assertFalse(client.isClosing());
+        assertEquals(writtenCount + 3, written(client).size());
+
+        // closed once nothing arrived for two heartbeats
+        scheduler.tick(5, TimeUnit.SECONDS);
+        assertTrue(client.isClosing());
+    }
+
+    @Test
+    public void shouldHeartbeatBrokerAtProposedDelay() throws Exception {
+        brokerSessions.get(0).close(true);
+        DummySessionEx broker = brokerSessions.get(1);
+        handshake(broker, 10, 30);
+
+        AmqpTuneOkMessage tuneOk = (AmqpTuneOkMessage) written(broker).get(1);
+        assertEquals(30, tuneOk.getHeartbeatDelay());
+
+        scheduler.tick(30, TimeUnit.SECONDS);
+        List<Object> written = written(broker);
+        assertTrue(isHeartbeat(written.get(written.size() - 1)));
+    }
+
+    @Test
+    public void shouldRefuseUnexpectedFrameOnChannelZero() throws Exception {
+        DummySessionEx client = connectClient("joe");
+        ByteBuffer buf = ByteBuffer.allocate(9);
+        buf.put(AmqpFrame.BODY.type());
+        buf.putShort((short) 0);
+        buf.putInt(1);
+        buf.put((byte) 0);
+        buf.put((byte) AmqpClassMessage.FRAME_END);
+        buf.flip();
+        multiplexer.clientMessageReceived(client, SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(buf));
+
+        List<Object> written = written(client);
+        assertEquals(AmqpMultiplexer.UNEXPECTED_FRAME,
+                ((AmqpCloseMessage) written.get(written.size() - 1)).getReplyCode());
+    }
+
+    @Test
+    public void shouldSuspendClientReadsWhilePendingWritesExceedMaximum() throws Exception {
+        DummySessionEx broker = brokerSessions.get(0);
+        DummySessionEx client = connectClient("joe");
+        multiplexer.clientMessageReceived(client, channelOpen(1));
+
+        broker.getFilterChain().fireMessageReceived(contentBody(1, MAXIMUM_PENDING_BYTES));
+        assertTrue(client.isReadSuspended());
+
+        // resumed once the client has drained the relayed frames
+        for (WriteRequest request : writeRequests(client)) {
+            request.getFuture().setWritten();
+        }
+        assertFalse(client.isReadSuspended());
+    }
+
+    @Test
+    public void shouldRefuseOpenBeforeLogin() throws Exception {
+        DummySessionEx client = new DummySessionEx();
+        capture(client);
+        multiplexer.clientOpened(client);
+        multiplexer.clientMessageReceived(client, open("/"));
+        multiplexer.clientMessageReceived(client, channelOpen(1));
+
+        List<Object> written = written(client);
+        assertEquals(1, written.size());
+        assertEquals(AmqpMultiplexer.COMMAND_INVALID, ((AmqpCloseMessage) written.get(0)).getReplyCode());
+        assertEquals(3, written(brokerSessions.get(0)).size());
+    }
+
+    @Test
+    public void shouldRewriteChannelNumbersInBothDirections() throws Exception {
+        DummySessionEx broker = brokerSessions.get(0);
+        DummySessionEx client1 = connectClient("joe");
+        DummySessionEx client2 = connectClient("ann");
+
+        multiplexer.clientMessageReceived(client1, channelOpen(1));
+        multiplexer.clientMessageReceived(client2, channelOpen(1));
+
+        List<Object> brokerWritten = written(broker);
+        assertEquals(1, channelOf(brokerWritten.get(3)));
+        assertEquals(2, channelOf(brokerWritten.get(4)));
+
+        broker.getFilterChain().fireMessageReceived(channelMethod(2, 11));
+
+        List<Object> clientWritten = written(client2);
+        IoBufferEx openOk = (IoBufferEx) clientWritten.get(clientWritten.size() - 1);
+        assertEquals(1, channelOf(openOk));
+        assertTrue(AmqpMultiplexer.isChannelMethod(openOk, 11));
+        assertEquals(2, written(client1).size());
+    }
+
+    @Test
+    public void shouldCloseBrokerChannelWhenClientCloses() throws Exception {
+        DummySessionEx broker = brokerSessions.get(0);
+        DummySessionEx client = connectClient("joe");
+        multiplexer.clientMessageReceived(client, channelOpen(1));
+        multiplexer.clientMessageReceived(client, channelOpen(2));
+
+        multiplexer.clientClosed(client);
+
+        List<Object> brokerWritten = written(broker);
+        assertEquals(7, brokerWritten.size());
+        assertTrue(AmqpMultiplexer.isChannelMethod((IoBufferEx) brokerWritten.get(5), AmqpMultiplexer.CHANNEL_CLOSE));
+        assertTrue(AmqpMultiplexer.isChannelMethod((IoBufferEx) brokerWritten.get(6), AmqpMultiplexer.CHANNEL_CLOSE));
+
+        // the broker confirms the close, nothing is relayed to the closed client
+        int clientWritten = written(client).size();
+        broker.getFilterChain().fireMessageReceived(channelMethod(channelOf(brokerWritten.get(5)),
+                AmqpMultiplexer.CHANNEL_CLOSE_OK));
+        broker.getFilterChain().fireMessageReceived(channelMethod(channelOf(brokerWritten.get(6)),
+                AmqpMultiplexer.CHANNEL_CLOSE_OK));
+        assertEquals(clientWritten, written(client).size());
+
+        // both broker channels are free again
+        DummySessionEx other = connectClient("ann");
+        for (int channel = 1; channel <= 10; channel++) {
+            multiplexer.clientMessageReceived(other, channelOpen(channel));
+        }
+        for (Object message : written(other)) {
+            assertTrue(message.toString(), !(message instanceof AmqpCloseMessage));
+        }
+    }
+
+    @Test
+    public void shouldRelayBrokerChannelCloseToClient() throws Exception {
+        DummySessionEx broker = brokerSessions.get(0);
+        DummySessionEx client = connectClient("joe");
+        multiplexer.clientMessageReceived(client, channelOpen(3));
+
+        broker.getFilterChain().fireMessageReceived(channelMethod(1, AmqpMultiplexer.CHANNEL_CLOSE));
+
+        List<Object> clientWritten = written(client);
+        IoBufferEx close = (IoBufferEx) clientWritten.get(clientWritten.size() - 1);
+        assertTrue(AmqpMultiplexer.isChannelMethod(close, AmqpMultiplexer.CHANNEL_CLOSE));
+        assertEquals(3, channelOf(close));
+
+        multiplexer.clientMessageReceived(client, channelMethod(3, AmqpMultiplexer.CHANNEL_CLOSE_OK));
+
+        List<Object> brokerWritten = written(broker);
+        IoBufferEx closeOk = (IoBufferEx) brokerWritten.get(brokerWritten.size() - 1);
+        assertTrue(AmqpMultiplexer.isChannelMethod(closeOk, AmqpMultiplexer.CHANNEL_CLOSE_OK));
+        assertEquals(1, channelOf(closeOk));
+
+        // the client channel can be opened again, on the next broker channel
+        int brokerWrittenCount = brokerWritten.size();
+        int clientWrittenCount = clientWritten.size();
+        multiplexer.clientMessageReceived(client, channelOpen(3));
+        assertEquals(2, channelOf(brokerWritten.get(brokerWrittenCount)));
+        assertEquals(clientWrittenCount, clientWritten.size());
+    }
+
+    @Test
+    public void shouldCloseClientsAndReconnectWhenBrokerConnectionLost() throws Exception {
+        DummySessionEx client1 = connectClient("joe");
+        DummySessionEx client2 = connectClient("ann");
+        multiplexer.clientMessageReceived(client1, channelOpen(1));
+
+        brokerSessions.get(0).close(true);
+
+        List<Object> written = written(client1);
+        AmqpCloseMessage close = (AmqpCloseMessage) written.get(written.size() - 1);
+        assertEquals(AmqpMultiplexer.CONNECTION_FORCED, close.getReplyCode());
+        assertEquals(2, written(client2).size());
+        assertEquals(2, brokerSessions.size());
+
+        // a client arriving before the new broker connection is ready is tuned once it is
+        DummySessionEx client3 = connectClient("bob");
+        assertEquals(0, written(client3).size());
+        handshake(brokerSessions.get(1), 10, 0);
+        assertTrue(written(client3).get(0) instanceof AmqpTuneMessage);
+    }
+
+    private DummySessionEx connectClient(String username) throws Exception {
+        final char[] password = (username + "-password").toCharArray();
+        context.checking(new Expectations() {
+            {
+                oneOf(loginContextFactory).createLoginContext(null, username, password);
+                will(returnValue(loginContext));
+                oneOf(loginContext).login();
+            }
+        });
+
+        DummySessionEx client = new DummySessionEx();
+        capture(client);
+        multiplexer.clientOpened(client);
+        multiplexer.clientMessageReceived(client, startOk(username, new String(password)));
+        scheduler.runUntilIdle();
+        boolean ready = !written(client).isEmpty();
+        if (ready) {
+            multiplexer.clientMessageReceived(client, open("/"));
+        }
+        return client;
+    }
+
+    private static void handshake(DummySessionEx broker, int channelMax, int heartbeatDelay) throws Exception {
+        AmqpStartMessage start = new AmqpStartMessage();
+        start.setSecurityMechanisms("PLAIN AMQPLAIN");
+        broker.getFilterChain().fireMessageReceived(start);
+
+        AmqpTuneMessage tune = new AmqpTuneMessage();
+        tune.setMaxChannels(channelMax);
+        tune.setMaxFrameSize(131072);
+        tune.setHeartbeatDelay(heartbeatDelay);
+        broker.getFilterChain().fireMessageReceived(tune);
+
+        broker.getFilterChain().fireMessageReceived(new AmqpOpenOkMessage());
+    }
+
+    private static AmqpStartOkMessage startOk(String username, String password) {
+        AmqpStartOkMessage startOk = new AmqpStartOkMessage();
+        startOk.setSecurityMechanism("PLAIN");
+        startOk.setUsername(username);
+        startOk.setPassword(password.toCharArray());
+        return startOk;
+    }
+
+    private static AmqpTuneOkMessage tuneOk(int frameMax, int heartbeatDelay) {
+        AmqpTuneOkMessage tuneOk = new AmqpTuneOkMessage();
+        tuneOk.setMaxChannels(16);
+        tuneOk.setMaxFrameSize(frameMax);
+        tuneOk.setHeartbeatDelay(heartbeatDelay);
+        return tuneOk;
+    }
+
+    private static AmqpOpenMessage open(String virtualHost) {
+        AmqpOpenMessage open = new AmqpOpenMessage();
+        open.setVirtualHost(virtualHost);
+        return open;
+    }
+
+    private static IoBufferEx channelOpen(int channel) {
+        return channelMethod(channel, AmqpMultiplexer.CHANNEL_OPEN);
+    }
+
+    // method frame without arguments, which is all the multiplexer looks at
+    private static IoBufferEx channelMethod(int channel, int methodId) {
+        ByteBuffer buf = ByteBuffer.allocate(12);
+        buf.put(AmqpFrame.METHOD.type());
+        buf.putShort((short) channel);
+        buf.putInt(4);
+        buf.putShort(ClassKind.CHANNEL.classId());
+        buf.putShort((short) methodId);
+        buf.put((byte) AmqpClassMessage.FRAME_END);
+        buf.flip();
+        return SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(buf);
+    }
+
+    private static IoBufferEx contentBody(int channel, int size) {
+        ByteBuffer buf = ByteBuffer.allocate(size + 8);
+        buf.put(AmqpFrame.BODY.type());
+        buf.putShort((short) channel);
+        buf.putInt(size);
+        buf.put(new byte[size]);
+        buf.put((byte) AmqpClassMessage.FRAME_END);
+        buf.flip();
+        return SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(buf);
+    }
+
+    private static IoBufferEx heartbeat() {
+        ByteBuffer buf = ByteBuffer.allocate(8);
+        buf.put(AmqpFrame.HEARTBEAT.type());
+        buf.putShort((short) 0);
+        buf.putInt(0);
+        buf.put((byte) AmqpClassMessage.FRAME_END);
+        buf.flip();
+        return SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(buf);
+    }
+
+    private static boolean isHeartbeat(Object message) {
+        IoBufferEx buf = (IoBufferEx) message;
+        return buf.remaining() == 8 && buf.get(buf.position()) == AmqpFrame.HEARTBEAT.type();
+    }
+
+    private static int channelOf(Object frame) {
+        IoBufferEx buf = (IoBufferEx) frame;
+        return buf.getUnsignedShort(buf.position() + 1);
+    }
+
+    private static void capture(IoSession session) {
+        final List<Object> written = new ArrayList<>();
+        final List<WriteRequest> writeRequests = new ArrayList<>();
+        session.setAttribute(WRITTEN, written);
+        session.setAttribute(WRITE_REQUESTS, writeRequests);
+        session.getFilterChain().addLast("capture", new IoFilterAdapter() {
+            @Override
+            public void filterWrite(NextFilter nextFilter, IoSession session, WriteRequest writeRequest) {
+                written.add(writeRequest.getMessage());
+                writeRequests.add(writeRequest);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> written(IoSession session) {
+        return (List<Object>) session.getAttribute(WRITTEN);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<WriteRequest> writeRequests(IoSession session) {
+        return (List<WriteRequest>) session.getAttribute(WRITE_REQUESTS);
+    }
+
+    private static final Object WRITTEN = new Object();
+    private static final Object WRITE_REQUESTS = new Object();
+}
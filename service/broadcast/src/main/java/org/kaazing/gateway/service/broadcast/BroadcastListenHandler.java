@@ -51,6 +51,19 @@ public class BroadcastListenHandler extends IoHandlerAdapter {
 
     @Override
     public void sessionClosed(IoSession session) throws Exception {
+        upstreamClosed();
+    }
+
+    @Override
+	public void messageReceived(IoSession session, Object message) throws Exception {
+        broadcast(message);
+    }
+
+    /**
+     * Called when the upstream connection feeding this handler is lost, whether it is held locally or by the
+     * broadcast relay leader of another cluster member.
+     */
+    void upstreamClosed() {
         if (disconnectClientsOnReconnect) {
             Iterator<IoSession> clientsIterator = clients.iterator();
             while (clientsIterator.hasNext()) {
@@ -60,8 +73,10 @@ public class BroadcastListenHandler extends IoHandlerAdapter {
         }
     }
 
-    @Override
-	public void messageReceived(IoSession session, Object message) throws Exception {
+    /**
+     * Writes a message received upstream, locally or via the broadcast relay, to all clients.
+     */
+    void broadcast(Object message) {
         if (message instanceof IoBuffer) {
 			IoBuffer buf = (IoBuffer) message;
 			for (IoSession client : clients) {
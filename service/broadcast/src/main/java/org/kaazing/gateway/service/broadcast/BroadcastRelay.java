@@ -0,0 +1,324 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.broadcast;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.service.IoHandler;
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.IoSession;
+import org.kaazing.gateway.service.cluster.ClusterContext;
+import org.kaazing.gateway.service.cluster.MemberId;
+import org.kaazing.gateway.service.cluster.MembershipEventListener;
+import org.kaazing.gateway.transport.io.IoMessage;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator;
+import org.slf4j.Logger;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.ITopic;
+import com.hazelcast.core.Message;
+import com.hazelcast.core.MessageListener;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryRemovedListener;
+
+/**
+ * Relays a broadcast feed across the cluster so that only one member holds the upstream connection.
+ *
+ * Every member running the service with the same connect registers itself as a relay candidate. The candidate
+ * with the lowest member id among the current cluster members is the relay leader: it connects upstream and
+ * republishes each message on a cluster topic. The other members receive the messages from the topic and hand
+ * them to the same local fan-out as an upstream connection would, so the slow consumer limit still applies.
+ * The leader also publishes when its upstream connection opens and closes, so that the other members disconnect
+ * their clients on reconnect just as the leader does. The same happens when the leader leaves the cluster.
+ * Leadership is re-evaluated whenever cluster membership or the set of candidates changes.
+ */
+class BroadcastRelay {
+
+    static final String RELAY_NAME_PREFIX = "broadcast.relay:";
+
+    interface Leadership {
+
+        void leaderElected();
+
+        void leaderRevoked();
+    }
+
+    private final ClusterContext cluster;
+    private final MemberId localMember;
+    private final IMap<MemberId, Boolean> candidates;
+    private final ITopic<RelayMessage> topic;
+    private final BroadcastListenHandler listenHandler;
+    private final Leadership leadership;
+    private final Logger logger;
+    private final MembershipEventListener membershipListener;
+    private final AtomicLong publishedCount;
+    private final AtomicLong receivedCount;
+
+    private String candidatesListenerId;
+    private String topicListenerId;
+    private boolean leader;
+
+    // the member whose upstream connection currently feeds this member via the topic
+    private volatile MemberId upstreamOrigin;
+
+    BroadcastRelay(ClusterContext cluster, String connectURI, BroadcastListenHandler listenHandler,
+            Leadership leadership, Logger logger) {
+        this.cluster = cluster;
+        this.localMember = cluster.getLocalMember();
+        this.candidates = cluster.getCollectionsFactory().getMap(RELAY_NAME_PREFIX + connectURI);
+        this.topic = cluster.getTopic(RELAY_NAME_PREFIX + connectURI);
+        this.listenHandler = listenHandler;
+        this.leadership = leadership;
+        this.logger = logger;
+        this.membershipListener = new MembershipListener();
+        this.publishedCount = new AtomicLong();
+        this.receivedCount = new AtomicLong();
+    }
+
+    void start() {
+        topicListenerId = topic.addMessageListener(new RelayMessageListener());
+        candidatesListenerId = candidates.addEntryListener(new CandidatesListener(), false);
+        cluster.addMembershipEventListener(membershipListener);
+        candidates.put(localMember, Boolean.TRUE);
+        electLeader();
+    }
+
+    void stop() {
+        cluster.removeMembershipEventListener(membershipListener);
+        if (candidatesListenerId != null) {
+            candidates.removeEntryListener(candidatesListenerId);
+            candidatesListenerId = null;
+        }
+        if (topicListenerId != null) {
+            topic.removeMessageListener(topicListenerId);
+            topicListenerId = null;
+        }
+        candidates.remove(localMember);
+        revokeLeadership();
+    }
+
+    synchronized boolean isLeader() {
+        return leader;
+    }
+
+    /**
+     * @return the handler for the upstream connection, which publishes each message to the other members
+     * before handing it to the local fan-out
+     */
+    IoHandler getUpstreamHandler() {
+        return new UpstreamHandler();
+    }
+
+    long getPublishedCount() {
+        return publishedCount.get();
+    }
+
+    long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    void electLeader() {
+        Collection<MemberId> members = cluster.getMemberIds();
+        MemberId elected = null;
+        for (MemberId candidate : candidates.keySet()) {
+            if (members.contains(candidate)
+                    && (elected == null || candidate.toString().compareTo(elected.toString()) < 0)) {
+                elected = candidate;
+            }
+        }
+
+        boolean elect;
+        synchronized (this) {
+            elect = localMember.equals(elected) && !leader;
+            if (elect) {
+                leader = true;
+            }
+        }
+
+        if (elect) {
+            logger.info(String.format("Broadcast relay: %s elected to hold the upstream connection", localMember));
+            leadership.leaderElected();
+        }
+        else if (!localMember.equals(elected)) {
+            revokeLeadership();
+        }
+    }
+
+    private void revokeLeadership() {
+        boolean revoke;
+        synchronized (this) {
+            revoke = leader;
+            leader = false;
+        }
+
+        if (revoke) {
+            logger.info(String.format("Broadcast relay: %s no longer holds the upstream connection", localMember));
+            leadership.leaderRevoked();
+        }
+    }
+
+    private void publish(Object message) {
+        ByteBuffer nioBuffer;
+        if (message instanceof IoMessage) {
+            nioBuffer = ((IoMessage) message).getBuffer().buf();
+        }
+        else if (message instanceof IoBuffer) {
+            nioBuffer = ((IoBuffer) message).buf();
+        }
+        else {
+            if (logger.isDebugEnabled()) {
+                logger.debug(String.format("Broadcast relay: not relaying unexpected message %s", message));
+            }
+            return;
+        }
+
+        // copy, the upstream buffer is still to be written to the local clients
+        byte[] payload = new byte[nioBuffer.remaining()];
+        nioBuffer.duplicate().get(payload);
+        topic.publish(new RelayMessage(localMember, RelayMessage.Kind.MESSAGE, payload));
+        publishedCount.incrementAndGet();
+    }
+
+    private void receive(RelayMessage message) {
+        MemberId origin = message.origin;
+        if (localMember.equals(origin)) {
+            return;
+        }
+
+        switch (message.kind) {
+        case OPENED:
+            upstreamOrigin = origin;
+            if (logger.isDebugEnabled()) {
+                logger.debug(String.format("Broadcast relay: upstream connection opened by %s", origin));
+            }
+            break;
+        case CLOSED:
+            upstreamLost(origin);
+            break;
+        case MESSAGE:
+            receivedCount.incrementAndGet();
+            ByteBuffer nioBuffer = ByteBuffer.wrap(message.payload);
+            IoBufferEx buffer = SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(nioBuffer, IoBufferEx.FLAG_SHARED);
+            try {
+                listenHandler.broadcast(new IoMessage(buffer));
+            }
+            catch (Exception e) {
+                logger.warn(String.format("Broadcast relay: unable to deliver message from %s", origin), e);
+            }
+            break;
+        }
+    }
+
+    private void upstreamLost(MemberId origin) {
+        if (origin.equals(upstreamOrigin)) {
+            upstreamOrigin = null;
+            if (logger.isDebugEnabled()) {
+                logger.debug(String.format("Broadcast relay: upstream connection of %s lost", origin));
+            }
+            listenHandler.upstreamClosed();
+        }
+    }
+
+    static final class RelayMessage implements Serializable {
+
+        private static final long serialVersionUID = 2L;
+
+        enum Kind {
+            OPENED, MESSAGE, CLOSED
+        }
+
+        private final MemberId origin;
+        private final Kind kind;
+        private final byte[] payload;
+
+        RelayMessage(MemberId origin, Kind kind, byte[] payload) {
+            this.origin = origin;
+            this.kind = kind;
+            this.payload = payload;
+        }
+    }
+
+    private final class UpstreamHandler extends IoHandlerAdapter {
+
+        @Override
+        public void sessionOpened(IoSession session) throws Exception {
+            listenHandler.sessionOpened(session);
+            topic.publish(new RelayMessage(localMember, RelayMessage.Kind.OPENED, null));
+        }
+
+        @Override
+        public void sessionClosed(IoSession session) throws Exception {
+            listenHandler.sessionClosed(session);
+            topic.publish(new RelayMessage(localMember, RelayMessage.Kind.CLOSED, null));
+        }
+
+        @Override
+        public void messageReceived(IoSession session, Object message) throws Exception {
+            // publish first, the local fan-out consumes raw buffers
+            publish(message);
+            listenHandler.messageReceived(session, message);
+        }
+
+        @Override
+        public void exceptionCaught(IoSession session, Throwable cause) throws Exception {
+            listenHandler.exceptionCaught(session, cause);
+        }
+    }
+
+    private final class RelayMessageListener implements MessageListener<RelayMessage> {
+
+        @Override
+        public void onMessage(Message<RelayMessage> message) {
+            receive(message.getMessageObject());
+        }
+    }
+
+    private final class CandidatesListener implements EntryAddedListener<MemberId, Boolean>,
+            EntryRemovedListener<MemberId, Boolean> {
+
+        @Override
+        public void entryAdded(EntryEvent<MemberId, Boolean> event) {
+            electLeader();
+        }
+
+        @Override
+        public void entryRemoved(EntryEvent<MemberId, Boolean> event) {
+            electLeader();
+        }
+    }
+
+    private final class MembershipListener implements MembershipEventListener {
+
+        @Override
+        public void memberAdded(MemberId newMember) {
+            electLeader();
+        }
+
+        @Override
+        public void memberRemoved(MemberId removedMember) {
+            // candidates of a departed member can no longer clean up after themselves
+            candidates.remove(removedMember);
+            upstreamLost(removedMember);
+            electLeader();
+        }
+    }
+}
@@ -33,10 +33,12 @@ import javax.annotation.Resource;
 import org.apache.mina.core.future.CloseFuture;
 import org.apache.mina.core.future.ConnectFuture;
 import org.apache.mina.core.future.IoFutureListener;
+import org.apache.mina.core.service.IoHandler;
 import org.apache.mina.core.session.IoSession;
 import org.kaazing.gateway.service.Service;
 import org.kaazing.gateway.service.ServiceContext;
 import org.kaazing.gateway.service.ServiceProperties;
+import org.kaazing.gateway.service.cluster.ClusterContext;
 import org.kaazing.gateway.util.scheduler.SchedulerProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,11 +57,15 @@ public class BroadcastService implements Service {
     private static final String ON_CLIENT_MESSAGE = "on.client.message";
     // FIXME: end of remove me
 
+    private static final String CLUSTER_RELAY = "cluster.relay";
+
     private ScheduledExecutorService scheduler;
     private final AtomicBoolean reconnect;
     private BroadcastServiceHandler handler;
     private ServiceContext serviceContext;
     private Properties configuration;
+    private ClusterContext clusterContext;
+    private BroadcastRelay relay;
 
     private String connectURI;
     private int reconnectDelay;
@@ -76,6 +82,11 @@ public class BroadcastService implements Service {
         this.configuration = configuration;
     }
 
+    @Resource(name = "clusterContext")
+    public void setClusterContext(ClusterContext clusterContext) {
+        this.clusterContext = clusterContext;
+    }
+
     @Resource(name = "schedulerProvider")
     public void setSchedulerProvider(SchedulerProvider provider) {
         this.scheduler = provider.getScheduler("broadcast_reconnect", false);
@@ -118,6 +129,14 @@ public class BroadcastService implements Service {
 
         this.connectURI = connectURIs.iterator().next();
         this.reconnectDelay = (reconnectDelay != null) ? Integer.parseInt(reconnectDelay) : 3000;
+
+        if (Boolean.parseBoolean(properties.get(CLUSTER_RELAY))) {
+            if (clusterContext == null) {
+                throw new IllegalArgumentException("Property " + CLUSTER_RELAY + " requires a cluster");
+            }
+            this.relay = new BroadcastRelay(clusterContext, connectURI, handler.getListenHandler(), new RelayLeadership(),
+                    logger);
+        }
     }
 
     @Override
@@ -129,7 +148,11 @@ public class BroadcastService implements Service {
 
         try {
             
-            if (connectURI != null) {
+            if (relay != null) {
+                // the elected relay leader schedules the connect
+                relay.start();
+            }
+            else if (connectURI != null) {
                 scheduler.schedule(connectTask, 0, TimeUnit.MILLISECONDS);
             }
         } catch (Exception e) {
@@ -141,6 +164,10 @@ public class BroadcastService implements Service {
     public void stop() throws Exception {
         quiesce();
 
+        if (relay != null) {
+            relay.stop();
+        }
+
         // defer until stop to allow connect to succeed and re-enable the service
         serviceContext.unbindConnectsIfNecessary(serviceContext.getConnects());
         
@@ -167,11 +194,33 @@ public class BroadcastService implements Service {
         scheduler.shutdownNow();
     }
 
+    private boolean shouldConnect() {
+        return reconnect.get() && (relay == null || relay.isLeader());
+    }
+
+    private final class RelayLeadership implements BroadcastRelay.Leadership {
+
+        @Override
+        public void leaderElected() {
+            if (reconnect.get()) {
+                scheduler.schedule(connectTask, 0, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        @Override
+        public void leaderRevoked() {
+            connectTask.stop();
+        }
+    }
+
     private final class ConnectTask implements Runnable {
         private final AtomicReference<IoSession> session;
+        // set while a connect is in flight, so that leadership changes cannot start a second one
+        private final AtomicBoolean connecting;
 
         public ConnectTask() {
             session = new AtomicReference<>();
+            connecting = new AtomicBoolean();
         }
 
         public void stop() {
@@ -183,25 +232,44 @@ public class BroadcastService implements Service {
 
         @Override
         public void run() {
-            serviceContext.connect(connectURI, handler.getListenHandler(), null).addListener(new IoFutureListener<ConnectFuture>() {
+            if (relay != null && (!shouldConnect() || session.get() != null)) {
+                return;
+            }
+
+            if (!connecting.compareAndSet(false, true)) {
+                return;
+            }
+
+            IoHandler upstreamHandler = (relay != null) ? relay.getUpstreamHandler() : handler.getListenHandler();
+            serviceContext.connect(connectURI, upstreamHandler, null).addListener(new IoFutureListener<ConnectFuture>() {
                 @Override
                 public void operationComplete(ConnectFuture future) {
                     if (future.isConnected()) {
                         IoSession newSession = future.getSession();
+                        // track the session before it can close, then allow the next connect
+                        session.set(newSession);
+                        connecting.set(false);
                         newSession.getCloseFuture().addListener(new IoFutureListener<CloseFuture>() {
                             @Override
                             public void operationComplete(CloseFuture future) {
                                 session.set(null);
 
-                                if (reconnect.get()) {
+                                if (shouldConnect()) {
                                     scheduler.schedule(connectTask, reconnectDelay, TimeUnit.MILLISECONDS);
                                 }
                             }
                         });
-                        session.set(newSession);
+
+                        if (relay != null && !shouldConnect()) {
+                            // leadership was revoked while connecting
+                            newSession.close(true);
+                        }
                     }
                     else {
-                        scheduler.schedule(connectTask, reconnectDelay, TimeUnit.MILLISECONDS);
+                        connecting.set(false);
+                        if (relay == null || shouldConnect()) {
+                            scheduler.schedule(connectTask, reconnectDelay, TimeUnit.MILLISECONDS);
+                        }
                     }
                 }
             });
@@ -22,7 +22,6 @@ import java.util.Collection;
 import java.util.Collections;
 
 import org.apache.mina.core.filterchain.IoFilter;
-import org.apache.mina.core.service.IoHandler;
 import org.apache.mina.core.service.IoHandlerAdapter;
 import org.apache.mina.core.session.IoSession;
 import org.apache.mina.util.ConcurrentHashSet;
@@ -35,7 +34,7 @@ class BroadcastServiceHandler extends IoHandlerAdapter {
 
     private final IoFilter codec;
     private final Collection<IoSession> clients;
-    private final IoHandler handler;
+    private final BroadcastListenHandler handler;
     private final Logger logger;
     private IoSession connectSession;
     private final OnClientMessage onClientMessage;
@@ -58,7 +57,7 @@ class BroadcastServiceHandler extends IoHandlerAdapter {
         this.connectSession = connectSession;
     }
 
-    IoHandler getListenHandler() {
+    BroadcastListenHandler getListenHandler() {
         return handler;
     }
 
@@ -0,0 +1,245 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.broadcast;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.mina.core.session.DummySession;
+import org.apache.mina.core.session.IoSession;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.api.Invocation;
+import org.jmock.lib.action.CustomAction;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.gateway.service.cluster.ClusterContext;
+import org.kaazing.gateway.service.cluster.MemberId;
+import org.kaazing.gateway.service.cluster.MembershipEventListener;
+import org.kaazing.gateway.service.collections.CollectionsFactory;
+import org.kaazing.gateway.service.collections.MemoryCollectionsFactory;
+import org.kaazing.gateway.transport.io.IoMessage;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class BroadcastRelayTest {
+
+    private static final String CONNECT_URI = "tcp://localhost:9880";
+    private static final Logger LOGGER = LoggerFactory.getLogger(BroadcastRelayTest.class);
+
+    private final MemberId memberA = new MemberId("tcp", "a.example.com", 5941);
+    private final MemberId memberB = new MemberId("tcp", "b.example.com", 5941);
+
+    private Mockery context;
+    private CollectionsFactory collections;
+    private Map<MemberId, MembershipEventListener> membershipListeners;
+
+    @Before
+    public void setUp() {
+        context = new Mockery();
+        collections = new MemoryCollectionsFactory();
+        membershipListeners = new HashMap<>();
+    }
+
+    @Test
+    public void shouldElectSingleMemberAndNotRedeliverOwnMessages() throws Exception {
+        RecordingHandler listenHandler = new RecordingHandler();
+        RecordingLeadership leadership = new RecordingLeadership();
+        BroadcastRelay relay = newRelay(memberA, listenHandler, leadership, memberA);
+
+        relay.start();
+        assertTrue(relay.isLeader());
+        assertEquals(1, leadership.elected);
+
+        relay.getUpstreamHandler().messageReceived(null, newMessage("hello"));
+        assertEquals(1, relay.getPublishedCount());
+        assertEquals(0, relay.getReceivedCount());
+        assertEquals(1, listenHandler.payloads.size());
+
+        relay.stop();
+        assertFalse(relay.isLeader());
+        assertEquals(1, leadership.revoked);
+    }
+
+    @Test
+    public void shouldRelayMessagesFromLeaderToOtherMembers() throws Exception {
+        RecordingHandler listenHandlerA = new RecordingHandler();
+        RecordingHandler listenHandlerB = new RecordingHandler();
+        BroadcastRelay relayA = newRelay(memberA, listenHandlerA, new RecordingLeadership(), memberA, memberB);
+        BroadcastRelay relayB = newRelay(memberB, listenHandlerB, new RecordingLeadership(), memberA, memberB);
+
+        relayA.start();
+        relayB.start();
+        assertTrue(relayA.isLeader());
+        assertFalse(relayB.isLeader());
+
+        relayA.getUpstreamHandler().messageReceived(null, newMessage("hello"));
+
+        assertEquals(1, listenHandlerA.payloads.size());
+        assertEquals(1, listenHandlerB.payloads.size());
+        assertArrayEquals("hello".getBytes("UTF-8"), listenHandlerB.payloads.get(0));
+        assertEquals(1, relayB.getReceivedCount());
+
+        relayB.stop();
+        relayA.stop();
+    }
+
+    @Test
+    public void shouldRelayUpstreamCloseToOtherMembers() throws Exception {
+        RecordingHandler listenHandlerA = new RecordingHandler();
+        RecordingHandler listenHandlerB = new RecordingHandler();
+        BroadcastRelay relayA = newRelay(memberA, listenHandlerA, new RecordingLeadership(), memberA, memberB);
+        BroadcastRelay relayB = newRelay(memberB, listenHandlerB, new RecordingLeadership(), memberA, memberB);
+
+        relayA.start();
+        relayB.start();
+
+        IoSession upstream = new DummySession();
+        relayA.getUpstreamHandler().sessionOpened(upstream);
+        assertEquals(1, listenHandlerA.opened);
+        assertEquals(0, listenHandlerB.opened);
+
+        relayA.getUpstreamHandler().sessionClosed(upstream);
+        assertEquals(1, listenHandlerA.closed);
+        assertEquals(1, listenHandlerB.closed);
+
+        relayB.stop();
+        relayA.stop();
+    }
+
+    @Test
+    public void shouldCloseUpstreamOfOtherMembersWhenLeaderLeaves() throws Exception {
+        RecordingHandler listenHandlerB = new RecordingHandler();
+        BroadcastRelay relayA = newRelay(memberA, new RecordingHandler(), new RecordingLeadership(), memberA, memberB);
+        BroadcastRelay relayB = newRelay(memberB, listenHandlerB, new RecordingLeadership(), memberA, memberB);
+
+        relayA.start();
+        relayB.start();
+        relayA.getUpstreamHandler().sessionOpened(new DummySession());
+
+        // the leader leaves the cluster without closing its upstream connection
+        membershipListeners.get(memberB).memberRemoved(memberA);
+        assertEquals(1, listenHandlerB.closed);
+
+        // a later departure of the same member is not a second upstream close
+        membershipListeners.get(memberB).memberRemoved(memberA);
+        assertEquals(1, listenHandlerB.closed);
+
+        relayB.stop();
+    }
+
+    @Test
+    public void shouldFailOverWhenLeaderStops() throws Exception {
+        RecordingLeadership leadershipB = new RecordingLeadership();
+        BroadcastRelay relayA = newRelay(memberA, new RecordingHandler(), new RecordingLeadership(), memberA, memberB);
+        BroadcastRelay relayB = newRelay(memberB, new RecordingHandler(), leadershipB, memberA, memberB);
+
+        relayA.start();
+        relayB.start();
+        assertEquals(0, leadershipB.elected);
+
+        relayA.stop();
+        assertTrue(relayB.isLeader());
+        assertEquals(1, leadershipB.elected);
+
+        relayB.stop();
+    }
+
+    private BroadcastRelay newRelay(final MemberId localMember, RecordingHandler listenHandler,
+            RecordingLeadership leadership, final MemberId... members) {
+        final ClusterContext cluster = context.mock(ClusterContext.class, "cluster " + localMember);
+        context.checking(new Expectations() {
+            {
+                allowing(cluster).getLocalMember();
+                will(returnValue(localMember));
+                allowing(cluster).getMemberIds();
+                will(returnValue(asList(members)));
+                allowing(cluster).getCollectionsFactory();
+                will(returnValue(collections));
+                allowing(cluster).getTopic(with(any(String.class)));
+                will(returnValue(collections.getTopic(BroadcastRelay.RELAY_NAME_PREFIX + CONNECT_URI)));
+                allowing(cluster).addMembershipEventListener(with(any(MembershipEventListener.class)));
+                will(new CustomAction("capture membership listener") {
+                    @Override
+                    public Object invoke(Invocation invocation) throws Throwable {
+                        membershipListeners.put(localMember, (MembershipEventListener) invocation.getParameter(0));
+                        return null;
+                    }
+                });
+                allowing(cluster).removeMembershipEventListener(with(any(MembershipEventListener.class)));
+            }
+        });
+        return new BroadcastRelay(cluster, CONNECT_URI, listenHandler, leadership, LOGGER);
+    }
+
+    private static IoMessage newMessage(String text) throws Exception {
+        return new IoMessage(SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(ByteBuffer.wrap(text.getBytes("UTF-8"))));
+    }
+
+    private static final class RecordingHandler extends BroadcastListenHandler {
+        private final List<byte[]> payloads = new ArrayList<>();
+        private int opened;
+        private int closed;
+
+        RecordingHandler() {
+            super(Collections.<IoSession>emptyList(), true, Long.MAX_VALUE, LOGGER);
+        }
+
+        @Override
+        public void sessionOpened(IoSession session) throws Exception {
+            opened++;
+        }
+
+        @Override
+        void upstreamClosed() {
+            closed++;
+        }
+
+        @Override
+        void broadcast(Object message) {
+            ByteBuffer buf = ((IoMessage) message).getBuffer().buf();
+            byte[] payload = new byte[buf.remaining()];
+            buf.duplicate().get(payload);
+            payloads.add(payload);
+        }
+    }
+
+    private static final class RecordingLeadership implements BroadcastRelay.Leadership {
+        private int elected;
+        private int revoked;
+
+        @Override
+        public void leaderElected() {
+            elected++;
+        }
+
+        @Override
+        public void leaderRevoked() {
+            revoked++;
+        }
+    }
+}
@@ -24,12 +24,12 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.locks.Lock;
 
 import org.kaazing.gateway.resource.address.Protocol;
 import org.kaazing.gateway.service.cluster.ClusterContext;
 import org.kaazing.gateway.service.collections.CollectionsFactory;
+import org.kaazing.gateway.service.collections.NearCache;
 import org.kaazing.gateway.transport.IoHandlerAdapter;
 import org.kaazing.gateway.transport.TransportFactory;
 import org.kaazing.gateway.transport.http.HttpAcceptSession;
@@ -127,8 +127,9 @@ class WsebBalancerServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
             Lock mapLock = getLock(HttpBalancerService.BALANCER_MAP_NAME);
             try {
                 mapLock.lock();
-                // Get the map of balance URIs to accept URIs from the cluster.
-                Map<String, Collection<String>> balancers = collectionsFactory.getMap(HttpBalancerService.BALANCER_MAP_NAME);
+                // Get the map of balance URIs to accept URIs from the cluster, served locally unless it changed.
+                NearCache<String, Collection<String>> balancers =
+                        collectionsFactory.getNearCache(HttpBalancerService.BALANCER_MAP_NAME);
 
                 // For my accept URIs, look up the map to get the balancee URIs for which I am balancing.
                 for (String balancerAccept : accepts) {
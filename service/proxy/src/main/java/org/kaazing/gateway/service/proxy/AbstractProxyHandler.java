@@ -18,10 +18,12 @@ package org.kaazing.gateway.service.proxy;
 import static java.lang.String.format;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.mina.core.buffer.IoBuffer;
 import org.apache.mina.core.future.IoFutureListener;
@@ -34,7 +36,9 @@ import org.kaazing.gateway.service.ServiceContext;
 import org.kaazing.gateway.service.proxy.ProxyConnectStrategy.Strategy;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator;
 import org.kaazing.mina.filter.util.WriteRequestFilterEx;
+import org.kaazing.mina.netty.ChannelIoBufferAllocator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -76,8 +80,7 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("[" + session.getId() + "] session created (" + session + ")");
         }
-        Queue<Object> messageQueue = new ConcurrentLinkedQueue<>();
-        session.setAttribute(QUEUED_MESSAGES_KEY, messageQueue);
+        // Note: message queue is created on demand, most sessions are attached before the first message arrives
     }
 
     @Override
@@ -116,8 +119,11 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
 
             // write current message
             attachedSessionManager.writeMessage(session, message);
-        } else if (messageQueue != null && !session.isClosing()) {
+        } else if (!session.isClosing()) {
             // queue message unless closing
+            if (messageQueue == null) {
+                messageQueue = createMessageQueue(session);
+            }
             messageQueue.add(message);
         }
     }
@@ -131,6 +137,10 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
         }
     }
 
+    public int getMaximumPendingBytes() {
+        return maximumPendingBytes;
+    }
+
     void setMaximumTransferredBytes(int maximumTransferredBytes) {
         this.maximumTransferredBytes = maximumTransferredBytes;
         if (LOGGER.isDebugEnabled()) {
@@ -213,6 +223,13 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
         return (Queue<Object>) session.getAttribute(QUEUED_MESSAGES_KEY);
     }
 
+    @SuppressWarnings("unchecked")
+    private Queue<Object> createMessageQueue(IoSession session) {
+        Queue<Object> newMessageQueue = new ConcurrentLinkedQueue<>();
+        Queue<Object> messageQueue = (Queue<Object>) session.setAttributeIfAbsent(QUEUED_MESSAGES_KEY, newMessageQueue);
+        return (messageQueue != null) ? messageQueue : newMessageQueue;
+    }
+
     protected static AttachedSessionManager getAttachedSessionManager(IoSession session) {
         return (AttachedSessionManager) session.getAttribute(ATTACHED_SESSION_KEY);
     }
@@ -244,12 +261,18 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
     // This class manages an attached session, that is, the session to which messages received on a source session
     // will be written. It maintains a total of the number of bytes of messages scheduled for write which
     // have not yet been written, and suspends reads on the source session when the number of bytes
-    // scheduled for write exceeds the configured maximum.pending.bytes for the service.
+    // scheduled for write exceeds the configured maximum.pending.bytes for the service (high watermark).
+    // Reads are resumed once pending bytes drop to half of that (low watermark).
+    //
+    // Writes complete in order, so rather than listening to every write future, only the most recent write
+    // is observed by a single reusable listener, which then accounts for all writes scheduled up to it.
     protected class AttachedSessionManager {
         private final IoSession attachedSession;
-        private final AtomicInteger scheduledWriteBytes = new AtomicInteger(0);
+        private final AtomicLong scheduledWriteBytes = new AtomicLong(0);
+        private final AtomicLong writtenBytes = new AtomicLong(0);
         private final AtomicBoolean readSuspended = new AtomicBoolean(false);
         private final AtomicInteger totalTransferredBytes = new AtomicInteger(0);
+        private final WatermarkListener watermarkListener = new WatermarkListener();
 
         // private throughput limit for this session
         private int sessionMaximumTransferredBytes = AbstractProxyHandler.this.maximumTransferredBytes;
@@ -262,6 +285,10 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
             return attachedSession;
         }
 
+        long getPendingWriteBytes() {
+            return scheduledWriteBytes.get() - writtenBytes.get();
+        }
+
         void writeMessage(final IoSession sourceSession, Object message) {
 
             if (LOGGER.isTraceEnabled()) {
@@ -301,11 +328,12 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
                 break;
             }
 
-            int newScheduledWriteBytes = scheduledWriteBytes.addAndGet(bytesWritten);
-            if (newScheduledWriteBytes > maximumPendingBytes) {
+            long newScheduledWriteBytes = scheduledWriteBytes.addAndGet(bytesWritten);
+            long pendingWriteBytes = newScheduledWriteBytes - writtenBytes.get();
+            if (pendingWriteBytes > maximumPendingBytes) {
                 if (LOGGER.isDebugEnabled()) {
                     LOGGER.debug("[" + sourceSession.getId() + "->" + attachedSession.getId() + ", "
-                            + Thread.currentThread().getName() + "] scheduledWriteBytes " + newScheduledWriteBytes
+                            + Thread.currentThread().getName() + "] pending write bytes " + pendingWriteBytes
                             + " exceeds " + maximumPendingBytes + ", suspending reads on " + sourceSession);
                 }
                 // KG-2665: handle the fact that AbstractIoSession.suspendRead and resumeRead are not
@@ -316,37 +344,88 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
                     sourceSession.suspendRead();
                 }
             }
-            // Add the FutureListener after suspending to ensure the FutureListener sees it is suspended
+            // Observe the write after suspending to ensure the listener sees it is suspended
             WriteFuture future = attachedSession.write(message);
-            future.addListener(new IoFutureListener<WriteFuture>() {
-                @Override
-                public void operationComplete(WriteFuture future) {
-                    int newScheduledWriteBytes = scheduledWriteBytes.addAndGet(-bytesWritten);
-                    // Use <= to ensure we resume read in case where both values are 0
-                    if (readSuspended.get() && newScheduledWriteBytes <= thresholdPendingBytes) {
-                        if (LOGGER.isDebugEnabled()) {
-                            LOGGER.debug("[" + sourceSession.getId() + "->" + attachedSession.getId() + ", "
-                                    + Thread.currentThread().getName() + "] scheduledWriteBytes "
-                                    + newScheduledWriteBytes + " <= " + thresholdPendingBytes + ", resuming reads on "
-                                    + sourceSession);
-                        }
-                        // KG-2665: handle race with suspendRead, see above.
-                        while (readSuspended.compareAndSet(true, false)) {
-                            sourceSession.resumeRead();
-                        }
+            watermarkListener.scheduled(sourceSession, future, newScheduledWriteBytes);
+        }
+
+        private final class WatermarkListener implements IoFutureListener<WriteFuture> {
+            private final AtomicBoolean observing = new AtomicBoolean(false);
+
+            // guarded by this
+            private IoSession sourceSession;
+            private WriteFuture lastFuture;
+            private long lastScheduledWriteBytes;
+            private long observedScheduledWriteBytes;
+
+            void scheduled(IoSession sourceSession, WriteFuture future, long scheduledWriteBytes) {
+                synchronized (this) {
+                    this.sourceSession = sourceSession;
+                    this.lastFuture = future;
+                    this.lastScheduledWriteBytes = scheduledWriteBytes;
+                }
+                observe();
+            }
+
+            private void observe() {
+                if (observing.compareAndSet(false, true)) {
+                    WriteFuture future;
+                    synchronized (this) {
+                        future = lastFuture;
+                        observedScheduledWriteBytes = lastScheduledWriteBytes;
                     }
+                    // Note: notifies immediately if the write has already completed
+                    future.addListener(this);
                 }
-            });
-        }
+            }
 
+            @Override
+            public void operationComplete(WriteFuture future) {
+                IoSession sourceSession;
+                long newWrittenBytes;
+                boolean moreScheduled;
+                synchronized (this) {
+                    sourceSession = this.sourceSession;
+                    newWrittenBytes = observedScheduledWriteBytes;
+                    writtenBytes.set(newWrittenBytes);
+                    observing.set(false);
+                    moreScheduled = lastScheduledWriteBytes > newWrittenBytes;
+                }
+
+                long newPendingWriteBytes = scheduledWriteBytes.get() - newWrittenBytes;
+                // Use <= to ensure we resume read in case where both values are 0
+                if (readSuspended.get() && newPendingWriteBytes <= thresholdPendingBytes) {
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("[" + sourceSession.getId() + "->" + attachedSession.getId() + ", "
+                                + Thread.currentThread().getName() + "] pending write bytes "
+                                + newPendingWriteBytes + " <= " + thresholdPendingBytes + ", resuming reads on "
+                                + sourceSession);
+                    }
+                    // KG-2665: handle race with suspendRead, see above.
+                    while (readSuspended.compareAndSet(true, false)) {
+                        sourceSession.resumeRead();
+                    }
+                }
+
+                // writes scheduled while this one was observed are accounted for by observing the latest
+                if (moreScheduled) {
+                    observe();
+                }
+            }
+        }
     }
 
     protected static class DuplicateBufferFilter extends WriteRequestFilterEx {
 
         private final IoBufferAllocatorEx<?> allocator;
+        private final boolean relayEnabled;
+        private volatile Class<?> sharedType;
+        private volatile Class<?> unsharedType;
 
         public DuplicateBufferFilter(IoBufferAllocatorEx<?> allocator) {
             this.allocator = allocator;
+            // plain transport buffers carry no per-protocol state, so one of the same type can be relayed as is
+            this.relayEnabled = allocator instanceof ChannelIoBufferAllocator || allocator instanceof SimpleBufferAllocator;
         }
 
         @Override
@@ -357,11 +436,28 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
 
             if (message instanceof IoBufferEx) {
                 IoBufferEx buf = (IoBufferEx) message;
-                message = allocator.wrap(buf.buf(), buf.flags());
+                if (!relayEnabled || !isRelayable(buf)) {
+                    message = allocator.wrap(buf.buf(), buf.flags());
+                }
             }
 
             return message;
         }
+
+        private boolean isRelayable(IoBufferEx buf) {
+            // same buffer type as this allocator would wrap it in, e.g. TCP to TCP
+            Class<?> wrappedType = buf.isShared() ? sharedType : unsharedType;
+            if (wrappedType == null) {
+                wrappedType = allocator.wrap(ByteBuffer.allocate(0), buf.flags()).getClass();
+                if (buf.isShared()) {
+                    sharedType = wrappedType;
+                }
+                else {
+                    unsharedType = wrappedType;
+                }
+            }
+            return buf.getClass() == wrappedType;
+        }
     }
 
 }
@@ -0,0 +1,113 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.proxy;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+
+import org.apache.mina.core.future.DefaultWriteFuture;
+import org.apache.mina.core.session.IoSession;
+import org.jmock.Expectations;
+import org.jmock.integration.junit4.JUnitRuleMockery;
+import org.jmock.lib.concurrent.Synchroniser;
+import org.junit.Rule;
+import org.junit.Test;
+import org.kaazing.gateway.service.proxy.AbstractProxyHandler.AttachedSessionManager;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator;
+
+public class AttachedSessionManagerTest {
+
+    @Rule
+    public JUnitRuleMockery context = new JUnitRuleMockery() { {
+        setThreadingPolicy(new Synchroniser());
+    } };
+
+    @Test
+    public void shouldSuspendAboveHighWatermarkAndResumeAtLowWatermark() throws Exception {
+        final IoSession source = context.mock(IoSession.class, "source");
+        final IoSession attached = context.mock(IoSession.class, "attached");
+        final DefaultWriteFuture first = new DefaultWriteFuture(attached);
+        final DefaultWriteFuture second = new DefaultWriteFuture(attached);
+        final DefaultWriteFuture third = new DefaultWriteFuture(attached);
+
+        AbstractProxyHandler handler = new AbstractProxyHandler() { };
+        handler.setMaximumPendingBytes(100);
+        AttachedSessionManager manager = handler.new AttachedSessionManager(attached);
+
+        context.checking(new Expectations() {
+            {
+                allowing(source).getId(); will(returnValue(1L));
+                allowing(attached).getId(); will(returnValue(2L));
+                oneOf(attached).write(with(any(Object.class))); will(returnValue(first));
+                oneOf(attached).write(with(any(Object.class))); will(returnValue(second));
+                oneOf(attached).write(with(any(Object.class))); will(returnValue(third));
+                oneOf(source).suspendRead();
+            }
+        });
+
+        manager.writeMessage(source, newBuffer(60));
+        manager.writeMessage(source, newBuffer(30));
+        manager.writeMessage(source, newBuffer(30));
+        assertEquals(120, manager.getPendingWriteBytes());
+
+        // only the first write is observed, still above the low watermark
+        first.setWritten();
+        assertEquals(60, manager.getPendingWriteBytes());
+        context.assertIsSatisfied();
+
+        context.checking(new Expectations() {
+            {
+                oneOf(source).resumeRead();
+            }
+        });
+
+        // the latest write accounts for all writes scheduled before it
+        second.setWritten();
+        third.setWritten();
+        assertEquals(0, manager.getPendingWriteBytes());
+    }
+
+    @Test
+    public void shouldNotSuspendBelowHighWatermark() throws Exception {
+        final IoSession source = context.mock(IoSession.class, "source");
+        final IoSession attached = context.mock(IoSession.class, "attached");
+
+        AbstractProxyHandler handler = new AbstractProxyHandler() { };
+        handler.setMaximumPendingBytes(100);
+        AttachedSessionManager manager = handler.new AttachedSessionManager(attached);
+
+        context.checking(new Expectations() {
+            {
+                allowing(source).getId(); will(returnValue(1L));
+                allowing(attached).getId(); will(returnValue(2L));
+                exactly(10).of(attached).write(with(any(Object.class)));
+                will(returnValue(new DefaultWriteFuture(attached) { { setWritten(); } }));
+                never(source).suspendRead();
+            }
+        });
+
+        for (int i = 0; i < 10; i++) {
+            manager.writeMessage(source, newBuffer(60));
+        }
+        assertEquals(0, manager.getPendingWriteBytes());
+    }
+
+    private static IoBufferEx newBuffer(int size) {
+        return SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(ByteBuffer.allocate(size));
+    }
+}
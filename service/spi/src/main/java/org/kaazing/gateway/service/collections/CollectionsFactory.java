@@ -27,6 +27,12 @@ public interface CollectionsFactory {
 
     <K, V> IMap<K, V> getMap(String name);
 
+    /**
+     * Gets a local cache in front of the named map, for maps that are read far more often than they change.
+     * The same cache is returned for every call with the same name.
+     */
+    <K, V> NearCache<K, V> getNearCache(String name);
+
     <E> IQueue<E> getQueue(String name);
 
     <E> IList<E> getList(String name);
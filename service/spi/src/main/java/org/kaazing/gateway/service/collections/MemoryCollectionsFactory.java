@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -37,6 +38,8 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import org.kaazing.gateway.util.AtomicCounter;
 
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.EntryEventType;
 import com.hazelcast.core.EntryListener;
 import com.hazelcast.core.EntryView;
 import com.hazelcast.core.ExecutionCallback;
@@ -49,8 +52,15 @@ import com.hazelcast.core.IMap;
 import com.hazelcast.core.IQueue;
 import com.hazelcast.core.ITopic;
 import com.hazelcast.core.ItemListener;
+import com.hazelcast.core.MapEvent;
 import com.hazelcast.map.EntryProcessor;
 import com.hazelcast.map.MapInterceptor;
+import com.hazelcast.map.impl.SimpleEntryView;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryEvictedListener;
+import com.hazelcast.map.listener.EntryRemovedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+import com.hazelcast.map.listener.MapClearedListener;
 import com.hazelcast.map.listener.MapListener;
 import com.hazelcast.map.listener.MapPartitionLostListener;
 import com.hazelcast.mapreduce.JobTracker;
@@ -64,6 +74,7 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
     private static final String OPERATION_NOT_SUPPORTED_MESSAGE = "Operation %s not supported";
 
     private final ConcurrentMap<String, IMapImpl<?, ?>> maps;
+    private final ConcurrentMap<String, NearCache<?, ?>> nearCaches;
     private final ConcurrentMap<String, IListImpl<?>> lists;
     private final Map<String, ILockImpl> locks;
     private final ConcurrentMap<String, AtomicCounter> atomicCounters;
@@ -72,6 +83,7 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
     public MemoryCollectionsFactory() {
         // TODO: avoid memory leak
         maps = new ConcurrentHashMap<>();
+        nearCaches = new ConcurrentHashMap<>();
         lists = new ConcurrentHashMap<>();
         locks = Collections.synchronizedMap(new WeakHashMap<>());
         atomicCounters = new ConcurrentHashMap<>();
@@ -117,6 +129,12 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
         return map;
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public <K, V> NearCache<K, V> getNearCache(String name) {
+        return (NearCache<K, V>) nearCaches.computeIfAbsent(name, s -> new NearCache<>(getMap(s)));
+    }
+
     @Override
     public ILock getLock(String name) {
         synchronized (locks) {
@@ -177,12 +195,14 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
 
         private final ConcurrentHashMap<K, V> map;
         private final ConcurrentHashMap<K, Long> keyExpirations;
+        private final ConcurrentHashMap<String, MapListener> listeners;
         private final String name;
 
         public IMapImpl(String name) {
             this.name = name;
             this.map = new ConcurrentHashMap<>();
             this.keyExpirations = new ConcurrentHashMap<>();
+            this.listeners = new ConcurrentHashMap<>();
         }
 
         @Override
@@ -222,7 +242,9 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
         @Override
         public void putAll(Map<? extends K, ? extends V> m) {
             removeExpiredEntries();
-            map.putAll(m);
+            for (Map.Entry<? extends K, ? extends V> entry : m.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
         }
 
         @Override
@@ -248,14 +270,20 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
         @Override
         public V put(K key, V value) {
             removeExpiredEntries();
-            return map.put(key, value);
+            V oldValue = map.put(key, value);
+            fireEntryEvent(oldValue == null ? EntryEventType.ADDED : EntryEventType.UPDATED, key, value, oldValue);
+            return oldValue;
         }
 
         @Override
         public V remove(Object key) {
             removeExpiredEntries();
             keyExpirations.remove(key);
-            return map.remove(key);
+            V oldValue = map.remove(key);
+            if (oldValue != null) {
+                fireEntryEvent(EntryEventType.REMOVED, key, null, oldValue);
+            }
+            return oldValue;
         }
 
         private void removeExpiredEntries() {
@@ -263,7 +291,10 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
             this.keyExpirations.entrySet().removeIf(e -> {
                 final Long expiration = e.getValue();
                 if (currentMillis >= expiration.longValue()) {
-                    map.remove(e.getKey());
+                    V oldValue = map.remove(e.getKey());
+                    if (oldValue != null) {
+                        fireEntryEvent(EntryEventType.EVICTED, e.getKey(), null, oldValue);
+                    }
                     return true;
                 }
                 return false;
@@ -275,8 +306,11 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
             final Long expiration = keyExpirations.get(key);
             if (expiration != null) {
                 if (currentMillis >= expiration.longValue()) {
-                    map.remove(key);
+                    V oldValue = map.remove(key);
                     keyExpirations.remove(key);
+                    if (oldValue != null) {
+                        fireEntryEvent(EntryEventType.EVICTED, key, null, oldValue);
+                    }
                     return true;
                 }
             }
@@ -285,8 +319,17 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
 
         @Override
         public boolean remove(Object key, Object value) {
-            keyExpirations.remove(key, value);
-            return map.remove(key, value);
+            if (evictEntryIfExpired(key)) {
+                return false;
+            }
+            boolean removed = map.remove(key, value);
+            if (removed) {
+                keyExpirations.remove(key);
+                @SuppressWarnings("unchecked")
+                V removedValue = (V) value;
+                fireEntryEvent(EntryEventType.REMOVED, key, null, removedValue);
+            }
+            return removed;
         }
 
         @Override
@@ -316,8 +359,10 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
 
         @Override
         public void clear() {
+            int size = map.size();
             map.clear();
             keyExpirations.clear();
+            fireMapEvent(EntryEventType.CLEAR_ALL, size);
         }
 
         @Override
@@ -373,7 +418,11 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
         @Override
         public V putIfAbsent(K key, V value) {
             removeExpiredEntries();
-            return map.putIfAbsent(key, value);
+            V oldValue = map.putIfAbsent(key, value);
+            if (oldValue == null) {
+                fireEntryEvent(EntryEventType.ADDED, key, value, null);
+            }
+            return oldValue;
         }
 
         @Override
@@ -382,6 +431,7 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
             V oldValue = map.putIfAbsent(key, value);
             if (oldValue == null) {
                 keyExpirations.put(key, currentTimeMillis() + timeunit.toMillis(ttl));
+                fireEntryEvent(EntryEventType.ADDED, key, value, null);
             }
             return oldValue;
         }
@@ -389,13 +439,21 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
         @Override
         public boolean replace(K key, V oldValue, V newValue) {
             removeExpiredEntries();
-            return map.replace(key, oldValue, newValue);
+            boolean replaced = map.replace(key, oldValue, newValue);
+            if (replaced) {
+                fireEntryEvent(EntryEventType.UPDATED, key, newValue, oldValue);
+            }
+            return replaced;
         }
 
         @Override
         public V replace(K key, V value) {
             removeExpiredEntries();
-            return map.replace(key, value);
+            V oldValue = map.replace(key, value);
+            if (oldValue != null) {
+                fireEntryEvent(EntryEventType.UPDATED, key, value, oldValue);
+            }
+            return oldValue;
         }
 
         @Override
@@ -494,18 +552,18 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
 
         @Override
         public String addEntryListener(MapListener listener, boolean includeValue) {
-            throw new UnsupportedOperationException(format(OPERATION_NOT_SUPPORTED_MESSAGE, "addEntryListener"));
+            return addListener(listener);
         }
 
         @SuppressWarnings("rawtypes")
         @Override
         public String addEntryListener(EntryListener listener, boolean includeValue) {
-            throw new UnsupportedOperationException(format(OPERATION_NOT_SUPPORTED_MESSAGE, "addEntryListener"));
+            return addListener(listener);
         }
 
         @Override
         public boolean removeEntryListener(String id) {
-            throw new UnsupportedOperationException(format(OPERATION_NOT_SUPPORTED_MESSAGE, "removeEntryListener"));
+            return listeners.remove(id) != null;
         }
 
         @Override
@@ -553,7 +611,70 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
 
         @Override
         public EntryView<K, V> getEntryView(K key) {
-            throw new UnsupportedOperationException(format(OPERATION_NOT_SUPPORTED_MESSAGE, "getEntryView"));
+            if (evictEntryIfExpired(key)) {
+                return null;
+            }
+            V value = map.get(key);
+            if (value == null) {
+                return null;
+            }
+            SimpleEntryView<K, V> entryView = new SimpleEntryView<>(key, value);
+            Long expiration = keyExpirations.get(key);
+            entryView.setExpirationTime(expiration != null ? expiration : Long.MAX_VALUE);
+            return entryView;
+        }
+
+        private String addListener(MapListener listener) {
+            String id = UUID.randomUUID().toString();
+            listeners.put(id, listener);
+            return id;
+        }
+
+        // listeners are notified synchronously, on the thread changing the map
+        @SuppressWarnings("unchecked")
+        private void fireEntryEvent(EntryEventType type, Object key, V value, V oldValue) {
+            if (listeners.isEmpty()) {
+                return;
+            }
+            EntryEvent<K, V> event = new EntryEvent<>(name, null, type.getType(), (K) key, oldValue, value);
+            for (MapListener listener : listeners.values()) {
+                switch (type) {
+                case ADDED:
+                    if (listener instanceof EntryAddedListener) {
+                        ((EntryAddedListener<K, V>) listener).entryAdded(event);
+                    }
+                    break;
+                case UPDATED:
+                    if (listener instanceof EntryUpdatedListener) {
+                        ((EntryUpdatedListener<K, V>) listener).entryUpdated(event);
+                    }
+                    break;
+                case REMOVED:
+                    if (listener instanceof EntryRemovedListener) {
+                        ((EntryRemovedListener<K, V>) listener).entryRemoved(event);
+                    }
+                    break;
+                case EVICTED:
+                    if (listener instanceof EntryEvictedListener) {
+                        ((EntryEvictedListener<K, V>) listener).entryEvicted(event);
+                    }
+                    break;
+                default:
+                    break;
+                }
+            }
+        }
+
+        private void fireMapEvent(EntryEventType type, int entriesAffected) {
+            if (listeners.isEmpty()) {
+                return;
+            }
+            MapEvent event = new MapEvent(name, null, type.getType(), entriesAffected);
+            for (MapListener listener : listeners.values()) {
+                if (type == EntryEventType.CLEAR_ALL && listener instanceof MapClearedListener) {
+                    ((MapClearedListener) listener).mapCleared(event);
+                }
+            }
         }
 
         @Override
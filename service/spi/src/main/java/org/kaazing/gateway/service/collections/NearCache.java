@@ -0,0 +1,263 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.collections;
+
+import static java.lang.System.currentTimeMillis;
+import static java.util.Collections.unmodifiableCollection;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.EntryView;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.MapEvent;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryEvictedListener;
+import com.hazelcast.map.listener.EntryExpiredListener;
+import com.hazelcast.map.listener.EntryRemovedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+import com.hazelcast.map.listener.MapClearedListener;
+import com.hazelcast.map.listener.MapEvictedListener;
+
+/**
+ * Local cache in front of a read-mostly map, so that repeated lookups of the same key do not each go to the cluster.
+ * <p>
+ * Cached entries expire with the entry in the map, or after the time to live of the cache if sooner, and are
+ * invalidated when the map reports that the entry changed. The number of cached entries is bounded. Writes always
+ * go to the map.
+ * <p>
+ * Cached values are shared by all callers, so {@link List}, {@link Set} and other {@link Collection} values are
+ * cached as unmodifiable copies, and the value type of such maps should be declared as the collection interface.
+ */
+public final class NearCache<K, V> {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 10000;
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    private final IMap<K, V> map;
+    private final int maximumSize;
+    private final long timeToLiveMillis;
+    private final ConcurrentMap<K, CachedValue<V>> cache;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final String listenerId;
+
+    public NearCache(IMap<K, V> map) {
+        this(map, DEFAULT_MAXIMUM_SIZE, DEFAULT_TIME_TO_LIVE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public NearCache(IMap<K, V> map, int maximumSize, long timeToLive, TimeUnit unit) {
+        this.map = map;
+        this.maximumSize = maximumSize;
+        this.timeToLiveMillis = unit.toMillis(timeToLive);
+        this.cache = new ConcurrentHashMap<>();
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.listenerId = map.addEntryListener(new InvalidationListener(), false);
+    }
+
+    public IMap<K, V> getMap() {
+        return map;
+    }
+
+    public V get(K key) {
+        long now = currentTimeMillis();
+        CachedValue<V> cached = cache.get(key);
+        if (cached != null && !cached.loading) {
+            if (cached.expiresAt > now) {
+                hits.incrementAndGet();
+                return cached.value;
+            }
+            cache.remove(key, cached);
+        }
+        misses.incrementAndGet();
+
+        // mark the key as loading, an invalidation of the key removes the marker while the value is being read and
+        // the value is then not cached, as it may already be stale
+        CachedValue<V> loading = new CachedValue<>();
+        if (cache.size() >= maximumSize) {
+            evictOne(now);
+        }
+        boolean marked = cache.putIfAbsent(key, loading) == null;
+        boolean loaded = false;
+        try {
+            EntryView<K, V> entry = map.getEntryView(key);
+            if (entry == null) {
+                return null;
+            }
+            V value = unmodifiableCopy(entry.getValue());
+            long expiresAt = now + timeToLiveMillis;
+            long expirationTime = entry.getExpirationTime();
+            if (expirationTime > 0 && expirationTime < expiresAt) {
+                expiresAt = expirationTime;
+            }
+            if (marked && expiresAt > now) {
+                loaded = cache.replace(key, loading, new CachedValue<>(value, expiresAt));
+            }
+            return value;
+        } finally {
+            if (marked && !loaded) {
+                cache.remove(key, loading);
+            }
+        }
+    }
+
+    public V putIfAbsent(K key, V value, long ttl, TimeUnit timeunit) {
+        try {
+            return map.putIfAbsent(key, value, ttl, timeunit);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    public boolean remove(K key, V value) {
+        try {
+            return map.remove(key, value);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    public void invalidate(K key) {
+        cache.remove(key);
+    }
+
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    /**
+     * Stops listening to changes of the map and clears the cache, the map itself is left as is.
+     */
+    public void destroy() {
+        map.removeEntryListener(listenerId);
+        invalidateAll();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private void evictOne(long now) {
+        // prefer an expired entry, otherwise drop an arbitrary one
+        Iterator<CachedValue<V>> values = cache.values().iterator();
+        int scanned = 0;
+        while (values.hasNext() && scanned++ < 8) {
+            CachedValue<V> value = values.next();
+            if (!value.loading && value.expiresAt <= now) {
+                values.remove();
+                return;
+            }
+        }
+        Iterator<K> keys = cache.keySet().iterator();
+        if (keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V unmodifiableCopy(V value) {
+        if (value instanceof List) {
+            return (V) unmodifiableList(new ArrayList<>((List<?>) value));
+        }
+        if (value instanceof Set) {
+            return (V) unmodifiableSet(new LinkedHashSet<>((Set<?>) value));
+        }
+        if (value instanceof Collection) {
+            return (V) unmodifiableCollection(new ArrayList<>((Collection<?>) value));
+        }
+        return value;
+    }
+
+    private static final class CachedValue<V> {
+        final V value;
+        final long expiresAt;
+        final boolean loading;
+
+        // marks a key whose value is being read from the map
+        CachedValue() {
+            this.value = null;
+            this.expiresAt = 0L;
+            this.loading = true;
+        }
+
+        CachedValue(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.loading = false;
+        }
+    }
+
+    private final class InvalidationListener implements EntryAddedListener<K, V>, EntryUpdatedListener<K, V>,
+            EntryRemovedListener<K, V>, EntryEvictedListener<K, V>, EntryExpiredListener<K, V>, MapClearedListener,
+            MapEvictedListener {
+
+        @Override
+        public void entryAdded(EntryEvent<K, V> event) {
+            invalidate(event.getKey());
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<K, V> event) {
+            invalidate(event.getKey());
+        }
+
+        @Override
+        public void entryRemoved(EntryEvent<K, V> event) {
+            invalidate(event.getKey());
+        }
+
+        @Override
+        public void entryEvicted(EntryEvent<K, V> event) {
+            invalidate(event.getKey());
+        }
+
+        @Override
+        public void entryExpired(EntryEvent<K, V> event) {
+            invalidate(event.getKey());
+        }
+
+        @Override
+        public void mapCleared(MapEvent event) {
+            invalidateAll();
+        }
+
+        @Override
+        public void mapEvicted(MapEvent event) {
+            invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.messaging.collections;
+
+import static java.lang.Thread.sleep;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.gateway.service.collections.MemoryCollectionsFactory;
+import org.kaazing.gateway.service.collections.NearCache;
+
+import com.hazelcast.core.IMap;
+
+public class NearCacheTest {
+    private static final String MAP_NAME = "nearCached";
+
+    private MemoryCollectionsFactory factory;
+    private IMap<String, String> map;
+    private NearCache<String, String> nearCache;
+
+    @Before
+    public void setUp() throws Exception {
+        factory = new MemoryCollectionsFactory();
+        map = factory.getMap(MAP_NAME);
+        nearCache = factory.getNearCache(MAP_NAME);
+    }
+
+    @Test
+    public void shouldReturnSameNearCacheForName() throws Exception {
+        assertSame(nearCache, factory.getNearCache(MAP_NAME));
+        assertSame(map, nearCache.getMap());
+    }
+
+    @Test
+    public void shouldServeRepeatedLookupsLocally() throws Exception {
+        map.put("key", "value");
+
+        assertEquals("value", nearCache.get("key"));
+        assertEquals("value", nearCache.get("key"));
+        assertEquals("value", nearCache.get("key"));
+
+        assertEquals(1, nearCache.getMissCount());
+        assertEquals(2, nearCache.getHitCount());
+        assertEquals(1, nearCache.size());
+    }
+
+    @Test
+    public void shouldInvalidateWhenMapChanges() throws Exception {
+        map.put("key", "value");
+        assertEquals("value", nearCache.get("key"));
+
+        map.replace("key", "value", "updated");
+        assertEquals("updated", nearCache.get("key"));
+
+        map.remove("key");
+        assertNull(nearCache.get("key"));
+
+        map.put("key", "again");
+        assertEquals("again", nearCache.get("key"));
+
+        map.clear();
+        assertEquals(0, nearCache.size());
+        assertNull(nearCache.get("key"));
+    }
+
+    @Test
+    public void shouldExpireWithMapEntry() throws Exception {
+        assertNull(nearCache.putIfAbsent("key", "value", 100, MILLISECONDS));
+        assertEquals("value", nearCache.putIfAbsent("key", "other", 100, MILLISECONDS));
+        assertEquals("value", nearCache.get("key"));
+
+        sleep(150);
+
+        assertNull(nearCache.get("key"));
+    }
+
+    @Test
+    public void shouldExpireAfterTimeToLive() throws Exception {
+        NearCache<String, String> shortLived = new NearCache<>(map, 10, 50, MILLISECONDS);
+        map.put("key", "value");
+        assertEquals("value", shortLived.get("key"));
+        assertEquals("value", shortLived.get("key"));
+
+        sleep(100);
+
+        assertEquals("value", shortLived.get("key"));
+        assertEquals(2, shortLived.getMissCount());
+        shortLived.destroy();
+    }
+
+    @Test
+    public void shouldStayBounded() throws Exception {
+        NearCache<String, String> bounded = new NearCache<>(map, 4, 1, SECONDS);
+        for (int i = 0; i < 16; i++) {
+            map.put("key" + i, "value" + i);
+            assertEquals("value" + i, bounded.get("key" + i));
+        }
+        assertTrue(bounded.size() <= 4);
+        bounded.destroy();
+    }
+
+    @Test
+    public void shouldRemoveThroughToMap() throws Exception {
+        map.put("key", "value");
+        assertEquals("value", nearCache.get("key"));
+
+        assertTrue(nearCache.remove("key", "value"));
+
+        assertNull(map.get("key"));
+        assertNull(nearCache.get("key"));
+    }
+
+    @Test
+    public void shouldKeepCachingOtherKeysAfterInvalidation() throws Exception {
+        map.put("key", "value");
+        map.put("other", "value");
+        assertEquals("value", nearCache.get("other"));
+
+        map.put("other", "updated");
+
+        assertEquals("value", nearCache.get("key"));
+        assertEquals("value", nearCache.get("key"));
+        assertEquals(1, nearCache.getHitCount());
+    }
+
+    @Test
+    public void shouldServeUnmodifiableCopiesOfCollections() throws Exception {
+        IMap<String, Collection<String>> collections = factory.getMap("nearCachedCollections");
+        NearCache<String, Collection<String>> collectionsCache = new NearCache<>(collections);
+        List<String> value = new ArrayList<>();
+        value.add("first");
+        collections.put("key", value);
+
+        Collection<String> cached = collectionsCache.get("key");
+        value.add("second");
+        assertEquals(1, cached.size());
+        assertEquals(1, collectionsCache.get("key").size());
+        try {
+            cached.add("third");
+            fail("cached collection should be unmodifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        collectionsCache.destroy();
+    }
+}
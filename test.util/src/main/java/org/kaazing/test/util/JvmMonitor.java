@@ -0,0 +1,130 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.test.util;
+
+import static java.lang.management.ManagementFactory.getGarbageCollectorMXBeans;
+import static java.lang.management.ManagementFactory.getMemoryMXBean;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Records the garbage collections of this JVM while open, for load and soak tests reporting GC pauses next to
+ * their throughput. Durations are those reported by the collectors: stop-the-world pauses for young collections,
+ * while a concurrent collector (CMS, G1 mixed cycles) reports the duration of its whole cycle.
+ *
+ * <pre>
+ * try (JvmMonitor monitor = new JvmMonitor()) {
+ *     // run the load
+ *     monitor.getMaximumMillis();
+ * }
+ * </pre>
+ */
+public final class JvmMonitor implements AutoCloseable {
+
+    // GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION, read through the open types to stay off com.sun APIs
+    private static final String GARBAGE_COLLECTION_NOTIFICATION = "com.sun.management.gc.notification";
+
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener listener = new NotificationListener() {
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            if (GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                CompositeData userData = (CompositeData) notification.getUserData();
+                CompositeData gcInfo = (CompositeData) userData.get("gcInfo");
+                record((Long) gcInfo.get("duration"));
+            }
+        }
+    };
+
+    private final AtomicLong collections = new AtomicLong();
+    private final AtomicLong totalMillis = new AtomicLong();
+    private final AtomicLong maximumMillis = new AtomicLong();
+
+    public JvmMonitor() {
+        for (GarbageCollectorMXBean collector : getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) collector;
+                emitter.addNotificationListener(listener, null, null);
+                emitters.add(emitter);
+            }
+        }
+    }
+
+    /**
+     * Returns the heap in use once garbage has been collected, to compare the footprint before and after
+     * creating objects (e.g. sessions). The result is only as exact as {@link System#gc()} is honoured.
+     */
+    public static long usedHeapAfterGc() throws InterruptedException {
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+            used = Math.min(used, getMemoryMXBean().getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+
+    public long getCollections() {
+        return collections.get();
+    }
+
+    public long getTotalMillis() {
+        return totalMillis.get();
+    }
+
+    public long getMaximumMillis() {
+        return maximumMillis.get();
+    }
+
+    /**
+     * Forgets the collections recorded so far, e.g. those of a warm up.
+     */
+    public void reset() {
+        collections.set(0);
+        totalMillis.set(0);
+        maximumMillis.set(0);
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(listener);
+            }
+            catch (Exception e) {
+                // already removed
+            }
+        }
+        emitters.clear();
+    }
+
+    private void record(long durationMillis) {
+        collections.incrementAndGet();
+        totalMillis.addAndGet(durationMillis);
+        long maximum;
+        do {
+            maximum = maximumMillis.get();
+        } while (durationMillis > maximum && !maximumMillis.compareAndSet(maximum, durationMillis));
+    }
+}
@@ -0,0 +1,264 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.test.util;
+
+import static java.lang.String.format;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * Estimates the heap footprint of an object graph, in the style of JOL's GraphLayout, by walking the instance
+ * fields reachable from the roots and counting each object once. Shallow sizes assume the HotSpot 64-bit layout
+ * with compressed references (12 byte object headers, 16 byte array headers, 4 byte references, 8 byte alignment).
+ * Classes, class loaders and threads are shared by everything and are not walked.
+ *
+ * <p>Use {@link #perInstance(Callable, int, Object...)} to measure what each instance created by a factory adds to
+ * the heap, excluding whatever the instances share (services, processors, handlers). Mocks record every invocation
+ * they receive, so they should be passed as shared objects, which are not walked at all.</p>
+ */
+public final class ObjectFootprint {
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int ALIGNMENT = 8;
+
+    private static final Map<Class<?>, Long> SHALLOW_SIZES = Collections.synchronizedMap(new HashMap<Class<?>, Long>());
+    private static final Map<Class<?>, Field[]> REFERENCE_FIELDS = Collections.synchronizedMap(new HashMap<Class<?>, Field[]>());
+
+    // class -> { count, bytes }
+    private final Map<Class<?>, long[]> classes;
+    private final int instances;
+
+    private ObjectFootprint(Map<Class<?>, long[]> classes, int instances) {
+        this.classes = classes;
+        this.instances = instances;
+    }
+
+    /**
+     * Walks the graph reachable from the given roots.
+     */
+    public static ObjectFootprint of(Object... roots) {
+        return of(roots, new Object[0]);
+    }
+
+    private static ObjectFootprint of(Object[] roots, Object[] shared) {
+        Map<Class<?>, long[]> classes = new HashMap<>();
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        Collections.addAll(visited, shared);
+        Deque<Object> pending = new ArrayDeque<>();
+        for (Object root : roots) {
+            push(pending, visited, root);
+        }
+
+        while (!pending.isEmpty()) {
+            Object object = pending.pop();
+            Class<?> type = object.getClass();
+
+            long size;
+            if (type.isArray()) {
+                int length = Array.getLength(object);
+                Class<?> componentType = type.getComponentType();
+                size = align(ARRAY_HEADER + (long) length * sizeOf(componentType));
+                if (!componentType.isPrimitive()) {
+                    for (Object element : (Object[]) object) {
+                        push(pending, visited, element);
+                    }
+                }
+            }
+            else {
+                size = shallowSizeOf(type);
+                for (Field field : referenceFields(type)) {
+                    try {
+                        push(pending, visited, field.get(object));
+                    }
+                    catch (IllegalAccessException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+
+            long[] counts = classes.get(type);
+            if (counts == null) {
+                counts = new long[2];
+                classes.put(type, counts);
+            }
+            counts[0]++;
+            counts[1] += size;
+        }
+
+        return new ObjectFootprint(classes, 1);
+    }
+
+    /**
+     * Measures the objects each instance created by the factory adds to the heap, as the difference between
+     * the graphs of 2 * instances and of instances created objects, divided by instances. The shared objects,
+     * and whatever is only reachable through them, are not walked.
+     */
+    public static ObjectFootprint perInstance(Callable<?> factory, int instances, Object... shared) throws Exception {
+        List<Object> created = new ArrayList<>(instances * 2);
+        for (int i = 0; i < instances; i++) {
+            created.add(factory.call());
+        }
+        ObjectFootprint base = of(created.toArray(), shared);
+        for (int i = 0; i < instances; i++) {
+            created.add(factory.call());
+        }
+        ObjectFootprint total = of(created.toArray(), shared);
+
+        Map<Class<?>, long[]> classes = new HashMap<>();
+        for (Map.Entry<Class<?>, long[]> entry : total.classes.entrySet()) {
+            long[] baseCounts = base.classes.get(entry.getKey());
+            long[] counts = entry.getValue().clone();
+            if (baseCounts != null) {
+                counts[0] -= baseCounts[0];
+                counts[1] -= baseCounts[1];
+            }
+            if (counts[0] != 0) {
+                classes.put(entry.getKey(), counts);
+            }
+        }
+        return new ObjectFootprint(classes, instances);
+    }
+
+    /**
+     * Returns the number of objects (per instance, for {@link #perInstance(Callable, int)}).
+     */
+    public long totalCount() {
+        long count = 0;
+        for (long[] counts : classes.values()) {
+            count += counts[0];
+        }
+        return count / instances;
+    }
+
+    /**
+     * Returns the number of bytes (per instance, for {@link #perInstance(Callable, int)}).
+     */
+    public long totalSize() {
+        long size = 0;
+        for (long[] counts : classes.values()) {
+            size += counts[1];
+        }
+        return size / instances;
+    }
+
+    /**
+     * Returns a table of object counts and bytes by class, largest first.
+     */
+    public String toFootprint() {
+        List<Map.Entry<Class<?>, long[]>> entries = new ArrayList<>(classes.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<Class<?>, long[]>>() {
+            @Override
+            public int compare(Map.Entry<Class<?>, long[]> e1, Map.Entry<Class<?>, long[]> e2) {
+                return Long.compare(e2.getValue()[1], e1.getValue()[1]);
+            }
+        });
+
+        StringBuilder footprint = new StringBuilder();
+        footprint.append(format("%10s %10s  %s%n", "COUNT", "SUM", "DESCRIPTION"));
+        for (Map.Entry<Class<?>, long[]> entry : entries) {
+            long[] counts = entry.getValue();
+            footprint.append(format("%10.1f %10.1f  %s%n", (double) counts[0] / instances, (double) counts[1] / instances,
+                    entry.getKey().getName()));
+        }
+        footprint.append(format("%10d %10d  (total)%n", totalCount(), totalSize()));
+        return footprint.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toFootprint();
+    }
+
+    private static void push(Deque<Object> pending, Set<Object> visited, Object object) {
+        if (object == null || object instanceof Class || object instanceof ClassLoader || object instanceof Thread ||
+                object instanceof ThreadGroup) {
+            return;
+        }
+        if (visited.add(object)) {
+            pending.push(object);
+        }
+    }
+
+    private static long shallowSizeOf(Class<?> type) {
+        Long size = SHALLOW_SIZES.get(type);
+        if (size == null) {
+            long fields = 0;
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        fields += sizeOf(field.getType());
+                    }
+                }
+            }
+            size = align(OBJECT_HEADER + fields);
+            SHALLOW_SIZES.put(type, size);
+        }
+        return size;
+    }
+
+    private static Field[] referenceFields(Class<?> type) {
+        Field[] fields = REFERENCE_FIELDS.get(type);
+        if (fields == null) {
+            List<Field> references = new ArrayList<>();
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+                        field.setAccessible(true);
+                        references.add(field);
+                    }
+                }
+            }
+            fields = references.toArray(new Field[references.size()]);
+            REFERENCE_FIELDS.put(type, fields);
+        }
+        return fields;
+    }
+
+    private static int sizeOf(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE;
+    }
+
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.test.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class JvmMonitorTest {
+
+    @Test
+    public void shouldRecordCollections() throws Exception {
+        try (JvmMonitor monitor = new JvmMonitor()) {
+            assertTrue(JvmMonitor.usedHeapAfterGc() > 0);
+
+            // notifications are delivered asynchronously
+            long deadline = System.currentTimeMillis() + 5000;
+            while (monitor.getCollections() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(monitor.getCollections() > 0);
+            assertTrue(monitor.getTotalMillis() >= monitor.getMaximumMillis());
+
+            monitor.reset();
+            assertEquals(0, monitor.getCollections());
+            assertEquals(0, monitor.getMaximumMillis());
+        }
+    }
+}
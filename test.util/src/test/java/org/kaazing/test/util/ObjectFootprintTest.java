@@ -0,0 +1,87 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.test.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ObjectFootprintTest {
+
+    @Test
+    public void shouldMeasureObjectGraph() {
+        // Node: header + int + reference (aligned to 24), the shared AtomicInteger (header + int) is counted once
+        AtomicInteger shared = new AtomicInteger();
+        ObjectFootprint footprint = ObjectFootprint.of(new Node(shared), new Node(shared));
+
+        assertEquals(3, footprint.totalCount());
+        assertEquals(24 + 24 + 16, footprint.totalSize());
+    }
+
+    @Test
+    public void shouldMeasureArrays() {
+        ObjectFootprint footprint = ObjectFootprint.of((Object) new long[3]);
+
+        assertEquals(1, footprint.totalCount());
+        assertEquals(40, footprint.totalSize());
+    }
+
+    @Test
+    public void shouldMeasurePerInstanceExcludingSharedObjects() throws Exception {
+        final AtomicInteger shared = new AtomicInteger();
+        ObjectFootprint footprint = ObjectFootprint.perInstance(new Callable<Object>() {
+            @Override
+            public Object call() {
+                return new Node(shared);
+            }
+        }, 100);
+
+        assertEquals(1, footprint.totalCount());
+        assertEquals(24, footprint.totalSize());
+    }
+
+    @Test
+    public void shouldNotWalkSharedObjects() throws Exception {
+        // like a mock recording its invocations, the shared log grows with each instance
+        final List<Object> log = new ArrayList<>();
+        ObjectFootprint footprint = ObjectFootprint.perInstance(new Callable<Object>() {
+            @Override
+            public Object call() {
+                log.add(new Object());
+                return new Node(log);
+            }
+        }, 100, log);
+
+        assertEquals(1, footprint.totalCount());
+        assertEquals(24, footprint.totalSize());
+    }
+
+    private static final class Node {
+        @SuppressWarnings("unused")
+        private final int value = 1;
+        @SuppressWarnings("unused")
+        private final Object next;
+
+        Node(Object next) {
+            this.next = next;
+        }
+    }
+}
@@ -118,6 +118,8 @@ public class DefaultHttpSession extends AbstractBridgeSession<DefaultHttpSession
     private boolean httpxeSpecCompliant;
 
 	private int redirectsAllowed;
+	private int streamId;
+    private HttpChunkCoalescer chunkCoalescer;
 	private ResourceAddress redirectlocalAddress;
     private ResourceAddress redirectRemoteAddress;
 
@@ -587,10 +589,32 @@ public class DefaultHttpSession extends AbstractBridgeSession<DefaultHttpSession
         return connectionClose.compareAndSet(false, true);
     }
 
+    /**
+     * Returns the HTTP/2 stream carrying this session, or zero when the parent speaks HTTP/1.x.
+     */
+    public int getStreamId() {
+        return streamId;
+    }
+
+    void setStreamId(int streamId) {
+        this.streamId = streamId;
+    }
+
 	public boolean isChunked() {
 		return this.isChunked;
 	}
 
+    /**
+     * Returns the coalescer of the chunks written to this (accepted) session, or null when chunks are written as is.
+     */
+    HttpChunkCoalescer getChunkCoalescer() {
+        return chunkCoalescer;
+    }
+
+    void setChunkCoalescer(HttpChunkCoalescer chunkCoalescer) {
+        this.chunkCoalescer = chunkCoalescer;
+    }
+
 	public void setChunked(boolean isChunked) {
 		this.isChunked = isChunked;
 	}
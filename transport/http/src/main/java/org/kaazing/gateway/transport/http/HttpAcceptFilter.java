@@ -44,8 +44,14 @@ public enum HttpAcceptFilter {
     // dynamically added by HttpProtocolCompatibilityFilter
     ELEVATE_EMULATED_REQUEST("http#elevateEmulatedRequest"),
 
+    // session-specific filter, removed once the first bytes have been seen (new Http2PrefaceFilter(...))
+    HTTP2_PREFACE("http#h2-preface"),
+
     CODEC("http#codec", new HttpCodecFilter(false)),
 
+    // dynamically added in place of the codec by Http2ConnectionFilter.install
+    HTTP2_CODEC("http#h2-codec"),
+
     // always added per-session filter (new HttpSerializeRequestFilter(logger))
     HTTP_SERIALIZE_REQUEST_FILTER("http#serializeRequests"),
 
@@ -83,9 +83,32 @@ public class HttpAcceptProcessor extends BridgeAcceptProcessor<DefaultHttpSessio
     private void removeInternal0(DefaultHttpSession session) {
         IoSession parent = session.getParent();
         if (parent == null || parent.isClosing()) {
+            // coalesced content can no longer be written
+            HttpChunkCoalescer chunkCoalescer = session.getChunkCoalescer();
+            if (chunkCoalescer != null) {
+                chunkCoalescer.dispose();
+            }
             return;
         }
 
+            int streamId = session.getStreamId();
+            if (streamId != 0) {
+                // end the HTTP/2 stream, the connection stays open for other streams
+                HttpAcceptor.removeHttpSession(parent, session);
+                IoBufferAllocatorEx<? extends HttpBuffer> allocator = session.getBufferAllocator();
+                HttpBuffer unsharedEmpty = allocator.wrap(allocator.allocate(0));
+                HttpContentMessage completeMessage = new HttpContentMessage(unsharedEmpty, true);
+                completeMessage.setStreamId(streamId);
+                parent.write(completeMessage);
+                return;
+            }
+
+            // write out any coalesced content ahead of the end of the response
+            HttpChunkCoalescer chunkCoalescer = session.getChunkCoalescer();
+            if (chunkCoalescer != null) {
+                chunkCoalescer.flush();
+            }
+
             boolean connectionClose = session.isConnectionClose();
             if (connectionClose) {
                 // close TCP connection when write complete
@@ -131,6 +154,13 @@ public class HttpAcceptProcessor extends BridgeAcceptProcessor<DefaultHttpSessio
             httpResponse.setContentExcluded(true);
         }
 
+        if (session.getStreamId() != 0) {
+            // HTTP/2 frames the response itself, so neither chunking nor Connection: close apply
+            httpResponse.setStreamId(session.getStreamId());
+            writePersistentResponse(parent, commitFuture, httpResponse);
+            return;
+        }
+
         switch (session.getVersion()) {
         case HTTP_1_1:
             boolean isConnectionClose = "close".equals(session.getWriteHeader("Connection"));
@@ -156,6 +186,7 @@ public class HttpAcceptProcessor extends BridgeAcceptProcessor<DefaultHttpSessio
                             if ( session.isChunkingNecessary() ) {
                                 httpResponse.setHeader("Transfer-Encoding", "chunked");
                                 session.setChunked(true);
+                                session.setChunkCoalescer(HttpChunkCoalescer.newInstance(session));
                             }
                         }
                     }
@@ -234,13 +265,30 @@ public class HttpAcceptProcessor extends BridgeAcceptProcessor<DefaultHttpSessio
         }
         Queue<IoBufferEx> deferredReads = session.getDeferredReads();
         IoBufferEx buffer;
+        int consumed = 0;
         while ( (buffer = deferredReads.poll()) != null) {
             if (buffer.hasRemaining()) {
+                consumed += buffer.remaining();
                 // direct read for now, in the future this should always get buffered
                 IoFilterChain filterChain = session.getFilterChain();
                 filterChain.fireMessageReceived(buffer);
             }
         }
+
+        // deferred HTTP/2 stream content has now been consumed, so the peer may send more
+        if (consumed != 0 && session.getStreamId() != 0) {
+            HttpAcceptor.windowConsumed(session.getParent(), session.getStreamId(), consumed);
+        }
+    }
+
+    @Override
+    protected void flushInternal(DefaultHttpSession session) {
+        super.flushInternal(session);
+
+        HttpChunkCoalescer chunkCoalescer = session.getChunkCoalescer();
+        if (chunkCoalescer != null) {
+            chunkCoalescer.flushed();
+        }
     }
 
     @Override
@@ -259,12 +307,24 @@ public class HttpAcceptProcessor extends BridgeAcceptProcessor<DefaultHttpSessio
             return null;
         }
 
+        int streamId = session.getStreamId();
+        if (streamId != 0) {
+            // messages are tagged per stream, so they cannot be shared through the buffer cache
+            HttpContentMessage httpContent = new HttpContentMessage(buf, false);
+            httpContent.setStreamId(streamId);
+            return flushNowInternal(parent, httpContent, buf, filterChain, request);
+        }
+
         boolean isGzipped = session.isGzipped();
         boolean isChunked = session.isChunked();
         if (session.isConnectionClose() && !isChunked && !isGzipped) {
             // write IoBuffer directly when pipelining disabled
             return super.flushNow(session, parent, buf, filterChain, request);
         }
+        else if (isChunked && !isGzipped && session.getChunkCoalescer() != null) {
+            // hold the content to be written as part of a larger chunk
+            return session.getChunkCoalescer().append(buf, request);
+        }
         else if (buf instanceof HttpBuffer) {
             // write out message buffer
             // reuse previously constructed message if available
@@ -308,7 +368,8 @@ public class HttpAcceptProcessor extends BridgeAcceptProcessor<DefaultHttpSessio
         @Override
         public void operationComplete(CommitFuture future) {
             final DefaultHttpSession session = (DefaultHttpSession) future.getSession();
-            if (session.getStatus() == HttpStatus.INFO_SWITCHING_PROTOCOLS) {
+            // HTTP/2 has no protocol upgrade of the connection from within a stream
+            if (session.getStatus() == HttpStatus.INFO_SWITCHING_PROTOCOLS && session.getStreamId() == 0) {
                 CloseFuture closeFuture = session.getCloseFuture();
                 closeFuture.addListener(new IoFutureListener<CloseFuture>() {
                     @Override
@@ -354,12 +415,12 @@ public class HttpAcceptProcessor extends BridgeAcceptProcessor<DefaultHttpSessio
     }
 
     public static void setServerHeader(IoSession session, HttpResponseMessage response) {
-        DefaultHttpSession httpSession = HttpAcceptor.SESSION_KEY.get(session);
+        DefaultHttpSession httpSession = HttpAcceptor.getHttpSession(session, response.getStreamId());
         setServerHeader(httpSession, response);
     }
 
     public static void setDateHeader(IoSession session, HttpResponseMessage response) {
-        DefaultHttpSession httpSession = HttpAcceptor.SESSION_KEY.get(session);
+        DefaultHttpSession httpSession = HttpAcceptor.getHttpSession(session, response.getStreamId());
         if(httpSession != null) {
             ResourceAddress address = httpSession.getLocalAddress();
             boolean dateHeaderEnabled = address.getOption(HttpResourceAddress.DATE_HEADER_ENABLED);
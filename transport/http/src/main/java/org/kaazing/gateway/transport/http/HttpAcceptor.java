@@ -32,6 +32,8 @@ import static org.kaazing.gateway.transport.http.HttpAcceptFilter.CONDITIONAL_WR
 import static org.kaazing.gateway.transport.http.HttpAcceptFilter.CONTENT_LENGTH_ADJUSTMENT;
 import static org.kaazing.gateway.transport.http.HttpAcceptFilter.ELEVATE_EMULATED_REQUEST;
 import static org.kaazing.gateway.transport.http.HttpAcceptFilter.HOST_HEADER;
+import static org.kaazing.gateway.transport.http.HttpAcceptFilter.HTTP2_CODEC;
+import static org.kaazing.gateway.transport.http.HttpAcceptFilter.HTTP2_PREFACE;
 import static org.kaazing.gateway.transport.http.HttpAcceptFilter.HTTP_SERIALIZE_REQUEST_FILTER;
 import static org.kaazing.gateway.transport.http.HttpAcceptFilter.MERGE_REQUEST;
 import static org.kaazing.gateway.transport.http.HttpAcceptFilter.PROTOCOL_HTTP;
@@ -40,13 +42,16 @@ import static org.kaazing.gateway.transport.http.HttpStatus.CLIENT_NOT_FOUND;
 import static org.kaazing.gateway.transport.http.bridge.filter.HttpNextProtocolHeaderFilter.PROTOCOL_HTTPXE_1_1;
 import static org.kaazing.gateway.transport.http.bridge.filter.HttpProtocolFilter.PROTOCOL_HTTP_1_1;
 import static org.kaazing.gateway.transport.http.resource.HttpDynamicResourceFactory.newHttpDynamicResourceFactory;
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP2_ENABLED;
 import static org.kaazing.gateway.util.InternalSystemProperty.HTTPXE_SPECIFICATION;
 
 import java.io.IOException;
 import java.net.SocketAddress;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -72,6 +77,7 @@ import org.kaazing.gateway.resource.address.uri.URIUtils;
 import org.kaazing.gateway.security.auth.context.ResultAwareLoginContext;
 import org.kaazing.gateway.server.spi.security.ExpiringState;
 import org.kaazing.gateway.transport.AbstractBridgeAcceptor;
+import org.kaazing.gateway.transport.AdmissionController;
 import org.kaazing.gateway.transport.Bindings;
 import org.kaazing.gateway.transport.BridgeAcceptor;
 import org.kaazing.gateway.transport.BridgeServiceFactory;
@@ -87,6 +93,8 @@ import org.kaazing.gateway.transport.http.bridge.HttpContentMessage;
 import org.kaazing.gateway.transport.http.bridge.HttpMessage;
 import org.kaazing.gateway.transport.http.bridge.HttpRequestMessage;
 import org.kaazing.gateway.transport.http.bridge.HttpResponseMessage;
+import org.kaazing.gateway.transport.http.bridge.filter.Http2ConnectionFilter;
+import org.kaazing.gateway.transport.http.bridge.filter.Http2PrefaceFilter;
 import org.kaazing.gateway.transport.http.bridge.filter.HttpBuffer;
 import org.kaazing.gateway.transport.http.bridge.filter.HttpBufferAllocator;
 import org.kaazing.gateway.transport.http.bridge.filter.HttpNextAddressFilter;
@@ -113,8 +121,12 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
 
     public static final TypedAttributeKey<Boolean> HTTPXE_SPEC_KEY = new TypedAttributeKey<>(HttpAcceptor.class, "httpxeSpec");
     static final TypedAttributeKey<DefaultHttpSession> SESSION_KEY = new TypedAttributeKey<>(HttpAcceptor.class, "session");
+    static final TypedAttributeKey<Map<Integer, DefaultHttpSession>> STREAMS_KEY =
+            new TypedAttributeKey<>(HttpAcceptor.class, "streams");
 	public static final AttributeKey BALANCEES_KEY = new AttributeKey(HttpAcceptor.class, "balancees");
 
+    private static final String HEADER_HTTP2_SETTINGS = "HTTP2-Settings";
+
     private final Map<String, Set<HttpAcceptFilter>> acceptFiltersByProtocol;
     private final Set<HttpAcceptFilter> allAcceptFilters;
 
@@ -131,6 +143,10 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
 
     private boolean httpxeSpecCompliant;
 
+    private boolean http2Enabled;
+
+    private AdmissionController admissionController;
+
     @Resource(name = "schedulerProvider")
     public void setSchedulerProvider(SchedulerProvider provider) {
         this.schedulerProvider = provider;
@@ -145,6 +161,15 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
     public void setConfiguration(Properties configuration) {
         this.configuration = configuration;
         httpxeSpecCompliant = HTTPXE_SPECIFICATION.getBooleanProperty(configuration);
+        http2Enabled = HTTP2_ENABLED.getBooleanProperty(configuration);
+        if (admissionController == null) {
+            admissionController = new AdmissionController(configuration);
+        }
+    }
+
+    @Resource(name = "admissionController")
+    public void setAdmissionController(AdmissionController admissionController) {
+        this.admissionController = admissionController;
     }
 
     public HttpAcceptor() {
@@ -161,6 +186,9 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
                                                                        CONDITIONAL_WRAPPED_RESPONSE)));
 
         acceptFiltersByProtocol.put(PROTOCOL_HTTPXE_1_1, complementOf(of(CONTENT_LENGTH_ADJUSTMENT,
+                                                                         // HTTP/2 is negotiated on the outer http/1.1 connection
+                                                                         HTTP2_PREFACE,
+                                                                         HTTP2_CODEC,
                                                                          // wsx-filter-only
                                                                          MERGE_REQUEST,
                                                                          // do not serialize again
@@ -171,6 +199,8 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
                                                                          CONDITIONAL_WRAPPED_RESPONSE)));
 
         acceptFiltersByProtocol.put("x-kaazing-handshake", complementOf(of(CONTENT_LENGTH_ADJUSTMENT,
+                                                                           HTTP2_PREFACE,
+                                                                           HTTP2_CODEC,
                                                                            PROTOCOL_HTTPXE,
                                                                            HOST_HEADER,
                                                                            ELEVATE_EMULATED_REQUEST,
@@ -346,6 +376,13 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
                 IoFilterChain filterChain = httpSession.getFilterChain();
                 filterChain.fireSessionIdle(status);
             }
+
+            Map<Integer, DefaultHttpSession> streams = STREAMS_KEY.get(session);
+            if (streams != null) {
+                for (DefaultHttpSession streamSession : new ArrayList<>(streams.values())) {
+                    streamSession.getFilterChain().fireSessionIdle(status);
+                }
+            }
         }
 
         @Override
@@ -360,10 +397,21 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
             if (httpSession != null && !httpSession.isClosing()) {
                 httpSession.reset(new IOException("Early termination of IO session").fillInStackTrace());
             }
+
+            resetStreams(session, "Early termination of IO session");
         }
 
         @Override
         protected void doExceptionCaught(final IoSessionEx session, Throwable cause) throws Exception {
+            if (Http2ConnectionFilter.CONNECTION_KEY.get(session) != null) {
+                // HTTP/2 errors are answered with RST_STREAM or GOAWAY, never with an HTTP/1.1 response
+                String message = format("Error on HTTP/2 connection, closing connection: %s", cause);
+                LoggingUtils.log(session, logger, message, cause);
+                resetStreams(session, message);
+                session.close(true);
+                return;
+            }
+
             DefaultHttpSession httpSession = SESSION_KEY.get(session);
             if (httpSession != null && !httpSession.isClosing()) {
                 // see AbstractPollingIoProcessor.read(T session)
@@ -417,6 +465,17 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
                 final HttpRequestMessage httpRequest = (HttpRequestMessage) message;
                 final URI requestURI = httpRequest.getRequestURI();
 
+                if (httpRequest.getStreamId() == 0 && admissionController != null && admissionController.shed(session)) {
+                    // answer before creating the HTTP session while the I/O worker is overloaded
+                    rejectOverloaded(session, httpRequest);
+                    break;
+                }
+
+                if (httpRequest.getStreamId() == 0 && isHttp2Upgrade(session, httpRequest)) {
+                    upgradeToHttp2(session, httpRequest);
+                }
+                final int streamId = httpRequest.getStreamId();
+
                 if (logger.isInfoEnabled()) {
                     String host = httpRequest.getHeader("Host");
                     String userAgent = httpRequest.getHeader("User-Agent");
@@ -471,8 +530,14 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
                             logger.warn("Unable to find handler for new HTTP session with local address:\n{}\nbindings:\n{}\n", newHttpSession.getLocalAddress(), bindings);
                         }
                         newHttpSession.setHandler(handler);
-                        // need to set here so that exceptions during session created|opened are properly handled as 50x
-                        SESSION_KEY.set(session, newHttpSession);
+                        if (streamId != 0) {
+                            newHttpSession.setStreamId(streamId);
+                            getStreams(session).put(streamId, newHttpSession);
+                        }
+                        else {
+                            // need to set here so that exceptions during session created|opened are properly handled as 50x
+                            SESSION_KEY.set(session, newHttpSession);
+                        }
                         return newHttpSession;
                     }
                 });
@@ -489,7 +554,20 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
                 fireContentReceived(httpSession, httpContent);
                 break;
             case CONTENT:
-                httpSession = SESSION_KEY.get(session);
+                int contentStreamId = httpMessage.getStreamId();
+                if (contentStreamId != 0) {
+                    Map<Integer, DefaultHttpSession> streams = STREAMS_KEY.get(session);
+                    httpSession = (streams != null) ? streams.get(contentStreamId) : null;
+                    if (httpSession == null) {
+                        // HTTP session already closed, discard the remaining request content
+                        windowConsumed(session, contentStreamId, ((HttpContentMessage) message).length());
+                        break;
+                    }
+                }
+                else {
+                    httpSession = SESSION_KEY.get(session);
+                }
+
                 if (httpSession != null) {
                     fireContentReceived(httpSession, (HttpContentMessage) message);
                 }
@@ -515,6 +593,14 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
                     HttpAcceptProcessor processor = (HttpAcceptProcessor) httpSession.getProcessor();
                     processor.consume(httpSession);
                 }
+
+                Map<Integer, DefaultHttpSession> streams = STREAMS_KEY.get(session);
+                if (streams != null) {
+                    for (DefaultHttpSession streamSession : new ArrayList<>(streams.values())) {
+                        HttpAcceptProcessor processor = (HttpAcceptProcessor) streamSession.getProcessor();
+                        processor.consume(streamSession);
+                    }
+                }
             }
         }
 
@@ -529,13 +615,139 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
                 }
                 else {
                     // direct read for now, in the future this should always get buffered
+                    int length = buffer.remaining();
                     IoFilterChain filterChain = session.getFilterChain();
                     filterChain.fireMessageReceived(buffer);
+
+                    // HTTP/2 stream content has been consumed, so the peer may send more
+                    if (session.getStreamId() != 0) {
+                        windowConsumed(session.getParent(), session.getStreamId(), length);
+                    }
+                }
+            }
+        }
+
+        private boolean isHttp2Upgrade(IoSessionEx session, HttpRequestMessage httpRequest) {
+            // RFC 7540 section 3.2, h2c upgrade of a request without content
+            if (!http2Enabled || httpRequest.isSecure() || !httpRequest.isComplete()
+                    || Http2ConnectionFilter.CONNECTION_KEY.get(session) != null
+                    || !session.getFilterChain().contains(HttpAcceptFilter.CODEC.filterName())) {
+                return false;
+            }
+
+            HttpContentMessage httpContent = httpRequest.getContent();
+            if (httpContent != null && httpContent.length() > 0) {
+                return false;
+            }
+
+            List<String> http2Settings = httpRequest.getHeaderValues(HEADER_HTTP2_SETTINGS, false);
+            if (http2Settings == null || http2Settings.size() != 1) {
+                return false;
+            }
+
+            String upgrade = httpRequest.getHeader(HttpHeaders.HEADER_UPGRADE);
+            if (upgrade != null) {
+                for (String protocol : upgrade.split(",")) {
+                    if ("h2c".equalsIgnoreCase(protocol.trim())) {
+                        return true;
+                    }
                 }
             }
+            return false;
+        }
+
+        private void rejectOverloaded(IoSessionEx session, HttpRequestMessage httpRequest) {
+            if (logger.isDebugEnabled()) {
+                logger.debug(format("Rejecting request %s from %s with 503, I/O worker overloaded",
+                        httpRequest.getRequestURI(), session.getRemoteAddress()));
+            }
+
+            // ignore any remaining request content
+            session.suspendRead();
+
+            HttpResponseMessage httpResponse = new HttpResponseMessage();
+            httpResponse.setVersion(HttpVersion.HTTP_1_1);
+            httpResponse.setStatus(HttpStatus.SERVER_SERVICE_UNAVAILABLE);
+            httpResponse.setHeader("Date", HttpUtils.formatDateHeader(System.currentTimeMillis()));
+            httpResponse.setHeader("Retry-After", "1");
+            httpResponse.setHeader("Connection", "close");
+            session.write(httpResponse);
+            session.close(false);
+        }
+
+        private void upgradeToHttp2(IoSessionEx session, HttpRequestMessage httpRequest) {
+            String http2Settings = httpRequest.getHeader(HEADER_HTTP2_SETTINGS);
+
+            HttpResponseMessage httpResponse = new HttpResponseMessage();
+            httpResponse.setVersion(HttpVersion.HTTP_1_1);
+            httpResponse.setStatus(HttpStatus.INFO_SWITCHING_PROTOCOLS);
+            httpResponse.setHeader("Connection", "Upgrade");
+            httpResponse.setHeader(HttpHeaders.HEADER_UPGRADE, "h2c");
+            session.write(httpResponse);
+
+            // the request continues as stream 1 of the new HTTP/2 connection
+            Http2ConnectionFilter connection = Http2ConnectionFilter.install(session, http2Listener, http2Settings, logger);
+            httpRequest.setStreamId(connection.openUpgradeStream());
+            httpRequest.removeHeader(HttpHeaders.HEADER_UPGRADE);
+            httpRequest.removeHeader(HEADER_HTTP2_SETTINGS);
+            httpRequest.removeHeader("Connection");
         }
     };
 
+    private final Http2ConnectionFilter.Listener http2Listener = new Http2ConnectionFilter.Listener() {
+
+        @Override
+        public void streamReset(IoSession session, int streamId) {
+            Map<Integer, DefaultHttpSession> streams = STREAMS_KEY.get(session);
+            DefaultHttpSession httpSession = (streams != null) ? streams.remove(streamId) : null;
+            if (httpSession != null && !httpSession.isClosing()) {
+                httpSession.reset(new IOException(format("HTTP/2 stream %d reset", streamId)).fillInStackTrace());
+            }
+        }
+    };
+
+    private static Map<Integer, DefaultHttpSession> getStreams(IoSession session) {
+        Map<Integer, DefaultHttpSession> streams = STREAMS_KEY.get(session);
+        if (streams == null) {
+            streams = new HashMap<>();
+            STREAMS_KEY.set(session, streams);
+        }
+        return streams;
+    }
+
+    private static void resetStreams(IoSession session, String reason) {
+        Map<Integer, DefaultHttpSession> streams = STREAMS_KEY.remove(session);
+        if (streams != null) {
+            for (DefaultHttpSession httpSession : streams.values()) {
+                if (!httpSession.isClosing()) {
+                    httpSession.reset(new IOException(reason).fillInStackTrace());
+                }
+            }
+        }
+    }
+
+    static DefaultHttpSession getHttpSession(IoSession parent, int streamId) {
+        if (streamId == 0) {
+            return SESSION_KEY.get(parent);
+        }
+        Map<Integer, DefaultHttpSession> streams = STREAMS_KEY.get(parent);
+        return (streams != null) ? streams.get(streamId) : null;
+    }
+
+    static void removeHttpSession(IoSession parent, DefaultHttpSession httpSession) {
+        Map<Integer, DefaultHttpSession> streams = STREAMS_KEY.get(parent);
+        if (streams != null) {
+            streams.remove(httpSession.getStreamId(), httpSession);
+        }
+    }
+
+    static void windowConsumed(IoSession parent, int streamId, int bytes) {
+        Http2ConnectionFilter connection = Http2ConnectionFilter.CONNECTION_KEY.get(parent);
+        if (connection != null) {
+            connection.windowConsumed(streamId, bytes);
+        }
+    }
+
     @Override
     public void addBridgeFilters(IoFilterChain chain) {
         IoSession transport = chain.getSession();
@@ -572,6 +784,15 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
                 // session-specific always-added filter.
                 chain.addLast(acceptFilter.filterName(), new HttpSerializeRequestsFilter(logger));
                 break;
+            case HTTP2_PREFACE:
+                // session-specific filter, removes itself after the first read
+                if (http2Enabled) {
+                    chain.addLast(acceptFilter.filterName(), new Http2PrefaceFilter(http2Listener, logger));
+                }
+                break;
+            case HTTP2_CODEC:
+                // a session-specific filter added in place of the codec when HTTP/2 is detected
+                break;
             case SUBJECT_SECURITY:
                 // One instance of HttpSubjectSecurityFilter per session
                 HttpSubjectSecurityFilter filter = new HttpSubjectSecurityFilter(LoggerFactory.getLogger(SECURITY_LOGGER_NAME), expiringState);
@@ -0,0 +1,200 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.http;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.kaazing.gateway.resource.address.http.HttpResourceAddress.FLUSH_DELAY;
+import static org.kaazing.gateway.resource.address.http.HttpResourceAddress.FLUSH_SIZE;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.apache.mina.core.filterchain.IoFilterChain;
+import org.apache.mina.core.future.IoFutureListener;
+import org.apache.mina.core.future.WriteFuture;
+import org.apache.mina.core.write.WriteRequest;
+import org.apache.mina.core.write.WriteToClosedSessionException;
+import org.jboss.netty.util.Timeout;
+import org.kaazing.gateway.resource.address.ResourceAddress;
+import org.kaazing.gateway.transport.http.bridge.HttpContentMessage;
+import org.kaazing.gateway.transport.http.bridge.filter.HttpBuffer;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.filterchain.IoEventBatchingExecutor;
+import org.kaazing.mina.core.session.IoSessionEx;
+
+/**
+ * Coalesces the content written to a streaming (chunked) HTTP response into fewer, larger chunks.
+ * <p>
+ * Written buffers are held until they add up to the flush size, or until the flush delay has elapsed
+ * since the first of them was held, and are then written to the parent as a single chunk. The delay
+ * is driven by the timer of the I/O worker, so the flush runs on the I/O thread of the session.
+ * Without a delay, or when the worker has no timer, the buffers drained by one flush of the
+ * session are written as one chunk.
+ * <p>
+ * All methods are called on the I/O thread of the session.
+ */
+final class HttpChunkCoalescer {
+
+    private final DefaultHttpSession session;
+    private final long flushDelay;
+    private final int flushSize;
+    private final IoEventBatchingExecutor timingWheel;
+    private final List<IoBufferEx> buffers;
+    private final List<WriteRequest> requests;
+    private final Runnable flushTask;
+
+    private int pendingBytes;
+    private Timeout flushTimeout;
+
+    private HttpChunkCoalescer(DefaultHttpSession session, long flushDelay, int flushSize) {
+        Executor ioExecutor = session.getIoExecutor();
+        this.session = session;
+        this.flushDelay = flushDelay;
+        this.flushSize = flushSize;
+        IoEventBatchingExecutor batchingExecutor =
+                (ioExecutor instanceof IoEventBatchingExecutor) ? (IoEventBatchingExecutor) ioExecutor : null;
+        this.timingWheel = (batchingExecutor != null && batchingExecutor.canSchedule()) ? batchingExecutor : null;
+        this.buffers = new ArrayList<>();
+        this.requests = new ArrayList<>();
+        this.flushTask = new Runnable() {
+            @Override
+            public void run() {
+                flushTimeout = null;
+                flush();
+            }
+        };
+    }
+
+    /**
+     * @return a coalescer for the session, or null when its local address does not configure a flush delay or size
+     */
+    static HttpChunkCoalescer newInstance(DefaultHttpSession session) {
+        ResourceAddress localAddress = session.getLocalAddress();
+        Long flushDelay = localAddress.getOption(FLUSH_DELAY);
+        Integer flushSize = localAddress.getOption(FLUSH_SIZE);
+        long delay = (flushDelay != null) ? flushDelay : 0L;
+        int size = (flushSize != null) ? flushSize : 0;
+        return (delay > 0L || size > 0) ? new HttpChunkCoalescer(session, delay, size) : null;
+    }
+
+    /**
+     * Holds the buffer until the next chunk is written, the request completes when that chunk has been written.
+     */
+    WriteFuture append(IoBufferEx buf, WriteRequest request) {
+        buffers.add(buf);
+        requests.add(request);
+        pendingBytes += buf.remaining();
+
+        if (flushSize > 0 && pendingBytes >= flushSize) {
+            flush();
+        }
+        else if (flushTimeout == null && flushDelay > 0L && timingWheel != null) {
+            flushTimeout = timingWheel.schedule(flushTask, flushDelay, MILLISECONDS);
+        }
+
+        return request.getFuture();
+    }
+
+    /**
+     * Called once the session has drained its write request queue.
+     */
+    void flushed() {
+        if (flushDelay == 0L || timingWheel == null) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the held buffers to the parent as a single chunk.
+     */
+    void flush() {
+        if (flushTimeout != null) {
+            flushTimeout.cancel();
+            flushTimeout = null;
+        }
+
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        final IoSessionEx parent = session.getParent();
+        if (parent == null || parent.isClosing()) {
+            dispose();
+            return;
+        }
+
+        IoBufferAllocatorEx<? extends HttpBuffer> allocator = session.getBufferAllocator();
+        ByteBuffer chunk = allocator.allocate(pendingBytes);
+        int offset = chunk.position();
+        for (IoBufferEx buf : buffers) {
+            // copy without consuming, the buffers may be shared with other sessions
+            chunk.put(buf.buf().duplicate());
+        }
+        chunk.flip();
+        chunk.position(offset);
+
+        final WriteRequest[] writtenRequests = requests.toArray(new WriteRequest[requests.size()]);
+        buffers.clear();
+        requests.clear();
+        pendingBytes = 0;
+
+        HttpBuffer httpBuffer = allocator.wrap(chunk);
+        final IoFilterChain filterChain = session.getFilterChain();
+        WriteFuture parentFuture = parent.write(new HttpContentMessage(httpBuffer, false, true, false));
+        parentFuture.addListener(new IoFutureListener<WriteFuture>() {
+            @Override
+            public void operationComplete(WriteFuture future) {
+                for (WriteRequest request : writtenRequests) {
+                    WriteFuture requestFuture = request.getFuture();
+                    if (future.isWritten()) {
+                        try {
+                            requestFuture.setWritten();
+                        }
+                        catch (Throwable t) {
+                            filterChain.fireExceptionCaught(t);
+                        }
+                    }
+                    else {
+                        requestFuture.setException(future.getException());
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops the held buffers when the session is closed before they could be written, failing their requests.
+     */
+    void dispose() {
+        if (flushTimeout != null) {
+            flushTimeout.cancel();
+            flushTimeout = null;
+        }
+        for (WriteRequest request : requests) {
+            request.getFuture().setException(new WriteToClosedSessionException(request));
+        }
+        buffers.clear();
+        requests.clear();
+        pendingBytes = 0;
+    }
+
+    int getPendingBytes() {
+        return pendingBytes;
+    }
+}
@@ -20,8 +20,21 @@ import org.kaazing.gateway.transport.bridge.Message;
 public abstract class HttpMessage extends Message {
 
 	public enum Kind { REQUEST, RESPONSE, CONTENT }
+
+    private int streamId;
 	
 	public abstract Kind getKind();
 	
 	public abstract boolean isComplete();
+
+    /**
+     * Returns the HTTP/2 stream this message belongs to, or zero for HTTP/1.x.
+     */
+    public int getStreamId() {
+        return streamId;
+    }
+
+    public void setStreamId(int streamId) {
+        this.streamId = streamId;
+    }
 }
@@ -0,0 +1,1182 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.kaazing.gateway.transport.http.HttpAcceptFilter.CODEC;
+import static org.kaazing.gateway.transport.http.HttpAcceptFilter.HTTP2_CODEC;
+import static org.kaazing.gateway.transport.http.HttpAcceptFilter.HTTP_SERIALIZE_REQUEST_FILTER;
+import static org.kaazing.gateway.transport.http.HttpAcceptFilter.PERSISTENCE;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2ProtocolDecoderException.FLOW_CONTROL_ERROR;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2ProtocolDecoderException.FRAME_SIZE_ERROR;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2ProtocolDecoderException.NO_ERROR;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2ProtocolDecoderException.PROTOCOL_ERROR;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2ProtocolDecoderException.REFUSED_STREAM;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2ProtocolDecoderException.STREAM_CLOSED;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+
+import org.apache.mina.core.filterchain.IoFilterAdapter;
+import org.apache.mina.core.filterchain.IoFilterChain;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.write.WriteRequest;
+import org.kaazing.gateway.transport.LoggingFilter;
+import org.kaazing.gateway.transport.TypedAttributeKey;
+import org.kaazing.gateway.transport.http.HttpCookie;
+import org.kaazing.gateway.transport.http.HttpMethod;
+import org.kaazing.gateway.transport.http.HttpVersion;
+import org.kaazing.gateway.transport.http.bridge.HttpContentMessage;
+import org.kaazing.gateway.transport.http.bridge.HttpMessage;
+import org.kaazing.gateway.transport.http.bridge.HttpRequestMessage;
+import org.kaazing.gateway.transport.http.bridge.HttpResponseMessage;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.session.IoSessionEx;
+import org.kaazing.mina.core.write.DefaultWriteRequestEx;
+import org.kaazing.mina.core.write.WriteRequestEx;
+import org.slf4j.Logger;
+
+/**
+ * Server side HTTP/2 connection (RFC 7540), installed in place of the HTTP/1.1 codec once the client
+ * connection preface or an h2c upgrade is detected.
+ * <p>
+ * Each stream is presented to the filters above as an {@link HttpRequestMessage} followed by
+ * {@link HttpContentMessage}s tagged with the stream identifier, and responses written back with the
+ * same identifier are encoded as HEADERS and DATA frames. Receive windows are only replenished as the
+ * content is consumed (see {@link #windowConsumed(int, int)}), so a stream whose HTTP session has
+ * suspended reads stops the peer without blocking the other streams on the connection.
+ * <p>
+ * One instance per connection, all methods are expected to be called on the connection I/O thread.
+ */
+public class Http2ConnectionFilter extends IoFilterAdapter {
+
+    public static final TypedAttributeKey<Http2ConnectionFilter> CONNECTION_KEY =
+            new TypedAttributeKey<>(Http2ConnectionFilter.class, "connection");
+
+    static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(US_ASCII);
+
+    private static final int FRAME_HEADER_LENGTH = 9;
+
+    private static final int DATA = 0x0;
+    private static final int HEADERS = 0x1;
+    private static final int PRIORITY = 0x2;
+    private static final int RST_STREAM = 0x3;
+    private static final int SETTINGS = 0x4;
+    private static final int PUSH_PROMISE = 0x5;
+    private static final int PING = 0x6;
+    private static final int GOAWAY = 0x7;
+    private static final int WINDOW_UPDATE = 0x8;
+    private static final int CONTINUATION = 0x9;
+
+    private static final int FLAG_END_STREAM = 0x1;
+    private static final int FLAG_ACK = 0x1;
+    private static final int FLAG_END_HEADERS = 0x4;
+    private static final int FLAG_PADDED = 0x8;
+    private static final int FLAG_PRIORITY = 0x20;
+
+    private static final int SETTINGS_HEADER_TABLE_SIZE = 0x1;
+    private static final int SETTINGS_ENABLE_PUSH = 0x2;
+    private static final int SETTINGS_MAX_CONCURRENT_STREAMS = 0x3;
+    private static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+    private static final int SETTINGS_MAX_FRAME_SIZE = 0x5;
+    private static final int SETTINGS_MAX_HEADER_LIST_SIZE = 0x6;
+
+    private static final int DEFAULT_WINDOW_SIZE = 65535;
+    private static final int DEFAULT_MAX_FRAME_SIZE = 16384;
+    private static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE;
+
+    private static final int LOCAL_MAX_CONCURRENT_STREAMS = 100;
+    private static final int LOCAL_MAX_HEADER_LIST_SIZE = 65536;
+
+    private static final String HEADER_HOST = "Host";
+    private static final String HEADER_COOKIE = "Cookie";
+
+    /**
+     * Notified when a stream is reset, either by the peer or as the result of a stream error.
+     */
+    public interface Listener {
+
+        void streamReset(IoSession session, int streamId);
+    }
+
+    private final Listener listener;
+    private final Logger logger;
+    private final String upgradeSettings;
+
+    private final Http2HpackDecoder hpackDecoder = new Http2HpackDecoder(Http2HeaderTable.DEFAULT_MAX_SIZE,
+                                                                         LOCAL_MAX_HEADER_LIST_SIZE);
+    private final Http2HpackEncoder hpackEncoder = new Http2HpackEncoder();
+
+    // streams in creation order, which is ascending stream identifier order
+    private final Map<Integer, Stream> streams = new LinkedHashMap<>();
+
+    private IoSessionEx session;
+    private NextFilter nextFilter;
+    private ByteBuffer cumulation;
+    private boolean prefaceReceived;
+
+    // header block split across HEADERS and CONTINUATION frames
+    private int headerBlockStreamId;
+    private int headerBlockFlags;
+    private ByteBuffer headerBlock;
+
+    private int lastStreamId;
+    private int dispatchingStreamId;
+    private int lastResponseStreamId;
+    private boolean goAwayReceived;
+
+    private int remoteInitialWindowSize = DEFAULT_WINDOW_SIZE;
+    private int remoteMaxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+    private int connectionSendWindow = DEFAULT_WINDOW_SIZE;
+    private int connectionRecvWindow = DEFAULT_WINDOW_SIZE;
+    private int connectionConsumed;
+
+    /**
+     * @param listener         notified of stream resets
+     * @param upgradeSettings  the HTTP2-Settings header of an h2c upgrade request, or {@code null}
+     *                         when the connection started with the connection preface
+     */
+    public Http2ConnectionFilter(Listener listener, String upgradeSettings, Logger logger) {
+        this.listener = listener;
+        this.upgradeSettings = upgradeSettings;
+        this.logger = logger;
+    }
+
+    /**
+     * Replaces the HTTP/1.1 codec on the given connection. Request serialization and persistence
+     * do not apply to multiplexed streams, so those filters are removed as well.
+     */
+    public static Http2ConnectionFilter install(IoSessionEx session, Listener listener, String upgradeSettings,
+                                                Logger logger) {
+        Http2ConnectionFilter connection = new Http2ConnectionFilter(listener, upgradeSettings, logger);
+
+        IoFilterChain filterChain = session.getFilterChain();
+        filterChain.addAfter(CODEC.filterName(), HTTP2_CODEC.filterName(), connection);
+        filterChain.remove(CODEC.filterName());
+        if (filterChain.contains(HTTP_SERIALIZE_REQUEST_FILTER.filterName())) {
+            filterChain.remove(HTTP_SERIALIZE_REQUEST_FILTER.filterName());
+        }
+        if (filterChain.contains(PERSISTENCE.filterName())) {
+            filterChain.remove(PERSISTENCE.filterName());
+        }
+
+        // Give logging filter a chance to move after the new codec
+        LoggingFilter.moveAfterCodec(session);
+
+        return connection;
+    }
+
+    @Override
+    public void onPostAdd(IoFilterChain parent, String name, NextFilter nextFilter) throws Exception {
+        this.session = (IoSessionEx) parent.getSession();
+        this.nextFilter = nextFilter;
+        CONNECTION_KEY.set(session, this);
+
+        if (upgradeSettings != null) {
+            try {
+                applySettings(ByteBuffer.wrap(Base64.getUrlDecoder().decode(upgradeSettings.trim())));
+            }
+            catch (IllegalArgumentException e) {
+                throw new Http2ProtocolDecoderException(PROTOCOL_ERROR, "Invalid HTTP2-Settings header");
+            }
+        }
+
+        // server connection preface
+        ByteBuffer settings = ByteBuffer.allocate(12);
+        settings.putShort((short) SETTINGS_MAX_CONCURRENT_STREAMS).putInt(LOCAL_MAX_CONCURRENT_STREAMS);
+        settings.putShort((short) SETTINGS_MAX_HEADER_LIST_SIZE).putInt(LOCAL_MAX_HEADER_LIST_SIZE);
+        settings.flip();
+        writeFrame(SETTINGS, 0, 0, settings);
+    }
+
+    @Override
+    public void onPostRemove(IoFilterChain parent, String name, NextFilter nextFilter) throws Exception {
+        CONNECTION_KEY.remove(parent.getSession());
+    }
+
+    /**
+     * Opens stream 1 for the request that carried an h2c upgrade. The request is already complete,
+     * so the stream starts half-closed (remote).
+     */
+    public int openUpgradeStream() {
+        Stream stream = new Stream(1);
+        stream.remoteClosed = true;
+        streams.put(stream.id, stream);
+        lastStreamId = stream.id;
+        return stream.id;
+    }
+
+    /**
+     * Returns flow control credit for content of the given stream that has been delivered to the application.
+     */
+    public void windowConsumed(int streamId, int bytes) {
+        Stream stream = streams.get(streamId);
+        if (stream == null || stream.remoteClosed || bytes <= 0) {
+            return;
+        }
+
+        stream.consumed += bytes;
+        if (stream.consumed >= DEFAULT_WINDOW_SIZE / 2) {
+            stream.recvWindow += stream.consumed;
+            writeWindowUpdate(streamId, stream.consumed);
+            stream.consumed = 0;
+        }
+    }
+
+    /**
+     * Returns the stream of the request currently being delivered, or zero if none.
+     */
+    public int getDispatchingStreamId() {
+        return dispatchingStreamId;
+    }
+
+    public int getStreamCount() {
+        return streams.size();
+    }
+
+    @Override
+    public void messageReceived(NextFilter nextFilter, IoSession session, Object message) throws Exception {
+        if (!(message instanceof IoBufferEx)) {
+            nextFilter.messageReceived(session, message);
+            return;
+        }
+
+        ByteBuffer in = ((IoBufferEx) message).buf();
+        if (cumulation != null) {
+            cumulation = append(cumulation, in);
+            in = cumulation;
+        }
+
+        try {
+            decode(in);
+        }
+        catch (Http2ProtocolDecoderException e) {
+            connectionError(e);
+            return;
+        }
+
+        if (in.hasRemaining()) {
+            if (in != cumulation) {
+                cumulation = ByteBuffer.allocate(Math.max(in.remaining() * 2, 256));
+                cumulation.put(in).flip();
+            }
+            else {
+                cumulation.compact().flip();
+            }
+        }
+        else {
+            cumulation = null;
+        }
+    }
+
+    @Override
+    public void filterWrite(NextFilter nextFilter, IoSession session, WriteRequest writeRequest) throws Exception {
+        Object message = writeRequest.getMessage();
+        if (!(message instanceof HttpMessage)) {
+            nextFilter.filterWrite(session, writeRequest);
+            return;
+        }
+
+        HttpMessage httpMessage = (HttpMessage) message;
+        Stream stream = streams.get(resolveStreamId(httpMessage));
+        if (stream == null || stream.localClosed) {
+            // stream was reset or has already ended
+            writeRequest.getFuture().setWritten();
+            return;
+        }
+
+        switch (httpMessage.getKind()) {
+        case RESPONSE:
+            HttpResponseMessage httpResponse = (HttpResponseMessage) httpMessage;
+            HttpContentMessage httpContent = httpResponse.getContent();
+            IoBufferEx data = (httpContent != null && !httpResponse.isContentExcluded()) ? httpContent.asBuffer() : null;
+            ByteBuffer headerBlock = encodeHeaders(httpResponse);
+            stream.responseStarted = true;
+            writeStream(writeRequest, stream, headerBlock, data, httpResponse.isComplete());
+            break;
+        case CONTENT:
+            HttpContentMessage content = (HttpContentMessage) httpMessage;
+            writeStream(writeRequest, stream, null, content.asBuffer(), content.isComplete());
+            break;
+        default:
+            throw new IllegalStateException("Unexpected HTTP message kind: " + httpMessage.getKind());
+        }
+    }
+
+    @Override
+    public void sessionClosed(NextFilter nextFilter, IoSession session) throws Exception {
+        IOException cause = null;
+        for (Stream stream : streams.values()) {
+            for (PendingWrite pending : stream.pendingWrites) {
+                if (cause == null) {
+                    cause = new IOException("HTTP/2 connection closed");
+                }
+                pending.request.getFuture().setException(cause);
+            }
+        }
+        streams.clear();
+        cumulation = null;
+
+        super.sessionClosed(nextFilter, session);
+    }
+
+    private void decode(ByteBuffer in) throws Http2ProtocolDecoderException {
+        if (!prefaceReceived) {
+            if (in.remaining() < PREFACE.length) {
+                return;
+            }
+            for (byte b : PREFACE) {
+                if (in.get() != b) {
+                    throw new Http2ProtocolDecoderException(PROTOCOL_ERROR, "Invalid connection preface");
+                }
+            }
+            prefaceReceived = true;
+        }
+
+        while (in.remaining() >= FRAME_HEADER_LENGTH && !session.isClosing()) {
+            int position = in.position();
+            int length = ((in.get(position) & 0xff) << 16) | ((in.get(position + 1) & 0xff) << 8)
+                    | (in.get(position + 2) & 0xff);
+            if (length > DEFAULT_MAX_FRAME_SIZE) {
+                throw new Http2ProtocolDecoderException(FRAME_SIZE_ERROR, "Frame exceeds maximum size: " + length);
+            }
+            if (in.remaining() < FRAME_HEADER_LENGTH + length) {
+                return;
+            }
+
+            int type = in.get(position + 3) & 0xff;
+            int flags = in.get(position + 4) & 0xff;
+            int streamId = in.getInt(position + 5) & 0x7fffffff;
+
+            ByteBuffer payload = in.duplicate();
+            payload.position(position + FRAME_HEADER_LENGTH).limit(position + FRAME_HEADER_LENGTH + length);
+            in.position(payload.limit());
+
+            try {
+                decodeFrame(type, flags, streamId, payload);
+            }
+            catch (Http2ProtocolDecoderException e) {
+                if (e.getStreamId() == 0) {
+                    throw e;
+                }
+                streamError(e);
+            }
+        }
+    }
+
+    private void decodeFrame(int type, int flags, int streamId, ByteBuffer payload) throws Http2ProtocolDecoderException {
+        if (headerBlock != null && (type != CONTINUATION || streamId != headerBlockStreamId)) {
+            throw new Http2ProtocolDecoderException(PROTOCOL_ERROR, "Expected CONTINUATION frame");
+        }
+
+        switch (type) {
+        case DATA:
+            onData(flags, streamId, payload);
+            break;
+        case HEADERS:
+            onHeaders(flags, streamId, payload);
+            break;
+        case PRIORITY:
+            if (payload.remaining() != 5) {
+                throw new Http2ProtocolDecoderException(FRAME_SIZE_ERROR, streamId, "Invalid PRIORITY frame");
+            }
+            break;
+        case RST_STREAM:
+            onRstStream(streamId, payload);
+            break;
+        case SETTINGS:
+            onSettings(flags, streamId, payload);
+            break;
+        case PUSH_PROMISE:
+            throw new Http2ProtocolDecoderException(PROTOCOL_ERROR, "PUSH_PROMISE received by server");
+        case PING:
+            onPing(flags, streamId, payload);
+            break;
+        case GOAWAY:
+            onGoAway(streamId, payload);
+            break;
+        case WINDOW_UPDATE:
+            onWindowUpdate(streamId, payload);
+            break;
+        case CONTINUATION:
+            onContinuation(flags, streamId, payload);
+            break;
+        default:
+            // unknown frame types must be ignored
+            break;
+        }
+    }
+
+    private void onData(int flags, int streamId, ByteBuffer payload) throws Http2ProtocolDecoderException {
+        if (streamId == 0) {
+            throw new Http2ProtocolDecoderException(PROTOCOL_ERROR, "DATA frame on stream 0");
+        }
+
+        // connection window covers the entire frame, including padding
+        int frameLength = payload.remaining();
+        connectionRecvWindow -= frameLength;
+        if (connectionRecvWindow < 0) {
+            throw new Http2ProtocolDecoderException(FLOW_CONTROL_ERROR, "Connection receive window exceeded");
+        }
+        connectionConsumed += frameLength;
+        if (connectionConsumed >= DEFAULT_WINDOW_SIZE / 2) {
+            connectionRecvWindow += connectionConsumed;
+            writeWindowUpdate(0, connectionConsumed);
+            connectionConsumed = 0;
+        }
+
+        Stream stream = streams.get(streamId);
+        if (stream == null || stream.remoteClosed) {
+            if (streamId > lastStreamId) {
+                throw new Http2ProtocolDecoderException(PROTOCOL_ERROR, "DATA frame on idle stream " + streamId);
+            }
+            throw new Http2ProtocolDecoderException(STREAM_CLOSED, streamId, "DATA frame on closed stream " + streamId);
+        }
+
+        stripPadding(flags, streamId, payload);
+
+        stream.recvWindow -= frameLength;
+        if (stream.recvWindow < 0) {
+            throw new Http2ProtocolDecoderException(FLOW_CONTROL_ERROR, streamId, "Stream receive window exceeded");
+        }
+
+        boolean endStream = (flags & FLAG_END_STREAM) != 0;
+        stream.remoteClosed = endStream;
+
+        // padding is never delivered, so it is consumed right away
+        int dataLength = payload.remaining();
+        windowConsumed(streamId, frameLength - dataLength);
+
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        ByteBuffer data = allocator.allocate(dataLength);
+        int dataPosition = data.position();
+        data.put(payload);
+        data.flip();
+        data.position(dataPosition);
+        HttpContentMessage httpContent = new HttpContentMessage(allocator.wrap(data), endStream);
+        httpContent.setStreamId(streamId);
+        dispatch(streamId, httpContent);
+
+        closeIfDone(stream);
+    }
+
+    private void onHeaders(int flags, int streamId, ByteBuffer payload) throws Http2ProtocolDecoderException {
+        if (streamId == 0) {
+            throw new Http2ProtocolDecoderException(PROTOCOL_ERROR, "HEADERS frame on stream 0");
+        }
+
+        stripPadding(flags, streamId, payload);
+        if ((flags & FLAG_PRIORITY) != 0) {
+            if (payload.remaining() < 5) {
+                throw new Http2ProtocolDecoderException(FRAME_SIZE_ERROR, "Invalid HEADERS frame");
+            }
+            payload.position(payload.position() + 5);
+        }
+
+        if ((flags & FLAG_END_HEADERS) == 0) {
+            headerBlockStreamId = streamId;
+            headerBlockFlags = flags;
+            ByteBuffer block = ByteBuffer.allocate(payload.remaining() * 2);
+            block.flip();
+            headerBlock = append(block, payload);
+            return;
+        }
+
+        onHeaderBlock(flags, streamId, payload);
+    }
+
+    private void onContinuation(int flags, int streamId, ByteBuffer payload) throws Http2ProtocolDecoderException {
+        if (headerBlock == null) {
+            throw new Http2ProtocolDecoderException(PROTOCOL_ERROR, "Unexpected CONTINUATION frame");
+        }
+
+        headerBlock = append(headerBlock, payload);
+        if (headerBlock.remaining() > LOCAL_MAX_HEADER_LIST_SIZE) {
+            throw new Http2ProtocolDecoderException(Http2ProtocolDecoderException.ENHANCE_YOUR_CALM,
+                    "Header block too large");
+        }
+
+        if ((flags & FLAG_END_HEADERS) != 0) {
+            ByteBuffer block = headerBlock;
+            headerBlock = null;
+            onHeaderBlock(headerBlockFlags, streamId, block);
+        }
+    }
+
+    private void onHeaderBlock(int flags, int streamId, ByteBuffer block) throws Http2ProtocolDecoderException {
+        // always decode to keep the dynamic table in step with the peer, even for refused streams
+        List<String[]> headers = hpackDecoder.decode(block);
+        boolean endStream = (flags & FLAG_END_STREAM) != 0;
+
+        Stream stream = streams.get(streamId);
+        if (stream != null) {
+            // trailers, only the end of stream is of interest
+            if (stream.remoteClosed) {
+                throw new Http2ProtocolDecoderException(STREAM_CLOSED, streamId, "HEADERS frame on closed stream");
+            }
+            if (!endStream) {
+                throw new Http2ProtocolDecoderException(PROTOCOL_ERROR, streamId, "Trailers without END_STREAM");
+            }
+            stream.remoteClosed = true;
+            IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+            HttpContentMessage httpContent = new HttpContentMessage(allocator.wrap(allocator.allocate(0)), true);
+            httpContent.setStreamId(streamId);
+            dispatch(streamId, httpContent);
+            closeIfDone(stream);
+            return;
+        }
+
+        if ((streamId & 0x01) == 0 || streamId <= lastStreamId) {
+            throw new Http2ProtocolDecoderException(PROTOCOL_ERROR, "Invalid stream identifier " + streamId);
+        }
+        lastStreamId = streamId;
+
+        if (streams.size() >= LOCAL_MAX_CONCURRENT_STREAMS) {
+            throw new Http2ProtocolDecoderException(REFUSED_STREAM, streamId, "Too many concurrent streams");
+        }
+
+        HttpRequestMessage httpRequest = newHttpRequest(streamId, headers);
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        httpRequest.setContent(new HttpContentMessage(allocator.wrap(allocator.allocate(0)), endStream));
+
+        stream = new Stream(streamId);
+        stream.remoteClosed = endStream;
+        streams.put(streamId, stream);
+
+        if (logger.isTraceEnabled()) {
+            logger.trace(format("[http/2#%s] Stream %d opened: %s %s", session.getId(), streamId,
+                    httpRequest.getMethod(), httpRequest.getRequestURI()));
+        }
+
+        dispatch(streamId, httpRequest);
+    }
+
+    private void onRstStream(int streamId, ByteBuffer payload) throws Http2ProtocolDecoderException {
+        if (streamId == 0) {
+            throw new Http2ProtocolDecoderException(PROTOCOL_ERROR, "RST_STREAM frame on stream 0");
+        }
+        if (payload.remaining() != 4) {
+            throw new Http2ProtocolDecoderException(FRAME_SIZE_ERROR, "Invalid RST_STREAM frame");
+        }
+        if (streamId > lastStreamId) {
+            throw new Http2ProtocolDecoderException(PROTOCOL_ERROR, "RST_STREAM frame on idle stream " + streamId);
+        }
+
+        if (logger.isTraceEnabled()) {
+            logger.trace(format("[http/2#%s] Stream %d reset by peer, error code %d", session.getId(), streamId,
+                    payload.getInt()));
+        }
+        resetStream(streamId);
+    }
+
+    private void onSettings(int flags, int streamId, ByteBuffer payload) throws Http2ProtocolDecoderException {
+        if (streamId != 0) {
+            throw new Http2ProtocolDecoderException(PROTOCOL_ERROR, "SETTINGS frame on stream " + streamId);
+        }
+        if ((flags & FLAG_ACK) != 0) {
+            if (payload.hasRemaining()) {
+                throw new Http2ProtocolDecoderException(FRAME_SIZE_ERROR, "SETTINGS acknowledgement with payload");
+            }
+            return;
+        }
+
+        applySettings(payload);
+        writeFrame(SETTINGS, FLAG_ACK, 0, null);
+
+        // a larger initial window may have unblocked pending writes
+        flushPendingWrites();
+    }
+
+    private void applySettings(ByteBuffer payload) throws Http2ProtocolDecoderException {
+        if (payload.remaining() % 6 != 0) {
+            throw new Http2ProtocolDecoderException(FRAME_SIZE_ERROR, "Invalid SETTINGS frame");
+        }
+
+        while (payload.hasRemaining()) {
+            int identifier = payload.getShort() & 0xffff;
+            long value = payload.getInt() & 0xffffffffL;
+            switch (identifier) {
+            case SETTINGS_ENABLE_PUSH:
+                if (value > 1) {
+                    throw new Http2ProtocolDecoderException(PROTOCOL_ERROR, "Invalid SETTINGS_ENABLE_PUSH " + value);
+                }
+                break;
+            case SETTINGS_INITIAL_WINDOW_SIZE:
+                if (value > MAX_WINDOW_SIZE) {
+                    throw new Http2ProtocolDecoderException(FLOW_CONTROL_ERROR, "Invalid SETTINGS_INITIAL_WINDOW_SIZE");
+                }
+                int delta = (int) value - remoteInitialWindowSize;
+                for (Stream stream : streams.values()) {
+                    if ((long) stream.sendWindow + delta > MAX_WINDOW_SIZE) {
+                        throw new Http2ProtocolDecoderException(FLOW_CONTROL_ERROR, "Stream send window overflow");
+                    }
+                    stream.sendWindow += delta;
+                }
+                remoteInitialWindowSize = (int) value;
+                break;
+            case SETTINGS_MAX_FRAME_SIZE:
+                if (value < DEFAULT_MAX_FRAME_SIZE || value > 0xffffff) {
+                    throw new Http2ProtocolDecoderException(PROTOCOL_ERROR, "Invalid SETTINGS_MAX_FRAME_SIZE " + value);
+                }
+                remoteMaxFrameSize = (int) value;
+                break;
+            case SETTINGS_HEADER_TABLE_SIZE:
+            case SETTINGS_MAX_CONCURRENT_STREAMS:
+            case SETTINGS_MAX_HEADER_LIST_SIZE:
+            default:
+                // the encoder does not use the dynamic table and the server does not push
+                break;
+            }
+        }
+    }
+
+    private void onPing(int flags, int streamId, ByteBuffer payload) throws Http2ProtocolDecoderException {
+        if (streamId != 0) {
+            throw new Http2ProtocolDecoderException(PROTOCOL_ERROR, "PING frame on stream " + streamId);
+        }
+        if (payload.remaining() != 8) {
+            throw new Http2ProtocolDecoderException(FRAME_SIZE_ERROR, "Invalid PING frame");
+        }
+        if ((flags & FLAG_ACK) == 0) {
+            writeFrame(PING, FLAG_ACK, 0, payload);
+        }
+    }
+
+    private void onGoAway(int streamId, ByteBuffer payload) throws Http2ProtocolDecoderException {
+        if (streamId != 0) {
+            throw new Http2ProtocolDecoderException(PROTOCOL_ERROR, "GOAWAY frame on stream " + streamId);
+        }
+        if (payload.remaining() < 8) {
+            throw new Http2ProtocolDecoderException(FRAME_SIZE_ERROR, "Invalid GOAWAY frame");
+        }
+
+        goAwayReceived = true;
+        if (streams.isEmpty()) {
+            session.close(false);
+        }
+    }
+
+    private void onWindowUpdate(int streamId, ByteBuffer payload) throws Http2ProtocolDecoderException {
+        if (payload.remaining() != 4) {
+            throw new Http2ProtocolDecoderException(FRAME_SIZE_ERROR, "Invalid WINDOW_UPDATE frame");
+        }
+
+        int increment = payload.getInt() & 0x7fffffff;
+        if (increment == 0) {
+            throw new Http2ProtocolDecoderException(PROTOCOL_ERROR, streamId, "WINDOW_UPDATE with zero increment");
+        }
+
+        if (streamId == 0) {
+            if ((long) connectionSendWindow + increment > MAX_WINDOW_SIZE) {
+                throw new Http2ProtocolDecoderException(FLOW_CONTROL_ERROR, "Connection send window overflow");
+            }
+            connectionSendWindow += increment;
+            flushPendingWrites();
+        }
+        else {
+            Stream stream = streams.get(streamId);
+            if (stream != null) {
+                if ((long) stream.sendWindow + increment > MAX_WINDOW_SIZE) {
+                    throw new Http2ProtocolDecoderException(FLOW_CONTROL_ERROR, streamId, "Stream send window overflow");
+                }
+                stream.sendWindow += increment;
+                flushPendingWrites(stream);
+            }
+        }
+    }
+
+    private void dispatch(int streamId, HttpMessage httpMessage) {
+        int previousStreamId = dispatchingStreamId;
+        dispatchingStreamId = streamId;
+        try {
+            nextFilter.messageReceived(session, httpMessage);
+        }
+        finally {
+            dispatchingStreamId = previousStreamId;
+        }
+    }
+
+    private HttpRequestMessage newHttpRequest(int streamId, List<String[]> headers) throws Http2ProtocolDecoderException {
+        HttpRequestMessage httpRequest = new HttpRequestMessage();
+        String method = null;
+        String scheme = null;
+        String authority = null;
+        String path = null;
+        List<String> cookies = null;
+        boolean regularHeaderSeen = false;
+
+        for (String[] header : headers) {
+            String name = header[0];
+            String value = header[1];
+
+            if (!name.equals(name.toLowerCase(Locale.ENGLISH))) {
+                throw malformed(streamId, "Uppercase header field name " + name);
+            }
+
+            if (name.startsWith(":")) {
+                if (regularHeaderSeen) {
+                    throw malformed(streamId, "Pseudo-header field after regular header field");
+                }
+                switch (name) {
+                case ":method":
+                    method = value;
+                    break;
+                case ":scheme":
+                    scheme = value;
+                    break;
+                case ":authority":
+                    authority = value;
+                    break;
+                case ":path":
+                    path = value;
+                    break;
+                default:
+                    throw malformed(streamId, "Unknown pseudo-header field " + name);
+                }
+                continue;
+            }
+
+            regularHeaderSeen = true;
+            switch (name) {
+            case "connection":
+            case "keep-alive":
+            case "proxy-connection":
+            case "transfer-encoding":
+            case "upgrade":
+                throw malformed(streamId, "Connection-specific header field " + name);
+            case "te":
+                if (!"trailers".equals(value)) {
+                    throw malformed(streamId, "Invalid TE header field " + value);
+                }
+                httpRequest.addHeader(name, value);
+                break;
+            case "cookie":
+                // RFC 7540 section 8.1.2.5, cookie crumbs may be split over several fields
+                if (cookies == null) {
+                    cookies = new ArrayList<>(2);
+                }
+                cookies.add(value);
+                break;
+            default:
+                httpRequest.addHeader(name, value);
+                break;
+            }
+        }
+
+        if (method == null || scheme == null || path == null || path.isEmpty()) {
+            throw malformed(streamId, "Missing request pseudo-header fields");
+        }
+
+        try {
+            httpRequest.setMethod(HttpMethod.valueOf(method));
+            httpRequest.setRequestURI(URI.create(path));
+        }
+        catch (IllegalArgumentException e) {
+            throw malformed(streamId, e.getMessage());
+        }
+
+        // KG-1469 Canonicalize Host header to make hostname lowercase to ensure correct lookup in service registry
+        if (authority != null) {
+            httpRequest.setHeader(HEADER_HOST, authority.toLowerCase(Locale.ENGLISH));
+        }
+        else if (httpRequest.hasHeader(HEADER_HOST)) {
+            httpRequest.setHeader(HEADER_HOST, httpRequest.getHeader(HEADER_HOST).toLowerCase(Locale.ENGLISH));
+        }
+        else {
+            throw malformed(streamId, "Missing :authority pseudo-header field");
+        }
+
+        if (cookies != null) {
+            StringBuilder cookie = new StringBuilder();
+            for (String crumb : cookies) {
+                if (cookie.length() > 0) {
+                    cookie.append("; ");
+                }
+                cookie.append(crumb);
+            }
+            List<String> cookieHeaderValues = Collections.singletonList(cookie.toString());
+            httpRequest.setHeader(HEADER_COOKIE, cookie.toString());
+            httpRequest.setCookies(HttpRequestDecodingState.parseCookies(cookieHeaderValues));
+        }
+
+        httpRequest.setSecure("https".equals(scheme));
+        httpRequest.setVersion(HttpVersion.HTTP_1_1);
+        httpRequest.setStreamId(streamId);
+        return httpRequest;
+    }
+
+    private static Http2ProtocolDecoderException malformed(int streamId, String message) {
+        return new Http2ProtocolDecoderException(PROTOCOL_ERROR, streamId, "Malformed request: " + message);
+    }
+
+    private ByteBuffer encodeHeaders(HttpResponseMessage httpResponse) {
+        List<String[]> fields = new ArrayList<>();
+        fields.add(new String[] { ":status", Integer.toString(httpResponse.getStatus().code()) });
+
+        for (Map.Entry<String, List<String>> header : httpResponse.getHeaders().entrySet()) {
+            String name = header.getKey().toLowerCase(Locale.ENGLISH);
+            switch (name) {
+            case "connection":
+            case "keep-alive":
+            case "proxy-connection":
+            case "transfer-encoding":
+            case "upgrade":
+                // connection-specific header fields are not permitted in HTTP/2
+                break;
+            default:
+                for (String value : header.getValue()) {
+                    fields.add(new String[] { name, value });
+                }
+                break;
+            }
+        }
+
+        for (HttpCookie cookie : httpResponse.getCookies()) {
+            fields.add(new String[] { "set-cookie", formatCookie(cookie) });
+        }
+
+        ByteBuffer headerBlock = ByteBuffer.allocate(hpackEncoder.maxEncodedLength(fields));
+        hpackEncoder.encode(fields, headerBlock);
+        headerBlock.flip();
+        return headerBlock;
+    }
+
+    private static String formatCookie(HttpCookie cookie) {
+        StringBuilder value = new StringBuilder();
+        value.append(cookie.getName()).append('=').append(cookie.getValue());
+        if (cookie.getComment() != null) {
+            value.append("; Comment=").append(cookie.getComment());
+        }
+        if (cookie.getDomain() != null) {
+            value.append("; Domain=").append(cookie.getDomain());
+        }
+        if (cookie.getMaxAge() > 0) {
+            value.append("; Max-Age=").append(cookie.getMaxAge());
+        }
+        if (cookie.getPath() != null) {
+            value.append("; Path=").append(cookie.getPath());
+        }
+        if (cookie.isSecure()) {
+            value.append("; Secure");
+        }
+        if (cookie.getVersion() > 0) {
+            value.append("; Version=").append(cookie.getVersion());
+        }
+        return value.toString();
+    }
+
+    private int resolveStreamId(HttpMessage httpMessage) {
+        int streamId = httpMessage.getStreamId();
+        if (streamId != 0) {
+            return streamId;
+        }
+
+        // responses written by filters on behalf of a request, such as error responses
+        if (dispatchingStreamId != 0) {
+            streamId = dispatchingStreamId;
+        }
+        else if (httpMessage.getKind() == HttpMessage.Kind.RESPONSE) {
+            // answer the oldest request still waiting for a response, as HTTP/1.1 would
+            for (Stream stream : streams.values()) {
+                if (!stream.responseStarted) {
+                    streamId = stream.id;
+                    break;
+                }
+            }
+        }
+        else {
+            streamId = lastResponseStreamId;
+        }
+
+        if (httpMessage.getKind() == HttpMessage.Kind.RESPONSE) {
+            lastResponseStreamId = streamId;
+        }
+        return streamId;
+    }
+
+    private void writeStream(WriteRequest writeRequest, Stream stream, ByteBuffer headerBlock, IoBufferEx data,
+                             boolean endStream) {
+        ByteBuffer content = (data != null) ? data.buf().duplicate() : ByteBuffer.allocate(0);
+        PendingWrite pending = new PendingWrite(writeRequest, headerBlock, content, endStream);
+        if (!stream.pendingWrites.isEmpty()) {
+            // preserve ordering behind writes waiting for window
+            stream.pendingWrites.add(pending);
+            return;
+        }
+
+        if (!writeStream(stream, pending)) {
+            stream.pendingWrites.add(pending);
+        }
+    }
+
+    /**
+     * Writes as much of the pending write as the flow control windows allow.
+     *
+     * @return {@code true} if the write is complete
+     */
+    private boolean writeStream(Stream stream, PendingWrite pending) {
+        ByteBuffer content = pending.content;
+        int sendable = Math.min(content.remaining(), Math.max(0, Math.min(stream.sendWindow, connectionSendWindow)));
+        boolean complete = (sendable == content.remaining());
+        if (sendable == 0 && !complete && pending.headerBlock == null) {
+            return false;
+        }
+
+        int maxFrameSize = remoteMaxFrameSize;
+        int frameCount = (sendable + maxFrameSize - 1) / maxFrameSize;
+        int length = frameCount * FRAME_HEADER_LENGTH + sendable;
+        ByteBuffer headerBlock = pending.headerBlock;
+        if (headerBlock != null) {
+            int headerFrameCount = Math.max(1, (headerBlock.remaining() + maxFrameSize - 1) / maxFrameSize);
+            length += headerFrameCount * FRAME_HEADER_LENGTH + headerBlock.remaining();
+        }
+        // a zero length DATA frame carries END_STREAM when the headers have already been sent
+        boolean emptyEndStream = complete && pending.endStream && sendable == 0 && headerBlock == null;
+        if (emptyEndStream) {
+            length += FRAME_HEADER_LENGTH;
+        }
+
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        ByteBuffer out = allocator.allocate(length);
+        int outPosition = out.position();
+
+        if (headerBlock != null) {
+            boolean headersEndStream = complete && pending.endStream && sendable == 0;
+            int type = HEADERS;
+            do {
+                int fragmentLength = Math.min(headerBlock.remaining(), maxFrameSize);
+                int flags = (type == HEADERS && headersEndStream) ? FLAG_END_STREAM : 0;
+                if (fragmentLength == headerBlock.remaining()) {
+                    flags |= FLAG_END_HEADERS;
+                }
+                putFrameHeader(out, fragmentLength, type, flags, stream.id);
+                ByteBuffer fragment = headerBlock.duplicate();
+                fragment.limit(fragment.position() + fragmentLength);
+                out.put(fragment);
+                headerBlock.position(headerBlock.position() + fragmentLength);
+                type = CONTINUATION;
+            } while (headerBlock.hasRemaining());
+            pending.headerBlock = null;
+        }
+
+        int remaining = sendable;
+        while (remaining > 0) {
+            int frameLength = Math.min(remaining, maxFrameSize);
+            remaining -= frameLength;
+            int flags = (complete && pending.endStream && remaining == 0) ? FLAG_END_STREAM : 0;
+            putFrameHeader(out, frameLength, DATA, flags, stream.id);
+            ByteBuffer frame = content.duplicate();
+            frame.limit(frame.position() + frameLength);
+            out.put(frame);
+            content.position(content.position() + frameLength);
+        }
+        if (emptyEndStream) {
+            putFrameHeader(out, 0, DATA, FLAG_END_STREAM, stream.id);
+        }
+
+        stream.sendWindow -= sendable;
+        connectionSendWindow -= sendable;
+
+        out.flip();
+        out.position(outPosition);
+        IoBufferEx frames = allocator.wrap(out);
+        if (complete) {
+            ((WriteRequestEx) pending.request).setMessage(frames);
+            nextFilter.filterWrite(session, pending.request);
+            if (pending.endStream) {
+                stream.localClosed = true;
+                closeIfDone(stream);
+            }
+        }
+        else {
+            nextFilter.filterWrite(session, new DefaultWriteRequestEx(frames));
+        }
+        return complete;
+    }
+
+    private void flushPendingWrites() {
+        for (Stream stream : new ArrayList<>(streams.values())) {
+            if (connectionSendWindow <= 0) {
+                break;
+            }
+            flushPendingWrites(stream);
+        }
+    }
+
+    private void flushPendingWrites(Stream stream) {
+        Queue<PendingWrite> pendingWrites = stream.pendingWrites;
+        PendingWrite pending;
+        while ((pending = pendingWrites.peek()) != null && writeStream(stream, pending)) {
+            pendingWrites.poll();
+        }
+    }
+
+    private void closeIfDone(Stream stream) {
+        if (!stream.localClosed) {
+            return;
+        }
+
+        if (!stream.remoteClosed) {
+            // response is complete, the rest of the request is not needed
+            writeRstStream(stream.id, NO_ERROR);
+        }
+        streams.remove(stream.id);
+
+        if (goAwayReceived && streams.isEmpty()) {
+            session.close(false);
+        }
+    }
+
+    private void resetStream(int streamId) {
+        Stream stream = streams.remove(streamId);
+        if (stream != null) {
+            IOException cause = null;
+            for (PendingWrite pending : stream.pendingWrites) {
+                if (cause == null) {
+                    cause = new IOException(format("HTTP/2 stream %d reset", streamId));
+                }
+                pending.request.getFuture().setException(cause);
+            }
+            listener.streamReset(session, streamId);
+        }
+    }
+
+    private void streamError(Http2ProtocolDecoderException e) {
+        int streamId = e.getStreamId();
+        if (logger.isDebugEnabled()) {
+            logger.debug(format("[http/2#%s] Resetting stream %d: %s", session.getId(), streamId, e.getMessage()));
+        }
+        writeRstStream(streamId, e.getErrorCode());
+        resetStream(streamId);
+    }
+
+    private void connectionError(Http2ProtocolDecoderException e) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(format("[http/2#%s] Closing connection: %s", session.getId(), e.getMessage()));
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate(8);
+        payload.putInt(lastStreamId).putInt(e.getErrorCode()).flip();
+        writeFrame(GOAWAY, 0, 0, payload);
+
+        for (Integer streamId : new ArrayList<>(streams.keySet())) {
+            resetStream(streamId);
+        }
+        cumulation = null;
+        session.close(false);
+    }
+
+    private void writeRstStream(int streamId, int errorCode) {
+        ByteBuffer payload = ByteBuffer.allocate(4);
+        payload.putInt(errorCode).flip();
+        writeFrame(RST_STREAM, 0, streamId, payload);
+    }
+
+    private void writeWindowUpdate(int streamId, int increment) {
+        ByteBuffer payload = ByteBuffer.allocate(4);
+        payload.putInt(increment).flip();
+        writeFrame(WINDOW_UPDATE, 0, streamId, payload);
+    }
+
+    private void writeFrame(int type, int flags, int streamId, ByteBuffer payload) {
+        int length = (payload != null) ? payload.remaining() : 0;
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        ByteBuffer out = allocator.allocate(FRAME_HEADER_LENGTH + length);
+        int outPosition = out.position();
+        putFrameHeader(out, length, type, flags, streamId);
+        if (payload != null) {
+            out.put(payload);
+        }
+        out.flip();
+        out.position(outPosition);
+        nextFilter.filterWrite(session, new DefaultWriteRequestEx(allocator.wrap(out)));
+    }
+
+    private static void putFrameHeader(ByteBuffer out, int length, int type, int flags, int streamId) {
+        out.put((byte) (length >>> 16)).put((byte) (length >>> 8)).put((byte) length);
+        out.put((byte) type).put((byte) flags).putInt(streamId);
+    }
+
+    private static void stripPadding(int flags, int streamId, ByteBuffer payload) throws Http2ProtocolDecoderException {
+        if ((flags & FLAG_PADDED) != 0) {
+            if (!payload.hasRemaining()) {
+                throw new Http2ProtocolDecoderException(FRAME_SIZE_ERROR, "Missing pad length");
+            }
+            int padLength = payload.get() & 0xff;
+            if (padLength > payload.remaining()) {
+                throw new Http2ProtocolDecoderException(PROTOCOL_ERROR, "Padding exceeds frame payload");
+            }
+            payload.limit(payload.limit() - padLength);
+        }
+    }
+
+    private static ByteBuffer append(ByteBuffer cumulation, ByteBuffer in) {
+        if (cumulation.capacity() - cumulation.limit() < in.remaining()) {
+            ByteBuffer expanded = ByteBuffer.allocate(Math.max(cumulation.capacity() * 2,
+                                                               cumulation.remaining() + in.remaining()));
+            expanded.put(cumulation).flip();
+            cumulation = expanded;
+        }
+        int position = cumulation.position();
+        cumulation.position(cumulation.limit()).limit(cumulation.capacity());
+        cumulation.put(in);
+        cumulation.limit(cumulation.position()).position(position);
+        return cumulation;
+    }
+
+    private final class Stream {
+
+        private final int id;
+        private final Queue<PendingWrite> pendingWrites = new ArrayDeque<>(2);
+        private int sendWindow = remoteInitialWindowSize;
+        private int recvWindow = DEFAULT_WINDOW_SIZE;
+        private int consumed;
+        private boolean remoteClosed;
+        private boolean localClosed;
+        private boolean responseStarted;
+
+        Stream(int id) {
+            this.id = id;
+        }
+    }
+
+    private static final class PendingWrite {
+
+        private final WriteRequest request;
+        private final ByteBuffer content;
+        private final boolean endStream;
+        private ByteBuffer headerBlock;
+
+        PendingWrite(WriteRequest request, ByteBuffer headerBlock, ByteBuffer content, boolean endStream) {
+            this.request = request;
+            this.headerBlock = headerBlock;
+            this.content = content;
+            this.endStream = endStream;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HPACK header table (RFC 7541 section 2.3), the static table followed by a dynamic table
+ * that is bounded by the negotiated header table size.
+ */
+final class Http2HeaderTable {
+
+    static final int DEFAULT_MAX_SIZE = 4096;
+
+    // RFC 7541 section 4.1
+    private static final int ENTRY_OVERHEAD = 32;
+
+    private static final String[][] STATIC_TABLE = {
+        { ":authority", "" },
+        { ":method", "GET" },
+        { ":method", "POST" },
+        { ":path", "/" },
+        { ":path", "/index.html" },
+        { ":scheme", "http" },
+        { ":scheme", "https" },
+        { ":status", "200" },
+        { ":status", "204" },
+        { ":status", "206" },
+        { ":status", "304" },
+        { ":status", "400" },
+        { ":status", "404" },
+        { ":status", "500" },
+        { "accept-charset", "" },
+        { "accept-encoding", "gzip, deflate" },
+        { "accept-language", "" },
+        { "accept-ranges", "" },
+        { "accept", "" },
+        { "access-control-allow-origin", "" },
+        { "age", "" },
+        { "allow", "" },
+        { "authorization", "" },
+        { "cache-control", "" },
+        { "content-disposition", "" },
+        { "content-encoding", "" },
+        { "content-language", "" },
+        { "content-length", "" },
+        { "content-location", "" },
+        { "content-range", "" },
+        { "content-type", "" },
+        { "cookie", "" },
+        { "date", "" },
+        { "etag", "" },
+        { "expect", "" },
+        { "expires", "" },
+        { "from", "" },
+        { "host", "" },
+        { "if-match", "" },
+        { "if-modified-since", "" },
+        { "if-none-match", "" },
+        { "if-range", "" },
+        { "if-unmodified-since", "" },
+        { "last-modified", "" },
+        { "link", "" },
+        { "location", "" },
+        { "max-forwards", "" },
+        { "proxy-authenticate", "" },
+        { "proxy-authorization", "" },
+        { "range", "" },
+        { "referer", "" },
+        { "refresh", "" },
+        { "retry-after", "" },
+        { "server", "" },
+        { "set-cookie", "" },
+        { "strict-transport-security", "" },
+        { "transfer-encoding", "" },
+        { "user-agent", "" },
+        { "vary", "" },
+        { "via", "" },
+        { "www-authenticate", "" }
+    };
+
+    static final int STATIC_TABLE_LENGTH = STATIC_TABLE.length;
+
+    // lowest static index for each header name
+    private static final Map<String, Integer> STATIC_NAME_INDEX = new HashMap<>();
+
+    static {
+        for (int i = STATIC_TABLE.length; i > 0; i--) {
+            STATIC_NAME_INDEX.put(STATIC_TABLE[i - 1][0], i);
+        }
+    }
+
+    // circular buffer of dynamic entries, newest entry has the lowest index
+    private String[][] entries = new String[16][];
+    private int head;
+    private int length;
+    private int size;
+    private int maxSize;
+    private final int maxSizeLimit;
+
+    Http2HeaderTable(int maxSizeLimit) {
+        this.maxSizeLimit = maxSizeLimit;
+        this.maxSize = maxSizeLimit;
+    }
+
+    /**
+     * Returns the name and value at the given 1-based HPACK index.
+     *
+     * @throws IllegalArgumentException if the index does not refer to an entry
+     */
+    String[] get(int index) {
+        if (index <= 0) {
+            throw new IllegalArgumentException("Invalid header table index: " + index);
+        }
+        if (index <= STATIC_TABLE_LENGTH) {
+            return STATIC_TABLE[index - 1];
+        }
+        int dynamicIndex = index - STATIC_TABLE_LENGTH - 1;
+        if (dynamicIndex >= length) {
+            throw new IllegalArgumentException("Invalid header table index: " + index);
+        }
+        return entries[(head + dynamicIndex) % entries.length];
+    }
+
+    void add(String name, String value) {
+        int entrySize = entrySize(name, value);
+        if (entrySize > maxSize) {
+            // RFC 7541 section 4.4, an oversized entry empties the table
+            clear();
+            return;
+        }
+
+        evict(maxSize - entrySize);
+
+        if (length == entries.length) {
+            String[][] newEntries = new String[entries.length * 2][];
+            for (int i = 0; i < length; i++) {
+                newEntries[i] = entries[(head + i) % entries.length];
+            }
+            entries = newEntries;
+            head = 0;
+        }
+
+        head = (head + entries.length - 1) % entries.length;
+        entries[head] = new String[] { name, value };
+        length++;
+        size += entrySize;
+    }
+
+    /**
+     * Applies a dynamic table size update, which must not exceed the advertised limit.
+     */
+    void setMaxSize(int newMaxSize) {
+        if (newMaxSize < 0 || newMaxSize > maxSizeLimit) {
+            throw new IllegalArgumentException("Invalid header table size: " + newMaxSize);
+        }
+        maxSize = newMaxSize;
+        evict(maxSize);
+    }
+
+    int maxSize() {
+        return maxSize;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int length() {
+        return length;
+    }
+
+    /**
+     * Looks up a header field in the static table.
+     *
+     * @return the index of an exact match, {@code -(nameIndex + 1)} when only the name matches,
+     *         or {@code -1} when the name is not in the static table
+     */
+    static int staticIndex(String name, String value) {
+        Integer nameIndex = STATIC_NAME_INDEX.get(name);
+        if (nameIndex == null) {
+            return -1;
+        }
+        for (int i = nameIndex; i <= STATIC_TABLE_LENGTH && STATIC_TABLE[i - 1][0].equals(name); i++) {
+            if (STATIC_TABLE[i - 1][1].equals(value)) {
+                return i;
+            }
+        }
+        return -nameIndex - 1;
+    }
+
+    private void evict(int targetSize) {
+        while (size > targetSize && length > 0) {
+            String[] entry = entries[(head + length - 1) % entries.length];
+            entries[(head + length - 1) % entries.length] = null;
+            size -= entrySize(entry[0], entry[1]);
+            length--;
+        }
+    }
+
+    private void clear() {
+        while (length > 0) {
+            entries[(head + length - 1) % entries.length] = null;
+            length--;
+        }
+        size = 0;
+    }
+
+    private static int entrySize(String name, String value) {
+        return name.length() + value.length() + ENTRY_OVERHEAD;
+    }
+}
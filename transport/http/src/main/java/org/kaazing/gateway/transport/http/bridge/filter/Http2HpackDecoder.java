@@ -0,0 +1,132 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HPACK header block decoder (RFC 7541). One instance per connection, as the dynamic table
+ * state spans all header blocks received on that connection.
+ */
+final class Http2HpackDecoder {
+
+    private final Http2HeaderTable table;
+    private final int maxHeaderListSize;
+
+    Http2HpackDecoder(int maxTableSize, int maxHeaderListSize) {
+        this.table = new Http2HeaderTable(maxTableSize);
+        this.maxHeaderListSize = maxHeaderListSize;
+    }
+
+    /**
+     * Decodes a complete header block into name and value pairs, in order.
+     *
+     * @throws Http2ProtocolDecoderException with {@code COMPRESSION_ERROR} if the block is malformed
+     */
+    List<String[]> decode(ByteBuffer block) throws Http2ProtocolDecoderException {
+        List<String[]> headers = new ArrayList<>();
+        int headerListSize = 0;
+        boolean tableSizeUpdateAllowed = true;
+        try {
+            while (block.hasRemaining()) {
+                int first = block.get(block.position()) & 0xff;
+                String[] header;
+                if ((first & 0x80) != 0) {
+                    // indexed header field
+                    header = table.get(decodeInteger(block, 7));
+                }
+                else if ((first & 0x40) != 0) {
+                    // literal header field with incremental indexing
+                    header = decodeLiteral(block, 6);
+                    table.add(header[0], header[1]);
+                }
+                else if ((first & 0x20) != 0) {
+                    // dynamic table size update
+                    if (!tableSizeUpdateAllowed) {
+                        throw new IllegalArgumentException("Dynamic table size update after header field");
+                    }
+                    table.setMaxSize(decodeInteger(block, 5));
+                    continue;
+                }
+                else {
+                    // literal header field without indexing, or never indexed
+                    header = decodeLiteral(block, 4);
+                }
+
+                tableSizeUpdateAllowed = false;
+                headerListSize += header[0].length() + header[1].length() + 32;
+                if (headerListSize > maxHeaderListSize) {
+                    throw new Http2ProtocolDecoderException(Http2ProtocolDecoderException.ENHANCE_YOUR_CALM,
+                            "Header list size exceeds " + maxHeaderListSize);
+                }
+                headers.add(header);
+            }
+        }
+        catch (IllegalArgumentException | IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new Http2ProtocolDecoderException(Http2ProtocolDecoderException.COMPRESSION_ERROR, e.getMessage());
+        }
+        return headers;
+    }
+
+    Http2HeaderTable table() {
+        return table;
+    }
+
+    private String[] decodeLiteral(ByteBuffer block, int prefixBits) {
+        int nameIndex = decodeInteger(block, prefixBits);
+        String name = (nameIndex == 0) ? decodeString(block) : table.get(nameIndex)[0];
+        String value = decodeString(block);
+        return new String[] { name, value };
+    }
+
+    private static String decodeString(ByteBuffer block) {
+        boolean huffman = (block.get(block.position()) & 0x80) != 0;
+        int length = decodeInteger(block, 7);
+        if (length > block.remaining()) {
+            throw new IllegalArgumentException("String literal exceeds header block");
+        }
+        if (huffman) {
+            return Http2Huffman.decode(block, length);
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) (block.get() & 0xff);
+        }
+        return new String(chars);
+    }
+
+    static int decodeInteger(ByteBuffer block, int prefixBits) {
+        int prefixMask = (1 << prefixBits) - 1;
+        int value = block.get() & prefixMask;
+        if (value < prefixMask) {
+            return value;
+        }
+        int shift = 0;
+        int octet;
+        do {
+            octet = block.get() & 0xff;
+            if (shift > 21) {
+                throw new IllegalArgumentException("Integer overflow");
+            }
+            value += (octet & 0x7f) << shift;
+            shift += 7;
+        } while ((octet & 0x80) != 0);
+        return value;
+    }
+}
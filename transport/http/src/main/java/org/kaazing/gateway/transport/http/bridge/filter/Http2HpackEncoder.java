@@ -0,0 +1,90 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * HPACK header block encoder (RFC 7541). Fields are encoded against the static table only,
+ * either fully indexed or as literals without indexing, so the encoder never depends on the
+ * peer's dynamic table size and keeps no per-connection table state.
+ */
+final class Http2HpackEncoder {
+
+    /**
+     * Returns an upper bound of the encoded size of the given header fields.
+     */
+    int maxEncodedLength(List<String[]> headers) {
+        int length = 0;
+        for (String[] header : headers) {
+            // prefixed integers need at most 5 octets each for the lengths used here
+            length += header[0].length() + header[1].length() + 15;
+        }
+        return length;
+    }
+
+    void encode(List<String[]> headers, ByteBuffer out) {
+        for (String[] header : headers) {
+            encode(header[0], header[1], out);
+        }
+    }
+
+    void encode(String name, String value, ByteBuffer out) {
+        int index = Http2HeaderTable.staticIndex(name, value);
+        if (index > 0) {
+            encodeInteger(out, 0x80, 7, index);
+        }
+        else if (index < -1) {
+            encodeInteger(out, 0x00, 4, -index - 1);
+            encodeString(out, value);
+        }
+        else {
+            out.put((byte) 0x00);
+            encodeString(out, name);
+            encodeString(out, value);
+        }
+    }
+
+    private static void encodeString(ByteBuffer out, String value) {
+        int huffmanLength = Http2Huffman.encodedLength(value);
+        if (huffmanLength < value.length()) {
+            encodeInteger(out, 0x80, 7, huffmanLength);
+            Http2Huffman.encode(value, out);
+        }
+        else {
+            encodeInteger(out, 0x00, 7, value.length());
+            for (int i = 0; i < value.length(); i++) {
+                out.put((byte) value.charAt(i));
+            }
+        }
+    }
+
+    static void encodeInteger(ByteBuffer out, int mask, int prefixBits, int value) {
+        int prefixMask = (1 << prefixBits) - 1;
+        if (value < prefixMask) {
+            out.put((byte) (mask | value));
+            return;
+        }
+        out.put((byte) (mask | prefixMask));
+        value -= prefixMask;
+        while (value >= 0x80) {
+            out.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2ConnectionFilter.PREFACE;
+
+import java.nio.ByteBuffer;
+
+import org.apache.mina.core.filterchain.IoFilterAdapter;
+import org.apache.mina.core.filterchain.IoFilterChain;
+import org.apache.mina.core.session.IoSession;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.session.IoSessionEx;
+import org.slf4j.Logger;
+
+/**
+ * Detects the HTTP/2 client connection preface (RFC 7540 section 3.5) at the start of a connection,
+ * which covers both h2c with prior knowledge and h2 negotiated through ALPN, and installs
+ * {@link Http2ConnectionFilter} in place of the HTTP/1.1 codec. The filter removes itself as soon as
+ * the connection has been classified, so HTTP/1.x connections only pay for the first read.
+ */
+public class Http2PrefaceFilter extends IoFilterAdapter {
+
+    private final Http2ConnectionFilter.Listener listener;
+    private final Logger logger;
+
+    private ByteBuffer pending;
+
+    public Http2PrefaceFilter(Http2ConnectionFilter.Listener listener, Logger logger) {
+        this.listener = listener;
+        this.logger = logger;
+    }
+
+    @Override
+    public void messageReceived(NextFilter nextFilter, IoSession session, Object message) throws Exception {
+        if (!(message instanceof IoBufferEx)) {
+            super.messageReceived(nextFilter, session, message);
+            return;
+        }
+
+        IoSessionEx sessionEx = (IoSessionEx) session;
+        IoBufferEx buf = (IoBufferEx) message;
+        ByteBuffer in = buf.buf();
+        if (pending != null) {
+            ByteBuffer combined = ByteBuffer.allocate(pending.remaining() + in.remaining());
+            combined.put(pending).put(in).flip();
+            IoBufferAllocatorEx<?> allocator = sessionEx.getBufferAllocator();
+            buf = allocator.wrap(combined);
+            in = combined;
+            pending = null;
+        }
+
+        int position = in.position();
+        int length = Math.min(in.remaining(), PREFACE.length);
+        for (int i = 0; i < length; i++) {
+            if (in.get(position + i) != PREFACE[i]) {
+                // not HTTP/2, leave the connection to the HTTP/1.x codec
+                removeAndForward(nextFilter, session, buf);
+                return;
+            }
+        }
+
+        if (length < PREFACE.length) {
+            // wait for the rest of the preface
+            pending = ByteBuffer.allocate(in.remaining());
+            pending.put(in).flip();
+            return;
+        }
+
+        if (logger.isTraceEnabled()) {
+            logger.trace(String.format("[http#%s] HTTP/2 connection preface received", session.getId()));
+        }
+
+        Http2ConnectionFilter.install(sessionEx, listener, null, logger);
+        removeAndForward(nextFilter, session, buf);
+    }
+
+    private void removeAndForward(NextFilter nextFilter, IoSession session, IoBufferEx buf) {
+        // Fire message down the pipeline
+        nextFilter.messageReceived(session, buf);
+
+        // We've done our job, so remove ourselves from the filter chain
+        IoFilterChain filterChain = session.getFilterChain();
+        if (filterChain.contains(this)) {
+            filterChain.remove(this);
+        }
+    }
+}
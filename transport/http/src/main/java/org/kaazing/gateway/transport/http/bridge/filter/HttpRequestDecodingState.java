@@ -381,7 +381,7 @@ public class HttpRequestDecodingState extends DecodingStateMachine {
 		}
 	}
 
-    private Set<HttpCookie> parseCookies(List<String> cookieHeaderValues) {
+    static Set<HttpCookie> parseCookies(List<String> cookieHeaderValues) {
         // parse cookies
         Set<HttpCookie> cookies = new HashSet<>();
         if (cookieHeaderValues != null && !cookieHeaderValues.isEmpty()) {
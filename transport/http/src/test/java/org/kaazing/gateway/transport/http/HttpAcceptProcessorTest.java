@@ -21,6 +21,8 @@ import static org.kaazing.gateway.resource.address.ResourceAddress.TRANSPORT_URI
 import static org.kaazing.mina.core.session.IoSessionEx.IMMEDIATE_EXECUTOR;
 
 import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Executor;
 
@@ -515,6 +517,81 @@ public class HttpAcceptProcessorTest {
     }
 
 
+    @Test
+    public void testWriteMessagesCoalesced() {
+
+        Mockery context = new Mockery();
+        context.setThreadingPolicy(new Synchroniser());
+        final IoServiceEx httpService = context.mock(IoServiceEx.class);
+        final IoHandler httpHandler = context.mock(IoHandler.class, "httpHandler");
+        final IoSessionEx session = context.mock(IoSessionEx.class);
+        final IoFilterChain filterChain = context.mock(IoFilterChain.class);
+        final IoHandler handler = context.mock(IoHandler.class);
+        final WriteRequestQueue writeRequestQueue = context.mock(WriteRequestQueue.class);
+        final WriteRequest[] writeRequests = new WriteRequest[3];
+        final WriteFuture[] writeFutures = new WriteFuture[3];
+        for (int i = 0; i < writeRequests.length; i++) {
+            writeRequests[i] = context.mock(WriteRequest.class, "writeRequest" + i);
+            writeFutures[i] = context.mock(WriteFuture.class, "writeFuture" + i);
+        }
+
+        context.checking(new Expectations() {
+            {
+                try {
+                    allowing(httpService).getTransportMetadata(); will(returnValue(new DefaultTransportMetadata(HttpProtocol.NAME)));
+                    allowing(httpService).getHandler(); will(returnValue(httpHandler));
+                    allowing(httpService).getSessionConfig(); will(returnValue(new DefaultIoSessionConfigEx()));
+                    allowing(httpService).getThreadLocalWriteRequest(with(any(int.class))); will(returnValue(new ShareableWriteRequest()));
+                    allowing(session).getIoLayer(); will(returnValue(0));
+                    allowing(session).getIoThread(); will(returnValue(currentThread()));
+                    allowing(session).getIoExecutor(); will(returnValue(IMMEDIATE_EXECUTOR));
+                    allowing(session).getConfig(); will(returnValue(new DefaultIoSessionConfigEx()));
+                    allowing(session).isClosing(); will(returnValue(false));
+                    allowing(session).getFilterChain(); will(returnValue(filterChain));
+                    allowing(session).getWrittenBytes(); will(returnValue(0L));
+
+                    allowing(session).resumeRead(); // TODO: eliminate?
+
+                    oneOfSslUtilsIsSecure(this,session);
+
+                    allowing(writeRequestQueue).isEmpty(with(aNonNull(IoSession.class))); will(returnValue(false));
+                    for (int i = 0; i < writeRequests.length; i++) {
+                        IoBufferEx bufEx = httpAllocator.wrap(ByteBuffer.wrap(new byte[] { (byte) i })).mark();
+                        allowing(writeRequests[i]).getMessage(); will(returnValue(bufEx));
+                        allowing(writeRequests[i]).getFuture(); will(returnValue(writeFutures[i]));
+                        oneOf(writeRequestQueue).poll(with(aNonNull(IoSession.class))); will(returnValue(writeRequests[i]));
+
+                        // the following only occurs when the coalesced chunk is written
+                        oneOf(writeFutures[i]).setWritten();
+                    }
+                    allowing(writeRequestQueue).poll(with(aNonNull(IoSession.class))); will(returnValue(null));
+                    oneOf(session).write(with(aNonNull(HttpResponseMessage.class))); will(returnValue(DefaultWriteFuture.newWrittenFuture(session)));
+
+                    // one chunk for all three messages
+                    oneOf(session).write(with(aNonNull(HttpContentMessage.class))); will(returnValue(DefaultWriteFuture.newWrittenFuture(session)));
+                }
+                catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+
+        HttpAcceptProcessor processor = new HttpAcceptProcessor();
+        ResourceAddressFactory addressFactory = ResourceAddressFactory.newResourceAddressFactory();
+        Map<String, Object> options = new HashMap<>();
+        options.put("http.flushSize", 1024);
+        ResourceAddress address = addressFactory.newResourceAddress("http://localhost:8000/", options);
+        ResourceAddress remoteAddress = addressFactory.newResourceAddress("http://localhost:42342/");
+
+        DefaultHttpSession httpSession = new DefaultHttpSession(httpService, processor, address, remoteAddress, session, httpAllocator, new Properties());
+        httpSession.setHandler(handler);
+        httpSession.setWriteRequestQueue(writeRequestQueue);
+        httpSession.commit();
+        httpSession.getProcessor().flush(httpSession);
+
+        context.assertIsSatisfied();
+    }
+
     private void oneOfSslUtilsIsSecure(Expectations exp, IoSession session) {
         exp.allowing(session).getAttribute(BridgeSession.LOCAL_ADDRESS);
         exp.will(returnValue(null));
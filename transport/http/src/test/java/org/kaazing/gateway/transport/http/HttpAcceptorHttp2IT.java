@@ -0,0 +1,256 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.http;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.resource.address.ResourceAddressFactory.newResourceAddressFactory;
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP2_ENABLED;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.gateway.resource.address.ResourceAddress;
+import org.kaazing.gateway.resource.address.ResourceAddressFactory;
+import org.kaazing.gateway.transport.BridgeServiceFactory;
+import org.kaazing.gateway.transport.IoHandlerAdapter;
+import org.kaazing.gateway.transport.TransportFactory;
+import org.kaazing.gateway.transport.nio.internal.NioSocketAcceptor;
+import org.kaazing.gateway.util.scheduler.SchedulerProvider;
+
+/**
+ * Drives HTTP/2 against a bound HttpAcceptor over a plain socket, since the framing is binary.
+ */
+public class HttpAcceptorHttp2IT {
+
+    private static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(US_ASCII);
+
+    private static final int DATA = 0x0;
+    private static final int HEADERS = 0x1;
+    private static final int SETTINGS = 0x4;
+
+    private static final int FLAG_END_STREAM = 0x1;
+    private static final int FLAG_END_HEADERS = 0x4;
+
+    private static final String UPGRADE_REQUEST =
+            "GET /path HTTP/1.1\r\n" +
+            "Host: localhost:8000\r\n" +
+            "Connection: Upgrade, HTTP2-Settings\r\n" +
+            "Upgrade: h2c\r\n" +
+            // SETTINGS_MAX_CONCURRENT_STREAMS 100
+            "HTTP2-Settings: AAMAAABk\r\n" +
+            "\r\n";
+
+    private final Set<HttpAcceptSession> sessions = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private SchedulerProvider schedulerProvider;
+    private ResourceAddressFactory addressFactory;
+    private HttpAcceptor httpAcceptor;
+    private NioSocketAcceptor tcpAcceptor;
+
+    @Before
+    public void setupAcceptor() {
+        addressFactory = newResourceAddressFactory();
+        TransportFactory transportFactory = TransportFactory.newTransportFactory(Collections.emptyMap());
+        BridgeServiceFactory serviceFactory = new BridgeServiceFactory(transportFactory);
+        schedulerProvider = new SchedulerProvider();
+
+        httpAcceptor = (HttpAcceptor) transportFactory.getTransport("http").getAcceptor();
+        httpAcceptor.setBridgeServiceFactory(serviceFactory);
+        httpAcceptor.setResourceAddressFactory(addressFactory);
+        httpAcceptor.setSchedulerProvider(schedulerProvider);
+
+        tcpAcceptor = (NioSocketAcceptor) transportFactory.getTransport("tcp").getAcceptor();
+        tcpAcceptor.setSchedulerProvider(schedulerProvider);
+        tcpAcceptor.setResourceAddressFactory(addressFactory);
+        tcpAcceptor.setBridgeServiceFactory(serviceFactory);
+    }
+
+    @After
+    public void disposeAcceptor() {
+        httpAcceptor.dispose();
+        tcpAcceptor.dispose();
+        schedulerProvider.shutdownNow();
+    }
+
+    @Test
+    public void shouldNotUpgradeToHttp2ByDefault() throws Exception {
+        httpAcceptor.setConfiguration(new Properties());
+        bind();
+
+        try (Socket socket = new Socket("localhost", 8000)) {
+            socket.setSoTimeout(5000);
+            socket.getOutputStream().write(UPGRADE_REQUEST.getBytes(US_ASCII));
+
+            String response = readHttpHead(socket.getInputStream());
+            assertTrue(response, response.startsWith("HTTP/1.1 200 OK\r\n"));
+        }
+    }
+
+    @Test
+    public void shouldUpgradeToHttp2AndServeEachStreamOnItsOwnSession() throws Exception {
+        enableHttp2();
+        bind();
+
+        try (Socket socket = new Socket("localhost", 8000)) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            out.write(UPGRADE_REQUEST.getBytes(US_ASCII));
+
+            String response = readHttpHead(socket.getInputStream());
+            assertTrue(response, response.startsWith("HTTP/1.1 101 Switching Protocols\r\n"));
+            assertTrue(response, response.contains("Upgrade: h2c\r\n"));
+
+            // the upgraded request is answered on stream 1, a further request is sent on stream 3
+            out.write(PREFACE);
+            out.write(frame(SETTINGS, 0, 0, new byte[0]));
+            out.write(frame(HEADERS, FLAG_END_HEADERS | FLAG_END_STREAM, 3, requestHeaders("/path")));
+
+            Map<Integer, String> responses = readResponses(socket.getInputStream(), 2);
+            assertEquals("stream 1", responses.get(1));
+            assertEquals("stream 3", responses.get(3));
+        }
+        assertEquals(2, sessions.size());
+    }
+
+    @Test
+    public void shouldServeStreamsAfterConnectionPreface() throws Exception {
+        enableHttp2();
+        bind();
+
+        try (Socket socket = new Socket("localhost", 8000)) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            out.write(PREFACE);
+            out.write(frame(SETTINGS, 0, 0, new byte[0]));
+            out.write(frame(HEADERS, FLAG_END_HEADERS | FLAG_END_STREAM, 1, requestHeaders("/path")));
+            out.write(frame(HEADERS, FLAG_END_HEADERS | FLAG_END_STREAM, 3, requestHeaders("/path")));
+
+            Map<Integer, String> responses = readResponses(socket.getInputStream(), 2);
+            assertEquals("stream 1", responses.get(1));
+            assertEquals("stream 3", responses.get(3));
+        }
+        assertEquals(2, sessions.size());
+    }
+
+    private void enableHttp2() {
+        Properties configuration = new Properties();
+        configuration.setProperty(HTTP2_ENABLED.getPropertyName(), "true");
+        httpAcceptor.setConfiguration(configuration);
+    }
+
+    private void bind() {
+        ResourceAddress address = addressFactory.newResourceAddress("http://localhost:8000/path");
+        httpAcceptor.bind(address, new IoHandlerAdapter<HttpAcceptSession>() {
+            @Override
+            protected void doSessionOpened(HttpAcceptSession session) throws Exception {
+                synchronized (sessions) {
+                    sessions.add(session);
+                }
+                int streamId = ((DefaultHttpSession) session).getStreamId();
+                byte[] content = ("stream " + streamId).getBytes(US_ASCII);
+                session.setWriteHeader("Content-Type", "text/plain");
+                session.setWriteHeader("Content-Length", Integer.toString(content.length));
+                session.write(session.getBufferAllocator().wrap(ByteBuffer.wrap(content)));
+                session.close(false);
+            }
+        }, null);
+    }
+
+    private static String readHttpHead(InputStream in) throws IOException {
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        int matched = 0;
+        while (matched < 4) {
+            int b = in.read();
+            if (b == -1) {
+                break;
+            }
+            head.write(b);
+            matched = (b == (matched % 2 == 0 ? '\r' : '\n')) ? matched + 1 : (b == '\r' ? 1 : 0);
+        }
+        return new String(head.toByteArray(), US_ASCII);
+    }
+
+    /**
+     * Reads frames until the given number of streams have ended, returning the DATA of each stream.
+     */
+    private static Map<Integer, String> readResponses(InputStream in, int streamCount) throws IOException {
+        DataInputStream frames = new DataInputStream(in);
+        Map<Integer, ByteArrayOutputStream> contents = new HashMap<>();
+        int ended = 0;
+        while (ended < streamCount) {
+            int length = (frames.readUnsignedByte() << 16) | frames.readUnsignedShort();
+            int type = frames.readUnsignedByte();
+            int flags = frames.readUnsignedByte();
+            int streamId = frames.readInt() & 0x7fffffff;
+            byte[] payload = new byte[length];
+            frames.readFully(payload);
+
+            if (type == DATA) {
+                contents.computeIfAbsent(streamId, id -> new ByteArrayOutputStream()).write(payload);
+            }
+            if ((type == DATA || type == HEADERS) && (flags & FLAG_END_STREAM) != 0) {
+                ended++;
+            }
+        }
+
+        Map<Integer, String> responses = new HashMap<>();
+        for (Map.Entry<Integer, ByteArrayOutputStream> content : contents.entrySet()) {
+            responses.put(content.getKey(), new String(content.getValue().toByteArray(), US_ASCII));
+        }
+        return responses;
+    }
+
+    private static byte[] requestHeaders(String path) {
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        // :method GET and :scheme http, indexed
+        block.write(0x82);
+        block.write(0x86);
+        // :path and :authority, literals without indexing with an indexed name
+        literal(block, 4, path);
+        literal(block, 1, "localhost:8000");
+        return block.toByteArray();
+    }
+
+    private static void literal(ByteArrayOutputStream block, int nameIndex, String value) {
+        block.write(nameIndex);
+        block.write(value.length());
+        block.write(value.getBytes(US_ASCII), 0, value.length());
+    }
+
+    private static byte[] frame(int type, int flags, int streamId, byte[] payload) {
+        ByteBuffer frame = ByteBuffer.allocate(9 + payload.length);
+        frame.put((byte) (payload.length >>> 16)).put((byte) (payload.length >>> 8)).put((byte) payload.length);
+        frame.put((byte) type).put((byte) flags).putInt(streamId);
+        frame.put(payload);
+        return frame.array();
+    }
+}
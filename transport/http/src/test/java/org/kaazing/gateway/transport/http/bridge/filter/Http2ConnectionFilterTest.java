@@ -0,0 +1,341 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.transport.http.HttpAcceptFilter.HTTP2_CODEC;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.mina.core.filterchain.IoFilterAdapter;
+import org.apache.mina.core.future.WriteFuture;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.write.WriteRequest;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.gateway.transport.http.HttpMethod;
+import org.kaazing.gateway.transport.http.HttpStatus;
+import org.kaazing.gateway.transport.http.HttpVersion;
+import org.kaazing.gateway.transport.http.bridge.HttpContentMessage;
+import org.kaazing.gateway.transport.http.bridge.HttpMessage;
+import org.kaazing.gateway.transport.http.bridge.HttpRequestMessage;
+import org.kaazing.gateway.transport.http.bridge.HttpResponseMessage;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator;
+import org.kaazing.mina.core.session.DummySessionEx;
+import org.slf4j.LoggerFactory;
+
+public class Http2ConnectionFilterTest {
+
+    private static final int DATA = 0x0;
+    private static final int HEADERS = 0x1;
+    private static final int RST_STREAM = 0x3;
+    private static final int SETTINGS = 0x4;
+    private static final int PING = 0x6;
+    private static final int GOAWAY = 0x7;
+    private static final int WINDOW_UPDATE = 0x8;
+
+    private static final int FLAG_END_STREAM = 0x1;
+    private static final int FLAG_ACK = 0x1;
+    private static final int FLAG_END_HEADERS = 0x4;
+
+    private final List<ByteBuffer> written = new ArrayList<>();
+    private final List<HttpMessage> received = new ArrayList<>();
+    private final List<Integer> resetStreams = new ArrayList<>();
+
+    private DummySessionEx session;
+    private Http2ConnectionFilter connection;
+
+    @Before
+    public void setUp() throws Exception {
+        session = new DummySessionEx();
+        session.getFilterChain().addLast("written", new IoFilterAdapter() {
+            @Override
+            public void filterWrite(NextFilter nextFilter, IoSession session, WriteRequest writeRequest) {
+                written.add(((IoBufferEx) writeRequest.getMessage()).buf().duplicate());
+            }
+        });
+        connection = new Http2ConnectionFilter((session, streamId) -> resetStreams.add(streamId), null,
+                LoggerFactory.getLogger(Http2ConnectionFilterTest.class));
+        session.getFilterChain().addLast(HTTP2_CODEC.filterName(), connection);
+        session.getFilterChain().addLast("received", new IoFilterAdapter() {
+            @Override
+            public void messageReceived(NextFilter nextFilter, IoSession session, Object message) {
+                received.add((HttpMessage) message);
+            }
+        });
+    }
+
+    @Test
+    public void shouldExchangeSettings() throws Exception {
+        List<Frame> frames = frames();
+        assertEquals(1, frames.size());
+        Frame settings = frames.get(0);
+        assertEquals(SETTINGS, settings.type);
+        assertEquals(0, settings.flags);
+        // SETTINGS_MAX_CONCURRENT_STREAMS
+        assertEquals(0x3, settings.payload.getShort(0));
+        assertEquals(100, settings.payload.getInt(2));
+
+        receive(Http2ConnectionFilter.PREFACE, frame(SETTINGS, 0, 0, new byte[0]));
+
+        Frame ack = frames().get(0);
+        assertEquals(SETTINGS, ack.type);
+        assertEquals(FLAG_ACK, ack.flags);
+        assertEquals(0, ack.payload.remaining());
+    }
+
+    @Test
+    public void shouldDispatchEachStreamAsRequestTaggedWithStreamId() throws Exception {
+        open();
+        receive(headers(1, FLAG_END_STREAM, "GET", "/first"),
+                headers(3, 0, "POST", "/second"),
+                frame(DATA, FLAG_END_STREAM, 3, "hello".getBytes(US_ASCII)));
+
+        assertEquals(3, received.size());
+        HttpRequestMessage first = (HttpRequestMessage) received.get(0);
+        assertEquals(1, first.getStreamId());
+        assertEquals(HttpMethod.GET, first.getMethod());
+        assertEquals(URI.create("/first"), first.getRequestURI());
+        assertEquals("example.com", first.getHeader("Host"));
+        assertTrue(first.isComplete());
+
+        HttpRequestMessage second = (HttpRequestMessage) received.get(1);
+        assertEquals(3, second.getStreamId());
+        assertEquals(HttpMethod.POST, second.getMethod());
+        assertFalse(second.isComplete());
+
+        HttpContentMessage content = (HttpContentMessage) received.get(2);
+        assertEquals(3, content.getStreamId());
+        assertEquals("hello", US_ASCII.decode(content.asBuffer().buf()).toString());
+        assertTrue(content.isComplete());
+        assertEquals(2, connection.getStreamCount());
+
+        // the response is written on the stream of the request, out of request order
+        session.write(response(3, "world"));
+
+        List<Frame> frames = frames();
+        assertEquals(2, frames.size());
+        assertEquals(HEADERS, frames.get(0).type);
+        assertEquals(3, frames.get(0).streamId);
+        assertEquals(FLAG_END_HEADERS, frames.get(0).flags);
+        // :status 200 is fully indexed in the static table
+        assertEquals((byte) 0x88, frames.get(0).payload.get(0));
+        assertEquals(DATA, frames.get(1).type);
+        assertEquals(3, frames.get(1).streamId);
+        assertEquals(FLAG_END_STREAM, frames.get(1).flags);
+        assertEquals("world", US_ASCII.decode(frames.get(1).payload).toString());
+        assertEquals(1, connection.getStreamCount());
+    }
+
+    @Test
+    public void shouldReplenishStreamWindowOnceHalfOfItIsConsumed() throws Exception {
+        open();
+        receive(headers(1, 0, "POST", "/upload"),
+                frame(DATA, 0, 1, new byte[16384]),
+                frame(DATA, 0, 1, new byte[16384]));
+
+        // the connection window is replenished as frames arrive
+        List<Frame> frames = frames();
+        assertEquals(1, frames.size());
+        assertEquals(WINDOW_UPDATE, frames.get(0).type);
+        assertEquals(0, frames.get(0).streamId);
+        assertEquals(32768, frames.get(0).payload.getInt(0));
+
+        // the stream window only once the content has been consumed
+        connection.windowConsumed(1, 16384);
+        assertEquals(0, frames().size());
+        connection.windowConsumed(1, 16383);
+
+        frames = frames();
+        assertEquals(1, frames.size());
+        assertEquals(WINDOW_UPDATE, frames.get(0).type);
+        assertEquals(1, frames.get(0).streamId);
+        assertEquals(32767, frames.get(0).payload.getInt(0));
+    }
+
+    @Test
+    public void shouldResetStreamExceedingReceiveWindow() throws Exception {
+        open();
+        receive(headers(1, 0, "POST", "/upload"),
+                frame(DATA, 0, 1, new byte[16384]),
+                frame(DATA, 0, 1, new byte[16384]),
+                frame(DATA, 0, 1, new byte[16384]),
+                frame(DATA, 0, 1, new byte[16384]));
+
+        Frame rst = last(frames());
+        assertEquals(RST_STREAM, rst.type);
+        assertEquals(1, rst.streamId);
+        assertEquals(Http2ProtocolDecoderException.FLOW_CONTROL_ERROR, rst.payload.getInt(0));
+        assertEquals(Arrays.asList(1), resetStreams);
+        assertEquals(0, connection.getStreamCount());
+    }
+
+    @Test
+    public void shouldRefuseStreamsBeyondMaximumConcurrentStreams() throws Exception {
+        open();
+        for (int streamId = 1; streamId < 200; streamId += 2) {
+            receive(headers(streamId, 0, "GET", "/stream"));
+        }
+        assertEquals(100, connection.getStreamCount());
+        assertEquals(0, frames().size());
+
+        receive(headers(201, FLAG_END_STREAM, "GET", "/refused"));
+
+        List<Frame> frames = frames();
+        assertEquals(1, frames.size());
+        assertEquals(RST_STREAM, frames.get(0).type);
+        assertEquals(201, frames.get(0).streamId);
+        assertEquals(Http2ProtocolDecoderException.REFUSED_STREAM, frames.get(0).payload.getInt(0));
+        assertEquals(100, received.size());
+        assertEquals(100, connection.getStreamCount());
+        assertTrue(resetStreams.isEmpty());
+        assertFalse(session.isClosing());
+    }
+
+    @Test
+    public void shouldDropResponseOfStreamResetByPeer() throws Exception {
+        open();
+        receive(headers(1, FLAG_END_STREAM, "GET", "/cancelled"),
+                frame(RST_STREAM, 0, 1, new byte[] { 0, 0, 0, 0x8 }));
+
+        assertEquals(Arrays.asList(1), resetStreams);
+        assertEquals(0, connection.getStreamCount());
+
+        WriteFuture future = session.write(response(1, "too late"));
+        assertTrue(future.isWritten());
+        assertEquals(0, frames().size());
+        assertFalse(session.isClosing());
+    }
+
+    @Test
+    public void shouldCloseAfterGoAwayOnceOpenStreamsComplete() throws Exception {
+        open();
+        receive(headers(1, FLAG_END_STREAM, "GET", "/last"),
+                frame(GOAWAY, 0, 0, new byte[8]));
+        assertFalse(session.isClosing());
+
+        session.write(response(1, "done"));
+
+        assertEquals(DATA, last(frames()).type);
+        assertTrue(session.isClosing());
+    }
+
+    @Test
+    public void shouldSendGoAwayAndResetStreamsOnConnectionError() throws Exception {
+        open();
+        receive(headers(1, 0, "GET", "/open"),
+                frame(PING, 0, 1, new byte[8]));
+
+        Frame goAway = last(frames());
+        assertEquals(GOAWAY, goAway.type);
+        assertEquals(0, goAway.streamId);
+        assertEquals(1, goAway.payload.getInt(0));
+        assertEquals(Http2ProtocolDecoderException.PROTOCOL_ERROR, goAway.payload.getInt(4));
+        assertEquals(Arrays.asList(1), resetStreams);
+        assertTrue(session.isClosing());
+    }
+
+    private void open() throws Exception {
+        receive(Http2ConnectionFilter.PREFACE, frame(SETTINGS, 0, 0, new byte[0]));
+        frames();
+    }
+
+    private void receive(byte[]... chunks) throws Exception {
+        int length = 0;
+        for (byte[] chunk : chunks) {
+            length += chunk.length;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        for (byte[] chunk : chunks) {
+            buf.put(chunk);
+        }
+        buf.flip();
+        session.getFilterChain().fireMessageReceived(SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(buf));
+    }
+
+    private static HttpResponseMessage response(int streamId, String content) {
+        HttpResponseMessage httpResponse = new HttpResponseMessage();
+        httpResponse.setVersion(HttpVersion.HTTP_1_1);
+        httpResponse.setStatus(HttpStatus.SUCCESS_OK);
+        httpResponse.setStreamId(streamId);
+        ByteBuffer data = ByteBuffer.wrap(content.getBytes(US_ASCII));
+        httpResponse.setContent(new HttpContentMessage(SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(data), true));
+        return httpResponse;
+    }
+
+    private static byte[] headers(int streamId, int flags, String method, String path) {
+        List<String[]> fields = Arrays.asList(new String[] { ":method", method },
+                                              new String[] { ":scheme", "http" },
+                                              new String[] { ":path", path },
+                                              new String[] { ":authority", "Example.com" });
+        Http2HpackEncoder encoder = new Http2HpackEncoder();
+        ByteBuffer block = ByteBuffer.allocate(encoder.maxEncodedLength(fields));
+        encoder.encode(fields, block);
+        block.flip();
+        byte[] payload = new byte[block.remaining()];
+        block.get(payload);
+        return frame(HEADERS, flags | FLAG_END_HEADERS, streamId, payload);
+    }
+
+    private static byte[] frame(int type, int flags, int streamId, byte[] payload) {
+        ByteBuffer frame = ByteBuffer.allocate(9 + payload.length);
+        frame.put((byte) (payload.length >>> 16)).put((byte) (payload.length >>> 8)).put((byte) payload.length);
+        frame.put((byte) type).put((byte) flags).putInt(streamId);
+        frame.put(payload);
+        return frame.array();
+    }
+
+    /**
+     * Returns the frames written since the last call.
+     */
+    private List<Frame> frames() {
+        List<Frame> frames = new ArrayList<>();
+        for (ByteBuffer buf : written) {
+            while (buf.hasRemaining()) {
+                int length = ((buf.get() & 0xff) << 16) | ((buf.get() & 0xff) << 8) | (buf.get() & 0xff);
+                Frame frame = new Frame();
+                frame.type = buf.get();
+                frame.flags = buf.get();
+                frame.streamId = buf.getInt() & 0x7fffffff;
+                frame.payload = buf.slice();
+                frame.payload.limit(length);
+                buf.position(buf.position() + length);
+                frames.add(frame);
+            }
+        }
+        written.clear();
+        return frames;
+    }
+
+    private static Frame last(List<Frame> frames) {
+        return frames.get(frames.size() - 1);
+    }
+
+    private static final class Frame {
+        int type;
+        int flags;
+        int streamId;
+        ByteBuffer payload;
+    }
+}
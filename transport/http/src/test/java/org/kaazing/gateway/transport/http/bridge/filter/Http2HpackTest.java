@@ -0,0 +1,134 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class Http2HpackTest {
+
+    @Test
+    public void shouldEncodeAndDecodeIntegerWithPrefix() throws Exception {
+        // RFC 7541, C.1.2
+        ByteBuffer out = ByteBuffer.allocate(8);
+        Http2HpackEncoder.encodeInteger(out, 0x00, 5, 1337);
+        out.flip();
+        assertEquals(ByteBuffer.wrap(bytes("1f9a0a")), out);
+        assertEquals(1337, Http2HpackDecoder.decodeInteger(out, 5));
+        assertFalse(out.hasRemaining());
+    }
+
+    @Test
+    public void shouldDecodeRequestsWithHuffmanEncoding() throws Exception {
+        Http2HpackDecoder decoder = new Http2HpackDecoder(Http2HeaderTable.DEFAULT_MAX_SIZE, 65536);
+
+        // RFC 7541, C.4.1
+        List<String[]> headers = decoder.decode(ByteBuffer.wrap(bytes("828684418cf1e3c2e5f23a6ba0ab90f4ff")));
+        assertHeaders(headers, ":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com");
+        assertEquals(57, decoder.table().size());
+
+        // RFC 7541, C.4.2
+        headers = decoder.decode(ByteBuffer.wrap(bytes("828684be5886a8eb10649cbf")));
+        assertHeaders(headers, ":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com",
+                "cache-control", "no-cache");
+        assertEquals(110, decoder.table().size());
+
+        // RFC 7541, C.4.3
+        headers = decoder.decode(ByteBuffer.wrap(bytes("828785bf408825a849e95ba97d7f8925a849e95bb8e8b4bf")));
+        assertHeaders(headers, ":method", "GET", ":scheme", "https", ":path", "/index.html",
+                ":authority", "www.example.com", "custom-key", "custom-value");
+        assertEquals(164, decoder.table().size());
+        assertEquals(3, decoder.table().length());
+    }
+
+    @Test
+    public void shouldEvictOldestEntriesFromDynamicTable() throws Exception {
+        Http2HeaderTable table = new Http2HeaderTable(110);
+        table.add("custom-key", "custom-value");
+        table.add("cache-control", "no-cache");
+        assertEquals(2, table.length());
+
+        // 54 + 53 exceeds the maximum size, so the first entry is evicted
+        table.add("custom-key", "custom-valu");
+        assertEquals(2, table.length());
+        assertEquals(106, table.size());
+        assertArrayEquals(new String[] { "custom-key", "custom-valu" }, table.get(62));
+        assertArrayEquals(new String[] { "cache-control", "no-cache" }, table.get(63));
+    }
+
+    @Test(expected = Http2ProtocolDecoderException.class)
+    public void shouldRejectInvalidIndex() throws Exception {
+        Http2HpackDecoder decoder = new Http2HpackDecoder(Http2HeaderTable.DEFAULT_MAX_SIZE, 65536);
+        decoder.decode(ByteBuffer.wrap(bytes("be")));
+    }
+
+    @Test(expected = Http2ProtocolDecoderException.class)
+    public void shouldRejectHeaderListExceedingLimit() throws Exception {
+        Http2HpackDecoder decoder = new Http2HpackDecoder(Http2HeaderTable.DEFAULT_MAX_SIZE, 64);
+        decoder.decode(ByteBuffer.wrap(bytes("828684418cf1e3c2e5f23a6ba0ab90f4ff")));
+    }
+
+    @Test
+    public void shouldRoundTripResponseHeaders() throws Exception {
+        List<String[]> headers = Arrays.asList(
+                new String[] { ":status", "200" },
+                new String[] { ":status", "302" },
+                new String[] { "content-type", "text/html; charset=UTF-8" },
+                new String[] { "x-custom", "Mixed Case Value" });
+
+        Http2HpackEncoder encoder = new Http2HpackEncoder();
+        ByteBuffer block = ByteBuffer.allocate(encoder.maxEncodedLength(headers));
+        encoder.encode(headers, block);
+        block.flip();
+
+        Http2HpackDecoder decoder = new Http2HpackDecoder(Http2HeaderTable.DEFAULT_MAX_SIZE, 65536);
+        List<String[]> decoded = decoder.decode(block);
+        assertEquals(headers.size(), decoded.size());
+        for (int i = 0; i < headers.size(); i++) {
+            assertArrayEquals(headers.get(i), decoded.get(i));
+        }
+    }
+
+    @Test
+    public void shouldHuffmanEncodeString() throws Exception {
+        // RFC 7541, C.4.1
+        ByteBuffer out = ByteBuffer.allocate(Http2Huffman.encodedLength("www.example.com"));
+        Http2Huffman.encode("www.example.com", out);
+        assertArrayEquals(bytes("f1e3c2e5f23a6ba0ab90f4ff"), out.array());
+    }
+
+    private static void assertHeaders(List<String[]> headers, String... expected) {
+        assertEquals(expected.length / 2, headers.size());
+        for (int i = 0; i < headers.size(); i++) {
+            assertArrayEquals(new String[] { expected[2 * i], expected[2 * i + 1] }, headers.get(i));
+        }
+    }
+
+    private static byte[] bytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+}
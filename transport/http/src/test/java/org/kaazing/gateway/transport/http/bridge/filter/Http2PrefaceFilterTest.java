@@ -0,0 +1,134 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.transport.http.HttpAcceptFilter.CODEC;
+import static org.kaazing.gateway.transport.http.HttpAcceptFilter.HTTP2_CODEC;
+import static org.kaazing.gateway.transport.http.HttpAcceptFilter.HTTP2_PREFACE;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.mina.core.filterchain.IoFilterAdapter;
+import org.apache.mina.core.filterchain.IoFilterChain;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.write.WriteRequest;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator;
+import org.kaazing.mina.core.session.DummySessionEx;
+import org.slf4j.LoggerFactory;
+
+public class Http2PrefaceFilterTest {
+
+    private final List<Object> received = new ArrayList<>();
+    private final List<Object> written = new ArrayList<>();
+
+    private DummySessionEx session;
+    private IoFilterChain filterChain;
+
+    @Before
+    public void setUp() throws Exception {
+        session = new DummySessionEx();
+        filterChain = session.getFilterChain();
+        filterChain.addLast("written", new IoFilterAdapter() {
+            @Override
+            public void filterWrite(NextFilter nextFilter, IoSession session, WriteRequest writeRequest) {
+                written.add(writeRequest.getMessage());
+            }
+        });
+        filterChain.addLast(HTTP2_PREFACE.filterName(), new Http2PrefaceFilter((session, streamId) -> { },
+                LoggerFactory.getLogger(Http2PrefaceFilterTest.class)));
+        // stands in for the HTTP/1.1 codec
+        filterChain.addLast(CODEC.filterName(), new IoFilterAdapter());
+        filterChain.addLast("received", new IoFilterAdapter() {
+            @Override
+            public void messageReceived(NextFilter nextFilter, IoSession session, Object message) {
+                received.add(message);
+            }
+        });
+    }
+
+    @Test
+    public void shouldInstallConnectionFilterOnPrefaceSplitAcrossReads() throws Exception {
+        byte[] preface = Http2ConnectionFilter.PREFACE;
+
+        receive(Arrays.copyOfRange(preface, 0, 10));
+
+        assertTrue(filterChain.contains(HTTP2_PREFACE.filterName()));
+        assertTrue(received.isEmpty());
+
+        // remainder of the preface followed by an empty SETTINGS frame
+        byte[] settings = { 0, 0, 0, 0x4, 0, 0, 0, 0, 0 };
+        byte[] rest = Arrays.copyOf(Arrays.copyOfRange(preface, 10, preface.length), preface.length - 10 + 9);
+        System.arraycopy(settings, 0, rest, preface.length - 10, settings.length);
+        receive(rest);
+
+        assertFalse(filterChain.contains(HTTP2_PREFACE.filterName()));
+        assertFalse(filterChain.contains(CODEC.filterName()));
+        assertTrue(filterChain.contains(HTTP2_CODEC.filterName()));
+        assertNotNull(Http2ConnectionFilter.CONNECTION_KEY.get(session));
+
+        // preface and SETTINGS consumed by the connection, answered with SETTINGS and a SETTINGS acknowledgement
+        assertTrue(received.isEmpty());
+        assertEquals(2, written.size());
+        assertEquals(0x4, ((IoBufferEx) written.get(0)).get(3));
+        assertEquals(0x4, ((IoBufferEx) written.get(1)).get(3));
+        assertEquals(0x1, ((IoBufferEx) written.get(1)).get(4));
+    }
+
+    @Test
+    public void shouldLeaveHttp11ConnectionToCodec() throws Exception {
+        receive("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(US_ASCII));
+
+        assertFalse(filterChain.contains(HTTP2_PREFACE.filterName()));
+        assertTrue(filterChain.contains(CODEC.filterName()));
+        assertFalse(filterChain.contains(HTTP2_CODEC.filterName()));
+        assertNull(Http2ConnectionFilter.CONNECTION_KEY.get(session));
+
+        assertEquals(1, received.size());
+        IoBufferEx buf = (IoBufferEx) received.get(0);
+        assertEquals("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n", US_ASCII.decode(buf.buf()).toString());
+        assertTrue(written.isEmpty());
+    }
+
+    @Test
+    public void shouldForwardBufferedBytesWhenPartialPrefaceDoesNotMatch() throws Exception {
+        receive("PR".getBytes(US_ASCII));
+        assertTrue(received.isEmpty());
+
+        receive("OPFIND / HTTP/1.1\r\n".getBytes(US_ASCII));
+
+        assertFalse(filterChain.contains(HTTP2_PREFACE.filterName()));
+        assertTrue(filterChain.contains(CODEC.filterName()));
+        assertEquals(1, received.size());
+        IoBufferEx buf = (IoBufferEx) received.get(0);
+        assertEquals("PROPFIND / HTTP/1.1\r\n", US_ASCII.decode(buf.buf()).toString());
+    }
+
+    private void receive(byte[] bytes) {
+        filterChain.fireMessageReceived(SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(ByteBuffer.wrap(bytes)));
+    }
+}
@@ -58,6 +58,7 @@ import org.kaazing.gateway.resource.address.ResourceAddress;
 import org.kaazing.gateway.resource.address.ResourceAddressFactory;
 import org.kaazing.gateway.resource.address.ResourceOptions;
 import org.kaazing.gateway.resource.address.uri.URIUtils;
+import org.kaazing.gateway.transport.AdmissionController;
 import org.kaazing.gateway.transport.Bindings;
 import org.kaazing.gateway.transport.Bindings.Binding;
 import org.kaazing.gateway.transport.BridgeAcceptHandler;
@@ -100,6 +101,7 @@ public abstract class AbstractNioAcceptor implements BridgeAcceptor {
 
     protected ResourceAddressFactory resourceAddressFactory;
     protected BridgeServiceFactory bridgeServiceFactory;
+    private AdmissionController admissionController;
 
     protected final Properties configuration;
     protected final Logger logger;
@@ -125,6 +127,7 @@ public abstract class AbstractNioAcceptor implements BridgeAcceptor {
         }
 
         idleTimeout = TCP_IDLE_TIMEOUT.getIntProperty(configuration);
+        admissionController = new AdmissionController(configuration);
     }
 
     @Resource(name = "bridgeServiceFactory")
@@ -137,6 +140,11 @@ public abstract class AbstractNioAcceptor implements BridgeAcceptor {
         this.resourceAddressFactory = factory;
     }
 
+    @Resource(name = "admissionController")
+    public void setAdmissionController(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
     /* for testing observability */
     Bindings<?> getBindings() {
         return bindings;
@@ -151,6 +159,17 @@ public abstract class AbstractNioAcceptor implements BridgeAcceptor {
         public void sessionCreated(IoSession session) throws Exception {
             LoggingFilter.addIfNeeded(logger, session, getTransportName());
 
+            // turn the connection away before any further setup when over the accept rate or overloaded
+            SocketAddress boundAddress = session.getLocalAddress();
+            if (!admissionController.admitConnection(String.valueOf(boundAddress)) || admissionController.shed(session)) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug(format("Rejecting connection from %s to %s by admission control",
+                            session.getRemoteAddress(), boundAddress));
+                }
+                session.close(true);
+                return;
+            }
+
             ResourceAddress localAddress = asResourceAddress(session.getLocalAddress());
             NextProtocolBinding nioBinding = bindings.getBinding0(localAddress);
             if (nioBinding == null) {
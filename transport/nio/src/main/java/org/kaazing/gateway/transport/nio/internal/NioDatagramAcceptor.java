@@ -27,10 +27,9 @@ import org.jboss.netty.channel.socket.nio.NioServerDatagramChannelFactory;
 import org.jboss.netty.channel.socket.nio.NioWorker;
 import org.jboss.netty.channel.socket.nio.WorkerPool;
 import org.kaazing.gateway.resource.address.ResourceAddress;
-import org.kaazing.gateway.resource.address.uri.URIUtils;
+import org.kaazing.gateway.resource.address.udp.UdpResourceAddress;
 import org.kaazing.gateway.transport.BridgeSessionInitializer;
 import org.kaazing.gateway.transport.NioBindException;
-import org.kaazing.gateway.transport.bio.MulticastAcceptor;
 import org.kaazing.mina.core.service.IoAcceptorEx;
 import org.kaazing.mina.netty.socket.DatagramChannelIoSessionConfig;
 import org.kaazing.mina.netty.socket.DefaultDatagramChannelIoSessionConfig;
@@ -38,7 +37,11 @@ import org.kaazing.mina.netty.socket.nio.NioDatagramChannelIoAcceptor;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Resource;
+import java.io.IOException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.URI;
 import java.util.Properties;
 
 import static java.util.concurrent.Executors.newCachedThreadPool;
@@ -48,6 +51,7 @@ public class NioDatagramAcceptor extends AbstractNioAcceptor {
     private static final String LOGGER_NAME = String.format("transport.%s.accept", NioProtocol.UDP.name().toLowerCase());
 
     private NioSocketAcceptor tcpAcceptor;
+    private NioDatagramChannelIoAcceptor datagramAcceptor;
 
     @Resource(name = "tcp.acceptor")
     public void setTcpAcceptor(NioSocketAcceptor tcpAcceptor) {
@@ -69,6 +73,7 @@ public class NioDatagramAcceptor extends AbstractNioAcceptor {
         NioServerDatagramChannelFactory channelFactory = new NioServerDatagramChannelFactory(newCachedThreadPool(), 1, workerPool);
         NioDatagramChannelIoAcceptor acceptor = new NioDatagramChannelIoAcceptor(config, channelFactory);
         acceptor.setIoSessionInitializer(initializer);
+        datagramAcceptor = acceptor;
 
         String readBufferSize = configuration.getProperty("org.kaazing.gateway.transport.udp.READ_BUFFER_SIZE");
         if (readBufferSize != null) {
@@ -98,24 +103,44 @@ public class NioDatagramAcceptor extends AbstractNioAcceptor {
     public void bind(final ResourceAddress address,
                      IoHandler handler,
                      BridgeSessionInitializer<? extends IoFuture> initializer) throws NioBindException {
-        boolean useMCP = false;
+        InetSocketAddress groupAddress = asMulticastAddress(address);
+        if (groupAddress == null) {
+            super.bind(address, handler, initializer);
+            return;
+        }
+
+        // multicast groups are bound and joined on a datagram channel like any other udp address, so that their
+        // datagrams are received by the same selectors, with a session per sender aligned to a worker thread
+        NetworkInterface device =
+                (address instanceof UdpResourceAddress) ? ((UdpResourceAddress) address).getUpdInterface() : null;
+        if (device == null) {
+            throw new IllegalArgumentException("Missing network interface for multicast address: " + address.getExternalURI());
+        }
+
+        super.bind(address, handler, initializer);
         try {
-            String uri = address.getExternalURI();
-            InetAddress inet = InetAddress.getByName(URIUtils.getHost(uri));
-            if (inet.isMulticastAddress()) {
-                useMCP = true;
-            }
-        } catch (Exception e) {
-            // do nothing
+            datagramAcceptor.joinGroup(groupAddress, device);
+            logger.debug("Joined multicast group {} on {}", groupAddress, device.getName());
         }
-        if (useMCP) {
-            MulticastAcceptor acceptor = new MulticastAcceptor();
-            acceptor.setConfiguration(new Properties());
-            acceptor.setResourceAddressFactory(resourceAddressFactory);
-            acceptor.setBridgeServiceFactory(bridgeServiceFactory);
-            acceptor.bind(address, handler, initializer);
-        } else {
-            super.bind(address, handler, initializer);
+        catch (IOException e) {
+            unbind(address);
+            String error = "Unable to bind to resource: " + address + " cause: " + e.getMessage();
+            logger.error(error);
+            throw new RuntimeException(error, e);
+        }
+    }
+
+    private static InetSocketAddress asMulticastAddress(ResourceAddress address) {
+        if (address.getTransport() != null) {
+            return null;
+        }
+        try {
+            URI location = address.getResource();
+            InetSocketAddress socketAddress = new InetSocketAddress(location.getHost(), location.getPort());
+            InetAddress inet = socketAddress.getAddress();
+            return (inet != null && inet.isMulticastAddress()) ? socketAddress : null;
+        } catch (Exception e) {
+            return null;
         }
     }
 
@@ -33,15 +33,23 @@ import org.kaazing.gateway.resource.address.ResourceAddressFactory;
 import org.kaazing.gateway.transport.test.Expectations;
 import org.kaazing.test.util.MethodExecutionTrace;
 
+import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 import static org.kaazing.gateway.resource.address.ResourceAddressFactory.newResourceAddressFactory;
 
 public class NioDatagramAcceptorTest {
@@ -111,4 +119,75 @@ public class NioDatagramAcceptorTest {
         context.assertIsSatisfied();
     }
 
+    @Test
+    public void multicast() throws Exception {
+        Mockery context = new Mockery();
+        context.setThreadingPolicy(new Synchroniser());
+        IoHandler handler = context.mock(IoHandler.class);
+
+        // multicast over the loopback interface is not available on every host
+        NetworkInterface device = NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress());
+        assumeTrue(device != null && device.supportsMulticast());
+
+        InetSocketAddress groupAddress = new InetSocketAddress("239.255.0.1", findFreePort());
+        Map<String, Object> options = new HashMap<>();
+        options.put("udp.interface", device.getName());
+        ResourceAddressFactory addressFactory = ResourceAddressFactory.newResourceAddressFactory();
+        ResourceAddress bindAddress = addressFactory.newResourceAddress("udp://239.255.0.1:" + groupAddress.getPort(), options);
+
+        Properties configuration = new Properties();
+        NioSocketAcceptor tcpAcceptor = new NioSocketAcceptor(configuration);
+        NioDatagramAcceptor acceptor = new NioDatagramAcceptor(configuration);
+        acceptor.setResourceAddressFactory(newResourceAddressFactory());
+        acceptor.setTcpAcceptor(tcpAcceptor);
+
+        try {
+            acceptor.bind(bindAddress, handler, null);
+            String str = "Hello World";
+            byte[] bytes = str.getBytes(UTF_8);
+
+            CountDownLatch received = new CountDownLatch(2);
+            Sequence order = context.sequence("order");
+            context.checking(new Expectations() {
+                {
+                    oneOf(handler).sessionCreated(with(any(IoSession.class))); inSequence(order);
+                    will(saveParameter("session", 0));
+                    oneOf(handler).sessionOpened(with(variable("session", IoSession.class))); inSequence(order);
+                    exactly(2).of(handler).messageReceived(with(variable("session", IoSession.class)), with(ioBufferMatching(bytes)));
+                    inSequence(order);
+                    will(new CustomAction("Count down.") {
+                        @Override
+                        public Object invoke(Invocation invocation) throws Throwable {
+                            received.countDown();
+                            return null;
+                        }
+                    });
+                    oneOf(handler).sessionClosed(with(variable("session", IoSession.class))); inSequence(order);
+                }
+            });
+
+            try (MulticastSocket sender = new MulticastSocket()) {
+                sender.setNetworkInterface(device);
+                sender.send(new DatagramPacket(bytes, bytes.length, groupAddress));
+                sender.send(new DatagramPacket(bytes, bytes.length, groupAddress));
+            }
+            assertTrue(received.await(5, TimeUnit.SECONDS));
+        }
+        finally {
+            acceptor.dispose();
+        }
+
+        context.assertIsSatisfied();
+    }
+
+    /**
+     * This method returns a port number that is not currently in use.
+     */
+    private static int findFreePort() throws IOException {
+        DatagramSocket socket = new DatagramSocket(0);
+        int port = socket.getLocalPort();
+        socket.close();
+        return port;
+    }
+
 }
@@ -16,7 +16,7 @@
 package org.kaazing.gateway.transport;
 
 import java.util.concurrent.Executor;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import org.apache.mina.core.service.IoHandler;
 import org.apache.mina.core.service.TransportMetadata;
@@ -44,7 +44,11 @@ public abstract class AbstractBridgeSession<S extends IoSessionEx, B extends IoB
     private final IoBufferAllocatorEx<? extends B> allocator;
 
     // thread safety
-    private final AtomicReference<IoSessionEx> parent;
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<AbstractBridgeSession, IoSessionEx> PARENT =
+            AtomicReferenceFieldUpdater.newUpdater(AbstractBridgeSession.class, IoSessionEx.class, "parent");
+
+    private volatile IoSessionEx parent;
     private volatile Direction direction;
     private IoHandler handler;
 
@@ -122,7 +126,7 @@ public abstract class AbstractBridgeSession<S extends IoSessionEx, B extends IoB
         
         this.service = service;
         this.processor = processor;
-        this.parent = new AtomicReference<>(parent);
+        this.parent = parent;
         this.allocator = allocator;
 
         this.metadata = service.getTransportMetadata();
@@ -134,7 +138,7 @@ public abstract class AbstractBridgeSession<S extends IoSessionEx, B extends IoB
         config.setAll(service.getSessionConfig());
 
         // KG-1466: only wrap config if it's an instance of DefaultSessionConfigEx, to avoid defeating downcast
-        this.sessionConfig = config.getClass() == DefaultIoSessionConfigEx.class ? new BridgeSessionConfigEx(config, this.parent) : config;
+        this.sessionConfig = config.getClass() == DefaultIoSessionConfigEx.class ? new BridgeSessionConfigEx(config, this) : config;
 
         this.direction = direction;
     }
@@ -190,16 +194,16 @@ public abstract class AbstractBridgeSession<S extends IoSessionEx, B extends IoB
 
     @Override
     public IoSessionEx getParent() {
-    	return parent.get();
+    	return parent;
     }
 
     protected boolean compareAndSetParent(IoSessionEx expectedParent,
                                           IoSessionEx newParent) {
-        return parent.compareAndSet(expectedParent, newParent);
+        return PARENT.compareAndSet(this, expectedParent, newParent);
     }
 
     protected IoSessionEx setParent(IoSessionEx newParent) {
-        return parent.getAndSet(newParent);
+        return PARENT.getAndSet(this, newParent);
     }
 
 	@Override
@@ -233,7 +237,7 @@ public abstract class AbstractBridgeSession<S extends IoSessionEx, B extends IoB
     
     @Override
     protected void setIoAlignment0(Thread ioThread, Executor ioExecutor) {
-        IoSessionEx parent = this.parent.get();
+        IoSessionEx parent = this.parent;
         if (parent != null) {
             parent.setIoAlignment(ioThread, ioExecutor);
         }
@@ -243,7 +247,7 @@ public abstract class AbstractBridgeSession<S extends IoSessionEx, B extends IoB
     protected void suspendRead1() {
         suspendRead2();
 
-        IoSession parent = this.parent.get();
+        IoSession parent = this.parent;
         if (parent != null) {
             parent.suspendRead();
         }
@@ -258,7 +262,7 @@ public abstract class AbstractBridgeSession<S extends IoSessionEx, B extends IoB
         // call super first to trigger processor.consume()
         resumeRead2();
 
-        IoSession parent = this.parent.get();
+        IoSession parent = this.parent;
         if (parent != null) {
             parent.resumeRead();
         }
@@ -348,20 +352,20 @@ public abstract class AbstractBridgeSession<S extends IoSessionEx, B extends IoB
      */
     private static class BridgeSessionConfigEx extends AbstractIoSessionConfigEx {
         private boolean propagateIdleTime = false;
-        private final AtomicReference<IoSessionEx> parentReference;
+        private final AbstractBridgeSession<?, ?> session;
 
-        BridgeSessionConfigEx(IoSessionConfigEx wrappedConfig, AtomicReference<IoSessionEx> parentReference) {
+        BridgeSessionConfigEx(IoSessionConfigEx wrappedConfig, AbstractBridgeSession<?, ?> session) {
             setAll(wrappedConfig);
             // set propagate to true now, as setAll() should not be propagated
             propagateIdleTime = true;
-            this.parentReference = parentReference;
+            this.session = session;
         }
 
         @Override
         public void setIdleTime(IdleStatus status, int idleTime) {
             // Don't allow setAll to overwrite idle time settings on the parent, grandparent, etc.
             if (propagateIdleTime) {
-                IoSessionEx parent = parentReference.get();
+                IoSessionEx parent = session.parent;
                 if (parent != null) {
                     parent.getConfig().setIdleTime(status, idleTime);
                 }
@@ -375,7 +379,7 @@ public abstract class AbstractBridgeSession<S extends IoSessionEx, B extends IoB
         public void setIdleTimeInMillis(IdleStatus status, long idleTimeMillis) {
             // Don't allow setAll to overwrite idle time settings on the parent, grandparent, etc.
             if (propagateIdleTime) {
-                IoSessionEx parent = parentReference.get();
+                IoSessionEx parent = session.parent;
                 if (parent != null) {
                     IoSessionConfigEx config = parent.getConfig();
                     config.setIdleTimeInMillis(status, idleTimeMillis);
@@ -385,7 +389,7 @@ public abstract class AbstractBridgeSession<S extends IoSessionEx, B extends IoB
 
         @Override
         public int getIdleTime(IdleStatus status) {
-            IoSessionEx parent = parentReference.get();
+            IoSessionEx parent = session.parent;
             if (parent != null) {
                 return parent.getConfig().getIdleTime(status);
             }
@@ -396,7 +400,7 @@ public abstract class AbstractBridgeSession<S extends IoSessionEx, B extends IoB
 
         @Override
         public long getIdleTimeInMillis(IdleStatus status) {
-            IoSessionEx parent = parentReference.get();
+            IoSessionEx parent = session.parent;
             if (parent != null) {
                 IoSessionConfigEx config = parent.getConfig();
                 return config.getIdleTimeInMillis(status);
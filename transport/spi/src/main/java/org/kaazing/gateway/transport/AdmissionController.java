@@ -0,0 +1,203 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.kaazing.gateway.util.InternalSystemProperty.ADMISSION_ACCEPT_BURST;
+import static org.kaazing.gateway.util.InternalSystemProperty.ADMISSION_ACCEPT_RATE;
+import static org.kaazing.gateway.util.InternalSystemProperty.ADMISSION_MAXIMUM_HANDSHAKES;
+import static org.kaazing.gateway.util.InternalSystemProperty.ADMISSION_SHED_QUEUE_DEPTH;
+
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.mina.core.session.IoSession;
+import org.kaazing.mina.core.filterchain.IoEventBatchingExecutor;
+import org.kaazing.mina.core.session.IoSessionEx;
+
+/**
+ * Decides whether acceptors take on new work while the gateway is under load, so that connections
+ * are turned away before their filter chains, HTTP decoding or TLS handshakes are set up.
+ *
+ * Three independent limits apply, each disabled when configured as 0:
+ * <ul>
+ * <li>the rate at which connections are accepted on each bind address, as a token bucket</li>
+ * <li>the number of TLS handshakes and WebSocket upgrades in progress on each bind address</li>
+ * <li>the depth of the event queue of the I/O worker a new connection or request was assigned to</li>
+ * </ul>
+ * A single instance is shared by the acceptors of a gateway (injected as "admissionController")
+ * so that the rejection counts can be reported through management.
+ */
+public final class AdmissionController {
+
+    private static final TypedAttributeKey<String> HANDSHAKE_KEY =
+            new TypedAttributeKey<>(AdmissionController.class, "handshake");
+
+    private final int acceptRate;
+    private final int acceptBurst;
+    private final int maximumHandshakes;
+    private final int shedQueueDepth;
+
+    private final ConcurrentMap<String, TokenBucket> acceptBuckets = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> handshakes = new ConcurrentHashMap<>();
+
+    private final AtomicLong rejectedConnections = new AtomicLong();
+    private final AtomicLong rejectedHandshakes = new AtomicLong();
+    private final AtomicLong shedCount = new AtomicLong();
+
+    public AdmissionController(Properties configuration) {
+        this(ADMISSION_ACCEPT_RATE.getIntProperty(configuration),
+             ADMISSION_ACCEPT_BURST.getIntProperty(configuration),
+             ADMISSION_MAXIMUM_HANDSHAKES.getIntProperty(configuration),
+             ADMISSION_SHED_QUEUE_DEPTH.getIntProperty(configuration));
+    }
+
+    AdmissionController(int acceptRate, int acceptBurst, int maximumHandshakes, int shedQueueDepth) {
+        this.acceptRate = acceptRate;
+        this.acceptBurst = (acceptBurst > 0) ? acceptBurst : acceptRate;
+        this.maximumHandshakes = maximumHandshakes;
+        this.shedQueueDepth = shedQueueDepth;
+    }
+
+    /**
+     * @param bindAddress  the address the connection was accepted on
+     * @return true if the accept rate limit of the bind address allows one more connection
+     */
+    public boolean admitConnection(String bindAddress) {
+        if (acceptRate <= 0) {
+            return true;
+        }
+
+        TokenBucket bucket = acceptBuckets.get(bindAddress);
+        if (bucket == null) {
+            TokenBucket newBucket = new TokenBucket(acceptRate, acceptBurst);
+            bucket = acceptBuckets.putIfAbsent(bindAddress, newBucket);
+            if (bucket == null) {
+                bucket = newBucket;
+            }
+        }
+
+        if (bucket.tryAcquire(System.nanoTime())) {
+            return true;
+        }
+        rejectedConnections.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Counts a handshake in progress against the limit of the bind address, until {@link #endHandshake(IoSession)}
+     * is called for the same session. A session that is already counted is not counted again.
+     *
+     * @return true if the handshake may start, false if too many are already in progress
+     */
+    public boolean beginHandshake(IoSession session, String bindAddress) {
+        if (maximumHandshakes <= 0 || HANDSHAKE_KEY.exists(session)) {
+            return true;
+        }
+
+        AtomicInteger inProgress = handshakes.get(bindAddress);
+        if (inProgress == null) {
+            AtomicInteger newInProgress = new AtomicInteger();
+            inProgress = handshakes.putIfAbsent(bindAddress, newInProgress);
+            if (inProgress == null) {
+                inProgress = newInProgress;
+            }
+        }
+
+        if (inProgress.incrementAndGet() > maximumHandshakes) {
+            inProgress.decrementAndGet();
+            rejectedHandshakes.incrementAndGet();
+            return false;
+        }
+        HANDSHAKE_KEY.set(session, bindAddress);
+        return true;
+    }
+
+    /**
+     * Ends the handshake of the session, if any. Safe to call more than once, e.g. on handshake completion
+     * and again when the session closes.
+     */
+    public void endHandshake(IoSession session) {
+        String bindAddress = HANDSHAKE_KEY.remove(session);
+        if (bindAddress != null) {
+            handshakes.get(bindAddress).decrementAndGet();
+        }
+    }
+
+    /**
+     * Counts the session as shed when the event queue of its I/O worker is deeper than the configured limit.
+     *
+     * @return true if new work on the session's I/O worker should be refused
+     */
+    public boolean shed(IoSession session) {
+        if (shedQueueDepth <= 0 || !(session instanceof IoSessionEx)) {
+            return false;
+        }
+
+        Executor ioExecutor = ((IoSessionEx) session).getIoExecutor();
+        if (ioExecutor instanceof IoEventBatchingExecutor
+                && ((IoEventBatchingExecutor) ioExecutor).getQueueDepth() > shedQueueDepth) {
+            shedCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    public int getHandshakesInProgress(String bindAddress) {
+        AtomicInteger inProgress = handshakes.get(bindAddress);
+        return (inProgress != null) ? inProgress.get() : 0;
+    }
+
+    public long getRejectedConnectionCount() {
+        return rejectedConnections.get();
+    }
+
+    public long getRejectedHandshakeCount() {
+        return rejectedHandshakes.get();
+    }
+
+    public long getShedCount() {
+        return shedCount.get();
+    }
+
+    static final class TokenBucket {
+        private final long nanosPerToken;
+        private final long capacityNanos;
+        private long emptyAt;
+
+        TokenBucket(int tokensPerSecond, int capacity) {
+            this.nanosPerToken = SECONDS.toNanos(1) / tokensPerSecond;
+            this.capacityNanos = nanosPerToken * capacity;
+            this.emptyAt = Long.MIN_VALUE;
+        }
+
+        // tokens are kept as the time at which the bucket would be empty, at most capacity tokens in the past
+        synchronized boolean tryAcquire(long now) {
+            long fullAt = now - capacityNanos;
+            long next = (emptyAt == Long.MIN_VALUE || emptyAt - fullAt < 0) ? fullAt : emptyAt;
+            next += nanosPerToken;
+            if (next - now > 0) {
+                return false;
+            }
+            emptyAt = next;
+            return true;
+        }
+    }
+}
@@ -162,7 +162,7 @@ public abstract class DecodingStateMachine implements DecodingState {
         }
     }
 
-    private DecodingState getCurrentState() throws Exception {
+    protected DecodingState getCurrentState() throws Exception {
         DecodingState state = this.currentState;
         if (state == null) {
             state = init();
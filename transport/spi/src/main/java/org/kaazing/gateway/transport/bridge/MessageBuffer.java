@@ -73,6 +73,20 @@ public abstract class MessageBuffer<T extends Message> extends AbstractIoBufferE
 
     protected abstract MessageBuffer<T> create0(MessageBuffer<T> parent, ByteBuffer buf);
 
+    /**
+     * Copies the remaining bytes into an unshared buffer of the same type, e.g. to hold on to a shared received
+     * message after messageReceived returns, or to read it on another thread.
+     */
+    public MessageBuffer<T> copy() {
+        ByteBuffer copy = ByteBuffer.allocate(buf.remaining()).order(buf.order());
+        copy.put(buf.duplicate());
+        copy.flip();
+
+        @SuppressWarnings("unchecked")
+        MessageBuffer<T> unshared = (MessageBuffer<T>) create0(this, copy).asUnsharedBuffer();
+        return unshared;
+    }
+
     @Override
     public byte[] array() {
         return buf.array();
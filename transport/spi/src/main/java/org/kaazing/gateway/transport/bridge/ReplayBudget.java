@@ -0,0 +1,69 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.bridge;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Byte budget shared by the {@link ReplayBuffer}s of a service, or of the whole gateway.
+ * A reservation succeeds only if it fits this budget and every parent budget.
+ */
+public final class ReplayBudget {
+
+    private final ReplayBudget parent;
+    private final long maximumBytes;
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    public ReplayBudget(long maximumBytes) {
+        this(null, maximumBytes);
+    }
+
+    public ReplayBudget(ReplayBudget parent, long maximumBytes) {
+        this.parent = parent;
+        this.maximumBytes = maximumBytes;
+    }
+
+    public boolean reserve(int bytes) {
+        long reserved;
+        do {
+            reserved = reservedBytes.get();
+            if (reserved + bytes > maximumBytes) {
+                return false;
+            }
+        } while (!reservedBytes.compareAndSet(reserved, reserved + bytes));
+
+        if (parent != null && !parent.reserve(bytes)) {
+            reservedBytes.addAndGet(-bytes);
+            return false;
+        }
+        return true;
+    }
+
+    public void release(int bytes) {
+        reservedBytes.addAndGet(-bytes);
+        if (parent != null) {
+            parent.release(bytes);
+        }
+    }
+
+    public long getReservedBytes() {
+        return reservedBytes.get();
+    }
+
+    public long getMaximumBytes() {
+        return maximumBytes;
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.bridge;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Bounded ring of recently written messages, from which a reconnecting client is served
+ * the messages it missed during the gap. Each message is stored with a non-decreasing key,
+ * such as an SSE event id or the sequence number of a WSEB downstream request.
+ * <p>
+ * Messages are held as written, so a replayed message that carries an encoding cache
+ * (see {@link CachingMessageEncoder}) is not encoded again. Memory is accounted by
+ * message size against the limit of this buffer and against the shared {@link ReplayBudget}.
+ * The oldest messages are evicted to make room; a replay that would need an evicted
+ * message cannot be served.
+ */
+public final class ReplayBuffer<T extends Message> {
+
+    private final Deque<Entry<T>> entries = new ArrayDeque<>();
+    private final int maximumBytes;
+    private final ReplayBudget budget;
+
+    private int bufferedBytes;
+    private long evictedKey = -1L;
+
+    public ReplayBuffer(int maximumBytes, ReplayBudget budget) {
+        this.maximumBytes = maximumBytes;
+        this.budget = budget;
+    }
+
+    /**
+     * Adds a written message, evicting older messages if necessary.
+     *
+     * @return true if the message was buffered
+     */
+    public synchronized boolean add(long key, T message, int size) {
+        if (size > maximumBytes) {
+            evict(key);
+            return false;
+        }
+
+        while (bufferedBytes + size > maximumBytes || !budget.reserve(size)) {
+            if (entries.isEmpty()) {
+                // shared budget exhausted by other buffers
+                evict(key);
+                return false;
+            }
+            Entry<T> oldest = entries.removeFirst();
+            release(oldest);
+            evict(oldest.key);
+        }
+
+        entries.addLast(new Entry<>(key, message, size));
+        bufferedBytes += size;
+        return true;
+    }
+
+    /**
+     * Returns the buffered messages with a key greater than or equal to the given key,
+     * or null if any of them have already been evicted.
+     */
+    public synchronized List<T> from(long key) {
+        if (evictedKey >= key) {
+            return null;
+        }
+
+        List<T> messages = new ArrayList<>();
+        for (Entry<T> entry : entries) {
+            if (entry.key >= key) {
+                messages.add(entry.message);
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Discards messages with a key less than the given key, which the client has confirmed.
+     */
+    public synchronized void discardBefore(long key) {
+        while (!entries.isEmpty() && entries.peekFirst().key < key) {
+            release(entries.removeFirst());
+        }
+    }
+
+    public synchronized void clear() {
+        while (!entries.isEmpty()) {
+            release(entries.removeFirst());
+        }
+    }
+
+    public synchronized int getBufferedBytes() {
+        return bufferedBytes;
+    }
+
+    private void evict(long key) {
+        evictedKey = Math.max(evictedKey, key);
+    }
+
+    private void release(Entry<T> entry) {
+        bufferedBytes -= entry.size;
+        budget.release(entry.size);
+    }
+
+    private static final class Entry<T> {
+        private final long key;
+        private final T message;
+        private final int size;
+
+        Entry(long key, T message, int size) {
+            this.key = key;
+            this.message = message;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.bridge;
+
+import static org.kaazing.gateway.util.InternalSystemProperty.REPLAY_BUFFER_MAXIMUM;
+import static org.kaazing.gateway.util.InternalSystemProperty.REPLAY_BUFFER_SERVICE_MAXIMUM;
+import static org.kaazing.gateway.util.InternalSystemProperty.REPLAY_BUFFER_SIZE;
+import static org.kaazing.gateway.util.Utils.parseDataSize;
+
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Creates the per-session {@link ReplayBuffer}s of an acceptor, each accounted against the
+ * budget of its service (identified by accept URI) and the gateway-wide budget.
+ */
+public final class ReplayBufferFactory {
+
+    private final int bufferSize;
+    private final int serviceMaximum;
+    private final ReplayBudget gatewayBudget;
+    private final ConcurrentMap<String, ReplayBudget> serviceBudgets = new ConcurrentHashMap<>();
+
+    private ReplayBufferFactory(int bufferSize, int serviceMaximum, ReplayBudget gatewayBudget) {
+        this.bufferSize = bufferSize;
+        this.serviceMaximum = serviceMaximum;
+        this.gatewayBudget = gatewayBudget;
+    }
+
+    /**
+     * @param gatewayBudget  the budget shared by all acceptors, or null to use a budget of this factory only
+     * @return the factory, or null if replay is disabled by configuration
+     */
+    public static ReplayBufferFactory newReplayBufferFactory(Properties configuration, ReplayBudget gatewayBudget) {
+        int bufferSize = parseDataSize(REPLAY_BUFFER_SIZE.getProperty(configuration));
+        if (bufferSize <= 0) {
+            return null;
+        }
+
+        if (gatewayBudget == null) {
+            gatewayBudget = newGatewayBudget(configuration);
+        }
+        int serviceMaximum = parseDataSize(REPLAY_BUFFER_SERVICE_MAXIMUM.getProperty(configuration));
+        return new ReplayBufferFactory(bufferSize, serviceMaximum, gatewayBudget);
+    }
+
+    public static ReplayBudget newGatewayBudget(Properties configuration) {
+        return new ReplayBudget(parseDataSize(REPLAY_BUFFER_MAXIMUM.getProperty(configuration)));
+    }
+
+    public <T extends Message> ReplayBuffer<T> newReplayBuffer(String acceptURI) {
+        ReplayBudget serviceBudget = serviceBudgets.get(acceptURI);
+        if (serviceBudget == null) {
+            ReplayBudget newServiceBudget = new ReplayBudget(gatewayBudget, serviceMaximum);
+            serviceBudget = serviceBudgets.putIfAbsent(acceptURI, newServiceBudget);
+            if (serviceBudget == null) {
+                serviceBudget = newServiceBudget;
+            }
+        }
+        return new ReplayBuffer<>(bufferSize, serviceBudget);
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.trace;
+
+import static org.kaazing.gateway.transport.trace.TraceRing.BYTE_COUNT_OFFSET;
+import static org.kaazing.gateway.transport.trace.TraceRing.CAPACITY_OFFSET;
+import static org.kaazing.gateway.transport.trace.TraceRing.CAPTURED_OFFSET;
+import static org.kaazing.gateway.transport.trace.TraceRing.EVENT_OFFSET;
+import static org.kaazing.gateway.transport.trace.TraceRing.HEADER_SIZE;
+import static org.kaazing.gateway.transport.trace.TraceRing.LAYER_OFFSET;
+import static org.kaazing.gateway.transport.trace.TraceRing.MAGIC;
+import static org.kaazing.gateway.transport.trace.TraceRing.MAGIC_OFFSET;
+import static org.kaazing.gateway.transport.trace.TraceRing.NANO_TIME_OFFSET;
+import static org.kaazing.gateway.transport.trace.TraceRing.PAYLOAD_OFFSET;
+import static org.kaazing.gateway.transport.trace.TraceRing.RECORD_SIZE_OFFSET;
+import static org.kaazing.gateway.transport.trace.TraceRing.SEQUENCE_OFFSET;
+import static org.kaazing.gateway.transport.trace.TraceRing.SESSION_ID_OFFSET;
+import static org.kaazing.gateway.transport.trace.TraceRing.TIME_OFFSET;
+import static org.kaazing.gateway.transport.trace.TraceRing.VERSION;
+import static org.kaazing.gateway.transport.trace.TraceRing.VERSION_OFFSET;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Renders the records of trace ring files as text, oldest record first, e.g.
+ * <pre>
+ * java -cp gateway.transport.jar:... org.kaazing.gateway.transport.trace.TraceDecoder /tmp/New_I_O_worker__1-27.trace
+ * </pre>
+ * When given a directory, every ring file in it is rendered in turn.
+ */
+public final class TraceDecoder {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private TraceDecoder() {
+    }
+
+    public static void main(String... args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: TraceDecoder <ring file or directory>...");
+            System.exit(1);
+        }
+
+        for (String arg : args) {
+            File file = new File(arg);
+            File[] files = file.isDirectory() ? file.listFiles((dir, name) -> name.endsWith(TraceRecorder.FILE_SUFFIX))
+                                              : new File[] { file };
+            if (files != null) {
+                Arrays.sort(files);
+                for (File ringFile : files) {
+                    decode(ringFile, System.out);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes one line per record of the ring file.
+     */
+    public static void decode(File file, PrintStream out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+            throw new IOException("Not a trace ring file: " + file);
+        }
+        if (buffer.getInt(VERSION_OFFSET) != VERSION) {
+            throw new IOException("Unsupported trace ring version " + buffer.getInt(VERSION_OFFSET) + ": " + file);
+        }
+
+        int recordSize = buffer.getInt(RECORD_SIZE_OFFSET);
+        int capacity = buffer.getInt(CAPACITY_OFFSET);
+        long sequence = buffer.getLong(SEQUENCE_OFFSET);
+        long first = Math.max(0L, sequence - capacity);
+
+        String source = file.getName();
+        SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        timeFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        StringBuilder line = new StringBuilder();
+        for (long index = first; index < sequence; index++) {
+            int offset = HEADER_SIZE + (int) (index % capacity) * recordSize;
+
+            TraceEvent event = TraceEvent.fromOrdinal(buffer.get(offset + EVENT_OFFSET));
+            int byteCount = buffer.getInt(offset + BYTE_COUNT_OFFSET);
+            int captured = buffer.getShort(offset + CAPTURED_OFFSET);
+
+            line.setLength(0);
+            line.append(timeFormat.format(new Date(buffer.getLong(offset + TIME_OFFSET))))
+                .append(' ').append(buffer.getLong(offset + NANO_TIME_OFFSET))
+                .append(' ').append(source)
+                .append(" session=").append(buffer.getLong(offset + SESSION_ID_OFFSET))
+                .append(" layer=").append(buffer.get(offset + LAYER_OFFSET))
+                .append(' ').append(event != null ? event.name() : "UNKNOWN");
+            if (byteCount >= 0) {
+                line.append(" bytes=").append(byteCount);
+            }
+            if (captured > 0) {
+                appendPayload(line, buffer, offset + PAYLOAD_OFFSET, captured);
+            }
+            out.println(line);
+        }
+    }
+
+    private static void appendPayload(StringBuilder line, ByteBuffer buffer, int offset, int length) {
+        line.append(' ');
+        for (int i = 0; i < length; i++) {
+            int b = buffer.get(offset + i) & 0xff;
+            line.append(HEX[b >> 4]).append(HEX[b & 0x0f]);
+        }
+        line.append(" |");
+        for (int i = 0; i < length; i++) {
+            int b = buffer.get(offset + i) & 0xff;
+            line.append(b >= 0x20 && b < 0x7f ? (char) b : '.');
+        }
+        line.append('|');
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.trace;
+
+import static org.kaazing.gateway.util.InternalSystemProperty.TRACE_DIRECTORY;
+import static org.kaazing.gateway.util.InternalSystemProperty.TRACE_PAYLOAD_BYTES;
+import static org.kaazing.gateway.util.InternalSystemProperty.TRACE_RECORDS;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hands each I/O thread its own {@link TraceRing}, created on the first event that thread records.
+ * <p>
+ * The ring files are named after their thread, are kept in the configured trace directory and can be rendered
+ * offline with {@link TraceDecoder}.
+ */
+public final class TraceRecorder {
+
+    static final String FILE_SUFFIX = ".trace";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TraceRecorder.class);
+
+    private final File directory;
+    private final int capacity;
+    private final int payloadSize;
+    private final Queue<TraceRing> rings;
+    private final ThreadLocal<TraceRing> ring;
+
+    public TraceRecorder(Properties configuration) {
+        this(getDirectory(configuration), TRACE_RECORDS.getIntProperty(configuration),
+                TRACE_PAYLOAD_BYTES.getIntProperty(configuration));
+    }
+
+    public TraceRecorder(File directory, int capacity, int payloadSize) {
+        this.directory = directory;
+        this.capacity = capacity;
+        this.payloadSize = payloadSize;
+        this.rings = new ConcurrentLinkedQueue<>();
+        this.ring = new ThreadLocal<TraceRing>() {
+            @Override
+            protected TraceRing initialValue() {
+                return newRing(Thread.currentThread());
+            }
+        };
+    }
+
+    /**
+     * @return the ring of the current thread, or null if its file could not be created
+     */
+    public TraceRing ring() {
+        return ring.get();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Writes the recorded content of all rings back to their files.
+     */
+    public void force() {
+        for (TraceRing ring : rings) {
+            ring.force();
+        }
+    }
+
+    private TraceRing newRing(Thread thread) {
+        String name = thread.getName().replaceAll("[^A-Za-z0-9_.-]", "_") + "-" + thread.getId() + FILE_SUFFIX;
+        File file = new File(directory, name);
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Unable to create directory " + directory);
+            }
+            TraceRing newRing = TraceRing.create(file, capacity, payloadSize);
+            rings.add(newRing);
+            LOGGER.info("Tracing transport events of thread \"{}\" to {}", thread.getName(), file);
+            return newRing;
+        }
+        catch (IOException | RuntimeException e) {
+            LOGGER.warn(String.format("Unable to trace transport events of thread \"%s\" to %s", thread.getName(), file), e);
+            return null;
+        }
+    }
+
+    private static File getDirectory(Properties configuration) {
+        String directory = TRACE_DIRECTORY.getProperty(configuration);
+        return (directory != null) ? new File(directory) : new File(System.getProperty("java.io.tmpdir"));
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.trace;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Fixed-size binary trace records in a memory-mapped ring file, overwriting the oldest records once full.
+ * <p>
+ * A ring has a single writer, the I/O thread it belongs to, so recording takes no locks and does not allocate.
+ * The file starts with a header followed by the records:
+ * <pre>
+ * header:  int magic, int version, int record size, int capacity (records), long sequence (records written)
+ * record:  long time (epoch millis), long nano time, long session id, int byte count (-1 for non-buffer messages),
+ *          byte layer, byte event, short captured payload length, payload bytes (up to record size - 32)
+ * </pre>
+ */
+public final class TraceRing {
+
+    static final int MAGIC = 0x4b475452; // "KGTR"
+    static final int VERSION = 1;
+
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int RECORD_SIZE_OFFSET = 8;
+    static final int CAPACITY_OFFSET = 12;
+    static final int SEQUENCE_OFFSET = 16;
+    static final int HEADER_SIZE = 32;
+
+    static final int TIME_OFFSET = 0;
+    static final int NANO_TIME_OFFSET = 8;
+    static final int SESSION_ID_OFFSET = 16;
+    static final int BYTE_COUNT_OFFSET = 24;
+    static final int LAYER_OFFSET = 28;
+    static final int EVENT_OFFSET = 29;
+    static final int CAPTURED_OFFSET = 30;
+    static final int PAYLOAD_OFFSET = 32;
+
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int recordSize;
+    private final int payloadSize;
+
+    private long sequence;
+
+    private TraceRing(MappedByteBuffer buffer, int capacity, int payloadSize) {
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.payloadSize = payloadSize;
+        this.recordSize = PAYLOAD_OFFSET + payloadSize;
+    }
+
+    /**
+     * Creates (or truncates) the ring file and maps it into memory.
+     */
+    public static TraceRing create(File file, int capacity, int payloadSize) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        if (payloadSize < 0 || payloadSize > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("payload size out of range: " + payloadSize);
+        }
+
+        int recordSize = PAYLOAD_OFFSET + payloadSize;
+        long length = HEADER_SIZE + (long) capacity * recordSize;
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("ring file too large: " + length + " bytes");
+        }
+
+        MappedByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(0L);
+            raf.setLength(length);
+            // the mapping remains valid once the channel is closed
+            FileChannel channel = raf.getChannel();
+            buffer = channel.map(MapMode.READ_WRITE, 0L, length);
+        }
+
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        buffer.putInt(RECORD_SIZE_OFFSET, recordSize);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putLong(SEQUENCE_OFFSET, 0L);
+
+        return new TraceRing(buffer, capacity, payloadSize);
+    }
+
+    /**
+     * Appends a record, keeping the leading bytes of the payload (from its position, which is left unchanged).
+     */
+    public void record(long sessionId, int layer, TraceEvent event, int byteCount, ByteBuffer payload) {
+        long sequence = this.sequence;
+        int offset = HEADER_SIZE + (int) (sequence % capacity) * recordSize;
+
+        buffer.putLong(offset + TIME_OFFSET, System.currentTimeMillis());
+        buffer.putLong(offset + NANO_TIME_OFFSET, System.nanoTime());
+        buffer.putLong(offset + SESSION_ID_OFFSET, sessionId);
+        buffer.putInt(offset + BYTE_COUNT_OFFSET, byteCount);
+        buffer.put(offset + LAYER_OFFSET, (byte) layer);
+        buffer.put(offset + EVENT_OFFSET, (byte) event.ordinal());
+
+        int captured = 0;
+        if (payload != null) {
+            captured = Math.min(payloadSize, payload.remaining());
+            int position = payload.position();
+            int payloadOffset = offset + PAYLOAD_OFFSET;
+            for (int i = 0; i < captured; i++) {
+                buffer.put(payloadOffset + i, payload.get(position + i));
+            }
+        }
+        buffer.putShort(offset + CAPTURED_OFFSET, (short) captured);
+
+        this.sequence = ++sequence;
+        buffer.putLong(SEQUENCE_OFFSET, sequence);
+    }
+
+    /**
+     * @return the number of records written, including those since overwritten
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Writes the recorded content back to the file.
+     */
+    public void force() {
+        buffer.force();
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.trace;
+
+import java.nio.ByteBuffer;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.filterchain.IoFilterAdapter;
+import org.apache.mina.core.filterchain.IoFilterChain;
+import org.apache.mina.core.session.IdleStatus;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.write.WriteRequest;
+import org.kaazing.gateway.transport.BridgeSession;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.session.IoSessionEx;
+
+/**
+ * Records the transport events of a session into the {@link TraceRing} of its I/O thread.
+ * <p>
+ * Unlike the LoggingFilter nothing is formatted on the I/O thread, so tracing can stay on under load. One instance is
+ * shared by the sessions it traces, and stops recording (without being removed from their chains) once disabled.
+ */
+public class TracingFilter extends IoFilterAdapter {
+
+    public static final String FILTER_NAME = "trace";
+
+    private final TraceRecorder recorder;
+
+    private volatile boolean enabled;
+
+    public TracingFilter(TraceRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Adds this filter first in the chain of the session and of each of its parents, to trace the bytes of every layer.
+     */
+    public void addTo(IoSession session) {
+        IoSession layer = session;
+        while (layer != null) {
+            IoFilterChain filterChain = layer.getFilterChain();
+            if (!filterChain.contains(FILTER_NAME)) {
+                filterChain.addFirst(FILTER_NAME, this);
+            }
+            layer = (layer instanceof BridgeSession) ? ((BridgeSession) layer).getParent() : null;
+        }
+    }
+
+    @Override
+    public void sessionCreated(NextFilter nextFilter, IoSession session) throws Exception {
+        record(session, TraceEvent.CREATED, null);
+        super.sessionCreated(nextFilter, session);
+    }
+
+    @Override
+    public void sessionOpened(NextFilter nextFilter, IoSession session) throws Exception {
+        record(session, TraceEvent.OPENED, null);
+        super.sessionOpened(nextFilter, session);
+    }
+
+    @Override
+    public void sessionClosed(NextFilter nextFilter, IoSession session) throws Exception {
+        record(session, TraceEvent.CLOSED, null);
+        super.sessionClosed(nextFilter, session);
+    }
+
+    @Override
+    public void sessionIdle(NextFilter nextFilter, IoSession session, IdleStatus status) throws Exception {
+        record(session, TraceEvent.IDLE, null);
+        super.sessionIdle(nextFilter, session, status);
+    }
+
+    @Override
+    public void exceptionCaught(NextFilter nextFilter, IoSession session, Throwable cause) throws Exception {
+        record(session, TraceEvent.EXCEPTION, null);
+        super.exceptionCaught(nextFilter, session, cause);
+    }
+
+    @Override
+    public void messageReceived(NextFilter nextFilter, IoSession session, Object message) throws Exception {
+        record(session, TraceEvent.RECEIVED, message);
+        super.messageReceived(nextFilter, session, message);
+    }
+
+    @Override
+    public void messageSent(NextFilter nextFilter, IoSession session, WriteRequest writeRequest) throws Exception {
+        record(session, TraceEvent.SENT, writeRequest.getMessage());
+        super.messageSent(nextFilter, session, writeRequest);
+    }
+
+    @Override
+    public void filterWrite(NextFilter nextFilter, IoSession session, WriteRequest writeRequest) throws Exception {
+        record(session, TraceEvent.WRITE, writeRequest.getMessage());
+        super.filterWrite(nextFilter, session, writeRequest);
+    }
+
+    private void record(IoSession session, TraceEvent event, Object message) {
+        if (!enabled) {
+            return;
+        }
+
+        TraceRing ring = recorder.ring();
+        if (ring == null) {
+            return;
+        }
+
+        ByteBuffer payload = null;
+        int byteCount = -1;
+        if (message instanceof IoBufferEx) {
+            payload = ((IoBufferEx) message).buf();
+            byteCount = payload.remaining();
+        }
+        else if (message instanceof IoBuffer) {
+            payload = ((IoBuffer) message).buf();
+            byteCount = payload.remaining();
+        }
+
+        int layer = (session instanceof IoSessionEx) ? ((IoSessionEx) session).getIoLayer() : 0;
+        ring.record(session.getId(), layer, event, byteCount, payload);
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+import org.junit.Test;
+import org.kaazing.gateway.transport.AdmissionController.TokenBucket;
+import org.kaazing.mina.core.filterchain.IoEventBatchingExecutor;
+import org.kaazing.mina.core.session.DummySessionEx;
+
+public class AdmissionControllerTest {
+
+    private static final Runnable NOOP = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    @Test
+    public void shouldAdmitEverythingByDefault() {
+        AdmissionController controller = new AdmissionController(new Properties());
+        DummySessionEx session = new DummySessionEx();
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(controller.admitConnection("tcp://localhost:8000"));
+        }
+        assertTrue(controller.beginHandshake(session, "tcp://localhost:8000"));
+        assertFalse(controller.shed(session));
+        assertEquals(0, controller.getRejectedConnectionCount());
+    }
+
+    @Test
+    public void tokenBucketShouldAllowBurstThenRefillAtRate() {
+        TokenBucket bucket = new TokenBucket(10, 3);
+        long now = 0;
+
+        assertTrue(bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now));
+        assertFalse(bucket.tryAcquire(now));
+
+        // one token every 100ms
+        now += MILLISECONDS.toNanos(99);
+        assertFalse(bucket.tryAcquire(now));
+        now += MILLISECONDS.toNanos(1);
+        assertTrue(bucket.tryAcquire(now));
+        assertFalse(bucket.tryAcquire(now));
+
+        // refill stops at the burst size
+        now += MILLISECONDS.toNanos(10000);
+        assertTrue(bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now));
+        assertFalse(bucket.tryAcquire(now));
+    }
+
+    @Test
+    public void shouldLimitAcceptRatePerBindAddress() {
+        AdmissionController controller = new AdmissionController(1, 2, 0, 0);
+
+        assertTrue(controller.admitConnection("tcp://localhost:8000"));
+        assertTrue(controller.admitConnection("tcp://localhost:8000"));
+        assertFalse(controller.admitConnection("tcp://localhost:8000"));
+        assertTrue(controller.admitConnection("tcp://localhost:8001"));
+        assertEquals(1, controller.getRejectedConnectionCount());
+    }
+
+    @Test
+    public void shouldLimitHandshakesInProgress() {
+        AdmissionController controller = new AdmissionController(0, 0, 2, 0);
+        DummySessionEx session1 = new DummySessionEx();
+        DummySessionEx session2 = new DummySessionEx();
+        DummySessionEx session3 = new DummySessionEx();
+        String bindAddress = "ws://localhost:8000/echo";
+
+        assertTrue(controller.beginHandshake(session1, bindAddress));
+        // counted once per session
+        assertTrue(controller.beginHandshake(session1, bindAddress));
+        assertTrue(controller.beginHandshake(session2, bindAddress));
+        assertFalse(controller.beginHandshake(session3, bindAddress));
+        assertEquals(2, controller.getHandshakesInProgress(bindAddress));
+        assertEquals(1, controller.getRejectedHandshakeCount());
+
+        controller.endHandshake(session1);
+        controller.endHandshake(session1);
+        assertEquals(1, controller.getHandshakesInProgress(bindAddress));
+        assertTrue(controller.beginHandshake(session3, bindAddress));
+
+        // ending a rejected handshake has no effect
+        DummySessionEx session4 = new DummySessionEx();
+        assertFalse(controller.beginHandshake(session4, bindAddress));
+        controller.endHandshake(session4);
+        assertEquals(2, controller.getHandshakesInProgress(bindAddress));
+    }
+
+    @Test
+    public void shouldShedWhenWorkerQueueIsDeep() {
+        final List<Runnable> pending = new ArrayList<>();
+        IoEventBatchingExecutor ioExecutor = new IoEventBatchingExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                // never runs, so queued events stay queued
+                pending.add(command);
+            }
+        });
+        DummySessionEx session = new DummySessionEx(Thread.currentThread(), ioExecutor);
+        AdmissionController controller = new AdmissionController(0, 0, 0, 2);
+
+        ioExecutor.execute(NOOP);
+        ioExecutor.execute(NOOP);
+        assertFalse(controller.shed(session));
+
+        ioExecutor.execute(NOOP);
+        assertTrue(controller.shed(session));
+        assertEquals(1, controller.getShedCount());
+    }
+}
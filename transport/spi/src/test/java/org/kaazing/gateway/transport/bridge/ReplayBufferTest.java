@@ -0,0 +1,76 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.bridge;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ReplayBufferTest {
+
+    @Test
+    public void shouldReplayMessagesFromKey() {
+        ReplayBuffer<Message> buffer = new ReplayBuffer<>(100, new ReplayBudget(1000));
+        Message first = new Message();
+        Message second = new Message();
+        Message third = new Message();
+        buffer.add(1, first, 10);
+        buffer.add(2, second, 10);
+        buffer.add(2, third, 10);
+
+        assertEquals(asList(second, third), buffer.from(2));
+        assertTrue(buffer.from(3).isEmpty());
+    }
+
+    @Test
+    public void shouldNotReplayEvictedMessages() {
+        ReplayBudget budget = new ReplayBudget(1000);
+        ReplayBuffer<Message> buffer = new ReplayBuffer<>(25, budget);
+        Message second = new Message();
+        Message third = new Message();
+        buffer.add(1, new Message(), 10);
+        buffer.add(2, second, 10);
+        buffer.add(3, third, 10);
+
+        assertNull(buffer.from(1));
+        assertEquals(asList(second, third), buffer.from(2));
+        assertEquals(20, buffer.getBufferedBytes());
+        assertEquals(20, budget.getReservedBytes());
+    }
+
+    @Test
+    public void shouldLimitBuffersBySharedBudget() {
+        ReplayBudget gateway = new ReplayBudget(30);
+        ReplayBudget service = new ReplayBudget(gateway, 20);
+        ReplayBuffer<Message> first = new ReplayBuffer<>(100, service);
+        ReplayBuffer<Message> second = new ReplayBuffer<>(100, service);
+
+        assertTrue(first.add(1, new Message(), 20));
+        assertEquals(false, second.add(1, new Message(), 10));
+        assertNull(second.from(1));
+
+        first.discardBefore(2);
+        assertEquals(0, gateway.getReservedBytes());
+        assertTrue(second.add(2, new Message(), 10));
+        assertEquals(10, gateway.getReservedBytes());
+
+        second.clear();
+        assertEquals(0, service.getReservedBytes());
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.trace;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator;
+import org.kaazing.mina.core.session.DummySessionEx;
+
+public class TraceRingTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldDecodeRecordsOldestFirst() throws Exception {
+        File file = folder.newFile("ring" + TraceRecorder.FILE_SUFFIX);
+        TraceRing ring = TraceRing.create(file, 4, 8);
+
+        ByteBuffer payload = ByteBuffer.wrap("GET / HTTP/1.1".getBytes(UTF_8));
+        ring.record(1L, 0, TraceEvent.CREATED, -1, null);
+        ring.record(1L, 0, TraceEvent.OPENED, -1, null);
+        ring.record(1L, 0, TraceEvent.RECEIVED, payload.remaining(), payload);
+        ring.record(2L, 1, TraceEvent.CREATED, -1, null);
+        ring.record(2L, 1, TraceEvent.WRITE, 0, ByteBuffer.allocate(0));
+        ring.force();
+
+        // payload is left unchanged
+        assertEquals(0, payload.position());
+        assertEquals(5L, ring.getSequence());
+
+        String[] lines = decode(file);
+        // oldest record overwritten
+        assertEquals(4, lines.length);
+        assertTrue(lines[0], lines[0].contains(" session=1 layer=0 OPENED"));
+        assertTrue(lines[1], lines[1].endsWith(" session=1 layer=0 RECEIVED bytes=14 474554202f204854 |GET / HT|"));
+        assertTrue(lines[2], lines[2].endsWith(" session=2 layer=1 CREATED"));
+        assertTrue(lines[3], lines[3].endsWith(" session=2 layer=1 WRITE bytes=0"));
+    }
+
+    @Test
+    public void shouldRecordOnlyWhenEnabled() throws Exception {
+        TraceRecorder recorder = new TraceRecorder(folder.getRoot(), 16, 4);
+        TracingFilter filter = new TracingFilter(recorder);
+        DummySessionEx session = new DummySessionEx();
+        filter.addTo(session);
+        filter.addTo(session);
+        assertNotNull(session.getFilterChain().get(TracingFilter.FILTER_NAME));
+
+        session.getFilterChain().fireMessageReceived(SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(ByteBuffer.wrap(new byte[3])));
+        assertNull(findRingFile());
+
+        filter.setEnabled(true);
+        session.getFilterChain().fireMessageReceived(SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(ByteBuffer.wrap(new byte[3])));
+        session.getFilterChain().fireSessionClosed();
+        recorder.force();
+
+        String[] lines = decode(findRingFile());
+        assertEquals(2, lines.length);
+        String prefix = " session=" + session.getId() + " layer=0 ";
+        assertTrue(lines[0], lines[0].endsWith(prefix + "RECEIVED bytes=3 000000 |...|"));
+        assertTrue(lines[1], lines[1].endsWith(prefix + "CLOSED"));
+    }
+
+    private File findRingFile() {
+        File[] files = folder.getRoot().listFiles((dir, name) -> name.endsWith(TraceRecorder.FILE_SUFFIX));
+        return (files != null && files.length == 1) ? files[0] : null;
+    }
+
+    private static String[] decode(File file) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TraceDecoder.decode(file, new PrintStream(out, true, "UTF-8"));
+        return new String(out.toByteArray(), UTF_8).split(System.lineSeparator());
+    }
+}
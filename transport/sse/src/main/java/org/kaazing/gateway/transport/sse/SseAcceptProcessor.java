@@ -24,6 +24,7 @@ import org.apache.mina.core.session.IoSession;
 import org.apache.mina.core.write.WriteRequest;
 import org.apache.mina.core.write.WriteRequestQueue;
 import org.kaazing.gateway.transport.BridgeAcceptProcessor;
+import org.kaazing.gateway.transport.bridge.ReplayBuffer;
 import org.kaazing.gateway.transport.http.HttpAcceptSession;
 import org.kaazing.gateway.transport.sse.bridge.SseMessage;
 import org.kaazing.gateway.transport.sse.bridge.filter.SseBuffer;
@@ -158,7 +159,19 @@ public class SseAcceptProcessor extends BridgeAcceptProcessor<SseSession> {
                     // resulting in a WriteToClosedSessionException and losing data
 
                     // convert from session+buffer to message
-                    if (buf instanceof SseBuffer) {
+                    ReplayBuffer<SseMessage> replayBuffer = session.getReplayBuffer();
+                    if (replayBuffer != null) {
+                        // replayable events carry the session-specific event id,
+                        // so the message cannot be shared with other sessions
+                        long eventId = session.nextEventId();
+                        SseMessage sseMessage = new SseMessage();
+                        sseMessage.setData(buf);
+                        sseMessage.setId(Long.toString(eventId));
+                        replayBuffer.add(eventId, sseMessage, remaining);
+                        // flush the buffer out to the session
+                        lastWrite = flushNowInternal(parent, sseMessage, buf, filterChain, request);
+                    }
+                    else if (buf instanceof SseBuffer) {
                         // reuse previously constructed message if available
                         SseBuffer sseBuffer = (SseBuffer)buf;
                         SseMessage sseMessage = sseBuffer.getMessage();
@@ -22,6 +22,8 @@ import static org.kaazing.gateway.resource.address.ResourceAddress.TRANSPORT;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.List;
+import java.util.Properties;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -60,6 +62,9 @@ import org.kaazing.gateway.transport.DefaultTransportMetadata;
 import org.kaazing.gateway.transport.IoHandlerAdapter;
 import org.kaazing.gateway.transport.NioBindException;
 import org.kaazing.gateway.transport.TypedAttributeKey;
+import org.kaazing.gateway.transport.bridge.ReplayBudget;
+import org.kaazing.gateway.transport.bridge.ReplayBuffer;
+import org.kaazing.gateway.transport.bridge.ReplayBufferFactory;
 import org.kaazing.gateway.transport.http.HttpAcceptSession;
 import org.kaazing.gateway.transport.http.HttpProtocol;
 import org.kaazing.gateway.transport.http.HttpSession;
@@ -90,6 +95,8 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
 
     private static final String CODEC_FILTER = SseProtocol.NAME + "#codec";
 
+    private static final String HEADER_LAST_EVENT_ID = "Last-Event-ID";
+
     // TODO: make these settings available via configuration, with a reasonable default
     private static final long TIME_TO_FIRST_WRITE_MILLIS = SECONDS.toMillis(5);
     private static final long TIME_TO_PULSE_MILLIS = SECONDS.toMillis(30L);
@@ -102,6 +109,10 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
     private BridgeServiceFactory bridgeServiceFactory;
     private ResourceAddressFactory resourceAddressFactory;
 
+    private Properties configuration;
+    private ReplayBudget replayBudget;
+    private ReplayBufferFactory replayBufferFactory;
+
     @Resource(name = "bridgeServiceFactory")
     public void setBridgeServiceFactory(BridgeServiceFactory bridgeServiceFactory) {
         this.bridgeServiceFactory = bridgeServiceFactory;
@@ -112,6 +123,20 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
         this.resourceAddressFactory = factory;
     }
 
+    @Resource(name = "configuration")
+    public void setConfiguration(Properties configuration) {
+        this.configuration = configuration;
+        this.replayBufferFactory = ReplayBufferFactory.newReplayBufferFactory(configuration, replayBudget);
+    }
+
+    @Resource(name = "replayBudget")
+    public void setReplayBudget(ReplayBudget replayBudget) {
+        this.replayBudget = replayBudget;
+        if (configuration != null) {
+            this.replayBufferFactory = ReplayBufferFactory.newReplayBufferFactory(configuration, replayBudget);
+        }
+    }
+
     public SseAcceptor() {
         super(new DefaultSseSessionConfig());
     }
@@ -220,6 +245,13 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
         return false;
 
     }
+
+    private boolean isReconnect(HttpAcceptSession session) {
+        // note: path info is empty on the session-specific binding, so check the full request path
+        String path = session.getRequestURI().getPath();
+        return path != null && path.lastIndexOf(";s/") != -1;
+    }
+
     private IoHandler bridgeHandler = new IoHandlerAdapter<HttpAcceptSession>() {
 
         private final TypedAttributeKey<SseSession> SSE_SESSION_KEY = new TypedAttributeKey<>(SseAcceptor.class, "sseSession");
@@ -266,7 +298,8 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
         @Override
         protected void doSessionClosed(HttpAcceptSession session) throws Exception {
             SseSession sseSession = SSE_SESSION_KEY.remove(session);
-            if (sseSession != null && !sseSession.isClosing()) {
+            // a replayable session outlives its first connection until the reconnect timeout expires
+            if (sseSession != null && !sseSession.isClosing() && sseSession.getReplayBuffer() == null) {
                 sseSession.reset(new IOException("Early termination of IO session").fillInStackTrace());
             }
 
@@ -336,6 +369,11 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
                 }
             });
 
+            // buffer written events for replay on reconnect
+            if (replayBufferFactory != null) {
+                sseSession.setReplayBuffer(replayBufferFactory.<SseMessage>newReplayBuffer(sseBindURI));
+            }
+
             // bind the reconnect handler now that session is opened
             SseReconnectHandler reconnectHandler = new SseReconnectHandler(sseSession);
             BridgeAcceptor httpAcceptor = bridgeServiceFactory.newBridgeAcceptor(newHttpBindAddress);
@@ -349,6 +387,11 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
                     ResourceAddress newHttpBindAddress = sseRemoteAddress.getTransport();
                     BridgeAcceptor httpAcceptor = bridgeServiceFactory.newBridgeAcceptor(newHttpBindAddress);
                     httpAcceptor.unbind(newHttpBindAddress);
+
+                    ReplayBuffer<SseMessage> replayBuffer = sseSession.getReplayBuffer();
+                    if (replayBuffer != null) {
+                        replayBuffer.clear();
+                    }
                 }
             });
 
@@ -365,6 +408,22 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
             this.sseSession = sseSession;
         }
 
+        @Override
+        protected void doSessionCreated(HttpAcceptSession httpSession) throws Exception {
+            // replayed events are written to reconnect requests, which arrive on the session-specific
+            // binding, bypassing the "create" bridge handler
+            if (sseSession.getReplayBuffer() != null) {
+                addBridgeFilters(httpSession.getFilterChain());
+            }
+        }
+
+        @Override
+        protected void doSessionClosed(HttpAcceptSession httpSession) throws Exception {
+            if (sseSession.getReplayBuffer() != null) {
+                removeBridgeFilters(httpSession.getFilterChain());
+            }
+        }
+
         @Override
         protected void doSessionIdle(HttpAcceptSession httpSession, IdleStatus status) throws Exception {
             // keep-alive
@@ -502,8 +561,11 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
                 }
             });
 
+            // only sessions with replay tell reconnects apart, to serve the events the client missed
+            boolean replayOnReconnect = sseSession.getReplayBuffer() != null && isReconnect(httpSession);
+
             // detect "create" scenario, send session-specific location to client
-            if (!hasSessionId(httpSession)) {
+            if (!hasSessionId(httpSession) && !replayOnReconnect) {
                 // write out the location before any other events
                 ResourceAddress sseRemoteAddress = sseSession.getRemoteAddress();
                 ResourceAddress httpRemoteAddress = sseRemoteAddress.getTransport();
@@ -515,6 +577,12 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
                 httpSession.write(sseMessage);
             }
 
+            // serve the events written since the last one the client received
+            // before any pending events are flushed on attach
+            if (replayOnReconnect) {
+                replayEvents(httpSession);
+            }
+
             // attach now or attach after commit if header flush is required
             if (!useHttpStreaming) {
                 // currently this is required for Silverlight as it seems to want some data to be
@@ -553,6 +621,47 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
             // attach http session to sse session
             sseSession.attach(httpSession);
         }
+
+        private void replayEvents(HttpAcceptSession httpSession) {
+            ReplayBuffer<SseMessage> replayBuffer = sseSession.getReplayBuffer();
+            String lastEventIdHeader = httpSession.getReadHeader(HEADER_LAST_EVENT_ID);
+            if (replayBuffer == null || lastEventIdHeader == null) {
+                return;
+            }
+
+            long lastEventId;
+            try {
+                lastEventId = Long.parseLong(lastEventIdHeader.trim());
+            }
+            catch (NumberFormatException e) {
+                return;
+            }
+
+            // ignore an id this session never assigned, rather than discarding events the client has not received
+            if (lastEventId < 0L || lastEventId > sseSession.getLastEventId()) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug(format("Unable to replay SSE events after unknown id %d for %s", lastEventId, sseSession));
+                }
+                return;
+            }
+
+            // events up to the last event id have been received and can be released
+            List<SseMessage> missedEvents = replayBuffer.from(lastEventId + 1);
+            replayBuffer.discardBefore(lastEventId + 1);
+
+            if (missedEvents == null) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug(format("Unable to replay SSE events after id %d for %s, no longer buffered",
+                            lastEventId, sseSession));
+                }
+                return;
+            }
+
+            // each missed event carries its own id
+            for (SseMessage missedEvent : missedEvents) {
+                httpSession.write(missedEvent);
+            }
+        }
     }
 
     private URI locateSecureAcceptURI(HttpAcceptSession session) throws Exception {
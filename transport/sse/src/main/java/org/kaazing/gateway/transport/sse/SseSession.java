@@ -26,6 +26,8 @@ import org.kaazing.gateway.transport.Direction;
 import org.kaazing.gateway.transport.bridge.CachingMessageEncoder;
 import org.kaazing.gateway.transport.bridge.Message;
 import org.kaazing.gateway.transport.bridge.MessageEncoder;
+import org.kaazing.gateway.transport.bridge.ReplayBuffer;
+import org.kaazing.gateway.transport.sse.bridge.SseMessage;
 import org.kaazing.gateway.transport.sse.bridge.filter.SseBuffer;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.core.buffer.IoBufferEx;
@@ -49,6 +51,9 @@ public class SseSession extends AbstractBridgeSession<SseSession, SseBuffer> {
     // for a customer.
     private final IoSessionEx parentSession;
 
+    private ReplayBuffer<SseMessage> replayBuffer;
+    private volatile long lastEventId;
+
     public SseSession(IoServiceEx service, IoProcessorEx<SseSession> processor, ResourceAddress localAddress, ResourceAddress remoteAddress, IoSessionEx parent,
                       IoBufferAllocatorEx<SseBuffer> allocator) {
     	super(service, processor, localAddress, remoteAddress, parent, allocator, Direction.WRITE, new DefaultSseSessionConfig());
@@ -106,6 +111,22 @@ public class SseSession extends AbstractBridgeSession<SseSession, SseBuffer> {
 	    }
 	}
 	
+	public ReplayBuffer<SseMessage> getReplayBuffer() {
+	    return replayBuffer;
+	}
+
+	void setReplayBuffer(ReplayBuffer<SseMessage> replayBuffer) {
+	    this.replayBuffer = replayBuffer;
+	}
+
+	long nextEventId() {
+	    return ++lastEventId;
+	}
+
+	long getLastEventId() {
+	    return lastEventId;
+	}
+
 	public boolean detach(IoSessionEx oldParent) {
 		return compareAndSetParent(oldParent, null);
 	}
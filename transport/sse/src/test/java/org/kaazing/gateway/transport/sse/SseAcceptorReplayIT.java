@@ -0,0 +1,270 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.sse;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.resource.address.ResourceAddressFactory.newResourceAddressFactory;
+import static org.kaazing.gateway.util.InternalSystemProperty.REPLAY_BUFFER_SIZE;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.gateway.resource.address.ResourceAddress;
+import org.kaazing.gateway.resource.address.ResourceAddressFactory;
+import org.kaazing.gateway.transport.BridgeServiceFactory;
+import org.kaazing.gateway.transport.IoHandlerAdapter;
+import org.kaazing.gateway.transport.TransportFactory;
+import org.kaazing.gateway.transport.http.HttpAcceptor;
+import org.kaazing.gateway.transport.nio.internal.NioSocketAcceptor;
+import org.kaazing.gateway.util.scheduler.SchedulerProvider;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.session.IoSessionEx;
+
+/**
+ * Reconnects to an SSE session over a plain socket with a Last-Event-ID header, checking the events replayed
+ * from the replay buffer against those written on the original connection.
+ */
+public class SseAcceptorReplayIT {
+
+    private final BlockingQueue<SseSession> sessions = new LinkedBlockingQueue<>();
+
+    private SchedulerProvider schedulerProvider;
+    private ResourceAddressFactory addressFactory;
+    private SseAcceptor sseAcceptor;
+    private HttpAcceptor httpAcceptor;
+    private NioSocketAcceptor tcpAcceptor;
+
+    @Before
+    public void setupAcceptor() {
+        addressFactory = newResourceAddressFactory();
+        TransportFactory transportFactory = TransportFactory.newTransportFactory(Collections.emptyMap());
+        BridgeServiceFactory serviceFactory = new BridgeServiceFactory(transportFactory);
+        schedulerProvider = new SchedulerProvider();
+
+        sseAcceptor = (SseAcceptor) transportFactory.getTransport("sse").getAcceptor();
+        sseAcceptor.setBridgeServiceFactory(serviceFactory);
+        sseAcceptor.setResourceAddressFactory(addressFactory);
+        sseAcceptor.setSchedulerProvider(schedulerProvider);
+
+        httpAcceptor = (HttpAcceptor) transportFactory.getTransport("http").getAcceptor();
+        httpAcceptor.setBridgeServiceFactory(serviceFactory);
+        httpAcceptor.setResourceAddressFactory(addressFactory);
+        httpAcceptor.setSchedulerProvider(schedulerProvider);
+
+        tcpAcceptor = (NioSocketAcceptor) transportFactory.getTransport("tcp").getAcceptor();
+        tcpAcceptor.setSchedulerProvider(schedulerProvider);
+        tcpAcceptor.setResourceAddressFactory(addressFactory);
+        tcpAcceptor.setBridgeServiceFactory(serviceFactory);
+    }
+
+    @After
+    public void disposeAcceptor() {
+        sseAcceptor.dispose();
+        httpAcceptor.dispose();
+        tcpAcceptor.dispose();
+        schedulerProvider.shutdownNow();
+    }
+
+    @Test(timeout = 10000)
+    public void shouldReplayEventsAfterLastEventId() throws Exception {
+        bind("64k");
+
+        String location;
+        SseSession session;
+        byte[] originalEvent;
+        IoBufferEx second;
+        try (Socket socket = connect("/path", null)) {
+            InputStream in = socket.getInputStream();
+            readResponse(in);
+            location = readLocation(in);
+            session = sessions.poll(5, TimeUnit.SECONDS);
+
+            write(session, "one");
+            second = write(session, "two");
+            assertEquals("data:one\nid:1\n\n", readEvent(in));
+            originalEvent = readEvent(in).getBytes(UTF_8);
+            assertEquals("data:two\nid:2\n\n", new String(originalEvent, UTF_8));
+        }
+        awaitDetached(session);
+
+        // the client lost the second event in flight
+        try (Socket socket = connect(location, "1")) {
+            InputStream in = socket.getInputStream();
+            readResponse(in);
+            assertEquals(new String(originalEvent, UTF_8), readEvent(in));
+
+            write(session, "three");
+            assertEquals("data:three\nid:3\n\n", readEvent(in));
+        }
+
+        // the written buffer was neither consumed by the original write nor by the replay
+        assertEquals(3, second.remaining());
+        assertEquals("two", second.getString(UTF_8.newDecoder()));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldIgnoreUnknownLastEventId() throws Exception {
+        bind("64k");
+
+        String location;
+        SseSession session;
+        try (Socket socket = connect("/path", null)) {
+            InputStream in = socket.getInputStream();
+            readResponse(in);
+            location = readLocation(in);
+            session = sessions.poll(5, TimeUnit.SECONDS);
+
+            write(session, "one");
+            assertEquals("data:one\nid:1\n\n", readEvent(in));
+        }
+        awaitDetached(session);
+
+        // neither an id this session never assigned nor a malformed id replays or discards anything
+        int eventId = 1;
+        for (String lastEventId : new String[] { "99", "-1", "one" }) {
+            try (Socket socket = connect(location, lastEventId)) {
+                InputStream in = socket.getInputStream();
+                write(session, "next");
+                readResponse(in);
+                assertEquals("data:next\nid:" + ++eventId + "\n\n", readEvent(in));
+            }
+            awaitDetached(session);
+        }
+
+        try (Socket socket = connect(location, "0")) {
+            InputStream in = socket.getInputStream();
+            readResponse(in);
+            assertEquals("data:one\nid:1\n\n", readEvent(in));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldResumeWithoutReplayWhenEventsExpired() throws Exception {
+        // room for a single event only
+        bind("4");
+
+        String location;
+        SseSession session;
+        try (Socket socket = connect("/path", null)) {
+            InputStream in = socket.getInputStream();
+            readResponse(in);
+            location = readLocation(in);
+            session = sessions.poll(5, TimeUnit.SECONDS);
+
+            write(session, "one");
+            write(session, "two");
+            assertEquals("data:one\nid:1\n\n", readEvent(in));
+            assertEquals("data:two\nid:2\n\n", readEvent(in));
+        }
+        awaitDetached(session);
+
+        // the first event has been evicted, so nothing is replayed and the stream continues
+        try (Socket socket = connect(location, "0")) {
+            InputStream in = socket.getInputStream();
+            write(session, "three");
+            readResponse(in);
+            assertEquals("data:three\nid:3\n\n", readEvent(in));
+        }
+    }
+
+    private void bind(String replayBufferSize) {
+        Properties configuration = new Properties();
+        configuration.setProperty(REPLAY_BUFFER_SIZE.getPropertyName(), replayBufferSize);
+        sseAcceptor.setConfiguration(configuration);
+
+        ResourceAddress address = addressFactory.newResourceAddress("sse://localhost:8000/path");
+        sseAcceptor.bind(address, new IoHandlerAdapter<IoSessionEx>() {
+            @Override
+            protected void doSessionOpened(IoSessionEx session) throws Exception {
+                sessions.add((SseSession) session);
+            }
+        }, null);
+    }
+
+    // events written while detached wait for the reconnect, rather than being lost to the closed connection
+    private static void awaitDetached(SseSession session) throws InterruptedException {
+        while (session.getParent() != null) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static IoBufferEx write(IoSessionEx session, String data) {
+        IoBufferEx buf = session.getBufferAllocator().wrap(ByteBuffer.wrap(data.getBytes(UTF_8)));
+        session.write(buf);
+        return buf;
+    }
+
+    private static Socket connect(String location, String lastEventId) throws IOException {
+        Socket socket = new Socket("localhost", 8000);
+        socket.setSoTimeout(5000);
+        StringBuilder request = new StringBuilder();
+        request.append("GET ").append(URI.create(location).getRawPath()).append(" HTTP/1.1\r\n");
+        request.append("Host: localhost:8000\r\n");
+        if (lastEventId != null) {
+            request.append("Last-Event-ID: ").append(lastEventId).append("\r\n");
+        }
+        request.append("\r\n");
+        socket.getOutputStream().write(request.toString().getBytes(US_ASCII));
+        return socket;
+    }
+
+    // the response is committed by the first event written to it
+    private static void readResponse(InputStream in) throws IOException {
+        String response = readUntil(in, "\r\n\r\n");
+        assertTrue(response, response.startsWith("HTTP/1.1 200 OK\r\n"));
+        assertTrue(response, response.contains("Content-Type: text/event-stream\r\n"));
+    }
+
+    private static String readLocation(InputStream in) throws IOException {
+        String event = readEvent(in);
+        assertTrue(event, event.startsWith("location:"));
+        return event.substring("location:".length(), event.length() - 2);
+    }
+
+    private static String readEvent(InputStream in) throws IOException {
+        return readUntil(in, "\n\n");
+    }
+
+    private static String readUntil(InputStream in, String terminator) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] end = terminator.getBytes(US_ASCII);
+        int matched = 0;
+        while (matched < end.length) {
+            int b = in.read();
+            if (b == -1) {
+                throw new IOException("Unexpected end of stream after " + bytes.toString("UTF-8"));
+            }
+            bytes.write(b);
+            matched = (b == end[matched]) ? matched + 1 : (b == end[0] ? 1 : 0);
+        }
+        return bytes.toString("UTF-8");
+    }
+}
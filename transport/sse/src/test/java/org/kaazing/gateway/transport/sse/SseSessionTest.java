@@ -16,9 +16,12 @@
 package org.kaazing.gateway.transport.sse;
 
 import static java.lang.Thread.currentThread;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.mina.core.buffer.SimpleBufferAllocator.BUFFER_ALLOCATOR;
 import static org.kaazing.mina.core.session.IoSessionEx.IMMEDIATE_EXECUTOR;
 
 import java.net.URISyntaxException;
+import java.util.concurrent.Callable;
 
 import org.apache.mina.core.service.IoHandler;
 import org.jmock.Expectations;
@@ -29,11 +32,13 @@ import org.kaazing.gateway.resource.address.ResourceAddress;
 import org.kaazing.gateway.resource.address.ResourceAddressFactory;
 import org.kaazing.gateway.transport.DefaultTransportMetadata;
 import org.kaazing.gateway.transport.sse.bridge.filter.SseBuffer;
+import org.kaazing.gateway.transport.sse.bridge.filter.SseBufferAllocator;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.core.service.IoProcessorEx;
 import org.kaazing.mina.core.service.IoServiceEx;
 import org.kaazing.mina.core.session.IoSessionEx;
 import org.kaazing.mina.core.write.DefaultWriteRequestEx.ShareableWriteRequest;
+import org.kaazing.test.util.ObjectFootprint;
 
 public class SseSessionTest {
 
@@ -74,4 +79,48 @@ public class SseSessionTest {
 		
 		context.assertIsSatisfied();
 	}
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldReportSseSessionFootprint() throws Exception {
+        final Mockery context = new Mockery() {
+            {
+                setImposteriser(ClassImposteriser.INSTANCE);
+            }
+        };
+
+        final IoServiceEx service = context.mock(IoServiceEx.class);
+        final IoProcessorEx<SseSession> processor = context.mock(IoProcessorEx.class);
+        final IoSessionEx parent = context.mock(IoSessionEx.class);
+        final IoHandler handler = context.mock(IoHandler.class);
+
+        context.checking(new Expectations() {
+            {
+                allowing(service).getTransportMetadata(); will(returnValue(new DefaultTransportMetadata(SseProtocol.NAME)));
+                allowing(service).getHandler(); will(returnValue(handler));
+                allowing(service).getSessionConfig(); will(returnValue(new DefaultSseSessionConfig()));
+                allowing(service).getThreadLocalWriteRequest(with(any(int.class))); will(returnValue(new ShareableWriteRequest()));
+                allowing(parent).getIoLayer(); will(returnValue(0));
+                allowing(parent).getIoThread(); will(returnValue(currentThread()));
+                allowing(parent).getIoExecutor(); will(returnValue(IMMEDIATE_EXECUTOR));
+            }
+        });
+
+        ResourceAddressFactory addressFactory = ResourceAddressFactory.newResourceAddressFactory();
+        final ResourceAddress localAddress = addressFactory.newResourceAddress("sse://localhost:8000/sse");
+        final ResourceAddress remoteAddress = addressFactory.newResourceAddress("sse://localhost:8000/sse");
+
+        // the mockery records each invocation of its mocks, so it is shared with them rather than walked
+        ObjectFootprint footprint = ObjectFootprint.perInstance(new Callable<Object>() {
+            @Override
+            public Object call() {
+                return new SseSession(service, processor, localAddress, remoteAddress, parent,
+                        new SseBufferAllocator(BUFFER_ALLOCATOR));
+            }
+        }, 100, context, service, processor, parent, handler);
+
+        assertTrue("sse session footprint\n" + footprint.toFootprint(), footprint.totalSize() <= SSE_MAXIMUM_BYTES);
+    }
+
+    private static final long SSE_MAXIMUM_BYTES = 560;
 }
@@ -27,6 +27,7 @@ import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.WANT_C
 import static org.kaazing.gateway.transport.BridgeSession.LOCAL_ADDRESS;
 import static org.kaazing.gateway.transport.BridgeSession.NEXT_PROTOCOL_KEY;
 import static org.kaazing.gateway.transport.BridgeSession.REMOTE_ADDRESS;
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP2_ENABLED;
 
 import java.io.IOException;
 import java.net.URI;
@@ -37,6 +38,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Properties;
 import java.util.SortedSet;
 import java.util.concurrent.Callable;
 
@@ -60,6 +62,7 @@ import org.kaazing.gateway.resource.address.ssl.SslResourceAddress;
 import org.kaazing.gateway.security.KeySelector;
 import org.kaazing.gateway.security.SecurityContext;
 import org.kaazing.gateway.transport.AbstractBridgeAcceptor;
+import org.kaazing.gateway.transport.AdmissionController;
 import org.kaazing.gateway.transport.Bindings;
 import org.kaazing.gateway.transport.Bindings.Binding;
 import org.kaazing.gateway.transport.BridgeAcceptor;
@@ -99,12 +102,17 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
 
     private static final String ENCRYPTION_DISABLED_FILTER = SslProtocol.NAME + "#encryption_disabled";
 
+    private static final String PROTOCOL_HTTP_1_1 = "http/1.1";
+    private static final String ALPN_HTTP_2 = "h2";
+
     private SSLContext sslContext;
     private SslContextFactory sslContextFactory;
     private SslCertificateSelectionFilter certificateSelection;
     private ResourceAddressFactory resourceAddressFactory;
     private BridgeServiceFactory bridgeServiceFactory;
     private VirtualHostKeySelector vhostKeySelector;
+    private boolean http2Enabled;
+    private AdmissionController admissionController;
 
     // TODO: SslBindings like HttpBindings
     
@@ -112,6 +120,19 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
         super(new DefaultIoSessionConfigEx());
     }
 
+    @Resource(name = "configuration")
+    public void setConfiguration(Properties configuration) {
+        http2Enabled = HTTP2_ENABLED.getBooleanProperty(configuration);
+        if (admissionController == null) {
+            admissionController = new AdmissionController(configuration);
+        }
+    }
+
+    @Resource(name = "admissionController")
+    public void setAdmissionController(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
     @Resource(name = "bridgeServiceFactory")
     public void setBridgeServiceFactory(BridgeServiceFactory bridgeServiceFactory) {
         this.bridgeServiceFactory = bridgeServiceFactory;
@@ -223,6 +244,15 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
         ResourceAddress sslAddress = SSL_RESOURCE_ADDRESS.get(session);
         boolean encryption = sslAddress.getOption(ENCRYPTION_ENABLED);
 
+        // detect next-protocol
+        NextProtocolBinding sslBinding = bindings.getBinding0(sslAddress);
+        if (sslBinding == null) {
+            // Not currently bound (A concurrent unbind may have removed the binding)
+            session.close(true);
+            return;
+        }
+        SortedSet<String> nextProtocolNames = sslBinding.getNextProtocolNames();
+
         if (encryption) {
             boolean wantClientAuth = sslAddress.getOption(WANT_CLIENT_AUTH);
             boolean needClientAuth = sslAddress.getOption(NEED_CLIENT_AUTH);
@@ -240,6 +270,10 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
             sslFilter.setEnabledCipherSuites(enabledCipherSuites);
             // Enable the configured SSL protocols like TLSv1 etc
             sslFilter.setEnabledProtocols(sslAddress.getOption(PROTOCOLS));
+            // Offer HTTP/2 through ALPN, the HTTP transport detects the connection preface
+            if (http2Enabled && nextProtocolNames.contains(PROTOCOL_HTTP_1_1)) {
+                sslFilter.setApplicationProtocols(new String[] { ALPN_HTTP_2, PROTOCOL_HTTP_1_1 });
+            }
 
             IoSessionEx sessionEx = (IoSessionEx) session;
             IoBufferAllocatorEx<?> allocator = sessionEx.getBufferAllocator();
@@ -249,14 +283,6 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
             filterChain.addAfter(CERTIFICATE_SELECTION_FILTER, CODEC_FILTER, sslFilter);
         }
 
-        // detect next-protocol
-        NextProtocolBinding sslBinding = bindings.getBinding0(sslAddress);
-        if (sslBinding == null) {
-            // Not currently bound (A concurrent unbind may have removed the binding)
-            session.close(true);
-            return;
-        }
-        SortedSet<String> nextProtocolNames = sslBinding.getNextProtocolNames();
         if (nextProtocolNames.isEmpty()) {
             NEXT_PROTOCOL_KEY.set(session, null);
         }
@@ -465,6 +491,10 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
         @Override
         protected void doMessageReceived(final IoSessionEx session, Object message) throws Exception {
             if (message == SslFilter.SESSION_SECURED) {
+                if (admissionController != null) {
+                    admissionController.endHandshake(session);
+                }
+
                 IoFilterChain filterChain = session.getFilterChain();
                 removeFilter(filterChain, certificateSelection);
 
@@ -535,6 +565,10 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
 
         @Override
         protected void doSessionClosed(IoSessionEx session) throws Exception {
+            if (admissionController != null) {
+                admissionController.endHandshake(session);
+            }
+
             SslSession sslSession = SESSION_KEY.remove(session);
             if (sslSession != null) {
                 if (sslSession.isClosing()) {
@@ -557,6 +591,20 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
 
         @Override
         protected void doSessionCreated(final IoSessionEx session) throws Exception {
+            if (sslEncryptionEnabled && admissionController != null) {
+                ResourceAddress localAddress = LOCAL_ADDRESS.get(session);
+                String bindAddress = (localAddress != null) ? localAddress.getExternalURI()
+                        : String.valueOf(session.getLocalAddress());
+                if (!admissionController.beginHandshake(session, bindAddress)) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug(format("Rejecting TLS handshake from %s, too many handshakes in progress on %s",
+                                session.getRemoteAddress(), bindAddress));
+                    }
+                    session.close(true);
+                    return;
+                }
+            }
+
             // note: *always* add bridge filters, even if SSL encryption not enabled
             //       so that we can determine the next-protocol in all scenarios
             session.setAttribute(SslFilter.USE_NOTIFICATION);
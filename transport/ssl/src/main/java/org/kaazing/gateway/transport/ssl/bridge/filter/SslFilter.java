@@ -40,8 +40,10 @@ import org.apache.mina.core.write.WriteRequestWrapper;
 import org.apache.mina.core.write.WriteToClosedSessionException;
 import org.slf4j.Logger;
 
+import org.kaazing.mina.core.future.DefaultWriteFutureEx;
 import org.kaazing.mina.core.session.AbstractIoSessionEx;
 import org.kaazing.mina.core.session.IoSessionEx;
+import org.kaazing.mina.core.write.DefaultWriteRequestEx;
 
 /**
  * An SSL filter that encrypts and decrypts the data exchanged in the session.
@@ -166,6 +168,8 @@ public class SslFilter extends IoFilterAdapter {
 
     private String[] enabledProtocols;
 
+    private String[] applicationProtocols;
+
     /**
      * Creates a new SSL filter using the specified {@link SSLContext}.
      * The handshake will start immediately.
@@ -352,6 +356,27 @@ public class SslFilter extends IoFilterAdapter {
         this.enabledProtocols = protocols;
     }
 
+    /**
+     * Returns the list of application protocols offered through ALPN when
+     * {@link SSLEngine} is initialized, in order of preference.
+     *
+     * @return <tt>null</tt> means 'no ALPN negotiation.'
+     */
+    public String[] getApplicationProtocols() {
+        return applicationProtocols;
+    }
+
+    /**
+     * Sets the list of application protocols offered through ALPN when
+     * {@link SSLEngine} is initialized, in order of preference.  Ignored
+     * when the JRE does not support ALPN.
+     *
+     * @param protocols <tt>null</tt> means 'no ALPN negotiation.'
+     */
+    public void setApplicationProtocols(String[] protocols) {
+        this.applicationProtocols = protocols;
+    }
+
     @Override
     public void onPreAdd(IoFilterChain parent, String name,
             NextFilter nextFilter) throws SSLException {
@@ -467,6 +492,11 @@ public class SslFilter extends IoFilterAdapter {
         if (writeRequest instanceof EncryptedWriteRequest) {
             EncryptedWriteRequest wrappedRequest = (EncryptedWriteRequest) writeRequest;
             nextFilter.messageSent(session, wrappedRequest.getParentRequest());
+        } else if (writeRequest instanceof CoalescedWriteRequest) {
+            CoalescedWriteRequest coalescedRequest = (CoalescedWriteRequest) writeRequest;
+            for (WriteRequest parentRequest : coalescedRequest.getParentRequests()) {
+                nextFilter.messageSent(session, parentRequest);
+            }
         } else if (writeRequest == AbstractIoSessionEx.REGISTERED_EVENT) {
             // Session has been realigned, need to reset NEXT_FILTER so it has the new filter chain for the new IO thread
             session.setAttribute(NEXT_FILTER, nextFilter);
@@ -550,21 +580,17 @@ public class SslFilter extends IoFilterAdapter {
                         writeRequest);
             } else {
                 // Otherwise, encrypt the buffer.
-                IoBuffer buf = (IoBuffer) writeRequest.getMessage();
-
                 if (handler.isWritingEncryptedData()) {
                     // data already encrypted; simply return buffer
                     handler.scheduleFilterWrite(nextFilter, writeRequest);
                 } else if (handler.isHandshakeComplete()) {
-                    // SSL encrypt
-                    int pos = buf.position();
-                    handler.encrypt(buf.buf());
-                    buf.position(pos);
-                    IoBuffer encryptedBuffer = handler.fetchOutNetBuffer();
-                    handler.scheduleFilterWrite(
-                            nextFilter,
-                            new EncryptedWriteRequest(
-                                    writeRequest, encryptedBuffer));
+                    // SSL encrypt, together with the other writes issued while messages are being received
+                    handler.schedulePendingWrite(nextFilter, writeRequest);
+                    if (handler.isReceiving()) {
+                        needsFlush = false;
+                    } else {
+                        handler.encryptPendingWrites();
+                    }
                 } else {
                     if (session.isConnected()) {
                         // Handshake not complete yet.
@@ -708,10 +734,10 @@ public class SslFilter extends IoFilterAdapter {
         }
     }
 
-    private static class EncryptedWriteRequest extends WriteRequestWrapper {
+    static class EncryptedWriteRequest extends WriteRequestWrapper {
         private final IoBuffer encryptedMessage;
 
-        private EncryptedWriteRequest(WriteRequest writeRequest,
+        EncryptedWriteRequest(WriteRequest writeRequest,
                 IoBuffer encryptedMessage) {
             super(writeRequest);
             this.encryptedMessage = encryptedMessage;
@@ -722,5 +748,33 @@ public class SslFilter extends IoFilterAdapter {
             return encryptedMessage;
         }
     }
-}
 
+    /**
+     * Several application writes encrypted into the same buffer. Its future completes the future of each of them.
+     */
+    static class CoalescedWriteRequest extends DefaultWriteRequestEx {
+        private final List<WriteRequest> parentRequests;
+
+        CoalescedWriteRequest(List<WriteRequest> parentRequests, IoBuffer encryptedMessage, IoSession session) {
+            super(encryptedMessage, new DefaultWriteFutureEx(session));
+            this.parentRequests = parentRequests;
+            getFuture().addListener(new IoFutureListener<WriteFuture>() {
+                @Override
+                public void operationComplete(WriteFuture future) {
+                    Throwable cause = future.getException();
+                    for (WriteRequest parentRequest : parentRequests) {
+                        if (cause == null) {
+                            parentRequest.getFuture().setWritten();
+                        } else {
+                            parentRequest.getFuture().setException(cause);
+                        }
+                    }
+                }
+            });
+        }
+
+        List<WriteRequest> getParentRequests() {
+            return parentRequests;
+        }
+    }
+}
@@ -15,8 +15,10 @@
  */
 package org.kaazing.gateway.transport.ssl.bridge.filter;
 
+import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -30,6 +32,7 @@ import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLEngineResult;
 import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.SSLParameters;
 import javax.net.ssl.SSLSession;
 
 import org.apache.mina.core.buffer.IoBuffer;
@@ -56,6 +59,10 @@ import org.kaazing.mina.core.write.DefaultWriteRequestEx;
  * We allocate buffers for use as the outbound and inbound network buffers.
  * These buffers handle all of the intermediary data for the SSL connection. To make things easy,
  * we'll require outNetBuffer be completely flushed before trying to wrap any more data.
+ * <p/>
+ * Application data is wrapped and unwrapped through the per-thread {@link SslScratchBuffers}, copying only the bytes
+ * produced into exactly sized buffers. Writes are queued until flushed, so that writes issued while received messages
+ * are being delivered leave as one buffer of TLS records rather than one buffer per write.
  *
  * @author <a href="http://mina.apache.org">Apache MINA Project</a>
  */
@@ -68,6 +75,7 @@ class SslHandler {
     private final Queue<IoFilterEvent> filterWriteEventQueue = new ConcurrentLinkedQueue<>();
     private final Queue<IoFilterEvent> messageReceivedEventQueue = new ConcurrentLinkedQueue<>();
     private final AtomicInteger messageReceivedEventQueueConcurrentGuard = new AtomicInteger(0);
+    private final Queue<IoFilterEvent> pendingWriteQueue = new ArrayDeque<>();
     private final Logger logger;
     private SSLEngine sslEngine;
 
@@ -91,11 +99,22 @@ class SslHandler {
      */
     private final IoBufferEx emptyBuffer;
 
+    /**
+     * Application data wrapped into a single buffer by {@link #encryptPendingWrites()}, at most four full records
+     */
+    static final int MAXIMUM_COALESCED_BYTES = 4 * 16384;
+
     private SSLEngineResult.HandshakeStatus handshakeStatus;
     private boolean initialHandshakeComplete;
     private boolean handshakeComplete;
     private boolean writingEncryptedData;
     private final IoBufferAllocatorEx<?> allocator;
+    private final boolean directScratchBuffers;
+
+    /**
+     * Thread delivering received messages, writes issued by that thread meanwhile are encrypted after delivery
+     */
+    private volatile Thread receivingThread;
 
     /**
      * Constuctor.
@@ -111,6 +130,8 @@ class SslHandler {
         this.logger = logger;
         this.allocator = session.getBufferAllocator();
         this.emptyBuffer = allocator.wrap(allocator.allocate(0));
+        // SunJSSE works on the backing arrays, other providers (e.g. native ones) prefer direct buffers
+        this.directScratchBuffers = !"SunJSSE".equals(sslContext.getProvider().getName());
         init();
     }
 
@@ -208,6 +229,11 @@ class SslHandler {
         }
         sslEngine.setEnabledProtocols(protocols);
 
+        String[] applicationProtocols = parent.getApplicationProtocols();
+        if (applicationProtocols != null && applicationProtocols.length != 0) {
+            setApplicationProtocols(sslEngine, applicationProtocols);
+        }
+
         // TODO : we may not need to call this method...
         sslEngine.beginHandshake();
         
@@ -218,6 +244,24 @@ class SslHandler {
         writingEncryptedData = false;
     }
 
+    private void setApplicationProtocols(SSLEngine sslEngine, String[] applicationProtocols) {
+        // SSLParameters.setApplicationProtocols is only available from JDK 8u252 onwards
+        SSLParameters parameters = sslEngine.getSSLParameters();
+        try {
+            Method setter = SSLParameters.class.getMethod("setApplicationProtocols", String[].class);
+            setter.invoke(parameters, (Object) applicationProtocols);
+            sslEngine.setSSLParameters(parameters);
+            if (logger.isTraceEnabled()) {
+                logger.trace(String.format("TLS ALPN protocols are: %s", Arrays.asList(applicationProtocols)));
+            }
+        }
+        catch (ReflectiveOperationException e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("TLS ALPN not supported by this JRE, negotiation skipped");
+            }
+        }
+    }
+
     /**
      * Release allocated buffers.
      */
@@ -226,6 +270,12 @@ class SslHandler {
             return;
         }
 
+        try {
+            encryptPendingWrites();
+        } catch (SSLException e) {
+            // Ignore.
+        }
+
         sslEngine.closeOutbound();
 
         if (outNetBuffer != null) {
@@ -324,10 +374,73 @@ class SslHandler {
         }
     }
 
-    public void scheduleFilterWrite(NextFilter nextFilter, WriteRequest writeRequest) {
+    public void scheduleFilterWrite(NextFilter nextFilter, WriteRequest writeRequest) throws SSLException {
+        // keep the order of writes, application data written earlier goes first
+        encryptPendingWrites();
         filterWriteEventQueue.add(new IoFilterEvent(nextFilter, IoEventType.WRITE, session, writeRequest));
     }
 
+    /**
+     * Queues application data to be encrypted by {@link #encryptPendingWrites()}.
+     */
+    public void schedulePendingWrite(NextFilter nextFilter, WriteRequest writeRequest) {
+        pendingWriteQueue.add(new IoFilterEvent(nextFilter, IoEventType.WRITE, session, writeRequest));
+    }
+
+    /**
+     * Check if the current thread is delivering received messages, in which case its writes are encrypted
+     * together once delivery is done.
+     */
+    public boolean isReceiving() {
+        return receivingThread == Thread.currentThread();
+    }
+
+    /**
+     * Encrypts the queued application data and schedules it for writing. Consecutive writes to the same next filter
+     * are wrapped into a single buffer of up to {@link #MAXIMUM_COALESCED_BYTES} of application data.
+     *
+     * @throws SSLException on errors
+     */
+    public void encryptPendingWrites() throws SSLException {
+        IoFilterEvent event;
+        while ((event = pendingWriteQueue.peek()) != null) {
+            NextFilter nextFilter = event.getNextFilter();
+            WriteRequest writeRequest = (WriteRequest) event.getParameter();
+            IoBuffer buf = (IoBuffer) writeRequest.getMessage();
+
+            if (buf.remaining() > MAXIMUM_COALESCED_BYTES) {
+                // too large to coalesce, encrypt it on its own
+                pendingWriteQueue.poll();
+                int pos = buf.position();
+                encrypt(buf.buf());
+                buf.position(pos);
+                IoBuffer encryptedBuffer = fetchOutNetBuffer();
+                filterWriteEventQueue.add(new IoFilterEvent(nextFilter, IoEventType.WRITE, session,
+                        new SslFilter.EncryptedWriteRequest(writeRequest, encryptedBuffer)));
+                continue;
+            }
+
+            List<WriteRequest> writeRequests = new ArrayList<>();
+            int coalescedBytes = 0;
+            while ((event = pendingWriteQueue.peek()) != null && event.getNextFilter() == nextFilter) {
+                writeRequest = (WriteRequest) event.getParameter();
+                int remaining = ((IoBuffer) writeRequest.getMessage()).remaining();
+                if (coalescedBytes + remaining > MAXIMUM_COALESCED_BYTES) {
+                    break;
+                }
+                pendingWriteQueue.poll();
+                writeRequests.add(writeRequest);
+                coalescedBytes += remaining;
+            }
+
+            IoBuffer encryptedBuffer = encrypt(writeRequests, coalescedBytes);
+            WriteRequest encryptedRequest = (writeRequests.size() == 1)
+                    ? new SslFilter.EncryptedWriteRequest(writeRequests.get(0), encryptedBuffer)
+                    : new SslFilter.CoalescedWriteRequest(writeRequests, encryptedBuffer, session);
+            filterWriteEventQueue.add(new IoFilterEvent(nextFilter, IoEventType.WRITE, session, encryptedRequest));
+        }
+    }
+
     public void scheduleMessageReceived(NextFilter nextFilter, Object message) {
         messageReceivedEventQueue.add(new IoFilterEvent(nextFilter, IoEventType.MESSAGE_RECEIVED, session, message));
     }
@@ -338,32 +451,54 @@ class SslHandler {
             return;
         }
 
-        IoFilterEvent e;
-
-        // We need synchronization here inevitably because filterWrite can be
-        // called simultaneously and cause 'bad record MAC' integrity error.
-        synchronized (this) {
-            while ((e = filterWriteEventQueue.poll()) != null) {
-                e.getNextFilter().filterWrite(session, (WriteRequest) e.getParameter());
-            }
-        }
+        flushFilterWrites();
 
         //
         // KG-3161: prevent parallel messageReceived calls going down the filter chain from different threads
         //
         if (messageReceivedEventQueueConcurrentGuard.getAndIncrement() == 0) {
             // We're the first thread to get here
-            while ((e = messageReceivedEventQueue.poll()) != null) {
-                e.getNextFilter().messageReceived(session, e.getParameter());
-            }
+            flushMessageReceived();
         }
         // Handle case where some other thread added more data to the queue and failed to process it because 
         // of the previous guard check. This is similar to the flush processing in AbstractBridgeProcessor.
         if (messageReceivedEventQueueConcurrentGuard.decrementAndGet() == 0) {
             // We're the last thread to get here, make sure queue is fully processed
+            flushMessageReceived();
+        }
+
+        // write what was written in reaction to the messages received, coalesced
+        flushFilterWrites();
+    }
+
+    private void flushFilterWrites() {
+        IoFilterEvent e;
+
+        // We need synchronization here inevitably because filterWrite can be
+        // called simultaneously and cause 'bad record MAC' integrity error.
+        synchronized (this) {
+            try {
+                encryptPendingWrites();
+            } catch (SSLException ssle) {
+                session.getFilterChain().fireExceptionCaught(ssle);
+            }
+
+            while ((e = filterWriteEventQueue.poll()) != null) {
+                e.getNextFilter().filterWrite(session, (WriteRequest) e.getParameter());
+            }
+        }
+    }
+
+    private void flushMessageReceived() {
+        IoFilterEvent e;
+        Thread previousReceivingThread = receivingThread;
+        receivingThread = Thread.currentThread();
+        try {
             while ((e = messageReceivedEventQueue.poll()) != null) {
                 e.getNextFilter().messageReceived(session, e.getParameter());
             }
+        } finally {
+            receivingThread = previousReceivingThread;
         }
     }
 
@@ -407,6 +542,10 @@ class SslHandler {
      * @return buffer with data
      */
     public IoBuffer fetchAppBuffer() {
+        if (this.appBuffer == null) {
+            return (IoBuffer) emptyBuffer;
+        }
+
         IoBufferEx appBuffer = this.appBuffer.flip();
         this.appBuffer = null;
         return (IoBuffer) appBuffer;
@@ -446,16 +585,19 @@ class SslHandler {
         }
 
         createOutNetBuffer(src.remaining());
+        SslStatistics.recordAllocation();
 
         // Loop until there is no more data in src
         while (src.hasRemaining()) {
 
             SSLEngineResult result = sslEngine.wrap(src, outNetBuffer.buf());
             if (result.getStatus() == SSLEngineResult.Status.OK) {
+                SslStatistics.recordRecord(result.bytesConsumed(), result.bytesProduced());
                 if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK) {
                     doTasks();
                 }
             } else if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                SslStatistics.recordAllocation();
                 outNetBuffer.capacity(outNetBuffer.capacity() << 1, allocator);
                 outNetBuffer.limit(outNetBuffer.capacity());
             } else {
@@ -468,6 +610,61 @@ class SslHandler {
         outNetBuffer.flip();
     }
 
+    /**
+     * Encrypt the application data of the given write requests into one buffer, leaving their positions unchanged.
+     */
+    private IoBuffer encrypt(List<WriteRequest> writeRequests, int coalescedBytes) throws SSLException {
+        if (!handshakeComplete) {
+            throw new IllegalStateException();
+        }
+
+        if (coalescedBytes == 0) {
+            return (IoBuffer) allocator.wrap(allocator.allocate(0));
+        }
+
+        ByteBuffer[] srcs = new ByteBuffer[writeRequests.size()];
+        for (int i = 0; i < srcs.length; i++) {
+            srcs[i] = ((IoBuffer) writeRequests.get(i).getMessage()).buf().duplicate();
+        }
+
+        SSLSession sslSession = sslEngine.getSession();
+        int records = coalescedBytes / sslSession.getApplicationBufferSize() + 1;
+        SslScratchBuffers scratchBuffers = SslScratchBuffers.get(directScratchBuffers);
+        ByteBuffer netBuffer = scratchBuffers.netBuffer(records * sslSession.getPacketBufferSize());
+
+        // Loop until there is no more data in srcs
+        int offset = 0;
+        while (offset < srcs.length) {
+            SSLEngineResult result = sslEngine.wrap(srcs, offset, srcs.length - offset, netBuffer);
+            if (result.getStatus() == SSLEngineResult.Status.OK) {
+                if (result.bytesProduced() > 0) {
+                    SslStatistics.recordRecord(result.bytesConsumed(), result.bytesProduced());
+                }
+                if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                    doTasks();
+                }
+            } else if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                netBuffer = scratchBuffers.growNetBuffer();
+            } else {
+                throw new SSLException("SSLEngine error during encrypt: "
+                        + result.getStatus() + " srcs: " + Arrays.toString(srcs)
+                        + "netBuffer: " + netBuffer);
+            }
+
+            while (offset < srcs.length && !srcs[offset].hasRemaining()) {
+                offset++;
+            }
+        }
+
+        netBuffer.flip();
+        SslStatistics.recordAllocation();
+        IoBufferEx encryptedBuffer = allocator.wrap(allocator.allocate(netBuffer.remaining()));
+        int position = encryptedBuffer.position();
+        encryptedBuffer.put(netBuffer);
+        encryptedBuffer.position(position);
+        return (IoBuffer) encryptedBuffer;
+    }
+
     /**
      * Start SSL shutdown process.
      *
@@ -480,6 +677,7 @@ class SslHandler {
             return false;
         }
 
+        encryptPendingWrites();
         sslEngine.closeOutbound();
 
         createOutNetBuffer(0);
@@ -750,7 +948,8 @@ class SslHandler {
         if (res.getStatus() != SSLEngineResult.Status.CLOSED
                 && res.getStatus() != SSLEngineResult.Status.BUFFER_UNDERFLOW
                 && res.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING) {
-            // Renegotiation required.
+            // Renegotiation required, application data written so far is encrypted with the current keys
+            encryptPendingWrites();
             handshakeComplete = false;
             handshakeStatus = res.getHandshakeStatus();
             handshake(nextFilter);
@@ -758,27 +957,47 @@ class SslHandler {
     }
 
     private SSLEngineResult unwrap0() throws SSLException {
-        if (appBuffer == null) {
-            appBuffer = allocator.wrap(allocator.allocate(inNetBuffer.remaining()));
-        } else {
-            appBuffer.expand(inNetBuffer.remaining(), allocator);
-        }
+        SslScratchBuffers scratchBuffers = SslScratchBuffers.get(directScratchBuffers);
+        ByteBuffer scratchBuffer = scratchBuffers.appBuffer(sslEngine.getSession().getApplicationBufferSize());
 
         SSLEngineResult res;
         do {
-            res = sslEngine.unwrap(inNetBuffer.buf(), appBuffer.buf());
+            res = sslEngine.unwrap(inNetBuffer.buf(), scratchBuffer);
             if (res.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
-                appBuffer.capacity(appBuffer.capacity() << 1, allocator);
-                appBuffer.limit(appBuffer.capacity());
+                if (scratchBuffer.position() == 0) {
+                    scratchBuffer = scratchBuffers.appBuffer(scratchBuffer.capacity() << 1);
+                } else {
+                    drainScratchBuffer(scratchBuffer);
+                }
                 continue;
             }
         } while ((res.getStatus() == SSLEngineResult.Status.OK || res.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) &&
                  (handshakeComplete && res.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING ||
                   res.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_UNWRAP));
 
+        drainScratchBuffer(scratchBuffer);
         return res;
     }
 
+    /**
+     * Append the decrypted data of the scratch buffer to the app buffer and clear it.
+     */
+    private void drainScratchBuffer(ByteBuffer scratchBuffer) {
+        scratchBuffer.flip();
+        int remaining = scratchBuffer.remaining();
+        if (remaining != 0) {
+            if (appBuffer == null) {
+                SslStatistics.recordAllocation();
+                appBuffer = allocator.wrap(allocator.allocate(remaining));
+            } else if (appBuffer.remaining() < remaining) {
+                SslStatistics.recordAllocation();
+                appBuffer.expand(remaining, allocator);
+            }
+            appBuffer.put(scratchBuffer);
+        }
+        scratchBuffer.clear();
+    }
+
     /**
      * Do all the outstanding handshake tasks in the current Thread.
      */
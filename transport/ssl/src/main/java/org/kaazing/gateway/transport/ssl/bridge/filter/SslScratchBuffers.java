@@ -0,0 +1,85 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.ssl.bridge.filter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Scratch buffers of the current thread for SSLEngine wrap and unwrap. Records are produced and consumed in these
+ * buffers, and only their exact contents are copied into buffers handed to the rest of the filter chain, instead of
+ * allocating packet and application sized buffers (then shrinking them) for every read and write.
+ * <p/>
+ * Direct buffers are used for providers operating on native memory, heap buffers for SunJSSE which works on the
+ * backing arrays.
+ */
+final class SslScratchBuffers {
+
+    private static final ThreadLocal<SslScratchBuffers> HEAP_BUFFERS =
+            ThreadLocal.withInitial(() -> new SslScratchBuffers(false));
+
+    private static final ThreadLocal<SslScratchBuffers> DIRECT_BUFFERS =
+            ThreadLocal.withInitial(() -> new SslScratchBuffers(true));
+
+    private final boolean direct;
+    private ByteBuffer netBuffer;
+    private ByteBuffer appBuffer;
+
+    private SslScratchBuffers(boolean direct) {
+        this.direct = direct;
+    }
+
+    static SslScratchBuffers get(boolean direct) {
+        return direct ? DIRECT_BUFFERS.get() : HEAP_BUFFERS.get();
+    }
+
+    /**
+     * Returns the cleared network buffer of this thread, with at least the given capacity.
+     */
+    ByteBuffer netBuffer(int minimumCapacity) {
+        if (netBuffer == null || netBuffer.capacity() < minimumCapacity) {
+            netBuffer = allocate(minimumCapacity);
+        }
+        netBuffer.clear();
+        return netBuffer;
+    }
+
+    /**
+     * Replaces the network buffer by one twice as large, keeping the bytes already produced.
+     */
+    ByteBuffer growNetBuffer() {
+        ByteBuffer newNetBuffer = allocate(netBuffer.capacity() << 1);
+        netBuffer.flip();
+        newNetBuffer.put(netBuffer);
+        netBuffer = newNetBuffer;
+        return newNetBuffer;
+    }
+
+    /**
+     * Returns the cleared application buffer of this thread, with at least the given capacity.
+     */
+    ByteBuffer appBuffer(int minimumCapacity) {
+        if (appBuffer == null || appBuffer.capacity() < minimumCapacity) {
+            appBuffer = allocate(minimumCapacity);
+        }
+        appBuffer.clear();
+        return appBuffer;
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        SslStatistics.recordAllocation();
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.ssl.bridge.filter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gateway-wide counters of the application data encrypted by {@link SslFilter}: TLS records produced, their size, and
+ * the buffers allocated to do so, which tell how well writes are coalesced and buffers reused.
+ */
+public final class SslStatistics {
+
+    private static final LongAdder RECORDS = new LongAdder();
+    private static final LongAdder RECORD_BYTES = new LongAdder();
+    private static final LongAdder ENCRYPTED_BYTES = new LongAdder();
+    private static final LongAdder ALLOCATIONS = new LongAdder();
+
+    private SslStatistics() {
+    }
+
+    /**
+     * Returns the number of TLS records carrying application data written so far.
+     */
+    public static long getRecordCount() {
+        return RECORDS.sum();
+    }
+
+    /**
+     * Returns the number of bytes of those records, headers and MACs included.
+     */
+    public static long getRecordBytes() {
+        return RECORD_BYTES.sum();
+    }
+
+    /**
+     * Returns the number of application bytes encrypted into those records.
+     */
+    public static long getEncryptedBytes() {
+        return ENCRYPTED_BYTES.sum();
+    }
+
+    /**
+     * Returns the number of buffers allocated (or reallocated) while encrypting and decrypting.
+     */
+    public static long getAllocationCount() {
+        return ALLOCATIONS.sum();
+    }
+
+    static void recordRecord(int bytesConsumed, int bytesProduced) {
+        RECORDS.increment();
+        RECORD_BYTES.add(bytesProduced);
+        ENCRYPTED_BYTES.add(bytesConsumed);
+    }
+
+    static void recordAllocation() {
+        ALLOCATIONS.increment();
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.ssl.bridge.filter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.filterchain.IoFilterAdapter;
+import org.apache.mina.core.future.WriteFuture;
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.write.WriteRequest;
+import org.apache.mina.filter.ssl.SslContextFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.session.DummySessionEx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a client and a server SslFilter against each other in memory, relaying the TLS records each one writes.
+ */
+public class SslFilterTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SslFilterTest.class);
+
+    private Peer server;
+    private Peer client;
+
+    @Before
+    public void setUp() throws Exception {
+        String keyStorePassword = "testing";
+        KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        keyStore.load(getClass().getResourceAsStream("/keystore-testing.db"), keyStorePassword.toCharArray());
+
+        SslContextFactory sslContextFactory = new SslContextFactory();
+        sslContextFactory.setKeyManagerFactoryKeyStore(keyStore);
+        sslContextFactory.setKeyManagerFactoryKeyStorePassword(keyStorePassword);
+        SSLContext serverContext = sslContextFactory.newInstance();
+
+        SSLContext clientContext = SSLContext.getInstance("TLS");
+        clientContext.init(null, new TrustManager[] { new TrustingTrustManager() }, null);
+
+        server = new Peer(serverContext, false);
+        client = new Peer(clientContext, true);
+        relay();
+        assertNotNull(client.session.getAttribute(SslFilter.SSL_SESSION));
+        assertNotNull(server.session.getAttribute(SslFilter.SSL_SESSION));
+    }
+
+    @Test
+    public void shouldExchangeApplicationData() throws Exception {
+        client.write("hello".getBytes("UTF-8"));
+        relay();
+        assertArrayEquals("hello".getBytes("UTF-8"), server.received.toByteArray());
+
+        byte[] large = new byte[40000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) i;
+        }
+        server.write(large);
+        relay();
+        assertArrayEquals(large, client.received.toByteArray());
+    }
+
+    @Test
+    public void shouldCoalesceWritesIssuedWhileReceiving() throws Exception {
+        server.echoCount = 3;
+        client.write("ping".getBytes("UTF-8"));
+        server.records.clear();
+        relayTo(client, server);
+
+        // the three responses written by the server handler go out as a single buffer of TLS records
+        assertEquals(1, server.records.size());
+        assertEquals(3, server.writeFutures.size());
+        for (WriteFuture writeFuture : server.writeFutures) {
+            assertTrue(writeFuture.isWritten());
+        }
+        relay();
+        assertArrayEquals("pingpingping".getBytes("UTF-8"), client.received.toByteArray());
+    }
+
+    private void relay() {
+        while (!client.records.isEmpty() || !server.records.isEmpty()) {
+            relayTo(client, server);
+            relayTo(server, client);
+        }
+    }
+
+    private static void relayTo(Peer from, Peer to) {
+        byte[] record;
+        while ((record = from.records.poll()) != null) {
+            IoBufferAllocatorEx<?> allocator = to.session.getBufferAllocator();
+            to.session.getFilterChain().fireMessageReceived(allocator.wrap(ByteBuffer.wrap(record)));
+        }
+    }
+
+    private static final class Peer {
+        private final DummySessionEx session;
+        private final Queue<byte[]> records = new LinkedList<>();
+        private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        private final List<WriteFuture> writeFutures = new ArrayList<>();
+        private int echoCount;
+
+        Peer(SSLContext sslContext, boolean client) throws Exception {
+            session = new DummySessionEx();
+            session.setHandler(new IoHandlerAdapter() {
+                @Override
+                public void messageReceived(IoSession session, Object message) throws Exception {
+                    if (message instanceof IoBuffer) {
+                        IoBuffer buf = (IoBuffer) message;
+                        byte[] bytes = new byte[buf.remaining()];
+                        buf.get(bytes);
+                        received.write(bytes);
+                        for (int i = 0; i < echoCount; i++) {
+                            write(bytes);
+                        }
+                    }
+                }
+            });
+
+            session.getFilterChain().addLast("records", new IoFilterAdapter() {
+                @Override
+                public void filterWrite(NextFilter nextFilter, IoSession session, WriteRequest writeRequest)
+                        throws Exception {
+                    IoBuffer buf = (IoBuffer) writeRequest.getMessage();
+                    if (buf.hasRemaining()) {
+                        byte[] record = new byte[buf.remaining()];
+                        buf.duplicate().get(record);
+                        records.add(record);
+                    }
+                    super.filterWrite(nextFilter, session, writeRequest);
+                }
+            });
+
+            SslFilter sslFilter = new SslFilter(sslContext, LOGGER);
+            sslFilter.setUseClientMode(client);
+            session.getFilterChain().addLast("ssl", sslFilter);
+        }
+
+        void write(byte[] bytes) {
+            IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+            writeFutures.add(session.write(allocator.wrap(ByteBuffer.wrap(bytes))));
+        }
+    }
+
+    private static final class TrustingTrustManager implements X509TrustManager {
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
+        }
+    }
+}
@@ -20,7 +20,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import javax.security.auth.Subject;
 import javax.security.auth.login.LoginException;
@@ -35,6 +35,7 @@ import org.kaazing.gateway.transport.BridgeServiceFactory;
 import org.kaazing.gateway.transport.Direction;
 import org.kaazing.gateway.transport.TypedAttributeKey;
 import org.kaazing.gateway.transport.ws.extension.WebSocketExtension;
+import org.kaazing.gateway.util.LatencyHistogram;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.core.buffer.IoBufferEx;
 import org.kaazing.mina.core.service.IoProcessorEx;
@@ -60,6 +61,9 @@ public abstract class AbstractWsBridgeSession<S extends IoSessionEx, B extends I
             new TypedAttributeKey<>(AbstractWsBridgeSession.class, "lastRoundTripLatency");
     public static final TypedAttributeKey<Long> LAST_ROUND_TRIP_LATENCY_TIMESTAMP =
             new TypedAttributeKey<>(AbstractWsBridgeSession.class, "lastRoundTripLatencyTimestamp");
+    // set by management to aggregate round-trip times per service and transport
+    public static final TypedAttributeKey<LatencyHistogram> ROUND_TRIP_LATENCY_HISTOGRAM =
+            new TypedAttributeKey<>(AbstractWsBridgeSession.class, "roundTripLatencyHistogram");
 
     protected BridgeServiceFactory bridgeServiceFactory;
     protected ResourceAddressFactory resourceAddressFactory;
@@ -135,13 +139,17 @@ public abstract class AbstractWsBridgeSession<S extends IoSessionEx, B extends I
     }
 
     // KG-6256: Avoid recreating this command when an overlapping WSEB writer is being attached.
-    private AtomicBoolean initSessionTimeoutCommand = new AtomicBoolean(false);
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<AbstractWsBridgeSession> INIT_SESSION_TIMEOUT_COMMAND =
+        AtomicIntegerFieldUpdater.newUpdater(AbstractWsBridgeSession.class, "initSessionTimeoutCommand");
+
+    private volatile int initSessionTimeoutCommand;
 
 	/**
 	 * Start up timer for the session timeout of the WebSocket session
 	 */
     public void startupSessionTimeoutCommand() {
-        if (initSessionTimeoutCommand.compareAndSet(false, true)) {
+        if (INIT_SESSION_TIMEOUT_COMMAND.compareAndSet(this, 0, 1)) {
             final Long sessionTimeout = getSessionTimeout();
             if ( sessionTimeout != null && sessionTimeout > 0) {
                 if ( scheduledEventslogger.isTraceEnabled() ) {
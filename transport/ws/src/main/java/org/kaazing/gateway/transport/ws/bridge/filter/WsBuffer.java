@@ -44,6 +44,7 @@ public abstract class WsBuffer extends MessageBuffer<WsMessage> {
         WsBuffer wsParent = (WsBuffer)parent;
         WsBuffer wsBuffer = create1(parent, buf);
         wsBuffer.setKind(wsParent.getKind());
+        wsBuffer.setFin(wsParent.isFin());
         return wsBuffer;
     }
 
@@ -91,7 +92,10 @@ public abstract class WsBuffer extends MessageBuffer<WsMessage> {
 
         @Override
         protected WsUnsharedBuffer asUnsharedBuffer0() {
-            return new WsUnsharedBuffer(buf());
+            WsUnsharedBuffer unshared = new WsUnsharedBuffer(buf());
+            unshared.setKind(getKind());
+            unshared.setFin(isFin());
+            return unshared;
         }
 
         @Override
@@ -118,7 +122,10 @@ public abstract class WsBuffer extends MessageBuffer<WsMessage> {
 
         @Override
         protected WsSharedBuffer asSharedBuffer0() {
-            return new WsSharedBuffer(buf());
+            WsSharedBuffer shared = new WsSharedBuffer(buf());
+            shared.setKind(getKind());
+            shared.setFin(isFin());
+            return shared;
         }
 
         @Override
@@ -29,6 +29,7 @@ import org.kaazing.gateway.transport.ws.AbstractWsBridgeSession;
 import org.kaazing.gateway.transport.ws.WsAcceptor;
 import org.kaazing.gateway.transport.ws.WsMessage;
 import org.kaazing.gateway.transport.ws.WsPingMessage;
+import org.kaazing.gateway.util.LatencyHistogram;
 import org.kaazing.mina.core.session.IoSessionConfigEx;
 import org.kaazing.mina.core.session.IoSessionEx;
 import org.slf4j.Logger;
@@ -39,6 +40,10 @@ import org.slf4j.Logger;
  * is not down, so the TCP layer (NioProcessor, etc) does not realize the client has gone (story KG-6379). This is
  * done by sending a  WebSocket PING to the client if no data has been received for some time, and closing the connection if
  * no PONG is received from the client within the expected maximum round-trip time.
+ * <p/>
+ * Each observed round-trip time is also recorded in the {@link AbstractWsBridgeSession#ROUND_TRIP_LATENCY_HISTOGRAM}
+ * of the session, if any. With adaptive ping enabled, the filter keeps a smoothed round-trip time and its variation
+ * (as TCP does, RFC 6298) and pings more often while the variation is high relative to the round-trip time.
  */
 public class WsCheckAliveFilter extends IoFilterAdapter<IoSessionEx> {
     public static final long DISABLE_INACTIVITY_TIMEOUT = WsResourceAddress.INACTIVITY_TIMEOUT_DEFAULT;
@@ -60,10 +65,18 @@ public class WsCheckAliveFilter extends IoFilterAdapter<IoSessionEx> {
         PING  // need to write ping
     }
 
+    // ping more often when the round-trip time variation exceeds this fraction of the smoothed round-trip time
+    private static final double ADAPTIVE_PING_VARIATION_THRESHOLD = 0.5;
+    private static final int ADAPTIVE_PING_DELAY_DIVISOR = 4;
+
     private NextAction nextAction = NextAction.PING;
 
     private long pingSentTime = 0;
 
+    private final boolean adaptivePing;
+    private double smoothedRtt = -1;
+    private double rttVariation;
+
     public static void validateSystemProperties(Properties configuration, Logger logger) {
         // Fail gateway startup if the obsolete system property from JMS Edition release 3.5.3 is used (KG-7125)
         if (configuration != null && configuration.containsKey(OBSOLETE_INACTIVITY_TIMEOUT_PROPERTY)) {
@@ -81,9 +94,14 @@ public class WsCheckAliveFilter extends IoFilterAdapter<IoSessionEx> {
 
     public static void addIfFeatureEnabled(IoFilterChain filterChain, String filterName, long inactivityTimeoutIn,
                                            IoSessionEx wsSession, Logger logger) {
+        addIfFeatureEnabled(filterChain, filterName, inactivityTimeoutIn, wsSession, false, logger);
+    }
+
+    public static void addIfFeatureEnabled(IoFilterChain filterChain, String filterName, long inactivityTimeoutIn,
+                                           IoSessionEx wsSession, boolean adaptivePing, Logger logger) {
         long inactivityTimeout = getInactivityTimeoutMillis(inactivityTimeoutIn, logger);
         if (inactivityTimeout > 0) {
-            filterChain.addLast(filterName, new WsCheckAliveFilter(inactivityTimeout, wsSession, logger));
+            filterChain.addLast(filterName, new WsCheckAliveFilter(inactivityTimeout, wsSession, adaptivePing, logger));
             if (logger.isDebugEnabled()) {
                 logger.debug(String.format("Configured WebSocket inactivity timeout (ws.inactivity.timeout) is %d milliseconds", inactivityTimeout));
             }
@@ -113,12 +131,17 @@ public class WsCheckAliveFilter extends IoFilterAdapter<IoSessionEx> {
     }
 
     WsCheckAliveFilter(long inactivityTimeout, IoSession wsSession, Logger logger) {
+        this(inactivityTimeout, wsSession, false, logger);
+    }
+
+    WsCheckAliveFilter(long inactivityTimeout, IoSession wsSession, boolean adaptivePing, Logger logger) {
         assert inactivityTimeout > 0;
         // KG-7057: Assume maximum possible round-trip time is half the configured inactivity timeout, but don't let it be 0
         this.maxExpectedRtt = Math.max(inactivityTimeout / 2, 1);
         this.pingDelay = maxExpectedRtt;
         this.logger = logger;
         this.wsSession = wsSession;
+        this.adaptivePing = adaptivePing;
     }
 
     @Override
@@ -153,14 +176,15 @@ public class WsCheckAliveFilter extends IoFilterAdapter<IoSessionEx> {
                 logger.trace(String.format("WsCheckAliveFilter: PONG received (%s), round-trip time = %d msec, nextAction = %s",
                         wsMessage, roundTripTime, nextAction));
             }
-            if (wsSession != null) {
-                // wse case where session is not accessible for management
-                AbstractWsBridgeSession.LAST_ROUND_TRIP_LATENCY.set(wsSession, roundTripTime);
-                AbstractWsBridgeSession.LAST_ROUND_TRIP_LATENCY_TIMESTAMP.set(wsSession, pingSentTime);
-            } else {
-                AbstractWsBridgeSession.LAST_ROUND_TRIP_LATENCY.set(session, roundTripTime);
-                AbstractWsBridgeSession.LAST_ROUND_TRIP_LATENCY_TIMESTAMP.set(session, pingSentTime);
+            // wse case where session is not accessible for management
+            IoSession managedSession = wsSession != null ? wsSession : session;
+            AbstractWsBridgeSession.LAST_ROUND_TRIP_LATENCY.set(managedSession, roundTripTime);
+            AbstractWsBridgeSession.LAST_ROUND_TRIP_LATENCY_TIMESTAMP.set(managedSession, pingSentTime);
+            LatencyHistogram histogram = AbstractWsBridgeSession.ROUND_TRIP_LATENCY_HISTOGRAM.get(managedSession);
+            if (histogram != null) {
+                histogram.recordValue(Math.max(roundTripTime, 0));
             }
+            updateRoundTripEstimate(roundTripTime);
             schedulePing(session);
             return;
         default:
@@ -221,7 +245,30 @@ public class WsCheckAliveFilter extends IoFilterAdapter<IoSessionEx> {
 
     private void schedulePing(IoSessionEx session) {
         nextAction = NextAction.PING;
-        setReadIdleTimeInMillis(session, pingDelay);
+        setReadIdleTimeInMillis(session, getPingDelay());
+    }
+
+    private void updateRoundTripEstimate(long roundTripTime) {
+        if (smoothedRtt < 0) {
+            smoothedRtt = roundTripTime;
+            rttVariation = roundTripTime / 2.0;
+        }
+        else {
+            rttVariation = 0.75 * rttVariation + 0.25 * Math.abs(smoothedRtt - roundTripTime);
+            smoothedRtt = 0.875 * smoothedRtt + 0.125 * roundTripTime;
+        }
+    }
+
+    long getPingDelay() {
+        if (adaptivePing && smoothedRtt > 0 && rttVariation > ADAPTIVE_PING_VARIATION_THRESHOLD * smoothedRtt) {
+            long delay = Math.max(pingDelay / ADAPTIVE_PING_DELAY_DIVISOR, 1);
+            if (logger.isTraceEnabled()) {
+                logger.trace(String.format("WsCheckAliveFilter: round-trip time %.1f msec varies by %.1f msec, ping delay = %d msec",
+                        smoothedRtt, rttVariation, delay));
+            }
+            return delay;
+        }
+        return pingDelay;
     }
 
     private void setReadIdleTimeInMillis(IoSessionEx session, long delay) {
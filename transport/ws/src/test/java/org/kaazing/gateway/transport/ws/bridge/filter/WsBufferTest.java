@@ -0,0 +1,62 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.ws.bridge.filter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.kaazing.mina.core.buffer.SimpleBufferAllocator.BUFFER_ALLOCATOR;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+import org.kaazing.gateway.transport.ws.bridge.filter.WsBuffer.Kind;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+
+public class WsBufferTest {
+
+    private final WsBufferAllocator allocator = new WsBufferAllocator(BUFFER_ALLOCATOR, false);
+
+    @Test
+    public void shouldCopySharedBufferAsUnsharedBufferOfSameKind() throws Exception {
+        ByteBuffer readBuf = ByteBuffer.wrap("hello".getBytes(UTF_8));
+        WsBuffer shared = allocator.wrap(readBuf, IoBufferEx.FLAG_SHARED);
+        shared.setKind(Kind.TEXT);
+        shared.setFin(false);
+
+        WsBuffer copy = (WsBuffer) shared.copy();
+        readBuf.put(0, (byte) 'j');
+
+        assertFalse(copy.isShared());
+        assertEquals(Kind.TEXT, copy.getKind());
+        assertFalse(copy.isFin());
+        byte[] payload = new byte[copy.remaining()];
+        copy.get(payload);
+        assertArrayEquals("hello".getBytes(UTF_8), payload);
+    }
+
+    @Test
+    public void shouldKeepKindWhenConvertedToUnsharedBuffer() throws Exception {
+        WsBuffer shared = allocator.wrap(ByteBuffer.wrap("hello".getBytes(UTF_8)), IoBufferEx.FLAG_SHARED);
+        shared.setKind(Kind.TEXT);
+
+        WsBuffer unshared = (WsBuffer) shared.asUnsharedBuffer();
+        assertFalse(unshared.isShared());
+        assertEquals(Kind.TEXT, unshared.getKind());
+        assertEquals(Kind.TEXT, ((WsBuffer) unshared.asSharedBuffer()).getKind());
+    }
+}
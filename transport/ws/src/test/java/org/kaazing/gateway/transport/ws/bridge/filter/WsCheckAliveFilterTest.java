@@ -15,6 +15,7 @@
  */
 package org.kaazing.gateway.transport.ws.bridge.filter;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
 import java.nio.ByteBuffer;
@@ -30,9 +31,11 @@ import org.jmock.Mockery;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.kaazing.gateway.transport.test.Expectations;
+import org.kaazing.gateway.transport.ws.AbstractWsBridgeSession;
 import org.kaazing.gateway.transport.ws.WsAcceptor;
 import org.kaazing.gateway.transport.ws.WsPingMessage;
 import org.kaazing.gateway.transport.ws.WsPongMessage;
+import org.kaazing.gateway.util.LatencyHistogram;
 import org.kaazing.gateway.util.Utils;
 import org.kaazing.mina.core.buffer.SimpleBufferAllocator;
 import org.kaazing.mina.core.session.IoSessionConfigEx;
@@ -227,6 +230,8 @@ public class WsCheckAliveFilterTest {
                 oneOf(session).getConfig(); will(returnValue(config));
                 oneOf(config).setIdleTimeInMillis(IdleStatus.READER_IDLE, inactivityTimeout / 2);
                 allowing(session).setAttribute(with(any(Object.class)), with(any(Long.class)));
+                allowing(session).getAttribute(with(any(Object.class)));
+                will(returnValue(null));
             }
         });
 
@@ -252,6 +257,8 @@ public class WsCheckAliveFilterTest {
                 oneOf(session).getConfig(); will(returnValue(config));
                 oneOf(config).setIdleTimeInMillis(IdleStatus.READER_IDLE, 1L);
                 allowing(session).setAttribute(with(any(Object.class)), with(any(Long.class)));
+                allowing(session).getAttribute(with(any(Object.class)));
+                will(returnValue(null));
             }
         });
 
@@ -263,6 +270,82 @@ public class WsCheckAliveFilterTest {
         context.assertIsSatisfied();
     }
 
+    @Test
+    public void receivePongShouldRecordRoundTripLatency() throws Exception {
+        Mockery context = new Mockery();
+        final Logger logger = context.mock(Logger.class);
+        final NextFilter nextFilter = context.mock(NextFilter.class);
+        final IoSessionEx session = context.mock(IoSessionEx.class);
+        final IoSessionConfigEx config = context.mock(IoSessionConfigEx.class);
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final long inactivityTimeout = 2000L;
+
+        context.checking(new Expectations() {
+            {
+                allowing(logger).isDebugEnabled();
+                allowing(logger).isTraceEnabled();
+                allowing(session).getConfig(); will(returnValue(config));
+                oneOf(config).setIdleTimeInMillis(IdleStatus.READER_IDLE, inactivityTimeout / 2);
+                allowing(session).setAttribute(with(any(Object.class)), with(any(Long.class)));
+                allowing(session).getAttribute(AbstractWsBridgeSession.ROUND_TRIP_LATENCY_HISTOGRAM);
+                will(returnValue(histogram));
+            }
+        });
+
+        WsCheckAliveFilter filter = new WsCheckAliveFilter(inactivityTimeout, logger);
+        filter.flipNextAction();
+        filter.pingWritten(System.currentTimeMillis());
+        filter.messageReceived(nextFilter, session, new WsPongMessage(SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(ByteBuffer.allocate(0))));
+        context.assertIsSatisfied();
+        assertEquals(1, histogram.getCount());
+    }
+
+    @Test
+    public void adaptivePingShouldPingMoreOftenWhenRoundTripTimeVaries() throws Exception {
+        Mockery context = new Mockery();
+        final Logger logger = context.mock(Logger.class);
+        final NextFilter nextFilter = context.mock(NextFilter.class);
+        final IoSessionEx session = context.mock(IoSessionEx.class);
+        final IoSessionConfigEx config = context.mock(IoSessionConfigEx.class);
+        final long inactivityTimeout = 8000L;
+
+        context.checking(new Expectations() {
+            {
+                allowing(logger).isDebugEnabled();
+                allowing(logger).isTraceEnabled();
+                allowing(session).getConfig(); will(returnValue(config));
+                allowing(config).setIdleTimeInMillis(with(IdleStatus.READER_IDLE), with(any(Long.class)));
+                allowing(session).setAttribute(with(any(Object.class)), with(any(Long.class)));
+                allowing(session).getAttribute(with(any(Object.class)));
+                will(returnValue(null));
+            }
+        });
+
+        WsCheckAliveFilter filter = new WsCheckAliveFilter(inactivityTimeout, null, true, logger);
+        assertEquals(inactivityTimeout / 2, filter.getPingDelay());
+
+        // steady round-trip time keeps the configured ping delay
+        long now = System.currentTimeMillis();
+        filter.flipNextAction();
+        filter.pingWritten(now - 100);
+        filter.messageReceived(nextFilter, session, new WsPongMessage(SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(ByteBuffer.allocate(0))));
+        for (int i = 0; i < 10; i++) {
+            filter.flipNextAction();
+            filter.pingWritten(System.currentTimeMillis() - 100);
+            filter.messageReceived(nextFilter, session, new WsPongMessage(SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(ByteBuffer.allocate(0))));
+        }
+        assertEquals(inactivityTimeout / 2, filter.getPingDelay());
+
+        // a jittery round-trip time shortens it
+        for (int i = 0; i < 10; i++) {
+            filter.flipNextAction();
+            filter.pingWritten(System.currentTimeMillis() - (i % 2 == 0 ? 10 : 1000));
+            filter.messageReceived(nextFilter, session, new WsPongMessage(SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(ByteBuffer.allocate(0))));
+        }
+        assertEquals(inactivityTimeout / 8, filter.getPingDelay());
+        context.assertIsSatisfied();
+    }
+
     @Test
     // If some rogue client sends a PONG randomly without having received a PING
     public void unexpectedPongShouldBeIgnored() throws Exception {
@@ -281,6 +364,8 @@ public class WsCheckAliveFilterTest {
                 allowing(session).getConfig(); will(returnValue(config));
                 oneOf(config).setIdleTimeInMillis(IdleStatus.READER_IDLE, inactivityTimeout / 2);
                 allowing(session).setAttribute(with(any(Object.class)), with(any(Long.class)));
+                allowing(session).getAttribute(with(any(Object.class)));
+                will(returnValue(null));
             }
         });
 
@@ -34,6 +34,7 @@ import static org.kaazing.gateway.transport.http.HttpHeaders.HEADER_CONTENT_TYPE
 import static org.kaazing.gateway.transport.ws.WsSystemProperty.WSE_IDLE_TIMEOUT;
 import static org.kaazing.gateway.transport.ws.bridge.filter.WsCheckAliveFilter.DISABLE_INACTIVITY_TIMEOUT;
 import static org.kaazing.gateway.util.InternalSystemProperty.WSE_SPECIFICATION;
+import static org.kaazing.gateway.util.InternalSystemProperty.WS_ADAPTIVE_PING;
 import static org.kaazing.mina.core.future.DefaultUnbindFuture.combineFutures;
 
 import java.io.IOException;
@@ -86,6 +87,9 @@ import org.kaazing.gateway.transport.DefaultIoSessionConfigEx;
 import org.kaazing.gateway.transport.DefaultTransportMetadata;
 import org.kaazing.gateway.transport.IoHandlerAdapter;
 import org.kaazing.gateway.transport.TypedAttributeKey;
+import org.kaazing.gateway.transport.bridge.ReplayBudget;
+import org.kaazing.gateway.transport.bridge.ReplayBuffer;
+import org.kaazing.gateway.transport.bridge.ReplayBufferFactory;
 import org.kaazing.gateway.transport.http.HttpAcceptSession;
 import org.kaazing.gateway.transport.http.HttpAcceptor;
 import org.kaazing.gateway.transport.http.HttpHeaders;
@@ -95,6 +99,7 @@ import org.kaazing.gateway.transport.http.HttpStatus;
 import org.kaazing.gateway.transport.http.HttpUtils;
 import org.kaazing.gateway.transport.http.bridge.filter.HttpProtocolCompatibilityFilter;
 import org.kaazing.gateway.transport.ws.WsAcceptor;
+import org.kaazing.gateway.transport.ws.WsMessage;
 import org.kaazing.gateway.transport.ws.bridge.filter.WsBuffer;
 import org.kaazing.gateway.transport.ws.extension.ExtensionHelper;
 import org.kaazing.gateway.transport.ws.extension.WebSocketExtension;
@@ -171,6 +176,8 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
     private static final Long MAX_SEQUENCE_NUMBER = 0x1fffffffffffffL; // 2 ^ 53 - 1
 
     private Properties configuration;
+    private ReplayBudget replayBudget;
+    private ReplayBufferFactory replayBufferFactory;
     private boolean specCompliant;
 
     private ScheduledExecutorService scheduler;
@@ -185,7 +192,8 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
         = new VicariousThreadLocal<IoSessionIdleTracker>() {
             @Override
             protected IoSessionIdleTracker initialValue() {
-                IoSessionIdleTracker result = new WsebTransportSessionIdleTracker(logger);
+                IoSessionIdleTracker result = new WsebTransportSessionIdleTracker(
+                        configuration != null && WS_ADAPTIVE_PING.getBooleanProperty(configuration), logger);
                 sessionInactivityTrackers.add(result);
                 return result;
             }
@@ -206,6 +214,15 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
     public void setConfiguration(Properties configuration) {
         this.configuration = configuration;
         this.specCompliant = "true".equals(WSE_SPECIFICATION.getProperty(configuration));
+        this.replayBufferFactory = ReplayBufferFactory.newReplayBufferFactory(configuration, replayBudget);
+    }
+
+    @Resource(name = "replayBudget")
+    public void setReplayBudget(ReplayBudget replayBudget) {
+        this.replayBudget = replayBudget;
+        if (configuration != null) {
+            this.replayBufferFactory = ReplayBufferFactory.newReplayBufferFactory(configuration, replayBudget);
+        }
     }
 
     @Resource(name = "bridgeServiceFactory")
@@ -422,6 +439,11 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
 
                     wsebSession.shutdownScheduledCommands();
                     wsebSession.logout();
+
+                    ReplayBuffer<WsMessage> replayBuffer = wsebSession.getReplayBuffer();
+                    if (replayBuffer != null) {
+                        replayBuffer.clear();
+                    }
                 }
             };
         }
@@ -652,6 +674,10 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
                     newWsebSession.setBridgeServiceFactory(bridgeServiceFactory);
                     newWsebSession.setResourceAddressFactory(resourceAddressFactory);
                     newWsebSession.setScheduler(scheduler);
+                    if (replayBufferFactory != null && validateSequenceNo) {
+                        // downstream retries are identified by sequence number
+                        newWsebSession.setReplayBuffer(replayBufferFactory.newReplayBuffer(localAddress.getExternalURI()));
+                    }
                     return newWsebSession;
                 }
             });
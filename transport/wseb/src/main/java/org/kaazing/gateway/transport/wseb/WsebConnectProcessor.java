@@ -20,6 +20,9 @@ import static org.kaazing.gateway.transport.http.HttpHeaders.HEADER_TRANSFER_ENC
 import static org.kaazing.gateway.transport.http.HttpHeaders.HEADER_X_SEQUENCE_NO;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.mina.core.filterchain.IoFilterChain;
@@ -48,6 +51,8 @@ import org.kaazing.gateway.transport.ws.WsCommandMessage;
 import org.kaazing.gateway.transport.ws.WsMessage;
 import org.kaazing.gateway.transport.ws.WsMessage.Kind;
 import org.kaazing.gateway.transport.wseb.filter.WsebFrameCodecFilter;
+import org.kaazing.gateway.transport.wseb.filter.WsebFrameEncoder;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.core.buffer.IoBufferEx;
 import org.kaazing.mina.core.future.DefaultWriteFutureEx;
 import org.kaazing.mina.core.future.WriteFutureEx;
@@ -64,6 +69,9 @@ class WsebConnectProcessor extends BridgeConnectProcessor<WsebSession> {
 
     private static final String CODEC_FILTER = WsebProtocol.NAME + "#codec";
 
+    // upper bound of the frames batched into a single upstream write
+    static final int MAXIMUM_BATCH_BYTES = 64 * 1024;
+
     private final WsebFrameCodecFilter wsebFraming = new WsebFrameCodecFilter(0, true);
     private final BridgeServiceFactory bridgeServiceFactory;
 
@@ -78,18 +86,31 @@ class WsebConnectProcessor extends BridgeConnectProcessor<WsebSession> {
     protected void removeInternal(WsebSession session) {
         HttpSession writer = session.getWriter();
         if (writer != null) {
+            // send any messages still batched behind the last upstream write
+            flushInternal(session, false);
             finishWrite(session, writer);
         }
     }
 
     @Override
     protected void flushInternal(final WsebSession session) {
+        flushInternal(session, true);
+    }
+
+    private void flushInternal(final WsebSession session, boolean batching) {
         IoSessionEx transportSession = session.getTransportSession();
         IoFilterChain filterChain = transportSession.getFilterChain();
 
         // get parent and check if null (no attached http session)
         final HttpConnectSession writer = (HttpConnectSession)session.getWriter();
 
+        // while an upstream write is in flight, messages stay queued to be sent together in the next write,
+        // which is flushed as soon as the one in flight completes
+        WriteFuture upstreamWrite = session.getUpstreamWrite();
+        if (batching && upstreamWrite != null && !upstreamWrite.isDone() && upstreamWrite.getSession() == writer) {
+            return;
+        }
+
         // store last write so we can observe it
         WriteFuture lastWrite;
 
@@ -164,16 +185,39 @@ class WsebConnectProcessor extends BridgeConnectProcessor<WsebSession> {
                         break;
                     }
 
-                    // hold current remaining bytes so we know how much was
-                    // written
-                    int remaining = buffer.remaining();
-
-                    // flush the buffer out to the session
-                    lastWrite = flushNowInternal(writer, frame, buffer, filterChain, request);
-
-                    // increment session written bytes
-                    int written = remaining;
-                    session.increaseWrittenBytes(written, System.currentTimeMillis());
+                    if (isBatchable(frame)) {
+                        // batch the data frames queued behind this one into the same write
+                        List<WriteRequest> batch = new ArrayList<>();
+                        batch.add(request);
+                        int batchSize = WsebFrameEncoder.frameSize(frame);
+                        while (batchSize < MAXIMUM_BATCH_BYTES) {
+                            WriteRequest next = writeRequestQueue.poll(transportSession);
+                            if (next == null) {
+                                break;
+                            }
+                            if (WsebSession.isReconnectRequest(next) || !isBatchable(next.getMessage())) {
+                                currentWriteRequest = next;
+                                break;
+                            }
+                            batch.add(next);
+                            batchSize += WsebFrameEncoder.frameSize((WsMessage) next.getMessage());
+                        }
+                        lastWrite = flushBatch(session, writer, filterChain, batch, batchSize);
+                    }
+                    else {
+                        // hold current remaining bytes so we know how much was
+                        // written
+                        int remaining = buffer.remaining();
+
+                        // flush the buffer out to the session
+                        lastWrite = flushNowInternal(writer, frame, buffer, filterChain, request);
+
+                        // increment session written bytes
+                        int written = remaining;
+                        session.increaseWrittenBytes(written, System.currentTimeMillis());
+                        WsebStatistics.recordConnectUpstreamWrite(1);
+                    }
+                    trackUpstreamWrite(session, lastWrite);
 
                     // if we are not already reconnecting then add a listener to
                     // the last write future
@@ -182,6 +226,14 @@ class WsebConnectProcessor extends BridgeConnectProcessor<WsebSession> {
                     if (reconnecting.get() == false) {
                         lastWrite.addListener(new CheckBuffer(session, reconnecting));
                     }
+
+                    if (batching && !lastWrite.isDone()) {
+                        // the rest of the queue is batched behind this write
+                        if (currentWriteRequest != null) {
+                            session.setCurrentWriteRequest(currentWriteRequest);
+                        }
+                        break;
+                    }
                 }
                 catch (Exception e) {
                     request.getFuture().setException(e);
@@ -195,6 +247,77 @@ class WsebConnectProcessor extends BridgeConnectProcessor<WsebSession> {
         while (true);
     }
 
+    private static boolean isBatchable(Object message) {
+        if (message instanceof WsMessage) {
+            Kind kind = ((WsMessage) message).getKind();
+            return kind == Kind.BINARY || kind == Kind.TEXT;
+        }
+        return false;
+    }
+
+    private static WriteFuture flushBatch(WsebSession session, HttpConnectSession writer, final IoFilterChain filterChain,
+                                          final List<WriteRequest> batch, int batchSize) {
+        WsMessage first = (WsMessage) batch.get(0).getMessage();
+        if (batch.size() == 1) {
+            int remaining = first.getBytes().remaining();
+            WriteFuture write = flushNowInternal(writer, first, first.getBytes(), filterChain, batch.get(0));
+            session.increaseWrittenBytes(remaining, System.currentTimeMillis());
+            WsebStatistics.recordConnectUpstreamWrite(1);
+            return write;
+        }
+
+        // frame the messages straight into one buffer, which bypasses the frame encoder of the writer
+        IoBufferAllocatorEx<?> allocator = writer.getBufferAllocator();
+        ByteBuffer frames = allocator.allocate(batchSize);
+        int offset = frames.position();
+        int written = 0;
+        for (WriteRequest request : batch) {
+            WsMessage message = (WsMessage) request.getMessage();
+            written += message.getBytes().remaining();
+            WsebFrameEncoder.encodeFrame(frames, message);
+        }
+        frames.flip();
+        frames.position(offset);
+
+        WriteFuture write = writer.write(allocator.wrap(frames));
+        session.increaseWrittenBytes(written, System.currentTimeMillis());
+        WsebStatistics.recordConnectUpstreamWrite(batch.size());
+
+        write.addListener(new IoFutureListener<WriteFuture>() {
+            @Override
+            public void operationComplete(WriteFuture future) {
+                for (WriteRequest request : batch) {
+                    if (future.isWritten()) {
+                        try {
+                            request.getFuture().setWritten();
+                        } catch (Throwable t) {
+                            filterChain.fireExceptionCaught(t);
+                        }
+                    }
+                    else {
+                        request.getFuture().setException(future.getException());
+                    }
+                }
+            }
+        });
+        return write;
+    }
+
+    private static void trackUpstreamWrite(final WsebSession session, WriteFuture write) {
+        session.setUpstreamWrite(write);
+        if (!write.isDone()) {
+            write.addListener(new IoFutureListener<WriteFuture>() {
+                @Override
+                public void operationComplete(WriteFuture future) {
+                    // send whatever was batched while the write was in flight
+                    if (future.isWritten()) {
+                        session.getProcessor().flush(session);
+                    }
+                }
+            });
+        }
+    }
+
     private void finishWrite(final WsebSession session, final HttpSession writer) {
         // ensure upstream is serialized to avoid out-of-order delivery
         session.suspendWrite();
@@ -59,6 +59,7 @@ class WsebDownstreamHandler extends IoHandlerAdapter<HttpAcceptSession> {
 
     private final String contentType;
     private final WsebSession wsebSession;
+    private final ScheduledExecutorService scheduler;
     private final WsebEncodingCodecFilter codec;
     private final IoFilter encoding;
     private IoSessionIdleTracker inactivityTracker = null;
@@ -77,6 +78,7 @@ class WsebDownstreamHandler extends IoHandlerAdapter<HttpAcceptSession> {
     public WsebDownstreamHandler(ResourceAddress nextProtocolAddress, WsebSession wsebSession, ScheduledExecutorService scheduler, String contentType,
                                  Encoding escapeEncoding, WsebEncodingStrategy encodingStrategy, IoSessionIdleTracker inactivityTracker, BridgeServiceFactory bridgeServiceFactory) {
         this.wsebSession = wsebSession;
+        this.scheduler = scheduler;
         this.contentType = contentType;
         if (encodingStrategy == TEXT_AS_BINARY) {
             // 3.5 clients
@@ -94,6 +96,15 @@ class WsebDownstreamHandler extends IoHandlerAdapter<HttpAcceptSession> {
 
     @Override
     protected void doExceptionCaught(HttpAcceptSession session, Throwable cause) throws Exception {
+        if (cause instanceof IOException && wsebSession.getReplayBuffer() != null) {
+            // the downstream was lost, so keep the session for the client to retry it from the replay buffer
+            if (wsebSession.detachWriter(session)) {
+                wsebSession.scheduleTimeout(scheduler);
+            }
+            session.close(true);
+            return;
+        }
+
         wsebSession.setCloseException(cause);
         HttpStatus status = HttpStatus.SERVER_INTERNAL_ERROR;
         session.setStatus(status);
@@ -30,8 +30,8 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import org.apache.mina.core.filterchain.IoFilterChain;
 import org.apache.mina.core.future.IoFutureListener;
@@ -49,6 +49,7 @@ import org.kaazing.gateway.transport.IoHandlerAdapter;
 import org.kaazing.gateway.transport.bridge.CachingMessageEncoder;
 import org.kaazing.gateway.transport.bridge.Message;
 import org.kaazing.gateway.transport.bridge.MessageEncoder;
+import org.kaazing.gateway.transport.bridge.ReplayBuffer;
 import org.kaazing.gateway.transport.http.HttpAcceptSession;
 import org.kaazing.gateway.transport.http.HttpHeaders;
 import org.kaazing.gateway.transport.http.HttpAcceptor;
@@ -127,9 +128,19 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
     private long readerSequenceNo;
     private long writerSequenceNo;
 
-    private final AtomicBoolean attachingWrite;
-    private final AtomicReference<IoSessionEx> readSession;
-    private final AtomicReference<HttpSession> pendingNewWriter;
+    // field updaters rather than Atomic* objects, to keep the footprint of each idle session small
+    private static final AtomicIntegerFieldUpdater<WsebSession> ATTACHING_WRITE =
+            AtomicIntegerFieldUpdater.newUpdater(WsebSession.class, "attachingWrite");
+    private static final AtomicIntegerFieldUpdater<WsebSession> RECONNECTING =
+            AtomicIntegerFieldUpdater.newUpdater(WsebSession.class, "reconnecting");
+    private static final AtomicReferenceFieldUpdater<WsebSession, IoSessionEx> READ_SESSION =
+            AtomicReferenceFieldUpdater.newUpdater(WsebSession.class, IoSessionEx.class, "readSession");
+    private static final AtomicReferenceFieldUpdater<WsebSession, HttpSession> PENDING_NEW_WRITER =
+            AtomicReferenceFieldUpdater.newUpdater(WsebSession.class, HttpSession.class, "pendingNewWriter");
+
+    private volatile int attachingWrite;
+    private volatile IoSessionEx readSession;
+    private volatile HttpSession pendingNewWriter;
     private final TimeoutCommand timeout;
     private final int clientIdleTimeout;
     private final long inactivityTimeout;
@@ -137,11 +148,16 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
 
     private boolean firstWriter = true;
 
+    // last write to the upstream of a connect session, messages written meanwhile are batched behind it
+    private WriteFuture upstreamWrite;
+
+    private ReplayBuffer<WsMessage> replayBuffer;
+
     private EscapeTypes encodeEscapeType = EscapeTypes.NO_ESCAPE;
     private ResourceAddress readAddress;
     private ResourceAddress writeAddress;
 
-    private final AtomicBoolean reconnecting = new AtomicBoolean(false);
+    private volatile int reconnecting;
 
     private final boolean specCompliant;
 
@@ -191,9 +207,6 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
               loginContext,
               extensions);
         this.logger = logger;
-        attachingWrite = new AtomicBoolean(false);
-        readSession = new AtomicReference<>();
-        pendingNewWriter = new AtomicReference<>();
         timeout = new TimeoutCommand(this);
         this.clientIdleTimeout = clientIdleTimeout;
         this.inactivityTimeout = inactivityTimeout;
@@ -279,13 +292,13 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
         if (logger.isDebugEnabled()) {
             logger.debug(String.format("attachWriter on WsebSession wseb#%d, newWriter=%s", this.getId(), newWriter));
         }
-        reconnecting.set(false);
+        reconnecting = 0;
         if (!getTransportSession().isClosing()) {
             if (!compareAndSetParent(null, newWriter)) {
                 cancelTimeout();
 
                 // There's an existing parent (writer). Enqueue a request to switch to new writer.
-                IoSessionEx oldPending = pendingNewWriter.getAndSet(newWriter);
+                IoSessionEx oldPending = PENDING_NEW_WRITER.getAndSet(this, newWriter);
                 if (oldPending != null) {
                     // Unlikely (means client established two new downstreams in rapid succession without
                     // receiving any data on the first one) but better safe than sorry.
@@ -298,13 +311,31 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
                 if (newWriter instanceof HttpAcceptSession) {
                     HttpAcceptSession newAcceptWriter = (HttpAcceptSession) newWriter;
                     // check if the writer is out of order
-                    if (!checkLongPollingOrder(newAcceptWriter) || !checkWriterOrder(newAcceptWriter)) {
+                    if (!checkLongPollingOrder(newAcceptWriter)) {
                         return;
                     }
-                    writeNoop((HttpAcceptSession) newWriter);
+
+                    // a downstream that repeats the sequence number of the previous one is a retry
+                    // after that response was lost, and is served again from the replay buffer
+                    List<WsMessage> replayed = replayWriter(newAcceptWriter);
+                    if (replayed != null) {
+                        writeNoop(newAcceptWriter);
+                        for (WsMessage message : replayed) {
+                            getTransportSession().write(message);
+                        }
+                    }
+                    else {
+                        if (!checkWriterOrder(newAcceptWriter)) {
+                            return;
+                        }
+                        writeNoop(newAcceptWriter);
+                        writerSequenceNo++;
+                    }
+                }
+                else {
+                    writerSequenceNo++;
                 }
 
-                writerSequenceNo++;
                 firstWriter = false;
 
                 if (Long.valueOf(0L).equals(newWriter.getAttribute(WsebAcceptor.CLIENT_BUFFER_KEY))) {
@@ -326,7 +357,7 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
                 newWriter.close(false);
             }
         }
-        attachingWrite.set(false);
+        attachingWrite = 0;
 
         //
         // Now that we have set up a parent for the session,
@@ -388,7 +419,7 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
     }
 
     public boolean attachPendingWriter() {
-        HttpSession pendingWriter = pendingNewWriter.getAndSet(null);
+        HttpSession pendingWriter = PENDING_NEW_WRITER.getAndSet(this, null);
         if (pendingWriter != null) {
             attachWriter(pendingWriter);
             return true;
@@ -452,7 +483,7 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
         }
 
         readerSequenceNo++;
-        IoSessionEx oldReader = readSession.get();
+        IoSessionEx oldReader = readSession;
         if (oldReader != null && !oldReader.isClosing() && oldReader instanceof HttpAcceptSession) {
             // Overlapping upstream, forbidden
             String message = "Overlapping upstream request";
@@ -464,7 +495,7 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
             newAcceptReader.close(true);
             return;
         }
-        readSession.set(newReader);
+        readSession = newReader;
         if (this.isReadSuspended()) {
             newReader.suspendRead();
         }
@@ -491,11 +522,11 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
     }
 
     public boolean detachReader(IoSessionEx oldReader) {
-        return readSession.compareAndSet(oldReader, null);
+        return READ_SESSION.compareAndSet(this, oldReader, null);
     }
 
     public IoSessionEx getReader() {
-        return readSession.get();
+        return readSession;
     }
 
     public HttpSession getWriter() {
@@ -507,15 +538,23 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
         return super.write(message);
     }
 
+    WriteFuture getUpstreamWrite() {
+        return upstreamWrite;
+    }
+
+    void setUpstreamWrite(WriteFuture upstreamWrite) {
+        this.upstreamWrite = upstreamWrite;
+    }
+
     public boolean compareAndSetAttachingWrite(boolean expected, boolean newValue) {
-        return attachingWrite.compareAndSet(expected, newValue);
+        return ATTACHING_WRITE.compareAndSet(this, expected ? 1 : 0, newValue ? 1 : 0);
     }
 
     @Override
     protected void suspendRead1() {
         super.suspendRead2();
 
-        IoSession readSession = this.readSession.get();
+        IoSession readSession = this.readSession;
         if (readSession != null) {
             readSession.suspendRead();
         }
@@ -526,14 +565,14 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
         // call super first to trigger processor.consume()
         super.resumeRead2();
 
-        IoSession readSession = this.readSession.get();
+        IoSession readSession = this.readSession;
         if (readSession != null) {
             readSession.resumeRead();
         }
     }
 
     boolean compareAndSetReconnecting(boolean expected, boolean newValue) {
-        return reconnecting.compareAndSet(expected, newValue);
+        return RECONNECTING.compareAndSet(this, expected ? 1 : 0, newValue ? 1 : 0);
     }
 
     IoSessionEx getTransportSession() {
@@ -553,7 +592,7 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
     }
 
     boolean isReconnecting() {
-        return reconnecting.get();
+        return reconnecting != 0;
     }
 
     public int getClientIdleTimeout() {
@@ -594,6 +633,46 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
 
     }
 
+    private List<WsMessage> replayWriter(HttpAcceptSession session) {
+        if (replayBuffer == null || firstWriter) {
+            return null;
+        }
+
+        long previousSequenceNo = writerSequenceNo - 1;
+        String sequenceNo = session.getReadHeader(HttpHeaders.HEADER_X_SEQUENCE_NO);
+        if (Long.toString(writerSequenceNo).equals(sequenceNo)) {
+            // the previous downstream has been fully received by the client
+            replayBuffer.discardBefore(writerSequenceNo);
+            return null;
+        }
+        if (!Long.toString(previousSequenceNo).equals(sequenceNo)) {
+            // out of order, rejected without releasing what the client may still retry
+            return null;
+        }
+
+        List<WsMessage> replayed = replayBuffer.from(previousSequenceNo);
+        if (replayed == null && logger.isDebugEnabled()) {
+            logger.debug(String.format("Unable to replay downstream %d on WsebSession wseb#%d, no longer buffered",
+                    previousSequenceNo, this.getId()));
+        }
+        return replayed;
+    }
+
+    void setReplayBuffer(ReplayBuffer<WsMessage> replayBuffer) {
+        this.replayBuffer = replayBuffer;
+    }
+
+    ReplayBuffer<WsMessage> getReplayBuffer() {
+        return replayBuffer;
+    }
+
+    // buffers a message written on the current downstream
+    private void replayable(WsMessage message, int size) {
+        if (replayBuffer != null) {
+            replayBuffer.add(writerSequenceNo - 1, message, size);
+        }
+    }
+
     private boolean checkWriterOrder(HttpAcceptSession session) {
         if (validateSequenceNo) {
             return checkOrder(session, writerSequenceNo);
@@ -921,10 +1000,13 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
                             }
                             // flush the buffer out to the session
                             lastWrite = flushNowInternal(transport, wsebMessage, wsBuffer, filterChain, request);
+                            session.replayable(wsebMessage, remaining);
                         }
                         else {
                             // flush the buffer out to the session
-                            lastWrite = flushNowInternal(transport, new WsBinaryMessage(buf), buf, filterChain, request);
+                            WsMessage wsebMessage = new WsBinaryMessage(buf);
+                            lastWrite = flushNowInternal(transport, wsebMessage, buf, filterChain, request);
+                            session.replayable(wsebMessage, remaining);
                         }
                     }
                     catch (Exception e) {
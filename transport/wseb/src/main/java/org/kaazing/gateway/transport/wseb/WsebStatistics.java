@@ -0,0 +1,75 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.wseb;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gateway-wide counters of WSEB upstream traffic, from clients to the gateway ({@link WsebAcceptor}) and from the gateway
+ * to other gateways ({@link WsebConnector}). Comparing requests or writes to messages tells how well upstream messages
+ * are batched.
+ */
+public final class WsebStatistics {
+
+    private static final LongAdder UPSTREAM_REQUESTS = new LongAdder();
+    private static final LongAdder UPSTREAM_MESSAGES = new LongAdder();
+    private static final LongAdder CONNECT_UPSTREAM_WRITES = new LongAdder();
+    private static final LongAdder CONNECT_UPSTREAM_MESSAGES = new LongAdder();
+
+    private WsebStatistics() {
+    }
+
+    /**
+     * Returns the number of upstream requests accepted from WSEB clients.
+     */
+    public static long getUpstreamRequestCount() {
+        return UPSTREAM_REQUESTS.sum();
+    }
+
+    /**
+     * Returns the number of messages received on those upstream requests.
+     */
+    public static long getUpstreamMessageCount() {
+        return UPSTREAM_MESSAGES.sum();
+    }
+
+    /**
+     * Returns the number of upstream request bodies or chunks written by WSEB connect sessions.
+     */
+    public static long getConnectUpstreamWriteCount() {
+        return CONNECT_UPSTREAM_WRITES.sum();
+    }
+
+    /**
+     * Returns the number of messages carried by those writes.
+     */
+    public static long getConnectUpstreamMessageCount() {
+        return CONNECT_UPSTREAM_MESSAGES.sum();
+    }
+
+    static void recordUpstreamRequest() {
+        UPSTREAM_REQUESTS.increment();
+    }
+
+    static void recordUpstreamMessage() {
+        UPSTREAM_MESSAGES.increment();
+    }
+
+    static void recordConnectUpstreamWrite(int messages) {
+        CONNECT_UPSTREAM_WRITES.increment();
+        CONNECT_UPSTREAM_MESSAGES.add(messages);
+    }
+}
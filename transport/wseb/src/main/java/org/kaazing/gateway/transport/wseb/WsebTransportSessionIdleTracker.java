@@ -39,9 +39,15 @@ class WsebTransportSessionIdleTracker implements IoSessionIdleTracker {
             WsebTransportSessionIdleTracker.class, "tracked");
 
     private final Logger logger;
+    private final boolean adaptivePing;
     private final IoSessionIdleTracker idleTracker = new DefaultIoSessionIdleTracker();
 
     public WsebTransportSessionIdleTracker(Logger logger) {
+        this(false, logger);
+    }
+
+    public WsebTransportSessionIdleTracker(boolean adaptivePing, Logger logger) {
+        this.adaptivePing = adaptivePing;
         this.logger = logger;
     }
 
@@ -71,7 +77,7 @@ class WsebTransportSessionIdleTracker implements IoSessionIdleTracker {
         ALREADY_TRACKED.set(wsebSession, true);
         idleTracker.addSession(transportSession);
         WsCheckAliveFilter.addIfFeatureEnabled(transportSession.getFilterChain(), CHECK_ALIVE_FILTER,
-                ((WsebSession) wsebSession).getLocalAddress().getOption(INACTIVITY_TIMEOUT), wsebSession, logger);
+                ((WsebSession) wsebSession).getLocalAddress().getOption(INACTIVITY_TIMEOUT), wsebSession, adaptivePing, logger);
     }
 
     @Override
@@ -95,6 +95,8 @@ class WsebUpstreamHandler extends IoHandlerAdapter<HttpAcceptSession> {
             return;
         }
 
+        WsebStatistics.recordUpstreamRequest();
+
         IoFilterChain filterChain = session.getFilterChain();
 
         filterChain.addLast(CODEC_FILTER, codec);
@@ -160,6 +162,7 @@ class WsebUpstreamHandler extends IoHandlerAdapter<HttpAcceptSession> {
             }
             break;
         default:
+            WsebStatistics.recordUpstreamMessage();
             filterChain.fireMessageReceived(wsebMessage);
             break;
         }
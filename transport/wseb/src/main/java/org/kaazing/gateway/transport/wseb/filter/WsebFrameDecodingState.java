@@ -173,14 +173,7 @@ public class WsebFrameDecodingState extends DecodingStateMachine {
             }
             else {
                 checkSizeLimit(frameSize);
-                return new FixedLengthDecodingState(allocator, frameSize) {
-                    @Override
-                    protected DecodingState finishDecode(IoBuffer product, ProtocolDecoderOutput out) throws Exception {
-                        // read the binary frame contents
-                        out.write(new WsBinaryMessage((IoBufferEx) product));
-                        return READ_FRAME_TYPE;
-                    }
-                };
+                return READ_BINARY_FRAME_PAYLOAD.init(frameSize);
             }
         }
     };
@@ -243,19 +236,31 @@ public class WsebFrameDecodingState extends DecodingStateMachine {
             }
             else {
                 checkSizeLimit(frameSize);
-                return new FixedLengthDecodingState(allocator, frameSize) {
-                    @Override
-                    protected DecodingState finishDecode(IoBuffer product, ProtocolDecoderOutput out) throws Exception {
-                        validateUTF8(product);
-                        // read the text frame contents
-                        out.write(new WsTextMessage((IoBufferEx) product));
-                        return READ_FRAME_TYPE;
-                    }
-                };
+                return READ_SPECIFIED_LENGTH_TEXT_FRAME_PAYLOAD.init(frameSize);
             }
         }
     };
 
+    // payload states are re-initialized for each frame rather than constructed per frame
+    private final FixedLengthDecodingState READ_BINARY_FRAME_PAYLOAD = new FixedLengthDecodingState(allocator, 0) {
+        @Override
+        protected DecodingState finishDecode(IoBuffer product, ProtocolDecoderOutput out) throws Exception {
+            // read the binary frame contents
+            out.write(new WsBinaryMessage((IoBufferEx) product));
+            return READ_FRAME_TYPE;
+        }
+    };
+
+    private final FixedLengthDecodingState READ_SPECIFIED_LENGTH_TEXT_FRAME_PAYLOAD = new FixedLengthDecodingState(allocator, 0) {
+        @Override
+        protected DecodingState finishDecode(IoBuffer product, ProtocolDecoderOutput out) throws Exception {
+            validateUTF8(product);
+            // read the text frame contents
+            out.write(new WsTextMessage((IoBufferEx) product));
+            return READ_FRAME_TYPE;
+        }
+    };
+
     WsebFrameDecodingState(IoBufferAllocatorEx<?> allocator, int maxDataSize, boolean pingEnabled) {
         super(allocator);
         this.maxDataSize = maxDataSize;
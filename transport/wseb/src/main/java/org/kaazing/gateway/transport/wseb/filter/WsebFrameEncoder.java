@@ -29,6 +29,7 @@ import org.kaazing.gateway.transport.ws.WsPingMessage;
 import org.kaazing.gateway.transport.ws.WsPongMessage;
 import org.kaazing.gateway.transport.ws.bridge.filter.AbstractWsFrameEncoder;
 import org.kaazing.gateway.transport.ws.bridge.filter.WsDraftHixieFrameEncodingSupport;
+import org.kaazing.gateway.transport.ws.util.WsUtils;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.core.buffer.IoBufferEx;
 
@@ -37,6 +38,8 @@ public class WsebFrameEncoder extends AbstractWsFrameEncoder {
     private static final byte[] TO_HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
 
     private static final byte COMMAND_TYPE_BYTE  = (byte)0x01;
+    private static final byte BINARY_TYPE_BYTE = (byte)0x80;
+    private static final byte SPECIFIED_LENGTH_TEXT_TYPE_BYTE = (byte)0x81;
     private static final byte[] EMPTY_PING_BYTES = new byte[]{(byte)0x89, (byte)0x00};
     private static final byte[] EMPTY_PONG_BYTES = new byte[]{(byte)0x8A, (byte)0x00};
 
@@ -147,6 +150,34 @@ public class WsebFrameEncoder extends AbstractWsFrameEncoder {
         return WsDraftHixieFrameEncodingSupport.doBinaryEncode(allocator, flags, message);
     }
 
+    /**
+     * Returns the size of a binary or text message once framed, as it would be by {@link #doBinaryEncode} and
+     * {@link #doTextEncode}, so that several frames can be written into one buffer with {@link #encodeFrame}.
+     */
+    public static int frameSize(WsMessage message) {
+        int remaining = message.getBytes().remaining();
+        return 1 + WsUtils.calculateEncodedLengthSize(remaining) + remaining;
+    }
+
+    /**
+     * Frames a binary or text message at the position of the given buffer, leaving the message buffer unchanged.
+     */
+    public static void encodeFrame(ByteBuffer frames, WsMessage message) {
+        ByteBuffer buf = message.getBytes().buf();
+        switch (message.getKind()) {
+        case BINARY:
+            frames.put(BINARY_TYPE_BYTE);
+            break;
+        case TEXT:
+            frames.put(SPECIFIED_LENGTH_TEXT_TYPE_BYTE);
+            break;
+        default:
+            throw new IllegalArgumentException("Unexpected frame type: " + message.getKind());
+        }
+        WsUtils.encodeLength(frames, buf.remaining());
+        frames.put(buf.duplicate());
+    }
+
     @Override
     protected IoBufferEx doCloseEncode(IoBufferAllocatorEx<?> allocator, int flags, WsCloseMessage message) {
         return WsDraftHixieFrameEncodingSupport.doCloseEncode(allocator, flags);
@@ -0,0 +1,263 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.wseb;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.util.InternalSystemProperty.REPLAY_BUFFER_SIZE;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.kaazing.gateway.transport.IoHandlerAdapter;
+import org.kaazing.gateway.transport.wseb.test.WsebAcceptorRule;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.session.IoSessionEx;
+
+/**
+ * Retries a WSEB downstream over a plain socket with the sequence number of the lost response, checking the
+ * messages replayed from the replay buffer against those written on the original downstream.
+ */
+public class WsebReplayIT {
+
+    private static final int SEQUENCE_NO = 10;
+
+    private final BlockingQueue<WsebSession> sessions = new LinkedBlockingQueue<>();
+
+    @Rule
+    public final WsebAcceptorRule acceptor = new WsebAcceptorRule(configuration());
+
+    // small enough for a longer message to expire those written before it on the same downstream
+    private static Properties configuration() {
+        Properties configuration = new Properties();
+        configuration.setProperty(REPLAY_BUFFER_SIZE.getPropertyName(), "8");
+        return configuration;
+    }
+
+    @Before
+    public void bind() throws Exception {
+        acceptor.bind("wse://localhost:8000/path", new IoHandlerAdapter<IoSessionEx>() {
+            @Override
+            protected void doSessionOpened(IoSessionEx session) throws Exception {
+                sessions.add((WsebSession) session);
+            }
+        });
+    }
+
+    @Test(timeout = 10000)
+    public void shouldReplayDownstreamRetriedWithPreviousSequenceNumber() throws Exception {
+        String downstream = create();
+        WsebSession session = sessions.poll(5, TimeUnit.SECONDS);
+
+        byte[] originalFrames;
+        IoBufferEx second;
+        try (Socket socket = connect(downstream, SEQUENCE_NO + 1)) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            readResponse(in);
+            write(session, "one");
+            second = write(session, "two");
+            originalFrames = readFrames(in, 2);
+            assertArrayEquals(frames("one", "two"), originalFrames);
+        }
+        awaitDetached(session);
+
+        // the response was lost, so the client retries the same downstream
+        try (Socket socket = connect(downstream, SEQUENCE_NO + 1)) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            readResponse(in);
+            assertArrayEquals(originalFrames, readFrames(in, 2));
+
+            write(session, "three");
+            assertArrayEquals(frames("three"), readFrames(in, 1));
+        }
+        awaitDetached(session);
+
+        // the written buffer was neither consumed by the original write nor by the replay
+        assertEquals(3, second.remaining());
+        assertEquals("two", second.getString(UTF_8.newDecoder()));
+
+        // the next downstream confirms the replayed messages and continues in order
+        try (Socket socket = connect(downstream, SEQUENCE_NO + 2)) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            readResponse(in);
+            write(session, "four");
+            assertArrayEquals(frames("four"), readFrames(in, 1));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldCloseSessionOnUnknownSequenceNumber() throws Exception {
+        String downstream = create();
+        WsebSession session = sessions.poll(5, TimeUnit.SECONDS);
+
+        try (Socket socket = connect(downstream, SEQUENCE_NO + 1)) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            readResponse(in);
+            write(session, "one");
+            assertArrayEquals(frames("one"), readFrames(in, 1));
+        }
+        awaitDetached(session);
+
+        // neither a retry nor the next downstream, so out of order as without replay
+        try (Socket socket = connect(downstream, SEQUENCE_NO + 99)) {
+            String response = readHead(socket.getInputStream());
+            assertTrue(response, response.startsWith("HTTP/1.1 400 Bad Request\r\n"));
+        }
+        session.getCloseFuture().await();
+    }
+
+    @Test(timeout = 10000)
+    public void shouldRejectRetryWhenMessagesExpired() throws Exception {
+        String downstream = create();
+        WsebSession session = sessions.poll(5, TimeUnit.SECONDS);
+
+        try (Socket socket = connect(downstream, SEQUENCE_NO + 1)) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            readResponse(in);
+            write(session, "one");
+            write(session, "expiring");
+            assertArrayEquals(frames("one", "expiring"), readFrames(in, 2));
+        }
+        awaitDetached(session);
+
+        // a partial replay would silently drop "one", so the retry is refused as out of order instead
+        try (Socket socket = connect(downstream, SEQUENCE_NO + 1)) {
+            String response = readHead(socket.getInputStream());
+            assertTrue(response, response.startsWith("HTTP/1.1 400 Bad Request\r\n"));
+        }
+        session.getCloseFuture().await();
+    }
+
+    /**
+     * Creates a WSEB session, returning the downstream URL.
+     */
+    private static String create() throws IOException {
+        try (Socket socket = new Socket("localhost", 8000)) {
+            socket.setSoTimeout(5000);
+            String request =
+                    "POST /path/;e/cb HTTP/1.1\r\n" +
+                    "Host: localhost:8000\r\n" +
+                    "Content-Length: 0\r\n" +
+                    "X-WebSocket-Version: wseb-1.0\r\n" +
+                    "X-Sequence-No: " + SEQUENCE_NO + "\r\n" +
+                    "\r\n";
+            socket.getOutputStream().write(request.getBytes(US_ASCII));
+
+            InputStream in = socket.getInputStream();
+            String response = readHead(in);
+            assertTrue(response, response.startsWith("HTTP/1.1 201 Created\r\n"));
+            readLine(in);
+            return readLine(in);
+        }
+    }
+
+    private static Socket connect(String downstream, long sequenceNo) throws IOException {
+        Socket socket = new Socket("localhost", 8000);
+        socket.setSoTimeout(5000);
+        String request =
+                "GET " + URI.create(downstream).getRawPath() + " HTTP/1.1\r\n" +
+                "Host: localhost:8000\r\n" +
+                "X-Sequence-No: " + sequenceNo + "\r\n" +
+                "\r\n";
+        socket.getOutputStream().write(request.getBytes(US_ASCII));
+        return socket;
+    }
+
+    // written messages wait for the retry, rather than being lost to the closed downstream
+    private static void awaitDetached(WsebSession session) throws InterruptedException {
+        while (session.getParent() != null) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static IoBufferEx write(IoSessionEx session, String data) {
+        IoBufferEx buf = session.getBufferAllocator().wrap(ByteBuffer.wrap(data.getBytes(UTF_8)));
+        session.write(buf);
+        return buf;
+    }
+
+    private static byte[] frames(String... payloads) {
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        for (String payload : payloads) {
+            byte[] bytes = payload.getBytes(UTF_8);
+            frames.write(0x80);
+            frames.write(bytes.length);
+            frames.write(bytes, 0, bytes.length);
+        }
+        return frames.toByteArray();
+    }
+
+    private static void readResponse(InputStream in) throws IOException {
+        String response = readHead(in);
+        assertTrue(response, response.startsWith("HTTP/1.1 200 OK\r\n"));
+        assertTrue(response, response.contains("Content-Type: application/octet-stream\r\n"));
+    }
+
+    /**
+     * Reads binary frames with payloads shorter than 128 bytes.
+     */
+    private static byte[] readFrames(DataInputStream in, int count) throws IOException {
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++) {
+            int opcode = in.readUnsignedByte();
+            int length = in.readUnsignedByte();
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            frames.write(opcode);
+            frames.write(length);
+            frames.write(payload, 0, length);
+        }
+        return frames.toByteArray();
+    }
+
+    private static String readHead(InputStream in) throws IOException {
+        StringBuilder head = new StringBuilder();
+        String line;
+        do {
+            line = readLine(in);
+            head.append(line).append("\r\n");
+        } while (!line.isEmpty());
+        return head.toString();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b == -1) {
+                throw new IOException("Unexpected end of stream after " + line.toString("UTF-8"));
+            }
+            line.write(b);
+        }
+        String value = line.toString("UTF-8");
+        return value.endsWith("\r") ? value.substring(0, value.length() - 1) : value;
+    }
+}
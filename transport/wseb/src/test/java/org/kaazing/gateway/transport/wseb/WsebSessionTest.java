@@ -0,0 +1,89 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.wseb;
+
+import static java.lang.Thread.currentThread;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.resource.address.ResourceAddressFactory.newResourceAddressFactory;
+import static org.kaazing.mina.core.buffer.SimpleBufferAllocator.BUFFER_ALLOCATOR;
+import static org.kaazing.mina.core.session.IoSessionEx.IMMEDIATE_EXECUTOR;
+
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+
+import org.jmock.Mockery;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.gateway.resource.address.ResourceAddress;
+import org.kaazing.gateway.resource.address.ResourceAddressFactory;
+import org.kaazing.gateway.transport.ws.bridge.filter.WsBufferAllocator;
+import org.kaazing.gateway.transport.ws.extension.WebSocketExtension;
+import org.kaazing.mina.core.service.IoProcessorEx;
+import org.kaazing.mina.core.service.IoServiceEx;
+import org.kaazing.mina.core.session.DummySessionEx;
+import org.kaazing.test.util.ObjectFootprint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reports the heap footprint of each idle WebSocket emulated session, including its transport session,
+ * see {@link ObjectFootprint}.
+ */
+public class WsebSessionTest {
+
+    private static final long WSEB_MAXIMUM_BYTES = 1650;
+
+    private final ResourceAddressFactory addressFactory = newResourceAddressFactory();
+    private final Logger logger = LoggerFactory.getLogger(WsebSessionTest.class);
+    private final Properties configuration = new Properties();
+
+    private IoServiceEx service;
+    private IoProcessorEx<WsebSession> processor;
+    private ResourceAddress localAddress;
+    private ResourceAddress remoteAddress;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        Mockery context = new Mockery();
+        processor = context.mock(IoProcessorEx.class);
+
+        // the dummy service records no invocations, unlike mocks, so it does not add to the footprint of each session
+        service = new DummySessionEx().getService();
+
+        localAddress = addressFactory.newResourceAddress("wse://localhost:8000/echo");
+        remoteAddress = addressFactory.newResourceAddress("wse://localhost:8000/echo");
+    }
+
+    @Test
+    public void shouldReportWsebSessionFootprint() throws Exception {
+        ObjectFootprint footprint = ObjectFootprint.perInstance(new Callable<Object>() {
+            @Override
+            public Object call() {
+                return newWsebSession();
+            }
+        }, 100);
+
+        assertTrue("wseb session footprint\n" + footprint.toFootprint(), footprint.totalSize() <= WSEB_MAXIMUM_BYTES);
+    }
+
+    private WsebSession newWsebSession() {
+        return new WsebSession(0, currentThread(), IMMEDIATE_EXECUTOR, service, processor, localAddress, remoteAddress,
+                new WsBufferAllocator(BUFFER_ALLOCATOR, false), null, 0, 0L, false, 0L,
+                Collections.<WebSocketExtension>emptyList(), logger, configuration);
+    }
+}
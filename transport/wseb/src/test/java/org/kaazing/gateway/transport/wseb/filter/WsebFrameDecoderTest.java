@@ -17,6 +17,7 @@ package org.kaazing.gateway.transport.wseb.filter;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.nio.ByteBuffer;
@@ -25,6 +26,7 @@ import java.nio.charset.Charset;
 import org.apache.mina.core.buffer.IoBuffer;
 import org.apache.mina.filter.codec.ProtocolDecoder;
 import org.apache.mina.filter.codec.ProtocolDecoderException;
+import org.apache.mina.filter.codec.statemachine.DecodingState;
 import org.junit.Test;
 import org.kaazing.gateway.transport.ws.WsBinaryMessage;
 import org.kaazing.gateway.transport.ws.WsMessage;
@@ -105,6 +107,62 @@ public class WsebFrameDecoderTest {
 		}
 	}
 
+	@Test
+	public void decodeBatchedFramesReusingPayloadState() throws Exception {
+		ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+		IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+		TestFrameDecodingState decodingState = new TestFrameDecodingState(allocator);
+
+		IoBufferEx[] array = new IoBufferEx[] { allocator.wrap(allocator.allocate(4))
+                                                         .put((byte)0x80)
+                                                         .put((byte)0x05)
+                                                         .put((byte)0x01)
+                                                         .put((byte)0x02)
+                                                         .flip(),
+                                                allocator.wrap(allocator.allocate(13))
+                                                         .put((byte)0x03)
+                                                         .put((byte)0x04)
+                                                         .put((byte)0x05)
+                                                         .put((byte)0x81)
+                                                         .put((byte)0x05)
+                                                         .putString("Hello", UTF_8.newEncoder())
+                                                         .put((byte)0x80)
+                                                         .put((byte)0x05)
+                                                         .put((byte)0x06)
+                                                         .flip(),
+                                                allocator.wrap(allocator.allocate(4))
+                                                         .put((byte)0x07)
+                                                         .put((byte)0x08)
+                                                         .put((byte)0x09)
+                                                         .put((byte)0x0a)
+                                                         .flip(),
+		};
+
+		decodingState.decode((IoBuffer) array[0], session.getDecoderOutput());
+		DecodingState firstPayload = decodingState.currentState();
+
+		decodingState.decode((IoBuffer) array[1], session.getDecoderOutput());
+		DecodingState secondPayload = decodingState.currentState();
+		assertSame(firstPayload, secondPayload);
+
+		decodingState.decode((IoBuffer) array[2], session.getDecoderOutput());
+
+		WsMessage first = (WsMessage)session.getDecoderOutputQueue().poll();
+		assertEquals(new WsBinaryMessage(allocator.wrap(ByteBuffer.wrap(new byte[] { 1, 2, 3, 4, 5 }))), first);
+
+		WsMessage text = (WsMessage)session.getDecoderOutputQueue().poll();
+		assertEquals(new WsTextMessage(allocator.wrap(ByteBuffer.wrap("Hello".getBytes(UTF_8)))), text);
+		assertSame(array[1].array(), text.getBytes().array());
+
+		WsMessage second = (WsMessage)session.getDecoderOutputQueue().poll();
+		assertEquals(new WsBinaryMessage(allocator.wrap(ByteBuffer.wrap(new byte[] { 6, 7, 8, 9, 10 }))), second);
+
+		assertTrue(session.getDecoderOutputQueue().isEmpty());
+		for (IoBufferEx in : array) {
+			assertFalse(in.hasRemaining());
+		}
+	}
+
 	@Test
 	public void decodeTextFrame() throws Exception {
 		ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
@@ -632,4 +690,14 @@ public class WsebFrameDecoderTest {
         decoder.decode(session, (IoBuffer) in.getSlice(12), session.getDecoderOutput());
     }
 
+	private static final class TestFrameDecodingState extends WsebFrameDecodingState {
+
+		TestFrameDecodingState(IoBufferAllocatorEx<?> allocator) {
+			super(allocator, 0, true);
+		}
+
+		DecodingState currentState() throws Exception {
+			return getCurrentState();
+		}
+	}
 }
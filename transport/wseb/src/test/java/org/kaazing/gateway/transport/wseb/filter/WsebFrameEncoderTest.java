@@ -70,6 +70,30 @@ public class WsebFrameEncoderTest {
         assertNotSame(buf.array(), out.array());
 	}
 
+    @Test
+    public void testEncodeFramesIntoOneBuffer() throws Exception {
+        ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        ProtocolEncoder encoder = new WsebFrameEncoder(allocator);
+
+        WsMessage binary = new WsBinaryMessage(allocator.wrap(allocator.allocate(200)).fill((byte)0x97, 200).flip());
+        WsMessage text = new WsTextMessage(allocator.wrap(ByteBuffer.wrap("Hello".getBytes(UTF_8))));
+
+        ByteBuffer frames = ByteBuffer.allocate(WsebFrameEncoder.frameSize(binary) + WsebFrameEncoder.frameSize(text));
+        WsebFrameEncoder.encodeFrame(frames, binary);
+        WsebFrameEncoder.encodeFrame(frames, text);
+        frames.flip();
+
+        encoder.encode(session, binary, session.getEncoderOutput());
+        encoder.encode(session, text, session.getEncoderOutput());
+        IoBufferEx binaryFrame = (IoBufferEx) session.getEncoderOutputQueue().poll();
+        IoBufferEx textFrame = (IoBufferEx) session.getEncoderOutputQueue().poll();
+        assertEquals(allocator.wrap(allocator.allocate(frames.remaining())).put(binaryFrame).put(textFrame).flip(),
+                     allocator.wrap(frames));
+        assertEquals(200, binary.getBytes().remaining());
+        assertEquals(5, text.getBytes().remaining());
+    }
+
     @Test
     public void testEncodeBinaryFrameZeroCopy() throws Exception {
         ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
@@ -17,11 +17,14 @@ package org.kaazing.gateway.transport.wsn;
 
 import static org.kaazing.gateway.resource.address.ws.WsResourceAddress.LIGHTWEIGHT;
 
+import org.apache.mina.core.filterchain.IoFilterChain;
+import org.apache.mina.core.future.WriteFuture;
 import org.apache.mina.core.write.WriteRequest;
 import org.kaazing.gateway.transport.ws.AbstractWsAcceptProcessor;
 import org.kaazing.gateway.transport.ws.WsMessage;
 import org.kaazing.gateway.transport.ws.bridge.filter.WsBuffer;
 import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.session.IoSessionEx;
 
 public class WsnAcceptProcessor extends AbstractWsAcceptProcessor<WsnSession> {
     
@@ -58,6 +61,23 @@ public class WsnAcceptProcessor extends AbstractWsAcceptProcessor<WsnSession> {
         return message;
     }
 
+    @Override
+    protected WriteFuture flushNow(WsnSession session, IoSessionEx parent, IoBufferEx buf, IoFilterChain filterChain,
+            WriteRequest request) {
+        // wsx session: write straight to the transport session when the lightweight parent only passes frames through
+        // and has nothing queued, which would otherwise need to be written first to keep frames in order
+        if (parent instanceof WsnSession) {
+            WsnSession lightweight = (WsnSession) parent;
+            IoSessionEx transport = lightweight.getParent();
+            if (transport != null && !transport.isClosing() && !lightweight.isClosing() &&
+                    !lightweight.isWriteSuspended() && lightweight.getWriteRequestQueue().isEmpty(lightweight) &&
+                    lightweight.isPassThrough()) {
+                return super.flushNow(session, transport, buf, filterChain, request);
+            }
+        }
+        return super.flushNow(session, parent, buf, filterChain, request);
+    }
+
     @Override
     protected boolean shouldAccountForWrittenBytes(WsnSession session) {
         return !session.getLocalAddress().getOption(LIGHTWEIGHT);
@@ -16,6 +16,7 @@
 package org.kaazing.gateway.transport.wsn;
 
 import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
 import static java.util.Arrays.asList;
 import static org.kaazing.gateway.resource.address.ResourceAddress.BIND_ALTERNATE;
 import static org.kaazing.gateway.resource.address.ResourceAddress.NEXT_PROTOCOL;
@@ -35,6 +36,7 @@ import static org.kaazing.gateway.transport.ws.util.WsUtils.HEADER_WEBSOCKET_EXT
 import static org.kaazing.gateway.transport.ws.util.WsUtils.HEADER_X_WEBSOCKET_EXTENSIONS;
 import static org.kaazing.gateway.transport.ws.util.WsUtils.negotiateWebSocketProtocol;
 import static org.kaazing.gateway.transport.wsn.WsnSession.SESSION_KEY;
+import static org.kaazing.gateway.util.InternalSystemProperty.WS_ADAPTIVE_PING;
 import static org.kaazing.gateway.util.ws.WebSocketWireProtocol.HYBI_13;
 import static org.kaazing.mina.core.buffer.IoBufferEx.FLAG_NONE;
 
@@ -80,6 +82,7 @@ import org.kaazing.gateway.resource.address.wsn.WsnResourceAddressFactorySpi;
 import org.kaazing.gateway.security.auth.context.ResultAwareLoginContext;
 import org.kaazing.gateway.transport.AbstractBridgeAcceptor;
 import org.kaazing.gateway.transport.AbstractBridgeSession;
+import org.kaazing.gateway.transport.AdmissionController;
 import org.kaazing.gateway.transport.Bindings;
 import org.kaazing.gateway.transport.Bindings.Binding;
 import org.kaazing.gateway.transport.BridgeAcceptor;
@@ -192,6 +195,7 @@ public class WsnAcceptor extends AbstractBridgeAcceptor<WsnSession, WsnBindings.
 
     private Properties configuration =  new Properties();
     private ScheduledExecutorService scheduler;
+    private AdmissionController admissionController;
     private BridgeServiceFactory bridgeServiceFactory;
     private ResourceAddressFactory resourceAddressFactory;
     private WebSocketExtensionFactory webSocketExtensionFactory;
@@ -221,6 +225,14 @@ public class WsnAcceptor extends AbstractBridgeAcceptor<WsnSession, WsnBindings.
     @Resource(name = "configuration")
     public void setConfiguration(Properties configuration) {
         this.configuration = configuration;
+        if (admissionController == null) {
+            admissionController = new AdmissionController(configuration);
+        }
+    }
+
+    @Resource(name = "admissionController")
+    public void setAdmissionController(AdmissionController admissionController) {
+        this.admissionController = admissionController;
     }
 
     @Resource(name = "schedulerProvider")
@@ -597,7 +609,14 @@ public class WsnAcceptor extends AbstractBridgeAcceptor<WsnSession, WsnBindings.
                 boolean sendMessagesDirect = isLightweightWsnSession
                                              && hasPostUpgradeChildWsnSession; // post-upgrade
                 if ( sendMessagesDirect ) {
-                    filterChain.fireMessageReceived(message);
+                    if (wsnSession.isPassThrough()) {
+                        // nothing to observe on the lightweight session, hand over to its wsx session directly
+                        wsnSession.increaseReadMessages(currentTimeMillis());
+                        doMessageReceived(wsnSession, message);
+                    }
+                    else {
+                        filterChain.fireMessageReceived(message);
+                    }
                     return;
                 }
 
@@ -643,7 +662,7 @@ public class WsnAcceptor extends AbstractBridgeAcceptor<WsnSession, WsnBindings.
                     break;
                 case CLOSE:
                     // WebSockt API version 13: echo close frame to client
-                    if (wsnSession.sendCloseFrame.compareAndSet(true, false)) {
+                    if (wsnSession.claimSendCloseFrame()) {
                         WsCloseMessage close =  (WsCloseMessage) wsMessage;
                         WsCloseMessage closeResponse = new WsCloseMessage(close.getStatus(), close.getReason());
                         session.write(closeResponse);
@@ -778,7 +797,8 @@ public class WsnAcceptor extends AbstractBridgeAcceptor<WsnSession, WsnBindings.
             // Use ping and pong, if available, to detect and close dead connections.
             if (codecRequired) {
                 if (rfc) {
-                    WsCheckAliveFilter.addIfFeatureEnabled(filterChain, CHECK_ALIVE_FILTER, localAddress.getOption(INACTIVITY_TIMEOUT), logger);
+                    WsCheckAliveFilter.addIfFeatureEnabled(filterChain, CHECK_ALIVE_FILTER, localAddress.getOption(INACTIVITY_TIMEOUT),
+                            null, WS_ADAPTIVE_PING.getBooleanProperty(configuration), logger);
                 }
                 else {
                     if (logger.isDebugEnabled() && localAddress.getOption(INACTIVITY_TIMEOUT) > 0) {
@@ -825,7 +845,7 @@ public class WsnAcceptor extends AbstractBridgeAcceptor<WsnSession, WsnBindings.
             // pathInfo to the path relative to the service accept URI path.
             String path = session.getPathInfo().getPath();
             if (path == null || path.length() == 0) {
-                return true;
+                return beginHandshake(session);
             }
 
             if (logger.isInfoEnabled()) {
@@ -840,6 +860,35 @@ public class WsnAcceptor extends AbstractBridgeAcceptor<WsnSession, WsnBindings.
             return false;
         }
 
+        private boolean beginHandshake(HttpAcceptSession session) {
+            if (admissionController == null) {
+                return true;
+            }
+
+            String bindAddress = session.getLocalAddress().getExternalURI();
+            if (admissionController.beginHandshake(session, bindAddress)) {
+                return true;
+            }
+
+            if (logger.isDebugEnabled()) {
+                logger.debug(String.format("%s - websocket upgrade rejected, too many upgrades in progress on %s",
+                                           session.getParent().getRemoteAddress(), bindAddress));
+            }
+
+            session.setStatus(HttpStatus.SERVER_SERVICE_UNAVAILABLE);
+            session.setReason(WEB_SOCKET_UPGRADE_FAILED_REASON);
+            session.setWriteHeader("Retry-After", "1");
+            session.close(false);
+            return false;
+        }
+
+        @Override
+        protected void doSessionClosed(HttpAcceptSession session) throws Exception {
+            if (admissionController != null) {
+                admissionController.endHandshake(session);
+            }
+        }
+
         protected void doUpgradeFailure(HttpAcceptSession session) throws Exception {
             session.setStatus(HttpStatus.CLIENT_BAD_REQUEST);
             session.setReason(WEB_SOCKET_UPGRADE_FAILED_REASON);
@@ -1233,6 +1282,7 @@ public class WsnAcceptor extends AbstractBridgeAcceptor<WsnSession, WsnBindings.
         protected void doSessionClosed(HttpAcceptSession session) throws Exception {
             // clean up the attribute.
             session.removeAttribute(WSN_HTTP_BRIDGE_HANDLER);
+            super.doSessionClosed(session);
         }
 
 
@@ -15,11 +15,14 @@
  */
 package org.kaazing.gateway.transport.wsn;
 
+import static org.kaazing.gateway.resource.address.ws.WsResourceAddress.LIGHTWEIGHT;
+
 import java.net.URI;
 import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
+import org.apache.mina.core.filterchain.IoFilterChain;
 import org.kaazing.gateway.resource.address.ResourceAddress;
 import org.kaazing.gateway.security.auth.context.ResultAwareLoginContext;
 import org.kaazing.gateway.transport.Direction;
@@ -33,6 +36,7 @@ import org.kaazing.gateway.transport.ws.bridge.filter.WsBuffer;
 import org.kaazing.gateway.transport.ws.extension.WebSocketExtension;
 import org.kaazing.gateway.util.ws.WebSocketWireProtocol;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.filterchain.DefaultIoFilterChain;
 import org.kaazing.mina.core.buffer.IoBufferEx;
 import org.kaazing.mina.core.service.IoProcessorEx;
 import org.kaazing.mina.core.service.IoServiceEx;
@@ -59,10 +63,13 @@ public class WsnSession extends AbstractWsBridgeSession<WsnSession, WsBuffer> {
 
     };
 
+    private static final AtomicIntegerFieldUpdater<WsnSession> SEND_CLOSE_FRAME =
+        AtomicIntegerFieldUpdater.newUpdater(WsnSession.class, "sendCloseFrame");
+
     private URI httpRequestURI; // the URI of the pre-upgrade HTTP request
     private Collection<String> balanceeURIs;
     private WebSocketWireProtocol version;
-    AtomicBoolean sendCloseFrame;
+    private volatile int sendCloseFrame;
 
     public WsnSession(IoServiceEx service, IoProcessorEx<WsnSession> processor, ResourceAddress localAddress,
                       ResourceAddress remoteAddress, IoSessionEx parent, IoBufferAllocatorEx<WsBuffer> allocator,
@@ -71,8 +78,8 @@ public class WsnSession extends AbstractWsBridgeSession<WsnSession, WsBuffer> {
         super(service, processor, localAddress, remoteAddress, parent, allocator, Direction.BOTH, loginContext, extensions);
         this.httpRequestURI = httpRequestURI;
         this.version = version;
-        this.sendCloseFrame = new AtomicBoolean();
-        this.sendCloseFrame.set(WebSocketWireProtocol.RFC_6455 == version || WebSocketWireProtocol.HYBI_13 == version); //send close frame if protocol is RFC-6455
+        //send close frame if protocol is RFC-6455
+        this.sendCloseFrame = (WebSocketWireProtocol.RFC_6455 == version || WebSocketWireProtocol.HYBI_13 == version) ? 1 : 0;
     }
 
     @Override
@@ -86,6 +93,11 @@ public class WsnSession extends AbstractWsBridgeSession<WsnSession, WsBuffer> {
         }
     }
 
+    // true at most once, when the close frame should be echoed to the client
+    boolean claimSendCloseFrame() {
+        return SEND_CLOSE_FRAME.compareAndSet(this, 1, 0);
+    }
+
     Collection<String> getBalanceeURIs() {
         return balanceeURIs;
     }
@@ -112,6 +124,19 @@ public class WsnSession extends AbstractWsBridgeSession<WsnSession, WsBuffer> {
         //comes from getParent().getAttribute(HTTP_REQUEST_URI_KEY)
     }
 
+    /**
+     * Returns true for a lightweight session (x-kaazing-handshake) without filters of its own. Once the
+     * extended handshake completes, such a session only forwards frames between its wsx child session and
+     * the transport session, so both directions can bypass it. The session stays in place as the parent
+     * of the wsx session.
+     */
+    boolean isPassThrough() {
+        IoFilterChain filterChain = getFilterChain();
+        return filterChain instanceof DefaultIoFilterChain &&
+               ((DefaultIoFilterChain) filterChain).isPassThrough() &&
+               getLocalAddress().getOption(LIGHTWEIGHT);
+    }
+
     @Override
     public ResourceAddress getLocalAddress() {
         return super.getLocalAddress();
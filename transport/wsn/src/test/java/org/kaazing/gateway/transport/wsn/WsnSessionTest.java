@@ -0,0 +1,107 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.wsn;
+
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.resource.address.ResourceAddressFactory.newResourceAddressFactory;
+import static org.kaazing.mina.core.buffer.SimpleBufferAllocator.BUFFER_ALLOCATOR;
+
+import java.net.URI;
+import java.util.concurrent.Callable;
+
+import org.jmock.Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.gateway.resource.address.ResourceAddress;
+import org.kaazing.gateway.resource.address.ResourceAddressFactory;
+import org.kaazing.gateway.transport.ws.bridge.filter.WsBufferAllocator;
+import org.kaazing.gateway.util.ws.WebSocketWireProtocol;
+import org.kaazing.mina.core.service.IoProcessorEx;
+import org.kaazing.mina.core.service.IoServiceEx;
+
+import org.kaazing.mina.core.session.DummySessionEx;
+import org.kaazing.mina.core.session.IoSessionEx;
+import org.kaazing.test.util.ObjectFootprint;
+
+/**
+ * Reports the heap footprint of each idle WebSocket session above the transport (TCP or TLS) session,
+ * see {@link ObjectFootprint}.
+ */
+public class WsnSessionTest {
+
+    private final ResourceAddressFactory addressFactory = newResourceAddressFactory();
+    private final URI httpRequestURI = URI.create("http://localhost:8000/echo");
+
+    private IoServiceEx service;
+    private IoProcessorEx<WsnSession> processor;
+    private IoSessionEx transport;
+    private ResourceAddress localAddress;
+    private ResourceAddress remoteAddress;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        Mockery context = new Mockery() {
+            {
+                setImposteriser(ClassImposteriser.INSTANCE);
+            }
+        };
+        processor = context.mock(IoProcessorEx.class);
+
+        // the dummy transport session and its service record no invocations, unlike mocks,
+        // so they do not add to the footprint of each session
+        transport = new DummySessionEx();
+        service = transport.getService();
+
+        localAddress = addressFactory.newResourceAddress("ws://localhost:8000/echo");
+        remoteAddress = addressFactory.newResourceAddress("ws://localhost:8000/echo");
+    }
+
+    @Test
+    public void shouldReportWsnSessionFootprint() throws Exception {
+        ObjectFootprint footprint = ObjectFootprint.perInstance(new Callable<Object>() {
+            @Override
+            public Object call() {
+                return newWsnSession(transport);
+            }
+        }, 100);
+
+        assertTrue("wsn session footprint\n" + footprint.toFootprint(), footprint.totalSize() <= WSN_MAXIMUM_BYTES);
+    }
+
+    @Test
+    public void shouldReportWsxSessionFootprint() throws Exception {
+        ObjectFootprint footprint = ObjectFootprint.perInstance(new Callable<Object>() {
+            @Override
+            public Object call() {
+                // the lightweight session of the extended handshake stays in place as parent of the wsx session
+                WsnSession lightweight = newWsnSession(transport);
+                return newWsnSession(lightweight);
+            }
+        }, 100);
+
+        assertTrue("wsx session footprint\n" + footprint.toFootprint(), footprint.totalSize() <= WSX_MAXIMUM_BYTES);
+    }
+
+    private WsnSession newWsnSession(IoSessionEx parent) {
+        return new WsnSession(service, processor, localAddress, remoteAddress, parent,
+                new WsBufferAllocator(BUFFER_ALLOCATOR, false), httpRequestURI, null, WebSocketWireProtocol.RFC_6455, null);
+    }
+
+    private static final long WSN_MAXIMUM_BYTES = 600;
+    private static final long WSX_MAXIMUM_BYTES = 1200;
+}
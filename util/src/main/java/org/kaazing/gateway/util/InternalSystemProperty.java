@@ -36,6 +36,10 @@ public enum InternalSystemProperty {
     WS_CLOSE_TIMEOUT
             ("org.kaazing.gateway.transport.ws.CLOSE_TIMEOUT", "5sec"),
 
+    // ping more often when WebSocket round-trip times vary (only when ws.inactivity.timeout is set)
+    WS_ADAPTIVE_PING
+            ("org.kaazing.gateway.transport.ws.ADAPTIVE_PING", "false"),
+
     WSE_IDLE_TIMEOUT
             ("org.kaazing.gateway.server.transport.wse.IDLE_TIMEOUT", "60"),
     // Next property is to allow us to safely introduce changes
@@ -96,7 +100,62 @@ public enum InternalSystemProperty {
     CONNECT_FOLLOW_REDIRECT_WITH_QUERY
             ("org.kaazing.gateway.transport.http.CONNECT_FOLLOW_REDIRECT_WITH_QUERY", "false"),
 
+    // HTTP/2 for http/1.1 accepts (h2c preface and upgrade, "h2" advertised through ALPN), opt-in
+    HTTP2_ENABLED
+            ("org.kaazing.gateway.transport.http.HTTP2_ENABLED", "false"),
+
+    // replay of messages missed during SSE and WSEB reconnects, disabled when the per-session size is 0
+    REPLAY_BUFFER_SIZE
+            ("org.kaazing.gateway.transport.REPLAY_BUFFER_SIZE", "0"),
+
+    REPLAY_BUFFER_SERVICE_MAXIMUM
+            ("org.kaazing.gateway.transport.REPLAY_BUFFER_SERVICE_MAXIMUM", "16m"),
+
+    REPLAY_BUFFER_MAXIMUM
+            ("org.kaazing.gateway.transport.REPLAY_BUFFER_MAXIMUM", "64m"),
+
+    // admission control of new connections, each limit is disabled when 0
+    // connections accepted per second on each bind address, bursts of up to ACCEPT_BURST (default: the rate)
+    ADMISSION_ACCEPT_RATE
+            ("org.kaazing.gateway.transport.ADMISSION_ACCEPT_RATE", "0"),
+
+    ADMISSION_ACCEPT_BURST
+            ("org.kaazing.gateway.transport.ADMISSION_ACCEPT_BURST", "0"),
+
+    // TLS handshakes and WebSocket upgrades in progress on each bind address
+    ADMISSION_MAXIMUM_HANDSHAKES
+            ("org.kaazing.gateway.transport.ADMISSION_MAXIMUM_HANDSHAKES", "0"),
+
+    // events queued for an I/O worker above which its new connections and requests are shed
+    ADMISSION_SHED_QUEUE_DEPTH
+            ("org.kaazing.gateway.transport.ADMISSION_SHED_QUEUE_DEPTH", "0"),
+
+    // binary tracing of transport events into a memory-mapped ring file per I/O thread (see TraceRecorder)
+    // directory of the ring files, defaults to java.io.tmpdir
+    TRACE_DIRECTORY
+            ("org.kaazing.gateway.transport.TRACE_DIRECTORY"),
+
+    // records kept in each ring file before the oldest are overwritten
+    TRACE_RECORDS
+            ("org.kaazing.gateway.transport.TRACE_RECORDS", "65536"),
+
+    // leading payload bytes kept in each record
+    TRACE_PAYLOAD_BYTES
+            ("org.kaazing.gateway.transport.TRACE_PAYLOAD_BYTES", "32"),
+
+    // resolved addresses reused by service connects (see ResourceAddressCache), caching is disabled when the size is 0
+    RESOURCE_ADDRESS_CACHE_SIZE
+            ("org.kaazing.gateway.resource.address.CACHE_SIZE", "1024"),
+
+    // age after which a cached address is resolved again to pick up host name changes
+    RESOURCE_ADDRESS_CACHE_MAXIMUM_AGE
+            ("org.kaazing.gateway.resource.address.CACHE_MAXIMUM_AGE", "60sec"),
+
     // services
+    // number of threads starting independent services in parallel, 1 starts services one at a time in config order
+    SERVICE_STARTUP_THREADS
+            ("org.kaazing.gateway.server.SERVICE_STARTUP_THREADS", "1"),
+
     BROADCAST_SERVICE_MAXIMUM_PENDING_BYTES
             ("org.kaazing.gateway.server.service.broadcast.MAXIMUM_PENDING_BYTES"),
 
@@ -0,0 +1,244 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size, lock free histogram of latency values (typically milliseconds), in the style of HdrHistogram.
+ * Values below 32 are counted exactly; larger values fall into buckets spaced logarithmically, each power of two
+ * being split into 16 linear sub-buckets, which bounds the relative error of reported values to about 6%.
+ * Values above {@link #getHighestTrackableValue()} are counted in the last bucket.
+ * <p/>
+ * Recording is safe from any number of threads, reads give a consistent enough view for reporting purposes
+ * without blocking writers.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+    private static final int MAX_SHIFT = 36;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + MAX_SHIFT * SUB_BUCKET_HALF_COUNT;
+    private static final long HIGHEST_TRACKABLE_VALUE = highestEquivalentValue(BUCKET_COUNT - 1);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalValue = new AtomicLong();
+    private final AtomicLong minValue = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maxValue = new AtomicLong();
+
+    public void recordValue(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value " + value);
+        }
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.incrementAndGet();
+        totalValue.addAndGet(value);
+        updateMin(value);
+        updateMax(value);
+    }
+
+    /**
+     * Adds the counts of another histogram to this one, e.g. to produce a total across transports.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        totalValue.addAndGet(other.totalValue.get());
+        if (other.getCount() != 0) {
+            updateMin(other.minValue.get());
+            updateMax(other.maxValue.get());
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalValue.set(0);
+        minValue.set(Long.MAX_VALUE);
+        maxValue.set(0);
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * @return the exact sum of all recorded values, e.g. for exporters that report a running total next to the count
+     */
+    public long getTotalValue() {
+        return totalValue.get();
+    }
+
+    public long getMinValue() {
+        return getCount() == 0 ? 0 : minValue.get();
+    }
+
+    public long getMaxValue() {
+        return maxValue.get();
+    }
+
+    public long getHighestTrackableValue() {
+        return HIGHEST_TRACKABLE_VALUE;
+    }
+
+    public double getMean() {
+        long count = 0;
+        double total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long bucketCount = counts.get(i);
+            if (bucketCount != 0) {
+                count += bucketCount;
+                total += bucketCount * (double) medianEquivalentValue(i);
+            }
+        }
+        return count == 0 ? 0 : total / count;
+    }
+
+    public double getStdDeviation() {
+        double mean = getMean();
+        long count = 0;
+        double total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long bucketCount = counts.get(i);
+            if (bucketCount != 0) {
+                double deviation = medianEquivalentValue(i) - mean;
+                count += bucketCount;
+                total += bucketCount * deviation * deviation;
+            }
+        }
+        return count == 0 ? 0 : Math.sqrt(total / count);
+    }
+
+    /**
+     * @param percentile  between 0 and 100
+     * @return the highest value equivalent to the value at the given percentile, never more than the maximum recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += counts.get(i);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long countAtPercentile = countAtPercentile(percentile, count);
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += counts.get(i);
+            if (cumulative >= countAtPercentile) {
+                return Math.min(highestEquivalentValue(i), getMaxValue());
+            }
+        }
+        return getMaxValue();
+    }
+
+    /**
+     * Looks up several percentiles in a single pass over the buckets, e.g. for exporters reporting a fixed set of quantiles.
+     *
+     * @param percentiles  in ascending order, each between 0 and 100
+     * @param values  receives the value at each of the percentiles, as returned by {@link #getValueAtPercentile(double)}
+     */
+    public void getValuesAtPercentiles(double[] percentiles, long[] values) {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += counts.get(i);
+        }
+        long maxValue = getMaxValue();
+        int index = 0;
+        if (count != 0) {
+            long cumulative = 0;
+            for (int i = 0; i < BUCKET_COUNT && index < percentiles.length; i++) {
+                cumulative += counts.get(i);
+                while (index < percentiles.length && cumulative >= countAtPercentile(percentiles[index], count)) {
+                    values[index++] = Math.min(highestEquivalentValue(i), maxValue);
+                }
+            }
+        }
+        while (index < percentiles.length) {
+            values[index++] = (count == 0) ? 0 : maxValue;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LatencyHistogram [count=%d, min=%d, mean=%.1f, p50=%d, p99=%d, max=%d]",
+                getCount(), getMinValue(), getMean(), getValueAtPercentile(50), getValueAtPercentile(99), getMaxValue());
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        if (shift > MAX_SHIFT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (subBucket - SUB_BUCKET_HALF_COUNT);
+    }
+
+    static long lowestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int offset = index - SUB_BUCKET_COUNT;
+        int shift = offset / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = offset % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return subBucket << shift;
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        return lowestEquivalentValue(index) + (1L << shift) - 1;
+    }
+
+    private static long countAtPercentile(double percentile, long count) {
+        double requested = Math.min(Math.max(percentile, 0.0), 100.0);
+        return Math.max((long) Math.ceil(requested / 100.0 * count), 1);
+    }
+
+    private static long medianEquivalentValue(int index) {
+        return (lowestEquivalentValue(index) + highestEquivalentValue(index)) / 2;
+    }
+
+    private void updateMin(long value) {
+        long current = minValue.get();
+        while (value < current && !minValue.compareAndSet(current, value)) {
+            current = minValue.get();
+        }
+    }
+
+    private void updateMax(long value) {
+        long current = maxValue.get();
+        while (value > current && !maxValue.compareAndSet(current, value)) {
+            current = maxValue.get();
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldMapValuesToBucketsContainingThem() {
+        for (long value = 0; value < 1L << 20; value += 7) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(LatencyHistogram.lowestEquivalentValue(index) <= value);
+            assertTrue(LatencyHistogram.highestEquivalentValue(index) >= value);
+        }
+    }
+
+    @Test
+    public void shouldReportPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 100; value++) {
+            histogram.recordValue(value);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(1, histogram.getMinValue());
+        assertEquals(100, histogram.getMaxValue());
+        assertEquals(5050, histogram.getTotalValue());
+        assertEquals(50.5, histogram.getMean(), 1.0);
+        assertEquals(10, histogram.getValueAtPercentile(10));
+        assertEquals(50, histogram.getValueAtPercentile(50), 2);
+        assertEquals(99, histogram.getValueAtPercentile(99), 4);
+        assertEquals(100, histogram.getValueAtPercentile(100));
+
+        double[] percentiles = {10, 50, 99, 100};
+        long[] values = new long[percentiles.length];
+        histogram.getValuesAtPercentiles(percentiles, values);
+        for (int i = 0; i < percentiles.length; i++) {
+            assertEquals(histogram.getValueAtPercentile(percentiles[i]), values[i]);
+        }
+    }
+
+    @Test
+    public void shouldCountValuesAboveHighestTrackableValue() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordValue(Long.MAX_VALUE);
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(Long.MAX_VALUE, histogram.getMaxValue());
+        assertEquals(histogram.getHighestTrackableValue(), histogram.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void shouldAddAndReset() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.recordValue(5);
+        second.recordValue(500);
+
+        LatencyHistogram total = new LatencyHistogram();
+        total.add(first);
+        total.add(second);
+        assertEquals(2, total.getCount());
+        assertEquals(5, total.getMinValue());
+        assertEquals(500, total.getMaxValue());
+        assertEquals(505, total.getTotalValue());
+
+        total.reset();
+        assertEquals(0, total.getCount());
+        assertEquals(0, total.getTotalValue());
+        assertEquals(0, total.getMinValue());
+        assertEquals(0, total.getValueAtPercentile(99));
+    }
+}